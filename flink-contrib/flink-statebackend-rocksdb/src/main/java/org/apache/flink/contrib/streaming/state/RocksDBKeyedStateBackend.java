@@ -17,6 +17,7 @@
 
 package org.apache.flink.contrib.streaming.state;
 
+import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.JobID;
 import org.apache.flink.api.common.state.AggregatingStateDescriptor;
@@ -46,8 +47,10 @@ import org.apache.flink.runtime.io.async.AbstractAsyncIOCallable;
 import org.apache.flink.runtime.io.async.AsyncStoppableTaskWithCallback;
 import org.apache.flink.runtime.query.TaskKvStateRegistry;
 import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.CheckpointListener;
 import org.apache.flink.runtime.state.CheckpointStreamFactory;
 import org.apache.flink.runtime.state.DoneFuture;
+import org.apache.flink.runtime.state.IncrementalKeyedStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
@@ -55,6 +58,9 @@ import org.apache.flink.runtime.state.KeyGroupsStateHandle;
 import org.apache.flink.runtime.state.KeyedBackendSerializationProxy;
 import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.RegisteredBackendStateMetaInfo;
+import org.apache.flink.runtime.state.SharedStreamStateHandle;
+import org.apache.flink.runtime.state.StateObject;
+import org.apache.flink.runtime.state.StateUtil;
 import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.internal.InternalAggregatingState;
 import org.apache.flink.runtime.state.internal.InternalFoldingState;
@@ -62,11 +68,19 @@ import org.apache.flink.runtime.state.internal.InternalListState;
 import org.apache.flink.runtime.state.internal.InternalMapState;
 import org.apache.flink.runtime.state.internal.InternalReducingState;
 import org.apache.flink.runtime.state.internal.InternalValueState;
+import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
+import org.apache.flink.runtime.state.ttl.ExpiredStateFilter;
+import org.apache.flink.runtime.state.ttl.TtlSerializer;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.runtime.state.ttl.TtlValue;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
 import org.apache.flink.runtime.util.SerializableObject;
+import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.FileUtils;
 import org.apache.flink.util.IOUtils;
 import org.apache.flink.util.InstantiationUtil;
 import org.apache.flink.util.Preconditions;
+import org.rocksdb.Checkpoint;
 import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
@@ -76,20 +90,36 @@ import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
 import org.rocksdb.Snapshot;
+import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.RunnableFuture;
 
 /**
@@ -98,10 +128,13 @@ import java.util.concurrent.RunnableFuture;
  * checkpointing. This state backend can store very large state that exceeds memory and spills
  * to disk. Except for the snapshotting, this class should be accessed as if it is not threadsafe.
  */
-public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
+public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> implements CheckpointListener {
 
 	private static final Logger LOG = LoggerFactory.getLogger(RocksDBKeyedStateBackend.class);
 
+	/** The number of runs of an incremental TTL cleanup after which it recreates its iterator. */
+	private static final int TTL_CLEANUP_ITERATOR_RUNS = 1000;
+
 	/** The column family options from the options factory */
 	private final ColumnFamilyOptions columnOptions;
 
@@ -134,9 +167,39 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 	 */
 	private Map<String, Tuple2<ColumnFamilyHandle, RegisteredBackendStateMetaInfo<?, ?>>> kvStateInformation;
 
+	/** Filters for the expired values of the states with time-to-live, by state name. */
+	private final Map<String, ExpiredValueFilter> expiredValueFilters = new HashMap<>();
+
+	/** The incremental cleanups of the states with time-to-live, by state name. */
+	private final Map<String, ExpiredValueCleanup> ttlCleanups = new HashMap<>();
+
+	/** The write options of the incremental TTL cleanups, created with the first cleanup. */
+	private WriteOptions ttlCleanupWriteOptions;
+
 	/** Number of bytes required to prefix the key groups. */
 	private final int keyGroupPrefixBytes;
 
+	/** True if checkpoints only upload the files that were not part of the last completed checkpoint */
+	private final boolean enableIncrementalCheckpointing;
+
+	/** Unique id of this backend instance, used to create unique registration keys for uploaded files */
+	private final String backendUID;
+
+	/**
+	 * The sst files uploaded by the incremental snapshots, by checkpoint id. Only the snapshots
+	 * of the last completed checkpoint and of later checkpoints are kept.
+	 */
+	private final SortedMap<Long, Map<String, SharedStreamStateHandle>> materializedSstFiles;
+
+	/** The id of the last completed checkpoint, guarded by {@link #materializedSstFiles} */
+	private long lastCompletedCheckpointId = -1L;
+
+	/**
+	 * The threads that upload and download the files of incremental snapshots. Null if the files
+	 * are transferred one after the other by the calling thread.
+	 */
+	private final ExecutorService transferThreadPool;
+
 	public RocksDBKeyedStateBackend(
 			JobID jobId,
 			String operatorIdentifier,
@@ -151,9 +214,37 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			ExecutionConfig executionConfig
 	) throws IOException {
 
+		this(jobId, operatorIdentifier, userCodeClassLoader, instanceBasePath, dbOptions, columnFamilyOptions,
+				kvStateRegistry, keySerializer, numberOfKeyGroups, keyGroupRange, executionConfig, false, 1);
+	}
+
+	public RocksDBKeyedStateBackend(
+			JobID jobId,
+			String operatorIdentifier,
+			ClassLoader userCodeClassLoader,
+			File instanceBasePath,
+			DBOptions dbOptions,
+			ColumnFamilyOptions columnFamilyOptions,
+			TaskKvStateRegistry kvStateRegistry,
+			TypeSerializer<K> keySerializer,
+			int numberOfKeyGroups,
+			KeyGroupRange keyGroupRange,
+			ExecutionConfig executionConfig,
+			boolean enableIncrementalCheckpointing,
+			int numberOfTransferThreads
+	) throws IOException {
+
 		super(kvStateRegistry, keySerializer, userCodeClassLoader, numberOfKeyGroups, keyGroupRange, executionConfig);
 		this.columnOptions = Preconditions.checkNotNull(columnFamilyOptions);
 		this.dbOptions = Preconditions.checkNotNull(dbOptions);
+		this.enableIncrementalCheckpointing = enableIncrementalCheckpointing;
+		this.backendUID = UUID.randomUUID().toString();
+		this.materializedSstFiles = new TreeMap<>();
+
+		Preconditions.checkArgument(numberOfTransferThreads > 0, "The number of transfer threads must be positive.");
+		this.transferThreadPool = numberOfTransferThreads > 1 ?
+				Executors.newFixedThreadPool(numberOfTransferThreads, new ExecutorThreadFactory("rocksdb-transfer")) :
+				null;
 
 		this.instanceBasePath = Preconditions.checkNotNull(instanceBasePath);
 		this.instanceRocksDBPath = new File(instanceBasePath, "db");
@@ -207,6 +298,12 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			// and access it in a synchronized block that locks on #dbDisposeLock.
 			if (db != null) {
 
+				// the iterators of the cleanups must be closed before the db
+				for (ExpiredValueCleanup cleanup : ttlCleanups.values()) {
+					cleanup.close();
+				}
+				ttlCleanups.clear();
+
 				for (Tuple2<ColumnFamilyHandle, RegisteredBackendStateMetaInfo<?, ?>> column :
 						kvStateInformation.values()) {
 					try {
@@ -228,8 +325,13 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			}
 		}
 
+		if (transferThreadPool != null) {
+			transferThreadPool.shutdownNow();
+		}
+
 		IOUtils.closeQuietly(columnOptions);
 		IOUtils.closeQuietly(dbOptions);
+		IOUtils.closeQuietly(ttlCleanupWriteOptions);
 
 		try {
 			FileUtils.deleteDirectory(instanceBasePath);
@@ -265,6 +367,20 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			final CheckpointStreamFactory streamFactory,
 			CheckpointOptions checkpointOptions) throws Exception {
 
+		// savepoints are self-contained, so they are always written in full
+		if (enableIncrementalCheckpointing &&
+				checkpointOptions.getCheckpointType() != CheckpointOptions.CheckpointType.SAVEPOINT) {
+			return snapshotIncrementally(checkpointId, timestamp, streamFactory);
+		} else {
+			return snapshotFully(checkpointId, timestamp, streamFactory);
+		}
+	}
+
+	private RunnableFuture<KeyedStateHandle> snapshotFully(
+			final long checkpointId,
+			final long timestamp,
+			final CheckpointStreamFactory streamFactory) throws Exception {
+
 		long startTime = System.currentTimeMillis();
 
 		final RocksDBSnapshotOperation snapshotOperation = new RocksDBSnapshotOperation(this, streamFactory);
@@ -339,6 +455,425 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		return AsyncStoppableTaskWithCallback.from(ioCallable);
 	}
 
+	/**
+	 * Takes a native RocksDB checkpoint in the synchronous part and uploads its files in the
+	 * asynchronous part. Sst files that are already part of the last completed checkpoint are
+	 * referenced instead of being uploaded again.
+	 */
+	private RunnableFuture<KeyedStateHandle> snapshotIncrementally(
+			final long checkpointId,
+			final long timestamp,
+			final CheckpointStreamFactory streamFactory) throws Exception {
+
+		long startTime = System.currentTimeMillis();
+
+		final RocksDBIncrementalSnapshotOperation snapshotOperation =
+				new RocksDBIncrementalSnapshotOperation(this, streamFactory, checkpointId, timestamp);
+
+		// hold the db lock while operation on the db to guard us against async db disposal
+		synchronized (asyncSnapshotLock) {
+
+			if (db == null) {
+				throw new IOException("RocksDB closed.");
+			}
+
+			if (!hasRegisteredState()) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Asynchronous RocksDB snapshot performed on empty keyed state at " + timestamp +
+							" . Returning null.");
+				}
+				return DoneFuture.nullValue();
+			}
+
+			snapshotOperation.takeSnapshot();
+		}
+
+		LOG.info("Incremental RocksDB snapshot (" + streamFactory + ", synchronous part) in thread " +
+				Thread.currentThread() + " took " + (System.currentTimeMillis() - startTime) + " ms.");
+
+		return new FutureTask<KeyedStateHandle>(
+				new Callable<KeyedStateHandle>() {
+					@Override
+					public KeyedStateHandle call() throws Exception {
+						long startTime = System.currentTimeMillis();
+
+						KeyedStateHandle stateHandle = snapshotOperation.materializeSnapshot();
+
+						LOG.info("Incremental RocksDB snapshot ({}, asynchronous part) in thread {} took {} ms.",
+							streamFactory, Thread.currentThread(), (System.currentTimeMillis() - startTime));
+
+						return stateHandle;
+					}
+				}) {
+
+			@Override
+			protected void done() {
+				snapshotOperation.releaseResources(isCancelled());
+			}
+		};
+	}
+
+	/**
+	 * Starts the given file transfers on the transfer threads, or runs them directly if the
+	 * backend has no transfer threads.
+	 */
+	private <T> List<RunnableFuture<T>> startTransfers(List<Callable<T>> transfers) {
+		List<RunnableFuture<T>> futures = new ArrayList<>(transfers.size());
+
+		for (Callable<T> transfer : transfers) {
+			RunnableFuture<T> future = new TransferFuture<>(transfer);
+			futures.add(future);
+
+			if (transferThreadPool != null) {
+				transferThreadPool.execute(future);
+			} else {
+				future.run();
+			}
+		}
+
+		return futures;
+	}
+
+	/**
+	 * Waits for the given file transfers and adds their results in order to the given list. All
+	 * transfers are awaited before the first failure is rethrown, so that no transfer is still
+	 * running when the caller cleans up. Failed transfers add a null result.
+	 *
+	 * <p>If the waiting thread is interrupted, the transfers that did not complete yet are
+	 * canceled and add a null result, while the results of the completed ones are still added
+	 * for the caller to clean up. A canceled transfer that was already running discards the state
+	 * it produces itself, see {@link TransferFuture}.
+	 */
+	@VisibleForTesting
+	static <T> void awaitTransfers(List<RunnableFuture<T>> futures, List<T> results) throws Exception {
+		Throwable failure = null;
+
+		for (int i = 0; i < futures.size(); i++) {
+			RunnableFuture<T> future = futures.get(i);
+			T result = null;
+
+			try {
+				result = future.get();
+			} catch (ExecutionException e) {
+				failure = ExceptionUtils.firstOrSuppressed(e.getCause(), failure);
+			} catch (InterruptedException e) {
+				for (int j = i; j < futures.size(); j++) {
+					results.add(cancelTransfer(futures.get(j)));
+				}
+				throw e;
+			}
+
+			results.add(result);
+		}
+
+		if (failure != null) {
+			ExceptionUtils.rethrowException(failure, "Could not transfer the files of the snapshot.");
+		}
+	}
+
+	/**
+	 * Cancels the given transfer and returns its result if it completed before.
+	 */
+	private static <T> T cancelTransfer(RunnableFuture<T> future) {
+		if (future.cancel(true)) {
+			return null;
+		}
+
+		try {
+			return future.get();
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * A file transfer, which discards the state it produced if it was canceled while running,
+	 * because the result of a canceled future is not handed to anybody.
+	 */
+	@VisibleForTesting
+	static final class TransferFuture<T> extends FutureTask<T> {
+
+		TransferFuture(Callable<T> transfer) {
+			super(transfer);
+		}
+
+		@Override
+		protected void set(T result) {
+			super.set(result);
+
+			if (isCancelled() && result instanceof StateObject) {
+				try {
+					((StateObject) result).discardState();
+				} catch (Exception e) {
+					LOG.warn("Could not discard the state of a canceled transfer.", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Encapsulates the process to perform an incremental snapshot of a RocksDBKeyedStateBackend.
+	 */
+	static final class RocksDBIncrementalSnapshotOperation {
+
+		/** The file name suffix of RocksDB's immutable sorted string table files */
+		static final String SST_FILE_SUFFIX = ".sst";
+
+		private static final int COPY_BUFFER_SIZE = 16 * 1024;
+
+		private final RocksDBKeyedStateBackend<?> stateBackend;
+		private final CheckpointStreamFactory checkpointStreamFactory;
+		private final long checkpointId;
+		private final long checkpointTimestamp;
+
+		/** The meta data of the states at the time of the snapshot */
+		private final List<KeyedBackendSerializationProxy.StateMetaInfo<?, ?>> stateMetaInfos;
+
+		/** The sst files of the last completed checkpoint, which need not be uploaded again */
+		private Map<String, SharedStreamStateHandle> baseSstFiles;
+
+		/** The local directory that holds the native RocksDB checkpoint */
+		private File checkpointDirectory;
+
+		private final Map<String, SharedStreamStateHandle> sharedState = new HashMap<>();
+		private final Set<String> newSharedState = new HashSet<>();
+		private final Map<String, StreamStateHandle> privateState = new HashMap<>();
+		private StreamStateHandle metaStateHandle;
+
+		/** Flag that is set once the snapshot was materialized completely */
+		private volatile boolean completed;
+
+		RocksDBIncrementalSnapshotOperation(
+				RocksDBKeyedStateBackend<?> stateBackend,
+				CheckpointStreamFactory checkpointStreamFactory,
+				long checkpointId,
+				long checkpointTimestamp) {
+
+			this.stateBackend = stateBackend;
+			this.checkpointStreamFactory = checkpointStreamFactory;
+			this.checkpointId = checkpointId;
+			this.checkpointTimestamp = checkpointTimestamp;
+			this.stateMetaInfos = new ArrayList<>(stateBackend.kvStateInformation.size());
+		}
+
+		/**
+		 * 1) Captures the state meta data and creates a native RocksDB checkpoint, which hard links
+		 * the live sst files and copies the remaining files of the data base.
+		 */
+		void takeSnapshot() throws Exception {
+			synchronized (stateBackend.materializedSstFiles) {
+				baseSstFiles = stateBackend.materializedSstFiles.get(stateBackend.lastCompletedCheckpointId);
+			}
+
+			if (baseSstFiles == null) {
+				baseSstFiles = Collections.emptyMap();
+			}
+
+			for (Tuple2<ColumnFamilyHandle, RegisteredBackendStateMetaInfo<?, ?>> column :
+					stateBackend.kvStateInformation.values()) {
+
+				RegisteredBackendStateMetaInfo<?, ?> metaInfo = column.f1;
+
+				stateMetaInfos.add(
+						new KeyedBackendSerializationProxy.StateMetaInfo<>(
+								metaInfo.getStateType(),
+								metaInfo.getName(),
+								metaInfo.getNamespaceSerializer(),
+								metaInfo.getStateSerializer()));
+			}
+
+			// several snapshots of the same checkpoint may be in progress, e.g. in tests
+			checkpointDirectory = new File(stateBackend.instanceBasePath, "chk-" + checkpointId + '-' + UUID.randomUUID());
+
+			Checkpoint checkpoint = Checkpoint.create(stateBackend.db);
+			try {
+				checkpoint.createCheckpoint(checkpointDirectory.getAbsolutePath());
+			} finally {
+				IOUtils.closeQuietly(checkpoint);
+			}
+		}
+
+		/**
+		 * 2) Uploads the meta data and all files of the native checkpoint that are not yet part of
+		 * the last completed checkpoint.
+		 */
+		KeyedStateHandle materializeSnapshot() throws Exception {
+			metaStateHandle = materializeMetaData();
+
+			File[] files = checkpointDirectory.listFiles();
+			if (files == null) {
+				throw new IOException("Could not list the files of the RocksDB checkpoint " + checkpointDirectory + '.');
+			}
+
+			final List<File> filesToUpload = new ArrayList<>(files.length);
+			List<Callable<StreamStateHandle>> uploads = new ArrayList<>(files.length);
+
+			for (final File file : files) {
+				String fileName = file.getName();
+				SharedStreamStateHandle baseStateHandle =
+						fileName.endsWith(SST_FILE_SUFFIX) ? baseSstFiles.get(fileName) : null;
+
+				if (baseStateHandle != null) {
+					sharedState.put(fileName, baseStateHandle);
+				} else {
+					filesToUpload.add(file);
+					uploads.add(new Callable<StreamStateHandle>() {
+						@Override
+						public StreamStateHandle call() throws Exception {
+							return materializeFile(file);
+						}
+					});
+				}
+			}
+
+			List<StreamStateHandle> uploadedStateHandles = new ArrayList<>(filesToUpload.size());
+
+			try {
+				awaitTransfers(stateBackend.startTransfers(uploads), uploadedStateHandles);
+			} finally {
+				// record the uploaded files also if some uploads failed, so that they are discarded
+				for (int i = 0; i < uploadedStateHandles.size(); ++i) {
+					StreamStateHandle stateHandle = uploadedStateHandles.get(i);
+
+					if (stateHandle != null) {
+						String fileName = filesToUpload.get(i).getName();
+
+						if (fileName.endsWith(SST_FILE_SUFFIX)) {
+							String registrationKey = stateBackend.backendUID + '-' + checkpointId + '-' + fileName;
+							sharedState.put(fileName, new SharedStreamStateHandle(registrationKey, stateHandle));
+							newSharedState.add(fileName);
+						} else {
+							privateState.put(fileName, stateHandle);
+						}
+					}
+				}
+			}
+
+			synchronized (stateBackend.materializedSstFiles) {
+				if (checkpointId > stateBackend.lastCompletedCheckpointId) {
+					stateBackend.materializedSstFiles.put(checkpointId, new HashMap<>(sharedState));
+				}
+			}
+
+			completed = true;
+
+			LOG.debug("Incremental snapshot of checkpoint {} uploaded {} of {} sst files.",
+					checkpointId, newSharedState.size(), sharedState.size());
+
+			return new IncrementalKeyedStateHandle(
+					stateBackend.keyGroupRange,
+					checkpointId,
+					sharedState,
+					newSharedState,
+					privateState,
+					metaStateHandle);
+		}
+
+		/**
+		 * 3) Deletes the native checkpoint and, if the snapshot did not complete or was canceled,
+		 * discards everything that was uploaded.
+		 */
+		void releaseResources(boolean canceled) {
+			if (checkpointDirectory != null) {
+				try {
+					FileUtils.deleteDirectory(checkpointDirectory);
+				} catch (IOException e) {
+					LOG.warn("Could not delete RocksDB checkpoint directory {}.", checkpointDirectory, e);
+				}
+			}
+
+			if (canceled || !completed) {
+				List<StateObject> toDiscard = new ArrayList<>(privateState.size() + newSharedState.size() + 1);
+
+				toDiscard.add(metaStateHandle);
+				toDiscard.addAll(privateState.values());
+
+				for (String fileName : newSharedState) {
+					toDiscard.add(sharedState.get(fileName));
+				}
+
+				try {
+					StateUtil.bestEffortDiscardAllStateObjects(toDiscard);
+				} catch (Exception e) {
+					LOG.warn("Could not properly discard the incremental snapshot of checkpoint {}.", checkpointId, e);
+				}
+			}
+		}
+
+		private StreamStateHandle materializeMetaData() throws Exception {
+			CheckpointStreamFactory.CheckpointStateOutputStream outputStream =
+					checkpointStreamFactory.createCheckpointStateOutputStream(checkpointId, checkpointTimestamp);
+
+			try {
+				stateBackend.cancelStreamRegistry.registerClosable(outputStream);
+
+				KeyedBackendSerializationProxy serializationProxy =
+						new KeyedBackendSerializationProxy(stateBackend.getKeySerializer(), stateMetaInfos);
+
+				serializationProxy.write(new DataOutputViewStreamWrapper(outputStream));
+
+				stateBackend.cancelStreamRegistry.unregisterClosable(outputStream);
+				StreamStateHandle stateHandle = outputStream.closeAndGetHandle();
+				outputStream = null;
+
+				return stateHandle;
+			} finally {
+				if (outputStream != null) {
+					stateBackend.cancelStreamRegistry.unregisterClosable(outputStream);
+					IOUtils.closeQuietly(outputStream);
+				}
+			}
+		}
+
+		private StreamStateHandle materializeFile(File file) throws Exception {
+			InputStream inputStream = null;
+			CheckpointStreamFactory.CheckpointStateOutputStream outputStream = null;
+
+			try {
+				inputStream = new FileInputStream(file);
+				stateBackend.cancelStreamRegistry.registerClosable(inputStream);
+
+				outputStream = checkpointStreamFactory.createCheckpointStateOutputStream(checkpointId, checkpointTimestamp);
+				stateBackend.cancelStreamRegistry.registerClosable(outputStream);
+
+				byte[] buffer = new byte[COPY_BUFFER_SIZE];
+				int numBytes;
+				while ((numBytes = inputStream.read(buffer)) != -1) {
+					outputStream.write(buffer, 0, numBytes);
+				}
+
+				stateBackend.cancelStreamRegistry.unregisterClosable(outputStream);
+				StreamStateHandle stateHandle = outputStream.closeAndGetHandle();
+				outputStream = null;
+
+				// empty files do not produce a handle, but still have to be restored
+				return stateHandle != null ? stateHandle : new ByteStreamStateHandle(file.getName(), new byte[0]);
+			} finally {
+				if (inputStream != null) {
+					stateBackend.cancelStreamRegistry.unregisterClosable(inputStream);
+					IOUtils.closeQuietly(inputStream);
+				}
+
+				if (outputStream != null) {
+					stateBackend.cancelStreamRegistry.unregisterClosable(outputStream);
+					IOUtils.closeQuietly(outputStream);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void notifyCheckpointComplete(long checkpointId) {
+		synchronized (materializedSstFiles) {
+			if (checkpointId > lastCompletedCheckpointId) {
+				lastCompletedCheckpointId = checkpointId;
+
+				// snapshots of older checkpoints can never become the base of a snapshot again
+				materializedSstFiles.headMap(checkpointId).clear();
+			}
+		}
+	}
+
 	/**
 	 * Encapsulates the process to perform a snapshot of a RocksDBKeyedStateBackend.
 	 */
@@ -357,6 +892,7 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		private Snapshot snapshot;
 		private ReadOptions readOptions;
 		private List<Tuple2<RocksIterator, Integer>> kvStateIterators;
+		private Map<Integer, ExpiredValueFilter> kvStateFilters;
 
 		private CheckpointStreamFactory.CheckpointStateOutputStream outStream;
 		private DataOutputView outputView;
@@ -380,6 +916,7 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		public void takeDBSnapShot(long checkpointId, long checkpointTimeStamp) {
 			Preconditions.checkArgument(snapshot == null, "Only one ongoing snapshot allowed!");
 			this.kvStateIterators = new ArrayList<>(stateBackend.kvStateInformation.size());
+			this.kvStateFilters = new HashMap<>();
 			this.checkpointId = checkpointId;
 			this.checkpointTimeStamp = checkpointTimeStamp;
 			this.snapshot = stateBackend.db.getSnapshot();
@@ -509,6 +1046,11 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 				kvStateIterators.add(
 						new Tuple2<>(stateBackend.db.newIterator(column.getValue().f0, readOptions), kvStateId));
 
+				ExpiredValueFilter expiredValueFilter = stateBackend.expiredValueFilters.get(metaInfo.getName());
+				if (expiredValueFilter != null) {
+					kvStateFilters.put(kvStateId, expiredValueFilter);
+				}
+
 				++kvStateId;
 			}
 
@@ -525,7 +1067,7 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 
 			// Here we transfer ownership of RocksIterators to the RocksDBMergeIterator
 			try (RocksDBMergeIterator mergeIterator = new RocksDBMergeIterator(
-					kvStateIterators, stateBackend.keyGroupPrefixBytes)) {
+					kvStateIterators, stateBackend.keyGroupPrefixBytes, kvStateFilters)) {
 
 				// handover complete, null out to prevent double close
 				kvStateIterators = null;
@@ -633,6 +1175,9 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			if (MigrationUtil.isOldSavepointKeyedState(restoreState)) {
 				LOG.info("Converting RocksDB state from old savepoint.");
 				restoreOldSavepointKeyedState(restoreState);
+			} else if (hasIncrementalState(restoreState)) {
+				RocksDBIncrementalRestoreOperation restoreOperation = new RocksDBIncrementalRestoreOperation(this);
+				restoreOperation.doRestore(restoreState);
 			} else {
 				RocksDBRestoreOperation restoreOperation = new RocksDBRestoreOperation(this);
 				restoreOperation.doRestore(restoreState);
@@ -643,6 +1188,287 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		}
 	}
 
+	private static boolean hasIncrementalState(Collection<KeyedStateHandle> restoreState) {
+		for (KeyedStateHandle keyedStateHandle : restoreState) {
+			if (keyedStateHandle instanceof IncrementalKeyedStateHandle) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Encapsulates the process of restoring a RocksDBKeyedStateBackend from incremental snapshots.
+	 *
+	 * <p>If there is exactly one snapshot that covers the same key groups as the backend, its
+	 * files are downloaded into the data base directory and opened directly. Otherwise, each
+	 * snapshot is opened as a temporary data base and the key/value pairs of the key groups that
+	 * belong to the backend are copied over.
+	 */
+	static final class RocksDBIncrementalRestoreOperation {
+
+		private static final int COPY_BUFFER_SIZE = 16 * 1024;
+
+		private final RocksDBKeyedStateBackend<?> stateBackend;
+
+		RocksDBIncrementalRestoreOperation(RocksDBKeyedStateBackend<?> stateBackend) {
+			this.stateBackend = Preconditions.checkNotNull(stateBackend);
+		}
+
+		void doRestore(Collection<KeyedStateHandle> keyedStateHandles) throws Exception {
+			List<IncrementalKeyedStateHandle> stateHandles = new ArrayList<>(keyedStateHandles.size());
+
+			for (KeyedStateHandle keyedStateHandle : keyedStateHandles) {
+				if (keyedStateHandle != null) {
+					if (!(keyedStateHandle instanceof IncrementalKeyedStateHandle)) {
+						throw new IllegalStateException("Unexpected state handle type, " +
+								"expected: " + IncrementalKeyedStateHandle.class +
+								", but found: " + keyedStateHandle.getClass());
+					}
+					stateHandles.add((IncrementalKeyedStateHandle) keyedStateHandle);
+				}
+			}
+
+			if (stateHandles.size() == 1 &&
+					stateHandles.get(0).getKeyGroupRange().equals(stateBackend.keyGroupRange)) {
+				restoreInstance(stateHandles.get(0));
+			} else {
+				for (IncrementalKeyedStateHandle stateHandle : stateHandles) {
+					restoreInstanceByCopy(stateHandle);
+				}
+			}
+		}
+
+		/**
+		 * Replaces the data base of the backend with the one of the snapshot. The restored sst
+		 * files may be referenced by the next snapshot without uploading them again.
+		 */
+		private void restoreInstance(IncrementalKeyedStateHandle stateHandle) throws Exception {
+			List<KeyedBackendSerializationProxy.StateMetaInfo<?, ?>> stateMetaInfos =
+					readMetaData(stateHandle.getMetaStateHandle());
+
+			// close the empty data base that was created together with the backend
+			stateBackend.db.close();
+			stateBackend.db = null;
+			FileUtils.deleteDirectory(stateBackend.instanceRocksDBPath);
+
+			transferAllFiles(stateHandle, stateBackend.instanceRocksDBPath);
+
+			List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>(1 + stateMetaInfos.size());
+			stateBackend.db = RocksDB.open(
+					stateBackend.dbOptions,
+					stateBackend.instanceRocksDBPath.getAbsolutePath(),
+					createColumnFamilyDescriptors(stateMetaInfos),
+					columnFamilyHandles);
+
+			// the first handle belongs to the default column family
+			for (int i = 0; i < stateMetaInfos.size(); ++i) {
+				RegisteredBackendStateMetaInfo<?, ?> stateMetaInfo =
+						new RegisteredBackendStateMetaInfo<>(stateMetaInfos.get(i));
+
+				stateBackend.kvStateInformation.put(
+						stateMetaInfo.getName(),
+						new Tuple2<ColumnFamilyHandle, RegisteredBackendStateMetaInfo<?, ?>>(
+								columnFamilyHandles.get(i + 1), stateMetaInfo));
+			}
+
+			synchronized (stateBackend.materializedSstFiles) {
+				stateBackend.materializedSstFiles.put(
+						stateHandle.getCheckpointId(), new HashMap<>(stateHandle.getSharedState()));
+				stateBackend.lastCompletedCheckpointId = stateHandle.getCheckpointId();
+			}
+		}
+
+		/**
+		 * Opens the snapshot as a temporary data base and copies the key/value pairs of the key
+		 * groups that belong to the backend.
+		 */
+		private void restoreInstanceByCopy(IncrementalKeyedStateHandle stateHandle) throws Exception {
+			List<KeyedBackendSerializationProxy.StateMetaInfo<?, ?>> stateMetaInfos =
+					readMetaData(stateHandle.getMetaStateHandle());
+
+			File restoreDirectory = new File(stateBackend.instanceBasePath, "restore-" + UUID.randomUUID());
+			List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>(1 + stateMetaInfos.size());
+			RocksDB restoreDb = null;
+
+			try {
+				transferAllFiles(stateHandle, restoreDirectory);
+
+				restoreDb = RocksDB.open(
+						stateBackend.dbOptions,
+						restoreDirectory.getAbsolutePath(),
+						createColumnFamilyDescriptors(stateMetaInfos),
+						columnFamilyHandles);
+
+				byte[] startKeyGroupPrefix = new byte[stateBackend.keyGroupPrefixBytes];
+				for (int i = 0; i < startKeyGroupPrefix.length; ++i) {
+					startKeyGroupPrefix[i] = (byte) (stateBackend.keyGroupRange.getStartKeyGroup() >>>
+							((startKeyGroupPrefix.length - i - 1) << 3));
+				}
+
+				for (int i = 0; i < stateMetaInfos.size(); ++i) {
+					ColumnFamilyHandle targetColumnFamily = getOrCreateColumnFamily(stateMetaInfos.get(i));
+
+					try (RocksIterator iterator = restoreDb.newIterator(columnFamilyHandles.get(i + 1))) {
+						iterator.seek(startKeyGroupPrefix);
+
+						while (iterator.isValid()) {
+							byte[] key = iterator.key();
+
+							if (readKeyGroup(key) > stateBackend.keyGroupRange.getEndKeyGroup()) {
+								break;
+							}
+
+							stateBackend.db.put(targetColumnFamily, key, iterator.value());
+							iterator.next();
+						}
+					}
+				}
+			} finally {
+				for (ColumnFamilyHandle columnFamilyHandle : columnFamilyHandles) {
+					IOUtils.closeQuietly(columnFamilyHandle);
+				}
+
+				IOUtils.closeQuietly(restoreDb);
+
+				try {
+					FileUtils.deleteDirectory(restoreDirectory);
+				} catch (IOException e) {
+					LOG.warn("Could not delete RocksDB restore directory {}.", restoreDirectory, e);
+				}
+			}
+		}
+
+		private int readKeyGroup(byte[] key) {
+			int keyGroup = 0;
+			//big endian decode
+			for (int i = 0; i < stateBackend.keyGroupPrefixBytes; ++i) {
+				keyGroup <<= 8;
+				keyGroup |= (key[i] & 0xFF);
+			}
+			return keyGroup;
+		}
+
+		private ColumnFamilyHandle getOrCreateColumnFamily(
+				KeyedBackendSerializationProxy.StateMetaInfo<?, ?> metaInfoProxy) throws RocksDBException {
+
+			Tuple2<ColumnFamilyHandle, RegisteredBackendStateMetaInfo<?, ?>> columnFamily =
+					stateBackend.kvStateInformation.get(metaInfoProxy.getStateName());
+
+			if (null == columnFamily) {
+				ColumnFamilyDescriptor columnFamilyDescriptor = new ColumnFamilyDescriptor(
+					metaInfoProxy.getStateName().getBytes(ConfigConstants.DEFAULT_CHARSET),
+					stateBackend.columnOptions);
+
+				RegisteredBackendStateMetaInfo<?, ?> stateMetaInfo =
+						new RegisteredBackendStateMetaInfo<>(metaInfoProxy);
+
+				columnFamily = new Tuple2<ColumnFamilyHandle, RegisteredBackendStateMetaInfo<?, ?>>(
+						stateBackend.db.createColumnFamily(columnFamilyDescriptor),
+						stateMetaInfo);
+
+				stateBackend.kvStateInformation.put(stateMetaInfo.getName(), columnFamily);
+			}
+
+			return columnFamily.f0;
+		}
+
+		private List<ColumnFamilyDescriptor> createColumnFamilyDescriptors(
+				List<KeyedBackendSerializationProxy.StateMetaInfo<?, ?>> stateMetaInfos) {
+
+			List<ColumnFamilyDescriptor> columnFamilyDescriptors = new ArrayList<>(1 + stateMetaInfos.size());
+
+			// RocksDB always requires the default column family
+			columnFamilyDescriptors.add(new ColumnFamilyDescriptor("default".getBytes(ConfigConstants.DEFAULT_CHARSET)));
+
+			for (KeyedBackendSerializationProxy.StateMetaInfo<?, ?> stateMetaInfo : stateMetaInfos) {
+				columnFamilyDescriptors.add(new ColumnFamilyDescriptor(
+						stateMetaInfo.getStateName().getBytes(ConfigConstants.DEFAULT_CHARSET),
+						stateBackend.columnOptions));
+			}
+
+			return columnFamilyDescriptors;
+		}
+
+		private List<KeyedBackendSerializationProxy.StateMetaInfo<?, ?>> readMetaData(
+				StreamStateHandle metaStateHandle) throws Exception {
+
+			FSDataInputStream inputStream = null;
+
+			try {
+				inputStream = metaStateHandle.openInputStream();
+				stateBackend.cancelStreamRegistry.registerClosable(inputStream);
+
+				KeyedBackendSerializationProxy serializationProxy =
+						new KeyedBackendSerializationProxy(stateBackend.userCodeClassLoader);
+
+				serializationProxy.read(new DataInputViewStreamWrapper(inputStream));
+
+				return serializationProxy.getNamedStateSerializationProxies();
+			} finally {
+				if (inputStream != null) {
+					stateBackend.cancelStreamRegistry.unregisterClosable(inputStream);
+					IOUtils.closeQuietly(inputStream);
+				}
+			}
+		}
+
+		private void transferAllFiles(IncrementalKeyedStateHandle stateHandle, File directory) throws Exception {
+			if (!directory.mkdirs()) {
+				throw new IOException("Could not create RocksDB restore directory " + directory + '.');
+			}
+
+			Map<String, StreamStateHandle> files = new HashMap<>();
+			files.putAll(stateHandle.getSharedState());
+			files.putAll(stateHandle.getPrivateState());
+
+			List<Callable<Void>> downloads = new ArrayList<>(files.size());
+
+			for (final Map.Entry<String, StreamStateHandle> entry : files.entrySet()) {
+				final File file = new File(directory, entry.getKey());
+
+				downloads.add(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						copyStateToFile(entry.getValue(), file);
+						return null;
+					}
+				});
+			}
+
+			awaitTransfers(stateBackend.startTransfers(downloads), new ArrayList<Void>(downloads.size()));
+		}
+
+		private void copyStateToFile(StreamStateHandle stateHandle, File file) throws Exception {
+			FSDataInputStream inputStream = null;
+			OutputStream outputStream = null;
+
+			try {
+				inputStream = stateHandle.openInputStream();
+				stateBackend.cancelStreamRegistry.registerClosable(inputStream);
+
+				outputStream = new FileOutputStream(file);
+				stateBackend.cancelStreamRegistry.registerClosable(outputStream);
+
+				byte[] buffer = new byte[COPY_BUFFER_SIZE];
+				int numBytes;
+				while ((numBytes = inputStream.read(buffer)) != -1) {
+					outputStream.write(buffer, 0, numBytes);
+				}
+			} finally {
+				if (inputStream != null) {
+					stateBackend.cancelStreamRegistry.unregisterClosable(inputStream);
+					IOUtils.closeQuietly(inputStream);
+				}
+
+				if (outputStream != null) {
+					stateBackend.cancelStreamRegistry.unregisterClosable(outputStream);
+					IOUtils.closeQuietly(outputStream);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Encapsulates the process of restoring a RocksDBKeyedStateBackend from a snapshot.
 	 */
@@ -916,6 +1742,174 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		return new RocksDBMapState<>(columnFamily, namespaceSerializer, stateDesc, this);
 	}
 
+	/**
+	 * RocksDB offers no compaction filter that we could implement in Java, so the expired values of states with
+	 * time-to-live are instead skipped when a full snapshot is written, and every access to the state checks a few
+	 * more values of its column family and deletes those that expired. The files of incremental snapshots are
+	 * copied as they are. The list state is not filtered, because its elements are merged into one value.
+	 * The cleanups of all states share one {@link WriteOptions} instance, which is closed with the backend.
+	 */
+	@Override
+	protected Runnable enableTtlCleanup(
+			StateDescriptor<?, ?> stateDesc,
+			ExpiredStateFilter<?> expiredStateFilter) {
+
+		final int timestampOffset;
+		switch (stateDesc.getType()) {
+			case VALUE:
+			case REDUCING:
+			case AGGREGATING:
+				timestampOffset = 0;
+				break;
+			case MAP:
+				// the map state prefixes the values with a null flag
+				timestampOffset = 1;
+				break;
+			default:
+				return null;
+		}
+
+		final ExpiredValueFilter expiredValueFilter = new ExpiredValueFilter(
+				timestampOffset,
+				stateDesc.getTtlConfig().getTtl().toMilliseconds(),
+				ttlTimeProvider);
+
+		expiredValueFilters.put(stateDesc.getName(), expiredValueFilter);
+
+		final int cleanupSize = stateDesc.getTtlConfig().getCleanupSize();
+
+		if (cleanupSize == 0) {
+			return null;
+		}
+
+		if (ttlCleanupWriteOptions == null) {
+			ttlCleanupWriteOptions = new WriteOptions().setDisableWAL(true);
+		}
+
+		ExpiredValueCleanup cleanup = new ExpiredValueCleanup(
+				kvStateInformation.get(stateDesc.getName()).f0,
+				expiredValueFilter,
+				cleanupSize,
+				ttlCleanupWriteOptions);
+
+		ExpiredValueCleanup previous = ttlCleanups.put(stateDesc.getName(), cleanup);
+		if (previous != null) {
+			previous.close();
+		}
+		return cleanup;
+	}
+
+	/**
+	 * Deletes the expired values of a state with time-to-live from its column family. Every run checks the given
+	 * number of values, continuing after the last value that the previous run checked, and wraps around at the end
+	 * of the column family.
+	 *
+	 * <p>The runs share one iterator, so a run costs no seek. The iterator does not see values written after it was
+	 * created, so a value that it shows as expired is read again before it is deleted. The iterator is recreated
+	 * every {@link #TTL_CLEANUP_ITERATOR_RUNS} runs and when it wraps around, so it sees new values and does not
+	 * hold on to files that RocksDB has compacted in the meantime.
+	 */
+	private final class ExpiredValueCleanup implements Runnable, AutoCloseable {
+
+		private final ColumnFamilyHandle columnFamily;
+		private final ExpiredValueFilter expiredValueFilter;
+		private final int cleanupSize;
+		private final WriteOptions writeOptions;
+
+		/** The iterator the runs continue, or null before the first run. */
+		private RocksIterator iterator;
+
+		private int runsSinceRefresh;
+
+		ExpiredValueCleanup(
+				ColumnFamilyHandle columnFamily,
+				ExpiredValueFilter expiredValueFilter,
+				int cleanupSize,
+				WriteOptions writeOptions) {
+
+			this.columnFamily = Preconditions.checkNotNull(columnFamily);
+			this.expiredValueFilter = Preconditions.checkNotNull(expiredValueFilter);
+			this.cleanupSize = cleanupSize;
+			this.writeOptions = Preconditions.checkNotNull(writeOptions);
+		}
+
+		@Override
+		public void run() {
+			if (db == null) {
+				// the backend was disposed
+				return;
+			}
+
+			try {
+				if (iterator == null || !iterator.isValid()) {
+					refreshIterator(null);
+				} else if (runsSinceRefresh >= TTL_CLEANUP_ITERATOR_RUNS) {
+					refreshIterator(iterator.key());
+				}
+				++runsSinceRefresh;
+
+				for (int i = 0; i < cleanupSize && iterator.isValid(); ++i) {
+					if (expiredValueFilter.isExpired(iterator.value())) {
+						byte[] key = iterator.key();
+						byte[] value = db.get(columnFamily, key);
+						if (value != null && expiredValueFilter.isExpired(value)) {
+							db.remove(columnFamily, writeOptions, key);
+						}
+					}
+					iterator.next();
+				}
+			} catch (RocksDBException e) {
+				throw new RuntimeException("Error while removing expired values from RocksDB.", e);
+			}
+		}
+
+		/**
+		 * Replaces the iterator with a new one, positioned at the given key or at the first key if it is null.
+		 */
+		private void refreshIterator(byte[] key) {
+			close();
+
+			iterator = db.newIterator(columnFamily);
+			if (key == null) {
+				iterator.seekToFirst();
+			} else {
+				iterator.seek(key);
+			}
+			runsSinceRefresh = 0;
+		}
+
+		@Override
+		public void close() {
+			if (iterator != null) {
+				iterator.close();
+				iterator = null;
+			}
+		}
+	}
+
+	/**
+	 * Decides for a serialized value of a state with time-to-live whether it expired, by reading the timestamp that
+	 * the {@link TtlSerializer} wrote at the given offset.
+	 */
+	static final class ExpiredValueFilter {
+
+		private final int timestampOffset;
+		private final long ttl;
+		private final TtlTimeProvider timeProvider;
+
+		ExpiredValueFilter(int timestampOffset, long ttl, TtlTimeProvider timeProvider) {
+			this.timestampOffset = timestampOffset;
+			this.ttl = ttl;
+			this.timeProvider = Preconditions.checkNotNull(timeProvider);
+		}
+
+		boolean isExpired(byte[] value) {
+			return value.length >= timestampOffset + TtlSerializer.TIMESTAMP_BYTES &&
+					TtlValue.isExpired(
+							TtlSerializer.readTimestamp(value, timestampOffset), ttl, timeProvider.currentTimestamp());
+		}
+	}
+
 	/**
 	 * Wraps a RocksDB iterator to cache it's current key and assign an id for the key/value state to the iterator.
 	 * Used by #MergeIterator.
@@ -927,14 +1921,25 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		 * @param kvStateId Id of the K/V state to which this iterator belongs.
 		 */
 		MergeIterator(RocksIterator iterator, int kvStateId) {
+			this(iterator, kvStateId, null);
+		}
+
+		/**
+		 * @param iterator  The #RocksIterator to wrap .
+		 * @param kvStateId Id of the K/V state to which this iterator belongs.
+		 * @param expiredValueFilter Filter for the values that are skipped, or null.
+		 */
+		MergeIterator(RocksIterator iterator, int kvStateId, ExpiredValueFilter expiredValueFilter) {
 			this.iterator = Preconditions.checkNotNull(iterator);
 			this.currentKey = iterator.key();
 			this.kvStateId = kvStateId;
+			this.expiredValueFilter = expiredValueFilter;
 		}
 
 		private final RocksIterator iterator;
 		private byte[] currentKey;
 		private final int kvStateId;
+		private final ExpiredValueFilter expiredValueFilter;
 
 		public byte[] getCurrentKey() {
 			return currentKey;
@@ -952,6 +1957,10 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			return kvStateId;
 		}
 
+		public ExpiredValueFilter getExpiredValueFilter() {
+			return expiredValueFilter;
+		}
+
 		@Override
 		public void close() {
 			IOUtils.closeQuietly(iterator);
@@ -991,7 +2000,21 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		}
 
 		RocksDBMergeIterator(List<Tuple2<RocksIterator, Integer>> kvStateIterators, final int keyGroupPrefixByteCount) {
+			this(kvStateIterators, keyGroupPrefixByteCount, Collections.<Integer, ExpiredValueFilter>emptyMap());
+		}
+
+		/**
+		 * @param kvStateIterators The iterators of the k/v states, with the id of each state.
+		 * @param keyGroupPrefixByteCount The number of bytes of the key-group prefix of the keys.
+		 * @param expiredValueFilters Filters for the values that are skipped, by the id of the k/v state.
+		 */
+		RocksDBMergeIterator(
+				List<Tuple2<RocksIterator, Integer>> kvStateIterators,
+				final int keyGroupPrefixByteCount,
+				Map<Integer, ExpiredValueFilter> expiredValueFilters) {
+
 			Preconditions.checkNotNull(kvStateIterators);
+			Preconditions.checkNotNull(expiredValueFilters);
 			this.keyGroupPrefixByteCount = keyGroupPrefixByteCount;
 
 			Comparator<MergeIterator> iteratorComparator = COMPARATORS.get(keyGroupPrefixByteCount);
@@ -1002,9 +2025,12 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 
 				for (Tuple2<RocksIterator, Integer> rocksIteratorWithKVStateId : kvStateIterators) {
 					final RocksIterator rocksIterator = rocksIteratorWithKVStateId.f0;
+					final ExpiredValueFilter expiredValueFilter = expiredValueFilters.get(rocksIteratorWithKVStateId.f1);
 					rocksIterator.seekToFirst();
+					skipExpiredValues(rocksIterator, expiredValueFilter);
 					if (rocksIterator.isValid()) {
-						iteratorPriorityQueue.offer(new MergeIterator(rocksIterator, rocksIteratorWithKVStateId.f1));
+						iteratorPriorityQueue.offer(
+								new MergeIterator(rocksIterator, rocksIteratorWithKVStateId.f1, expiredValueFilter));
 					} else {
 						IOUtils.closeQuietly(rocksIterator);
 					}
@@ -1035,6 +2061,7 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 
 			final RocksIterator rocksIterator = currentSubIterator.getIterator();
 			rocksIterator.next();
+			skipExpiredValues(rocksIterator, currentSubIterator.getExpiredValueFilter());
 
 			byte[] oldKey = currentSubIterator.getCurrentKey();
 			if (rocksIterator.isValid()) {
@@ -1060,6 +2087,14 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			}
 		}
 
+		private static void skipExpiredValues(RocksIterator rocksIterator, ExpiredValueFilter expiredValueFilter) {
+			if (expiredValueFilter != null) {
+				while (rocksIterator.isValid() && expiredValueFilter.isExpired(rocksIterator.value())) {
+					rocksIterator.next();
+				}
+			}
+		}
+
 		private boolean isDifferentKeyGroup(byte[] a, byte[] b) {
 			return 0 != compareKeyGroupsForByteArrays(a, b, keyGroupPrefixByteCount);
 		}
@@ -1249,8 +2284,33 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		}
 	}
 
+	/**
+	 * Returns the total number of state entries across all column families.
+	 */
+	@VisibleForTesting
+	int numStateEntries() {
+		int sum = 0;
+		for (Tuple2<ColumnFamilyHandle, RegisteredBackendStateMetaInfo<?, ?>> column : kvStateInformation.values()) {
+			try (RocksIterator iterator = db.newIterator(column.f0)) {
+				for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+					++sum;
+				}
+			}
+		}
+		return sum;
+	}
+
 	@Override
 	public boolean supportsAsynchronousSnapshots() {
 		return true;
 	}
+
+	/**
+	 * Incremental snapshots reference files that were uploaded by earlier checkpoints, so they
+	 * cannot be copied to local disk through the checkpoint stream factory.
+	 */
+	@Override
+	public boolean supportsLocalStateCopies() {
+		return !enableIncrementalCheckpointing;
+	}
 }
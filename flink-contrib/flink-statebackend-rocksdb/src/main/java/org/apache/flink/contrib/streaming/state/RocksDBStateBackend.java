@@ -49,6 +49,7 @@ import java.util.Random;
 import java.util.UUID;
 
 import static java.util.Objects.requireNonNull;
+import static org.apache.flink.util.Preconditions.checkArgument;
 
 /**
  * A State Backend that stores its state in {@code RocksDB}. This state backend can
@@ -72,6 +73,9 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 	/** The number of (re)tries for loading the RocksDB JNI library */
 	private static final int ROCKSDB_LIB_LOADING_ATTEMPTS = 3;
 
+	/** The default number of threads that transfer the files of incremental snapshots */
+	public static final int DEFAULT_NUMBER_OF_TRANSFER_THREADS = 1;
+
 	
 	private static boolean rocksDbInitialized = false;
 
@@ -82,6 +86,12 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 	/** The state backend that we use for creating checkpoint streams. */
 	private final AbstractStateBackend checkpointStreamBackend;
 
+	/** True if checkpoints only upload the files that were not part of the last completed checkpoint. */
+	private final boolean enableIncrementalCheckpointing;
+
+	/** The number of threads that transfer the files of incremental snapshots from and to the checkpoint storage. */
+	private int numberOfTransferThreads = DEFAULT_NUMBER_OF_TRANSFER_THREADS;
+
 	/** Operator identifier that is used to uniqueify the RocksDB storage path. */
 	private String operatorIdentifier;
 
@@ -126,6 +136,20 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 		this(new Path(checkpointDataUri).toUri());
 	}
 
+	/**
+	 * Creates a new {@code RocksDBStateBackend} that stores its checkpoint data in the
+	 * file system and location defined by the given URI.
+	 *
+	 * @param checkpointDataUri The URI describing the filesystem and path to the checkpoint data directory.
+	 * @param enableIncrementalCheckpointing True if incremental checkpointing is enabled.
+	 * @throws IOException Thrown, if no file system can be found for the scheme in the URI.
+	 *
+	 * @see #RocksDBStateBackend(AbstractStateBackend, boolean)
+	 */
+	public RocksDBStateBackend(String checkpointDataUri, boolean enableIncrementalCheckpointing) throws IOException {
+		this(new Path(checkpointDataUri).toUri(), enableIncrementalCheckpointing);
+	}
+
 	/**
 	 * Creates a new {@code RocksDBStateBackend} that stores its checkpoint data in the
 	 * file system and location defined by the given URI.
@@ -142,6 +166,20 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 		this(new FsStateBackend(checkpointDataUri));
 	}
 
+	/**
+	 * Creates a new {@code RocksDBStateBackend} that stores its checkpoint data in the
+	 * file system and location defined by the given URI.
+	 *
+	 * @param checkpointDataUri The URI describing the filesystem and path to the checkpoint data directory.
+	 * @param enableIncrementalCheckpointing True if incremental checkpointing is enabled.
+	 * @throws IOException Thrown, if no file system can be found for the scheme in the URI.
+	 *
+	 * @see #RocksDBStateBackend(AbstractStateBackend, boolean)
+	 */
+	public RocksDBStateBackend(URI checkpointDataUri, boolean enableIncrementalCheckpointing) throws IOException {
+		this(new FsStateBackend(checkpointDataUri), enableIncrementalCheckpointing);
+	}
+
 	/**
 	 * Creates a new {@code RocksDBStateBackend} that uses the given state backend to store its
 	 * checkpoint data streams. Typically, one would supply a filesystem or database state backend
@@ -153,7 +191,24 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 	 * @param checkpointStreamBackend The backend to store the
 	 */
 	public RocksDBStateBackend(AbstractStateBackend checkpointStreamBackend) {
+		this(checkpointStreamBackend, false);
+	}
+
+	/**
+	 * Creates a new {@code RocksDBStateBackend} that uses the given state backend to store its
+	 * checkpoint data streams.
+	 *
+	 * <p>With incremental checkpointing, a checkpoint takes a native RocksDB checkpoint and only
+	 * uploads the immutable sst files that were not already part of the last completed checkpoint.
+	 * The files are shared between checkpoints and discarded once no retained checkpoint
+	 * references them any more. Savepoints are always written in full.
+	 *
+	 * @param checkpointStreamBackend The backend to store the checkpoint data streams.
+	 * @param enableIncrementalCheckpointing True if incremental checkpointing is enabled.
+	 */
+	public RocksDBStateBackend(AbstractStateBackend checkpointStreamBackend, boolean enableIncrementalCheckpointing) {
 		this.checkpointStreamBackend = requireNonNull(checkpointStreamBackend);
+		this.enableIncrementalCheckpointing = enableIncrementalCheckpointing;
 	}
 
 	// ------------------------------------------------------------------------
@@ -260,7 +315,9 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 				keySerializer,
 				numberOfKeyGroups,
 				keyGroupRange,
-				env.getExecutionConfig());
+				env.getExecutionConfig(),
+				enableIncrementalCheckpointing,
+				numberOfTransferThreads);
 	}
 
 	// ------------------------------------------------------------------------
@@ -439,10 +496,40 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 			asyncSnapshots);
 	}
 
+	/**
+	 * Gets whether incremental checkpointing is enabled for this state backend.
+	 */
+	public boolean isIncrementalCheckpointsEnabled() {
+		return enableIncrementalCheckpointing;
+	}
+
+	/**
+	 * Sets the number of threads that each keyed state backend uses to upload the files of
+	 * incremental snapshots and to download them when restoring. Files are transferred
+	 * concurrently if more than one thread is configured. Full snapshots, such as savepoints,
+	 * are a single stream and always written and restored by one thread.
+	 *
+	 * @param numberOfTransferThreads The number of transfer threads, must be at least 1.
+	 */
+	public void setNumberOfTransferThreads(int numberOfTransferThreads) {
+		checkArgument(numberOfTransferThreads > 0, "The number of transfer threads must be positive.");
+		this.numberOfTransferThreads = numberOfTransferThreads;
+	}
+
+	/**
+	 * Gets the number of threads that each keyed state backend uses to transfer the files of
+	 * incremental snapshots.
+	 */
+	public int getNumberOfTransferThreads() {
+		return numberOfTransferThreads;
+	}
+
 	@Override
 	public String toString() {
 		return "RocksDB State Backend {" +
 			"isInitialized=" + isInitialized +
+			", enableIncrementalCheckpointing=" + enableIncrementalCheckpointing +
+			", numberOfTransferThreads=" + numberOfTransferThreads +
 			", configuredDbBasePaths=" + Arrays.toString(configuredDbBasePaths) +
 			", initializedDbBasePaths=" + Arrays.toString(initializedDbBasePaths) +
 			", checkpointStreamBackend=" + checkpointStreamBackend +
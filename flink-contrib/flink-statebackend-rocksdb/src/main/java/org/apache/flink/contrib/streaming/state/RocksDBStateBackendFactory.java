@@ -43,6 +43,10 @@ public class RocksDBStateBackendFactory implements StateBackendFactory<RocksDBSt
 	public static final String CHECKPOINT_DIRECTORY_URI_CONF_KEY = "state.backend.fs.checkpointdir";
 	/** The key under which the config stores the directory where RocksDB should be stored */
 	public static final String ROCKSDB_CHECKPOINT_DIRECTORY_URI_CONF_KEY = "state.backend.rocksdb.checkpointdir";
+	/** The key under which the config stores whether checkpoints should be incremental */
+	public static final String ROCKSDB_INCREMENTAL_CHECKPOINTS_CONF_KEY = "state.backend.rocksdb.incremental-checkpoints";
+	/** The key under which the config stores the number of threads that transfer the files of incremental checkpoints */
+	public static final String ROCKSDB_TRANSFER_THREADS_CONF_KEY = "state.backend.rocksdb.checkpoint.transfer-threads";
 
 	@Override
 	public RocksDBStateBackend createFromConfig(Configuration config) 
@@ -50,6 +54,9 @@ public class RocksDBStateBackendFactory implements StateBackendFactory<RocksDBSt
 
 		final String checkpointDirURI = config.getString(CHECKPOINT_DIRECTORY_URI_CONF_KEY, null);
 		final String rocksdbLocalPath = config.getString(ROCKSDB_CHECKPOINT_DIRECTORY_URI_CONF_KEY, null);
+		final boolean incrementalCheckpoints = config.getBoolean(ROCKSDB_INCREMENTAL_CHECKPOINTS_CONF_KEY, false);
+		final int transferThreads = config.getInteger(
+				ROCKSDB_TRANSFER_THREADS_CONF_KEY, RocksDBStateBackend.DEFAULT_NUMBER_OF_TRANSFER_THREADS);
 
 		if (checkpointDirURI == null) {
 			throw new IllegalConfigurationException(
@@ -57,15 +64,22 @@ public class RocksDBStateBackendFactory implements StateBackendFactory<RocksDBSt
 				"checkpoint directory '" + CHECKPOINT_DIRECTORY_URI_CONF_KEY + '\'');
 		}
 
+		if (transferThreads < 1) {
+			throw new IllegalConfigurationException(
+				"Cannot create the RocksDB state backend: The number of transfer threads '" +
+				ROCKSDB_TRANSFER_THREADS_CONF_KEY + "' must be at least 1, but is " + transferThreads + '.');
+		}
+
 		try {
 			Path path = new Path(checkpointDirURI);
-			RocksDBStateBackend backend = new RocksDBStateBackend(path.toUri());
+			RocksDBStateBackend backend = new RocksDBStateBackend(path.toUri(), incrementalCheckpoints);
 			if (rocksdbLocalPath != null) {
 				String[] directories = rocksdbLocalPath.split(",|" + File.pathSeparator);
 				backend.setDbStoragePaths(directories);
 			}
-			LOG.info("State backend is set to RocksDB (configured DB storage paths {}, checkpoints to filesystem {} ) ",
-					backend.getDbStoragePaths(), path);
+			backend.setNumberOfTransferThreads(transferThreads);
+			LOG.info("State backend is set to RocksDB (configured DB storage paths {}, checkpoints to filesystem {}, incremental checkpoints {}) ",
+					backend.getDbStoragePaths(), path, incrementalCheckpoints);
 
 			return backend;
 		}
@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.core.testutils.OneShotLatch;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.IncrementalKeyedStateHandle;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.SharedStreamStateHandle;
+import org.apache.flink.runtime.state.StateBackendTestBase;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.filesystem.FsStateBackend;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs the state backend tests for the {@link RocksDBStateBackend} with incremental checkpoints
+ * and tests the reuse of files between incremental checkpoints.
+ */
+public class RocksDBIncrementalCheckpointTest extends StateBackendTestBase<RocksDBStateBackend> {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private int numberOfTransferThreads = RocksDBStateBackend.DEFAULT_NUMBER_OF_TRANSFER_THREADS;
+
+	@Override
+	protected RocksDBStateBackend getStateBackend() throws IOException {
+		String checkpointPath = tempFolder.newFolder().toURI().toString();
+		RocksDBStateBackend backend = new RocksDBStateBackend(new FsStateBackend(checkpointPath), true);
+		backend.setDbStoragePath(tempFolder.newFolder().getAbsolutePath());
+		backend.setNumberOfTransferThreads(numberOfTransferThreads);
+		return backend;
+	}
+
+	@Test
+	public void testSnapshotReusesFilesOfCompletedCheckpoint() throws Exception {
+		CheckpointStreamFactory streamFactory = createStreamFactory();
+
+		ValueStateDescriptor<String> kvId = new ValueStateDescriptor<>("id", String.class);
+		kvId.initializeSerializerUnlessSet(new ExecutionConfig());
+
+		RocksDBKeyedStateBackend<Integer> backend =
+				(RocksDBKeyedStateBackend<Integer>) createKeyedBackend(IntSerializer.INSTANCE);
+
+		IncrementalKeyedStateHandle secondSnapshot;
+
+		try {
+			ValueState<String> state =
+					backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+			for (int i = 0; i < 100; ++i) {
+				backend.setCurrentKey(i);
+				state.update("first-" + i);
+			}
+
+			IncrementalKeyedStateHandle firstSnapshot = (IncrementalKeyedStateHandle) runSnapshot(
+					backend.snapshot(1L, 1L, streamFactory, CheckpointOptions.forFullCheckpoint()));
+
+			assertFalse(firstSnapshot.getSharedState().isEmpty());
+			assertEquals(firstSnapshot.getSharedState().keySet(), firstSnapshot.getNewSharedState());
+
+			backend.notifyCheckpointComplete(1L);
+
+			for (int i = 100; i < 200; ++i) {
+				backend.setCurrentKey(i);
+				state.update("second-" + i);
+			}
+
+			secondSnapshot = (IncrementalKeyedStateHandle) runSnapshot(
+					backend.snapshot(2L, 2L, streamFactory, CheckpointOptions.forFullCheckpoint()));
+
+			// the files of the completed checkpoint are referenced instead of uploaded again
+			for (Map.Entry<String, SharedStreamStateHandle> entry : firstSnapshot.getSharedState().entrySet()) {
+				assertEquals(entry.getValue(), secondSnapshot.getSharedState().get(entry.getKey()));
+				assertFalse(secondSnapshot.getNewSharedState().contains(entry.getKey()));
+			}
+
+			assertFalse(secondSnapshot.getNewSharedState().isEmpty());
+		} finally {
+			backend.dispose();
+		}
+
+		backend = (RocksDBKeyedStateBackend<Integer>) restoreKeyedBackend(IntSerializer.INSTANCE, secondSnapshot);
+
+		try {
+			ValueState<String> state =
+					backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+			for (int i = 0; i < 200; ++i) {
+				backend.setCurrentKey(i);
+				assertEquals((i < 100 ? "first-" : "second-") + i, state.value());
+			}
+
+			backend.setCurrentKey(0);
+			state.update("third-0");
+
+			// a snapshot after the restore references the restored files
+			IncrementalKeyedStateHandle thirdSnapshot = (IncrementalKeyedStateHandle) runSnapshot(
+					backend.snapshot(3L, 3L, streamFactory, CheckpointOptions.forFullCheckpoint()));
+
+			for (String fileName : secondSnapshot.getSharedState().keySet()) {
+				if (thirdSnapshot.getSharedState().containsKey(fileName)) {
+					assertFalse(thirdSnapshot.getNewSharedState().contains(fileName));
+				}
+			}
+		} finally {
+			backend.dispose();
+		}
+	}
+
+	@Test
+	public void testParallelTransfers() throws Exception {
+		numberOfTransferThreads = 4;
+
+		CheckpointStreamFactory streamFactory = createStreamFactory();
+
+		ValueStateDescriptor<String> kvId = new ValueStateDescriptor<>("id", String.class);
+		kvId.initializeSerializerUnlessSet(new ExecutionConfig());
+
+		RocksDBKeyedStateBackend<Integer> backend =
+				(RocksDBKeyedStateBackend<Integer>) createKeyedBackend(IntSerializer.INSTANCE);
+
+		IncrementalKeyedStateHandle snapshot;
+
+		try {
+			ValueState<String> state =
+					backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+			for (int i = 0; i < 100; ++i) {
+				backend.setCurrentKey(i);
+				state.update(String.valueOf(i));
+			}
+
+			snapshot = (IncrementalKeyedStateHandle) runSnapshot(
+					backend.snapshot(1L, 1L, streamFactory, CheckpointOptions.forFullCheckpoint()));
+
+			assertFalse(snapshot.getPrivateState().isEmpty());
+			assertEquals(snapshot.getSharedState().keySet(), snapshot.getNewSharedState());
+		} finally {
+			backend.dispose();
+		}
+
+		backend = (RocksDBKeyedStateBackend<Integer>) restoreKeyedBackend(IntSerializer.INSTANCE, snapshot);
+
+		try {
+			ValueState<String> state =
+					backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+			for (int i = 0; i < 100; ++i) {
+				backend.setCurrentKey(i);
+				assertEquals(String.valueOf(i), state.value());
+			}
+		} finally {
+			backend.dispose();
+		}
+	}
+
+	@Test
+	public void testSavepointIsWrittenInFull() throws Exception {
+		CheckpointStreamFactory streamFactory = createStreamFactory();
+
+		ValueStateDescriptor<String> kvId = new ValueStateDescriptor<>("id", String.class);
+		kvId.initializeSerializerUnlessSet(new ExecutionConfig());
+
+		RocksDBKeyedStateBackend<Integer> backend =
+				(RocksDBKeyedStateBackend<Integer>) createKeyedBackend(IntSerializer.INSTANCE);
+
+		try {
+			ValueState<String> state =
+					backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+			backend.setCurrentKey(1);
+			state.update("1");
+
+			KeyedStateHandle savepoint = runSnapshot(
+					backend.snapshot(1L, 1L, streamFactory, CheckpointOptions.forSavepoint("ignored")));
+
+			assertNotNull(savepoint);
+			assertFalse(savepoint instanceof IncrementalKeyedStateHandle);
+		} finally {
+			backend.dispose();
+		}
+	}
+
+	/**
+	 * Tests that interrupting the wait for the uploads cancels them, and that an upload that
+	 * was already running discards the file it wrote, instead of leaving it orphaned.
+	 */
+	@Test
+	public void testInterruptedTransfersDiscardTheirState() throws Exception {
+		final OneShotLatch uploadStarted = new OneShotLatch();
+		final OneShotLatch finishUpload = new OneShotLatch();
+		final AtomicBoolean secondUploadStarted = new AtomicBoolean();
+		final StreamStateHandle uploadedFile = mock(StreamStateHandle.class);
+
+		final List<RunnableFuture<StreamStateHandle>> futures = new ArrayList<>();
+
+		// ignores the interrupt of the cancellation, like a blocking write that completes anyway
+		futures.add(new RocksDBKeyedStateBackend.TransferFuture<>(new Callable<StreamStateHandle>() {
+			@Override
+			public StreamStateHandle call() throws Exception {
+				uploadStarted.trigger();
+				while (!finishUpload.isTriggered()) {
+					try {
+						finishUpload.await();
+					} catch (InterruptedException ignored) {
+					}
+				}
+				return uploadedFile;
+			}
+		}));
+		futures.add(new RocksDBKeyedStateBackend.TransferFuture<>(new Callable<StreamStateHandle>() {
+			@Override
+			public StreamStateHandle call() throws Exception {
+				secondUploadStarted.set(true);
+				return mock(StreamStateHandle.class);
+			}
+		}));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			for (RunnableFuture<StreamStateHandle> future : futures) {
+				executor.execute(future);
+			}
+			uploadStarted.await();
+
+			final List<StreamStateHandle> results = new ArrayList<>();
+			final AtomicReference<Throwable> error = new AtomicReference<>();
+
+			Thread waiter = new Thread() {
+				@Override
+				public void run() {
+					try {
+						RocksDBKeyedStateBackend.awaitTransfers(futures, results);
+					} catch (Throwable t) {
+						error.set(t);
+					}
+				}
+			};
+			waiter.start();
+			waiter.interrupt();
+			waiter.join();
+
+			assertTrue(error.get() instanceof InterruptedException);
+			assertEquals(Arrays.asList(null, null), results);
+
+			finishUpload.trigger();
+		} finally {
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(10L, TimeUnit.SECONDS));
+		}
+
+		verify(uploadedFile).discardState();
+		assertFalse(secondUploadStarted.get());
+	}
+
+	private static KeyedStateHandle runSnapshot(RunnableFuture<KeyedStateHandle> snapshotRunnableFuture) throws Exception {
+		if (!snapshotRunnableFuture.isDone()) {
+			snapshotRunnableFuture.run();
+		}
+		return snapshotRunnableFuture.get();
+	}
+}
@@ -18,12 +18,20 @@
 
 package org.apache.flink.contrib.streaming.state;
 
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.IllegalConfigurationException;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class RocksDBStateBackendFactoryTest {
 
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
 	@Test
 	public void testFactoryName() {
 		// construct the name such that it will not be automatically adjusted on refactorings
@@ -33,4 +41,26 @@ public class RocksDBStateBackendFactoryTest {
 		// !!! if this fails, the code in StreamTask.createStateBackend() must be adjusted
 		assertEquals(factoryName, RocksDBStateBackendFactory.class.getName());
 	}
+
+	@Test
+	public void testIncrementalCheckpointSettings() throws Exception {
+		Configuration config = new Configuration();
+		config.setString(RocksDBStateBackendFactory.CHECKPOINT_DIRECTORY_URI_CONF_KEY, tempFolder.newFolder().toURI().toString());
+		config.setBoolean(RocksDBStateBackendFactory.ROCKSDB_INCREMENTAL_CHECKPOINTS_CONF_KEY, true);
+		config.setInteger(RocksDBStateBackendFactory.ROCKSDB_TRANSFER_THREADS_CONF_KEY, 4);
+
+		RocksDBStateBackend backend = new RocksDBStateBackendFactory().createFromConfig(config);
+
+		assertTrue(backend.isIncrementalCheckpointsEnabled());
+		assertEquals(4, backend.getNumberOfTransferThreads());
+	}
+
+	@Test(expected = IllegalConfigurationException.class)
+	public void testInvalidNumberOfTransferThreads() throws Exception {
+		Configuration config = new Configuration();
+		config.setString(RocksDBStateBackendFactory.CHECKPOINT_DIRECTORY_URI_CONF_KEY, tempFolder.newFolder().toURI().toString());
+		config.setInteger(RocksDBStateBackendFactory.ROCKSDB_TRANSFER_THREADS_CONF_KEY, 0);
+
+		new RocksDBStateBackendFactory().createFromConfig(config);
+	}
 }
@@ -22,8 +22,10 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.IOFileFilter;
 import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.state.StateTtlConfig;
 import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.time.Time;
 import org.apache.flink.api.common.typeutils.base.IntSerializer;
 import org.apache.flink.core.testutils.OneShotLatch;
 import org.apache.flink.runtime.checkpoint.BlockerCheckpointStreamFactory;
@@ -39,6 +41,7 @@ import org.apache.flink.runtime.state.StateBackendTestBase;
 import org.apache.flink.runtime.state.VoidNamespace;
 import org.apache.flink.runtime.state.VoidNamespaceSerializer;
 import org.apache.flink.runtime.state.filesystem.FsStateBackend;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -58,6 +61,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static junit.framework.TestCase.assertNotNull;
 import static org.junit.Assert.assertEquals;
@@ -336,6 +340,86 @@ public class RocksDBStateBackendTest extends StateBackendTestBase<RocksDBStateBa
 	}
 
 
+	@Test
+	public void testTtlIncrementalCleanup() throws Exception {
+		final AtomicLong time = new AtomicLong();
+
+		RocksDBKeyedStateBackend<Integer> backend =
+				(RocksDBKeyedStateBackend<Integer>) createKeyedBackend(IntSerializer.INSTANCE);
+		backend.setTtlTimeProvider(new TtlTimeProvider() {
+			@Override
+			public long currentTimestamp() {
+				return time.get();
+			}
+		});
+
+		ValueStateDescriptor<String> kvId = new ValueStateDescriptor<>("id", String.class, null);
+		kvId.enableTimeToLive(StateTtlConfig.newBuilder(Time.milliseconds(100)).cleanupIncrementally(2).build());
+
+		ValueState<String> state = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+		time.set(1000);
+		for (int i = 1; i <= 4; ++i) {
+			backend.setCurrentKey(i);
+			state.update("Ciao");
+		}
+
+		time.set(1050);
+		backend.setCurrentKey(5);
+		state.update("Bello");
+
+		assertEquals(5, backend.numStateEntries());
+
+		// every access checks two more values, so that three accesses check all values at least once
+		time.set(1100);
+		for (int i = 0; i < 3; ++i) {
+			assertEquals("Bello", state.value());
+		}
+
+		assertEquals(1, backend.numStateEntries());
+
+		backend.dispose();
+	}
+
+	@Test
+	public void testTtlIncrementalCleanupKeepsUpdatedValues() throws Exception {
+		final AtomicLong time = new AtomicLong();
+
+		RocksDBKeyedStateBackend<Integer> backend =
+				(RocksDBKeyedStateBackend<Integer>) createKeyedBackend(IntSerializer.INSTANCE);
+		backend.setTtlTimeProvider(new TtlTimeProvider() {
+			@Override
+			public long currentTimestamp() {
+				return time.get();
+			}
+		});
+
+		ValueStateDescriptor<String> kvId = new ValueStateDescriptor<>("id", String.class, null);
+		kvId.enableTimeToLive(StateTtlConfig.newBuilder(Time.milliseconds(100)).cleanupIncrementally(1).build());
+
+		ValueState<String> state = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+		// the cleanup runs before every access, it has last seen the keys 1 to 4 and continues at key 2
+		time.set(1000);
+		for (int i = 1; i <= 5; ++i) {
+			backend.setCurrentKey(i);
+			state.update("Ciao");
+		}
+
+		time.set(1100);
+		backend.setCurrentKey(4);
+		// deletes key 2
+		state.update("Hola");
+		// deletes key 3
+		assertEquals("Hola", state.value());
+		// the iterator still shows the expired value of key 4, which was updated in the meantime
+		assertEquals("Hola", state.value());
+
+		assertEquals(3, backend.numStateEntries());
+
+		backend.dispose();
+	}
+
 	private void runStateUpdates() throws Exception{
 		for (int i = 50; i < 150; ++i) {
 			if (i % 10 == 0) {
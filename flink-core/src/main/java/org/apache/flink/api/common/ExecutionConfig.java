@@ -118,6 +118,12 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
 
 	private boolean forceAvro = false;
 
+	/** Flag to indicate whether batch data exchanges write a single sorted file per result partition */
+	private boolean sortedBlockingShuffle = false;
+
+	/** Flag to indicate whether records of fixed length types are exchanged without length headers */
+	private boolean fixedLengthRecords = false;
+
 	private CodeAnalysisMode codeAnalysisMode = CodeAnalysisMode.DISABLE;
 
 	/** If set to true, progress updates are printed to System.out during execution */
@@ -606,6 +612,65 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
 	public boolean isObjectReuseEnabled() {
 		return objectReuse;
 	}
+
+	/**
+	 * Makes the blocking data exchanges of batch programs write all subpartitions of a result
+	 * partition into a single file, sorted by subpartition, instead of one file per subpartition.
+	 * This reduces the number of files and random reads for shuffles with many producers and
+	 * consumers.
+	 */
+	@PublicEvolving
+	public ExecutionConfig enableSortedBlockingShuffle() {
+		sortedBlockingShuffle = true;
+		return this;
+	}
+
+	/**
+	 * Makes the blocking data exchanges of batch programs write one file per subpartition.
+	 * @see #enableSortedBlockingShuffle()
+	 */
+	@PublicEvolving
+	public ExecutionConfig disableSortedBlockingShuffle() {
+		sortedBlockingShuffle = false;
+		return this;
+	}
+
+	/**
+	 * Returns whether the sorted blocking shuffle is enabled. @see #enableSortedBlockingShuffle()
+	 */
+	@PublicEvolving
+	public boolean isSortedBlockingShuffleEnabled() {
+		return sortedBlockingShuffle;
+	}
+
+	/**
+	 * Makes the data exchanges of batch programs write records of types with a fixed serialized
+	 * length, such as tuples of primitive types, back to back without the length before every
+	 * record.
+	 */
+	@PublicEvolving
+	public ExecutionConfig enableFixedLengthRecords() {
+		fixedLengthRecords = true;
+		return this;
+	}
+
+	/**
+	 * Makes the data exchanges of batch programs write the length before every record.
+	 * @see #enableFixedLengthRecords()
+	 */
+	@PublicEvolving
+	public ExecutionConfig disableFixedLengthRecords() {
+		fixedLengthRecords = false;
+		return this;
+	}
+
+	/**
+	 * Returns whether fixed length records are enabled. @see #enableFixedLengthRecords()
+	 */
+	@PublicEvolving
+	public boolean isFixedLengthRecordsEnabled() {
+		return fixedLengthRecords;
+	}
 	
 	/**
 	 * Sets the {@link CodeAnalysisMode} of the program. Specifies to which extent user-defined
@@ -856,6 +921,8 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
 				objectReuse == other.objectReuse &&
 				autoTypeRegistrationEnabled == other.autoTypeRegistrationEnabled &&
 				forceAvro == other.forceAvro &&
+				sortedBlockingShuffle == other.sortedBlockingShuffle &&
+				fixedLengthRecords == other.fixedLengthRecords &&
 				Objects.equals(codeAnalysisMode, other.codeAnalysisMode) &&
 				printProgressDuringExecution == other.printProgressDuringExecution &&
 				Objects.equals(globalJobParameters, other.globalJobParameters) &&
@@ -883,6 +950,8 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
 			objectReuse,
 			autoTypeRegistrationEnabled,
 			forceAvro,
+			sortedBlockingShuffle,
+			fixedLengthRecords,
 			codeAnalysisMode,
 			printProgressDuringExecution,
 			globalJobParameters,
@@ -444,4 +444,22 @@ public interface RuntimeContext {
 	@Proteus
 	@PublicEvolving
 	<T> List<T> getSideInput(SideInput<T> handle);
+
+	/**
+	 * Looks up the elements of a keyed side input that have the given key. In contrast to
+	 * scanning the list returned by {@link #getSideInput(SideInput)}, this is a hash lookup.
+	 *
+	 * @param handle The handle of the side input, which must have been declared with a key field.
+	 * @param key The key to look up, i.e., the value of the declared key field.
+	 *
+	 * @param <T> The type of the side input elements.
+	 *
+	 * @return The elements with the given key, or an empty list if there are none. The returned
+	 *         list cannot be modified.
+	 *
+	 * @throws IllegalArgumentException Thrown, if the side input is not keyed.
+	 */
+	@Proteus
+	@PublicEvolving
+	<T> List<T> lookupSideInput(SideInput<T> handle, Object key);
 }
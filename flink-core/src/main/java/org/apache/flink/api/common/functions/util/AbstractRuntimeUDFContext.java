@@ -235,4 +235,10 @@ public abstract class AbstractRuntimeUDFContext implements RuntimeContext {
 		throw new UnsupportedOperationException(
 				"This side input is only accessible by functions executed on a stream");
 	}
+
+	@Override
+	public <T> List<T> lookupSideInput(SideInput<T> handle, Object key) {
+		throw new UnsupportedOperationException(
+				"This side input is only accessible by functions executed on a stream");
+	}
 }
@@ -82,6 +82,9 @@ public abstract class StateDescriptor<S extends State, T> implements Serializabl
 	/** Name for queries against state created from this StateDescriptor. */
 	private String queryableStateName;
 
+	/** The time-to-live configuration of state created from this StateDescriptor, or null if disabled. */
+	private StateTtlConfig ttlConfig;
+
 	/** The default value returned by the state when no other value is bound to a key */
 	protected transient T defaultValue;
 
@@ -191,6 +194,8 @@ public abstract class StateDescriptor<S extends State, T> implements Serializabl
 	 * @throws IllegalStateException If queryable state name already set
 	 */
 	public void setQueryable(String queryableStateName) {
+		Preconditions.checkState(ttlConfig == null, "Queryable state is not supported with time-to-live.");
+
 		if (this.queryableStateName == null) {
 			this.queryableStateName = Preconditions.checkNotNull(queryableStateName, "Registration name");
 		} else {
@@ -217,6 +222,36 @@ public abstract class StateDescriptor<S extends State, T> implements Serializabl
 		return queryableStateName != null;
 	}
 
+	/**
+	 * Enables time-to-live for the state created from this descriptor. Values in the state then expire
+	 * when they were not accessed within the configured time-to-live.
+	 *
+	 * <p>Time-to-live is not supported for queryable state and for {@link FoldingState}.
+	 *
+	 * @param ttlConfig The time-to-live configuration
+	 * @throws IllegalStateException If the state is queryable
+	 */
+	public void enableTimeToLive(StateTtlConfig ttlConfig) {
+		Preconditions.checkState(!isQueryable(), "Queryable state is not supported with time-to-live.");
+		this.ttlConfig = Preconditions.checkNotNull(ttlConfig);
+	}
+
+	/**
+	 * Returns the time-to-live configuration.
+	 *
+	 * @return The time-to-live configuration or <code>null</code> if time-to-live is disabled.
+	 */
+	public StateTtlConfig getTtlConfig() {
+		return ttlConfig;
+	}
+
+	/**
+	 * Returns whether time-to-live is enabled for the state created from this descriptor.
+	 */
+	public boolean isTtlEnabled() {
+		return ttlConfig != null;
+	}
+
 	/**
 	 * Creates a new {@link State} on the given {@link StateBinder}.
 	 *
@@ -270,6 +305,7 @@ public abstract class StateDescriptor<S extends State, T> implements Serializabl
 				", defaultValue=" + defaultValue +
 				", serializer=" + serializer +
 				(isQueryable() ? ", queryableStateName=" + queryableStateName + "" : "") +
+				(isTtlEnabled() ? ", ttlConfig=" + ttlConfig : "") +
 				'}';
 	}
 
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.common.state;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.api.common.time.Time;
+
+import java.io.Serializable;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Configuration of the time-to-live of keyed state. It is enabled on a {@link StateDescriptor} through
+ * {@link StateDescriptor#enableTimeToLive(StateTtlConfig)}.
+ *
+ * <p>With time-to-live, every value in the state is stored together with the processing time of its last
+ * access. Values that were not accessed within the time-to-live are treated as absent: they are never
+ * returned when reading the state, and the state backend removes them in the background, so that no
+ * timers are needed to clean them up.
+ *
+ * <p>For list and map state, the time-to-live applies to the individual elements and entries.
+ */
+@PublicEvolving
+public class StateTtlConfig implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The default number of entries that are checked for expiration on every state access. */
+	public static final int DEFAULT_CLEANUP_SIZE = 5;
+
+	/**
+	 * This option defines which accesses refresh the timestamp of a value in the state.
+	 */
+	public enum UpdateType {
+
+		/** The timestamp is set when a value is created, and refreshed when it is written. */
+		OnCreateAndWrite,
+
+		/** Like {@link #OnCreateAndWrite}, but reading a value also refreshes its timestamp. */
+		OnReadAndWrite
+	}
+
+	/** The time after its last access, after which a value expires. */
+	private final Time ttl;
+
+	/** The accesses that refresh the timestamp of a value. */
+	private final UpdateType updateType;
+
+	/** The number of entries that the state backend checks for expiration on every access. */
+	private final int cleanupSize;
+
+	private StateTtlConfig(Time ttl, UpdateType updateType, int cleanupSize) {
+		this.ttl = checkNotNull(ttl);
+		this.updateType = checkNotNull(updateType);
+		this.cleanupSize = cleanupSize;
+
+		checkArgument(ttl.toMilliseconds() > 0, "The time-to-live must be positive.");
+		checkArgument(cleanupSize >= 0, "The cleanup size must not be negative.");
+	}
+
+	/**
+	 * Returns the time after its last access, after which a value expires.
+	 */
+	public Time getTtl() {
+		return ttl;
+	}
+
+	/**
+	 * Returns which accesses refresh the timestamp of a value.
+	 */
+	public UpdateType getUpdateType() {
+		return updateType;
+	}
+
+	/**
+	 * Returns the number of entries that the state backend checks for expiration on every access of the state.
+	 */
+	public int getCleanupSize() {
+		return cleanupSize;
+	}
+
+	@Override
+	public String toString() {
+		return "StateTtlConfig{" +
+				"ttl=" + ttl +
+				", updateType=" + updateType +
+				", cleanupSize=" + cleanupSize +
+				'}';
+	}
+
+	/**
+	 * Creates a builder for a {@link StateTtlConfig} with the given time-to-live.
+	 *
+	 * @param ttl The time after its last access, after which a value expires.
+	 */
+	public static Builder newBuilder(Time ttl) {
+		return new Builder(ttl);
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Builder for the {@link StateTtlConfig}.
+	 */
+	@PublicEvolving
+	public static class Builder {
+
+		private final Time ttl;
+
+		private UpdateType updateType = UpdateType.OnCreateAndWrite;
+
+		private int cleanupSize = DEFAULT_CLEANUP_SIZE;
+
+		private Builder(Time ttl) {
+			this.ttl = checkNotNull(ttl);
+		}
+
+		/**
+		 * Sets which accesses refresh the timestamp of a value. The default is {@link UpdateType#OnCreateAndWrite}.
+		 */
+		public Builder setUpdateType(UpdateType updateType) {
+			this.updateType = checkNotNull(updateType);
+			return this;
+		}
+
+		/**
+		 * Sets the number of entries that the state backend checks for expiration on every access of the
+		 * state. Setting it to 0 disables the incremental cleanup, and expired values are then only dropped
+		 * when they are read or when a snapshot is written.
+		 */
+		public Builder cleanupIncrementally(int cleanupSize) {
+			this.cleanupSize = cleanupSize;
+			return this;
+		}
+
+		public StateTtlConfig build() {
+			return new StateTtlConfig(ttl, updateType, cleanupSize);
+		}
+	}
+}
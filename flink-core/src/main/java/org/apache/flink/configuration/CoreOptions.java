@@ -59,4 +59,12 @@ public class CoreOptions {
 	public static final ConfigOption<Integer> MAX_RETAINED_CHECKPOINTS = ConfigOptions
 		.key("state.checkpoints.num-retained")
 		.defaultValue(1);
+
+	/**
+	 * Whether subtasks keep a local copy of their keyed state snapshots, from which they restore
+	 * if they are restarted on the same TaskManager.
+	 */
+	public static final ConfigOption<Boolean> LOCAL_RECOVERY = ConfigOptions
+		.key("state.backend.local-recovery")
+		.defaultValue(false);
 }
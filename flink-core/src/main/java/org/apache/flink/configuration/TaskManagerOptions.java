@@ -115,6 +115,48 @@ public class TaskManagerOptions {
 		key("taskmanager.net.memory.extra-buffers-per-gate")
 			.defaultValue(8);
 
+	/**
+	 * Boolean flag to enable/disable credit-based flow control between the network stacks of the
+	 * task managers. With credit-based flow control, every remote input channel gets
+	 * {@link #NETWORK_BUFFERS_PER_CHANNEL} exclusive buffers and shares
+	 * {@link #NETWORK_EXTRA_BUFFERS_PER_GATE} floating buffers with the other channels of its
+	 * input gate, and senders only send buffers the receiver has announced credit for, instead of
+	 * relying on the back pressure of the shared TCP connection.
+	 */
+	public static final ConfigOption<Boolean> NETWORK_CREDIT_BASED_FLOW_CONTROL =
+			key("taskmanager.net.credit-based-flow-control.enabled")
+			.defaultValue(false);
+
+	/**
+	 * Boolean flag to enable/disable handing over records as objects between streaming tasks
+	 * in the same task manager, instead of serializing and deserializing them. This applies to
+	 * pipelined results of immutable types, or of any type if object reuse is disabled, in which
+	 * case the records are copied. Results consumed by remote tasks are always serialized.
+	 */
+	public static final ConfigOption<Boolean> NETWORK_LOCAL_OBJECT_HANDOVER =
+			key("taskmanager.net.local-object-handover.enabled")
+			.defaultValue(false);
+
+	/**
+	 * Boolean flag to enable/disable adaptive flushing of the outputs of streaming tasks. Instead
+	 * of flushing all channels every buffer timeout, each channel is flushed only when its oldest
+	 * pending data is about to exceed the buffer timeout, and not while its consumer has not
+	 * consumed the previous buffers yet. The buffer timeout then acts as a latency target.
+	 */
+	public static final ConfigOption<Boolean> NETWORK_ADAPTIVE_FLUSHING =
+			key("taskmanager.net.adaptive-flushing.enabled")
+			.defaultValue(false);
+
+	/**
+	 * Interval in milliseconds in which buffers are moved from local buffer pools, which did not
+	 * use all of their buffers, to local buffer pools, which had to wait for buffers. Every pool
+	 * keeps its required number of buffers and gets at most its maximum number of buffers. A value
+	 * of <tt>0</tt> disables the rebalancing.
+	 */
+	public static final ConfigOption<Long> NETWORK_BUFFER_REBALANCE_INTERVAL =
+			key("taskmanager.net.memory.rebalance-interval")
+			.defaultValue(0L);
+
 	/**
 	 * Boolean flag to enable/disable more detailed metrics about inbound/outbound network queue
 	 * lengths.
@@ -156,6 +198,15 @@ public class TaskManagerOptions {
 			key("task.checkpoint.alignment.max-size")
 			.defaultValue(-1L);
 
+	/**
+	 * Whether streaming tasks with a single input process their input event driven.
+	 * The task thread then polls its input without blocking and executes processing time
+	 * timers itself, instead of having the timer thread compete for the checkpoint lock.
+	 */
+	public static final ConfigOption<Boolean> TASK_MAILBOX_LOOP =
+			key("task.mailbox-loop.enabled")
+			.defaultValue(false);
+
 	/**
 	 * Whether the quarantine monitor for task managers shall be started. The quarantine monitor
 	 * shuts down the actor system if it detects that it has quarantined another actor system
@@ -165,6 +216,39 @@ public class TaskManagerOptions {
 		key("taskmanager.exit-on-fatal-akka-error")
 		.defaultValue(false);
 
+	// ------------------------------------------------------------------------
+	//  Side Input Options
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Number of managed memory pages an operator with side inputs uses to buffer its main input
+	 * while the side inputs are being loaded. The pages are taken when the first record is
+	 * buffered. Records exceeding these pages are spilled to disk.
+	 * A value of <code>0</code> buffers the main input on the heap instead.
+	 */
+	public static final ConfigOption<Integer> TASK_SIDE_INPUT_BUFFER_PAGES =
+			key("task.side-input.buffer.pages")
+			.defaultValue(32);
+
+	/**
+	 * Whether an operator with side inputs stops reading its main input until all side inputs
+	 * are loaded, instead of buffering it. The main input then back-pressures its producers.
+	 * While a checkpoint is aligned during the loading phase, the main input is read and buffered
+	 * as configured by {@link #TASK_SIDE_INPUT_BUFFER_PAGES} to avoid blocking the alignment.
+	 */
+	public static final ConfigOption<Boolean> TASK_SIDE_INPUT_BLOCK_MAIN_INPUT =
+			key("task.side-input.block-main-input")
+			.defaultValue(false);
+
+	/**
+	 * Whether side inputs keep their elements serialized in managed memory instead of as objects
+	 * on the heap. This reduces the heap usage and garbage collection pauses for large side
+	 * inputs, but deserializes an element on every access. Keyed side inputs always stay on the heap.
+	 */
+	public static final ConfigOption<Boolean> TASK_SIDE_INPUT_SERIALIZED_STORAGE =
+			key("task.side-input.serialized-storage")
+			.defaultValue(false);
+
 	// ------------------------------------------------------------------------
 
 	/** Not intended to be instantiated */
@@ -20,6 +20,7 @@ package org.apache.flink.api.common.state;
 
 import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.TaskInfo;
+import org.apache.flink.api.common.time.Time;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.common.typeutils.base.StringSerializer;
 import org.apache.flink.api.java.typeutils.runtime.kryo.KryoSerializer;
@@ -32,6 +33,7 @@ import org.junit.Test;
 import java.io.File;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -130,4 +132,40 @@ public class ValueStateDescriptorTest {
 		assertNotNull(copy.getSerializer());
 		assertEquals(serializer, copy.getSerializer());
 	}
+
+	@Test
+	public void testTimeToLive() throws Exception {
+		ValueStateDescriptor<String> descr = new ValueStateDescriptor<>("testName", StringSerializer.INSTANCE);
+		assertFalse(descr.isTtlEnabled());
+
+		StateTtlConfig ttlConfig = StateTtlConfig.newBuilder(Time.minutes(5))
+				.setUpdateType(StateTtlConfig.UpdateType.OnReadAndWrite)
+				.cleanupIncrementally(10)
+				.build();
+		descr.enableTimeToLive(ttlConfig);
+
+		ValueStateDescriptor<String> copy = CommonTestUtils.createCopySerializable(descr);
+
+		assertTrue(copy.isTtlEnabled());
+		assertEquals(Time.minutes(5).toMilliseconds(), copy.getTtlConfig().getTtl().toMilliseconds());
+		assertEquals(StateTtlConfig.UpdateType.OnReadAndWrite, copy.getTtlConfig().getUpdateType());
+		assertEquals(10, copy.getTtlConfig().getCleanupSize());
+
+		// time-to-live is not supported for queryable state
+		try {
+			descr.setQueryable("testName");
+			fail("Expected an IllegalStateException");
+		} catch (IllegalStateException expected) {
+			// expected
+		}
+
+		ValueStateDescriptor<String> queryable = new ValueStateDescriptor<>("testName", StringSerializer.INSTANCE);
+		queryable.setQueryable("testName");
+		try {
+			queryable.enableTimeToLive(ttlConfig);
+			fail("Expected an IllegalStateException");
+		} catch (IllegalStateException expected) {
+			// expected
+		}
+	}
 }
@@ -130,6 +130,8 @@ public class JobGraphGenerator implements Visitor<PlanNode> {
 	private final float defaultSortSpillingThreshold;
 
 	private final boolean useLargeRecordHandler;
+
+	private ResultPartitionType blockingResultType; // the result type of batch exchanges, set per program
 	
 	private int iterationIdEnumerator = 1;
 	
@@ -189,6 +191,10 @@ public class JobGraphGenerator implements Visitor<PlanNode> {
 		this.iterationStack = new ArrayList<IterationPlanNode>();
 		
 		this.sharingGroup = new SlotSharingGroup();
+
+		this.blockingResultType = program.getOriginalPlan().getExecutionConfig().isSortedBlockingShuffleEnabled()
+				? ResultPartitionType.BLOCKING_SORTED
+				: ResultPartitionType.BLOCKING;
 		
 		// this starts the traversal that generates the job graph
 		program.accept(this);
@@ -245,6 +251,13 @@ public class JobGraphGenerator implements Visitor<PlanNode> {
 			vertex.setSlotSharingGroup(sharingGroup);
 		}
 
+		// producers and consumers must agree on the framing of the records
+		if (program.getOriginalPlan().getExecutionConfig().isFixedLengthRecordsEnabled()) {
+			for (JobVertex vertex : graph.getVertices()) {
+				new TaskConfig(vertex.getConfiguration()).setUseFixedLengthRecords(true);
+			}
+		}
+
 		// add registered cache file into job configuration
 		for (Entry<String, DistributedCacheEntry> e : program.getOriginalPlan().getCachedFiles()) {
 			DistributedCache.writeFileInfoToConfig(e.getKey(), e.getValue(), graph.getJobConfiguration());
@@ -1130,7 +1143,7 @@ public class JobGraphGenerator implements Visitor<PlanNode> {
 				// See https://issues.apache.org/jira/browse/FLINK-1713 for details
 				resultType = channel.getSource().isOnDynamicPath()
 						? ResultPartitionType.PIPELINED
-						: ResultPartitionType.BLOCKING;
+						: blockingResultType;
 				break;
 
 			case PIPELINE_WITH_BATCH_FALLBACK:
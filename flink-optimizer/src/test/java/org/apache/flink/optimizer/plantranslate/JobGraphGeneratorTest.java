@@ -18,6 +18,7 @@
 
 package org.apache.flink.optimizer.plantranslate;
 
+import org.apache.flink.api.common.ExecutionMode;
 import org.apache.flink.api.common.Plan;
 import org.apache.flink.api.common.aggregators.LongSumAggregator;
 import org.apache.flink.api.common.functions.FilterFunction;
@@ -34,12 +35,16 @@ import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.optimizer.Optimizer;
 import org.apache.flink.optimizer.plan.OptimizedPlan;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.jobgraph.IntermediateDataSet;
 import org.apache.flink.runtime.jobgraph.JobGraph;
 import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.operators.util.TaskConfig;
 import org.junit.Test;
 
 import java.lang.reflect.Method;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class JobGraphGeneratorTest {
@@ -206,4 +211,59 @@ public class JobGraphGeneratorTest {
 		assertTrue(sinkVertex.getPreferredResources().equals(resource6));
 		assertTrue(iterationSyncVertex.getMinResources().equals(resource3));
 	}
+
+	/**
+	 * Verifies that the batch data exchanges use the sorted blocking result partitions if the
+	 * execution config of the program enables them.
+	 */
+	@Test
+	public void testSortedBlockingShuffle() {
+		assertBlockingResultType(false, ResultPartitionType.BLOCKING);
+		assertBlockingResultType(true, ResultPartitionType.BLOCKING_SORTED);
+	}
+
+	private static void assertBlockingResultType(boolean sortedBlockingShuffle, ResultPartitionType expected) {
+		ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+		env.getConfig().setExecutionMode(ExecutionMode.BATCH);
+		if (sortedBlockingShuffle) {
+			env.getConfig().enableSortedBlockingShuffle();
+		}
+
+		env.fromElements(1L, 2L, 3L)
+			.rebalance()
+			.output(new DiscardingOutputFormat<Long>());
+
+		OptimizedPlan op = new Optimizer(new Configuration()).compile(env.createProgramPlan());
+		JobGraph jobGraph = new JobGraphGenerator().compileJobGraph(op);
+
+		int numDataSets = 0;
+		for (JobVertex vertex : jobGraph.getVertices()) {
+			for (IntermediateDataSet dataSet : vertex.getProducedDataSets()) {
+				assertEquals(expected, dataSet.getResultType());
+				numDataSets++;
+			}
+		}
+		assertTrue(numDataSets > 0);
+	}
+
+	/**
+	 * Verifies that all vertices exchange fixed length records without length headers if the
+	 * execution config of the program enables it, so that producers and consumers agree.
+	 */
+	@Test
+	public void testFixedLengthRecords() {
+		ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+		env.getConfig().enableFixedLengthRecords();
+
+		env.fromElements(1L, 2L, 3L)
+			.rebalance()
+			.output(new DiscardingOutputFormat<Long>());
+
+		OptimizedPlan op = new Optimizer(new Configuration()).compile(env.createProgramPlan());
+		JobGraph jobGraph = new JobGraphGenerator().compileJobGraph(op);
+
+		for (JobVertex vertex : jobGraph.getVertices()) {
+			assertTrue(new TaskConfig(vertex.getConfiguration()).getUseFixedLengthRecords());
+		}
+	}
 }
@@ -18,10 +18,17 @@
 
 package org.apache.flink.runtime.broadcast;
 
+import org.apache.flink.api.common.JobID;
 import org.apache.flink.runtime.jobgraph.JobVertexID;
 
+import javax.annotation.Nullable;
+
 public class BroadcastVariableKey {
 
+	/** The job of the variable, null for keys that are unique within the TaskManager by vertex id. */
+	@Nullable
+	private final JobID jobId;
+
 	private final JobVertexID vertexId;
 	
 	private final String name;
@@ -29,10 +36,20 @@ public class BroadcastVariableKey {
 	private final int superstep;
 
 	public BroadcastVariableKey(JobVertexID vertexId, String name, int superstep) {
+		this(null, vertexId, name, superstep);
+	}
+
+	/**
+	 * Creates a key that is scoped to the given job. Vertex ids are not unique across jobs, for
+	 * instance a resubmitted job graph has the same ones, so keys of variables that are shared
+	 * beyond a single task need the job.
+	 */
+	public BroadcastVariableKey(@Nullable JobID jobId, JobVertexID vertexId, String name, int superstep) {
 		if (vertexId == null || name == null || superstep <= 0) {
 			throw new IllegalArgumentException();
 		}
 		
+		this.jobId = jobId;
 		this.vertexId = vertexId;
 		this.name = name;
 		this.superstep = superstep;
@@ -40,6 +57,11 @@ public class BroadcastVariableKey {
 
 	// ---------------------------------------------------------------------------------------------
 	
+	@Nullable
+	public JobID getJobId() {
+		return jobId;
+	}
+
 	public JobVertexID getVertexId() {
 		return vertexId;
 	}
@@ -58,7 +80,8 @@ public class BroadcastVariableKey {
 	public int hashCode() {
 		return 31 * superstep +
 				47 * name.hashCode() +
-				83 * vertexId.hashCode();
+				83 * vertexId.hashCode() +
+				(jobId == null ? 0 : 97 * jobId.hashCode());
 	}
 	
 	@Override
@@ -67,7 +90,8 @@ public class BroadcastVariableKey {
 			BroadcastVariableKey other = (BroadcastVariableKey) obj;
 			return this.superstep == other.superstep &&
 					this.name.equals(other.name) &&
-					this.vertexId.equals(other.vertexId);
+					this.vertexId.equals(other.vertexId) &&
+					(this.jobId == null ? other.jobId == null : this.jobId.equals(other.jobId));
 		}
 		else {
 			return false;
@@ -76,6 +100,6 @@ public class BroadcastVariableKey {
 	
 	@Override
 	public String toString() {
-		return vertexId + " \"" + name + "\" (" + superstep + ')';
+		return (jobId == null ? "" : jobId + "/") + vertexId + " \"" + name + "\" (" + superstep + ')';
 	}
 }
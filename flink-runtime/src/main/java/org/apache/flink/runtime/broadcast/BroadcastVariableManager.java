@@ -30,6 +30,9 @@ public class BroadcastVariableManager {
 	
 	private final ConcurrentHashMap<BroadcastVariableKey, BroadcastVariableMaterialization<?, ?>> variables =
 							new ConcurrentHashMap<BroadcastVariableKey, BroadcastVariableMaterialization<?, ?>>(16);
+
+	private final ConcurrentHashMap<BroadcastVariableKey, SharedBroadcastMaterialization<?>> sharedMaterializations =
+							new ConcurrentHashMap<BroadcastVariableKey, SharedBroadcastMaterialization<?>>(16);
 	
 	// --------------------------------------------------------------------------------------------
 	
@@ -106,6 +109,54 @@ public class BroadcastVariableManager {
 		}
 	}
 	
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Registers the given holder with the shared materialization of a broadcasted data set, which
+	 * the parallel instances of a streaming task push themselves. See
+	 * {@link SharedBroadcastMaterialization} for the protocol.
+	 */
+	public <T> SharedBroadcastMaterialization<T> registerSharedMaterialization(BroadcastVariableKey key, Object referenceHolder) {
+		while (true) {
+			final SharedBroadcastMaterialization<T> newMat = new SharedBroadcastMaterialization<T>(key);
+
+			final SharedBroadcastMaterialization<?> previous = sharedMaterializations.putIfAbsent(key, newMat);
+
+			@SuppressWarnings("unchecked")
+			final SharedBroadcastMaterialization<T> materialization = (previous == null) ? newMat : (SharedBroadcastMaterialization<T>) previous;
+
+			try {
+				materialization.addReference(referenceHolder);
+				return materialization;
+			}
+			catch (MaterializationExpiredException e) {
+				// concurrent release, replace the disposed materialization or wait for its removal
+				if (sharedMaterializations.replace(key, materialization, newMat)) {
+					try {
+						newMat.addReference(referenceHolder);
+						return newMat;
+					}
+					catch (MaterializationExpiredException ee) {
+						// fall through the loop
+					}
+				}
+			}
+		}
+	}
+
+	public void releaseSharedMaterialization(BroadcastVariableKey key, Object referenceHolder) {
+		SharedBroadcastMaterialization<?> mat = sharedMaterializations.get(key);
+
+		if (mat != null && mat.decrementReference(referenceHolder)) {
+			// remove if disposed and no one concurrently replaced the entry
+			sharedMaterializations.remove(key, mat);
+		}
+	}
+
+	public int getNumberOfSharedMaterializations() {
+		return this.sharedMaterializations.size();
+	}
+
 	// --------------------------------------------------------------------------------------------
 	
 	public int getNumberOfVariablesWithReferences() {
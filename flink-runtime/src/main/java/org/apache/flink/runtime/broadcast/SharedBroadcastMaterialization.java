@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.broadcast;
+
+import org.apache.flink.util.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A broadcasted data set that is shared by all parallel instances of a streaming task within the
+ * same TaskManager, such as a broadcasted side input.
+ *
+ * <p>In contrast to the {@link BroadcastVariableMaterialization}, the instances push their
+ * elements themselves, since they read them as part of their regular input. The first instance
+ * holding a reference is the materializer and publishes its elements via {@link #publish}. All
+ * other instances discard their copy of the elements and wait for the published data via
+ * {@link #awaitData()}. The published data is shared by all holders, so the materializer must
+ * publish a list that cannot be modified, such as an unmodifiable view of its elements. Resources held by the data, such
+ * as managed memory, are released once the last holder released its reference.
+ *
+ * @param <T> The type of the elements in the broadcasted data set.
+ */
+public class SharedBroadcastMaterialization<T> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SharedBroadcastMaterialization.class);
+
+	private final Set<Object> references = new HashSet<>();
+
+	private final BroadcastVariableKey key;
+
+	private Object materializer;
+
+	private List<T> data;
+
+	/** Releases the resources of the published data, or null. */
+	private Runnable releaseAction;
+
+	private boolean materialized;
+
+	private boolean disposed;
+
+	public SharedBroadcastMaterialization(BroadcastVariableKey key) {
+		this.key = Preconditions.checkNotNull(key);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Adds a reference to this materialization.
+	 *
+	 * @return True, if the given holder is the materializer, false if it shares the data.
+	 */
+	boolean addReference(Object referenceHolder) throws MaterializationExpiredException {
+		Preconditions.checkNotNull(referenceHolder);
+
+		synchronized (references) {
+			if (disposed) {
+				throw new MaterializationExpiredException();
+			}
+
+			if (!references.add(referenceHolder)) {
+				throw new IllegalStateException(
+					String.format("%s already holds a reference to the broadcast data set %s.", referenceHolder, key));
+			}
+
+			if (materializer == null) {
+				materializer = referenceHolder;
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Getting shared broadcast data set (" + key + ") - First access, materializing.");
+				}
+				return true;
+			} else {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Getting shared broadcast data set (" + key + ") - shared access.");
+				}
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Removes a reference from this materialization. If the materializer releases its reference
+	 * before it published the data, the materialization is disposed and all waiting holders fail.
+	 *
+	 * @return True, if the materialization is disposed and should no longer be handed out.
+	 */
+	boolean decrementReference(Object referenceHolder) {
+		Runnable toRelease;
+		synchronized (references) {
+			if (!references.remove(referenceHolder)) {
+				return false;
+			}
+
+			if (references.isEmpty() || (referenceHolder == materializer && !materialized)) {
+				disposed = true;
+				data = null;
+				toRelease = releaseAction;
+				releaseAction = null;
+				references.notifyAll();
+			} else {
+				return false;
+			}
+		}
+
+		if (toRelease != null) {
+			toRelease.run();
+		}
+		return true;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	public boolean isMaterializer(Object referenceHolder) {
+		synchronized (references) {
+			return referenceHolder == materializer;
+		}
+	}
+
+	/**
+	 * Publishes the data of the materializer to all holders of this materialization.
+	 */
+	public void publish(Object referenceHolder, List<T> data) {
+		publish(referenceHolder, data, null);
+	}
+
+	/**
+	 * Publishes the data of the materializer to all holders of this materialization.
+	 *
+	 * @param releaseAction Releases the resources of the data once all holders released their
+	 *                      references, or null if the data holds no resources.
+	 */
+	public void publish(Object referenceHolder, List<T> data, Runnable releaseAction) {
+		Preconditions.checkNotNull(data);
+
+		synchronized (references) {
+			Preconditions.checkState(referenceHolder == materializer, "Only the materializer can publish the data.");
+			Preconditions.checkState(!disposed, "The broadcast data set has been disposed.");
+
+			this.data = data;
+			this.releaseAction = releaseAction;
+			this.materialized = true;
+			references.notifyAll();
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Materialization of shared broadcast data set (" + key + ") finished.");
+		}
+	}
+
+	/**
+	 * Waits until the materializer published the data and returns it.
+	 *
+	 * @throws IOException Thrown, if the materializer released its reference without publishing.
+	 */
+	public List<T> awaitData() throws IOException, InterruptedException {
+		synchronized (references) {
+			while (!materialized && !disposed) {
+				references.wait();
+			}
+
+			if (!materialized || data == null) {
+				throw new IOException("The materialization of the broadcast data set " + key + " failed.");
+			}
+			return data;
+		}
+	}
+}
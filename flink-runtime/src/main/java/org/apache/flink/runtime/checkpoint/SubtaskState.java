@@ -152,12 +152,42 @@ public class SubtaskState implements CompositeStateHandle {
 
 	@Override
 	public void registerSharedStates(SharedStateRegistry sharedStateRegistry) {
-		// No shared states
+		if (managedOperatorState != null) {
+			for (int i = 0; i < managedOperatorState.getLength(); ++i) {
+				OperatorStateHandle operatorStateHandle = managedOperatorState.get(i);
+				if (operatorStateHandle instanceof CompositeStateHandle) {
+					((CompositeStateHandle) operatorStateHandle).registerSharedStates(sharedStateRegistry);
+				}
+			}
+		}
+
+		if (managedKeyedState instanceof CompositeStateHandle) {
+			((CompositeStateHandle) managedKeyedState).registerSharedStates(sharedStateRegistry);
+		}
+
+		if (rawKeyedState instanceof CompositeStateHandle) {
+			((CompositeStateHandle) rawKeyedState).registerSharedStates(sharedStateRegistry);
+		}
 	}
 
 	@Override
 	public void unregisterSharedStates(SharedStateRegistry sharedStateRegistry) {
-		// No shared states
+		if (managedOperatorState != null) {
+			for (int i = 0; i < managedOperatorState.getLength(); ++i) {
+				OperatorStateHandle operatorStateHandle = managedOperatorState.get(i);
+				if (operatorStateHandle instanceof CompositeStateHandle) {
+					((CompositeStateHandle) operatorStateHandle).unregisterSharedStates(sharedStateRegistry);
+				}
+			}
+		}
+
+		if (managedKeyedState instanceof CompositeStateHandle) {
+			((CompositeStateHandle) managedKeyedState).unregisterSharedStates(sharedStateRegistry);
+		}
+
+		if (rawKeyedState instanceof CompositeStateHandle) {
+			((CompositeStateHandle) rawKeyedState).unregisterSharedStates(sharedStateRegistry);
+		}
 	}
 
 	@Override
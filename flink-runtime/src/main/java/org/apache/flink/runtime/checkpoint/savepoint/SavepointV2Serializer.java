@@ -24,11 +24,14 @@ import org.apache.flink.runtime.checkpoint.SubtaskState;
 import org.apache.flink.runtime.checkpoint.TaskState;
 import org.apache.flink.runtime.jobgraph.JobVertexID;
 import org.apache.flink.runtime.state.ChainedStateHandle;
+import org.apache.flink.runtime.state.IncrementalKeyedStateHandle;
+import org.apache.flink.runtime.state.IncrementalOperatorStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
 import org.apache.flink.runtime.state.KeyGroupsStateHandle;
 import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.OperatorStateHandle;
+import org.apache.flink.runtime.state.SharedStreamStateHandle;
 import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.filesystem.FileStateHandle;
 import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
@@ -42,8 +45,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * (De)serializer for checkpoint metadata format version 2.
@@ -72,6 +77,8 @@ class SavepointV2Serializer implements SavepointSerializer<SavepointV2> {
 	private static final byte FILE_STREAM_STATE_HANDLE = 2;
 	private static final byte KEY_GROUPS_HANDLE = 3;
 	private static final byte PARTITIONABLE_OPERATOR_STATE_HANDLE = 4;
+	private static final byte INCREMENTAL_OPERATOR_STATE_HANDLE = 5;
+	private static final byte INCREMENTAL_KEYED_STATE_HANDLE = 6;
 
 	/** The singleton instance of the serializer */
 	public static final SavepointV2Serializer INSTANCE = new SavepointV2Serializer();
@@ -335,6 +342,30 @@ class SavepointV2Serializer implements SavepointSerializer<SavepointV2> {
 				dos.writeLong(keyGroupsStateHandle.getOffsetForKeyGroup(keyGroup));
 			}
 			serializeStreamStateHandle(keyGroupsStateHandle.getDelegateStateHandle(), dos);
+		} else if (stateHandle instanceof IncrementalKeyedStateHandle) {
+			IncrementalKeyedStateHandle incrementalStateHandle = (IncrementalKeyedStateHandle) stateHandle;
+
+			dos.writeByte(INCREMENTAL_KEYED_STATE_HANDLE);
+			dos.writeInt(incrementalStateHandle.getKeyGroupRange().getStartKeyGroup());
+			dos.writeInt(incrementalStateHandle.getKeyGroupRange().getNumberOfKeyGroups());
+			dos.writeLong(incrementalStateHandle.getCheckpointId());
+			serializeStreamStateHandle(incrementalStateHandle.getMetaStateHandle(), dos);
+
+			Map<String, SharedStreamStateHandle> sharedState = incrementalStateHandle.getSharedState();
+			dos.writeInt(sharedState.size());
+			for (Map.Entry<String, SharedStreamStateHandle> entry : sharedState.entrySet()) {
+				dos.writeUTF(entry.getKey());
+				dos.writeUTF(entry.getValue().getRegistrationKey());
+				dos.writeBoolean(incrementalStateHandle.getNewSharedState().contains(entry.getKey()));
+				serializeStreamStateHandle(entry.getValue().getDelegateStateHandle(), dos);
+			}
+
+			Map<String, StreamStateHandle> privateState = incrementalStateHandle.getPrivateState();
+			dos.writeInt(privateState.size());
+			for (Map.Entry<String, StreamStateHandle> entry : privateState.entrySet()) {
+				dos.writeUTF(entry.getKey());
+				serializeStreamStateHandle(entry.getValue(), dos);
+			}
 		} else {
 			throw new IllegalStateException("Unknown KeyedStateHandle type: " + stateHandle.getClass());
 		}
@@ -356,6 +387,35 @@ class SavepointV2Serializer implements SavepointSerializer<SavepointV2> {
 				keyGroupRange, offsets);
 			StreamStateHandle stateHandle = deserializeStreamStateHandle(dis);
 			return new KeyGroupsStateHandle(keyGroupRangeOffsets, stateHandle);
+		} else if (INCREMENTAL_KEYED_STATE_HANDLE == type) {
+			int startKeyGroup = dis.readInt();
+			int numKeyGroups = dis.readInt();
+			KeyGroupRange keyGroupRange = KeyGroupRange.of(startKeyGroup, startKeyGroup + numKeyGroups - 1);
+			long checkpointId = dis.readLong();
+			StreamStateHandle metaStateHandle = deserializeStreamStateHandle(dis);
+
+			int numSharedState = dis.readInt();
+			Map<String, SharedStreamStateHandle> sharedState = new HashMap<>(numSharedState);
+			Set<String> newSharedState = new HashSet<>();
+			for (int i = 0; i < numSharedState; ++i) {
+				String fileName = dis.readUTF();
+				String registrationKey = dis.readUTF();
+				if (dis.readBoolean()) {
+					newSharedState.add(fileName);
+				}
+				StreamStateHandle stateHandle = deserializeStreamStateHandle(dis);
+				sharedState.put(fileName, new SharedStreamStateHandle(registrationKey, stateHandle));
+			}
+
+			int numPrivateState = dis.readInt();
+			Map<String, StreamStateHandle> privateState = new HashMap<>(numPrivateState);
+			for (int i = 0; i < numPrivateState; ++i) {
+				String fileName = dis.readUTF();
+				privateState.put(fileName, deserializeStreamStateHandle(dis));
+			}
+
+			return new IncrementalKeyedStateHandle(
+				keyGroupRange, checkpointId, sharedState, newSharedState, privateState, metaStateHandle);
 		} else {
 			throw new IllegalStateException("Reading invalid KeyedStateHandle, type: " + type);
 		}
@@ -365,7 +425,8 @@ class SavepointV2Serializer implements SavepointSerializer<SavepointV2> {
 			OperatorStateHandle stateHandle, DataOutputStream dos) throws IOException {
 
 		if (stateHandle != null) {
-			dos.writeByte(PARTITIONABLE_OPERATOR_STATE_HANDLE);
+			boolean incremental = stateHandle instanceof IncrementalOperatorStateHandle;
+			dos.writeByte(incremental ? INCREMENTAL_OPERATOR_STATE_HANDLE : PARTITIONABLE_OPERATOR_STATE_HANDLE);
 			Map<String, OperatorStateHandle.StateMetaInfo> partitionOffsetsMap =
 					stateHandle.getStateNameToPartitionOffsets();
 			dos.writeInt(partitionOffsetsMap.size());
@@ -384,6 +445,19 @@ class SavepointV2Serializer implements SavepointSerializer<SavepointV2> {
 				}
 			}
 			serializeStreamStateHandle(stateHandle.getDelegateStateHandle(), dos);
+
+			if (incremental) {
+				IncrementalOperatorStateHandle incrementalStateHandle = (IncrementalOperatorStateHandle) stateHandle;
+
+				Map<String, SharedStreamStateHandle> sharedState = incrementalStateHandle.getSharedState();
+				dos.writeInt(sharedState.size());
+				for (Map.Entry<String, SharedStreamStateHandle> entry : sharedState.entrySet()) {
+					dos.writeUTF(entry.getKey());
+					dos.writeUTF(entry.getValue().getRegistrationKey());
+					dos.writeBoolean(incrementalStateHandle.getNewSharedState().contains(entry.getKey()));
+					serializeStreamStateHandle(entry.getValue().getDelegateStateHandle(), dos);
+				}
+			}
 		} else {
 			dos.writeByte(NULL_HANDLE);
 		}
@@ -395,7 +469,7 @@ class SavepointV2Serializer implements SavepointSerializer<SavepointV2> {
 		final int type = dis.readByte();
 		if (NULL_HANDLE == type) {
 			return null;
-		} else if (PARTITIONABLE_OPERATOR_STATE_HANDLE == type) {
+		} else if (PARTITIONABLE_OPERATOR_STATE_HANDLE == type || INCREMENTAL_OPERATOR_STATE_HANDLE == type) {
 			int mapSize = dis.readInt();
 			Map<String, OperatorStateHandle.StateMetaInfo> offsetsMap = new HashMap<>(mapSize);
 			for (int i = 0; i < mapSize; ++i) {
@@ -414,6 +488,24 @@ class SavepointV2Serializer implements SavepointSerializer<SavepointV2> {
 				offsetsMap.put(key, metaInfo);
 			}
 			StreamStateHandle stateHandle = deserializeStreamStateHandle(dis);
+
+			if (INCREMENTAL_OPERATOR_STATE_HANDLE == type) {
+				int numSharedState = dis.readInt();
+				Map<String, SharedStreamStateHandle> sharedState = new HashMap<>(numSharedState);
+				Set<String> newSharedState = new HashSet<>();
+				for (int i = 0; i < numSharedState; ++i) {
+					String name = dis.readUTF();
+					String registrationKey = dis.readUTF();
+					if (dis.readBoolean()) {
+						newSharedState.add(name);
+					}
+					StreamStateHandle sharedStateHandle = deserializeStreamStateHandle(dis);
+					sharedState.put(name, new SharedStreamStateHandle(registrationKey, sharedStateHandle));
+				}
+
+				return new IncrementalOperatorStateHandle(offsetsMap, stateHandle, sharedState, newSharedState);
+			}
+
 			return new OperatorStateHandle(offsetsMap, stateHandle);
 		} else {
 			throw new IllegalStateException("Reading invalid OperatorStateHandle, type: " + type);
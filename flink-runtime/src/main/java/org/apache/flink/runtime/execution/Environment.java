@@ -38,6 +38,7 @@ import org.apache.flink.runtime.jobgraph.tasks.InputSplitProvider;
 import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.runtime.metrics.groups.TaskMetricGroup;
 import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.TaskLocalStateStore;
 import org.apache.flink.runtime.state.internal.InternalKvState;
 import org.apache.flink.runtime.taskmanager.TaskManagerRuntimeInfo;
 
@@ -156,6 +157,15 @@ public interface Environment {
 	 */
 	TaskKvStateRegistry getTaskKvStateRegistry();
 
+	/**
+	 * Returns the store for local copies of the keyed state snapshots of the subtasks that run
+	 * on this TaskManager.
+	 *
+	 * @return The local state store of the TaskManager, or null, if this environment does not
+	 *         keep local state
+	 */
+	TaskLocalStateStore getTaskLocalStateStore();
+
 	/**
 	 * Confirms that the invokable has successfully completed all steps it needed to
 	 * to for the checkpoint with the give checkpoint-ID. This method does not include
@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.io.disk.iomanager;
 
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -27,13 +28,16 @@ public class AsynchronousBufferFileReader extends AsynchronousFileIOChannel<Buff
 
 	private final AtomicBoolean hasReachedEndOfFile = new AtomicBoolean();
 
+	/** Decompresses compressed buffers. Only used by the I/O thread. */
+	private final BufferCompressor decompressor = new BufferCompressor();
+
 	protected AsynchronousBufferFileReader(ID channelID, RequestQueue<ReadRequest> requestQueue, RequestDoneCallback<Buffer> callback) throws IOException {
 		super(channelID, requestQueue, callback, false);
 	}
 
 	@Override
 	public void readInto(Buffer buffer) throws IOException {
-		addRequest(new BufferReadRequest(this, buffer, hasReachedEndOfFile));
+		addRequest(new BufferReadRequest(this, buffer, hasReachedEndOfFile, decompressor));
 	}
 
 	@Override
@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.io.disk.iomanager;
 
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.util.event.NotificationListener;
 
 import java.io.IOException;
@@ -27,13 +28,22 @@ public class AsynchronousBufferFileWriter extends AsynchronousFileIOChannel<Buff
 
 	private static final RecyclingCallback CALLBACK = new RecyclingCallback();
 
+	/** Compresses the written buffers, null without compression. Only used by the I/O thread. */
+	private final BufferCompressor compressor;
+
 	protected AsynchronousBufferFileWriter(ID channelID, RequestQueue<WriteRequest> requestQueue) throws IOException {
+		this(channelID, requestQueue, false);
+	}
+
+	protected AsynchronousBufferFileWriter(ID channelID, RequestQueue<WriteRequest> requestQueue, boolean compress) throws IOException {
 		super(channelID, requestQueue, CALLBACK, true);
+
+		this.compressor = compress ? new BufferCompressor() : null;
 	}
 
 	@Override
 	public void writeBlock(Buffer buffer) throws IOException {
-		addRequest(new BufferWriteRequest(this, buffer));
+		addRequest(new BufferWriteRequest(this, buffer, compressor));
 	}
 
 	@Override
@@ -20,8 +20,10 @@ package org.apache.flink.runtime.io.disk.iomanager;
 
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.util.event.NotificationListener;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
@@ -356,25 +358,67 @@ final class SegmentWriteRequest implements WriteRequest {
 
 final class BufferWriteRequest implements WriteRequest {
 
+	/** Header type of an event. */
+	static final int EVENT = 0;
+
+	/** Header type of a buffer. */
+	static final int BUFFER = 1;
+
+	/** Header type of a buffer compressed with the {@link BufferCompressor}. */
+	static final int COMPRESSED_BUFFER = 2;
+
 	private final AsynchronousFileIOChannel<Buffer, WriteRequest> channel;
 
 	private final Buffer buffer;
 
+	private final BufferCompressor compressor;
+
 	protected BufferWriteRequest(AsynchronousFileIOChannel<Buffer, WriteRequest> targetChannel, Buffer buffer) {
+		this(targetChannel, buffer, null);
+	}
+
+	protected BufferWriteRequest(AsynchronousFileIOChannel<Buffer, WriteRequest> targetChannel, Buffer buffer, BufferCompressor compressor) {
 		this.channel = checkNotNull(targetChannel);
 		this.buffer = checkNotNull(buffer);
+		this.compressor = compressor;
 	}
 
 	@Override
 	public void write() throws IOException {
-		final ByteBuffer header = ByteBuffer.allocateDirect(8);
+		writeBuffer(channel.fileChannel, ByteBuffer.allocateDirect(8), buffer, compressor);
+	}
 
-		header.putInt(buffer.isBuffer() ? 1 : 0);
-		header.putInt(buffer.getSize());
+	/**
+	 * Writes the header and the data of the buffer, compressing it if a compressor is given and
+	 * the buffer compresses well.
+	 *
+	 * @param header A buffer of 8 bytes for the header.
+	 */
+	static void writeBuffer(
+			FileChannel fileChannel,
+			ByteBuffer header,
+			Buffer buffer,
+			BufferCompressor compressor) throws IOException {
+
+		final int compressedSize = compressor != null && buffer.isBuffer() ? compressor.compress(buffer) : -1;
+
+		header.clear();
+		if (compressedSize >= 0) {
+			header.putInt(COMPRESSED_BUFFER);
+			header.putInt(compressedSize);
+		} else {
+			header.putInt(buffer.isBuffer() ? BUFFER : EVENT);
+			header.putInt(buffer.getSize());
+		}
 		header.flip();
 
-		channel.fileChannel.write(header);
-		channel.fileChannel.write(buffer.getNioBuffer());
+		fileChannel.write(header);
+
+		if (compressedSize >= 0) {
+			fileChannel.write(ByteBuffer.wrap(compressor.getCompressedData(), 0, compressedSize));
+		} else {
+			fileChannel.write(buffer.getNioBuffer());
+		}
 	}
 
 	@Override
@@ -391,10 +435,22 @@ final class BufferReadRequest implements ReadRequest {
 
 	private final AtomicBoolean hasReachedEndOfFile;
 
+	private final BufferCompressor decompressor;
+
 	protected BufferReadRequest(AsynchronousFileIOChannel<Buffer, ReadRequest> targetChannel, Buffer buffer, AtomicBoolean hasReachedEndOfFile) {
+		this(targetChannel, buffer, hasReachedEndOfFile, new BufferCompressor());
+	}
+
+	protected BufferReadRequest(
+			AsynchronousFileIOChannel<Buffer, ReadRequest> targetChannel,
+			Buffer buffer,
+			AtomicBoolean hasReachedEndOfFile,
+			BufferCompressor decompressor) {
+
 		this.channel = targetChannel;
 		this.buffer = buffer;
 		this.hasReachedEndOfFile = hasReachedEndOfFile;
+		this.decompressor = checkNotNull(decompressor);
 	}
 
 	@Override
@@ -408,25 +464,51 @@ final class BufferReadRequest implements ReadRequest {
 			fileChannel.read(header);
 			header.flip();
 
-			final boolean isBuffer = header.getInt() == 1;
+			final int type = header.getInt();
 			final int size = header.getInt();
 
-			if (size > buffer.getMemorySegment().size()) {
-				throw new IllegalStateException("Buffer is too small for data: " + buffer.getMemorySegment().size() + " bytes available, but " + size + " needed. This is most likely due to an serialized event, which is larger than the buffer size.");
+			readBuffer(fileChannel, buffer, type, size, decompressor);
+
+			hasReachedEndOfFile.set(fileChannel.size() - fileChannel.position() == 0);
+		}
+		else {
+			hasReachedEndOfFile.set(true);
+		}
+	}
+
+	/**
+	 * Reads the data following a header of the given type and size into the buffer.
+	 */
+	static void readBuffer(
+			FileChannel fileChannel,
+			Buffer buffer,
+			int type,
+			int size,
+			BufferCompressor decompressor) throws IOException {
+
+		if (size > buffer.getMemorySegment().size()) {
+			throw new IllegalStateException("Buffer is too small for data: " + buffer.getMemorySegment().size() + " bytes available, but " + size + " needed. This is most likely due to an serialized event, which is larger than the buffer size.");
+		}
+
+		if (type == BufferWriteRequest.COMPRESSED_BUFFER) {
+			ByteBuffer data = decompressor.getCompressedDataBuffer(size);
+			while (data.hasRemaining()) {
+				if (fileChannel.read(data) < 0) {
+					throw new EOFException("Unexpected end of file while reading a compressed buffer.");
+				}
 			}
+			data.flip();
 
+			decompressor.decompress(data, buffer);
+		}
+		else {
 			buffer.setSize(size);
 
 			fileChannel.read(buffer.getNioBuffer());
 
-			if (!isBuffer) {
+			if (type == BufferWriteRequest.EVENT) {
 				buffer.tagAsEvent();
 			}
-
-			hasReachedEndOfFile.set(fileChannel.size() - fileChannel.position() == 0);
-		}
-		else {
-			hasReachedEndOfFile.set(true);
 		}
 	}
 
@@ -462,10 +544,15 @@ final class FileSegmentReadRequest implements ReadRequest {
 
 			final long position = fileChannel.position();
 
-			final boolean isBuffer = header.getInt() == 1;
+			final int type = header.getInt();
 			final int length = header.getInt();
 
-			fileSegment = new FileSegment(fileChannel, position, length, isBuffer);
+			fileSegment = new FileSegment(
+				fileChannel,
+				position,
+				length,
+				type != BufferWriteRequest.EVENT,
+				type == BufferWriteRequest.COMPRESSED_BUFFER);
 
 			// Skip the binary data
 			fileChannel.position(position + length);
@@ -236,7 +236,20 @@ public abstract class IOManager {
 	public abstract BlockChannelReader<MemorySegment> createBlockChannelReader(FileIOChannel.ID channelID,
 										LinkedBlockingQueue<MemorySegment> returnQueue) throws IOException;
 
-	public abstract BufferFileWriter createBufferFileWriter(FileIOChannel.ID channelID) throws IOException;
+	public BufferFileWriter createBufferFileWriter(FileIOChannel.ID channelID) throws IOException {
+		return createBufferFileWriter(channelID, false);
+	}
+
+	/**
+	 * Creates a writer for buffers, which optionally compresses the data buffers (not the
+	 * events) that compress well. The readers detect compressed buffers by themselves.
+	 *
+	 * @param channelID The descriptor for the channel to write to.
+	 * @param compress Whether to compress the buffers.
+	 * @return A buffer file writer that writes to the given channel.
+	 * @throws IOException Thrown, if the channel for the writer could not be opened.
+	 */
+	public abstract BufferFileWriter createBufferFileWriter(FileIOChannel.ID channelID, boolean compress) throws IOException;
 
 	public abstract BufferFileReader createBufferFileReader(FileIOChannel.ID channelID, RequestDoneCallback<Buffer> callback) throws IOException;
 
@@ -251,10 +251,10 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 	}
 
 	@Override
-	public BufferFileWriter createBufferFileWriter(FileIOChannel.ID channelID) throws IOException {
+	public BufferFileWriter createBufferFileWriter(FileIOChannel.ID channelID, boolean compress) throws IOException {
 		checkState(!isShutdown.get(), "I/O-Manger is shut down.");
 
-		return new AsynchronousBufferFileWriter(channelID, writers[channelID.getThreadNum()].requestQueue);
+		return new AsynchronousBufferFileWriter(channelID, writers[channelID.getThreadNum()].requestQueue, compress);
 	}
 
 	@Override
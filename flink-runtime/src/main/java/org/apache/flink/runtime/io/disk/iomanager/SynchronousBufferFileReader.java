@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.io.disk.iomanager;
 
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -35,6 +36,8 @@ public class SynchronousBufferFileReader extends SynchronousFileIOChannel implem
 
 	private final ByteBuffer header = ByteBuffer.allocateDirect(8);
 
+	private final BufferCompressor decompressor = new BufferCompressor();
+
 	private boolean hasReachedEndOfFile;
 
 	public SynchronousBufferFileReader(ID channelID, boolean writeEnabled) throws IOException {
@@ -51,25 +54,53 @@ public class SynchronousBufferFileReader extends SynchronousFileIOChannel implem
 			fileChannel.read(header);
 			header.flip();
 
-			final boolean isBuffer = header.getInt() == 1;
+			final int type = header.getInt();
 			final int size = header.getInt();
 
-			if (size > buffer.getMemorySegment().size()) {
-				throw new IllegalStateException("Buffer is too small for data: " + buffer.getMemorySegment().size() + " bytes available, but " + size + " needed. This is most likely due to an serialized event, which is larger than the buffer size.");
-			}
+			BufferReadRequest.readBuffer(fileChannel, buffer, type, size, decompressor);
+
+			hasReachedEndOfFile = fileChannel.size() - fileChannel.position() == 0;
+		}
+		else {
+			buffer.recycle();
+		}
+	}
 
-			buffer.setSize(size);
+	/**
+	 * Returns the next buffer of the file as a segment of the file channel and skips its data,
+	 * so that the data can be transferred without reading it into memory first. Events are not
+	 * returned as segments, but have to be read via {@link #readInto(Buffer)}.
+	 *
+	 * @return The segment of the next buffer, or <code>null</code> if the next buffer is an event
+	 * or the end of the file has been reached.
+	 */
+	public FileSegment getNextBufferSegment() throws IOException {
+		final long position = fileChannel.position();
+
+		if (fileChannel.size() - position > 0) {
+			// Read header without moving the channel, as events are read later on
+			header.clear();
+			fileChannel.read(header, position);
+			header.flip();
 
-			fileChannel.read(buffer.getNioBuffer());
+			final int type = header.getInt();
+			final int size = header.getInt();
 
-			if (!isBuffer) {
-				buffer.tagAsEvent();
+			if (type == BufferWriteRequest.EVENT) {
+				return null;
 			}
 
+			final long dataPosition = position + header.capacity();
+
+			// Skip the binary data
+			fileChannel.position(dataPosition + size);
+
 			hasReachedEndOfFile = fileChannel.size() - fileChannel.position() == 0;
+
+			return new FileSegment(fileChannel, dataPosition, size, true, type == BufferWriteRequest.COMPRESSED_BUFFER);
 		}
 		else {
-			buffer.recycle();
+			return null;
 		}
 	}
 
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.disk.iomanager;
+
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A synchronous writer for buffers, which writes the same format as the
+ * {@link AsynchronousBufferFileWriter}, so the buffers can be read by any {@link BufferFileReader}.
+ *
+ * <p> In contrast to the asynchronous writer, the position of every buffer in the file is known
+ * when it has been written. Like the {@link SynchronousBufferFileReader}, this bypasses the I/O
+ * manager.
+ */
+public class SynchronousBufferFileWriter extends SynchronousFileIOChannel {
+
+	private final ByteBuffer header = ByteBuffer.allocateDirect(8);
+
+	/** Compresses the written buffers, null without compression. */
+	private final BufferCompressor compressor;
+
+	public SynchronousBufferFileWriter(ID channelID, boolean compress) throws IOException {
+		super(channelID, true);
+
+		this.compressor = compress ? new BufferCompressor() : null;
+	}
+
+	/**
+	 * Writes the buffer to the end of the file and recycles it.
+	 */
+	public void writeBlock(Buffer buffer) throws IOException {
+		try {
+			BufferWriteRequest.writeBuffer(fileChannel, header, buffer, compressor);
+		}
+		finally {
+			buffer.recycle();
+		}
+	}
+
+	/**
+	 * Returns the position in the file at which the next buffer is written.
+	 */
+	public long getPosition() throws IOException {
+		return fileChannel.position();
+	}
+}
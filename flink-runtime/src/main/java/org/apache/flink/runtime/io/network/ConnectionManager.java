@@ -46,6 +46,12 @@ public interface ConnectionManager {
 
 	int getNumberOfActiveConnections();
 
+	/**
+	 * Returns the number of subpartitions which have data queued for being written to the
+	 * network connections, but are waiting for the connections to become writable.
+	 */
+	int getOutboundQueueLength();
+
 	int getDataPort();
 
 	void shutdown() throws IOException;
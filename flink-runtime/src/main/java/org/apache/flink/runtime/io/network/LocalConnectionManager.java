@@ -47,6 +47,11 @@ public class LocalConnectionManager implements ConnectionManager {
 		return 0;
 	}
 
+	@Override
+	public int getOutboundQueueLength() {
+		return 0;
+	}
+
 	@Override
 	public int getDataPort() {
 		return -1;
@@ -35,12 +35,17 @@ import org.apache.flink.runtime.query.netty.KvStateServer;
 import org.apache.flink.runtime.state.internal.InternalKvState;
 import org.apache.flink.runtime.taskmanager.Task;
 import org.apache.flink.runtime.taskmanager.TaskManager;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
 import org.apache.flink.util.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /**
@@ -78,6 +83,21 @@ public class NetworkEnvironment {
 	/** Number of extra network buffers to use for each outgoing/ingoing gate (result partition/input gate). */
 	private final int extraNetworkBuffersPerGate;
 
+	/**
+	 * Whether remote input channels use credit-based flow control, with the buffers per channel
+	 * as exclusive buffers and the extra buffers per gate as floating buffers.
+	 */
+	private final boolean enableCreditBased;
+
+	/**
+	 * Interval in milliseconds in which buffers are moved between the local buffer pools according
+	 * to their demand, or <tt>0</tt>, if the buffers are not rebalanced.
+	 */
+	private final long bufferRebalanceInterval;
+
+	/** Executor periodically rebalancing the buffers, only running if the interval is set. */
+	private ScheduledExecutorService bufferRebalanceExecutor;
+
 	private boolean isShutdown;
 
 	public NetworkEnvironment(
@@ -93,6 +113,50 @@ public class NetworkEnvironment {
 			int networkBuffersPerChannel,
 			int extraNetworkBuffersPerGate) {
 
+		this(networkBufferPool, connectionManager, resultPartitionManager, taskEventDispatcher,
+			kvStateRegistry, kvStateServer, defaultIOMode, partitionRequestInitialBackoff,
+			partitionRequestMaxBackoff, networkBuffersPerChannel, extraNetworkBuffersPerGate, false);
+	}
+
+	public NetworkEnvironment(
+			NetworkBufferPool networkBufferPool,
+			ConnectionManager connectionManager,
+			ResultPartitionManager resultPartitionManager,
+			TaskEventDispatcher taskEventDispatcher,
+			KvStateRegistry kvStateRegistry,
+			KvStateServer kvStateServer,
+			IOMode defaultIOMode,
+			int partitionRequestInitialBackoff,
+			int partitionRequestMaxBackoff,
+			int networkBuffersPerChannel,
+			int extraNetworkBuffersPerGate,
+			boolean enableCreditBased) {
+
+		this(networkBufferPool, connectionManager, resultPartitionManager, taskEventDispatcher,
+			kvStateRegistry, kvStateServer, defaultIOMode, partitionRequestInitialBackoff,
+			partitionRequestMaxBackoff, networkBuffersPerChannel, extraNetworkBuffersPerGate,
+			enableCreditBased, 0L);
+	}
+
+	public NetworkEnvironment(
+			NetworkBufferPool networkBufferPool,
+			ConnectionManager connectionManager,
+			ResultPartitionManager resultPartitionManager,
+			TaskEventDispatcher taskEventDispatcher,
+			KvStateRegistry kvStateRegistry,
+			KvStateServer kvStateServer,
+			IOMode defaultIOMode,
+			int partitionRequestInitialBackoff,
+			int partitionRequestMaxBackoff,
+			int networkBuffersPerChannel,
+			int extraNetworkBuffersPerGate,
+			boolean enableCreditBased,
+			long bufferRebalanceInterval) {
+
+		checkArgument(bufferRebalanceInterval >= 0, "Negative buffer rebalance interval");
+		checkArgument(!enableCreditBased || (networkBuffersPerChannel > 0 && extraNetworkBuffersPerGate > 0),
+			"Credit-based flow control requires at least one buffer per channel and one extra buffer per gate.");
+
 		this.networkBufferPool = checkNotNull(networkBufferPool);
 		this.connectionManager = checkNotNull(connectionManager);
 		this.resultPartitionManager = checkNotNull(resultPartitionManager);
@@ -109,6 +173,8 @@ public class NetworkEnvironment {
 		isShutdown = false;
 		this.networkBuffersPerChannel = networkBuffersPerChannel;
 		this.extraNetworkBuffersPerGate = extraNetworkBuffersPerGate;
+		this.enableCreditBased = enableCreditBased;
+		this.bufferRebalanceInterval = bufferRebalanceInterval;
 	}
 
 	// --------------------------------------------------------------------------------------------
@@ -211,11 +277,19 @@ public class NetworkEnvironment {
 				BufferPool bufferPool = null;
 
 				try {
-					int maxNumberOfMemorySegments = gate.getConsumedPartitionType().isBounded() ?
-						gate.getNumberOfInputChannels() * networkBuffersPerChannel +
+					if (enableCreditBased) {
+						// the remote channels get exclusive buffers, the pool has the floating buffers
+						int maxNumberOfMemorySegments = gate.getConsumedPartitionType().isBounded() ?
 							extraNetworkBuffersPerGate : Integer.MAX_VALUE;
-					bufferPool = networkBufferPool.createBufferPool(gate.getNumberOfInputChannels(),
-						maxNumberOfMemorySegments);
+						bufferPool = networkBufferPool.createBufferPool(0, maxNumberOfMemorySegments);
+						gate.assignExclusiveSegments(networkBufferPool, networkBuffersPerChannel);
+					} else {
+						int maxNumberOfMemorySegments = gate.getConsumedPartitionType().isBounded() ?
+							gate.getNumberOfInputChannels() * networkBuffersPerChannel +
+								extraNetworkBuffersPerGate : Integer.MAX_VALUE;
+						bufferPool = networkBufferPool.createBufferPool(gate.getNumberOfInputChannels(),
+							maxNumberOfMemorySegments);
+					}
 					gate.setBufferPool(bufferPool);
 				} catch (Throwable t) {
 					if (bufferPool != null) {
@@ -301,6 +375,28 @@ public class NetworkEnvironment {
 					throw new IOException("Failed to start the KvState server.", ie);
 				}
 			}
+
+			if (bufferRebalanceInterval > 0) {
+				LOG.debug("Starting the network buffer rebalancing every {} ms.", bufferRebalanceInterval);
+				bufferRebalanceExecutor = Executors.newSingleThreadScheduledExecutor(
+					new ExecutorThreadFactory("Flink Network Buffer Rebalancer"));
+
+				bufferRebalanceExecutor.scheduleWithFixedDelay(
+					new Runnable() {
+						@Override
+						public void run() {
+							try {
+								networkBufferPool.rebalanceBuffers();
+							}
+							catch (Throwable t) {
+								LOG.warn("Failed to rebalance the network buffers.", t);
+							}
+						}
+					},
+					bufferRebalanceInterval,
+					bufferRebalanceInterval,
+					TimeUnit.MILLISECONDS);
+			}
 		}
 	}
 
@@ -315,6 +411,10 @@ public class NetworkEnvironment {
 
 			LOG.info("Shutting down the network environment and its components.");
 
+			if (bufferRebalanceExecutor != null) {
+				bufferRebalanceExecutor.shutdownNow();
+			}
+
 			if (kvStateServer != null) {
 				try {
 					kvStateServer.shutDown();
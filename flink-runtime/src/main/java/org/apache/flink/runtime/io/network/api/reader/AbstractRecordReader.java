@@ -51,14 +51,28 @@ abstract class AbstractRecordReader<T extends IOReadableWritable> extends Abstra
 	 * @param tmpDirectories The temp directories. USed for spilling if the reader concurrently
 	 *                       reconstructs multiple large records.
 	 */
-	@SuppressWarnings("unchecked")
 	protected AbstractRecordReader(InputGate inputGate, String[] tmpDirectories) {
+		this(inputGate, tmpDirectories, -1);
+	}
+
+	/**
+	 * Creates a new AbstractRecordReader that de-serializes records from the given input gate and
+	 * can spill partial records to disk, if they grow large.
+	 *
+	 * @param inputGate The input gate to read from.
+	 * @param tmpDirectories The temp directories. Used for spilling if the reader concurrently
+	 *                       reconstructs multiple large records.
+	 * @param fixedRecordLength The serialized length of every record, or <tt>-1</tt> for records
+	 *                          of variable length, which are preceded by their length.
+	 */
+	@SuppressWarnings("unchecked")
+	protected AbstractRecordReader(InputGate inputGate, String[] tmpDirectories, int fixedRecordLength) {
 		super(inputGate);
 
 		// Initialize one deserializer per input channel
 		this.recordDeserializers = new SpillingAdaptiveSpanningRecordDeserializer[inputGate.getNumberOfInputChannels()];
 		for (int i = 0; i < recordDeserializers.length; i++) {
-			recordDeserializers[i] = new SpillingAdaptiveSpanningRecordDeserializer<T>(tmpDirectories);
+			recordDeserializers[i] = new SpillingAdaptiveSpanningRecordDeserializer<T>(tmpDirectories, fixedRecordLength);
 		}
 	}
 
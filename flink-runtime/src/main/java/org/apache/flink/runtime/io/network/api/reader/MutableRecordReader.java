@@ -37,6 +37,20 @@ public class MutableRecordReader<T extends IOReadableWritable> extends AbstractR
 		super(inputGate, tmpDirectories);
 	}
 
+	/**
+	 * Creates a new MutableRecordReader that de-serializes records of the given fixed length,
+	 * which are not preceded by their length, from the given input gate.
+	 *
+	 * @param inputGate The input gate to read from.
+	 * @param tmpDirectories The temp directories. Used for spilling if the reader concurrently
+	 *                       reconstructs multiple large records.
+	 * @param fixedRecordLength The serialized length of every record, or <tt>-1</tt> for records
+	 *                          of variable length, which are preceded by their length.
+	 */
+	public MutableRecordReader(InputGate inputGate, String[] tmpDirectories, int fixedRecordLength) {
+		super(inputGate, tmpDirectories, fixedRecordLength);
+	}
+
 	@Override
 	public boolean next(final T target) throws IOException, InterruptedException {
 		return getNextRecord(target);
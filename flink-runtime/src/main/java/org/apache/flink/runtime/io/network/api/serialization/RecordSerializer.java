@@ -20,6 +20,7 @@
 package org.apache.flink.runtime.io.network.api.serialization;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
@@ -75,6 +76,22 @@ public interface RecordSerializer<T extends IOReadableWritable> {
 	 */
 	SerializationResult addRecord(T record) throws IOException;
 
+	/**
+	 * Starts copying an already serialized record to the target buffer (if
+	 * available). This allows serializing a record only once for multiple
+	 * serializers.
+	 *
+	 * <p>The bytes between the position and the limit of the given buffer are
+	 * the serialized record. Neither is modified, but the bytes must remain
+	 * unchanged until the full record was written.
+	 *
+	 * @param serializedRecord the serialized record
+	 * @return how much information was written to the target buffer and
+	 *         whether this buffer is full
+	 * @throws IOException
+	 */
+	SerializationResult addSerializedRecord(ByteBuffer serializedRecord) throws IOException;
+
 	/**
 	 * Sets a (next) target buffer to use and continues writing remaining data
 	 * to it until it is full.
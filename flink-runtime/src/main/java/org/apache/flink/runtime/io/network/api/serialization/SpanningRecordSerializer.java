@@ -33,6 +33,11 @@ import org.apache.flink.runtime.util.DataOutputSerializer;
  * data serialization buffer and copies this buffer to target buffers
  * one-by-one using {@link #setNextBuffer(Buffer)}.
  *
+ * <p>Every record is preceded by its length, unless the serializer is created
+ * for records of a fixed length. In that case, the records are written back to
+ * back and must be read by a deserializer for the same fixed length, see
+ * {@link SpillingAdaptiveSpanningRecordDeserializer#SpillingAdaptiveSpanningRecordDeserializer(String[], int)}.
+ *
  * @param <T>
  */
 public class SpanningRecordSerializer<T extends IOReadableWritable> implements RecordSerializer<T> {
@@ -58,7 +63,21 @@ public class SpanningRecordSerializer<T extends IOReadableWritable> implements R
 	/** Limit of current {@link MemorySegment} of target buffer */
 	private int limit;
 
+	/** Length of every record if no length is written, or <tt>-1</tt> for records of variable length */
+	private final int fixedRecordLength;
+
 	public SpanningRecordSerializer() {
+		this(-1);
+	}
+
+	/**
+	 * Creates a serializer, which writes records without preceding length, if the given length is positive.
+	 *
+	 * @param fixedRecordLength the serialized length of every record, or <tt>-1</tt> for records of variable length
+	 */
+	public SpanningRecordSerializer(int fixedRecordLength) {
+		this.fixedRecordLength = fixedRecordLength > 0 ? fixedRecordLength : -1;
+
 		this.serializationBuffer = new DataOutputSerializer(128);
 
 		this.lengthBuffer = ByteBuffer.allocate(4);
@@ -87,13 +106,11 @@ public class SpanningRecordSerializer<T extends IOReadableWritable> implements R
 		}
 
 		this.serializationBuffer.clear();
-		this.lengthBuffer.clear();
 
 		// write data and length
 		record.write(this.serializationBuffer);
 
-		int len = this.serializationBuffer.length();
-		this.lengthBuffer.putInt(0, len);
+		setRecordLength(this.serializationBuffer.length());
 
 		this.dataBuffer = this.serializationBuffer.wrapAsByteBuffer();
 
@@ -104,6 +121,26 @@ public class SpanningRecordSerializer<T extends IOReadableWritable> implements R
 		return getSerializationResult();
 	}
 
+	@Override
+	public SerializationResult addSerializedRecord(ByteBuffer serializedRecord) throws IOException {
+		if (CHECKED) {
+			if (this.dataBuffer.hasRemaining()) {
+				throw new IllegalStateException("Pending serialization of previous record.");
+			}
+		}
+
+		setRecordLength(serializedRecord.remaining());
+
+		// copy through a view, the position of the given buffer stays untouched
+		this.dataBuffer = serializedRecord.duplicate();
+
+		// Copy from intermediate buffers to current target memory segment
+		copyToTargetBufferFrom(this.lengthBuffer);
+		copyToTargetBufferFrom(this.dataBuffer);
+
+		return getSerializationResult();
+	}
+
 	@Override
 	public SerializationResult setNextBuffer(Buffer buffer) throws IOException {
 		this.targetBuffer = buffer;
@@ -130,6 +167,24 @@ public class SpanningRecordSerializer<T extends IOReadableWritable> implements R
 		return result;
 	}
 
+	/**
+	 * Prepares the length, which precedes the next record, or checks the length of the
+	 * next record against the fixed record length.
+	 */
+	private void setRecordLength(int len) throws IOException {
+		if (this.fixedRecordLength > 0) {
+			if (len != this.fixedRecordLength) {
+				throw new IOException("Record of " + len + " bytes does not match the fixed record length of "
+					+ this.fixedRecordLength + " bytes. This indicates a type serializer, which reports a "
+					+ "fixed length, but writes records of varying length.");
+			}
+		}
+		else {
+			this.lengthBuffer.clear();
+			this.lengthBuffer.putInt(0, len);
+		}
+	}
+
 	/**
 	 * Copies as many bytes as possible from the given {@link ByteBuffer} to the {@link MemorySegment} of the target
 	 * {@link Buffer} and advances the current position by the number of written bytes.
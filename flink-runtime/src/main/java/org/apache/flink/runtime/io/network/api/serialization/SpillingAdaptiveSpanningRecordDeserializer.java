@@ -39,6 +39,13 @@ import java.nio.channels.FileChannel;
 import java.util.Random;
 
 /**
+ * Record deserializer, which reads the records directly from the buffers, if possible, and gathers
+ * records spanning multiple buffers in memory, or in a spill file if they are large.
+ *
+ * <p>Every record is expected to be preceded by its length, unless the deserializer is created for
+ * records of a fixed length, in which case the records are read back to back, as written by a
+ * {@link SpanningRecordSerializer} for the same fixed length.
+ *
  * @param <T> The type of the record to be deserialized.
  */
 public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWritable> implements RecordDeserializer<T> {
@@ -56,9 +63,23 @@ public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWrit
 	
 	private final SpanningWrapper spanningWrapper;
 
+	/** Length of every record if no length is read, or <tt>-1</tt> for records of variable length */
+	private final int fixedRecordLength;
+
 	private Buffer currentBuffer;
 
 	public SpillingAdaptiveSpanningRecordDeserializer(String[] tmpDirectories) {
+		this(tmpDirectories, -1);
+	}
+
+	/**
+	 * Creates a deserializer, which reads records without preceding length, if the given length is positive.
+	 *
+	 * @param tmpDirectories The temp directories for spilling large records.
+	 * @param fixedRecordLength The serialized length of every record, or <tt>-1</tt> for records of variable length.
+	 */
+	public SpillingAdaptiveSpanningRecordDeserializer(String[] tmpDirectories, int fixedRecordLength) {
+		this.fixedRecordLength = fixedRecordLength > 0 ? fixedRecordLength : -1;
 		this.nonSpanningWrapper = new NonSpanningWrapper();
 		this.spanningWrapper = new SpanningWrapper(tmpDirectories);
 	}
@@ -98,30 +119,25 @@ public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWrit
 		// for large records, this portion of the work is very small in comparison anyways
 		
 		int nonSpanningRemaining = this.nonSpanningWrapper.remaining();
-		
+
+		if (this.fixedRecordLength > 0) {
+			if (nonSpanningRemaining >= this.fixedRecordLength) {
+				return readNonSpanningRecord(target);
+			}
+			else if (nonSpanningRemaining > 0) {
+				// the record continues in the next buffers
+				this.spanningWrapper.initializeWithPartialRecord(this.nonSpanningWrapper, this.fixedRecordLength);
+				this.nonSpanningWrapper.clear();
+				return DeserializationResult.PARTIAL_RECORD;
+			}
+		}
 		// check if we can get a full length;
-		if (nonSpanningRemaining >= 4) {
+		else if (nonSpanningRemaining >= 4) {
 			int len = this.nonSpanningWrapper.readInt();
 
 			if (len <= nonSpanningRemaining - 4) {
 				// we can get a full record from here
-				try {
-					target.read(this.nonSpanningWrapper);
-
-					int remaining = this.nonSpanningWrapper.remaining();
-					if (remaining > 0) {
-						return DeserializationResult.INTERMEDIATE_RECORD_FROM_BUFFER;
-					}
-					else if (remaining == 0) {
-						return DeserializationResult.LAST_RECORD_FROM_BUFFER;
-					}
-					else {
-						throw new IndexOutOfBoundsException("Remaining = " + remaining);
-					}
-				}
-				catch (IndexOutOfBoundsException e) {
-					throw new IOException(BROKEN_SERIALIZATION_ERROR_MESSAGE, e);
-				}
+				return readNonSpanningRecord(target);
 			}
 			else {
 				// we got the length, but we need the rest from the spanning deserializer
@@ -156,6 +172,26 @@ public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWrit
 		}
 	}
 
+	private DeserializationResult readNonSpanningRecord(T target) throws IOException {
+		try {
+			target.read(this.nonSpanningWrapper);
+
+			int remaining = this.nonSpanningWrapper.remaining();
+			if (remaining > 0) {
+				return DeserializationResult.INTERMEDIATE_RECORD_FROM_BUFFER;
+			}
+			else if (remaining == 0) {
+				return DeserializationResult.LAST_RECORD_FROM_BUFFER;
+			}
+			else {
+				throw new IndexOutOfBoundsException("Remaining = " + remaining);
+			}
+		}
+		catch (IndexOutOfBoundsException e) {
+			throw new IOException(BROKEN_SERIALIZATION_ERROR_MESSAGE, e);
+		}
+	}
+
 	@Override
 	public void clear() {
 		this.nonSpanningWrapper.clear();
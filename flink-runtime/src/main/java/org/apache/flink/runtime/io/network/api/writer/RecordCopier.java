@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.api.writer;
+
+/**
+ * Creates the objects which a {@link RecordWriter} hands over to consumers in the same task
+ * manager, instead of serializing the records.
+ * <p>
+ * The returned object is passed to another thread and must not be changed by the producer
+ * afterwards. Immutable records can be returned as they are.
+ *
+ * @param <T> the type of record which is emitted by the record writer
+ */
+public interface RecordCopier<T> {
+
+	Object copy(T record);
+}
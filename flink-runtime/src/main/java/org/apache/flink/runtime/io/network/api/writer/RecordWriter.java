@@ -27,12 +27,17 @@ import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.network.api.serialization.RecordSerializer;
 import org.apache.flink.runtime.io.network.api.serialization.SpanningRecordSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.util.DataOutputSerializer;
 import org.apache.flink.util.XORShiftRandom;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import static org.apache.flink.runtime.io.network.api.serialization.RecordSerializer.SerializationResult;
+import static org.apache.flink.util.Preconditions.checkState;
 
 /**
  * A record-oriented runtime result writer.
@@ -44,11 +49,24 @@ import static org.apache.flink.runtime.io.network.api.serialization.RecordSerial
  * all records have been written with {@link #emit(IOReadableWritable)}. This
  * ensures that all produced records are written to the output stream (incl.
  * partially filled ones).
+ * <p>
+ * Records sent to multiple channels are serialized only once. With a
+ * {@link BroadcastChannelSelector}, the records are even written into a single
+ * sequence of buffers, which are shared by all channels.
+ * <p>
+ * With a {@link RecordCopier}, records are handed over as objects instead to the
+ * channels whose consumers run in the same task manager and accept them.
  *
  * @param <T> the type of the record that can be emitted with this record writer
  */
 public class RecordWriter<T extends IOReadableWritable> {
 
+	/** Target channel of the buffers shared by all channels */
+	private static final int ALL_CHANNELS = -1;
+
+	/** Maximum number of records handed over to a consumer at once */
+	private static final int RECORD_BATCH_SIZE = 256;
+
 	protected final ResultPartitionWriter targetPartition;
 
 	private final ChannelSelector<T> channelSelector;
@@ -58,6 +76,33 @@ public class RecordWriter<T extends IOReadableWritable> {
 	/** {@link RecordSerializer} per outgoing channel */
 	private final RecordSerializer<T>[] serializers;
 
+	/**
+	 * {@link RecordSerializer} for the buffers shared by all channels, only set
+	 * for a {@link BroadcastChannelSelector}.
+	 */
+	private final RecordSerializer<T> broadcastSerializer;
+
+	/** Intermediate serialization of records sent to multiple channels */
+	private final DataOutputSerializer serializationBuffer = new DataOutputSerializer(128);
+
+	private final int[] allChannels;
+
+	/**
+	 * Records to hand over as objects per channel, <tt>null</tt> for channels whose
+	 * records are serialized. Access is synchronized on the channel's serializer.
+	 */
+	private final List<Object>[] recordBatches;
+
+	/** Creates the objects handed over, <tt>null</tt> if records are always serialized */
+	private RecordCopier<T> recordCopier;
+
+	/**
+	 * The {@link System#nanoTime()} at which the pending data of each channel, which has not
+	 * been written to the channel yet, was added. The last element is for the buffers shared
+	 * by all channels. <tt>null</tt> if not tracked, see {@link #trackPendingData()}.
+	 */
+	private long[] pendingDataSince;
+
 	private final Random RNG = new XORShiftRandom();
 
 	private Counter numBytesOut = new SimpleCounter();
@@ -66,8 +111,18 @@ public class RecordWriter<T extends IOReadableWritable> {
 		this(writer, new RoundRobinChannelSelector<T>());
 	}
 
-	@SuppressWarnings("unchecked")
 	public RecordWriter(ResultPartitionWriter writer, ChannelSelector<T> channelSelector) {
+		this(writer, channelSelector, -1);
+	}
+
+	/**
+	 * Creates a record writer, which writes records without preceding length, if the given length
+	 * is positive. The consumers must read the records with the same fixed length.
+	 *
+	 * @param fixedRecordLength the serialized length of every record, or <tt>-1</tt> for records of variable length
+	 */
+	@SuppressWarnings("unchecked")
+	public RecordWriter(ResultPartitionWriter writer, ChannelSelector<T> channelSelector, int fixedRecordLength) {
 		this.targetPartition = writer;
 		this.channelSelector = channelSelector;
 
@@ -80,13 +135,46 @@ public class RecordWriter<T extends IOReadableWritable> {
 		 */
 		this.serializers = new SpanningRecordSerializer[numChannels];
 		for (int i = 0; i < numChannels; i++) {
-			serializers[i] = new SpanningRecordSerializer<T>();
+			serializers[i] = new SpanningRecordSerializer<T>(fixedRecordLength);
 		}
+
+		this.broadcastSerializer = channelSelector instanceof BroadcastChannelSelector
+			? new SpanningRecordSerializer<T>(fixedRecordLength)
+			: null;
+
+		this.allChannels = new int[numChannels];
+		for (int i = 0; i < numChannels; i++) {
+			allChannels[i] = i;
+		}
+
+		this.recordBatches = new List[numChannels];
+	}
+
+	/**
+	 * Enables handing over records as objects to the channels whose consumers run in the
+	 * same task manager and request it, see {@link ResultPartitionWriter#isObjectHandoverRequested(int)}.
+	 * The records of a {@link BroadcastChannelSelector} are always serialized into the
+	 * buffers shared by all channels.
+	 */
+	public void setRecordCopier(RecordCopier<T> recordCopier) {
+		if (broadcastSerializer == null) {
+			this.recordCopier = recordCopier;
+		}
+	}
+
+	/**
+	 * Enables tracking since when the data of each channel is pending, see
+	 * {@link #getPendingDataSince(int)}.
+	 */
+	protected void trackPendingData() {
+		pendingDataSince = new long[numChannels + 1];
 	}
 
 	public void emit(T record) throws IOException, InterruptedException {
-		for (int targetChannel : channelSelector.selectChannels(record, numChannels)) {
-			sendToTarget(record, targetChannel);
+		if (broadcastSerializer != null) {
+			sendToAllChannels(record);
+		} else {
+			sendToTargets(record, channelSelector.selectChannels(record, numChannels));
 		}
 	}
 
@@ -95,8 +183,10 @@ public class RecordWriter<T extends IOReadableWritable> {
 	 * the {@link ChannelSelector}.
 	 */
 	public void broadcastEmit(T record) throws IOException, InterruptedException {
-		for (int targetChannel = 0; targetChannel < numChannels; targetChannel++) {
-			sendToTarget(record, targetChannel);
+		if (broadcastSerializer != null) {
+			sendToAllChannels(record);
+		} else {
+			sendToTargets(record, allChannels);
 		}
 	}
 
@@ -104,39 +194,164 @@ public class RecordWriter<T extends IOReadableWritable> {
 	 * This is used to send LatencyMarks to a random target channel
 	 */
 	public void randomEmit(T record) throws IOException, InterruptedException {
-		sendToTarget(record, RNG.nextInt(numChannels));
+		int targetChannel = RNG.nextInt(numChannels);
+
+		if (broadcastSerializer != null) {
+			// the shared buffers and the buffers of the channel must not
+			// interleave within a record, so they are written right away
+			flushBroadcastBuffer();
+			sendToTarget(record, targetChannel);
+			flushChannel(targetChannel);
+		} else {
+			sendToTarget(record, targetChannel);
+		}
+	}
+
+	private void sendToTargets(T record, int[] targetChannels) throws IOException, InterruptedException {
+		if (targetChannels.length == 1) {
+			sendToTarget(record, targetChannels[0]);
+			return;
+		}
+		if (targetChannels.length == 0) {
+			return;
+		}
+
+		try {
+			ByteBuffer serializedRecord = null;
+
+			for (int targetChannel : targetChannels) {
+				RecordSerializer<T> serializer = serializers[targetChannel];
+
+				synchronized (serializer) {
+					if (handOver(record, targetChannel)) {
+						continue;
+					}
+
+					if (serializedRecord == null) {
+						serializationBuffer.clear();
+						record.write(serializationBuffer);
+						serializedRecord = serializationBuffer.wrapAsByteBuffer();
+					}
+
+					copyToTarget(serializer, serializer.addSerializedRecord(serializedRecord), targetChannel);
+				}
+			}
+		} finally {
+			// make sure we don't hold onto the large buffers for too long
+			serializationBuffer.clear();
+			serializationBuffer.pruneBuffer();
+		}
 	}
 
 	private void sendToTarget(T record, int targetChannel) throws IOException, InterruptedException {
 		RecordSerializer<T> serializer = serializers[targetChannel];
 
 		synchronized (serializer) {
-			SerializationResult result = serializer.addRecord(record);
+			if (!handOver(record, targetChannel)) {
+				copyToTarget(serializer, serializer.addRecord(record), targetChannel);
+			}
+		}
+	}
 
-			while (result.isFullBuffer()) {
-				Buffer buffer = serializer.getCurrentBuffer();
+	private void sendToAllChannels(T record) throws IOException, InterruptedException {
+		synchronized (broadcastSerializer) {
+			copyToTarget(broadcastSerializer, broadcastSerializer.addRecord(record), ALL_CHANNELS);
+		}
+	}
 
-				if (buffer != null) {
-					numBytesOut.inc(buffer.getSize());
-					writeAndClearBuffer(buffer, targetChannel, serializer);
-
-					// If this was a full record, we are done. Not breaking
-					// out of the loop at this point will lead to another
-					// buffer request before breaking out (that would not be
-					// a problem per se, but it can lead to stalls in the
-					// pipeline).
-					if (result.isFullRecord()) {
-						break;
-					}
-				} else {
-					buffer = targetPartition.getBufferProvider().requestBufferBlocking();
-					result = serializer.setNextBuffer(buffer);
+	/**
+	 * Writes the remainder of the record added to the serializer, requesting
+	 * new buffers as needed.
+	 *
+	 * Needs to be synchronized on the serializer!
+	 */
+	private void copyToTarget(
+			RecordSerializer<T> serializer,
+			SerializationResult result,
+			int targetChannel) throws IOException, InterruptedException {
+
+		while (result.isFullBuffer()) {
+			Buffer buffer = serializer.getCurrentBuffer();
+
+			if (buffer != null) {
+				writeAndClearBuffer(buffer, targetChannel, serializer);
+
+				// If this was a full record, we are done. Not breaking
+				// out of the loop at this point will lead to another
+				// buffer request before breaking out (that would not be
+				// a problem per se, but it can lead to stalls in the
+				// pipeline).
+				if (result.isFullRecord()) {
+					break;
+				}
+			} else {
+				buffer = targetPartition.getBufferProvider().requestBufferBlocking();
+				result = serializer.setNextBuffer(buffer);
+
+				if (pendingDataSince != null) {
+					pendingDataSince[targetChannel == ALL_CHANNELS ? numChannels : targetChannel] = System.nanoTime();
 				}
 			}
 		}
 	}
 
+	/**
+	 * Adds a copy of the record to the records handed over to the channel, if its
+	 * consumer requested it. Before the first record, the serialized records are
+	 * flushed, so that they are consumed first.
+	 *
+	 * Needs to be synchronized on the serializer!
+	 *
+	 * @return Whether the record was handed over and must not be serialized.
+	 */
+	private boolean handOver(T record, int targetChannel) throws IOException, InterruptedException {
+		if (recordCopier == null) {
+			return false;
+		}
+
+		List<Object> records = recordBatches[targetChannel];
+
+		if (records == null) {
+			if (!targetPartition.isObjectHandoverRequested(targetChannel)) {
+				return false;
+			}
+
+			flushChannel(targetChannel);
+
+			records = new ArrayList<>(RECORD_BATCH_SIZE);
+			recordBatches[targetChannel] = records;
+		}
+
+		if (pendingDataSince != null && records.isEmpty()) {
+			pendingDataSince[targetChannel] = System.nanoTime();
+		}
+
+		records.add(recordCopier.copy(record));
+
+		if (records.size() == RECORD_BATCH_SIZE) {
+			writeRecords(targetChannel);
+		}
+		return true;
+	}
+
+	/**
+	 * Hands over the pending records of the channel to its consumer.
+	 *
+	 * Needs to be synchronized on the serializer!
+	 */
+	private void writeRecords(int targetChannel) throws IOException, InterruptedException {
+		List<Object> records = recordBatches[targetChannel];
+
+		if (records != null && !records.isEmpty()) {
+			// the consumer takes over the list
+			recordBatches[targetChannel] = new ArrayList<>(RECORD_BATCH_SIZE);
+			targetPartition.writeRecords(records, targetChannel);
+		}
+	}
+
 	public void broadcastEvent(AbstractEvent event) throws IOException, InterruptedException {
+		flushBroadcastBuffer();
+
 		final Buffer eventBuffer = EventSerializer.toBuffer(event);
 		try {
 			for (int targetChannel = 0; targetChannel < numChannels; targetChannel++) {
@@ -145,13 +360,14 @@ public class RecordWriter<T extends IOReadableWritable> {
 				synchronized (serializer) {
 					Buffer buffer = serializer.getCurrentBuffer();
 					if (buffer != null) {
-						numBytesOut.inc(buffer.getSize());
 						writeAndClearBuffer(buffer, targetChannel, serializer);
 					} else if (serializer.hasData()) {
 						// sanity check
 						throw new IllegalStateException("No buffer, but serializer has buffered data.");
 					}
 
+					writeRecords(targetChannel);
+
 					// retain the buffer so that it can be recycled by each channel of targetPartition
 					eventBuffer.retain();
 					targetPartition.writeBuffer(eventBuffer, targetChannel);
@@ -165,38 +381,118 @@ public class RecordWriter<T extends IOReadableWritable> {
 	}
 
 	public void flush() throws IOException {
+		flushBroadcastBuffer();
+
 		for (int targetChannel = 0; targetChannel < numChannels; targetChannel++) {
-			RecordSerializer<T> serializer = serializers[targetChannel];
+			flushChannel(targetChannel);
+		}
+	}
 
-			synchronized (serializer) {
-				try {
-					Buffer buffer = serializer.getCurrentBuffer();
+	/**
+	 * Flushes the pending data of a single channel, including the pending buffer shared by
+	 * all channels, if there is one.
+	 */
+	protected void flush(int targetChannel) throws IOException {
+		flushBroadcastBuffer();
+		flushChannel(targetChannel);
+	}
 
-					if (buffer != null) {
-						numBytesOut.inc(buffer.getSize());
-						targetPartition.writeBuffer(buffer, targetChannel);
-					}
-				} finally {
-					serializer.clear();
+	/**
+	 * Returns the {@link System#nanoTime()} at which the oldest data of the channel was added,
+	 * which has not been written to the channel yet, or <tt>-1</tt> if there is no such data.
+	 * This includes the pending buffer shared by all channels, if there is one.
+	 * Requires {@link #trackPendingData()}.
+	 */
+	protected long getPendingDataSince(int targetChannel) {
+		checkState(pendingDataSince != null, "Pending data is not tracked.");
+
+		long since = -1;
+
+		if (broadcastSerializer != null) {
+			synchronized (broadcastSerializer) {
+				if (broadcastSerializer.hasData()) {
+					since = pendingDataSince[numChannels];
+				}
+			}
+		}
+
+		RecordSerializer<T> serializer = serializers[targetChannel];
+
+		synchronized (serializer) {
+			List<Object> records = recordBatches[targetChannel];
+
+			if (serializer.hasData() || (records != null && !records.isEmpty())) {
+				long channelSince = pendingDataSince[targetChannel];
+				since = since == -1 || channelSince - since < 0 ? channelSince : since;
+			}
+		}
+
+		return since;
+	}
+
+	private void flushChannel(int targetChannel) throws IOException {
+		RecordSerializer<T> serializer = serializers[targetChannel];
+
+		synchronized (serializer) {
+			try {
+				Buffer buffer = serializer.getCurrentBuffer();
+
+				if (buffer != null) {
+					numBytesOut.inc(buffer.getSize());
+					targetPartition.writeBuffer(buffer, targetChannel);
+				}
+			} finally {
+				serializer.clear();
+			}
+
+			try {
+				writeRecords(targetChannel);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while handing over records to channel " + targetChannel + '.', e);
+			}
+		}
+	}
+
+	private void flushBroadcastBuffer() throws IOException {
+		if (broadcastSerializer == null) {
+			return;
+		}
+
+		synchronized (broadcastSerializer) {
+			try {
+				Buffer buffer = broadcastSerializer.getCurrentBuffer();
+
+				if (buffer != null) {
+					writeToAllChannels(buffer);
 				}
+			} finally {
+				broadcastSerializer.clear();
 			}
 		}
 	}
 
 	public void clearBuffers() {
 		for (RecordSerializer<?> serializer : serializers) {
-			synchronized (serializer) {
-				try {
-					Buffer buffer = serializer.getCurrentBuffer();
+			clearSerializer(serializer);
+		}
+		if (broadcastSerializer != null) {
+			clearSerializer(broadcastSerializer);
+		}
+	}
 
-					if (buffer != null) {
-						buffer.recycle();
-					}
-				}
-				finally {
-					serializer.clear();
+	private static void clearSerializer(RecordSerializer<?> serializer) {
+		synchronized (serializer) {
+			try {
+				Buffer buffer = serializer.getCurrentBuffer();
+
+				if (buffer != null) {
+					buffer.recycle();
 				}
 			}
+			finally {
+				serializer.clear();
+			}
 		}
 	}
 
@@ -220,11 +516,46 @@ public class RecordWriter<T extends IOReadableWritable> {
 			RecordSerializer<T> serializer) throws IOException {
 
 		try {
-			targetPartition.writeBuffer(buffer, targetChannel);
+			if (targetChannel == ALL_CHANNELS) {
+				writeToAllChannels(buffer);
+			} else {
+				numBytesOut.inc(buffer.getSize());
+				targetPartition.writeBuffer(buffer, targetChannel);
+			}
 		}
 		finally {
 			serializer.clearCurrentBuffer();
 		}
 	}
 
+	/**
+	 * Writes the buffer to all channels of the {@link ResultPartitionWriter},
+	 * which share it instead of getting a copy each.
+	 */
+	private void writeToAllChannels(Buffer buffer) throws IOException {
+		// retain the buffer once for each channel of targetPartition, which recycles it
+		// when it stops using it
+		for (int i = 0; i < numChannels; i++) {
+			buffer.retain();
+		}
+
+		int targetChannel = 0;
+		try {
+			for (; targetChannel < numChannels; targetChannel++) {
+				numBytesOut.inc(buffer.getSize());
+
+				// the reference of the channel is recycled by targetPartition if it fails
+				targetPartition.writeBuffer(buffer, targetChannel);
+			}
+		} finally {
+			// recycle the references of the channels that the buffer was not written to
+			for (int channel = targetChannel + 1; channel < numChannels; channel++) {
+				buffer.recycle();
+			}
+
+			// the buffer is recycled after the last channel stops using it
+			buffer.recycle();
+		}
+	}
+
 }
@@ -27,12 +27,14 @@ import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.util.event.EventListener;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * A buffer-oriented runtime result writer.
  * <p>
  * The {@link ResultPartitionWriter} is the runtime API for producing results. It
- * supports two kinds of data to be sent: buffers and events.
+ * supports two kinds of data to be sent: buffers and events. Local consumers may
+ * additionally receive records as objects.
  */
 public class ResultPartitionWriter implements EventListener<TaskEvent> {
 
@@ -64,14 +66,41 @@ public class ResultPartitionWriter implements EventListener<TaskEvent> {
 		return partition.getNumTargetKeyGroups();
 	}
 
+	/**
+	 * Returns the number of buffers written to the target channel, which have not been
+	 * consumed yet. This is a best effort and does not acquire any locks.
+	 */
+	public int getNumberOfQueuedBuffers(int targetChannel) {
+		return partition.getNumberOfQueuedBuffers(targetChannel);
+	}
+
 	// ------------------------------------------------------------------------
 	// Data processing
 	// ------------------------------------------------------------------------
 
+	/**
+	 * Writes the buffer to the target channel, which takes it over. The buffer is recycled if
+	 * it cannot be written, also if this method throws an exception.
+	 */
 	public void writeBuffer(Buffer buffer, int targetChannel) throws IOException {
 		partition.add(buffer, targetChannel);
 	}
 
+	/**
+	 * Returns whether the consumer of the target channel accepts records as objects, see
+	 * {@link #writeRecords(List, int)}.
+	 */
+	public boolean isObjectHandoverRequested(int targetChannel) {
+		return partition.isObjectHandoverRequested(targetChannel);
+	}
+
+	/**
+	 * Hands over the records as objects to the consumer of the target channel.
+	 */
+	public void writeRecords(List<Object> records, int targetChannel) throws IOException, InterruptedException {
+		partition.addRecords(records, targetChannel);
+	}
+
 	/**
 	 * Writes the given buffer to all available target channels.
 	 *
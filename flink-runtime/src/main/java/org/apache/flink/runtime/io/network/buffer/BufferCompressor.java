@@ -0,0 +1,346 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import org.apache.flink.core.memory.MemorySegment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compresses and decompresses the data of {@link Buffer} instances in the LZ4 block format.
+ *
+ * <p>The compression is a fast, greedy LZ4 compression in pure Java. It gives up on data which
+ * does not compress well, in which case the buffer should be sent or stored as it is. The
+ * compressed data does not carry the uncompressed size, it is bounded by the size of the memory
+ * segment to decompress into.
+ *
+ * <p>An instance holds scratch memory which is reused across calls and is not thread-safe.
+ */
+public final class BufferCompressor {
+
+	/** Buffers smaller than this are not worth compressing. */
+	private static final int MIN_COMPRESSIBLE_SIZE = 64;
+
+	private static final int MIN_MATCH = 4;
+
+	/** The last bytes of a block are always literals. */
+	private static final int LAST_LITERALS = 5;
+
+	/** The last match must start at least this many bytes before the end of a block. */
+	private static final int MF_LIMIT = 12;
+
+	private static final int MAX_DISTANCE = (1 << 16) - 1;
+
+	private static final int HASH_LOG = 12;
+
+	private static final int RUN_MASK = 15;
+
+	/** Positions of recent sequences of four bytes by their hash, created on first compression. */
+	private int[] hashTable;
+
+	private byte[] uncompressed = new byte[0];
+
+	private byte[] compressed = new byte[0];
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Compresses the data of the given buffer, see {@link #getCompressedData()}.
+	 *
+	 * @return The size of the compressed data, or <tt>-1</tt> if the data does not compress
+	 *         well and the buffer should be used as it is.
+	 */
+	public int compress(Buffer buffer) {
+		int size = buffer.getSize();
+		if (size < MIN_COMPRESSIBLE_SIZE) {
+			return -1;
+		}
+
+		uncompressed = ensureCapacity(uncompressed, size);
+		buffer.getMemorySegment().get(0, uncompressed, 0, size);
+
+		// saving less than an eighth is not worth decompressing
+		int maxCompressedSize = size - (size >>> 3);
+		compressed = ensureCapacity(compressed, maxCompressedSize);
+
+		if (hashTable == null) {
+			hashTable = new int[1 << HASH_LOG];
+		}
+		return compress(uncompressed, 0, size, compressed, 0, maxCompressedSize, hashTable);
+	}
+
+	/**
+	 * Returns the data of the last compression, which starts at index 0.
+	 */
+	public byte[] getCompressedData() {
+		return compressed;
+	}
+
+	/**
+	 * Returns a buffer with at least the given capacity to read compressed data into, before
+	 * decompressing it with {@link #decompress(ByteBuffer, Buffer)}. The memory is reused by
+	 * later calls.
+	 */
+	public ByteBuffer getCompressedDataBuffer(int size) {
+		compressed = ensureCapacity(compressed, size);
+		return ByteBuffer.wrap(compressed, 0, size);
+	}
+
+	/**
+	 * Decompresses the remaining bytes of the source into the memory segment of the target buffer
+	 * and sets the size of the target buffer. The position of the source is not changed.
+	 *
+	 * @throws IOException If the data is malformed or does not fit into the target buffer.
+	 */
+	public void decompress(ByteBuffer source, Buffer target) throws IOException {
+		int length = source.remaining();
+
+		byte[] src;
+		int srcOffset;
+		if (source.hasArray()) {
+			src = source.array();
+			srcOffset = source.arrayOffset() + source.position();
+		} else {
+			compressed = ensureCapacity(compressed, length);
+			source.duplicate().get(compressed, 0, length);
+			src = compressed;
+			srcOffset = 0;
+		}
+
+		MemorySegment segment = target.getMemorySegment();
+		uncompressed = ensureCapacity(uncompressed, segment.size());
+
+		int size = decompress(src, srcOffset, length, uncompressed, 0, segment.size());
+
+		segment.put(0, uncompressed, 0, size);
+		target.setSize(size);
+	}
+
+	// ------------------------------------------------------------------------
+	//  LZ4 block format
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Compresses the source into the target.
+	 *
+	 * @return The compressed size, or <tt>-1</tt> if it would exceed the given maximum.
+	 */
+	static int compress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int maxDstLength, int[] hashTable) {
+		final int srcEnd = srcOffset + srcLength;
+		final int dstEnd = dstOffset + maxDstLength;
+
+		int sOff = srcOffset;
+		int dOff = dstOffset;
+		int anchor = srcOffset;
+
+		if (srcLength > MF_LIMIT) {
+			Arrays.fill(hashTable, -1);
+
+			final int mfLimit = srcEnd - MF_LIMIT;
+			final int matchLimit = srcEnd - LAST_LITERALS;
+
+			while (sOff < mfLimit) {
+				int sequence = readInt(src, sOff);
+				int h = hash(sequence);
+				int ref = hashTable[h];
+				hashTable[h] = sOff;
+
+				if (ref < 0 || sOff - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+					// skip faster over data without matches
+					sOff += 1 + ((sOff - anchor) >>> 6);
+					continue;
+				}
+
+				// extend the match backwards and forwards
+				while (sOff > anchor && ref > srcOffset && src[sOff - 1] == src[ref - 1]) {
+					sOff--;
+					ref--;
+				}
+				int matchLength = MIN_MATCH;
+				while (sOff + matchLength < matchLimit && src[sOff + matchLength] == src[ref + matchLength]) {
+					matchLength++;
+				}
+
+				int literalLength = sOff - anchor;
+				if (dOff + 1 + literalLength / 255 + 1 + literalLength + 2 + (matchLength - MIN_MATCH) / 255 + 1 > dstEnd) {
+					return -1;
+				}
+
+				int tokenOffset = dOff++;
+				int token;
+				if (literalLength >= RUN_MASK) {
+					token = RUN_MASK << 4;
+					dOff = writeLength(literalLength - RUN_MASK, dst, dOff);
+				} else {
+					token = literalLength << 4;
+				}
+				System.arraycopy(src, anchor, dst, dOff, literalLength);
+				dOff += literalLength;
+
+				int distance = sOff - ref;
+				dst[dOff++] = (byte) distance;
+				dst[dOff++] = (byte) (distance >>> 8);
+
+				int extraLength = matchLength - MIN_MATCH;
+				if (extraLength >= RUN_MASK) {
+					token |= RUN_MASK;
+					dOff = writeLength(extraLength - RUN_MASK, dst, dOff);
+				} else {
+					token |= extraLength;
+				}
+				dst[tokenOffset] = (byte) token;
+
+				sOff += matchLength;
+				anchor = sOff;
+
+				if (sOff < mfLimit) {
+					hashTable[hash(readInt(src, sOff - 2))] = sOff - 2;
+				}
+			}
+		}
+
+		// the last literals
+		int literalLength = srcEnd - anchor;
+		if (dOff + 1 + literalLength / 255 + 1 + literalLength > dstEnd) {
+			return -1;
+		}
+		if (literalLength >= RUN_MASK) {
+			dst[dOff++] = (byte) (RUN_MASK << 4);
+			dOff = writeLength(literalLength - RUN_MASK, dst, dOff);
+		} else {
+			dst[dOff++] = (byte) (literalLength << 4);
+		}
+		System.arraycopy(src, anchor, dst, dOff, literalLength);
+		dOff += literalLength;
+
+		return dOff - dstOffset;
+	}
+
+	/**
+	 * Decompresses the source into the target.
+	 *
+	 * @return The decompressed size.
+	 * @throws IOException If the data is malformed or its decompressed size exceeds the given
+	 *                     maximum.
+	 */
+	static int decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int maxDstLength) throws IOException {
+		final int srcEnd = srcOffset + srcLength;
+		final int dstEnd = dstOffset + maxDstLength;
+
+		int sOff = srcOffset;
+		int dOff = dstOffset;
+
+		while (sOff < srcEnd) {
+			int token = src[sOff++] & 0xFF;
+
+			int literalLength = token >>> 4;
+			if (literalLength == RUN_MASK) {
+				int b;
+				do {
+					if (sOff == srcEnd) {
+						throw malformed(sOff - srcOffset);
+					}
+					b = src[sOff++] & 0xFF;
+					literalLength += b;
+				} while (b == 255);
+			}
+			if (literalLength > srcEnd - sOff || literalLength > dstEnd - dOff) {
+				throw malformed(sOff - srcOffset);
+			}
+			System.arraycopy(src, sOff, dst, dOff, literalLength);
+			sOff += literalLength;
+			dOff += literalLength;
+
+			if (sOff == srcEnd) {
+				// the last sequence has no match
+				break;
+			}
+
+			if (srcEnd - sOff < 2) {
+				throw malformed(sOff - srcOffset);
+			}
+			int distance = (src[sOff] & 0xFF) | ((src[sOff + 1] & 0xFF) << 8);
+			sOff += 2;
+			if (distance == 0 || distance > dOff - dstOffset) {
+				throw malformed(sOff - srcOffset);
+			}
+
+			int matchLength = token & RUN_MASK;
+			if (matchLength == RUN_MASK) {
+				int b;
+				do {
+					if (sOff == srcEnd) {
+						throw malformed(sOff - srcOffset);
+					}
+					b = src[sOff++] & 0xFF;
+					matchLength += b;
+				} while (b == 255);
+			}
+			matchLength += MIN_MATCH;
+			if (matchLength > dstEnd - dOff) {
+				throw malformed(sOff - srcOffset);
+			}
+
+			int ref = dOff - distance;
+			if (distance >= matchLength) {
+				System.arraycopy(dst, ref, dst, dOff, matchLength);
+			} else {
+				// overlapping matches repeat the last bytes and are copied byte by byte
+				for (int i = 0; i < matchLength; i++) {
+					dst[dOff + i] = dst[ref + i];
+				}
+			}
+			dOff += matchLength;
+		}
+
+		return dOff - dstOffset;
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static int readInt(byte[] bytes, int offset) {
+		return (bytes[offset] & 0xFF)
+			| (bytes[offset + 1] & 0xFF) << 8
+			| (bytes[offset + 2] & 0xFF) << 16
+			| (bytes[offset + 3] & 0xFF) << 24;
+	}
+
+	private static int hash(int sequence) {
+		return (sequence * -1640531535) >>> (32 - HASH_LOG);
+	}
+
+	private static int writeLength(int length, byte[] dst, int dOff) {
+		while (length >= 255) {
+			dst[dOff++] = (byte) 255;
+			length -= 255;
+		}
+		dst[dOff++] = (byte) length;
+		return dOff;
+	}
+
+	private static byte[] ensureCapacity(byte[] array, int capacity) {
+		return array.length >= capacity ? array : new byte[capacity];
+	}
+
+	private static IOException malformed(int offset) {
+		return new IOException("Malformed compressed buffer at offset " + offset + '.');
+	}
+}
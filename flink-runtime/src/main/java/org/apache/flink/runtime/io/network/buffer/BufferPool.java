@@ -79,4 +79,10 @@ public interface BufferPool extends BufferProvider, BufferRecycler {
 	 * Returns the number of used buffers of this buffer pool.
 	 */
 	int bestEffortGetNumOfUsedBuffers();
+
+	/**
+	 * Returns the total time in milliseconds which blocking buffer requests have waited for
+	 * buffers of this buffer pool.
+	 */
+	long bestEffortGetRequestBlockedTimeMillis();
 }
@@ -82,6 +82,18 @@ class LocalBufferPool implements BufferPool {
 
 	private BufferPoolOwner owner;
 
+	/** The total time blocking buffer requests have waited for buffers, in nanoseconds. */
+	private long requestBlockedTimeNanos;
+
+	/** The value of {@link #requestBlockedTimeNanos} at the last demand report. */
+	private long reportedRequestBlockedTimeNanos;
+
+	/** Number of blocking buffer requests, which are currently waiting for a buffer. */
+	private int numberOfWaitingRequests;
+
+	/** The highest number of buffers in use at the same time since the last demand report. */
+	private int peakNumberOfUsedBuffers;
+
 	/**
 	 * Local buffer pool based on the given <tt>networkBufferPool</tt> with a minimal number of
 	 * network buffers being available.
@@ -170,6 +182,11 @@ class LocalBufferPool implements BufferPool {
 		return Math.max(0, numberOfRequestedMemorySegments - availableMemorySegments.size());
 	}
 
+	@Override
+	public long bestEffortGetRequestBlockedTimeMillis() {
+		return requestBlockedTimeNanos / 1_000_000;
+	}
+
 	@Override
 	public void setBufferPoolOwner(BufferPoolOwner owner) {
 		synchronized (availableMemorySegments) {
@@ -221,14 +238,29 @@ class LocalBufferPool implements BufferPool {
 				}
 
 				if (isBlocking) {
-					availableMemorySegments.wait(2000);
+					final long waitStart = System.nanoTime();
+					numberOfWaitingRequests++;
+					try {
+						availableMemorySegments.wait(2000);
+					}
+					finally {
+						numberOfWaitingRequests--;
+						requestBlockedTimeNanos += System.nanoTime() - waitStart;
+					}
 				}
 				else {
 					return null;
 				}
 			}
 
-			return new Buffer(availableMemorySegments.poll(), this);
+			final MemorySegment segment = availableMemorySegments.poll();
+
+			final int numberOfUsedBuffers = numberOfRequestedMemorySegments - availableMemorySegments.size();
+			if (numberOfUsedBuffers > peakNumberOfUsedBuffers) {
+				peakNumberOfUsedBuffers = numberOfUsedBuffers;
+			}
+
+			return new Buffer(segment, this);
 		}
 	}
 
@@ -301,6 +333,8 @@ class LocalBufferPool implements BufferPool {
 					"Buffer pool needs at least %s buffers, but tried to set to %s",
 					numberOfRequiredMemorySegments, numBuffers);
 
+			final int previousPoolSize = currentPoolSize;
+
 			if (numBuffers > maxNumberOfMemorySegments) {
 				currentPoolSize = maxNumberOfMemorySegments;
 			} else {
@@ -309,6 +343,11 @@ class LocalBufferPool implements BufferPool {
 
 			returnExcessMemorySegments();
 
+			// Blocked requests may now be able to request more segments from the network buffer pool
+			if (currentPoolSize > previousPoolSize && numberOfWaitingRequests > 0) {
+				availableMemorySegments.notifyAll();
+			}
+
 			// If there is a registered owner and we have still requested more buffers than our
 			// size, trigger a recycle via the owner.
 			if (owner != null && numberOfRequestedMemorySegments > currentPoolSize) {
@@ -327,6 +366,38 @@ class LocalBufferPool implements BufferPool {
 		}
 	}
 
+	// ------------------------------------------------------------------------
+	// Demand reports, see NetworkBufferPool#rebalanceBuffers()
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Returns the time in nanoseconds, which blocking buffer requests have waited for buffers since
+	 * the last call. If a request is still waiting, the returned time is at least <tt>1</tt>.
+	 */
+	long getAndResetRequestBlockedTimeNanos() {
+		synchronized (availableMemorySegments) {
+			long blockedTime = requestBlockedTimeNanos - reportedRequestBlockedTimeNanos;
+			reportedRequestBlockedTimeNanos = requestBlockedTimeNanos;
+
+			if (numberOfWaitingRequests > 0) {
+				blockedTime = Math.max(blockedTime, 1);
+			}
+
+			return blockedTime;
+		}
+	}
+
+	/**
+	 * Returns the highest number of buffers in use at the same time since the last call.
+	 */
+	int getAndResetPeakNumberOfUsedBuffers() {
+		synchronized (availableMemorySegments) {
+			final int peak = peakNumberOfUsedBuffers;
+			peakNumberOfUsedBuffers = numberOfRequestedMemorySegments - availableMemorySegments.size();
+			return Math.max(peak, peakNumberOfUsedBuffers);
+		}
+	}
+
 	// ------------------------------------------------------------------------
 
 	private void returnMemorySegment(MemorySegment segment) {
@@ -28,10 +28,14 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /**
@@ -131,6 +135,85 @@ public class NetworkBufferPool implements BufferPoolFactory {
 		availableMemorySegments.add(segment);
 	}
 
+	/**
+	 * Requests a fixed number of memory segments, which are not part of any local buffer pool,
+	 * e.g. the exclusive buffers of an input channel. The segments count against the required
+	 * buffers, so that they are taken from the buffers which are redistributed between the
+	 * local buffer pools. Blocks until the local buffer pools have returned enough segments.
+	 *
+	 * <p>The segments have to be returned via {@link #recycleMemorySegments(List)}.
+	 */
+	public List<MemorySegment> requestMemorySegments(int numRequiredBuffers) throws IOException {
+		checkArgument(numRequiredBuffers > 0, "The number of required buffers must be positive.");
+
+		synchronized (factoryLock) {
+			if (isDestroyed) {
+				throw new IllegalStateException("Network buffer pool has already been destroyed.");
+			}
+
+			if (numTotalRequiredBuffers + numRequiredBuffers > totalNumberOfMemorySegments) {
+				throw new IOException(String.format("Insufficient number of network buffers: " +
+								"required %d, but only %d available. The total number of network " +
+								"buffers is currently set to %d. You can increase this " +
+								"number by setting the configuration key '%s'.",
+						numRequiredBuffers,
+						totalNumberOfMemorySegments - numTotalRequiredBuffers,
+						totalNumberOfMemorySegments,
+						TaskManagerOptions.NETWORK_NUM_BUFFERS.key()));
+			}
+
+			this.numTotalRequiredBuffers += numRequiredBuffers;
+
+			redistributeBuffers();
+		}
+
+		final List<MemorySegment> segments = new ArrayList<>(numRequiredBuffers);
+		try {
+			// the local buffer pools return their excess segments lazily
+			while (segments.size() < numRequiredBuffers) {
+				if (isDestroyed) {
+					throw new IllegalStateException("Network buffer pool has already been destroyed.");
+				}
+
+				final MemorySegment segment = availableMemorySegments.poll(2, TimeUnit.SECONDS);
+				if (segment != null) {
+					segments.add(segment);
+				}
+			}
+		} catch (Throwable t) {
+			recycleMemorySegments(segments, numRequiredBuffers);
+
+			if (t instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			throw new IOException("Could not request " + numRequiredBuffers + " memory segments.", t);
+		}
+
+		return segments;
+	}
+
+	/**
+	 * Returns memory segments requested via {@link #requestMemorySegments(int)} and
+	 * redistributes them between the local buffer pools.
+	 */
+	public void recycleMemorySegments(List<MemorySegment> segments) {
+		recycleMemorySegments(segments, segments.size());
+	}
+
+	private void recycleMemorySegments(List<MemorySegment> segments, int numRequiredBuffers) {
+		synchronized (factoryLock) {
+			numTotalRequiredBuffers -= numRequiredBuffers;
+
+			availableMemorySegments.addAll(segments);
+
+			try {
+				redistributeBuffers();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
 	public void destroy() {
 		synchronized (factoryLock) {
 			isDestroyed = true;
@@ -256,6 +339,104 @@ public class NetworkBufferPool implements BufferPoolFactory {
 		}
 	}
 
+	/**
+	 * Moves buffers from local buffer pools, which did not use all of their buffers since the last
+	 * call, to local buffer pools, which had to block on buffer requests since the last call.
+	 *
+	 * <p>In contrast to {@link #redistributeBuffers()}, which splits the buffers according to the
+	 * capacity of the pools whenever a pool is created or destroyed, this considers the actual
+	 * demand of the pools. An idle pool gives away half of the buffers it did not use, so that it
+	 * shrinks gradually, and the buffers are split between the blocked pools relative to the time
+	 * they have been blocked. Every pool keeps at least its required number of buffers and gets at
+	 * most its maximum number of buffers. The next redistribution resets the sizes of all pools.
+	 *
+	 * @return The number of buffers moved between the pools.
+	 */
+	public int rebalanceBuffers() throws IOException {
+		synchronized (factoryLock) {
+			if (isDestroyed || allBufferPools.size() < 2) {
+				return 0;
+			}
+
+			final List<LocalBufferPool> donors = new ArrayList<>();
+			final List<Integer> excessBuffers = new ArrayList<>();
+			final List<LocalBufferPool> receivers = new ArrayList<>();
+			final List<Long> blockedTimes = new ArrayList<>();
+
+			long totalExcessBuffers = 0;
+			long totalBlockedTime = 0;
+
+			for (LocalBufferPool bufferPool : allBufferPools) {
+				final long blockedTime = bufferPool.getAndResetRequestBlockedTimeNanos();
+				final int peakNumberOfUsedBuffers = bufferPool.getAndResetPeakNumberOfUsedBuffers();
+				final int numBuffers = bufferPool.getNumBuffers();
+
+				if (blockedTime > 0) {
+					if (numBuffers < bufferPool.getMaxNumberOfMemorySegments()) {
+						receivers.add(bufferPool);
+						blockedTimes.add(blockedTime);
+						totalBlockedTime += blockedTime;
+					}
+				}
+				else {
+					final int minNumBuffers = Math.max(
+						bufferPool.getNumberOfRequiredMemorySegments(), peakNumberOfUsedBuffers);
+
+					final int excess = (numBuffers - minNumBuffers + 1) / 2;
+					if (excess > 0) {
+						donors.add(bufferPool);
+						excessBuffers.add(excess);
+						totalExcessBuffers += excess;
+					}
+				}
+			}
+
+			if (donors.isEmpty() || receivers.isEmpty()) {
+				return 0;
+			}
+
+			// Grow the blocked pools relative to their blocked time, but not beyond their maximum
+			final int[] additionalBuffers = new int[receivers.size()];
+			long remaining = totalExcessBuffers;
+
+			for (int i = 0; i < receivers.size() && remaining > 0; i++) {
+				final LocalBufferPool bufferPool = receivers.get(i);
+
+				final long share = (long) Math.ceil((double) totalExcessBuffers * blockedTimes.get(i) / totalBlockedTime);
+				final long capacity = (long) bufferPool.getMaxNumberOfMemorySegments() - bufferPool.getNumBuffers();
+
+				additionalBuffers[i] = MathUtils.checkedDownCast(Math.min(Math.min(share, capacity), remaining));
+				remaining -= additionalBuffers[i];
+			}
+
+			final int numMovedBuffers = MathUtils.checkedDownCast(totalExcessBuffers - remaining);
+
+			// Shrink the idle pools first, so that the moved buffers are never handed out twice
+			int numBuffersToTake = numMovedBuffers;
+			for (int i = 0; i < donors.size() && numBuffersToTake > 0; i++) {
+				final LocalBufferPool bufferPool = donors.get(i);
+				final int take = Math.min(excessBuffers.get(i), numBuffersToTake);
+
+				bufferPool.setNumBuffers(bufferPool.getNumBuffers() - take);
+				numBuffersToTake -= take;
+			}
+
+			for (int i = 0; i < receivers.size(); i++) {
+				if (additionalBuffers[i] > 0) {
+					final LocalBufferPool bufferPool = receivers.get(i);
+					bufferPool.setNumBuffers(bufferPool.getNumBuffers() + additionalBuffers[i]);
+				}
+			}
+
+			if (LOG.isDebugEnabled() && numMovedBuffers > 0) {
+				LOG.debug("Moved {} buffers from {} idle to {} blocked local buffer pools.",
+					numMovedBuffers, donors.size(), receivers.size());
+			}
+
+			return numMovedBuffers;
+		}
+	}
+
 	// Must be called from synchronized block
 	private void redistributeBuffers() throws IOException {
 		assert Thread.holdsLock(factoryLock);
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import io.netty.channel.FileRegion;
+import io.netty.util.AbstractReferenceCounted;
+import org.apache.flink.runtime.io.disk.iomanager.FileSegment;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * A {@link FileRegion} for a {@link FileSegment} of a spill file, which is transferred to the
+ * socket via {@link FileChannel#transferTo(long, long, WritableByteChannel)}.
+ *
+ * <p>In contrast to Netty's DefaultFileRegion, the file channel is not closed when the region is
+ * released, because it belongs to the subpartition view, which reads the following segments
+ * from it.
+ */
+class FileSegmentRegion extends AbstractReferenceCounted implements FileRegion {
+
+	private final FileChannel fileChannel;
+
+	private final long position;
+
+	private final long count;
+
+	private long transferred;
+
+	FileSegmentRegion(FileSegment segment) {
+		this.fileChannel = segment.getFileChannel();
+		this.position = segment.getPosition();
+		this.count = segment.getLength();
+	}
+
+	@Override
+	public long position() {
+		return position;
+	}
+
+	@Override
+	public long transfered() {
+		return transferred;
+	}
+
+	@Override
+	public long count() {
+		return count;
+	}
+
+	@Override
+	public long transferTo(WritableByteChannel target, long position) throws IOException {
+		long remaining = count - position;
+		checkArgument(position >= 0 && remaining >= 0, "Position %s out of range for region of %s bytes.", position, count);
+
+		if (remaining == 0) {
+			return 0L;
+		}
+
+		long written = fileChannel.transferTo(this.position + position, remaining, target);
+		if (written > 0) {
+			transferred += written;
+		}
+
+		return written;
+	}
+
+	@Override
+	protected void deallocate() {
+		// The file channel is closed by the subpartition view
+	}
+}
@@ -52,6 +52,10 @@ public class NettyConfig {
 
 	public static final String TRANSPORT_TYPE = "taskmanager.net.transport";
 
+	public static final String COMPRESSION_ENABLED = "taskmanager.net.compression.enabled";
+
+	public static final String ZERO_COPY_ENABLED = "taskmanager.net.zero-copy.enabled";
+
 	// ------------------------------------------------------------------------
 
 	enum TransportType {
@@ -150,6 +154,18 @@ public class NettyConfig {
 		return this;
 	}
 
+	public NettyConfig setCompressionEnabled(boolean enabled) {
+		config.setBoolean(COMPRESSION_ENABLED, enabled);
+
+		return this;
+	}
+
+	public NettyConfig setZeroCopyEnabled(boolean enabled) {
+		config.setBoolean(ZERO_COPY_ENABLED, enabled);
+
+		return this;
+	}
+
 	public NettyConfig setTransportType(String transport) {
 		if (transport.equals("nio") || transport.equals("epoll") || transport.equals("auto")) {
 			config.setString(TRANSPORT_TYPE, transport);
@@ -209,6 +225,34 @@ public class NettyConfig {
 		}
 	}
 
+	/**
+	 * Whether the buffers sent by the server are compressed. Every buffer carries a flag whether
+	 * it is compressed, so the client decompresses them independent of its own configuration.
+	 */
+	public boolean getCompressionEnabled() {
+		return isCompressionEnabled(config);
+	}
+
+	/**
+	 * Whether buffers are compressed on the wire and in spill files, per the given configuration.
+	 */
+	public static boolean isCompressionEnabled(Configuration config) {
+		// default: false => no compression
+		return config.getBoolean(COMPRESSION_ENABLED, false);
+	}
+
+	/**
+	 * Whether the server transfers spilled buffers directly from the spill files to the socket.
+	 * This is only supported by the nio transport and without SSL, which both need the data in
+	 * memory.
+	 */
+	public boolean getZeroCopyEnabled() {
+		// default: false => buffers are read into memory
+		return config.getBoolean(ZERO_COPY_ENABLED, false)
+			&& getTransportType() == TransportType.NIO
+			&& !getSSLEnabled();
+	}
+
 	public SSLContext createClientSSLContext() throws Exception {
 
 		// Create SSL Context from config
@@ -253,6 +297,8 @@ public class NettyConfig {
 				"ssl enabled: %s, " +
 				"memory segment size (bytes): %d, " +
 				"transport type: %s, " +
+				"compression enabled: %s, " +
+				"zero-copy enabled: %s, " +
 				"number of server threads: %d (%s), " +
 				"number of client threads: %d (%s), " +
 				"server connect backlog: %d (%s), " +
@@ -263,7 +309,8 @@ public class NettyConfig {
 		String man = "manual";
 
 		return String.format(format, serverAddress, serverPort, getSSLEnabled() ? "true":"false",
-				memorySegmentSize, getTransportType(), getServerNumThreads(),
+				memorySegmentSize, getTransportType(), getCompressionEnabled(), getZeroCopyEnabled(),
+				getServerNumThreads(),
 				getServerNumThreads() == 0 ? def : man,
 				getClientNumThreads(), getClientNumThreads() == 0 ? def : man,
 				getServerConnectBacklog(), getServerConnectBacklog() == 0 ? def : man,
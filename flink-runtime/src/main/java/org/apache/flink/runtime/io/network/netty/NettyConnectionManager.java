@@ -25,6 +25,7 @@ import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionProvider;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class NettyConnectionManager implements ConnectionManager {
 
@@ -36,19 +37,30 @@ public class NettyConnectionManager implements ConnectionManager {
 
 	private final PartitionRequestClientFactory partitionRequestClientFactory;
 
+	private final boolean compressionEnabled;
+
+	private final boolean zeroCopyEnabled;
+
+	/** The number of subpartitions queued for writing at all server channels. */
+	private final AtomicInteger numQueuedReaders = new AtomicInteger();
+
 	public NettyConnectionManager(NettyConfig nettyConfig) {
 		this.server = new NettyServer(nettyConfig);
 		this.client = new NettyClient(nettyConfig);
 		this.bufferPool = new NettyBufferPool(nettyConfig.getNumberOfArenas());
 
 		this.partitionRequestClientFactory = new PartitionRequestClientFactory(client);
+		this.compressionEnabled = nettyConfig.getCompressionEnabled();
+		this.zeroCopyEnabled = nettyConfig.getZeroCopyEnabled();
 	}
 
 	@Override
 	public void start(ResultPartitionProvider partitionProvider, TaskEventDispatcher taskEventDispatcher, NetworkBufferPool networkbufferPool)
 			throws IOException {
 		PartitionRequestProtocol partitionRequestProtocol =
-				new PartitionRequestProtocol(partitionProvider, taskEventDispatcher, networkbufferPool);
+				new PartitionRequestProtocol(
+					partitionProvider, taskEventDispatcher, networkbufferPool, compressionEnabled, zeroCopyEnabled,
+					numQueuedReaders);
 
 		client.init(partitionRequestProtocol, bufferPool);
 		server.init(partitionRequestProtocol, bufferPool);
@@ -70,6 +82,11 @@ public class NettyConnectionManager implements ConnectionManager {
 		return partitionRequestClientFactory.getNumberOfActiveClients();
 	}
 
+	@Override
+	public int getOutboundQueueLength() {
+		return numQueuedReaders.get();
+	}
+
 	@Override
 	public int getDataPort() {
 		if (server != null && server.getLocalAddress() != null) {
@@ -26,24 +26,31 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.MessageToMessageDecoder;
 
 import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.io.disk.iomanager.FileSegment;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannel;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
 import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.nio.ByteBuffer;
 import java.util.List;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
+
 /**
  * A simple and generic interface to serialize messages to Netty's buffer space.
  */
@@ -69,8 +76,17 @@ abstract class NettyMessage {
 	}
 
 	private static ByteBuf allocateBuffer(ByteBufAllocator allocator, byte id, int length) {
+		return allocateBuffer(allocator, id, length, 0);
+	}
+
+	/**
+	 * Allocates a buffer for the frame header and the first <tt>length</tt> bytes of the message.
+	 * The frame length additionally covers <tt>contentLength</tt> bytes, which are written to the
+	 * channel separately after the returned buffer.
+	 */
+	private static ByteBuf allocateBuffer(ByteBufAllocator allocator, byte id, int length, int contentLength) {
 		final ByteBuf buffer = length != 0 ? allocator.directBuffer(HEADER_LENGTH + length) : allocator.directBuffer();
-		buffer.writeInt(HEADER_LENGTH + length);
+		buffer.writeInt(HEADER_LENGTH + length + contentLength);
 		buffer.writeInt(MAGIC_NUMBER);
 		buffer.writeByte(id);
 
@@ -98,7 +114,13 @@ abstract class NettyMessage {
 				}
 				finally {
 					if (serialized != null) {
-						ctx.write(serialized, promise);
+						if (msg instanceof FileRegionResponse) {
+							// The data follows the serialized header in the same frame
+							ctx.write(serialized);
+							ctx.write(((FileRegionResponse) msg).getFileRegion(), promise);
+						} else {
+							ctx.write(serialized, promise);
+						}
 					}
 				}
 			}
@@ -150,6 +172,9 @@ abstract class NettyMessage {
 			else if (msgId == CloseRequest.ID) {
 				decodedMsg = new CloseRequest();
 			}
+			else if (msgId == AddCredit.ID) {
+				decodedMsg = new AddCredit();
+			}
 			else {
 				throw new IllegalStateException("Received unknown message from producer: " + msg);
 			}
@@ -175,10 +200,19 @@ abstract class NettyMessage {
 
 		int sequenceNumber;
 
+		/** The number of buffers queued at the sender after this one, used to request credit. */
+		int backlog;
+
+		/** Compresses the buffer when writing it, null without compression. */
+		final BufferCompressor compressor;
+
 		// ---- Deserialization -----------------------------------------------
 
 		boolean isBuffer;
 
+		/** Whether the data is compressed, in which case the size is the compressed size. */
+		boolean isCompressed;
+
 		int size;
 
 		ByteBuf retainedSlice;
@@ -187,18 +221,39 @@ abstract class NettyMessage {
 			// When deserializing we first have to request a buffer from the respective buffer
 			// provider (at the handler) and copy the buffer from Netty's space to ours.
 			buffer = null;
+			compressor = null;
 		}
 
 		public BufferResponse(Buffer buffer, int sequenceNumber, InputChannelID receiverId) {
+			this(buffer, sequenceNumber, receiverId, 0);
+		}
+
+		public BufferResponse(Buffer buffer, int sequenceNumber, InputChannelID receiverId, int backlog) {
+			this(buffer, sequenceNumber, receiverId, backlog, null);
+		}
+
+		public BufferResponse(
+				Buffer buffer,
+				int sequenceNumber,
+				InputChannelID receiverId,
+				int backlog,
+				@Nullable BufferCompressor compressor) {
+
 			this.buffer = buffer;
 			this.sequenceNumber = sequenceNumber;
 			this.receiverId = receiverId;
+			this.backlog = backlog;
+			this.compressor = compressor;
 		}
 
 		boolean isBuffer() {
 			return isBuffer;
 		}
 
+		boolean isCompressed() {
+			return isCompressed;
+		}
+
 		int getSize() {
 			return size;
 		}
@@ -220,17 +275,29 @@ abstract class NettyMessage {
 
 		@Override
 		ByteBuf write(ByteBufAllocator allocator) throws IOException {
-			int length = 16 + 4 + 1 + 4 + buffer.getSize();
-
 			ByteBuf result = null;
 			try {
+				// events are small and not worth compressing
+				int compressedSize = compressor != null && buffer.isBuffer() ? compressor.compress(buffer) : -1;
+				boolean compressed = compressedSize >= 0;
+				int size = compressed ? compressedSize : buffer.getSize();
+
+				int length = 16 + 4 + 4 + 1 + 1 + 4 + size;
+
 				result = allocateBuffer(allocator, ID, length);
 
 				receiverId.writeTo(result);
 				result.writeInt(sequenceNumber);
+				result.writeInt(backlog);
 				result.writeBoolean(buffer.isBuffer());
-				result.writeInt(buffer.getSize());
-				result.writeBytes(buffer.getNioBuffer());
+				result.writeBoolean(compressed);
+				result.writeInt(size);
+
+				if (compressed) {
+					result.writeBytes(compressor.getCompressedData(), 0, compressedSize);
+				} else {
+					result.writeBytes(buffer.getNioBuffer());
+				}
 
 				return result;
 			}
@@ -252,7 +319,9 @@ abstract class NettyMessage {
 		void readFrom(ByteBuf buffer) {
 			receiverId = InputChannelID.fromByteBuf(buffer);
 			sequenceNumber = buffer.readInt();
+			backlog = buffer.readInt();
 			isBuffer = buffer.readBoolean();
+			isCompressed = buffer.readBoolean();
 			size = buffer.readInt();
 
 			retainedSlice = buffer.readSlice(size);
@@ -260,6 +329,68 @@ abstract class NettyMessage {
 		}
 	}
 
+	/**
+	 * A buffer response whose data is transferred from a segment of a spill file to the socket
+	 * without copying it into memory. Only the header is serialized and the data follows as a
+	 * {@link FileRegion}, so that the receiver decodes the frame as a regular {@link BufferResponse}.
+	 *
+	 * <p>The data is sent as it is stored in the file, i.e. compressed buffers are sent compressed.
+	 * Since the raw file data is written to the socket, this does not work with SSL.
+	 */
+	static class FileRegionResponse extends NettyMessage {
+
+		final FileSegment segment;
+
+		final InputChannelID receiverId;
+
+		final int sequenceNumber;
+
+		/** The number of buffers queued at the sender after this one, used to request credit. */
+		final int backlog;
+
+		FileRegionResponse(FileSegment segment, int sequenceNumber, InputChannelID receiverId, int backlog) {
+			checkArgument(segment.isBuffer(), "Events are sent as buffer responses.");
+
+			this.segment = segment;
+			this.sequenceNumber = sequenceNumber;
+			this.receiverId = receiverId;
+			this.backlog = backlog;
+		}
+
+		FileRegion getFileRegion() {
+			return new FileSegmentRegion(segment);
+		}
+
+		@Override
+		ByteBuf write(ByteBufAllocator allocator) throws IOException {
+			ByteBuf result = null;
+			try {
+				result = allocateBuffer(allocator, BufferResponse.ID, 16 + 4 + 4 + 1 + 1 + 4, segment.getLength());
+
+				receiverId.writeTo(result);
+				result.writeInt(sequenceNumber);
+				result.writeInt(backlog);
+				result.writeBoolean(true);
+				result.writeBoolean(segment.isCompressed());
+				result.writeInt(segment.getLength());
+
+				return result;
+			}
+			catch (Throwable t) {
+				if (result != null) {
+					result.release();
+				}
+
+				throw new IOException(t);
+			}
+		}
+
+		@Override
+		void readFrom(ByteBuf buffer) {
+			throw new UnsupportedOperationException("File region responses are received as buffer responses.");
+		}
+	}
+
 	static class ErrorResponse extends NettyMessage {
 
 		private static final byte ID = 1;
@@ -346,13 +477,24 @@ abstract class NettyMessage {
 
 		InputChannelID receiverId;
 
+		/**
+		 * The initial credit of the receiver, or 0 if the receiver does not use credit-based
+		 * flow control.
+		 */
+		int credit;
+
 		public PartitionRequest() {
 		}
 
 		PartitionRequest(ResultPartitionID partitionId, int queueIndex, InputChannelID receiverId) {
+			this(partitionId, queueIndex, receiverId, 0);
+		}
+
+		PartitionRequest(ResultPartitionID partitionId, int queueIndex, InputChannelID receiverId, int credit) {
 			this.partitionId = partitionId;
 			this.queueIndex = queueIndex;
 			this.receiverId = receiverId;
+			this.credit = credit;
 		}
 
 		@Override
@@ -360,12 +502,13 @@ abstract class NettyMessage {
 			ByteBuf result = null;
 
 			try {
-				result = allocateBuffer(allocator, ID, 16 + 16 + 4 + 16);
+				result = allocateBuffer(allocator, ID, 16 + 16 + 4 + 16 + 4);
 
 				partitionId.getPartitionId().writeTo(result);
 				partitionId.getProducerId().writeTo(result);
 				result.writeInt(queueIndex);
 				receiverId.writeTo(result);
+				result.writeInt(credit);
 
 				return result;
 			}
@@ -383,6 +526,7 @@ abstract class NettyMessage {
 			partitionId = new ResultPartitionID(IntermediateResultPartitionID.fromByteBuf(buffer), ExecutionAttemptID.fromByteBuf(buffer));
 			queueIndex = buffer.readInt();
 			receiverId = InputChannelID.fromByteBuf(buffer);
+			credit = buffer.readInt();
 		}
 
 		@Override
@@ -517,4 +661,56 @@ abstract class NettyMessage {
 		void readFrom(ByteBuf buffer) throws Exception {
 		}
 	}
+
+	/**
+	 * Announces additional credit of the {@link InputChannel} identified by {@link InputChannelID}
+	 * to the sender, i.e. the number of further buffers the receiver can accept.
+	 */
+	static class AddCredit extends NettyMessage {
+
+		private static final byte ID = 6;
+
+		int credit;
+
+		InputChannelID receiverId;
+
+		public AddCredit() {
+		}
+
+		AddCredit(int credit, InputChannelID receiverId) {
+			this.credit = credit;
+			this.receiverId = receiverId;
+		}
+
+		@Override
+		ByteBuf write(ByteBufAllocator allocator) throws IOException {
+			ByteBuf result = null;
+
+			try {
+				result = allocateBuffer(allocator, ID, 4 + 16);
+				result.writeInt(credit);
+				receiverId.writeTo(result);
+
+				return result;
+			}
+			catch (Throwable t) {
+				if (result != null) {
+					result.release();
+				}
+
+				throw new IOException(t);
+			}
+		}
+
+		@Override
+		void readFrom(ByteBuf buffer) {
+			credit = buffer.readInt();
+			receiverId = InputChannelID.fromByteBuf(buffer);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("AddCredit(%s : %d)", receiverId, credit);
+		}
+	}
 }
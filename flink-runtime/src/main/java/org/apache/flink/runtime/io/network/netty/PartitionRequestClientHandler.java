@@ -19,11 +19,14 @@
 package org.apache.flink.runtime.io.network.netty;
 
 import com.google.common.collect.Maps;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
 import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
 import org.apache.flink.runtime.io.network.netty.exception.LocalTransportException;
@@ -64,6 +67,9 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 	 */
 	private final ConcurrentMap<InputChannelID, InputChannelID> cancelled = Maps.newConcurrentMap();
 
+	/** Decompresses the received buffers. Only used by the network I/O thread. */
+	private final BufferCompressor decompressor = new BufferCompressor();
+
 	private volatile ChannelHandlerContext ctx;
 
 	// ------------------------------------------------------------------------
@@ -82,6 +88,47 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 		inputChannels.remove(listener.getInputChannelId());
 	}
 
+	/**
+	 * Announces the unannounced credit of the given input channel. The announcement is written
+	 * by the network I/O thread, which picks up all credit accumulated until then.
+	 */
+	void notifyCreditAvailable(final RemoteInputChannel inputChannel) {
+		if (ctx == null) {
+			return;
+		}
+
+		ctx.executor().execute(new Runnable() {
+			@Override
+			public void run() {
+				announceCredit(inputChannel);
+			}
+		});
+	}
+
+	private void announceCredit(final RemoteInputChannel inputChannel) {
+		final InputChannelID inputChannelId = inputChannel.getInputChannelId();
+
+		// The channel has been released or has failed in the meantime
+		if (!inputChannels.containsKey(inputChannelId)) {
+			return;
+		}
+
+		int credit = inputChannel.getAndResetUnannouncedCredit();
+		if (credit > 0) {
+			ctx.writeAndFlush(new NettyMessage.AddCredit(credit, inputChannelId)).addListener(
+				new ChannelFutureListener() {
+					@Override
+					public void operationComplete(ChannelFuture future) throws Exception {
+						if (!future.isSuccess()) {
+							inputChannel.onError(new LocalTransportException(
+								"Sending the credit announcement failed.",
+								future.channel().localAddress(), future.cause()));
+						}
+					}
+				});
+		}
+	}
+
 	void cancelRequestFor(InputChannelID inputChannelId) {
 		if (inputChannelId == null || ctx == null) {
 			return;
@@ -264,6 +311,24 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 		return true;
 	}
 
+	/**
+	 * Copies the data of the response into the buffer, decompressing it if necessary. Recycles
+	 * the buffer if this fails.
+	 */
+	private void copyToBuffer(NettyMessage.BufferResponse bufferOrEvent, Buffer buffer) throws IOException {
+		try {
+			if (bufferOrEvent.isCompressed()) {
+				decompressor.decompress(bufferOrEvent.getNettyBuffer().nioBuffer(), buffer);
+			} else {
+				buffer.setSize(bufferOrEvent.getSize());
+				bufferOrEvent.getNettyBuffer().readBytes(buffer.getNioBuffer());
+			}
+		} catch (Throwable t) {
+			buffer.recycle();
+			throw t;
+		}
+	}
+
 	private boolean decodeBufferOrEvent(RemoteInputChannel inputChannel, NettyMessage.BufferResponse bufferOrEvent, boolean isStagedBuffer) throws Throwable {
 		boolean releaseNettyBuffer = true;
 
@@ -278,6 +343,24 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 					return true;
 				}
 
+				// With credit-based flow control, the producer only sends buffers for
+				// which the channel has announced credit, i.e. reserved a buffer.
+				if (inputChannel.isCreditBased()) {
+					Buffer buffer = inputChannel.requestBuffer();
+
+					if (buffer == null) {
+						// receiver has been cancelled/failed
+						cancelRequestFor(bufferOrEvent.receiverId);
+						return true;
+					}
+
+					copyToBuffer(bufferOrEvent, buffer);
+
+					inputChannel.onBuffer(buffer, bufferOrEvent.sequenceNumber, bufferOrEvent.backlog);
+
+					return true;
+				}
+
 				BufferProvider bufferProvider = inputChannel.getBufferProvider();
 
 				if (bufferProvider == null) {
@@ -290,10 +373,9 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 					Buffer buffer = bufferProvider.requestBuffer();
 
 					if (buffer != null) {
-						buffer.setSize(bufferOrEvent.getSize());
-						bufferOrEvent.getNettyBuffer().readBytes(buffer.getNioBuffer());
+						copyToBuffer(bufferOrEvent, buffer);
 
-						inputChannel.onBuffer(buffer, bufferOrEvent.sequenceNumber);
+						inputChannel.onBuffer(buffer, bufferOrEvent.sequenceNumber, bufferOrEvent.backlog);
 
 						return true;
 					}
@@ -316,7 +398,7 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 				MemorySegment memSeg = MemorySegmentFactory.wrap(byteArray);
 				Buffer buffer = new Buffer(memSeg, FreeingBufferRecycler.INSTANCE, false);
 
-				inputChannel.onBuffer(buffer, bufferOrEvent.sequenceNumber);
+				inputChannel.onBuffer(buffer, bufferOrEvent.sequenceNumber, bufferOrEvent.backlog);
 
 				return true;
 			}
@@ -435,19 +517,20 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 			Buffer buffer = null;
 
 			try {
-				if ((buffer = availableBuffer.getAndSet(null)) == null) {
+				Buffer available = availableBuffer.getAndSet(null);
+				if (available == null) {
 					throw new IllegalStateException("Running buffer availability task w/o a buffer.");
 				}
 
-				buffer.setSize(stagedBufferResponse.getSize());
+				copyToBuffer(stagedBufferResponse, available);
+				buffer = available;
 
-				stagedBufferResponse.getNettyBuffer().readBytes(buffer.getNioBuffer());
 				stagedBufferResponse.releaseBuffer();
 
 				RemoteInputChannel inputChannel = inputChannels.get(stagedBufferResponse.receiverId);
 
 				if (inputChannel != null) {
-					inputChannel.onBuffer(buffer, stagedBufferResponse.sequenceNumber);
+					inputChannel.onBuffer(buffer, stagedBufferResponse.sequenceNumber, stagedBufferResponse.backlog);
 
 					success = true;
 				}
@@ -23,6 +23,8 @@ import org.apache.flink.runtime.io.network.TaskEventDispatcher;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionProvider;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.apache.flink.runtime.io.network.netty.NettyMessage.NettyMessageEncoder;
 import static org.apache.flink.runtime.io.network.netty.NettyMessage.NettyMessageEncoder.createFrameLengthDecoder;
 
@@ -35,11 +37,45 @@ class PartitionRequestProtocol implements NettyProtocol {
 	private final ResultPartitionProvider partitionProvider;
 	private final TaskEventDispatcher taskEventDispatcher;
 	private final NetworkBufferPool networkbufferPool;
+	private final boolean compressionEnabled;
+	private final boolean zeroCopyEnabled;
+	private final AtomicInteger numQueuedReaders;
 
 	PartitionRequestProtocol(ResultPartitionProvider partitionProvider, TaskEventDispatcher taskEventDispatcher, NetworkBufferPool networkbufferPool) {
+		this(partitionProvider, taskEventDispatcher, networkbufferPool, false);
+	}
+
+	PartitionRequestProtocol(
+			ResultPartitionProvider partitionProvider,
+			TaskEventDispatcher taskEventDispatcher,
+			NetworkBufferPool networkbufferPool,
+			boolean compressionEnabled) {
+		this(partitionProvider, taskEventDispatcher, networkbufferPool, compressionEnabled, false);
+	}
+
+	PartitionRequestProtocol(
+			ResultPartitionProvider partitionProvider,
+			TaskEventDispatcher taskEventDispatcher,
+			NetworkBufferPool networkbufferPool,
+			boolean compressionEnabled,
+			boolean zeroCopyEnabled) {
+		this(partitionProvider, taskEventDispatcher, networkbufferPool, compressionEnabled, zeroCopyEnabled, new AtomicInteger());
+	}
+
+	PartitionRequestProtocol(
+			ResultPartitionProvider partitionProvider,
+			TaskEventDispatcher taskEventDispatcher,
+			NetworkBufferPool networkbufferPool,
+			boolean compressionEnabled,
+			boolean zeroCopyEnabled,
+			AtomicInteger numQueuedReaders) {
+
 		this.partitionProvider = partitionProvider;
 		this.taskEventDispatcher = taskEventDispatcher;
 		this.networkbufferPool = networkbufferPool;
+		this.compressionEnabled = compressionEnabled;
+		this.zeroCopyEnabled = zeroCopyEnabled;
+		this.numQueuedReaders = numQueuedReaders;
 	}
 
 	// +-------------------------------------------------------------------+
@@ -75,7 +111,8 @@ class PartitionRequestProtocol implements NettyProtocol {
 
 	@Override
 	public ChannelHandler[] getServerChannelHandlers() {
-		PartitionRequestQueue queueOfPartitionQueues = new PartitionRequestQueue();
+		PartitionRequestQueue queueOfPartitionQueues = new PartitionRequestQueue(
+				compressionEnabled, zeroCopyEnabled, numQueuedReaders);
 		PartitionRequestServerHandler serverHandler = new PartitionRequestServerHandler(
 				partitionProvider, taskEventDispatcher, queueOfPartitionQueues, networkbufferPool);
 
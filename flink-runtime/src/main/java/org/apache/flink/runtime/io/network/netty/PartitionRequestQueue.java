@@ -24,10 +24,13 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import org.apache.flink.runtime.io.disk.iomanager.FileSegment;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.io.network.netty.NettyMessage.ErrorResponse;
+import org.apache.flink.runtime.io.network.netty.NettyMessage.FileRegionResponse;
 import org.apache.flink.runtime.io.network.partition.ProducerFailedException;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannel.BufferAndAvailability;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
@@ -36,14 +39,26 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.flink.runtime.io.network.netty.NettyMessage.BufferResponse;
+import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /**
  * A nonEmptyReader of partition queues, which listens for channel writability changed
  * events before writing and flushing {@link Buffer} instances.
+ *
+ * <p>Readers of receivers with credit-based flow control are only queued while they
+ * have both data and credit, see {@link SequenceNumberingViewReader#isAvailable()}.
+ *
+ * <p>With zero-copy enabled, data buffers of views reading from spill files are sent as
+ * {@link FileRegionResponse}s, which transfer the data from the file to the socket without
+ * reading it into memory.
  */
 class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 
@@ -53,12 +68,48 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 
 	private final Queue<SequenceNumberingViewReader> nonEmptyReader = new ArrayDeque<>();
 
+	/** All readers created for this channel, by receiver ID. Only accessed by the network I/O thread. */
+	private final Map<InputChannelID, SequenceNumberingViewReader> allReaders = new HashMap<>();
+
 	private final Set<InputChannelID> released = Sets.newHashSet();
 
+	/** Compresses the written buffers, null without compression. Only used by the network I/O thread. */
+	private final BufferCompressor compressor;
+
+	/** Whether data buffers are transferred from spill files to the socket if possible. */
+	private final boolean zeroCopyEnabled;
+
+	/** The number of queued readers of all queues of the server, see {@link NettyConnectionManager#getOutboundQueueLength()}. */
+	private final AtomicInteger numQueuedReaders;
+
+	/** The reader whose file segment is currently written, only accessed by the network I/O thread. */
+	private SequenceNumberingViewReader fileRegionReader;
+
+	/** Whether the reader of the currently written file segment has been released in the meantime. */
+	private boolean isFileRegionReaderReleased;
+
 	private boolean fatalError;
 
 	private ChannelHandlerContext ctx;
 
+	PartitionRequestQueue() {
+		this(false);
+	}
+
+	PartitionRequestQueue(boolean compressionEnabled) {
+		this(compressionEnabled, false);
+	}
+
+	PartitionRequestQueue(boolean compressionEnabled, boolean zeroCopyEnabled) {
+		this(compressionEnabled, zeroCopyEnabled, new AtomicInteger());
+	}
+
+	PartitionRequestQueue(boolean compressionEnabled, boolean zeroCopyEnabled, AtomicInteger numQueuedReaders) {
+		this.compressor = compressionEnabled ? new BufferCompressor() : null;
+		this.zeroCopyEnabled = zeroCopyEnabled;
+		this.numQueuedReaders = checkNotNull(numQueuedReaders);
+	}
+
 	@Override
 	public void channelRegistered(final ChannelHandlerContext ctx) throws Exception {
 		if (this.ctx == null) {
@@ -86,6 +137,33 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 		});
 	}
 
+	/**
+	 * Registers a newly created reader. Must be called by the network I/O thread.
+	 */
+	void notifyReaderCreated(SequenceNumberingViewReader reader) {
+		allReaders.put(reader.getReceiverId(), reader);
+	}
+
+	/**
+	 * Adds credit announced by a receiver and queues its reader if it has become available.
+	 * Must be called by the network I/O thread.
+	 */
+	void addCredit(InputChannelID receiverId, int credit) throws Exception {
+		if (fatalError) {
+			return;
+		}
+
+		// The reader might have been released concurrently to the credit announcement
+		SequenceNumberingViewReader reader = allReaders.get(receiverId);
+		if (reader != null) {
+			reader.addCredit(credit);
+
+			if (reader.isAvailable()) {
+				enqueueReader(reader);
+			}
+		}
+	}
+
 	public void cancel(InputChannelID receiverId) {
 		ctx.pipeline().fireUserEventTriggered(receiverId);
 	}
@@ -102,13 +180,13 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 		// hand over of reader queues and cancelled producers.
 
 		if (msg.getClass() == SequenceNumberingViewReader.class) {
-			// Queue a non-empty reader for consumption. If the queue
-			// is empty, we try trigger the actual write. Otherwise this
-			// will be handled by the writeAndFlushIfPossible calls.
-			boolean triggerWrite = nonEmptyReader.isEmpty();
-			nonEmptyReader.add((SequenceNumberingViewReader) msg);
-			if (triggerWrite) {
-				writeAndFlushNextMessageIfPossible(ctx.channel());
+			// Queue a non-empty reader for consumption. Readers of credit-based
+			// receivers without credit are queued once credit is announced. As
+			// the notification is asynchronous, the data might have been
+			// written in the meantime after an announcement.
+			SequenceNumberingViewReader reader = (SequenceNumberingViewReader) msg;
+			if (!reader.isCreditBased() || reader.isAvailable()) {
+				enqueueReader(reader);
 			}
 		} else if (msg.getClass() == InputChannelID.class) {
 			// Release partition view that get a cancel request.
@@ -120,19 +198,57 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 			// Cancel the request for the input channel
 			int size = nonEmptyReader.size();
 			for (int i = 0; i < size; i++) {
-				SequenceNumberingViewReader reader = nonEmptyReader.poll();
+				SequenceNumberingViewReader reader = pollAvailableReader();
 				if (reader.getReceiverId().equals(toCancel)) {
-					reader.releaseAllResources();
-					markAsReleased(reader.getReceiverId());
+					reader.setRegisteredAsAvailable(false);
+					releaseReader(reader);
 				} else {
-					nonEmptyReader.add(reader);
+					registerAvailableReader(reader);
 				}
 			}
+
+			// Readers without data or credit are not queued
+			SequenceNumberingViewReader idleReader = allReaders.get(toCancel);
+			if (idleReader != null) {
+				releaseReader(idleReader);
+			}
 		} else {
 			ctx.fireUserEventTriggered(msg);
 		}
 	}
 
+	/**
+	 * Queues a reader for consumption if it is not queued yet. If the queue is empty, we
+	 * try trigger the actual write. Otherwise this will be handled by the
+	 * writeAndFlushIfPossible calls.
+	 */
+	private void enqueueReader(SequenceNumberingViewReader reader) throws Exception {
+		if (reader.isRegisteredAsAvailable()) {
+			return;
+		}
+
+		boolean triggerWrite = nonEmptyReader.isEmpty();
+		registerAvailableReader(reader);
+		if (triggerWrite) {
+			writeAndFlushNextMessageIfPossible(ctx.channel());
+		}
+	}
+
+	private void registerAvailableReader(SequenceNumberingViewReader reader) {
+		nonEmptyReader.add(reader);
+		reader.setRegisteredAsAvailable(true);
+		numQueuedReaders.incrementAndGet();
+	}
+
+	private SequenceNumberingViewReader pollAvailableReader() {
+		SequenceNumberingViewReader reader = nonEmptyReader.poll();
+		if (reader != null) {
+			numQueuedReaders.decrementAndGet();
+		}
+
+		return reader;
+	}
+
 	@Override
 	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
 		writeAndFlushNextMessageIfPossible(ctx.channel());
@@ -151,7 +267,7 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 		try {
 			if (channel.isWritable()) {
 				while (true) {
-					SequenceNumberingViewReader reader = nonEmptyReader.poll();
+					SequenceNumberingViewReader reader = pollAvailableReader();
 
 					// No queue with available data. We allow this here, because
 					// of the write callbacks that are executed after each write.
@@ -159,10 +275,38 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 						return;
 					}
 
+					reader.setRegisteredAsAvailable(false);
+
+					if (zeroCopyEnabled) {
+						FileSegment segment = reader.getNextFileSegment();
+
+						if (segment != null) {
+							// Same as for buffers below, re-add the reader if it has
+							// more data and credit
+							if (reader.isAvailable()) {
+								registerAvailableReader(reader);
+							}
+
+							FileRegionResponse msg = new FileRegionResponse(
+								segment,
+								reader.getSequenceNumber(),
+								reader.getReceiverId(),
+								reader.getBuffersInBacklog());
+
+							// The data is read from the file channel of the view until
+							// the write is done, see releaseReader()
+							fileRegionReader = reader;
+							channel.writeAndFlush(msg).addListener(writeListener);
+
+							return;
+						}
+					}
+
 					next = reader.getNextBuffer();
 
 					if (next == null) {
 						if (reader.isReleased()) {
+							allReaders.remove(reader.getReceiverId());
 							markAsReleased(reader.getReceiverId());
 							Throwable cause = reader.getFailureCause();
 
@@ -182,22 +326,23 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 						}
 					} else {
 						// this channel was now removed from the non-empty reader queue
-						// we re-add it in case it has more data, because in that case no
-						// "non-empty" notification will come for that reader from the queue.
-						if (next.moreAvailable()) {
-							nonEmptyReader.add(reader);
+						// we re-add it in case it has more data (and credit), because in
+						// that case no "non-empty" notification will come for that reader
+						// from the queue.
+						if (next.moreAvailable() && reader.hasCredit()) {
+							registerAvailableReader(reader);
 						}
 
 						BufferResponse msg = new BufferResponse(
 							next.buffer(),
 							reader.getSequenceNumber(),
-							reader.getReceiverId());
+							reader.getReceiverId(),
+							reader.getBuffersInBacklog(),
+							compressor);
 
 						if (isEndOfPartitionEvent(next.buffer())) {
 							reader.notifySubpartitionConsumed();
-							reader.releaseAllResources();
-
-							markAsReleased(reader.getReceiverId());
+							releaseReader(reader);
 						}
 
 						// Write and flush and wait until this is done before
@@ -247,9 +392,44 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 
 	private void releaseAllResources() throws IOException {
 		SequenceNumberingViewReader reader;
-		while ((reader = nonEmptyReader.poll()) != null) {
+		while ((reader = pollAvailableReader()) != null) {
+			reader.setRegisteredAsAvailable(false);
+			releaseReader(reader);
+		}
+
+		// Readers without data or credit are not queued
+		for (SequenceNumberingViewReader idleReader : new ArrayList<>(allReaders.values())) {
+			releaseReader(idleReader);
+		}
+	}
+
+	private void releaseReader(SequenceNumberingViewReader reader) throws IOException {
+		allReaders.remove(reader.getReceiverId());
+
+		if (reader == fileRegionReader) {
+			// Releasing the view closes the file channel, which is still
+			// read by the pending write. Release it after the write.
+			isFileRegionReaderReleased = true;
+		} else {
 			reader.releaseAllResources();
-			markAsReleased(reader.getReceiverId());
+		}
+
+		markAsReleased(reader.getReceiverId());
+	}
+
+	/**
+	 * Releases the reader of the last written file segment, if it has been released while the
+	 * segment was written.
+	 */
+	private void onFileRegionWritten() throws IOException {
+		SequenceNumberingViewReader reader = fileRegionReader;
+		if (reader != null) {
+			fileRegionReader = null;
+
+			if (isFileRegionReaderReleased) {
+				isFileRegionReaderReleased = false;
+				reader.releaseAllResources();
+			}
 		}
 	}
 
@@ -268,6 +448,8 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 		@Override
 		public void operationComplete(ChannelFuture future) throws Exception {
 			try {
+				onFileRegionWritten();
+
 				if (future.isSuccess()) {
 					writeAndFlushNextMessageIfPossible(future.channel());
 				} else if (future.cause() != null) {
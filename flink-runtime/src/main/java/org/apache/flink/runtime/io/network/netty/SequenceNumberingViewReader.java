@@ -18,9 +18,11 @@
 
 package org.apache.flink.runtime.io.network.netty;
 
+import org.apache.flink.runtime.io.disk.iomanager.FileSegment;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
 import org.apache.flink.runtime.io.network.partition.BufferAvailabilityListener;
+import org.apache.flink.runtime.io.network.partition.FileSegmentSubpartitionView;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionProvider;
 import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
@@ -31,12 +33,21 @@ import org.apache.flink.runtime.io.network.partition.consumer.LocalInputChannel;
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkState;
+
 /**
  * Simple wrapper for the partition readerQueue iterator, which increments a
  * sequence number for each returned buffer and remembers the receiver ID.
  *
  * <p>It also keeps track of available buffers and notifies the outbound
  * handler about non-emptiness, similar to the {@link LocalInputChannel}.
+ *
+ * <p>If the receiver uses credit-based flow control, the reader additionally
+ * keeps track of the credit announced by the receiver. Every non-empty buffer
+ * consumes one credit and the reader is only available for writing while it
+ * has credit left, so that a slow receiver does not block the shared TCP
+ * connection for the other receivers.
  */
 class SequenceNumberingViewReader implements BufferAvailabilityListener {
 
@@ -48,13 +59,30 @@ class SequenceNumberingViewReader implements BufferAvailabilityListener {
 
 	private final PartitionRequestQueue requestQueue;
 
+	/** Whether the receiver announces credit, i.e. uses credit-based flow control. */
+	private final boolean creditBased;
+
+	/** The number of buffers the receiver can still accept, only accessed by the network I/O thread. */
+	private int numCreditsAvailable;
+
+	/** Whether this reader is queued in the {@link PartitionRequestQueue}, only accessed by the network I/O thread. */
+	private boolean isRegisteredAsAvailable;
+
 	private volatile ResultSubpartitionView subpartitionView;
 
 	private int sequenceNumber = -1;
 
 	SequenceNumberingViewReader(InputChannelID receiverId, PartitionRequestQueue requestQueue) {
+		this(receiverId, 0, requestQueue);
+	}
+
+	SequenceNumberingViewReader(InputChannelID receiverId, int initialCredit, PartitionRequestQueue requestQueue) {
+		checkArgument(initialCredit >= 0, "The initial credit must not be negative.");
+
 		this.receiverId = receiverId;
 		this.requestQueue = requestQueue;
+		this.creditBased = initialCredit > 0;
+		this.numCreditsAvailable = initialCredit;
 	}
 
 	void requestSubpartitionView(
@@ -88,12 +116,64 @@ class SequenceNumberingViewReader implements BufferAvailabilityListener {
 		return sequenceNumber;
 	}
 
+	boolean isCreditBased() {
+		return creditBased;
+	}
+
+	int getNumCreditsAvailable() {
+		return numCreditsAvailable;
+	}
+
+	/**
+	 * Adds credit announced by the receiver.
+	 */
+	void addCredit(int credit) {
+		checkState(creditBased, "Received credit for a receiver without credit-based flow control.");
+
+		numCreditsAvailable += credit;
+	}
+
+	boolean isRegisteredAsAvailable() {
+		return isRegisteredAsAvailable;
+	}
+
+	void setRegisteredAsAvailable(boolean isRegisteredAsAvailable) {
+		this.isRegisteredAsAvailable = isRegisteredAsAvailable;
+	}
+
+	/**
+	 * Returns whether the receiver can accept further buffers.
+	 */
+	boolean hasCredit() {
+		return !creditBased || numCreditsAvailable > 0;
+	}
+
+	/**
+	 * Returns whether the reader has buffers to send and the receiver can accept them.
+	 */
+	boolean isAvailable() {
+		return numBuffersAvailable.get() > 0 && hasCredit();
+	}
+
+	/**
+	 * Returns the number of buffers queued in the subpartition, announced to the receiver
+	 * as its backlog.
+	 */
+	int getBuffersInBacklog() {
+		return (int) Math.min(Integer.MAX_VALUE, numBuffersAvailable.get());
+	}
+
 	public BufferAndAvailability getNextBuffer() throws IOException, InterruptedException {
 		Buffer next = subpartitionView.getNextBuffer();
 		if (next != null) {
 			long remaining = numBuffersAvailable.decrementAndGet();
 			sequenceNumber++;
 
+			// empty buffers and events are not copied into receiver buffers
+			if (creditBased && next.isBuffer() && next.getSize() > 0 && --numCreditsAvailable < 0) {
+				throw new IllegalStateException("no credit available");
+			}
+
 			if (remaining >= 0) {
 				return new BufferAndAvailability(next, remaining > 0);
 			} else {
@@ -104,6 +184,36 @@ class SequenceNumberingViewReader implements BufferAvailabilityListener {
 		}
 	}
 
+	/**
+	 * Returns the next buffer as a segment of the file it is read from, if the view reads from
+	 * a file and the next buffer is a data buffer. Otherwise, this returns <code>null</code> and
+	 * the next buffer has to be requested via {@link #getNextBuffer()}.
+	 *
+	 * <p>The segment is accounted for like a buffer returned by {@link #getNextBuffer()}.
+	 */
+	FileSegment getNextFileSegment() throws IOException {
+		ResultSubpartitionView view = subpartitionView;
+		if (!(view instanceof FileSegmentSubpartitionView)) {
+			return null;
+		}
+
+		FileSegment next = ((FileSegmentSubpartitionView) view).getNextFileSegment();
+		if (next != null) {
+			long remaining = numBuffersAvailable.decrementAndGet();
+			sequenceNumber++;
+
+			if (creditBased && next.getLength() > 0 && --numCreditsAvailable < 0) {
+				throw new IllegalStateException("no credit available");
+			}
+
+			if (remaining < 0) {
+				throw new IllegalStateException("no buffer available");
+			}
+		}
+
+		return next;
+	}
+
 	public void notifySubpartitionConsumed() throws IOException {
 		subpartitionView.notifySubpartitionConsumed();
 	}
@@ -134,6 +244,7 @@ class SequenceNumberingViewReader implements BufferAvailabilityListener {
 			"requestLock=" + requestLock +
 			", receiverId=" + receiverId +
 			", numBuffersAvailable=" + numBuffersAvailable.get() +
+			", numCreditsAvailable=" + numCreditsAvailable +
 			", sequenceNumber=" + sequenceNumber +
 			'}';
 	}
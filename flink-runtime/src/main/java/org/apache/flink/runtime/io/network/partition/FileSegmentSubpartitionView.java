@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.disk.iomanager.FileSegment;
+
+import java.io.IOException;
+
+/**
+ * A {@link ResultSubpartitionView} which reads the buffers of a subpartition from a file and can
+ * return them as segments of that file instead of reading them into memory. This allows the
+ * network stack to transfer the data from the file to the socket without a user space copy.
+ */
+public interface FileSegmentSubpartitionView extends ResultSubpartitionView {
+
+	/**
+	 * Returns the next buffer of this view as a {@link FileSegment}, if it is a data buffer.
+	 * <p>
+	 * If there is currently no buffer available or the next buffer is an event, this returns
+	 * <code>null</code> and the next buffer has to be requested via {@link #getNextBuffer()}.
+	 * <p>
+	 * <strong>Important</strong>: The segment is only valid until the view is released, as the
+	 * file channel of the segment belongs to the view.
+	 */
+	FileSegment getNextFileSegment() throws IOException;
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A view to consume a {@link ResultSubpartition} in the same task manager, which can receive
+ * records as objects instead of serialized in buffers.
+ * <p>
+ * After {@link #requestObjectHandover()}, the producer may hand over records as objects
+ * to the consumer, which skips their serialization entirely. Every notification about
+ * available data then refers to either a buffer or a batch of records, which are returned
+ * in order by {@link #getNextBufferOrRecords()}.
+ */
+public interface ObjectHandoverSubpartitionView extends ResultSubpartitionView {
+
+	/**
+	 * Requests the producer to hand over records as objects from now on. Data produced
+	 * before the producer notices the request is still consumed as buffers.
+	 */
+	void requestObjectHandover();
+
+	/**
+	 * Returns the next {@link Buffer} or {@link List} of records, or <code>null</code>
+	 * if there is currently no data available.
+	 * <p>
+	 * <strong>Important</strong>: The consumer has to make sure that each buffer
+	 * instance will eventually be recycled with {@link Buffer#recycle()} after it has
+	 * been consumed.
+	 */
+	Object getNextBufferOrRecords() throws IOException, InterruptedException;
+}
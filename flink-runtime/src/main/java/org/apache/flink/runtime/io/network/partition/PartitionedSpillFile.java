@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.SynchronousBufferFileWriter;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * The single spill file of a {@link ResultPartitionType#BLOCKING_SORTED} result partition, which
+ * is shared by all its subpartitions.
+ *
+ * <p>The buffers added to the subpartitions are kept in memory until the buffer pool asks to
+ * release memory, or until the last subpartition has been finished. Then all buffers are written
+ * as one region of the file, sorted by subpartition, so that the file is written sequentially.
+ * An index keeps the offset and the number of buffers of every subpartition in every region, so
+ * that reading a subpartition needs one seek per region, independent of the number of
+ * subpartitions.
+ */
+final class PartitionedSpillFile {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PartitionedSpillFile.class);
+
+	/** The partition whose subpartitions are written to the file. */
+	private final ResultPartition parent;
+
+	/** The I/O manager to create the file. */
+	private final IOManager ioManager;
+
+	/** Whether to compress the written buffers. */
+	private final boolean compressBuffers;
+
+	/** The buffers of each subpartition, which have not been written yet. */
+	private final ArrayDeque<Buffer>[] buffers;
+
+	/** The file offsets of the subpartitions, per region. */
+	private final List<long[]> regionOffsets = new ArrayList<>();
+
+	/** The number of buffers of the subpartitions, per region. */
+	private final List<int[]> regionBufferCounts = new ArrayList<>();
+
+	/** The writer of the file, null until the first region is written. */
+	private SynchronousBufferFileWriter writer;
+
+	/** The total number of buffers in memory. */
+	private int numberOfBuffers;
+
+	private int numberOfFinishedSubpartitions;
+
+	private int numberOfReleasedSubpartitions;
+
+	/** Flag indicating whether all subpartitions have been finished and written. */
+	private boolean isFinished;
+
+	/** Flag indicating whether all subpartitions have been released. */
+	private boolean isReleased;
+
+	@SuppressWarnings("unchecked")
+	PartitionedSpillFile(ResultPartition parent, int numberOfSubpartitions, IOManager ioManager, boolean compressBuffers) {
+		this.parent = checkNotNull(parent);
+		this.ioManager = checkNotNull(ioManager);
+		this.compressBuffers = compressBuffers;
+
+		this.buffers = new ArrayDeque[numberOfSubpartitions];
+		for (int i = 0; i < numberOfSubpartitions; i++) {
+			buffers[i] = new ArrayDeque<>();
+		}
+	}
+
+	/**
+	 * Adds a buffer of the subpartition.
+	 *
+	 * @return Whether the buffer was added, false if the file has been released.
+	 */
+	synchronized boolean add(int subpartitionIndex, Buffer buffer) {
+		checkState(!isFinished, "The spill file has already been finished.");
+
+		if (isReleased) {
+			return false;
+		}
+
+		buffers[subpartitionIndex].add(buffer);
+		numberOfBuffers++;
+
+		return true;
+	}
+
+	/**
+	 * Called once by every subpartition when it has been finished. The last subpartition writes
+	 * the remaining buffers and closes the file.
+	 */
+	synchronized void finish() throws IOException {
+		checkState(!isFinished, "The spill file has already been finished.");
+
+		if (isReleased || ++numberOfFinishedSubpartitions < buffers.length) {
+			return;
+		}
+
+		writeRegion();
+		writer.close();
+
+		isFinished = true;
+
+		LOG.debug("Finished spill file of {} with {} regions.", parent.getPartitionId(), regionOffsets.size());
+	}
+
+	/**
+	 * Writes the buffers in memory as a new region of the file.
+	 *
+	 * @return The number of buffers which have been written and recycled.
+	 */
+	synchronized int writeRegion() throws IOException {
+		if (numberOfBuffers == 0 || isReleased) {
+			return 0;
+		}
+
+		if (writer == null) {
+			writer = new SynchronousBufferFileWriter(ioManager.createChannel(), compressBuffers);
+		}
+
+		final long[] offsets = new long[buffers.length];
+		final int[] bufferCounts = new int[buffers.length];
+
+		for (int i = 0; i < buffers.length; i++) {
+			offsets[i] = writer.getPosition();
+			bufferCounts[i] = buffers[i].size();
+
+			Buffer buffer;
+			while ((buffer = buffers[i].poll()) != null) {
+				writer.writeBlock(buffer);
+			}
+		}
+
+		regionOffsets.add(offsets);
+		regionBufferCounts.add(bufferCounts);
+
+		final int numberOfWrittenBuffers = numberOfBuffers;
+		numberOfBuffers = 0;
+
+		LOG.debug("Wrote region of {} buffers to spill file of {}.", numberOfWrittenBuffers, parent.getPartitionId());
+
+		return numberOfWrittenBuffers;
+	}
+
+	/**
+	 * Returns the ID of the file. Requires the file to be finished.
+	 */
+	synchronized FileIOChannel.ID getChannelID() {
+		checkState(isFinished, "The spill file has not been finished yet.");
+
+		return writer.getChannelID();
+	}
+
+	/**
+	 * Returns the file offsets of the subpartition in all regions. Requires the file to be finished.
+	 */
+	synchronized long[] getOffsets(int subpartitionIndex) {
+		checkState(isFinished, "The spill file has not been finished yet.");
+
+		final long[] offsets = new long[regionOffsets.size()];
+		for (int region = 0; region < offsets.length; region++) {
+			offsets[region] = regionOffsets.get(region)[subpartitionIndex];
+		}
+		return offsets;
+	}
+
+	/**
+	 * Returns the number of buffers of the subpartition in all regions. Requires the file to be
+	 * finished.
+	 */
+	synchronized int[] getBufferCounts(int subpartitionIndex) {
+		checkState(isFinished, "The spill file has not been finished yet.");
+
+		final int[] bufferCounts = new int[regionBufferCounts.size()];
+		for (int region = 0; region < bufferCounts.length; region++) {
+			bufferCounts[region] = regionBufferCounts.get(region)[subpartitionIndex];
+		}
+		return bufferCounts;
+	}
+
+	/**
+	 * Called once by every subpartition when it has been released. The last subpartition recycles
+	 * the buffers in memory and deletes the file.
+	 */
+	synchronized void release() throws IOException {
+		if (isReleased || ++numberOfReleasedSubpartitions < buffers.length) {
+			return;
+		}
+
+		isReleased = true;
+
+		for (ArrayDeque<Buffer> subpartitionBuffers : buffers) {
+			Buffer buffer;
+			while ((buffer = subpartitionBuffers.poll()) != null) {
+				buffer.recycle();
+			}
+		}
+		numberOfBuffers = 0;
+
+		if (writer != null) {
+			writer.closeAndDelete();
+		}
+	}
+
+	/**
+	 * Returns the number of buffers of the subpartition in memory. This does not acquire any locks
+	 * and may be inaccurate.
+	 */
+	int unsynchronizedGetNumberOfBuffers(int subpartitionIndex) {
+		// since we do not synchronize, the size may actually be lower than 0!
+		return Math.max(buffers[subpartitionIndex].size(), 0);
+	}
+}
@@ -28,6 +28,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.List;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 import static org.apache.flink.util.Preconditions.checkState;
@@ -39,11 +40,32 @@ class PipelinedSubpartition extends ResultSubpartition {
 
 	private static final Logger LOG = LoggerFactory.getLogger(PipelinedSubpartition.class);
 
+	/** Maximum number of record batches and events handed over as objects, but not consumed yet. */
+	static final int OBJECT_QUEUE_CAPACITY = 16;
+
 	// ------------------------------------------------------------------------
 
 	/** All buffers of this subpartition. Access to the buffers is synchronized on this object. */
 	private final ArrayDeque<Buffer> buffers = new ArrayDeque<>();
 
+	/**
+	 * Record batches and events handed over as objects to a local consumer. Created when the
+	 * consumer requests the object handover.
+	 */
+	private volatile SpscArrayQueue<Object> objects;
+
+	/**
+	 * Flag indicating whether records have been handed over. From then on, all data goes
+	 * through the object queue instead of the buffers. Only set by the producer.
+	 */
+	private volatile boolean isHandingOverObjects;
+
+	/** Flag indicating whether the producer waits for space in the object queue. */
+	private volatile boolean isWaitingForSpace;
+
+	/** Lock to wait for space in the object queue. */
+	private final Object spaceLock = new Object();
+
 	/** The read view to consume this subpartition. */
 	private PipelinedSubpartitionView readView;
 
@@ -63,6 +85,11 @@ class PipelinedSubpartition extends ResultSubpartition {
 	public boolean add(Buffer buffer) throws IOException {
 		checkNotNull(buffer);
 
+		if (isHandingOverObjects) {
+			checkState(!buffer.isBuffer(), "Cannot add data buffers after records have been handed over.");
+			return offerEvent(buffer, false);
+		}
+
 		// view reference accessible outside the lock, but assigned inside the locked scope
 		final PipelinedSubpartitionView reader;
 
@@ -89,6 +116,13 @@ class PipelinedSubpartition extends ResultSubpartition {
 	public void finish() throws IOException {
 		final Buffer buffer = EventSerializer.toBuffer(EndOfPartitionEvent.INSTANCE);
 
+		if (isHandingOverObjects) {
+			if (offerEvent(buffer, true)) {
+				LOG.debug("Finished {}.", this);
+			}
+			return;
+		}
+
 		// view reference accessible outside the lock, but assigned inside the locked scope
 		final PipelinedSubpartitionView reader;
 
@@ -136,6 +170,12 @@ class PipelinedSubpartition extends ResultSubpartition {
 			isReleased = true;
 		}
 
+		// Wake up a producer waiting for space in the object queue. The handed over records
+		// and events are left to the garbage collector, events are not in pooled buffers.
+		synchronized (spaceLock) {
+			spaceLock.notifyAll();
+		}
+
 		LOG.debug("Released {}.", this);
 
 		// Release all resources of the view
@@ -150,6 +190,112 @@ class PipelinedSubpartition extends ResultSubpartition {
 		}
 	}
 
+	// ------------------------------------------------------------------------
+	// Object handover
+	// ------------------------------------------------------------------------
+
+	@Override
+	public boolean isObjectHandoverRequested() {
+		return objects != null;
+	}
+
+	void requestObjectHandover() {
+		if (objects == null) {
+			objects = new SpscArrayQueue<>(OBJECT_QUEUE_CAPACITY);
+		}
+	}
+
+	@Override
+	public boolean addRecords(List<Object> records) throws IOException, InterruptedException {
+		checkNotNull(records);
+		checkState(objects != null, "The consumer has not requested records as objects.");
+
+		// set before adding the first records, the consumer relies on this to poll the
+		// remaining buffers first (see pollBufferOrRecords())
+		isHandingOverObjects = true;
+
+		return offerObject(records, false);
+	}
+
+	/**
+	 * Returns the next buffer or batch of records. Must only be called by the consumer.
+	 */
+	Object pollBufferOrRecords() {
+		// read the flag before polling the buffers, no buffers are added once it is set
+		if (!isHandingOverObjects) {
+			return pollBuffer();
+		}
+
+		Object next = pollBuffer();
+		if (next == null) {
+			next = objects.poll();
+
+			if (next != null && isWaitingForSpace) {
+				synchronized (spaceLock) {
+					spaceLock.notifyAll();
+				}
+			}
+		}
+		return next;
+	}
+
+	private boolean offerEvent(Buffer event, boolean isLastElement) throws IOException {
+		try {
+			return offerObject(event, isLastElement);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while handing over an event to the consumer of " + this + '.', e);
+		}
+	}
+
+	/**
+	 * Adds the element to the object queue, waiting for space if it is full.
+	 */
+	private boolean offerObject(Object element, boolean isLastElement) throws IOException, InterruptedException {
+		// view reference accessible outside the lock, but assigned inside the locked scope
+		final PipelinedSubpartitionView reader;
+
+		synchronized (buffers) {
+			if (isFinished || isReleased) {
+				return false;
+			}
+
+			if (element instanceof Buffer) {
+				updateStatistics((Buffer) element);
+			}
+			reader = readView;
+
+			if (isLastElement) {
+				isFinished = true;
+			}
+		}
+
+		final SpscArrayQueue<Object> queue = objects;
+		while (!queue.offer(element)) {
+			synchronized (spaceLock) {
+				isWaitingForSpace = true;
+				try {
+					while (queue.isFull() && !isReleased) {
+						spaceLock.wait();
+					}
+				} finally {
+					isWaitingForSpace = false;
+				}
+			}
+
+			if (isReleased) {
+				return false;
+			}
+		}
+
+		// Notify the listener outside of the synchronized block
+		if (reader != null) {
+			reader.notifyBuffersAvailable(1);
+		}
+
+		return true;
+	}
+
 	@Override
 	public int releaseMemory() {
 		// The pipelined subpartition does not react to memory release requests.
@@ -213,6 +359,7 @@ class PipelinedSubpartition extends ResultSubpartition {
 	@Override
 	public int unsynchronizedGetNumberOfQueuedBuffers() {
 		// since we do not synchronize, the size may actually be lower than 0!
-		return Math.max(buffers.size(), 0);
+		final SpscArrayQueue<Object> queue = objects;
+		return Math.max(buffers.size(), 0) + (queue != null ? queue.size() : 0);
 	}
 }
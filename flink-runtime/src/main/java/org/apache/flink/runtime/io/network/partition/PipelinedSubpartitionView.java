@@ -28,7 +28,7 @@ import static org.apache.flink.util.Preconditions.checkNotNull;
 /**
  * View over a pipelined in-memory only subpartition.
  */
-class PipelinedSubpartitionView implements ResultSubpartitionView {
+class PipelinedSubpartitionView implements ObjectHandoverSubpartitionView {
 
 	/** The subpartition this view belongs to. */
 	private final PipelinedSubpartition parent;
@@ -49,6 +49,16 @@ class PipelinedSubpartitionView implements ResultSubpartitionView {
 		return parent.pollBuffer();
 	}
 
+	@Override
+	public void requestObjectHandover() {
+		parent.requestObjectHandover();
+	}
+
+	@Override
+	public Object getNextBufferOrRecords() {
+		return parent.pollBufferOrRecords();
+	}
+
 	@Override
 	public void notifyBuffersAvailable(long numBuffers) throws IOException {
 		availabilityListener.notifyBuffersAvailable(numBuffers);
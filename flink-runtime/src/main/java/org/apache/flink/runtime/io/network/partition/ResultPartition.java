@@ -35,6 +35,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -140,6 +141,30 @@ public class ResultPartition implements BufferPoolOwner {
 		IOManager ioManager,
 		boolean sendScheduleOrUpdateConsumersMessage) {
 
+		this(owningTaskName, taskActions, jobId, partitionId, partitionType, numberOfSubpartitions,
+			numTargetKeyGroups, partitionManager, partitionConsumableNotifier, ioManager,
+			sendScheduleOrUpdateConsumersMessage, false);
+	}
+
+	/**
+	 * Creates a result partition, whose {@link ResultPartitionType#BLOCKING} and
+	 * {@link ResultPartitionType#BLOCKING_SORTED} subpartitions optionally compress the
+	 * buffers they spill to disk.
+	 */
+	public ResultPartition(
+		String owningTaskName,
+		TaskActions taskActions, // actions on the owning task
+		JobID jobId,
+		ResultPartitionID partitionId,
+		ResultPartitionType partitionType,
+		int numberOfSubpartitions,
+		int numTargetKeyGroups,
+		ResultPartitionManager partitionManager,
+		ResultPartitionConsumableNotifier partitionConsumableNotifier,
+		IOManager ioManager,
+		boolean sendScheduleOrUpdateConsumersMessage,
+		boolean compressSpilledBuffers) {
+
 		this.owningTaskName = checkNotNull(owningTaskName);
 		this.taskActions = checkNotNull(taskActions);
 		this.jobId = checkNotNull(jobId);
@@ -155,7 +180,17 @@ public class ResultPartition implements BufferPoolOwner {
 		switch (partitionType) {
 			case BLOCKING:
 				for (int i = 0; i < subpartitions.length; i++) {
-					subpartitions[i] = new SpillableSubpartition(i, this, ioManager);
+					subpartitions[i] = new SpillableSubpartition(i, this, ioManager, compressSpilledBuffers);
+				}
+
+				break;
+
+			case BLOCKING_SORTED:
+				PartitionedSpillFile spillFile = new PartitionedSpillFile(
+					this, numberOfSubpartitions, ioManager, compressSpilledBuffers);
+
+				for (int i = 0; i < subpartitions.length; i++) {
+					subpartitions[i] = new SortedSubpartition(i, this, spillFile);
 				}
 
 				break;
@@ -249,6 +284,14 @@ public class ResultPartition implements BufferPoolOwner {
 		return totalBuffers;
 	}
 
+	/**
+	 * Returns the number of buffers queued in the subpartition with the given index, which
+	 * have not been consumed yet. This is a best effort and does not acquire any locks.
+	 */
+	public int getNumberOfQueuedBuffers(int subpartitionIndex) {
+		return subpartitions[subpartitionIndex].unsynchronizedGetNumberOfQueuedBuffers();
+	}
+
 	/**
 	 * Returns the type of this result partition.
 	 *
@@ -292,6 +335,25 @@ public class ResultPartition implements BufferPoolOwner {
 		}
 	}
 
+	/**
+	 * Returns whether the consumer of the subpartition with the given index accepts records
+	 * as objects, see {@link #addRecords(List, int)}.
+	 */
+	public boolean isObjectHandoverRequested(int subpartitionIndex) {
+		return subpartitions[subpartitionIndex].isObjectHandoverRequested();
+	}
+
+	/**
+	 * Hands over a batch of records as objects to the consumer of the subpartition with the
+	 * given index, instead of adding them serialized in buffers. This waits while the consumer
+	 * has too many records to process.
+	 */
+	public void addRecords(List<Object> records, int subpartitionIndex) throws IOException, InterruptedException {
+		checkInProduceState();
+
+		subpartitions[subpartitionIndex].addRecords(records);
+	}
+
 	/**
 	 * Finishes the result partition.
 	 *
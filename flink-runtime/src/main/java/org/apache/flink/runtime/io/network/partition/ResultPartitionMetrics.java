@@ -18,8 +18,12 @@
 
 package org.apache.flink.runtime.io.network.partition;
 
+import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MeterView;
 import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.runtime.io.network.buffer.BufferPool;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -114,6 +118,34 @@ public class ResultPartitionMetrics {
 		return total / (float) allPartitions.length;
 	}
 
+	/**
+	 * Returns the fraction of used buffers of the buffer pool of the partition in a best-effort
+	 * way.
+	 *
+	 * @return usage of the buffer pool (<tt>0</tt> if the pool has no buffers)
+	 */
+	float refreshAndGetPoolUsage() {
+		BufferPool bufferPool = partition.getBufferPool();
+		int numBuffers = bufferPool != null ? bufferPool.getNumBuffers() : 0;
+
+		if (numBuffers > 0) {
+			return bufferPool.bestEffortGetNumOfUsedBuffers() / (float) numBuffers;
+		} else {
+			return 0.0f;
+		}
+	}
+
+	/**
+	 * Returns the total time the producer has been blocked waiting for buffers of the buffer pool
+	 * of the partition in a best-effort way, i.e. the time it has been back pressured.
+	 *
+	 * @return blocked time in milliseconds
+	 */
+	long refreshAndGetPoolBlockedTime() {
+		BufferPool bufferPool = partition.getBufferPool();
+		return bufferPool != null ? bufferPool.bestEffortGetRequestBlockedTimeMillis() : 0L;
+	}
+
 	// ------------------------------------------------------------------------
 	//  Gauges to access the stats
 	// ------------------------------------------------------------------------
@@ -154,6 +186,43 @@ public class ResultPartitionMetrics {
 		};
 	}
 
+	private Gauge<Float> getPoolUsageGauge() {
+		return new Gauge<Float>() {
+			@Override
+			public Float getValue() {
+				return refreshAndGetPoolUsage();
+			}
+		};
+	}
+
+	private Gauge<Long> getPoolBlockedTimeGauge() {
+		return new Gauge<Long>() {
+			@Override
+			public Long getValue() {
+				return refreshAndGetPoolBlockedTime();
+			}
+		};
+	}
+
+	private static Gauge<Integer> getSubpartitionQueueLenGauge(final ResultSubpartition subpartition) {
+		return new Gauge<Integer>() {
+			@Override
+			public Integer getValue() {
+				return subpartition.unsynchronizedGetNumberOfQueuedBuffers();
+			}
+		};
+	}
+
+	private static Counter getSubpartitionNumBytesOutCounter(final ResultSubpartition subpartition) {
+		// read-only view of the statistics of the subpartition, like the SumCounter of the TaskIOMetricGroup
+		return new SimpleCounter() {
+			@Override
+			public long getCount() {
+				return subpartition.getTotalNumberOfBytes();
+			}
+		};
+	}
+
 	// ------------------------------------------------------------------------
 	//  Static access
 	// ------------------------------------------------------------------------
@@ -166,4 +235,24 @@ public class ResultPartitionMetrics {
 		group.gauge("maxQueueLen", metrics.getMaxQueueLenGauge());
 		group.gauge("avgQueueLen", metrics.getAvgQueueLenGauge());
 	}
+
+	/**
+	 * Registers the usage of the buffer pool of the partition and the time the producer has been
+	 * blocked on it, and the queue length and throughput of every subpartition in a sub group
+	 * named after the subpartition index.
+	 */
+	public static void registerChannelMetrics(MetricGroup group, ResultPartition partition) {
+		ResultPartitionMetrics metrics = new ResultPartitionMetrics(partition);
+
+		group.gauge("poolUsage", metrics.getPoolUsageGauge());
+		group.gauge("poolBlockedTimeMs", metrics.getPoolBlockedTimeGauge());
+
+		for (ResultSubpartition subpartition : partition.getAllPartitions()) {
+			MetricGroup subpartitionGroup = group.addGroup(subpartition.index);
+
+			subpartitionGroup.gauge("queueLen", getSubpartitionQueueLenGauge(subpartition));
+			Counter numBytesOut = subpartitionGroup.counter("numBytesOut", getSubpartitionNumBytesOutCounter(subpartition));
+			subpartitionGroup.meter("numBytesOutPerSecond", new MeterView(numBytesOut, 60));
+		}
+	}
 }
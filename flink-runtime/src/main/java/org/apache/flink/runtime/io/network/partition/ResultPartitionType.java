@@ -22,6 +22,16 @@ public enum ResultPartitionType {
 
 	BLOCKING(false, false, false),
 
+	/**
+	 * Blocking partitions, which write all their subpartitions into a single file.
+	 *
+	 * The buffers are written in regions, which are sorted by subpartition, and are read back via
+	 * an index of the subpartition offsets in every region. In contrast to {@link #BLOCKING}, which
+	 * writes one file per subpartition, this keeps the number of files and of random reads low for
+	 * shuffles with many producers and consumers.
+	 */
+	BLOCKING_SORTED(false, false, false),
+
 	PIPELINED(true, true, false),
 
 	/**
@@ -22,6 +22,7 @@ import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * A single subpartition of a {@link ResultPartition} instance.
@@ -73,6 +74,24 @@ public abstract class ResultSubpartition {
 
 	abstract public boolean add(Buffer buffer) throws IOException;
 
+	/**
+	 * Returns whether the consumer of this subpartition accepts records as objects, which
+	 * can then be added with {@link #addRecords(List)}.
+	 */
+	public boolean isObjectHandoverRequested() {
+		return false;
+	}
+
+	/**
+	 * Hands over a batch of records as objects to the consumer. After this, no more data
+	 * buffers may be added to this subpartition, only events.
+	 *
+	 * @return Whether the records were added, false if the subpartition is finished or released.
+	 */
+	public boolean addRecords(List<Object> records) throws IOException, InterruptedException {
+		throw new UnsupportedOperationException("The subpartition does not support handing over records as objects.");
+	}
+
 	abstract public void finish() throws IOException;
 
 	abstract public void release() throws IOException;
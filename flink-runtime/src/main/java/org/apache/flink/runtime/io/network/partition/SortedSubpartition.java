@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+
+import java.io.IOException;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A subpartition of a {@link ResultPartitionType#BLOCKING_SORTED} result, which writes its buffers
+ * into the {@link PartitionedSpillFile} shared by all subpartitions of the result.
+ *
+ * <p>Like the {@link SpillableSubpartition}, the subpartition can only be consumed after it has
+ * been finished. The buffers are then read from the file by a {@link SortedSubpartitionView}.
+ */
+class SortedSubpartition extends ResultSubpartition {
+
+	/** The file shared by all subpartitions of the result. */
+	private final PartitionedSpillFile spillFile;
+
+	/** Flag indicating whether the subpartition has been finished. */
+	private boolean isFinished;
+
+	/** Flag indicating whether the subpartition has been released. */
+	private volatile boolean isReleased;
+
+	/** The read view to consume this subpartition. */
+	private ResultSubpartitionView readView;
+
+	SortedSubpartition(int index, ResultPartition parent, PartitionedSpillFile spillFile) {
+		super(index, parent);
+
+		this.spillFile = checkNotNull(spillFile);
+	}
+
+	@Override
+	public synchronized boolean add(Buffer buffer) throws IOException {
+		checkNotNull(buffer);
+
+		if (isFinished || isReleased || !spillFile.add(index, buffer)) {
+			return false;
+		}
+
+		// The number of buffers are needed later when creating the read view.
+		updateStatistics(buffer);
+
+		return true;
+	}
+
+	@Override
+	public synchronized void finish() throws IOException {
+		if (add(EventSerializer.toBuffer(EndOfPartitionEvent.INSTANCE))) {
+			isFinished = true;
+
+			spillFile.finish();
+		}
+	}
+
+	@Override
+	public void release() throws IOException {
+		final ResultSubpartitionView view;
+
+		synchronized (this) {
+			if (isReleased) {
+				return;
+			}
+
+			view = readView;
+			isReleased = true;
+		}
+
+		spillFile.release();
+
+		if (view != null) {
+			view.releaseAllResources();
+		}
+	}
+
+	@Override
+	public synchronized ResultSubpartitionView createReadView(BufferProvider bufferProvider, BufferAvailabilityListener availabilityListener) throws IOException {
+		if (!isFinished) {
+			throw new IllegalStateException("Subpartition has not been finished yet, " +
+				"but blocking subpartitions can only be consumed after they have " +
+				"been finished.");
+		}
+
+		if (readView != null) {
+			throw new IllegalStateException("Subpartition is being or already has been " +
+				"consumed, but we currently allow subpartitions to only be consumed once.");
+		}
+
+		readView = new SortedSubpartitionView(
+			this,
+			bufferProvider.getMemorySegmentSize(),
+			spillFile.getChannelID(),
+			spillFile.getOffsets(index),
+			spillFile.getBufferCounts(index),
+			getTotalNumberOfBuffers(),
+			availabilityListener);
+
+		return readView;
+	}
+
+	@Override
+	int releaseMemory() throws IOException {
+		// writes the buffers of all subpartitions
+		return spillFile.writeRegion();
+	}
+
+	@Override
+	public boolean isReleased() {
+		return isReleased;
+	}
+
+	@Override
+	public int unsynchronizedGetNumberOfQueuedBuffers() {
+		return spillFile.unsynchronizedGetNumberOfBuffers(index);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SortedSubpartition [%d number of buffers (%d bytes)," +
+						"finished? %s, read view? %s]",
+				getTotalNumberOfBuffers(), getTotalNumberOfBytes(), isFinished, readView != null);
+	}
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
+import org.apache.flink.runtime.io.disk.iomanager.FileSegment;
+import org.apache.flink.runtime.io.disk.iomanager.SynchronousBufferFileReader;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.partition.SpilledSubpartitionView.SpillReadBufferPool;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Reader for a {@link SortedSubpartition}, which reads the buffers of the subpartition from every
+ * region of the {@link PartitionedSpillFile}.
+ *
+ * <p>The file has been completely written when the view is created, so the availability listener
+ * is notified about all buffers right away. Reads of the file are done synchronously, with an own
+ * file channel per view. Data buffers can alternatively be returned as segments of the file, which
+ * are transferred without reading them into memory.
+ */
+class SortedSubpartitionView implements FileSegmentSubpartitionView {
+
+	/** The subpartition this view belongs to. */
+	private final SortedSubpartition parent;
+
+	/** The synchronous file reader to do the actual I/O. */
+	private final SynchronousBufferFileReader fileReader;
+
+	/** The buffer pool to read data into. */
+	private final SpillReadBufferPool bufferPool;
+
+	/** The file offsets of the subpartition in the regions of the file. */
+	private final long[] regionOffsets;
+
+	/** The number of buffers of the subpartition in the regions of the file. */
+	private final int[] regionBufferCounts;
+
+	/** The total number of buffers of the subpartition. */
+	private final long numberOfBuffers;
+
+	/** The region which is currently read. */
+	private int currentRegion = -1;
+
+	/** The number of buffers which are left to read in the current region. */
+	private int numberOfRemainingBuffersInRegion;
+
+	/** Flag indicating whether all resources have been released. */
+	private final AtomicBoolean isReleased = new AtomicBoolean();
+
+	SortedSubpartitionView(
+		SortedSubpartition parent,
+		int memorySegmentSize,
+		FileIOChannel.ID channelID,
+		long[] regionOffsets,
+		int[] regionBufferCounts,
+		long numberOfBuffers,
+		BufferAvailabilityListener availabilityListener) throws IOException {
+
+		checkArgument(regionOffsets.length == regionBufferCounts.length);
+		checkArgument(numberOfBuffers >= 0);
+
+		this.parent = checkNotNull(parent);
+		this.fileReader = new SynchronousBufferFileReader(channelID, false);
+		this.bufferPool = new SpillReadBufferPool(2, memorySegmentSize);
+		this.regionOffsets = regionOffsets;
+		this.regionBufferCounts = regionBufferCounts;
+		this.numberOfBuffers = numberOfBuffers;
+
+		availabilityListener.notifyBuffersAvailable(numberOfBuffers);
+	}
+
+	@Override
+	public Buffer getNextBuffer() throws IOException, InterruptedException {
+		if (!seekToNextBuffer()) {
+			return null;
+		}
+
+		// Like the SpilledSubpartitionView, this expects that multiple calls to
+		// this method don't happen before recycling buffers returned earlier.
+		Buffer buffer = bufferPool.requestBufferBlocking();
+		if (buffer == null) {
+			// released
+			return null;
+		}
+
+		fileReader.readInto(buffer);
+		numberOfRemainingBuffersInRegion--;
+
+		return buffer;
+	}
+
+	@Override
+	public FileSegment getNextFileSegment() throws IOException {
+		if (!seekToNextBuffer()) {
+			return null;
+		}
+
+		FileSegment segment = fileReader.getNextBufferSegment();
+		if (segment != null) {
+			numberOfRemainingBuffersInRegion--;
+		}
+
+		return segment;
+	}
+
+	/**
+	 * Moves the file reader to the next region with buffers of the subpartition, unless there
+	 * are buffers left in the current region.
+	 *
+	 * @return Whether there is a buffer left to read.
+	 */
+	private boolean seekToNextBuffer() throws IOException {
+		while (numberOfRemainingBuffersInRegion == 0) {
+			if (currentRegion + 1 == regionOffsets.length) {
+				return false;
+			}
+
+			currentRegion++;
+			numberOfRemainingBuffersInRegion = regionBufferCounts[currentRegion];
+
+			if (numberOfRemainingBuffersInRegion > 0) {
+				fileReader.seekToPosition(regionOffsets[currentRegion]);
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public void notifyBuffersAvailable(long buffers) throws IOException {
+		// We notify the availability listener about all buffers on construction.
+	}
+
+	@Override
+	public void notifySubpartitionConsumed() throws IOException {
+		parent.onConsumedSubpartition();
+	}
+
+	@Override
+	public void releaseAllResources() throws IOException {
+		if (isReleased.compareAndSet(false, true)) {
+			fileReader.close();
+			bufferPool.destroy();
+		}
+	}
+
+	@Override
+	public boolean isReleased() {
+		return parent.isReleased() || isReleased.get();
+	}
+
+	@Override
+	public Throwable getFailureCause() {
+		return parent.getFailureCause();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SortedSubpartitionView(index: %d, buffers: %d, regions: %d) of ResultPartition %s",
+			parent.index,
+			numberOfBuffers,
+			regionOffsets.length,
+			parent.parent.getPartitionId());
+	}
+}
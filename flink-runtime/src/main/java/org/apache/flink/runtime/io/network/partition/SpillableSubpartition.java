@@ -20,6 +20,7 @@ package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.runtime.io.disk.iomanager.BufferFileWriter;
+import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
@@ -67,6 +68,9 @@ class SpillableSubpartition extends ResultSubpartition {
 	/** The I/O manager used for spilling buffers to disk. */
 	private final IOManager ioManager;
 
+	/** Whether to compress the spilled buffers. */
+	private final boolean compressSpilledBuffers;
+
 	/** The writer used for spilling. As long as this is null, we are in-memory. */
 	private BufferFileWriter spillWriter;
 
@@ -80,9 +84,14 @@ class SpillableSubpartition extends ResultSubpartition {
 	private ResultSubpartitionView readView;
 
 	SpillableSubpartition(int index, ResultPartition parent, IOManager ioManager) {
+		this(index, parent, ioManager, false);
+	}
+
+	SpillableSubpartition(int index, ResultPartition parent, IOManager ioManager, boolean compressSpilledBuffers) {
 		super(index, parent);
 
 		this.ioManager = checkNotNull(ioManager);
+		this.compressSpilledBuffers = compressSpilledBuffers;
 	}
 
 	@Override
@@ -188,7 +197,6 @@ class SpillableSubpartition extends ResultSubpartition {
 				readView = new SpillableSubpartitionView(
 					this,
 					buffers,
-					ioManager,
 					bufferProvider.getMemorySegmentSize(),
 					availabilityListener);
 			}
@@ -197,6 +205,17 @@ class SpillableSubpartition extends ResultSubpartition {
 		}
 	}
 
+	/**
+	 * Creates a writer to spill the buffers of this subpartition to disk.
+	 */
+	BufferFileWriter createSpillWriter() throws IOException {
+		FileIOChannel.ID channel = ioManager.createChannel();
+
+		return compressSpilledBuffers
+			? ioManager.createBufferFileWriter(channel, true)
+			: ioManager.createBufferFileWriter(channel);
+	}
+
 	@Override
 	public int releaseMemory() throws IOException {
 		synchronized (buffers) {
@@ -209,7 +228,7 @@ class SpillableSubpartition extends ResultSubpartition {
 				return spillableView.releaseMemory();
 			} else if (spillWriter == null) {
 				// No view and in-memory => spill to disk
-				spillWriter = ioManager.createBufferFileWriter(ioManager.createChannel());
+				spillWriter = createSpillWriter();
 
 				int numberOfBuffers = buffers.size();
 				long spilledBytes = 0;
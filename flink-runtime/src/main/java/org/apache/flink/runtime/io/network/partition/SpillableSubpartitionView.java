@@ -19,7 +19,6 @@
 package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.runtime.io.disk.iomanager.BufferFileWriter;
-import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,9 +39,6 @@ class SpillableSubpartitionView implements ResultSubpartitionView {
 	/** All buffers of this subpartition. Access to the buffers is synchronized on this object. */
 	private final ArrayDeque<Buffer> buffers;
 
-	/** IO manager if we need to spill (for spilled case). */
-	private final IOManager ioManager;
-
 	/** Size of memory segments (for spilled case). */
 	private final int memorySegmentSize;
 
@@ -69,13 +65,11 @@ class SpillableSubpartitionView implements ResultSubpartitionView {
 	SpillableSubpartitionView(
 		SpillableSubpartition parent,
 		ArrayDeque<Buffer> buffers,
-		IOManager ioManager,
 		int memorySegmentSize,
 		BufferAvailabilityListener listener) {
 
 		this.parent = checkNotNull(parent);
 		this.buffers = checkNotNull(buffers);
-		this.ioManager = checkNotNull(ioManager);
 		this.memorySegmentSize = memorySegmentSize;
 		this.listener = checkNotNull(listener);
 
@@ -100,7 +94,7 @@ class SpillableSubpartitionView implements ResultSubpartitionView {
 				// it be recycled.
 
 				// Create the spill writer and write all buffers to disk
-				BufferFileWriter spillWriter = ioManager.createBufferFileWriter(ioManager.createChannel());
+				BufferFileWriter spillWriter = parent.createSpillWriter();
 
 				long spilledBytes = 0;
 
@@ -20,8 +20,8 @@ package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
-import org.apache.flink.runtime.io.disk.iomanager.BufferFileReader;
 import org.apache.flink.runtime.io.disk.iomanager.BufferFileWriter;
+import org.apache.flink.runtime.io.disk.iomanager.FileSegment;
 import org.apache.flink.runtime.io.disk.iomanager.SynchronousBufferFileReader;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
@@ -44,9 +44,10 @@ import static org.apache.flink.util.Preconditions.checkNotNull;
  * only when the spilling is done. Spilling is done async and if it is still
  * in progress, we wait with the notification until the spilling is done.
  *
- * <p>Reads of the spilled file are done in synchronously.
+ * <p>Reads of the spilled file are done in synchronously. Data buffers can alternatively be
+ * returned as segments of the file, which are transferred without reading them into memory.
  */
-class SpilledSubpartitionView implements ResultSubpartitionView, NotificationListener {
+class SpilledSubpartitionView implements FileSegmentSubpartitionView, NotificationListener {
 
 	private static final Logger LOG = LoggerFactory.getLogger(SpilledSubpartitionView.class);
 
@@ -57,7 +58,7 @@ class SpilledSubpartitionView implements ResultSubpartitionView, NotificationLis
 	private final BufferFileWriter spillWriter;
 
 	/** The synchronous file reader to do the actual I/O. */
-	private final BufferFileReader fileReader;
+	private final SynchronousBufferFileReader fileReader;
 
 	/** The buffer pool to read data into. */
 	private final SpillReadBufferPool bufferPool;
@@ -127,6 +128,15 @@ class SpilledSubpartitionView implements ResultSubpartitionView, NotificationLis
 		return buffer;
 	}
 
+	@Override
+	public FileSegment getNextFileSegment() throws IOException {
+		if (fileReader.hasReachedEndOfFile() || isSpillInProgress) {
+			return null;
+		}
+
+		return fileReader.getNextBufferSegment();
+	}
+
 	@Override
 	public void notifyBuffersAvailable(long buffers) throws IOException {
 		// We do the availability listener notification either directly on
@@ -178,7 +188,7 @@ class SpilledSubpartitionView implements ResultSubpartitionView, NotificationLis
 	 * <p>This pool ensures that a consuming input gate makes progress in all cases, even when all
 	 * buffers of the input gate buffer pool have been requested by remote input channels.
 	 */
-	private static class SpillReadBufferPool implements BufferRecycler {
+	static class SpillReadBufferPool implements BufferRecycler {
 
 		private final Queue<Buffer> buffers;
 
@@ -206,7 +216,7 @@ class SpilledSubpartitionView implements ResultSubpartitionView, NotificationLis
 			}
 		}
 
-		private Buffer requestBufferBlocking() throws InterruptedException {
+		Buffer requestBufferBlocking() throws InterruptedException {
 			synchronized (buffers) {
 				while (true) {
 					if (isDestroyed) {
@@ -224,7 +234,7 @@ class SpilledSubpartitionView implements ResultSubpartitionView, NotificationLis
 			}
 		}
 
-		private void destroy() {
+		void destroy() {
 			synchronized (buffers) {
 				isDestroyed = true;
 				buffers.notifyAll();
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.util.MathUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A bounded, lock-free queue for a single producer and a single consumer.
+ *
+ * <p>The producer only writes the tail index and the consumer only writes the head index, so
+ * neither side needs a lock or a compare-and-swap. Several threads may act as the producer (or
+ * consumer), as long as they are mutually exclusive.
+ *
+ * @param <E> The type of the queued elements.
+ */
+final class SpscArrayQueue<E> {
+
+	private final AtomicReferenceArray<E> elements;
+
+	private final int mask;
+
+	/** The index of the next element to poll, only written by the consumer. */
+	private final AtomicLong head = new AtomicLong();
+
+	/** The index of the next element to offer, only written by the producer. */
+	private final AtomicLong tail = new AtomicLong();
+
+	/** The head as last seen by the producer, to avoid reading it for every element. */
+	private long cachedHead;
+
+	SpscArrayQueue(int capacity) {
+		checkArgument(capacity > 0 && MathUtils.isPowerOf2(capacity), "The capacity must be a power of two.");
+
+		this.elements = new AtomicReferenceArray<>(capacity);
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Adds the element to the queue, if it is not full. Must only be called by the producer.
+	 *
+	 * @return Whether the element was added.
+	 */
+	boolean offer(E element) {
+		checkNotNull(element);
+
+		final long currentTail = tail.get();
+		if (currentTail - cachedHead > mask) {
+			cachedHead = head.get();
+			if (currentTail - cachedHead > mask) {
+				return false;
+			}
+		}
+
+		elements.lazySet((int) currentTail & mask, element);
+		tail.set(currentTail + 1);
+		return true;
+	}
+
+	/**
+	 * Removes the first element of the queue. Must only be called by the consumer.
+	 *
+	 * @return The first element, or <code>null</code> if the queue is empty.
+	 */
+	E poll() {
+		final long currentHead = head.get();
+		if (currentHead == tail.get()) {
+			return null;
+		}
+
+		final int index = (int) currentHead & mask;
+		final E element = elements.get(index);
+		elements.lazySet(index, null);
+		head.set(currentHead + 1);
+		return element;
+	}
+
+	/**
+	 * Returns whether the queue is full, as seen by the calling thread.
+	 */
+	boolean isFull() {
+		return tail.get() - head.get() > mask;
+	}
+
+	/**
+	 * Returns the number of queued elements, as seen by the calling thread.
+	 */
+	int size() {
+		return (int) Math.max(tail.get() - head.get(), 0);
+	}
+
+	int capacity() {
+		return mask + 1;
+	}
+}
@@ -21,12 +21,15 @@ package org.apache.flink.runtime.io.network.partition.consumer;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 
+import java.util.List;
+
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /**
  * Either type for {@link Buffer} or {@link AbstractEvent} instances tagged with the channel index,
- * from which they were received.
+ * from which they were received. Records which a local producer handed over as objects, instead of
+ * serializing them into buffers, are received as a third type.
  */
 public class BufferOrEvent {
 
@@ -34,6 +37,8 @@ public class BufferOrEvent {
 
 	private final AbstractEvent event;
 
+	private final List<Object> records;
+
 	/**
 	 * Indicate availability of further instances for the union input gate.
 	 * This is not needed outside of the input gate unioning logic and cannot
@@ -46,6 +51,7 @@ public class BufferOrEvent {
 	BufferOrEvent(Buffer buffer, int channelIndex, boolean moreAvailable) {
 		this.buffer = checkNotNull(buffer);
 		this.event = null;
+		this.records = null;
 		this.channelIndex = channelIndex;
 		this.moreAvailable = moreAvailable;
 	}
@@ -53,6 +59,15 @@ public class BufferOrEvent {
 	BufferOrEvent(AbstractEvent event, int channelIndex, boolean moreAvailable) {
 		this.buffer = null;
 		this.event = checkNotNull(event);
+		this.records = null;
+		this.channelIndex = channelIndex;
+		this.moreAvailable = moreAvailable;
+	}
+
+	BufferOrEvent(List<Object> records, int channelIndex, boolean moreAvailable) {
+		this.buffer = null;
+		this.event = null;
+		this.records = checkNotNull(records);
 		this.channelIndex = channelIndex;
 		this.moreAvailable = moreAvailable;
 	}
@@ -65,6 +80,10 @@ public class BufferOrEvent {
 		this(event, channelIndex, true);
 	}
 
+	public BufferOrEvent(List<Object> records, int channelIndex) {
+		this(records, channelIndex, true);
+	}
+
 	public boolean isBuffer() {
 		return buffer != null;
 	}
@@ -73,6 +92,13 @@ public class BufferOrEvent {
 		return event != null;
 	}
 
+	/**
+	 * Returns whether this holds records, which were handed over as objects.
+	 */
+	public boolean isRecords() {
+		return records != null;
+	}
+
 	public Buffer getBuffer() {
 		return buffer;
 	}
@@ -81,6 +107,10 @@ public class BufferOrEvent {
 		return event;
 	}
 
+	public List<Object> getRecords() {
+		return records;
+	}
+
 	public int getChannelIndex() {
 		return channelIndex;
 	}
@@ -97,6 +127,6 @@ public class BufferOrEvent {
 	@Override
 	public String toString() {
 		return String.format("BufferOrEvent [%s, channelIndex = %d]",
-				isBuffer() ? buffer : event, channelIndex);
+				isBuffer() ? buffer : isEvent() ? event : records.size() + " records", channelIndex);
 	}
 }
@@ -26,6 +26,7 @@ import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
@@ -63,6 +64,9 @@ public abstract class InputChannel {
 
 	protected final Counter numBytesIn;
 
+	/** The total number of bytes received by this channel, read by the metrics in a best-effort way. */
+	private long totalNumberOfBytes;
+
 	/** The current backoff (in ms) */
 	private int currentBackoff;
 
@@ -100,6 +104,20 @@ public abstract class InputChannel {
 		return channelIndex;
 	}
 
+	/**
+	 * Returns the total number of bytes consumed from this channel in a best-effort way.
+	 */
+	long unsynchronizedGetTotalNumberOfBytes() {
+		return totalNumberOfBytes;
+	}
+
+	/**
+	 * Returns the number of buffers queued for consumption in this channel in a best-effort way.
+	 */
+	int unsynchronizedGetNumberOfQueuedBuffers() {
+		return 0;
+	}
+
 	/**
 	 * Notifies the owning {@link SingleInputGate} that this channel became non-empty.
 	 * 
@@ -134,6 +152,14 @@ public abstract class InputChannel {
 	 */
 	abstract BufferAndAvailability getNextBuffer() throws IOException, InterruptedException;
 
+	/**
+	 * Counts the bytes of a consumed buffer, for the task and for this channel.
+	 */
+	protected void updateStatistics(Buffer buffer) {
+		numBytesIn.inc(buffer.getSize());
+		totalNumberOfBytes += buffer.getSize();
+	}
+
 	// ------------------------------------------------------------------------
 	// Task events
 	// ------------------------------------------------------------------------
@@ -238,22 +264,41 @@ public abstract class InputChannel {
 	// ------------------------------------------------------------------------
 
 	/**
-	 * A combination of a {@link Buffer} and a flag indicating availability of further buffers.
+	 * A combination of a {@link Buffer} or a batch of records handed over as objects, and a
+	 * flag indicating availability of further buffers.
 	 */
 	public static final class BufferAndAvailability {
 
 		private final Buffer buffer;
+		private final List<Object> records;
 		private final boolean moreAvailable;
 
 		public BufferAndAvailability(Buffer buffer, boolean moreAvailable) {
 			this.buffer = checkNotNull(buffer);
+			this.records = null;
 			this.moreAvailable = moreAvailable;
 		}
 
+		public BufferAndAvailability(List<Object> records, boolean moreAvailable) {
+			this.buffer = null;
+			this.records = checkNotNull(records);
+			this.moreAvailable = moreAvailable;
+		}
+
+		/**
+		 * Returns the buffer, or <code>null</code> for records.
+		 */
 		public Buffer buffer() {
 			return buffer;
 		}
 
+		/**
+		 * Returns the records handed over as objects, or <code>null</code> for a buffer.
+		 */
+		public List<Object> records() {
+			return records;
+		}
+
 		public boolean moreAvailable() {
 			return moreAvailable;
 		}
@@ -18,6 +18,7 @@
 
 package org.apache.flink.runtime.io.network.partition.consumer;
 
+import org.apache.flink.runtime.concurrent.Future;
 import org.apache.flink.runtime.event.TaskEvent;
 
 import java.io.IOException;
@@ -74,6 +75,23 @@ public interface InputGate {
 
 	BufferOrEvent getNextBufferOrEvent() throws IOException, InterruptedException;
 
+	/**
+	 * Returns the next buffer or event, if one is available right now, without blocking.
+	 *
+	 * @return The next buffer or event, or <tt>null</tt>, if none is available right now or the
+	 * gate is finished (see {@link #isFinished()}).
+	 */
+	BufferOrEvent pollNextBufferOrEvent() throws IOException, InterruptedException;
+
+	/**
+	 * Returns a future, which is completed once a buffer or event is available, or the gate is
+	 * released. The returned future is already completed, if data is available right now.
+	 *
+	 * <p>In contrast to the {@link InputGateListener}, any number of consumers may wait on the
+	 * future, which allows consumers to wait for input and other work at the same time.
+	 */
+	Future<Void> getAvailableFuture();
+
 	void sendTaskEvent(TaskEvent event) throws IOException;
 
 	void registerListener(InputGateListener listener);
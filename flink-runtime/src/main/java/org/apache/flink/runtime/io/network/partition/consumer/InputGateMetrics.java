@@ -18,10 +18,18 @@
 
 package org.apache.flink.runtime.io.network.partition.consumer;
 
+import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MeterView;
 import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.runtime.io.network.buffer.BufferPool;
+import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -133,6 +141,46 @@ public class InputGateMetrics {
 		return total / (float) count;
 	}
 
+	/**
+	 * Returns the number of queued buffers of the channel consuming the given partition in a
+	 * best-effort way. The channel is looked up on every call, because unknown channels are
+	 * replaced once the location of the producer is known.
+	 *
+	 * @return number of queued buffers of the channel (<tt>0</tt> if the channel does not exist)
+	 */
+	int refreshAndGetQueueLen(IntermediateResultPartitionID partitionId) {
+		InputChannel channel = inputGate.getInputChannels().get(partitionId);
+		return channel != null ? channel.unsynchronizedGetNumberOfQueuedBuffers() : 0;
+	}
+
+	/**
+	 * Returns the total number of bytes consumed from the channel consuming the given partition
+	 * in a best-effort way.
+	 *
+	 * @return number of consumed bytes of the channel (<tt>0</tt> if the channel does not exist)
+	 */
+	long refreshAndGetNumBytesIn(IntermediateResultPartitionID partitionId) {
+		InputChannel channel = inputGate.getInputChannels().get(partitionId);
+		return channel != null ? channel.unsynchronizedGetTotalNumberOfBytes() : 0;
+	}
+
+	/**
+	 * Returns the fraction of used buffers of the buffer pool of the input gate in a best-effort
+	 * way.
+	 *
+	 * @return usage of the buffer pool (<tt>0</tt> if the pool has no buffers)
+	 */
+	float refreshAndGetPoolUsage() {
+		BufferPool bufferPool = inputGate.getBufferPool();
+		int numBuffers = bufferPool != null ? bufferPool.getNumBuffers() : 0;
+
+		if (numBuffers > 0) {
+			return bufferPool.bestEffortGetNumOfUsedBuffers() / (float) numBuffers;
+		} else {
+			return 0.0f;
+		}
+	}
+
 	// ------------------------------------------------------------------------
 	//  Gauges to access the stats
 	// ------------------------------------------------------------------------
@@ -173,6 +221,34 @@ public class InputGateMetrics {
 		};
 	}
 
+	private Gauge<Integer> getChannelQueueLenGauge(final IntermediateResultPartitionID partitionId) {
+		return new Gauge<Integer>() {
+			@Override
+			public Integer getValue() {
+				return refreshAndGetQueueLen(partitionId);
+			}
+		};
+	}
+
+	private Counter getChannelNumBytesInCounter(final IntermediateResultPartitionID partitionId) {
+		// read-only view of the statistics of the channel, like the SumCounter of the TaskIOMetricGroup
+		return new SimpleCounter() {
+			@Override
+			public long getCount() {
+				return refreshAndGetNumBytesIn(partitionId);
+			}
+		};
+	}
+
+	private Gauge<Float> getPoolUsageGauge() {
+		return new Gauge<Float>() {
+			@Override
+			public Float getValue() {
+				return refreshAndGetPoolUsage();
+			}
+		};
+	}
+
 	// ------------------------------------------------------------------------
 	//  Static access
 	// ------------------------------------------------------------------------
@@ -185,4 +261,27 @@ public class InputGateMetrics {
 		group.gauge("maxQueueLen", metrics.getMaxQueueLenGauge());
 		group.gauge("avgQueueLen", metrics.getAvgQueueLenGauge());
 	}
+
+	/**
+	 * Registers the usage of the buffer pool of the gate, and the queue length and throughput of
+	 * every input channel in a sub group named after the channel index.
+	 */
+	public static void registerChannelMetrics(MetricGroup group, SingleInputGate gate) {
+		InputGateMetrics metrics = new InputGateMetrics(gate);
+
+		group.gauge("poolUsage", metrics.getPoolUsageGauge());
+
+		// copy the channels, as the map is modified when unknown channels are replaced
+		List<Map.Entry<IntermediateResultPartitionID, InputChannel>> channels =
+			new ArrayList<>(gate.getInputChannels().entrySet());
+
+		for (Map.Entry<IntermediateResultPartitionID, InputChannel> channel : channels) {
+			MetricGroup channelGroup = group.addGroup(channel.getValue().getChannelIndex());
+			IntermediateResultPartitionID partitionId = channel.getKey();
+
+			channelGroup.gauge("queueLen", metrics.getChannelQueueLenGauge(partitionId));
+			Counter numBytesIn = channelGroup.counter("numBytesIn", metrics.getChannelNumBytesInCounter(partitionId));
+			channelGroup.meter("numBytesInPerSecond", new MeterView(numBytesIn, 60));
+		}
+	}
 }
@@ -23,6 +23,7 @@ import org.apache.flink.runtime.execution.CancelTaskException;
 import org.apache.flink.runtime.io.network.TaskEventDispatcher;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.partition.BufferAvailabilityListener;
+import org.apache.flink.runtime.io.network.partition.ObjectHandoverSubpartitionView;
 import org.apache.flink.runtime.io.network.partition.PartitionNotFoundException;
 import org.apache.flink.runtime.io.network.partition.ProducerFailedException;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
@@ -33,6 +34,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicLong;
@@ -42,6 +44,10 @@ import static org.apache.flink.util.Preconditions.checkState;
 
 /**
  * An input channel, which requests a local subpartition.
+ *
+ * <p>If enabled at the input gate, the channel requests the producer to hand over records as
+ * objects, which skips their serialization. Subpartitions which do not support this keep
+ * sending buffers.
  */
 public class LocalInputChannel extends InputChannel implements BufferAvailabilityListener {
 
@@ -63,6 +69,12 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
 	/** The consumed subpartition */
 	private volatile ResultSubpartitionView subpartitionView;
 
+	/**
+	 * Flag indicating whether the channel requested records as objects. Set before the
+	 * subpartition view becomes visible.
+	 */
+	private boolean isObjectHandoverRequested;
+
 	private volatile boolean isReleased;
 
 	public LocalInputChannel(
@@ -119,6 +131,11 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
 						throw new IOException("Error requesting subpartition.");
 					}
 
+					if (inputGate.isObjectHandoverEnabled() && subpartitionView instanceof ObjectHandoverSubpartitionView) {
+						((ObjectHandoverSubpartitionView) subpartitionView).requestObjectHandover();
+						isObjectHandoverRequested = true;
+					}
+
 					// make the subpartition view visible
 					this.subpartitionView = subpartitionView;
 
@@ -179,7 +196,9 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
 			subpartitionView = checkAndWaitForSubpartitionView();
 		}
 
-		Buffer next = subpartitionView.getNextBuffer();
+		final Object next = isObjectHandoverRequested
+			? ((ObjectHandoverSubpartitionView) subpartitionView).getNextBufferOrRecords()
+			: subpartitionView.getNextBuffer();
 
 		if (next == null) {
 			if (subpartitionView.isReleased()) {
@@ -195,8 +214,15 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
 		long remaining = numBuffersAvailable.decrementAndGet();
 
 		if (remaining >= 0) {
-			numBytesIn.inc(next.getSize());
-			return new BufferAndAvailability(next, remaining > 0);
+			if (next instanceof Buffer) {
+				Buffer buffer = (Buffer) next;
+				updateStatistics(buffer);
+				return new BufferAndAvailability(buffer, remaining > 0);
+			} else {
+				@SuppressWarnings("unchecked")
+				List<Object> records = (List<Object>) next;
+				return new BufferAndAvailability(records, remaining > 0);
+			}
 		} else if (subpartitionView.isReleased()) {
 			throw new ProducerFailedException(subpartitionView.getFailureCause());
 		} else {
@@ -212,6 +238,11 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
 		}
 	}
 
+	@Override
+	int unsynchronizedGetNumberOfQueuedBuffers() {
+		return (int) Math.max(0, Math.min(Integer.MAX_VALUE, numBuffersAvailable.get()));
+	}
+
 	private ResultSubpartitionView checkAndWaitForSubpartitionView() {
 		// synchronizing on the request lock means this blocks until the asynchronous request
 		// for the partition view has been completed
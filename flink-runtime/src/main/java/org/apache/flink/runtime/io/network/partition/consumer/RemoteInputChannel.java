@@ -18,27 +18,41 @@
 
 package org.apache.flink.runtime.io.network.partition.consumer;
 
+import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.io.network.ConnectionID;
 import org.apache.flink.runtime.io.network.ConnectionManager;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
 import org.apache.flink.runtime.io.network.netty.PartitionRequestClient;
 import org.apache.flink.runtime.io.network.partition.PartitionNotFoundException;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
+import org.apache.flink.runtime.util.event.EventListener;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 import static org.apache.flink.util.Preconditions.checkState;
 
 /**
  * An input channel, which requests a remote partition queue.
+ *
+ * <p>With credit-based flow control, the channel owns a fixed number of exclusive buffers and
+ * announces the buffers it can receive data into as credit to the producer, which only sends
+ * as many buffers as it has credit for. If the backlog announced by the producer exceeds the
+ * credit, the channel additionally requests floating buffers from the input gate's buffer pool.
+ * Received data is thus never waiting for a buffer in the shared TCP connection.
  */
-public class RemoteInputChannel extends InputChannel {
+public class RemoteInputChannel extends InputChannel implements BufferRecycler, EventListener<Buffer> {
 
 	/** ID to distinguish this channel from other channels sharing the same TCP connection. */
 	private final InputChannelID id = new InputChannelID();
@@ -70,6 +84,24 @@ public class RemoteInputChannel extends InputChannel {
 	 */
 	private int expectedSequenceNumber = 0;
 
+	/**
+	 * The buffers available for receiving data, i.e. exclusive buffers and requested floating
+	 * buffers, guarded by itself. All of them have been or will be announced as credit.
+	 */
+	private final ArrayDeque<Buffer> availableBuffers = new ArrayDeque<>();
+
+	/** The credit that has not been announced to the producer yet. */
+	private final AtomicInteger unannouncedCredit = new AtomicInteger();
+
+	/** The number of exclusive buffers, which is the initial credit, or 0 without credit-based flow control. */
+	private int initialCredit;
+
+	/** The number of available buffers needed for the last announced backlog, guarded by {@link #availableBuffers}. */
+	private int numRequiredBuffers;
+
+	/** Whether the channel waits for a floating buffer from the buffer pool, guarded by {@link #availableBuffers}. */
+	private boolean isWaitingForFloatingBuffers;
+
 	public RemoteInputChannel(
 		SingleInputGate inputGate,
 		int channelIndex,
@@ -144,7 +176,7 @@ public class RemoteInputChannel extends InputChannel {
 			remaining = receivedBuffers.size();
 		}
 
-		numBytesIn.inc(next.getSize());
+		updateStatistics(next);
 		return new BufferAndAvailability(next, remaining > 0);
 	}
 
@@ -189,6 +221,18 @@ public class RemoteInputChannel extends InputChannel {
 				}
 			}
 
+			// Exclusive buffers go back to the network buffer pool, floating buffers
+			// to the buffer pool of the input gate, see recycle(MemorySegment). They are
+			// recycled outside of the lock to not interleave with the buffer pool's lock.
+			final List<Buffer> buffersToRecycle;
+			synchronized (availableBuffers) {
+				buffersToRecycle = new ArrayList<>(availableBuffers);
+				availableBuffers.clear();
+			}
+			for (Buffer buffer : buffersToRecycle) {
+				buffer.recycle();
+			}
+
 			// The released flag has to be set before closing the connection to ensure that
 			// buffers received concurrently with closing are properly recycled.
 			if (partitionRequestClient != null) {
@@ -218,6 +262,7 @@ public class RemoteInputChannel extends InputChannel {
 		}
 	}
 
+	@Override
 	public int unsynchronizedGetNumberOfQueuedBuffers() {
 		return Math.max(0, receivedBuffers.size());
 	}
@@ -235,6 +280,17 @@ public class RemoteInputChannel extends InputChannel {
 	}
 
 	public void onBuffer(Buffer buffer, int sequenceNumber) {
+		onBuffer(buffer, sequenceNumber, -1);
+	}
+
+	/**
+	 * Handles a received buffer.
+	 *
+	 * @param buffer The received buffer.
+	 * @param sequenceNumber The sequence number of the buffer.
+	 * @param backlog The number of buffers queued at the producer after this one, or -1 if unknown.
+	 */
+	public void onBuffer(Buffer buffer, int sequenceNumber, int backlog) {
 		boolean success = false;
 
 		try {
@@ -261,6 +317,10 @@ public class RemoteInputChannel extends InputChannel {
 				buffer.recycle();
 			}
 		}
+
+		if (success && backlog >= 0 && isCreditBased()) {
+			onSenderBacklog(backlog);
+		}
 	}
 
 	public void onEmptyBuffer(int sequenceNumber) {
@@ -275,6 +335,212 @@ public class RemoteInputChannel extends InputChannel {
 		}
 	}
 
+	// ------------------------------------------------------------------------
+	// Credit-based flow control
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Assigns the exclusive buffers of this channel and enables credit-based flow control.
+	 * Must be called before requesting the subpartition.
+	 */
+	void assignExclusiveSegments(List<MemorySegment> segments) {
+		checkState(initialCredit == 0, "Bug in input channel setup logic: exclusive buffers have " +
+			"already been set for this input channel.");
+		checkArgument(!segments.isEmpty(), "The number of exclusive buffers must be positive.");
+
+		synchronized (availableBuffers) {
+			for (MemorySegment segment : segments) {
+				availableBuffers.add(new Buffer(segment, this));
+			}
+			initialCredit = segments.size();
+			numRequiredBuffers = segments.size();
+		}
+	}
+
+	/**
+	 * Returns whether this channel uses credit-based flow control.
+	 */
+	public boolean isCreditBased() {
+		return initialCredit > 0;
+	}
+
+	/**
+	 * Returns the credit announced with the partition request, i.e. the number of exclusive
+	 * buffers, or 0 without credit-based flow control.
+	 */
+	public int getInitialCredit() {
+		return initialCredit;
+	}
+
+	/**
+	 * Returns the credit not announced to the producer yet and resets it, as it is going to be
+	 * announced by the caller.
+	 */
+	public int getAndResetUnannouncedCredit() {
+		return unannouncedCredit.getAndSet(0);
+	}
+
+	/**
+	 * Returns the number of buffers available for receiving data.
+	 */
+	public int getNumberOfAvailableBuffers() {
+		synchronized (availableBuffers) {
+			return availableBuffers.size();
+		}
+	}
+
+	/**
+	 * Takes a buffer to receive data into, for which credit has been announced before.
+	 *
+	 * @return The buffer, or <tt>null</tt> if the channel has been released.
+	 */
+	public Buffer requestBuffer() {
+		synchronized (availableBuffers) {
+			if (isReleased.get()) {
+				return null;
+			}
+
+			Buffer buffer = availableBuffers.poll();
+			checkState(buffer != null, "Received a buffer without having announced credit for it.");
+			return buffer;
+		}
+	}
+
+	/**
+	 * Requests floating buffers from the buffer pool of the input gate, so that the channel
+	 * can receive the backlog of the producer in addition to the exclusive buffers, and
+	 * announces them as credit. Called by the network I/O thread.
+	 *
+	 * <p>The buffer pool is called without holding the lock of the available buffers, as the
+	 * buffer pool calls {@link #onEvent(Buffer)} while holding its own lock.
+	 */
+	void onSenderBacklog(int backlog) {
+		final BufferPool bufferPool = inputGate.getBufferPool();
+		int numRequestedBuffers = 0;
+
+		synchronized (availableBuffers) {
+			numRequiredBuffers = backlog + initialCredit;
+		}
+
+		try {
+			while (true) {
+				synchronized (availableBuffers) {
+					if (isReleased.get() || isWaitingForFloatingBuffers
+							|| availableBuffers.size() >= numRequiredBuffers) {
+						break;
+					}
+					// set before registering, as the listener might be notified right away
+					isWaitingForFloatingBuffers = true;
+				}
+
+				Buffer buffer = bufferPool.requestBuffer();
+				if (buffer != null) {
+					synchronized (availableBuffers) {
+						isWaitingForFloatingBuffers = false;
+
+						if (!isReleased.get()) {
+							availableBuffers.add(buffer);
+							numRequestedBuffers++;
+							buffer = null;
+						}
+					}
+
+					if (buffer != null) {
+						buffer.recycle();
+						break;
+					}
+				} else if (!bufferPool.addListener(this)) {
+					synchronized (availableBuffers) {
+						isWaitingForFloatingBuffers = false;
+					}
+
+					if (bufferPool.isDestroyed()) {
+						break;
+					}
+				} else {
+					break;
+				}
+			}
+		} catch (Throwable t) {
+			synchronized (availableBuffers) {
+				isWaitingForFloatingBuffers = false;
+			}
+
+			// the buffer pool is destroyed after releasing the channel
+			if (!isReleased.get()) {
+				setError(t);
+			}
+		}
+
+		if (numRequestedBuffers > 0) {
+			announceCredit(numRequestedBuffers);
+		}
+	}
+
+	/**
+	 * Receives a floating buffer from the buffer pool of the input gate, which this channel
+	 * waits for. Called by the thread recycling the buffer while holding the pool's lock.
+	 */
+	@Override
+	public void onEvent(Buffer buffer) {
+		if (buffer == null) {
+			// The buffer pool has been destroyed
+			synchronized (availableBuffers) {
+				isWaitingForFloatingBuffers = false;
+			}
+			return;
+		}
+
+		boolean needed = false;
+		synchronized (availableBuffers) {
+			isWaitingForFloatingBuffers = false;
+
+			if (!isReleased.get() && availableBuffers.size() < numRequiredBuffers) {
+				availableBuffers.add(buffer);
+				needed = true;
+			}
+		}
+
+		if (needed) {
+			announceCredit(1);
+		} else {
+			buffer.recycle();
+		}
+	}
+
+	/**
+	 * Takes back an exclusive buffer after its data has been consumed. The buffer is available
+	 * for receiving data again and announced as credit, unless the channel has been released,
+	 * in which case it is returned to the network buffer pool.
+	 */
+	@Override
+	public void recycle(MemorySegment segment) {
+		synchronized (availableBuffers) {
+			if (!isReleased.get()) {
+				availableBuffers.add(new Buffer(segment, this));
+				segment = null;
+			}
+		}
+
+		if (segment == null) {
+			announceCredit(1);
+		} else {
+			inputGate.returnExclusiveSegment(segment);
+		}
+	}
+
+	/**
+	 * Adds unannounced credit and triggers its announcement, unless an announcement is
+	 * already pending and picks up the added credit.
+	 */
+	private void announceCredit(int credit) {
+		final PartitionRequestClient client = partitionRequestClient;
+
+		if (unannouncedCredit.getAndAdd(credit) == 0 && client != null) {
+			client.notifyCreditAvailable(this);
+		}
+	}
+
 	public void onFailedPartitionRequest() {
 		inputGate.triggerPartitionStateCheck(partitionId);
 	}
@@ -19,6 +19,9 @@
 package org.apache.flink.runtime.io.network.partition.consumer;
 
 import org.apache.flink.api.common.JobID;
+import org.apache.flink.runtime.concurrent.Future;
+import org.apache.flink.runtime.concurrent.impl.FlinkCompletableFuture;
+import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.deployment.InputChannelDeploymentDescriptor;
 import org.apache.flink.runtime.deployment.InputGateDeploymentDescriptor;
 import org.apache.flink.runtime.deployment.ResultPartitionLocation;
@@ -31,6 +34,7 @@ import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannel.BufferAndAvailability;
@@ -46,6 +50,7 @@ import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -147,6 +152,15 @@ public class SingleInputGate implements InputGate {
 	 */
 	private BufferPool bufferPool;
 
+	/**
+	 * The global pool of the exclusive buffers of remote input channels, only set with
+	 * credit-based flow control.
+	 */
+	private NetworkBufferPool networkBufferPool;
+
+	/** The number of exclusive buffers per remote input channel. */
+	private int networkBuffersPerChannel;
+
 	private boolean hasReceivedAllEndOfPartitionEvents;
 
 	/** Flag indicating whether partitions have been requested. */
@@ -158,6 +172,15 @@ public class SingleInputGate implements InputGate {
 	/** Registered listener to forward buffer notifications to. */
 	private volatile InputGateListener inputGateListener;
 
+	/**
+	 * Future handed out while no channel has data, completed once a channel has data or the
+	 * gate is released (guarded by {@link #inputChannelsWithData}).
+	 */
+	private FlinkCompletableFuture<Void> availableFuture;
+
+	/** Flag indicating whether local input channels request records as objects. */
+	private volatile boolean isObjectHandoverEnabled;
+
 	private final List<TaskEvent> pendingEvents = new ArrayList<>();
 
 	private int numberOfUninitializedChannels;
@@ -258,8 +281,9 @@ public class SingleInputGate implements InputGate {
 	// ------------------------------------------------------------------------
 
 	public void setBufferPool(BufferPool bufferPool) {
-		// Sanity checks
-		checkArgument(numberOfInputChannels == bufferPool.getNumberOfRequiredMemorySegments(),
+		// Sanity checks, with credit-based flow control the channels have exclusive buffers
+		checkArgument(networkBufferPool != null ||
+				numberOfInputChannels == bufferPool.getNumberOfRequiredMemorySegments(),
 				"Bug in input gate setup logic: buffer pool has not enough guaranteed buffers " +
 						"for this input gate. Input gates require at least as many buffers as " +
 						"there are input channels.");
@@ -270,6 +294,55 @@ public class SingleInputGate implements InputGate {
 		this.bufferPool = checkNotNull(bufferPool);
 	}
 
+	/**
+	 * Lets the local input channels request their producers to hand over records as objects,
+	 * instead of serializing them. The consumer must then be able to process
+	 * {@link BufferOrEvent#getRecords() records}. Must be called before the partitions are requested.
+	 */
+	public void enableObjectHandover() {
+		synchronized (requestLock) {
+			checkState(!requestedPartitionsFlag, "Partitions have already been requested.");
+
+			isObjectHandoverEnabled = true;
+		}
+	}
+
+	boolean isObjectHandoverEnabled() {
+		return isObjectHandoverEnabled;
+	}
+
+	/**
+	 * Assigns exclusive buffers from the given network buffer pool to all remote input channels,
+	 * which enables credit-based flow control. Channels which become remote later get their
+	 * exclusive buffers when they are updated. The buffer pool of this gate then only provides
+	 * the floating buffers, which are shared between the channels.
+	 */
+	public void assignExclusiveSegments(NetworkBufferPool networkBufferPool, int networkBuffersPerChannel) throws IOException {
+		checkArgument(networkBuffersPerChannel > 0, "The number of exclusive buffers per channel must be positive.");
+
+		synchronized (requestLock) {
+			checkState(this.networkBufferPool == null, "Bug in input gate setup logic: exclusive " +
+					"buffers have already been assigned for this input gate.");
+
+			this.networkBufferPool = checkNotNull(networkBufferPool);
+			this.networkBuffersPerChannel = networkBuffersPerChannel;
+
+			for (InputChannel inputChannel : inputChannels.values()) {
+				if (inputChannel.getClass() == RemoteInputChannel.class) {
+					((RemoteInputChannel) inputChannel).assignExclusiveSegments(
+						networkBufferPool.requestMemorySegments(networkBuffersPerChannel));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns an exclusive buffer of a released remote input channel to the network buffer pool.
+	 */
+	void returnExclusiveSegment(MemorySegment segment) {
+		networkBufferPool.recycleMemorySegments(Collections.singletonList(segment));
+	}
+
 	public void setInputChannel(IntermediateResultPartitionID partitionId, InputChannel inputChannel) {
 		synchronized (requestLock) {
 			if (inputChannels.put(checkNotNull(partitionId), checkNotNull(inputChannel)) == null
@@ -304,6 +377,11 @@ public class SingleInputGate implements InputGate {
 				}
 				else if (partitionLocation.isRemote()) {
 					newChannel = unknownChannel.toRemoteInputChannel(partitionLocation.getConnectionId());
+
+					if (networkBufferPool != null) {
+						((RemoteInputChannel) newChannel).assignExclusiveSegments(
+							networkBufferPool.requestMemorySegments(networkBuffersPerChannel));
+					}
 				}
 				else {
 					throw new IllegalStateException("Tried to update unknown channel with unknown channel.");
@@ -395,8 +473,17 @@ public class SingleInputGate implements InputGate {
 		}
 
 		if (released) {
+			final FlinkCompletableFuture<Void> toComplete;
+
 			synchronized (inputChannelsWithData) {
 				inputChannelsWithData.notifyAll();
+
+				toComplete = availableFuture;
+				availableFuture = null;
+			}
+
+			if (toComplete != null) {
+				toComplete.complete(null);
 			}
 		}
 	}
@@ -444,6 +531,29 @@ public class SingleInputGate implements InputGate {
 
 	@Override
 	public BufferOrEvent getNextBufferOrEvent() throws IOException, InterruptedException {
+		return getNextBufferOrEvent(true);
+	}
+
+	@Override
+	public BufferOrEvent pollNextBufferOrEvent() throws IOException, InterruptedException {
+		return getNextBufferOrEvent(false);
+	}
+
+	@Override
+	public Future<Void> getAvailableFuture() {
+		synchronized (inputChannelsWithData) {
+			if (inputChannelsWithData.size() > 0 || isReleased || hasReceivedAllEndOfPartitionEvents) {
+				return FlinkCompletableFuture.completed(null);
+			}
+
+			if (availableFuture == null) {
+				availableFuture = new FlinkCompletableFuture<>();
+			}
+			return availableFuture;
+		}
+	}
+
+	private BufferOrEvent getNextBufferOrEvent(boolean blocking) throws IOException, InterruptedException {
 		if (hasReceivedAllEndOfPartitionEvents) {
 			return null;
 		}
@@ -463,6 +573,10 @@ public class SingleInputGate implements InputGate {
 					throw new IllegalStateException("Released");
 				}
 
+				if (!blocking) {
+					return null;
+				}
+
 				inputChannelsWithData.wait();
 			}
 
@@ -485,6 +599,10 @@ public class SingleInputGate implements InputGate {
 			queueChannel(currentChannel);
 		}
 
+		if (result.records() != null) {
+			return new BufferOrEvent(result.records(), currentChannel.getChannelIndex(), moreAvailable);
+		}
+
 		final Buffer buffer = result.buffer();
 		if (buffer.isBuffer()) {
 			return new BufferOrEvent(buffer, currentChannel.getChannelIndex(), moreAvailable);
@@ -544,6 +662,7 @@ public class SingleInputGate implements InputGate {
 
 	private void queueChannel(InputChannel channel) {
 		int availableChannels;
+		FlinkCompletableFuture<Void> toComplete = null;
 
 		synchronized (inputChannelsWithData) {
 			availableChannels = inputChannelsWithData.size();
@@ -552,9 +671,17 @@ public class SingleInputGate implements InputGate {
 
 			if (availableChannels == 0) {
 				inputChannelsWithData.notifyAll();
+
+				toComplete = availableFuture;
+				availableFuture = null;
 			}
 		}
 
+		// complete outside of the lock, the future may run callbacks directly
+		if (toComplete != null) {
+			toComplete.complete(null);
+		}
+
 		if (availableChannels == 0) {
 			InputGateListener listener = inputGateListener;
 			if (listener != null) {
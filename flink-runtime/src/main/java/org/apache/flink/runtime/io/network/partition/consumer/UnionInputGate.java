@@ -20,6 +20,8 @@ package org.apache.flink.runtime.io.network.partition.consumer;
 
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import org.apache.flink.runtime.concurrent.Future;
+import org.apache.flink.runtime.concurrent.impl.FlinkCompletableFuture;
 import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 
@@ -69,12 +71,30 @@ public class UnionInputGate implements InputGate, InputGateListener {
 	/** Gates, which notified this input gate about available data. */
 	private final ArrayDeque<InputGate> inputGatesWithData = new ArrayDeque<>();
 
+	/** Gates, which are currently not read from (guarded by {@link #inputGatesWithData}). */
+	private final Set<InputGate> suspendedInputGates = Sets.newHashSet();
+
+	/** Suspended gates with available data, re-queued on resume (guarded by {@link #inputGatesWithData}). */
+	private final ArrayDeque<InputGate> parkedInputGates = new ArrayDeque<>();
+
+	/**
+	 * Flag indicating whether suspended gates are temporarily read from nevertheless, e.g. to
+	 * align a checkpoint barrier (guarded by {@link #inputGatesWithData}).
+	 */
+	private boolean suspensionsOverridden;
+
 	/** The total number of input channels across all unioned input gates. */
 	private final int totalNumberOfInputChannels;
 
 	/** Registered listener to forward input gate notifications to. */
 	private volatile InputGateListener inputGateListener;
 
+	/**
+	 * Future handed out while no gate has data, completed once a gate has data (guarded by
+	 * {@link #inputGatesWithData}).
+	 */
+	private FlinkCompletableFuture<Void> availableFuture;
+
 	/**
 	 * A mapping from input gate to (logical) channel index offset. Valid channel indexes go from 0
 	 * (inclusive) to the total number of input channels (exclusive).
@@ -147,6 +167,29 @@ public class UnionInputGate implements InputGate, InputGateListener {
 
 	@Override
 	public BufferOrEvent getNextBufferOrEvent() throws IOException, InterruptedException {
+		return getNextBufferOrEvent(true);
+	}
+
+	@Override
+	public BufferOrEvent pollNextBufferOrEvent() throws IOException, InterruptedException {
+		return getNextBufferOrEvent(false);
+	}
+
+	@Override
+	public Future<Void> getAvailableFuture() {
+		synchronized (inputGatesWithData) {
+			if (inputGatesWithData.size() > 0 || inputGatesWithRemainingData.isEmpty()) {
+				return FlinkCompletableFuture.completed(null);
+			}
+
+			if (availableFuture == null) {
+				availableFuture = new FlinkCompletableFuture<>();
+			}
+			return availableFuture;
+		}
+	}
+
+	private BufferOrEvent getNextBufferOrEvent(boolean blocking) throws IOException, InterruptedException {
 		if (inputGatesWithRemainingData.isEmpty()) {
 			return null;
 		}
@@ -154,16 +197,35 @@ public class UnionInputGate implements InputGate, InputGateListener {
 		// Make sure to request the partitions, if they have not been requested before.
 		requestPartitions();
 
-		final InputGate inputGate;
+		InputGate inputGate;
 		synchronized (inputGatesWithData) {
-			while (inputGatesWithData.size() == 0) {
-				inputGatesWithData.wait();
+			while (true) {
+				while (inputGatesWithData.size() == 0) {
+					if (!blocking) {
+						return null;
+					}
+					inputGatesWithData.wait();
+				}
+
+				inputGate = inputGatesWithData.remove();
+
+				if (!suspensionsOverridden && suspendedInputGates.contains(inputGate)) {
+					// leave the data in the gate, it will be queued again on resume
+					parkedInputGates.add(inputGate);
+				} else {
+					break;
+				}
 			}
-
-			inputGate = inputGatesWithData.remove();
 		}
 
-		final BufferOrEvent bufferOrEvent = inputGate.getNextBufferOrEvent();
+		final BufferOrEvent bufferOrEvent = blocking
+			? inputGate.getNextBufferOrEvent()
+			: inputGate.pollNextBufferOrEvent();
+
+		if (bufferOrEvent == null) {
+			// only possible when polling, the gate was queued before its data arrived
+			return null;
+		}
 
 		if (bufferOrEvent.moreAvailable()) {
 			// this buffer or event was now removed from the non-empty gates queue
@@ -194,6 +256,64 @@ public class UnionInputGate implements InputGate, InputGateListener {
 		return bufferOrEvent;
 	}
 
+	/**
+	 * Stops reading from the given input gate. Data available at the gate stays in its input
+	 * channels, so that the producers are eventually back-pressured, until the gate is resumed
+	 * via {@link #resumeInputGate(InputGate)}.
+	 *
+	 * <p>Note that the caller is responsible for not suspending all gates that still have data.
+	 */
+	public void suspendInputGate(InputGate inputGate) {
+		checkArgument(inputGateToIndexOffsetMap.containsKey(inputGate), "Unknown input gate.");
+
+		synchronized (inputGatesWithData) {
+			suspendedInputGates.add(inputGate);
+		}
+	}
+
+	/**
+	 * Resumes reading from the given input gate, if it has been suspended before.
+	 */
+	public void resumeInputGate(InputGate inputGate) {
+		synchronized (inputGatesWithData) {
+			if (suspendedInputGates.remove(inputGate) && parkedInputGates.remove(inputGate)) {
+				inputGatesWithData.add(inputGate);
+				inputGatesWithData.notifyAll();
+			}
+		}
+
+		completeAvailableFuture();
+	}
+
+	/**
+	 * Temporarily reads from all suspended input gates, without forgetting which gates are
+	 * suspended. Reading stops again on {@link #restoreSuspendedInputGates()}, unless the gate
+	 * has been resumed via {@link #resumeInputGate(InputGate)} in the meantime.
+	 */
+	public void overrideSuspendedInputGates() {
+		synchronized (inputGatesWithData) {
+			suspensionsOverridden = true;
+			if (!parkedInputGates.isEmpty()) {
+				inputGatesWithData.addAll(parkedInputGates);
+				parkedInputGates.clear();
+				inputGatesWithData.notifyAll();
+			}
+		}
+
+		completeAvailableFuture();
+	}
+
+	/**
+	 * Stops reading from the suspended input gates again after
+	 * {@link #overrideSuspendedInputGates()}. Suspended gates that are still queued with data
+	 * are parked again once they are dequeued.
+	 */
+	public void restoreSuspendedInputGates() {
+		synchronized (inputGatesWithData) {
+			suspensionsOverridden = false;
+		}
+	}
+
 	@Override
 	public void sendTaskEvent(TaskEvent event) throws IOException {
 		for (InputGate inputGate : inputGates) {
@@ -250,10 +370,30 @@ public class UnionInputGate implements InputGate, InputGateListener {
 		}
 
 		if (availableInputGates == 0) {
+			completeAvailableFuture();
+
 			InputGateListener listener = inputGateListener;
 			if (listener != null) {
 				listener.notifyInputGateNonEmpty(this);
 			}
 		}
 	}
+
+	private void completeAvailableFuture() {
+		final FlinkCompletableFuture<Void> toComplete;
+
+		synchronized (inputGatesWithData) {
+			if (inputGatesWithData.isEmpty()) {
+				return;
+			}
+
+			toComplete = availableFuture;
+			availableFuture = null;
+		}
+
+		// complete outside of the lock, the future may run callbacks directly
+		if (toComplete != null) {
+			toComplete.complete(null);
+		}
+	}
 }
@@ -118,6 +118,7 @@ public class TaskIOMetricGroup extends ProxyMetricGroup<TaskMetricGroup> {
 		buffers.gauge("outputQueueLength", new OutputBuffersGauge(task));
 		buffers.gauge("inPoolUsage", new InputBufferPoolUsageGauge(task));
 		buffers.gauge("outPoolUsage", new OutputBufferPoolUsageGauge(task));
+		buffers.gauge("outPoolBlockedTimeMs", new OutputBufferPoolBlockedTimeGauge(task));
 	}
 
 	/**
@@ -224,6 +225,30 @@ public class TaskIOMetricGroup extends ProxyMetricGroup<TaskMetricGroup> {
 		}
 	}
 
+	/**
+	 * Gauge measuring the total time a task has been blocked waiting for output buffers, i.e. the
+	 * time it has been back pressured.
+	 */
+	private static final class OutputBufferPoolBlockedTimeGauge implements Gauge<Long> {
+
+		private final Task task;
+
+		public OutputBufferPoolBlockedTimeGauge(Task task) {
+			this.task = task;
+		}
+
+		@Override
+		public Long getValue() {
+			long blockedTime = 0;
+
+			for (ResultPartition resultPartition : task.getProducedPartitions()) {
+				blockedTime += resultPartition.getBufferPool().bestEffortGetRequestBlockedTimeMillis();
+			}
+
+			return blockedTime;
+		}
+	}
+
 	// ============================================================================================
 	// Metric Reuse
 	// ============================================================================================
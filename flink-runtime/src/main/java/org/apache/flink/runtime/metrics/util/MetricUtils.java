@@ -62,6 +62,12 @@ public class MetricUtils {
 				return network.getNetworkBufferPool().getNumberOfAvailableMemorySegments();
 			}
 		});
+		networkGroup.gauge("OutboundQueueLength", new Gauge<Integer>() {
+			@Override
+			public Integer getValue() {
+				return network.getConnectionManager().getOutboundQueueLength();
+			}
+		});
 	}
 
 	public static void instantiateStatusMetrics(
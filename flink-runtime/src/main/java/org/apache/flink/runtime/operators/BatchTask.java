@@ -657,12 +657,15 @@ public class BatchTask<S extends Function, OT> extends AbstractInvokable impleme
 			//  ---------------- create the input readers ---------------------
 			// in case where a logical input unions multiple physical inputs, create a union reader
 			final int groupSize = this.config.getGroupSize(i);
+			final int fixedRecordLength = getFixedRecordLength(
+					this, this.config.getInputSerializer(i, getUserCodeClassLoader()));
 
 			if (groupSize == 1) {
 				// non-union case
 				inputReaders[i] = new MutableRecordReader<IOReadableWritable>(
 						getEnvironment().getInputGate(currentReaderOffset),
-						getEnvironment().getTaskManagerInfo().getTmpDirectories());
+						getEnvironment().getTaskManagerInfo().getTmpDirectories(),
+						fixedRecordLength);
 			} else if (groupSize > 1){
 				// union case
 				InputGate[] readers = new InputGate[groupSize];
@@ -671,7 +674,8 @@ public class BatchTask<S extends Function, OT> extends AbstractInvokable impleme
 				}
 				inputReaders[i] = new MutableRecordReader<IOReadableWritable>(
 						new UnionInputGate(readers),
-						getEnvironment().getTaskManagerInfo().getTmpDirectories());
+						getEnvironment().getTaskManagerInfo().getTmpDirectories(),
+						fixedRecordLength);
 			} else {
 				throw new Exception("Illegal input group size in task configuration: " + groupSize);
 			}
@@ -701,11 +705,15 @@ public class BatchTask<S extends Function, OT> extends AbstractInvokable impleme
 			//  ---------------- create the input readers ---------------------
 			// in case where a logical input unions multiple physical inputs, create a union reader
 			final int groupSize = this.config.getBroadcastGroupSize(i);
+			final int fixedRecordLength = getFixedRecordLength(
+					this, this.config.getBroadcastInputSerializer(i, getUserCodeClassLoader()));
+
 			if (groupSize == 1) {
 				// non-union case
 				broadcastInputReaders[i] = new MutableRecordReader<IOReadableWritable>(
 						getEnvironment().getInputGate(currentReaderOffset),
-						getEnvironment().getTaskManagerInfo().getTmpDirectories());
+						getEnvironment().getTaskManagerInfo().getTmpDirectories(),
+						fixedRecordLength);
 			} else if (groupSize > 1){
 				// union case
 				InputGate[] readers = new InputGate[groupSize];
@@ -714,7 +722,8 @@ public class BatchTask<S extends Function, OT> extends AbstractInvokable impleme
 				}
 				broadcastInputReaders[i] = new MutableRecordReader<IOReadableWritable>(
 						new UnionInputGate(readers),
-						getEnvironment().getTaskManagerInfo().getTmpDirectories());
+						getEnvironment().getTaskManagerInfo().getTmpDirectories(),
+						fixedRecordLength);
 			} else {
 				throw new Exception("Illegal input group size in task configuration: " + groupSize);
 			}
@@ -1192,6 +1201,25 @@ public class BatchTask<S extends Function, OT> extends AbstractInvokable impleme
 	//                             Result Shipping and Chained Tasks
 	// --------------------------------------------------------------------------------------------
 
+	/**
+	 * Gets the length of the serialized records of the given type, if the task exchanges records
+	 * without preceding length (see {@link TaskConfig#getUseFixedLengthRecords()}) and the type has
+	 * a fixed length.
+	 *
+	 * @param task The task that reads or writes the records.
+	 * @param serializerFactory The factory for the serializer of the records.
+	 *
+	 * @return The fixed length of the serialized records, or <tt>-1</tt>, if the records are
+	 *         preceded by their length.
+	 */
+	public static int getFixedRecordLength(AbstractInvokable task, TypeSerializerFactory<?> serializerFactory) {
+		if (serializerFactory != null && new TaskConfig(task.getTaskConfiguration()).getUseFixedLengthRecords()) {
+			final int length = serializerFactory.getSerializer().getLength();
+			return length > 0 ? length : -1;
+		}
+		return -1;
+	}
+
 	/**
 	 * Creates the {@link Collector} for the given task, as described by the given configuration. The
 	 * output collector contains the writers that forward the data to the different tasks that the given task
@@ -1215,6 +1243,7 @@ public class BatchTask<S extends Function, OT> extends AbstractInvokable impleme
 
 		// get the factory for the serializer
 		final TypeSerializerFactory<T> serializerFactory = config.getOutputSerializer(cl);
+		final int fixedRecordLength = getFixedRecordLength(task, serializerFactory);
 		final List<RecordWriter<SerializationDelegate<T>>> writers = new ArrayList<>(numOutputs);
 
 		// create a writer for each output
@@ -1238,7 +1267,8 @@ public class BatchTask<S extends Function, OT> extends AbstractInvokable impleme
 			}
 
 			final RecordWriter<SerializationDelegate<T>> recordWriter =
-					new RecordWriter<SerializationDelegate<T>>(task.getEnvironment().getWriter(outputOffset + i), oe);
+					new RecordWriter<SerializationDelegate<T>>(
+						task.getEnvironment().getWriter(outputOffset + i), oe, fixedRecordLength);
 
 			recordWriter.setMetricGroup(task.getEnvironment().getMetricGroup().getIOMetricGroup());
 
@@ -340,21 +340,26 @@ public class DataSinkTask<IT> extends AbstractInvokable {
 		// in case where a logical input unions multiple physical inputs, create a union reader
 		final int groupSize = this.config.getGroupSize(0);
 		numGates += groupSize;
+
+		this.inputTypeSerializerFactory = this.config.getInputSerializer(0, getUserCodeClassLoader());
+		final int fixedRecordLength = BatchTask.getFixedRecordLength(this, this.inputTypeSerializerFactory);
+
 		if (groupSize == 1) {
 			// non-union case
 			inputReader = new MutableRecordReader<DeserializationDelegate<IT>>(
 					getEnvironment().getInputGate(0),
-					getEnvironment().getTaskManagerInfo().getTmpDirectories());
+					getEnvironment().getTaskManagerInfo().getTmpDirectories(),
+					fixedRecordLength);
 		} else if (groupSize > 1){
 			// union case
 			inputReader = new MutableRecordReader<IOReadableWritable>(
 					new UnionInputGate(getEnvironment().getAllInputGates()),
-					getEnvironment().getTaskManagerInfo().getTmpDirectories());
+					getEnvironment().getTaskManagerInfo().getTmpDirectories(),
+					fixedRecordLength);
 		} else {
 			throw new Exception("Illegal input group size in task configuration: " + groupSize);
 		}
-		
-		this.inputTypeSerializerFactory = this.config.getInputSerializer(0, getUserCodeClassLoader());
+
 		@SuppressWarnings({ "rawtypes" })
 		final MutableObjectIterator<?> iter = new ReaderIterator(inputReader, this.inputTypeSerializerFactory.getSerializer());
 		this.reader = (MutableObjectIterator<IT>)iter;
@@ -142,6 +142,10 @@ public class TaskConfig implements Serializable {
 	private static final String OUTPUT_DATA_DISTRIBUTION_PREFIX = "out.distribution.";
 	
 	private static final String OUTPUT_PARTITIONER = "out.partitioner.";
+
+	private static final String USE_FIXED_LENGTH_RECORDS = "fixed-length-records";
+
+	private static final boolean USE_FIXED_LENGTH_RECORDS_DEFAULT = false;
 	
 	// ------------------------------------- Chaining ---------------------------------------------
 	
@@ -631,6 +635,18 @@ public class TaskConfig implements Serializable {
 		}
 	}
 	
+	/**
+	 * Sets whether the task exchanges records of types with a fixed length without preceding
+	 * length. This must be set for the producers and the consumers of the records alike.
+	 */
+	public void setUseFixedLengthRecords(boolean useFixedLengthRecords) {
+		this.config.setBoolean(USE_FIXED_LENGTH_RECORDS, useFixedLengthRecords);
+	}
+
+	public boolean getUseFixedLengthRecords() {
+		return this.config.getBoolean(USE_FIXED_LENGTH_RECORDS, USE_FIXED_LENGTH_RECORDS_DEFAULT);
+	}
+
 	// --------------------------------------------------------------------------------------------
 	//                       Parameters to configure the memory and I/O behavior
 	// --------------------------------------------------------------------------------------------
@@ -46,6 +46,10 @@ import org.apache.flink.runtime.state.internal.InternalListState;
 import org.apache.flink.runtime.state.internal.InternalMapState;
 import org.apache.flink.runtime.state.internal.InternalReducingState;
 import org.apache.flink.runtime.state.internal.InternalValueState;
+import org.apache.flink.runtime.state.ttl.AbstractTtlState;
+import org.apache.flink.runtime.state.ttl.ExpiredStateFilter;
+import org.apache.flink.runtime.state.ttl.TtlStateBinder;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
 import org.apache.flink.util.Preconditions;
 
 import java.io.Closeable;
@@ -97,6 +101,9 @@ public abstract class AbstractKeyedStateBackend<K>
 
 	private final ExecutionConfig executionConfig;
 
+	/** Provides the processing time for keyed state with time-to-live */
+	protected TtlTimeProvider ttlTimeProvider = TtlTimeProvider.DEFAULT;
+
 	public AbstractKeyedStateBackend(
 			TaskKvStateRegistry kvStateRegistry,
 			TypeSerializer<K> keySerializer,
@@ -288,7 +295,7 @@ public abstract class AbstractKeyedStateBackend<K>
 		}
 
 		// create a new blank key/value state
-		S state = stateDescriptor.bind(new StateBinder() {
+		StateBinder stateBinder = new StateBinder() {
 			@Override
 			public <T> ValueState<T> createValueState(ValueStateDescriptor<T> stateDesc) throws Exception {
 				return AbstractKeyedStateBackend.this.createValueState(namespaceSerializer, stateDesc);
@@ -320,7 +327,19 @@ public abstract class AbstractKeyedStateBackend<K>
 				return AbstractKeyedStateBackend.this.createMapState(namespaceSerializer, stateDesc);
 			}
 
-		});
+		};
+
+		// state with time-to-live decorates the state that we create for the values with timestamps
+		if (stateDescriptor.isTtlEnabled()) {
+			stateBinder = new TtlStateBinder(stateBinder, ttlTimeProvider);
+		}
+
+		S state = stateDescriptor.bind(stateBinder);
+
+		if (state instanceof AbstractTtlState) {
+			AbstractTtlState<?, ?> ttlState = (AbstractTtlState<?, ?>) state;
+			ttlState.setIncrementalCleanup(enableTtlCleanup(stateDescriptor, ttlState.getExpiredStateFilter()));
+		}
 
 		@SuppressWarnings("unchecked")
 		InternalKvState<N> kvState = (InternalKvState<N>) state;
@@ -383,8 +402,37 @@ public abstract class AbstractKeyedStateBackend<K>
 		cancelStreamRegistry.close();
 	}
 
+	/**
+	 * Called after the state for the given descriptor was created with time-to-live. State backends can use the given
+	 * filter, which drops the expired values from the state objects and detects the state objects that expired
+	 * entirely, to clean up the state in the background.
+	 *
+	 * @param stateDesc The descriptor of the state with time-to-live.
+	 * @param expiredStateFilter Filter for the state objects that the backend created for the state.
+	 * @return A callback that is run on every access to the state to clean it up incrementally, or null.
+	 */
+	protected Runnable enableTtlCleanup(
+			StateDescriptor<?, ?> stateDesc,
+			ExpiredStateFilter<?> expiredStateFilter) {
+		return null;
+	}
+
+	@VisibleForTesting
+	public void setTtlTimeProvider(TtlTimeProvider ttlTimeProvider) {
+		this.ttlTimeProvider = checkNotNull(ttlTimeProvider);
+	}
+
 	@VisibleForTesting
 	public boolean supportsAsynchronousSnapshots() {
 		return false;
 	}
+
+	/**
+	 * Returns true if the checkpoints of this backend can be copied to local disk through a
+	 * {@link DuplicatingCheckpointStreamFactory}, which requires that each snapshot writes all
+	 * its data to streams of the given checkpoint stream factory.
+	 */
+	public boolean supportsLocalStateCopies() {
+		return true;
+	}
 }
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * A checkpoint state output stream that writes all data to a primary and a secondary stream.
+ * The primary stream produces the state handle of the checkpoint. The secondary stream produces
+ * a copy of the state, for example on local disk.
+ *
+ * <p>Failures of the secondary stream never fail the primary stream. After the first failure,
+ * the secondary stream is closed and no secondary state handle is produced.
+ */
+public class DuplicatingCheckpointOutputStream extends CheckpointStreamFactory.CheckpointStateOutputStream {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DuplicatingCheckpointOutputStream.class);
+
+	private final CheckpointStreamFactory.CheckpointStateOutputStream primaryOutputStream;
+
+	/** The secondary stream, or null after it failed or was closed */
+	private CheckpointStreamFactory.CheckpointStateOutputStream secondaryOutputStream;
+
+	private StreamStateHandle primaryStateHandle;
+
+	private StreamStateHandle secondaryStateHandle;
+
+	public DuplicatingCheckpointOutputStream(
+			CheckpointStreamFactory.CheckpointStateOutputStream primaryOutputStream,
+			CheckpointStreamFactory.CheckpointStateOutputStream secondaryOutputStream) {
+
+		this.primaryOutputStream = Preconditions.checkNotNull(primaryOutputStream);
+		this.secondaryOutputStream = Preconditions.checkNotNull(secondaryOutputStream);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		primaryOutputStream.write(b);
+
+		if (secondaryOutputStream != null) {
+			try {
+				secondaryOutputStream.write(b);
+			} catch (Exception e) {
+				handleSecondaryFailure(e);
+			}
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		primaryOutputStream.write(b, off, len);
+
+		if (secondaryOutputStream != null) {
+			try {
+				secondaryOutputStream.write(b, off, len);
+			} catch (Exception e) {
+				handleSecondaryFailure(e);
+			}
+		}
+	}
+
+	@Override
+	public long getPos() throws IOException {
+		return primaryOutputStream.getPos();
+	}
+
+	@Override
+	public void flush() throws IOException {
+		primaryOutputStream.flush();
+
+		if (secondaryOutputStream != null) {
+			try {
+				secondaryOutputStream.flush();
+			} catch (Exception e) {
+				handleSecondaryFailure(e);
+			}
+		}
+	}
+
+	@Override
+	public void sync() throws IOException {
+		primaryOutputStream.sync();
+
+		if (secondaryOutputStream != null) {
+			try {
+				secondaryOutputStream.sync();
+			} catch (Exception e) {
+				handleSecondaryFailure(e);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		closeSecondaryQuietly();
+		primaryOutputStream.close();
+	}
+
+	@Override
+	public StreamStateHandle closeAndGetHandle() throws IOException {
+		try {
+			primaryStateHandle = primaryOutputStream.closeAndGetHandle();
+		} catch (IOException e) {
+			closeSecondaryQuietly();
+			throw e;
+		}
+
+		if (secondaryOutputStream != null) {
+			try {
+				secondaryStateHandle = secondaryOutputStream.closeAndGetHandle();
+				secondaryOutputStream = null;
+			} catch (Exception e) {
+				handleSecondaryFailure(e);
+			}
+		}
+
+		return primaryStateHandle;
+	}
+
+	/**
+	 * Returns the state handle that the primary stream produced when it was closed, or null.
+	 */
+	public StreamStateHandle getPrimaryStateHandle() {
+		return primaryStateHandle;
+	}
+
+	/**
+	 * Returns the state handle that the secondary stream produced when it was closed, or null,
+	 * if the secondary stream failed.
+	 */
+	public StreamStateHandle getSecondaryStateHandle() {
+		return secondaryStateHandle;
+	}
+
+	private void handleSecondaryFailure(Exception e) {
+		LOG.warn("Could not write the secondary copy of a checkpoint state stream. " +
+				"Continuing with the primary stream only.", e);
+
+		closeSecondaryQuietly();
+	}
+
+	private void closeSecondaryQuietly() {
+		if (secondaryOutputStream != null) {
+			IOUtils.closeQuietly(secondaryOutputStream);
+			secondaryOutputStream = null;
+		}
+	}
+}
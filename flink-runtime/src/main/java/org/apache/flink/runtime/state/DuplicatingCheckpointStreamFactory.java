@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.util.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link CheckpointStreamFactory} that writes every state stream of a snapshot to the streams of
+ * a primary and a secondary factory. The snapshot is built from the handles of the primary
+ * streams, the copies written by the secondary factory can be obtained afterwards through
+ * {@link #getSecondaryKeyedStateHandle(KeyedStateHandle)}.
+ *
+ * <p>Failures of the secondary factory never fail the snapshot.
+ */
+public class DuplicatingCheckpointStreamFactory implements CheckpointStreamFactory {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DuplicatingCheckpointStreamFactory.class);
+
+	private final CheckpointStreamFactory primaryStreamFactory;
+
+	private final CheckpointStreamFactory secondaryStreamFactory;
+
+	/** The duplicating streams that were created by this factory, guarded by itself */
+	private final List<DuplicatingCheckpointOutputStream> outputStreams;
+
+	public DuplicatingCheckpointStreamFactory(
+			CheckpointStreamFactory primaryStreamFactory,
+			CheckpointStreamFactory secondaryStreamFactory) {
+
+		this.primaryStreamFactory = Preconditions.checkNotNull(primaryStreamFactory);
+		this.secondaryStreamFactory = Preconditions.checkNotNull(secondaryStreamFactory);
+		this.outputStreams = new ArrayList<>();
+	}
+
+	@Override
+	public CheckpointStateOutputStream createCheckpointStateOutputStream(
+			long checkpointID,
+			long timestamp) throws Exception {
+
+		CheckpointStateOutputStream primaryOutputStream =
+				primaryStreamFactory.createCheckpointStateOutputStream(checkpointID, timestamp);
+
+		CheckpointStateOutputStream secondaryOutputStream;
+		try {
+			secondaryOutputStream = secondaryStreamFactory.createCheckpointStateOutputStream(checkpointID, timestamp);
+		} catch (Exception e) {
+			LOG.warn("Could not create the secondary stream for checkpoint {}. " +
+					"Continuing with the primary stream only.", checkpointID, e);
+			return primaryOutputStream;
+		}
+
+		DuplicatingCheckpointOutputStream outputStream =
+				new DuplicatingCheckpointOutputStream(primaryOutputStream, secondaryOutputStream);
+
+		synchronized (outputStreams) {
+			outputStreams.add(outputStream);
+		}
+
+		return outputStream;
+	}
+
+	/**
+	 * Closes the secondary factory. The primary factory is not closed, because it is owned by
+	 * the creator of this factory.
+	 */
+	@Override
+	public void close() throws Exception {
+		secondaryStreamFactory.close();
+	}
+
+	/**
+	 * Returns the secondary copy of the given state handle, which was written by the primary
+	 * streams of this factory.
+	 *
+	 * @param primaryStateHandle The state handle that was built from the primary streams.
+	 * @return The copy of the state handle that refers to the secondary streams, or null, if no
+	 *         complete copy exists.
+	 */
+	public StreamStateHandle getSecondaryStateHandle(StreamStateHandle primaryStateHandle) {
+		if (primaryStateHandle == null) {
+			return null;
+		}
+
+		synchronized (outputStreams) {
+			for (DuplicatingCheckpointOutputStream outputStream : outputStreams) {
+				if (primaryStateHandle.equals(outputStream.getPrimaryStateHandle())) {
+					return outputStream.getSecondaryStateHandle();
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the secondary copy of the given keyed state handle. Only {@link KeyGroupsStateHandle}s
+	 * are supported, because all data of other handles may not have been written through this
+	 * factory.
+	 *
+	 * @param primaryStateHandle The keyed state handle of the snapshot.
+	 * @return The copy of the state handle that refers to the secondary streams, or null, if no
+	 *         complete copy exists.
+	 */
+	public KeyedStateHandle getSecondaryKeyedStateHandle(KeyedStateHandle primaryStateHandle) {
+		if (primaryStateHandle instanceof KeyGroupsStateHandle) {
+			KeyGroupsStateHandle keyGroupsStateHandle = (KeyGroupsStateHandle) primaryStateHandle;
+
+			StreamStateHandle secondaryStateHandle =
+					getSecondaryStateHandle(keyGroupsStateHandle.getDelegateStateHandle());
+
+			if (secondaryStateHandle != null) {
+				return new KeyGroupsStateHandle(keyGroupsStateHandle.getGroupRangeOffsets(), secondaryStateHandle);
+			}
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The handle to an incremental snapshot of a keyed state backend that is made up of files.
+ *
+ * <p>The files of the snapshot are split into shared and private files. Shared files are
+ * immutable and may be referenced by later snapshots of the same backend, which then do not
+ * upload them again. They are registered at the {@link SharedStateRegistry} and are discarded
+ * once no retained checkpoint references them any more. Shared files that were uploaded for this
+ * snapshot are owned by this handle until it is registered for the first time. Private files
+ * and the meta data are always owned by this handle.
+ */
+public class IncrementalKeyedStateHandle implements KeyedStateHandle, CompositeStateHandle {
+
+	private static final Logger LOG = LoggerFactory.getLogger(IncrementalKeyedStateHandle.class);
+
+	private static final long serialVersionUID = 1L;
+
+	/** The key group range covered by the snapshot */
+	private final KeyGroupRange keyGroupRange;
+
+	/** The id of the checkpoint that the snapshot belongs to */
+	private final long checkpointId;
+
+	/** The shared files of the snapshot, by file name */
+	private final Map<String, SharedStreamStateHandle> sharedState;
+
+	/** The names of the shared files that were uploaded for this snapshot */
+	private final Set<String> newSharedState;
+
+	/** The private files of the snapshot, by file name */
+	private final Map<String, StreamStateHandle> privateState;
+
+	/** The handle to the meta data of the snapshot */
+	private final StreamStateHandle metaStateHandle;
+
+	/**
+	 * Once the shared state has been registered, the {@link SharedStateRegistry} is responsible
+	 * for discarding it.
+	 */
+	private boolean sharedStateRegistered;
+
+	public IncrementalKeyedStateHandle(
+			KeyGroupRange keyGroupRange,
+			long checkpointId,
+			Map<String, SharedStreamStateHandle> sharedState,
+			Set<String> newSharedState,
+			Map<String, StreamStateHandle> privateState,
+			StreamStateHandle metaStateHandle) {
+
+		this.keyGroupRange = Preconditions.checkNotNull(keyGroupRange);
+		this.checkpointId = checkpointId;
+		this.sharedState = Preconditions.checkNotNull(sharedState);
+		this.newSharedState = Preconditions.checkNotNull(newSharedState);
+		this.privateState = Preconditions.checkNotNull(privateState);
+		this.metaStateHandle = Preconditions.checkNotNull(metaStateHandle);
+
+		Preconditions.checkArgument(sharedState.keySet().containsAll(newSharedState),
+				"The new shared files must be contained in the shared files.");
+	}
+
+	public long getCheckpointId() {
+		return checkpointId;
+	}
+
+	public Map<String, SharedStreamStateHandle> getSharedState() {
+		return Collections.unmodifiableMap(sharedState);
+	}
+
+	public Set<String> getNewSharedState() {
+		return Collections.unmodifiableSet(newSharedState);
+	}
+
+	public Map<String, StreamStateHandle> getPrivateState() {
+		return Collections.unmodifiableMap(privateState);
+	}
+
+	public StreamStateHandle getMetaStateHandle() {
+		return metaStateHandle;
+	}
+
+	@Override
+	public KeyGroupRange getKeyGroupRange() {
+		return keyGroupRange;
+	}
+
+	/**
+	 * The files of an incremental snapshot cannot be split by key groups, so this returns the
+	 * whole handle if the ranges overlap. The backend restoring the handle has to filter out the
+	 * key groups it is not responsible for.
+	 */
+	@Override
+	public KeyedStateHandle getIntersection(KeyGroupRange keyGroupRange) {
+		if (this.keyGroupRange.getIntersection(keyGroupRange).getNumberOfKeyGroups() > 0) {
+			return this;
+		} else {
+			return null;
+		}
+	}
+
+	@Override
+	public void registerSharedStates(SharedStateRegistry stateRegistry) {
+		for (SharedStreamStateHandle stateHandle : sharedState.values()) {
+			stateRegistry.register(stateHandle);
+		}
+
+		sharedStateRegistered = true;
+	}
+
+	@Override
+	public void unregisterSharedStates(SharedStateRegistry stateRegistry) {
+		for (SharedStreamStateHandle stateHandle : sharedState.values()) {
+			stateRegistry.unregister(stateHandle);
+		}
+	}
+
+	@Override
+	public void discardState() throws Exception {
+		List<StateObject> toDiscard = new ArrayList<>(privateState.size() + newSharedState.size() + 1);
+
+		toDiscard.add(metaStateHandle);
+		toDiscard.addAll(privateState.values());
+
+		if (!sharedStateRegistered) {
+			for (String fileName : newSharedState) {
+				toDiscard.add(sharedState.get(fileName));
+			}
+		}
+
+		try {
+			StateUtil.bestEffortDiscardAllStateObjects(toDiscard);
+		} catch (Exception e) {
+			LOG.warn("Could not properly discard incremental keyed state of checkpoint {}.", checkpointId, e);
+		}
+	}
+
+	@Override
+	public long getStateSize() {
+		long size = metaStateHandle.getStateSize();
+
+		for (StreamStateHandle stateHandle : privateState.values()) {
+			size += stateHandle.getStateSize();
+		}
+
+		for (SharedStreamStateHandle stateHandle : sharedState.values()) {
+			size += stateHandle.getStateSize();
+		}
+
+		return size;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		IncrementalKeyedStateHandle that = (IncrementalKeyedStateHandle) o;
+
+		return checkpointId == that.checkpointId &&
+				keyGroupRange.equals(that.keyGroupRange) &&
+				sharedState.equals(that.sharedState) &&
+				newSharedState.equals(that.newSharedState) &&
+				privateState.equals(that.privateState) &&
+				metaStateHandle.equals(that.metaStateHandle);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = keyGroupRange.hashCode();
+		result = 31 * result + (int) (checkpointId ^ (checkpointId >>> 32));
+		result = 31 * result + sharedState.hashCode();
+		result = 31 * result + newSharedState.hashCode();
+		result = 31 * result + privateState.hashCode();
+		result = 31 * result + metaStateHandle.hashCode();
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "IncrementalKeyedStateHandle{" +
+				"keyGroupRange=" + keyGroupRange +
+				", checkpointId=" + checkpointId +
+				", sharedState=" + sharedState +
+				", newSharedState=" + newSharedState +
+				", privateState=" + privateState +
+				", metaStateHandle=" + metaStateHandle +
+				'}';
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The handle to a snapshot of an operator state backend whose states reference additional
+ * shared files, for example large side inputs that do not change between checkpoints.
+ *
+ * <p>The operator state itself is stored in the delegate stream, like for a regular
+ * {@link OperatorStateHandle}. The shared files are immutable and may be referenced by later
+ * snapshots of the same operator, which then do not write them again. They are registered at
+ * the {@link SharedStateRegistry} and are discarded once no retained checkpoint references them
+ * any more. Shared files that were written for this snapshot are owned by this handle until it is
+ * registered for the first time.
+ */
+public class IncrementalOperatorStateHandle extends OperatorStateHandle implements CompositeStateHandle {
+
+	private static final Logger LOG = LoggerFactory.getLogger(IncrementalOperatorStateHandle.class);
+
+	private static final long serialVersionUID = 1L;
+
+	/** The shared files of the snapshot, by name */
+	private final Map<String, SharedStreamStateHandle> sharedState;
+
+	/** The names of the shared files that were written for this snapshot */
+	private final Set<String> newSharedState;
+
+	/**
+	 * Once the shared state has been registered, the {@link SharedStateRegistry} is responsible
+	 * for discarding it.
+	 */
+	private boolean sharedStateRegistered;
+
+	public IncrementalOperatorStateHandle(
+			Map<String, StateMetaInfo> stateNameToPartitionOffsets,
+			StreamStateHandle delegateStateHandle,
+			Map<String, SharedStreamStateHandle> sharedState,
+			Set<String> newSharedState) {
+
+		super(stateNameToPartitionOffsets, delegateStateHandle);
+
+		this.sharedState = Preconditions.checkNotNull(sharedState);
+		this.newSharedState = Preconditions.checkNotNull(newSharedState);
+
+		Preconditions.checkArgument(sharedState.keySet().containsAll(newSharedState),
+				"The new shared files must be contained in the shared files.");
+	}
+
+	public Map<String, SharedStreamStateHandle> getSharedState() {
+		return Collections.unmodifiableMap(sharedState);
+	}
+
+	public Set<String> getNewSharedState() {
+		return Collections.unmodifiableSet(newSharedState);
+	}
+
+	@Override
+	public void registerSharedStates(SharedStateRegistry stateRegistry) {
+		for (SharedStreamStateHandle stateHandle : sharedState.values()) {
+			stateRegistry.register(stateHandle);
+		}
+
+		sharedStateRegistered = true;
+	}
+
+	@Override
+	public void unregisterSharedStates(SharedStateRegistry stateRegistry) {
+		for (SharedStreamStateHandle stateHandle : sharedState.values()) {
+			stateRegistry.unregister(stateHandle);
+		}
+	}
+
+	@Override
+	public void discardState() throws Exception {
+		List<StateObject> toDiscard = new ArrayList<>(newSharedState.size() + 1);
+
+		toDiscard.add(getDelegateStateHandle());
+
+		if (!sharedStateRegistered) {
+			for (String name : newSharedState) {
+				toDiscard.add(sharedState.get(name));
+			}
+		}
+
+		try {
+			StateUtil.bestEffortDiscardAllStateObjects(toDiscard);
+		} catch (Exception e) {
+			LOG.warn("Could not properly discard incremental operator state.", e);
+		}
+	}
+
+	@Override
+	public long getStateSize() {
+		long size = super.getStateSize();
+
+		for (SharedStreamStateHandle stateHandle : sharedState.values()) {
+			size += stateHandle.getStateSize();
+		}
+
+		return size;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass() || !super.equals(o)) {
+			return false;
+		}
+
+		IncrementalOperatorStateHandle that = (IncrementalOperatorStateHandle) o;
+
+		return sharedState.equals(that.sharedState) &&
+				newSharedState.equals(that.newSharedState);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = super.hashCode();
+		result = 31 * result + sharedState.hashCode();
+		result = 31 * result + newSharedState.hashCode();
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "IncrementalOperatorStateHandle{" +
+				"stateNameToPartitionOffsets=" + getStateNameToPartitionOffsets() +
+				", delegateStateHandle=" + getDelegateStateHandle() +
+				", sharedState=" + sharedState +
+				", newSharedState=" + newSharedState +
+				'}';
+	}
+}
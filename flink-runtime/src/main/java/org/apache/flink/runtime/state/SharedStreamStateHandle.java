@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.util.Preconditions;
+
+import java.io.IOException;
+
+/**
+ * A {@link StreamStateHandle} that may be referenced by several checkpoints and is therefore
+ * registered at the {@link SharedStateRegistry} under a unique key. All reads and the discarding
+ * of the state are forwarded to the wrapped handle.
+ */
+public class SharedStreamStateHandle implements StreamStateHandle, SharedStateHandle {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The key under which the state is registered at the {@link SharedStateRegistry} */
+	private final String registrationKey;
+
+	/** The handle to the actual state */
+	private final StreamStateHandle delegateStateHandle;
+
+	public SharedStreamStateHandle(String registrationKey, StreamStateHandle delegateStateHandle) {
+		this.registrationKey = Preconditions.checkNotNull(registrationKey);
+		this.delegateStateHandle = Preconditions.checkNotNull(delegateStateHandle);
+	}
+
+	@Override
+	public String getRegistrationKey() {
+		return registrationKey;
+	}
+
+	public StreamStateHandle getDelegateStateHandle() {
+		return delegateStateHandle;
+	}
+
+	@Override
+	public FSDataInputStream openInputStream() throws IOException {
+		return delegateStateHandle.openInputStream();
+	}
+
+	@Override
+	public void discardState() throws Exception {
+		delegateStateHandle.discardState();
+	}
+
+	@Override
+	public long getStateSize() {
+		return delegateStateHandle.getStateSize();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+
+		if (!(o instanceof SharedStreamStateHandle)) {
+			return false;
+		}
+
+		return registrationKey.equals(((SharedStreamStateHandle) o).registrationKey);
+	}
+
+	@Override
+	public int hashCode() {
+		return registrationKey.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "SharedStreamStateHandle{" +
+				"registrationKey='" + registrationKey + '\'' +
+				", delegateStateHandle=" + delegateStateHandle +
+				'}';
+	}
+}
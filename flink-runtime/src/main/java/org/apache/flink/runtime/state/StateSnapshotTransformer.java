@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.annotation.Internal;
+
+/**
+ * Interface for a function that filters or transforms the state objects of a state backend before they are written
+ * to a snapshot, e.g. to drop values that expired. State backends may also apply it to their live state to clean it
+ * up in the background.
+ *
+ * <p>Implementations must not modify the given state object, because it may be shared with a snapshot that is
+ * written concurrently. If the state changes, a new object must be returned.
+ *
+ * @param <S> type of the state objects.
+ */
+@Internal
+public interface StateSnapshotTransformer<S> {
+
+	/**
+	 * Filters or transforms the given state object.
+	 *
+	 * @param state the state object. Not null.
+	 * @return the given state object if it is unchanged, a new state object if it changed, or {@code null} if the
+	 * state should be dropped entirely.
+	 */
+	S filterOrTransform(S state);
+}
@@ -0,0 +1,453 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.util.FileUtils;
+import org.apache.flink.util.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Keeps local copies of the keyed state snapshots of the subtasks that run on a TaskManager, so
+ * that a subtask which is restarted on the same TaskManager can restore its state from local disk
+ * instead of downloading it from the checkpoint storage.
+ *
+ * <p>Each local copy is stored together with the handle of the snapshot in the checkpoint storage
+ * that it duplicates. Subtasks look up local state by the handle they are asked to restore, so
+ * local state is only used if it is a copy of exactly the state that the JobManager assigned.
+ *
+ * <p>For each subtask, the local copies of the last confirmed checkpoint and of all later
+ * checkpoints are retained. The local directories of older checkpoints are deleted.
+ *
+ * <p>Tasks register with the store while they run. The local state of a job is released once
+ * none of its tasks was registered for a full cleanup interval, so that the state of jobs that
+ * were cancelled, failed, or rescheduled to other TaskManagers does not stay on disk.
+ *
+ * <p>This class is thread-safe.
+ */
+public class TaskLocalStateStore {
+
+	private static final Logger LOG = LoggerFactory.getLogger(TaskLocalStateStore.class);
+
+	/** The prefix of the directories of the local state of a checkpoint */
+	private static final String CHECKPOINT_DIR_PREFIX = "chk_";
+
+	/** The root directories for local state, one per temp directory of the TaskManager */
+	private final File[] rootDirectories;
+
+	/** The local snapshots by subtask and checkpoint id, guarded by itself */
+	private final Map<SubtaskKey, SortedMap<Long, LocalSnapshot>> localSnapshots;
+
+	/** The running tasks per job, guarded by {@link #localSnapshots} */
+	private final Map<JobID, Set<ExecutionAttemptID>> jobTasks;
+
+	/** The jobs that have local state directories, guarded by {@link #localSnapshots} */
+	private final Set<JobID> jobsWithLocalState;
+
+	/** The jobs without tasks at the last cleanup, guarded by {@link #localSnapshots} */
+	private Set<JobID> unreferencedJobs;
+
+	/** Flag that is set once the store was shut down, guarded by {@link #localSnapshots} */
+	private boolean shutDown;
+
+	/** The timer that periodically releases the local state of unreferenced jobs, or null */
+	private final Timer cleanupTimer;
+
+	/**
+	 * Creates a store that does not release the local state of jobs by itself. The local state of
+	 * unreferenced jobs is only released by {@link #releaseUnreferencedLocalState()}.
+	 */
+	public TaskLocalStateStore(String[] tempDirectories) {
+		this(tempDirectories, -1L);
+	}
+
+	/**
+	 * Creates a store that releases the local state of jobs without tasks every cleanup interval.
+	 *
+	 * @param cleanupInterval The cleanup interval in milliseconds, or a non-positive value to
+	 *                        disable the periodic cleanup.
+	 */
+	public TaskLocalStateStore(String[] tempDirectories, long cleanupInterval) {
+		Preconditions.checkNotNull(tempDirectories);
+		Preconditions.checkArgument(tempDirectories.length > 0, "No temp directories given.");
+
+		String localStateDirName = "flink-local-state-" + UUID.randomUUID();
+
+		this.rootDirectories = new File[tempDirectories.length];
+		for (int i = 0; i < tempDirectories.length; ++i) {
+			rootDirectories[i] = new File(tempDirectories[i], localStateDirName);
+		}
+
+		this.localSnapshots = new HashMap<>();
+		this.jobTasks = new HashMap<>();
+		this.jobsWithLocalState = new HashSet<>();
+		this.unreferencedJobs = new HashSet<>();
+
+		if (cleanupInterval > 0) {
+			this.cleanupTimer = new Timer("TaskLocalStateStore cleanup", true);
+			this.cleanupTimer.schedule(new TimerTask() {
+				@Override
+				public void run() {
+					try {
+						releaseUnreferencedLocalState();
+					} catch (Throwable t) {
+						LOG.warn("Failed to release the local state of unreferenced jobs.", t);
+					}
+				}
+			}, cleanupInterval, cleanupInterval);
+		} else {
+			this.cleanupTimer = null;
+		}
+	}
+
+	/**
+	 * Registers a running task of a job. The local state of a job is retained while it has
+	 * registered tasks.
+	 */
+	public void registerTask(JobID jobId, ExecutionAttemptID executionId) {
+		Preconditions.checkNotNull(jobId);
+		Preconditions.checkNotNull(executionId);
+
+		synchronized (localSnapshots) {
+			Set<ExecutionAttemptID> tasks = jobTasks.get(jobId);
+			if (tasks == null) {
+				tasks = new HashSet<>();
+				jobTasks.put(jobId, tasks);
+			}
+
+			tasks.add(executionId);
+		}
+	}
+
+	/**
+	 * Unregisters a task of a job, for example because it finished, was cancelled, or failed.
+	 */
+	public void unregisterTask(JobID jobId, ExecutionAttemptID executionId) {
+		synchronized (localSnapshots) {
+			Set<ExecutionAttemptID> tasks = jobTasks.get(jobId);
+			if (tasks != null) {
+				tasks.remove(executionId);
+
+				if (tasks.isEmpty()) {
+					jobTasks.remove(jobId);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates the directory for the local state of the given checkpoint of a subtask. The
+	 * directory is deleted once a later checkpoint of the subtask is confirmed.
+	 */
+	public File createLocalStateDirectory(
+			JobID jobId,
+			JobVertexID jobVertexId,
+			int subtaskIndex,
+			long checkpointId) throws IOException {
+
+		synchronized (localSnapshots) {
+			jobsWithLocalState.add(jobId);
+		}
+
+		File directory = new File(getSubtaskDirectory(jobId, jobVertexId, subtaskIndex),
+				CHECKPOINT_DIR_PREFIX + checkpointId);
+
+		if (!directory.mkdirs() && !directory.isDirectory()) {
+			throw new IOException("Could not create local state directory " + directory + '.');
+		}
+
+		return directory;
+	}
+
+	/**
+	 * Stores the local copy of the keyed state that a subtask snapshotted for a checkpoint.
+	 *
+	 * @param remoteState The keyed state handle that was reported to the JobManager.
+	 * @param localState The local copy of the keyed state.
+	 */
+	public void storeLocalState(
+			JobID jobId,
+			JobVertexID jobVertexId,
+			int subtaskIndex,
+			long checkpointId,
+			KeyedStateHandle remoteState,
+			KeyedStateHandle localState) {
+
+		Preconditions.checkNotNull(remoteState);
+		Preconditions.checkNotNull(localState);
+
+		synchronized (localSnapshots) {
+			if (shutDown) {
+				return;
+			}
+
+			SubtaskKey subtaskKey = new SubtaskKey(jobId, jobVertexId, subtaskIndex);
+
+			SortedMap<Long, LocalSnapshot> subtaskSnapshots = localSnapshots.get(subtaskKey);
+			if (subtaskSnapshots == null) {
+				subtaskSnapshots = new TreeMap<>();
+				localSnapshots.put(subtaskKey, subtaskSnapshots);
+			}
+
+			subtaskSnapshots.put(checkpointId, new LocalSnapshot(remoteState, localState));
+			jobsWithLocalState.add(jobId);
+		}
+
+		LOG.debug("Stored local state of checkpoint {} for subtask {} of {}.", checkpointId, subtaskIndex, jobVertexId);
+	}
+
+	/**
+	 * Returns the local copy of the given keyed state, if this store has one.
+	 *
+	 * @param remoteState The keyed state handle that the JobManager assigned to the subtask.
+	 * @return The local copy of the keyed state, or null.
+	 */
+	public KeyedStateHandle retrieveLocalState(
+			JobID jobId,
+			JobVertexID jobVertexId,
+			int subtaskIndex,
+			KeyedStateHandle remoteState) {
+
+		synchronized (localSnapshots) {
+			SortedMap<Long, LocalSnapshot> subtaskSnapshots =
+					localSnapshots.get(new SubtaskKey(jobId, jobVertexId, subtaskIndex));
+
+			if (subtaskSnapshots != null) {
+				for (LocalSnapshot localSnapshot : subtaskSnapshots.values()) {
+					if (localSnapshot.remoteState.equals(remoteState)) {
+						return localSnapshot.localState;
+					}
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Confirms that a checkpoint of a subtask completed. The local state of all earlier
+	 * checkpoints of the subtask is deleted.
+	 */
+	public void confirmCheckpoint(JobID jobId, JobVertexID jobVertexId, int subtaskIndex, long checkpointId) {
+		synchronized (localSnapshots) {
+			SortedMap<Long, LocalSnapshot> subtaskSnapshots =
+					localSnapshots.get(new SubtaskKey(jobId, jobVertexId, subtaskIndex));
+
+			if (subtaskSnapshots != null) {
+				subtaskSnapshots.headMap(checkpointId).clear();
+			}
+		}
+
+		// this also removes the directories of snapshots that were never stored
+		File subtaskDirectory = getSubtaskDirectory(jobId, jobVertexId, subtaskIndex);
+		File[] checkpointDirectories = subtaskDirectory.listFiles();
+
+		if (checkpointDirectories != null) {
+			for (File checkpointDirectory : checkpointDirectories) {
+				String name = checkpointDirectory.getName();
+
+				try {
+					long directoryCheckpointId = Long.parseLong(name.substring(CHECKPOINT_DIR_PREFIX.length()));
+
+					if (directoryCheckpointId < checkpointId) {
+						deleteDirectory(checkpointDirectory);
+					}
+				} catch (NumberFormatException | IndexOutOfBoundsException e) {
+					LOG.warn("Unexpected file {} in local state directory {}.", name, subtaskDirectory);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Deletes all local state of a subtask, for example because it finished.
+	 */
+	public void releaseLocalState(JobID jobId, JobVertexID jobVertexId, int subtaskIndex) {
+		synchronized (localSnapshots) {
+			localSnapshots.remove(new SubtaskKey(jobId, jobVertexId, subtaskIndex));
+		}
+
+		deleteDirectory(getSubtaskDirectory(jobId, jobVertexId, subtaskIndex));
+	}
+
+	/**
+	 * Deletes all local state of a job, for example because it left the TaskManager.
+	 */
+	public void releaseLocalStateForJob(JobID jobId) {
+		synchronized (localSnapshots) {
+			Iterator<SubtaskKey> subtaskKeys = localSnapshots.keySet().iterator();
+			while (subtaskKeys.hasNext()) {
+				if (subtaskKeys.next().jobId.equals(jobId)) {
+					subtaskKeys.remove();
+				}
+			}
+
+			jobsWithLocalState.remove(jobId);
+			unreferencedJobs.remove(jobId);
+		}
+
+		for (File rootDirectory : rootDirectories) {
+			deleteDirectory(getJobDirectory(rootDirectory, jobId));
+		}
+
+		LOG.debug("Released local state of job {}.", jobId);
+	}
+
+	/**
+	 * Releases the local state of all jobs that had no registered tasks both at the previous
+	 * and at this call. This gives the tasks of a job that is restarted on this TaskManager a
+	 * full cleanup interval to register again before their local state is released.
+	 */
+	@VisibleForTesting
+	void releaseUnreferencedLocalState() {
+		Set<JobID> jobsToRelease = new HashSet<>();
+
+		synchronized (localSnapshots) {
+			Set<JobID> currentlyUnreferenced = new HashSet<>();
+
+			for (JobID jobId : jobsWithLocalState) {
+				if (!jobTasks.containsKey(jobId)) {
+					if (unreferencedJobs.contains(jobId)) {
+						jobsToRelease.add(jobId);
+					} else {
+						currentlyUnreferenced.add(jobId);
+					}
+				}
+			}
+
+			unreferencedJobs = currentlyUnreferenced;
+		}
+
+		for (JobID jobId : jobsToRelease) {
+			releaseLocalStateForJob(jobId);
+		}
+	}
+
+	/**
+	 * Deletes all local state. Local state that is stored afterwards is ignored.
+	 */
+	public void shutdown() {
+		if (cleanupTimer != null) {
+			cleanupTimer.cancel();
+		}
+
+		synchronized (localSnapshots) {
+			shutDown = true;
+			localSnapshots.clear();
+			jobsWithLocalState.clear();
+			unreferencedJobs.clear();
+		}
+
+		for (File rootDirectory : rootDirectories) {
+			deleteDirectory(rootDirectory);
+		}
+	}
+
+	private File getSubtaskDirectory(JobID jobId, JobVertexID jobVertexId, int subtaskIndex) {
+		int hash = 31 * jobVertexId.hashCode() + subtaskIndex;
+		File rootDirectory = rootDirectories[((hash % rootDirectories.length) + rootDirectories.length) % rootDirectories.length];
+
+		return new File(getJobDirectory(rootDirectory, jobId), "vtx_" + jobVertexId + '_' + subtaskIndex);
+	}
+
+	private static File getJobDirectory(File rootDirectory, JobID jobId) {
+		return new File(rootDirectory, "job_" + jobId);
+	}
+
+	private static void deleteDirectory(File directory) {
+		try {
+			FileUtils.deleteDirectory(directory);
+		} catch (IOException e) {
+			LOG.warn("Could not delete local state directory {}.", directory, e);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Identifies a subtask of a job.
+	 */
+	private static final class SubtaskKey {
+
+		private final JobID jobId;
+		private final JobVertexID jobVertexId;
+		private final int subtaskIndex;
+
+		SubtaskKey(JobID jobId, JobVertexID jobVertexId, int subtaskIndex) {
+			this.jobId = Preconditions.checkNotNull(jobId);
+			this.jobVertexId = Preconditions.checkNotNull(jobVertexId);
+			this.subtaskIndex = subtaskIndex;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+
+			SubtaskKey that = (SubtaskKey) o;
+
+			return subtaskIndex == that.subtaskIndex &&
+					jobId.equals(that.jobId) &&
+					jobVertexId.equals(that.jobVertexId);
+		}
+
+		@Override
+		public int hashCode() {
+			int result = jobId.hashCode();
+			result = 31 * result + jobVertexId.hashCode();
+			result = 31 * result + subtaskIndex;
+			return result;
+		}
+	}
+
+	/**
+	 * The local copy of a keyed state snapshot, together with the snapshot it duplicates.
+	 */
+	private static final class LocalSnapshot {
+
+		private final KeyedStateHandle remoteState;
+		private final KeyedStateHandle localState;
+
+		LocalSnapshot(KeyedStateHandle remoteState, KeyedStateHandle localState) {
+			this.remoteState = remoteState;
+			this.localState = localState;
+		}
+	}
+}
@@ -72,6 +72,9 @@ public class FsStateBackend extends AbstractStateBackend {
 	/** Switch to chose between synchronous and asynchronous snapshots */
 	private final boolean asynchronousSnapshots;
 
+	/** The maximum number of delta snapshots of the keyed state that are chained to a full snapshot */
+	private final int maxDeltaSnapshots;
+
 	/**
 	 * Creates a new state backend that stores its checkpoint data in the file system and location
 	 * defined by the given URI.
@@ -240,14 +243,47 @@ public class FsStateBackend extends AbstractStateBackend {
 			int fileStateSizeThreshold,
 			boolean asynchronousSnapshots) throws IOException {
 
+		this(checkpointDataUri, fileStateSizeThreshold, asynchronousSnapshots, 0);
+	}
+
+	/**
+	 * Creates a new state backend that stores its checkpoint data in the file system and location
+	 * defined by the given URI.
+	 *
+	 * <p>With delta snapshots, a checkpoint only writes the keyed state that was added, modified, or
+	 * removed since the last completed checkpoint, and chains it to the snapshots of that checkpoint.
+	 * After the given number of delta snapshots, the next checkpoint writes the keyed state in full and
+	 * starts a new chain. Delta snapshots require asynchronous snapshots. Savepoints are always written
+	 * in full.
+	 *
+	 * @param checkpointDataUri The URI describing the filesystem (scheme and optionally authority),
+	 *                          and the path to the checkpoint data directory.
+	 * @param fileStateSizeThreshold State up to this size will be stored as part of the metadata,
+	 *                             rather than in files
+	 * @param asynchronousSnapshots Switch to enable asynchronous snapshots.
+	 * @param maxDeltaSnapshots The maximum number of delta snapshots that are chained to a full
+	 *                          snapshot, or 0 to always write full snapshots.
+	 *
+	 * @throws IOException Thrown, if no file system can be found for the scheme in the URI.
+	 */
+	public FsStateBackend(
+			URI checkpointDataUri,
+			int fileStateSizeThreshold,
+			boolean asynchronousSnapshots,
+			int maxDeltaSnapshots) throws IOException {
+
 		checkArgument(fileStateSizeThreshold >= 0, "The threshold for file state size must be zero or larger.");
 		checkArgument(fileStateSizeThreshold <= MAX_FILE_STATE_THRESHOLD,
 				"The threshold for file state size cannot be larger than %s", MAX_FILE_STATE_THRESHOLD);
+		checkArgument(maxDeltaSnapshots >= 0, "The maximum number of delta snapshots must be zero or larger.");
+		checkArgument(maxDeltaSnapshots == 0 || asynchronousSnapshots,
+				"Delta snapshots require asynchronous snapshots.");
 
 		this.fileStateThreshold = fileStateSizeThreshold;
 		this.basePath = validateAndNormalizeUri(checkpointDataUri);
 
 		this.asynchronousSnapshots = asynchronousSnapshots;
+		this.maxDeltaSnapshots = maxDeltaSnapshots;
 	}
 
 	/**
@@ -273,6 +309,16 @@ public class FsStateBackend extends AbstractStateBackend {
 		return fileStateThreshold;
 	}
 
+	/**
+	 * Gets the maximum number of delta snapshots of the keyed state that are chained to a full
+	 * snapshot. 0 if every checkpoint writes the keyed state in full.
+	 *
+	 * @return The maximum number of delta snapshots.
+	 */
+	public int getMaxDeltaSnapshots() {
+		return maxDeltaSnapshots;
+	}
+
 	// ------------------------------------------------------------------------
 	//  initialization and cleanup
 	// ------------------------------------------------------------------------
@@ -308,7 +354,8 @@ public class FsStateBackend extends AbstractStateBackend {
 				numberOfKeyGroups,
 				keyGroupRange,
 				asynchronousSnapshots,
-				env.getExecutionConfig());
+				env.getExecutionConfig(),
+				maxDeltaSnapshots);
 	}
 
 	@Override
@@ -38,12 +38,17 @@ public class FsStateBackendFactory implements StateBackendFactory<FsStateBackend
 	 * rather than in files */
 	public static final String MEMORY_THRESHOLD_CONF_KEY = "state.backend.fs.memory-threshold";
 
+	/** The key under which the config stores the maximum number of delta snapshots that are chained
+	 * to a full snapshot of the keyed state */
+	public static final String MAX_DELTA_SNAPSHOTS_CONF_KEY = "state.backend.fs.max-delta-snapshots";
+
 
 	@Override
 	public FsStateBackend createFromConfig(Configuration config) throws IllegalConfigurationException {
 		final String checkpointDirURI = config.getString(CHECKPOINT_DIRECTORY_URI_CONF_KEY, null);
 		final int memoryThreshold = config.getInteger(
 			MEMORY_THRESHOLD_CONF_KEY, FsStateBackend.DEFAULT_FILE_STATE_THRESHOLD);
+		final int maxDeltaSnapshots = config.getInteger(MAX_DELTA_SNAPSHOTS_CONF_KEY, 0);
 
 		if (checkpointDirURI == null) {
 			throw new IllegalConfigurationException(
@@ -53,7 +58,10 @@ public class FsStateBackendFactory implements StateBackendFactory<FsStateBackend
 
 		try {
 			Path path = new Path(checkpointDirURI);
-			return new FsStateBackend(path.toUri(), memoryThreshold);
+			// delta snapshots are only supported with asynchronous snapshots
+			return maxDeltaSnapshots > 0 ?
+				new FsStateBackend(path.toUri(), memoryThreshold, true, maxDeltaSnapshots) :
+				new FsStateBackend(path.toUri(), memoryThreshold);
 		}
 		catch (IOException | IllegalArgumentException e) {
 			throw new IllegalConfigurationException("Invalid configuration for the state backend", e);
@@ -21,12 +21,16 @@ package org.apache.flink.runtime.state.heap;
 import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.state.RegisteredBackendStateMetaInfo;
+import org.apache.flink.runtime.state.StateSnapshotTransformer;
 import org.apache.flink.runtime.state.StateTransformationFunction;
+import org.apache.flink.runtime.state.ttl.ExpiredStateFilter;
 import org.apache.flink.util.MathUtils;
 import org.apache.flink.util.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
@@ -115,6 +119,11 @@ public class CopyOnWriteStateTable<K, N, S> extends StateTable<K, N, S> implemen
 	 */
 	private static final int MIN_TRANSFERRED_PER_INCREMENTAL_REHASH = 4;
 
+	/**
+	 * Minimum number of removed entries that are tracked for delta snapshots, independent of the size of the table.
+	 */
+	private static final int MIN_TRACKED_REMOVED_ENTRIES = 1024;
+
 	/**
 	 * An empty table shared by all zero-capacity maps (typically from default
 	 * constructor). It is never written to, and replaced on first put. Its size
@@ -190,6 +199,30 @@ public class CopyOnWriteStateTable<K, N, S> extends StateTable<K, N, S> implemen
 	 */
 	private int modCount;
 
+	/**
+	 * The removed mappings, in the order of removal. The entry version of each element is the version of this map
+	 * when the mapping was removed. This is null if removals are not tracked for delta snapshots.
+	 */
+	private ArrayDeque<StateTableEntry<K, N, S>> removedEntries;
+
+	/**
+	 * The lowest version of a snapshot on which a delta snapshot can be based. All removals since that snapshot are
+	 * still contained in {@link #removedEntries}.
+	 */
+	private int lowestDeltaBaseVersion;
+
+	/**
+	 * Filters or transforms the states when they are written to a snapshot. This is null if the states are written as
+	 * they are.
+	 */
+	private StateSnapshotTransformer<S> snapshotTransformer;
+
+	/**
+	 * The bucket at which the next call of {@link #cleanupIncrementally(ExpiredStateFilter, int)} continues. Buckets
+	 * of the primary table come first, followed by the buckets of the incremental rehash table.
+	 */
+	private int cleanupBucket;
+
 	/**
 	 * Constructs a new {@code StateTable} with default capacity of 1024.
 	 *
@@ -258,6 +291,18 @@ public class CopyOnWriteStateTable<K, N, S> extends StateTable<K, N, S> implemen
 
 	@Override
 	public S get(K key, N namespace) {
+		return get(key, namespace, false);
+	}
+
+	/**
+	 * Returns the state of the mapping for the given composite key, for a caller that modifies the returned state in
+	 * place. Unlike {@link #get(Object, Object)}, this marks the mapping as changed for the next delta snapshot.
+	 */
+	S getForUpdate(K key, N namespace) {
+		return get(key, namespace, true);
+	}
+
+	private S get(K key, N namespace, boolean forUpdate) {
 
 		final int hash = computeHashForOperationAndDoIncrementalRehash(key, namespace);
 		final int requiredVersion = highestRequiredSnapshotVersion;
@@ -277,6 +322,9 @@ public class CopyOnWriteStateTable<K, N, S> extends StateTable<K, N, S> implemen
 					}
 					e.stateVersion = stateTableVersion;
 					e.state = getStateSerializer().copy(e.state);
+				} else if (forUpdate) {
+					// the caller modifies the returned state in place, so it must be part of the next delta snapshot
+					e.stateVersion = stateTableVersion;
 				}
 
 				return e.state;
@@ -291,11 +339,21 @@ public class CopyOnWriteStateTable<K, N, S> extends StateTable<K, N, S> implemen
 		put(key, namespace, state);
 	}
 
+	@Override
+	public void remove(K key, int keyGroup, N namespace) {
+		remove(key, namespace);
+	}
+
 	@Override
 	public S get(N namespace) {
 		return get(keyContext.getCurrentKey(), namespace);
 	}
 
+	@Override
+	public S getForUpdate(N namespace) {
+		return getForUpdate(keyContext.getCurrentKey(), namespace);
+	}
+
 	@Override
 	public boolean containsKey(N namespace) {
 		return containsKey(keyContext.getCurrentKey(), namespace);
@@ -508,6 +566,9 @@ public class CopyOnWriteStateTable<K, N, S> extends StateTable<K, N, S> implemen
 				} else {
 					--incrementalRehashTableSize;
 				}
+				if (null != removedEntries) {
+					trackRemovedEntry(e);
+				}
 				return e;
 			}
 		}
@@ -856,6 +917,163 @@ public class CopyOnWriteStateTable<K, N, S> extends StateTable<K, N, S> implemen
 		releaseSnapshot(snapshotToRelease.getSnapshotVersion());
 	}
 
+	// Snapshot transformation and incremental cleanup -----------------------------------------------------------------
+
+	/**
+	 * Sets the transformer that is applied to the states when they are written to a snapshot.
+	 */
+	void setSnapshotTransformer(StateSnapshotTransformer<S> snapshotTransformer) {
+		this.snapshotTransformer = snapshotTransformer;
+	}
+
+	StateSnapshotTransformer<S> getSnapshotTransformer() {
+		return snapshotTransformer;
+	}
+
+	/**
+	 * Removes the entries whose state expired entirely according to the given filter. Each call checks whole buckets
+	 * until at least the given number of entries was checked, starting at the bucket where the previous call stopped,
+	 * and visits every bucket at most once. Entries whose state only partially expired are kept unchanged, because the
+	 * state object may still be in use by the caller.
+	 *
+	 * @param expiredStateFilter decides which states expired entirely.
+	 * @param numEntries the number of entries to check.
+	 */
+	void cleanupIncrementally(ExpiredStateFilter<S> expiredStateFilter, int numEntries) {
+
+		if (numEntries <= 0 || size() == 0) {
+			return;
+		}
+
+		final StateTableEntry<K, N, S>[] primary = primaryTable;
+		final StateTableEntry<K, N, S>[] rehash = incrementalRehashTable;
+		final int numBuckets = primary.length + rehash.length;
+
+		if (cleanupBucket >= numBuckets) {
+			cleanupBucket = 0;
+		}
+
+		// we only collect the entries first, because removing them can trigger a step of incremental rehashing
+		ArrayList<StateTableEntry<K, N, S>> toRemove = null;
+		int numChecked = 0;
+
+		for (int visited = 0; visited < numBuckets && numChecked < numEntries; ++visited) {
+
+			final StateTableEntry<K, N, S> first = cleanupBucket < primary.length ?
+					primary[cleanupBucket] :
+					rehash[cleanupBucket - primary.length];
+
+			for (StateTableEntry<K, N, S> e = first; e != null; e = e.next) {
+				++numChecked;
+				if (e.state != null && expiredStateFilter.isExpiredEntirely(e.state)) {
+					if (toRemove == null) {
+						toRemove = new ArrayList<>();
+					}
+					toRemove.add(e);
+				}
+			}
+
+			if (++cleanupBucket == numBuckets) {
+				cleanupBucket = 0;
+			}
+		}
+
+		if (toRemove != null) {
+			for (StateTableEntry<K, N, S> e : toRemove) {
+				removeEntry(e.key, e.namespace);
+			}
+		}
+	}
+
+	// Delta snapshots -------------------------------------------------------------------------------------------------
+
+	/**
+	 * Starts tracking the removed mappings of this {@link CopyOnWriteStateTable}, which is required to create delta
+	 * snapshots. Delta snapshots can only be based on snapshots that are created after this call.
+	 */
+	void trackRemovedEntries() {
+		if (null == removedEntries) {
+			removedEntries = new ArrayDeque<>();
+			lowestDeltaBaseVersion = stateTableVersion + 1;
+		}
+	}
+
+	/**
+	 * Returns true, if a delta snapshot can be based on the snapshot with the given version.
+	 */
+	boolean canCreateDeltaSnapshot(int baseSnapshotVersion) {
+		return null != removedEntries &&
+				baseSnapshotVersion >= lowestDeltaBaseVersion &&
+				baseSnapshotVersion <= stateTableVersion;
+	}
+
+	/**
+	 * Creates a delta snapshot of this {@link CopyOnWriteStateTable}. The snapshot only contains the mappings that
+	 * were added, modified, or removed since the snapshot with the given version was created. Like any other
+	 * snapshot, it must be released after use.
+	 *
+	 * @param baseSnapshotVersion the version of the snapshot on which the delta is based.
+	 * @return a delta snapshot from this {@link CopyOnWriteStateTable}, for checkpointing.
+	 */
+	@SuppressWarnings("unchecked")
+	CopyOnWriteStateTableSnapshot<K, N, S> createDeltaSnapshot(int baseSnapshotVersion) {
+
+		Preconditions.checkState(canCreateDeltaSnapshot(baseSnapshotVersion),
+				"Cannot create a delta snapshot based on version %s.", baseSnapshotVersion);
+
+		// the removed entries are ordered by version, so we skip the ones that are older than the base
+		final StateTableEntry<K, N, S>[] removedSinceBase = new StateTableEntry[removedEntries.size()];
+		int numRemovedSinceBase = 0;
+		for (StateTableEntry<K, N, S> removed : removedEntries) {
+			if (removed.entryVersion >= baseSnapshotVersion) {
+				removedSinceBase[numRemovedSinceBase++] = removed;
+			}
+		}
+
+		return new CopyOnWriteStateTableSnapshot<>(
+				this,
+				baseSnapshotVersion,
+				Arrays.copyOf(removedSinceBase, numRemovedSinceBase));
+	}
+
+	/**
+	 * Discards the tracked removals that are older than the snapshot with the given version. Afterwards, delta
+	 * snapshots can only be based on that snapshot or on later ones.
+	 */
+	void discardRemovedEntriesBefore(int snapshotVersion) {
+		if (null == removedEntries) {
+			return;
+		}
+
+		while (!removedEntries.isEmpty() && removedEntries.peekFirst().entryVersion < snapshotVersion) {
+			removedEntries.pollFirst();
+		}
+
+		lowestDeltaBaseVersion = Math.max(lowestDeltaBaseVersion, snapshotVersion);
+	}
+
+	/**
+	 * Remembers the key and namespace of the removed entry for the next delta snapshots.
+	 */
+	private void trackRemovedEntry(StateTableEntry<K, N, S> removed) {
+
+		// if there are more removals than mappings, a full snapshot is cheaper than a delta, so we stop to keep the
+		// removals around and only allow deltas that are based on snapshots created from now on
+		if (removedEntries.size() >= Math.max(size(), MIN_TRACKED_REMOVED_ENTRIES)) {
+			removedEntries.clear();
+			lowestDeltaBaseVersion = stateTableVersion + 1;
+		}
+
+		removedEntries.addLast(new StateTableEntry<>(
+				removed.key,
+				removed.namespace,
+				null,
+				removed.hash,
+				null,
+				stateTableVersion,
+				stateTableVersion));
+	}
+
 	// StateTableEntry -------------------------------------------------------------------------------------------------
 
 	/**
@@ -23,6 +23,7 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.core.memory.DataOutputView;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.StateSnapshotTransformer;
 
 import java.io.IOException;
 
@@ -70,6 +71,24 @@ public class CopyOnWriteStateTableSnapshot<K, N, S>
 	 */
 	private int[] keyGroupOffsets;
 
+	/**
+	 * Only entries whose state was modified since the snapshot with this version was created are part of this
+	 * snapshot. This is 0 for a full snapshot, which contains all entries.
+	 */
+	private final int baseSnapshotVersion;
+
+	/**
+	 * The entries that were removed since the base snapshot was created. Only the key and namespace of these entries
+	 * are meaningful. The array is grouped by key-group together with the snapshot data.
+	 */
+	private CopyOnWriteStateTable.StateTableEntry<K, N, S>[] removedEntries;
+
+	/**
+	 * Offsets for the individual key-groups in the removed entries. This is lazily created together with
+	 * {@link #keyGroupOffsets}.
+	 */
+	private int[] removedKeyGroupOffsets;
+
 	/**
 	 * A local duplicate of the table's key serializer.
 	 */
@@ -85,14 +104,36 @@ public class CopyOnWriteStateTableSnapshot<K, N, S>
 	 */
 	private final TypeSerializer<S> localStateSerializer;
 
+	/**
+	 * The transformer that is applied to the states before they are written, or null if they are written as they are.
+	 */
+	private final StateSnapshotTransformer<S> snapshotTransformer;
+
 	/**
 	 * Creates a new {@link CopyOnWriteStateTableSnapshot}.
 	 *
 	 * @param owningStateTable the {@link CopyOnWriteStateTable} for which this object represents a snapshot.
 	 */
+	@SuppressWarnings("unchecked")
 	CopyOnWriteStateTableSnapshot(CopyOnWriteStateTable<K, N, S> owningStateTable) {
+		this(owningStateTable, 0, new CopyOnWriteStateTable.StateTableEntry[0]);
+	}
+
+	/**
+	 * Creates a new {@link CopyOnWriteStateTableSnapshot} that only contains the changes since a previous snapshot.
+	 *
+	 * @param owningStateTable the {@link CopyOnWriteStateTable} for which this object represents a snapshot.
+	 * @param baseSnapshotVersion the version of the snapshot on which this snapshot is based, or 0 for all entries.
+	 * @param removedEntries the entries that were removed since the base snapshot was created.
+	 */
+	CopyOnWriteStateTableSnapshot(
+			CopyOnWriteStateTable<K, N, S> owningStateTable,
+			int baseSnapshotVersion,
+			CopyOnWriteStateTable.StateTableEntry<K, N, S>[] removedEntries) {
 
 		super(owningStateTable);
+		this.baseSnapshotVersion = baseSnapshotVersion;
+		this.removedEntries = removedEntries;
 		this.snapshotData = owningStateTable.snapshotTableArrays();
 		this.snapshotVersion = owningStateTable.getStateTableVersion();
 		this.stateTableSize = owningStateTable.size();
@@ -102,6 +143,7 @@ public class CopyOnWriteStateTableSnapshot<K, N, S>
 		this.localKeySerializer = owningStateTable.keyContext.getKeySerializer().duplicate();
 		this.localNamespaceSerializer = owningStateTable.metaInfo.getNamespaceSerializer().duplicate();
 		this.localStateSerializer = owningStateTable.metaInfo.getStateSerializer().duplicate();
+		this.snapshotTransformer = owningStateTable.getSnapshotTransformer();
 
 		this.keyGroupOffsets = null;
 	}
@@ -115,13 +157,8 @@ public class CopyOnWriteStateTableSnapshot<K, N, S>
 	}
 
 	/**
-	 * Partitions the snapshot data by key-group. The algorithm first builds a histogram for the distribution of keys
-	 * into key-groups. Then, the histogram is accumulated to obtain the boundaries of each key-group in an array.
-	 * Last, we use the accumulated counts as write position pointers for the key-group's bins when reordering the
-	 * entries by key-group. This operation is lazily performed before the first writing of a key-group.
-	 * <p>
-	 * As a possible future optimization, we could perform the repartitioning in-place, using a scheme similar to the
-	 * cuckoo cycles in cuckoo hashing. This can trade some performance for a smaller memory footprint.
+	 * Partitions the snapshot data and the removed entries by key-group. Entries that were not modified since the
+	 * base snapshot are skipped. This operation is lazily performed before the first writing of a key-group.
 	 */
 	@SuppressWarnings("unchecked")
 	private void partitionEntriesByKeyGroup() {
@@ -131,39 +168,71 @@ public class CopyOnWriteStateTableSnapshot<K, N, S>
 			return;
 		}
 
-		final KeyGroupRange keyGroupRange = owningStateTable.keyContext.getKeyGroupRange();
-		final int totalKeyGroups = owningStateTable.keyContext.getNumberOfKeyGroups();
-		final int baseKgIdx = keyGroupRange.getStartKeyGroup();
-		final int[] histogram = new int[keyGroupRange.getNumberOfKeyGroups() + 1];
-
 		CopyOnWriteStateTable.StateTableEntry<K, N, S>[] unfold = new CopyOnWriteStateTable.StateTableEntry[stateTableSize];
 
-		// 1) In this step we i) 'unfold' the linked list of entries to a flat array and ii) build a histogram for key-groups
+		// 1) In this step we 'unfold' the linked list of entries to a flat array
 		int unfoldIndex = 0;
 		for (CopyOnWriteStateTable.StateTableEntry<K, N, S> entry : snapshotData) {
 			while (null != entry) {
-				int effectiveKgIdx =
-						KeyGroupRangeAssignment.computeKeyGroupForKeyHash(entry.key.hashCode(), totalKeyGroups) - baseKgIdx + 1;
-				++histogram[effectiveKgIdx];
-				unfold[unfoldIndex++] = entry;
+				if (entry.stateVersion >= baseSnapshotVersion) {
+					unfold[unfoldIndex++] = entry;
+				}
 				entry = entry.next;
 			}
 		}
 
+		// 2) We repartition the entries by key-group, as byproduct, we also create the key-group offsets
+		this.keyGroupOffsets = partitionByKeyGroup(unfold, unfoldIndex, snapshotData);
+
+		CopyOnWriteStateTable.StateTableEntry<K, N, S>[] groupedRemovedEntries =
+				new CopyOnWriteStateTable.StateTableEntry[removedEntries.length];
+
+		this.removedKeyGroupOffsets = partitionByKeyGroup(removedEntries, removedEntries.length, groupedRemovedEntries);
+		this.removedEntries = groupedRemovedEntries;
+	}
+
+	/**
+	 * Partitions the first entries of the source array by key-group into the target array. The algorithm first builds
+	 * a histogram for the distribution of keys into key-groups. Then, the histogram is accumulated to obtain the
+	 * boundaries of each key-group in an array. Last, we use the accumulated counts as write position pointers for the
+	 * key-group's bins when reordering the entries by key-group.
+	 * <p>
+	 * As a possible future optimization, we could perform the repartitioning in-place, using a scheme similar to the
+	 * cuckoo cycles in cuckoo hashing. This can trade some performance for a smaller memory footprint.
+	 *
+	 * @return the accumulated histogram, which holds the end offset of each key-group in the target array.
+	 */
+	private int[] partitionByKeyGroup(
+			CopyOnWriteStateTable.StateTableEntry<K, N, S>[] source,
+			int numEntries,
+			CopyOnWriteStateTable.StateTableEntry<K, N, S>[] target) {
+
+		final KeyGroupRange keyGroupRange = owningStateTable.keyContext.getKeyGroupRange();
+		final int totalKeyGroups = owningStateTable.keyContext.getNumberOfKeyGroups();
+		final int baseKgIdx = keyGroupRange.getStartKeyGroup();
+		final int[] histogram = new int[keyGroupRange.getNumberOfKeyGroups() + 1];
+
+		// 1) We build a histogram for key-groups
+		for (int i = 0; i < numEntries; ++i) {
+			int effectiveKgIdx =
+					KeyGroupRangeAssignment.computeKeyGroupForKeyHash(source[i].key.hashCode(), totalKeyGroups) - baseKgIdx + 1;
+			++histogram[effectiveKgIdx];
+		}
+
 		// 2) We accumulate the histogram bins to obtain key-group ranges in the final array
 		for (int i = 1; i < histogram.length; ++i) {
 			histogram[i] += histogram[i - 1];
 		}
 
 		// 3) We repartition the entries by key-group, using the histogram values as write indexes
-		for (CopyOnWriteStateTable.StateTableEntry<K, N, S> t : unfold) {
+		for (int i = 0; i < numEntries; ++i) {
+			CopyOnWriteStateTable.StateTableEntry<K, N, S> t = source[i];
 			int effectiveKgIdx =
 					KeyGroupRangeAssignment.computeKeyGroupForKeyHash(t.key.hashCode(), totalKeyGroups) - baseKgIdx;
-			snapshotData[histogram[effectiveKgIdx]++] = t;
+			target[histogram[effectiveKgIdx]++] = t;
 		}
 
-		// 4) As byproduct, we also created the key-group offsets
-		this.keyGroupOffsets = histogram;
+		return histogram;
 	}
 
 	@Override
@@ -178,23 +247,134 @@ public class CopyOnWriteStateTableSnapshot<K, N, S>
 			partitionEntriesByKeyGroup();
 		}
 
-		final CopyOnWriteStateTable.StateTableEntry<K, N, S>[] groupedOut = snapshotData;
 		KeyGroupRange keyGroupRange = owningStateTable.keyContext.getKeyGroupRange();
 		int keyGroupOffsetIdx = keyGroupId - keyGroupRange.getStartKeyGroup() - 1;
 		int startOffset = keyGroupOffsetIdx < 0 ? 0 : keyGroupOffsets[keyGroupOffsetIdx];
 		int endOffset = keyGroupOffsets[keyGroupOffsetIdx + 1];
 
+		writeMappings(dov, startOffset, endOffset, transformStates(startOffset, endOffset));
+	}
+
+	/**
+	 * Writes the changes of the specified key-group to the output. First, the key and namespace of all mappings that
+	 * were removed since the base snapshot are written, followed by all mappings that were added or modified since
+	 * then. For a full snapshot, there are no removed mappings. Mappings that are dropped by the snapshot transformer
+	 * are written as removed mappings, so that they do not survive from the base snapshot.
+	 *
+	 * @param dov the output
+	 * @param keyGroupId the key-group to write
+	 * @throws IOException on write related problems
+	 */
+	void writeChangesInKeyGroup(DataOutputView dov, int keyGroupId) throws IOException {
+
+		if (null == keyGroupOffsets) {
+			partitionEntriesByKeyGroup();
+		}
+
+		final CopyOnWriteStateTable.StateTableEntry<K, N, S>[] groupedOut = removedEntries;
+		KeyGroupRange keyGroupRange = owningStateTable.keyContext.getKeyGroupRange();
+		int keyGroupOffsetIdx = keyGroupId - keyGroupRange.getStartKeyGroup() - 1;
+		int startOffset = keyGroupOffsetIdx < 0 ? 0 : removedKeyGroupOffsets[keyGroupOffsetIdx];
+		int endOffset = removedKeyGroupOffsets[keyGroupOffsetIdx + 1];
+
+		int mappingsStartOffset = keyGroupOffsetIdx < 0 ? 0 : keyGroupOffsets[keyGroupOffsetIdx];
+		int mappingsEndOffset = keyGroupOffsets[keyGroupOffsetIdx + 1];
+		S[] transformedStates = transformStates(mappingsStartOffset, mappingsEndOffset);
+
+		// write number of removed mappings in key-group
+		dov.writeInt(endOffset - startOffset + countDropped(transformedStates));
+
+		// write removed mappings
+		for (int i = startOffset; i < endOffset; ++i) {
+			CopyOnWriteStateTable.StateTableEntry<K, N, S> toWrite = groupedOut[i];
+			groupedOut[i] = null; // free asap for GC
+			localNamespaceSerializer.serialize(toWrite.namespace, dov);
+			localKeySerializer.serialize(toWrite.key, dov);
+		}
+
+		// write dropped mappings
+		if (transformedStates != null) {
+			for (int i = 0; i < transformedStates.length; ++i) {
+				if (transformedStates[i] == null) {
+					CopyOnWriteStateTable.StateTableEntry<K, N, S> toWrite = snapshotData[mappingsStartOffset + i];
+					localNamespaceSerializer.serialize(toWrite.namespace, dov);
+					localKeySerializer.serialize(toWrite.key, dov);
+				}
+			}
+		}
+
+		writeMappings(dov, mappingsStartOffset, mappingsEndOffset, transformedStates);
+	}
+
+	/**
+	 * Writes the number of mappings in the given range of the grouped snapshot data, followed by the mappings.
+	 *
+	 * @param transformedStates the transformed states of the mappings, or null if the states are written as they are.
+	 */
+	private void writeMappings(
+			DataOutputView dov,
+			int startOffset,
+			int endOffset,
+			S[] transformedStates) throws IOException {
+
+		final CopyOnWriteStateTable.StateTableEntry<K, N, S>[] groupedOut = snapshotData;
+
 		// write number of mappings in key-group
-		dov.writeInt(endOffset - startOffset);
+		dov.writeInt(endOffset - startOffset - countDropped(transformedStates));
 
 		// write mappings
 		for (int i = startOffset; i < endOffset; ++i) {
 			CopyOnWriteStateTable.StateTableEntry<K, N, S> toWrite = groupedOut[i];
 			groupedOut[i] = null; // free asap for GC
+
+			S state = toWrite.state;
+			if (transformedStates != null) {
+				state = transformedStates[i - startOffset];
+				if (state == null) {
+					continue;
+				}
+			}
+
 			localNamespaceSerializer.serialize(toWrite.namespace, dov);
 			localKeySerializer.serialize(toWrite.key, dov);
-			localStateSerializer.serialize(toWrite.state, dov);
+			localStateSerializer.serialize(state, dov);
+		}
+	}
+
+	/**
+	 * Applies the snapshot transformer to the states in the given range of the grouped snapshot data. A null element
+	 * in the result means that the mapping is dropped from the snapshot.
+	 *
+	 * @return the transformed states, or null if this snapshot has no transformer.
+	 */
+	@SuppressWarnings("unchecked")
+	private S[] transformStates(int startOffset, int endOffset) {
+
+		if (snapshotTransformer == null) {
+			return null;
+		}
+
+		S[] transformedStates = (S[]) new Object[endOffset - startOffset];
+		for (int i = startOffset; i < endOffset; ++i) {
+			S state = snapshotData[i].state;
+			transformedStates[i - startOffset] = state == null ? null : snapshotTransformer.filterOrTransform(state);
+		}
+		return transformedStates;
+	}
+
+	private static int countDropped(Object[] transformedStates) {
+
+		if (transformedStates == null) {
+			return 0;
+		}
+
+		int numDropped = 0;
+		for (Object state : transformedStates) {
+			if (state == null) {
+				++numDropped;
+			}
 		}
+		return numDropped;
 	}
 
 	/**
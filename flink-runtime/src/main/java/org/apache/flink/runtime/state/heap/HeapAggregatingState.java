@@ -72,7 +72,8 @@ public class HeapAggregatingState<K, N, IN, ACC, OUT>
 	@Override
 	public OUT get() {
 
-		ACC accumulator = stateTable.get(currentNamespace);
+		// the aggregate function may modify the accumulator when computing the result
+		ACC accumulator = stateTable.getForUpdate(currentNamespace);
 		return accumulator != null ? aggregateTransformation.aggFunction.getResult(accumulator) : null;
 	}
 
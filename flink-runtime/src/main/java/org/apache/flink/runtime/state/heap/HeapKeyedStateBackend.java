@@ -32,7 +32,9 @@ import org.apache.flink.api.common.state.ValueStateDescriptor;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.core.memory.DataInputView;
 import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.core.memory.DataOutputView;
 import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
 import org.apache.flink.migration.MigrationUtil;
 import org.apache.flink.migration.runtime.state.KvStateSnapshot;
@@ -44,15 +46,18 @@ import org.apache.flink.runtime.io.async.AsyncStoppableTaskWithCallback;
 import org.apache.flink.runtime.query.TaskKvStateRegistry;
 import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
 import org.apache.flink.runtime.state.ArrayListSerializer;
+import org.apache.flink.runtime.state.CheckpointListener;
 import org.apache.flink.runtime.state.CheckpointStreamFactory;
 import org.apache.flink.runtime.state.DoneFuture;
 import org.apache.flink.runtime.state.HashMapSerializer;
+import org.apache.flink.runtime.state.IncrementalKeyedStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
 import org.apache.flink.runtime.state.KeyGroupsStateHandle;
 import org.apache.flink.runtime.state.KeyedBackendSerializationProxy;
 import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.RegisteredBackendStateMetaInfo;
+import org.apache.flink.runtime.state.SharedStreamStateHandle;
 import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.internal.InternalAggregatingState;
 import org.apache.flink.runtime.state.internal.InternalFoldingState;
@@ -60,6 +65,7 @@ import org.apache.flink.runtime.state.internal.InternalListState;
 import org.apache.flink.runtime.state.internal.InternalMapState;
 import org.apache.flink.runtime.state.internal.InternalReducingState;
 import org.apache.flink.runtime.state.internal.InternalValueState;
+import org.apache.flink.runtime.state.ttl.ExpiredStateFilter;
 import org.apache.flink.util.InstantiationUtil;
 import org.apache.flink.util.Preconditions;
 import org.slf4j.Logger;
@@ -68,9 +74,13 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
 import java.util.concurrent.RunnableFuture;
 
 /**
@@ -78,9 +88,14 @@ import java.util.concurrent.RunnableFuture;
  * streams provided by a {@link org.apache.flink.runtime.state.CheckpointStreamFactory} upon
  * checkpointing.
  *
+ * <p>With delta snapshots enabled, a checkpoint only writes the mappings that were added, modified, or
+ * removed since the snapshot of the last completed checkpoint. The delta is chained to the snapshots of
+ * that checkpoint, and the streams of the chain are shared between checkpoints. Once a chain reaches the
+ * maximum number of delta snapshots, the next checkpoint writes a full snapshot that starts a new chain.
+ *
  * @param <K> The key by which state is keyed.
  */
-public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
+public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> implements CheckpointListener {
 
 	private static final Logger LOG = LoggerFactory.getLogger(HeapKeyedStateBackend.class);
 
@@ -100,6 +115,24 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 	 */
 	private final boolean asynchronousSnapshots;
 
+	/**
+	 * The maximum number of delta snapshots that are chained to a full snapshot. 0 if every checkpoint
+	 * writes a full snapshot.
+	 */
+	private final int maxDeltaSnapshots;
+
+	/** Unique id of this backend instance, used to create unique registration keys for the snapshot streams */
+	private final String backendUID;
+
+	/**
+	 * The snapshot chains of the delta snapshots, by checkpoint id. Only the chains of the last completed
+	 * checkpoint and of later checkpoints are kept.
+	 */
+	private final SortedMap<Long, SnapshotChain> snapshotChains;
+
+	/** The id of the last completed checkpoint with a snapshot chain, guarded by {@link #snapshotChains} */
+	private long lastCompletedCheckpointId = -1L;
+
 	public HeapKeyedStateBackend(
 			TaskKvStateRegistry kvStateRegistry,
 			TypeSerializer<K> keySerializer,
@@ -109,8 +142,30 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			boolean asynchronousSnapshots,
 			ExecutionConfig executionConfig) {
 
+		this(kvStateRegistry, keySerializer, userCodeClassLoader, numberOfKeyGroups, keyGroupRange,
+				asynchronousSnapshots, executionConfig, 0);
+	}
+
+	public HeapKeyedStateBackend(
+			TaskKvStateRegistry kvStateRegistry,
+			TypeSerializer<K> keySerializer,
+			ClassLoader userCodeClassLoader,
+			int numberOfKeyGroups,
+			KeyGroupRange keyGroupRange,
+			boolean asynchronousSnapshots,
+			ExecutionConfig executionConfig,
+			int maxDeltaSnapshots) {
+
 		super(kvStateRegistry, keySerializer, userCodeClassLoader, numberOfKeyGroups, keyGroupRange, executionConfig);
+
+		Preconditions.checkArgument(maxDeltaSnapshots >= 0, "The maximum number of delta snapshots must not be negative.");
+		Preconditions.checkArgument(maxDeltaSnapshots == 0 || asynchronousSnapshots,
+				"Delta snapshots require asynchronous snapshots.");
+
 		this.asynchronousSnapshots = asynchronousSnapshots;
+		this.maxDeltaSnapshots = maxDeltaSnapshots;
+		this.backendUID = UUID.randomUUID().toString();
+		this.snapshotChains = new TreeMap<>();
 		LOG.info("Initializing heap keyed state backend with stream factory.");
 	}
 
@@ -234,6 +289,12 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			return DoneFuture.nullValue();
 		}
 
+		// savepoints are self-contained, so they are always written in full
+		if (maxDeltaSnapshots > 0 &&
+				checkpointOptions.getCheckpointType() != CheckpointOptions.CheckpointType.SAVEPOINT) {
+			return snapshotIncrementally(checkpointId, timestamp, streamFactory);
+		}
+
 		long syncStartTime = System.currentTimeMillis();
 
 		Preconditions.checkState(stateTables.size() <= Short.MAX_VALUE,
@@ -311,6 +372,15 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 
 					return keyGroupsStateHandle;
 				}
+
+				@Override
+				public void done(boolean canceled) {
+					super.done(canceled);
+
+					for (StateTableSnapshot stateTableSnapshot : cowStateStableSnapshots.values()) {
+						stateTableSnapshot.release();
+					}
+				}
 			};
 
 		AsyncStoppableTaskWithCallback<KeyedStateHandle> task = AsyncStoppableTaskWithCallback.from(ioCallable);
@@ -325,6 +395,245 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		return task;
 	}
 
+	/**
+	 * Writes the changes since the snapshot of the last completed checkpoint and chains them to that
+	 * snapshot. If there is no such snapshot, or the chain is already at its maximum length, this
+	 * writes a full snapshot that starts a new chain.
+	 */
+	@SuppressWarnings("unchecked")
+	private RunnableFuture<KeyedStateHandle> snapshotIncrementally(
+			final long checkpointId,
+			final long timestamp,
+			final CheckpointStreamFactory streamFactory) throws Exception {
+
+		long syncStartTime = System.currentTimeMillis();
+
+		Preconditions.checkState(stateTables.size() <= Short.MAX_VALUE,
+				"Too many KV-States: " + stateTables.size() +
+						". Currently at most " + Short.MAX_VALUE + " states are supported");
+
+		SnapshotChain lastCompletedChain;
+		synchronized (snapshotChains) {
+			lastCompletedChain = snapshotChains.get(lastCompletedCheckpointId);
+		}
+
+		if (lastCompletedChain != null && lastCompletedChain.getElements().size() > maxDeltaSnapshots) {
+			// compact the chain into a new full snapshot
+			lastCompletedChain = null;
+		}
+
+		if (lastCompletedChain != null) {
+			for (Map.Entry<String, StateTable<K, ?, ?>> kvState : stateTables.entrySet()) {
+				Integer baseSnapshotVersion = lastCompletedChain.getStateTableVersions().get(kvState.getKey());
+				CopyOnWriteStateTable<K, ?, ?> stateTable = (CopyOnWriteStateTable<K, ?, ?>) kvState.getValue();
+
+				if (baseSnapshotVersion != null && !stateTable.canCreateDeltaSnapshot(baseSnapshotVersion)) {
+					lastCompletedChain = null;
+					break;
+				}
+			}
+		}
+
+		final SnapshotChain baseChain = lastCompletedChain;
+
+		final List<KeyedBackendSerializationProxy.StateMetaInfo<?, ?>> metaInfoProxyList = new ArrayList<>(stateTables.size());
+		final List<CopyOnWriteStateTableSnapshot<K, ?, ?>> stateTableSnapshots = new ArrayList<>(stateTables.size());
+		final Map<String, Integer> stateTableVersions = new HashMap<>(stateTables.size());
+
+		for (Map.Entry<String, StateTable<K, ?, ?>> kvState : stateTables.entrySet()) {
+			CopyOnWriteStateTable<K, ?, ?> stateTable = (CopyOnWriteStateTable<K, ?, ?>) kvState.getValue();
+			RegisteredBackendStateMetaInfo<?, ?> metaInfo = stateTable.getMetaInfo();
+
+			KeyedBackendSerializationProxy.StateMetaInfo<?, ?> metaInfoProxy = new KeyedBackendSerializationProxy.StateMetaInfo(
+					metaInfo.getStateType(),
+					metaInfo.getName(),
+					metaInfo.getNamespaceSerializer(),
+					metaInfo.getStateSerializer());
+
+			metaInfoProxyList.add(metaInfoProxy);
+
+			// states that were registered after the base snapshot are written in full
+			Integer baseSnapshotVersion = baseChain != null ?
+					baseChain.getStateTableVersions().get(kvState.getKey()) :
+					null;
+
+			CopyOnWriteStateTableSnapshot<K, ?, ?> stateTableSnapshot = baseSnapshotVersion != null ?
+					stateTable.createDeltaSnapshot(baseSnapshotVersion) :
+					stateTable.createSnapshot();
+
+			stateTableSnapshots.add(stateTableSnapshot);
+			stateTableVersions.put(kvState.getKey(), stateTableSnapshot.getSnapshotVersion());
+		}
+
+		final KeyedBackendSerializationProxy serializationProxy =
+				new KeyedBackendSerializationProxy(keySerializer, metaInfoProxyList);
+
+		//--------------------------------------------------- this becomes the end of sync part
+
+		final AbstractAsyncSnapshotIOCallable<KeyedStateHandle> ioCallable =
+			new AbstractAsyncSnapshotIOCallable<KeyedStateHandle>(
+				checkpointId,
+				timestamp,
+				streamFactory,
+				cancelStreamRegistry) {
+
+				@Override
+				public KeyedStateHandle performOperation() throws Exception {
+					long asyncStartTime = System.currentTimeMillis();
+					CheckpointStreamFactory.CheckpointStateOutputStream stream = getIoHandle();
+					DataOutputViewStreamWrapper outView = new DataOutputViewStreamWrapper(stream);
+					serializationProxy.write(outView);
+
+					long[] keyGroupRangeOffsets = new long[keyGroupRange.getNumberOfKeyGroups()];
+
+					for (int keyGroupPos = 0; keyGroupPos < keyGroupRange.getNumberOfKeyGroups(); ++keyGroupPos) {
+						int keyGroupId = keyGroupRange.getKeyGroupId(keyGroupPos);
+						keyGroupRangeOffsets[keyGroupPos] = stream.getPos();
+						outView.writeInt(keyGroupId);
+
+						for (int kvStateId = 0; kvStateId < stateTableSnapshots.size(); ++kvStateId) {
+							outView.writeShort(kvStateId);
+							stateTableSnapshots.get(kvStateId).writeChangesInKeyGroup(outView, keyGroupId);
+						}
+					}
+
+					final StreamStateHandle streamStateHandle = closeStreamAndGetStateHandle();
+
+					if (streamStateHandle == null) {
+						return null;
+					}
+
+					final String elementName = "chk-" + checkpointId;
+
+					List<SnapshotChainElement> elements = new ArrayList<>();
+					if (baseChain != null) {
+						elements.addAll(baseChain.getElements());
+					}
+					elements.add(new SnapshotChainElement(
+							elementName,
+							new SharedStreamStateHandle(backendUID + '-' + checkpointId, streamStateHandle),
+							new KeyGroupRangeOffsets(keyGroupRange, keyGroupRangeOffsets)));
+
+					final StreamStateHandle metaStateHandle;
+					try {
+						metaStateHandle = writeSnapshotChainMetaData(elements, streamFactory, checkpointId, timestamp);
+					} catch (Exception e) {
+						try {
+							streamStateHandle.discardState();
+						} catch (Exception discardException) {
+							e.addSuppressed(discardException);
+						}
+
+						throw e;
+					}
+
+					Map<String, SharedStreamStateHandle> sharedState = new HashMap<>(elements.size());
+					for (SnapshotChainElement element : elements) {
+						sharedState.put(element.getName(), element.getStateHandle());
+					}
+
+					synchronized (snapshotChains) {
+						if (checkpointId > lastCompletedCheckpointId) {
+							snapshotChains.put(checkpointId, new SnapshotChain(elements, stateTableVersions));
+						}
+					}
+
+					LOG.info("Heap backend {} snapshot ({}, asynchronous part) in thread {} took {} ms.",
+						baseChain != null ? "delta" : "full", streamFactory, Thread.currentThread(),
+						(System.currentTimeMillis() - asyncStartTime));
+
+					return new IncrementalKeyedStateHandle(
+							keyGroupRange,
+							checkpointId,
+							sharedState,
+							Collections.singleton(elementName),
+							Collections.<String, StreamStateHandle>emptyMap(),
+							metaStateHandle);
+				}
+
+				@Override
+				public void done(boolean canceled) {
+					super.done(canceled);
+
+					for (CopyOnWriteStateTableSnapshot<K, ?, ?> stateTableSnapshot : stateTableSnapshots) {
+						stateTableSnapshot.release();
+					}
+				}
+			};
+
+		AsyncStoppableTaskWithCallback<KeyedStateHandle> task = AsyncStoppableTaskWithCallback.from(ioCallable);
+
+		LOG.info("Heap backend {} snapshot ({}, synchronous part) in thread {} took {} ms.",
+				baseChain != null ? "delta" : "full", streamFactory, Thread.currentThread(),
+				(System.currentTimeMillis() - syncStartTime));
+
+		return task;
+	}
+
+	/**
+	 * Writes the names and key-group offsets of the snapshots in the given chain to a new stream.
+	 */
+	private StreamStateHandle writeSnapshotChainMetaData(
+			List<SnapshotChainElement> elements,
+			CheckpointStreamFactory streamFactory,
+			long checkpointId,
+			long timestamp) throws Exception {
+
+		CheckpointStreamFactory.CheckpointStateOutputStream outputStream =
+				streamFactory.createCheckpointStateOutputStream(checkpointId, timestamp);
+
+		cancelStreamRegistry.registerClosable(outputStream);
+
+		try {
+			DataOutputView outView = new DataOutputViewStreamWrapper(outputStream);
+
+			outView.writeInt(elements.size());
+			for (SnapshotChainElement element : elements) {
+				KeyGroupRange elementKeyGroupRange = element.getOffsets().getKeyGroupRange();
+
+				outView.writeUTF(element.getName());
+				outView.writeInt(elementKeyGroupRange.getStartKeyGroup());
+				outView.writeInt(elementKeyGroupRange.getNumberOfKeyGroups());
+
+				for (Tuple2<Integer, Long> groupOffset : element.getOffsets()) {
+					outView.writeLong(groupOffset.f1);
+				}
+			}
+
+			return outputStream.closeAndGetHandle();
+		} finally {
+			cancelStreamRegistry.unregisterClosable(outputStream);
+			IOUtils.closeQuietly(outputStream);
+		}
+	}
+
+	@Override
+	public void notifyCheckpointComplete(long checkpointId) {
+		SnapshotChain completedChain;
+
+		synchronized (snapshotChains) {
+			completedChain = snapshotChains.get(checkpointId);
+
+			if (completedChain == null || checkpointId <= lastCompletedCheckpointId) {
+				return;
+			}
+
+			lastCompletedCheckpointId = checkpointId;
+
+			// chains of older checkpoints can never become the base of a snapshot again
+			snapshotChains.headMap(checkpointId).clear();
+		}
+
+		// the removals before the completed snapshot are not needed for deltas any more
+		for (Map.Entry<String, Integer> stateTableVersion : completedChain.getStateTableVersions().entrySet()) {
+			StateTable<K, ?, ?> stateTable = stateTables.get(stateTableVersion.getKey());
+
+			if (stateTable instanceof CopyOnWriteStateTable) {
+				((CopyOnWriteStateTable<K, ?, ?>) stateTable).discardRemovedEntriesBefore(stateTableVersion.getValue());
+			}
+		}
+	}
+
 	@SuppressWarnings("deprecation")
 	@Override
 	public void restore(Collection<KeyedStateHandle> restoredState) throws Exception {
@@ -354,6 +663,11 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 				continue;
 			}
 
+			if (keyedStateHandle instanceof IncrementalKeyedStateHandle) {
+				restoreSnapshotChain((IncrementalKeyedStateHandle) keyedStateHandle);
+				continue;
+			}
+
 			if (!(keyedStateHandle instanceof KeyGroupsStateHandle)) {
 				throw new IllegalStateException("Unexpected state handle type, " +
 						"expected: " + KeyGroupsStateHandle.class +
@@ -425,6 +739,122 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		}
 	}
 
+	/**
+	 * Restores the full snapshot and the delta snapshots of the given chain, in the order in which they
+	 * were written. The first snapshot after the restore is a full snapshot again.
+	 */
+	private void restoreSnapshotChain(IncrementalKeyedStateHandle stateHandle) throws Exception {
+
+		List<SnapshotChainElement> elements = readSnapshotChainMetaData(stateHandle);
+
+		for (SnapshotChainElement element : elements) {
+			FSDataInputStream fsDataInputStream = element.getStateHandle().openInputStream();
+			cancelStreamRegistry.registerClosable(fsDataInputStream);
+
+			try {
+				DataInputViewStreamWrapper inView = new DataInputViewStreamWrapper(fsDataInputStream);
+
+				KeyedBackendSerializationProxy serializationProxy =
+						new KeyedBackendSerializationProxy(userCodeClassLoader);
+
+				serializationProxy.read(inView);
+
+				List<KeyedBackendSerializationProxy.StateMetaInfo<?, ?>> metaInfoList =
+						serializationProxy.getNamedStateSerializationProxies();
+
+				// the id of a state is its position in the meta data of the snapshot
+				List<StateTableByKeyGroupReader> keyGroupReaders = new ArrayList<>(metaInfoList.size());
+
+				for (KeyedBackendSerializationProxy.StateMetaInfo<?, ?> metaInfoSerializationProxy : metaInfoList) {
+
+					StateTable<K, ?, ?> stateTable = stateTables.get(metaInfoSerializationProxy.getStateName());
+
+					if (null == stateTable) {
+
+						RegisteredBackendStateMetaInfo<?, ?> registeredBackendStateMetaInfo =
+								new RegisteredBackendStateMetaInfo<>(metaInfoSerializationProxy);
+
+						stateTable = newStateTable(registeredBackendStateMetaInfo);
+						stateTables.put(metaInfoSerializationProxy.getStateName(), stateTable);
+					}
+
+					keyGroupReaders.add(StateTableByKeyGroupReaders.readerForChanges(stateTable));
+				}
+
+				for (Tuple2<Integer, Long> groupOffset : element.getOffsets()) {
+					int keyGroupIndex = groupOffset.f0;
+					long offset = groupOffset.f1;
+
+					// after rescaling, the chain also contains key groups of other backends
+					if (!keyGroupRange.contains(keyGroupIndex)) {
+						continue;
+					}
+
+					fsDataInputStream.seek(offset);
+
+					int writtenKeyGroupIndex = inView.readInt();
+
+					Preconditions.checkState(writtenKeyGroupIndex == keyGroupIndex,
+							"Unexpected key-group in restore.");
+
+					for (int i = 0; i < metaInfoList.size(); i++) {
+						int kvStateId = inView.readShort();
+						keyGroupReaders.get(kvStateId).readMappingsInKeyGroup(inView, keyGroupIndex);
+					}
+				}
+			} finally {
+				cancelStreamRegistry.unregisterClosable(fsDataInputStream);
+				IOUtils.closeQuietly(fsDataInputStream);
+			}
+		}
+	}
+
+	/**
+	 * Reads the names and key-group offsets of the snapshots in the chain of the given handle.
+	 */
+	private List<SnapshotChainElement> readSnapshotChainMetaData(IncrementalKeyedStateHandle stateHandle) throws Exception {
+
+		FSDataInputStream inputStream = stateHandle.getMetaStateHandle().openInputStream();
+		cancelStreamRegistry.registerClosable(inputStream);
+
+		try {
+			DataInputView inView = new DataInputViewStreamWrapper(inputStream);
+
+			int numElements = inView.readInt();
+			List<SnapshotChainElement> elements = new ArrayList<>(numElements);
+
+			for (int i = 0; i < numElements; ++i) {
+				String name = inView.readUTF();
+				int startKeyGroup = inView.readInt();
+				int numKeyGroups = inView.readInt();
+
+				long[] offsets = new long[numKeyGroups];
+				for (int j = 0; j < numKeyGroups; ++j) {
+					offsets[j] = inView.readLong();
+				}
+
+				SharedStreamStateHandle elementStateHandle = stateHandle.getSharedState().get(name);
+
+				if (elementStateHandle == null) {
+					throw new IllegalStateException("The snapshot " + name + " of the snapshot chain of checkpoint " +
+							stateHandle.getCheckpointId() + " is missing.");
+				}
+
+				elements.add(new SnapshotChainElement(
+						name,
+						elementStateHandle,
+						new KeyGroupRangeOffsets(
+								KeyGroupRange.of(startKeyGroup, startKeyGroup + numKeyGroups - 1),
+								offsets)));
+			}
+
+			return elements;
+		} finally {
+			cancelStreamRegistry.unregisterClosable(inputStream);
+			IOUtils.closeQuietly(inputStream);
+		}
+	}
+
 	@Override
 	public String toString() {
 		return "HeapKeyedStateBackend";
@@ -501,13 +931,134 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 	}
 
 	public <N, V> StateTable<K, N, V> newStateTable(RegisteredBackendStateMetaInfo<N, V> newMetaInfo) {
-		return asynchronousSnapshots ?
-				new CopyOnWriteStateTable<>(this, newMetaInfo) :
-				new NestedMapsStateTable<>(this, newMetaInfo);
+		if (!asynchronousSnapshots) {
+			return new NestedMapsStateTable<>(this, newMetaInfo);
+		}
+
+		CopyOnWriteStateTable<K, N, V> stateTable = new CopyOnWriteStateTable<>(this, newMetaInfo);
+
+		if (maxDeltaSnapshots > 0) {
+			stateTable.trackRemovedEntries();
+		}
+
+		return stateTable;
+	}
+
+	/**
+	 * With copy-on-write state tables, the expired states are dropped from the snapshots, and every access to the state
+	 * checks a few more entries of its table and removes those that expired entirely. The synchronous state tables
+	 * only filter the expired values lazily when they are read.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	protected Runnable enableTtlCleanup(
+			StateDescriptor<?, ?> stateDesc,
+			ExpiredStateFilter<?> expiredStateFilter) {
+
+		final StateTable<K, ?, ?> stateTable = stateTables.get(stateDesc.getName());
+
+		if (!(stateTable instanceof CopyOnWriteStateTable)) {
+			return null;
+		}
+
+		final CopyOnWriteStateTable<K, ?, Object> cowStateTable = (CopyOnWriteStateTable<K, ?, Object>) stateTable;
+		final ExpiredStateFilter<Object> cowExpiredStateFilter = (ExpiredStateFilter<Object>) expiredStateFilter;
+		cowStateTable.setSnapshotTransformer(cowExpiredStateFilter);
+
+		final int cleanupSize = stateDesc.getTtlConfig().getCleanupSize();
+
+		if (cleanupSize == 0) {
+			return null;
+		}
+
+		return new Runnable() {
+			@Override
+			public void run() {
+				cowStateTable.cleanupIncrementally(cowExpiredStateFilter, cleanupSize);
+			}
+		};
 	}
 
 	@Override
 	public boolean supportsAsynchronousSnapshots() {
 		return asynchronousSnapshots;
 	}
+
+	/**
+	 * The local copies are only made for full snapshots, so chains of delta snapshots are excluded.
+	 */
+	@Override
+	public boolean supportsLocalStateCopies() {
+		return maxDeltaSnapshots == 0;
+	}
+
+	/**
+	 * Returns the maximum number of delta snapshots that are chained to a full snapshot.
+	 */
+	public int getMaxDeltaSnapshots() {
+		return maxDeltaSnapshots;
+	}
+
+	// ------------------------------------------------------------------------
+	//  snapshot chains
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The full snapshot and the delta snapshots of a checkpoint, together with the versions of the
+	 * state tables at the time the last snapshot of the chain was created.
+	 */
+	private static final class SnapshotChain {
+
+		/** The snapshots of the chain, beginning with the full snapshot */
+		private final List<SnapshotChainElement> elements;
+
+		/** The versions of the snapshots of the state tables in the last snapshot, by state name */
+		private final Map<String, Integer> stateTableVersions;
+
+		SnapshotChain(List<SnapshotChainElement> elements, Map<String, Integer> stateTableVersions) {
+			this.elements = Preconditions.checkNotNull(elements);
+			this.stateTableVersions = Preconditions.checkNotNull(stateTableVersions);
+		}
+
+		List<SnapshotChainElement> getElements() {
+			return elements;
+		}
+
+		Map<String, Integer> getStateTableVersions() {
+			return stateTableVersions;
+		}
+	}
+
+	/**
+	 * A full or a delta snapshot in a {@link SnapshotChain}.
+	 */
+	private static final class SnapshotChainElement {
+
+		/** The name of the snapshot in the shared state of the {@link IncrementalKeyedStateHandle} */
+		private final String name;
+
+		/** The handle to the stream of the snapshot */
+		private final SharedStreamStateHandle stateHandle;
+
+		/** The offsets of the key groups in the stream */
+		private final KeyGroupRangeOffsets offsets;
+
+		SnapshotChainElement(String name, SharedStreamStateHandle stateHandle, KeyGroupRangeOffsets offsets) {
+			this.name = Preconditions.checkNotNull(name);
+			this.stateHandle = Preconditions.checkNotNull(stateHandle);
+			this.offsets = Preconditions.checkNotNull(offsets);
+		}
+
+		String getName() {
+			return name;
+		}
+
+		SharedStreamStateHandle getStateHandle() {
+			return stateHandle;
+		}
+
+		KeyGroupRangeOffsets getOffsets() {
+			return offsets;
+		}
+	}
 }
@@ -61,7 +61,8 @@ public class HeapListState<K, N, V>
 
 	@Override
 	public Iterable<V> get() {
-		return stateTable.get(currentNamespace);
+		// the elements can be removed through the iterator of the list
+		return stateTable.getForUpdate(currentNamespace);
 	}
 
 	@Override
@@ -74,7 +75,7 @@ public class HeapListState<K, N, V>
 		}
 
 		final StateTable<K, N, ArrayList<V>> map = stateTable;
-		ArrayList<V> list = map.get(namespace);
+		ArrayList<V> list = map.getForUpdate(namespace);
 
 		if (list == null) {
 			list = new ArrayList<>();
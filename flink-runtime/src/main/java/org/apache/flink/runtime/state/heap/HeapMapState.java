@@ -72,7 +72,7 @@ public class HeapMapState<K, N, UK, UV>
 	@Override
 	public void put(UK userKey, UV userValue) {
 
-		HashMap<UK, UV> userMap = stateTable.get(currentNamespace);
+		HashMap<UK, UV> userMap = stateTable.getForUpdate(currentNamespace);
 		if (userMap == null) {
 			userMap = new HashMap<>();
 			stateTable.put(currentNamespace, userMap);
@@ -84,7 +84,7 @@ public class HeapMapState<K, N, UK, UV>
 	@Override
 	public void putAll(Map<UK, UV> value) {
 
-		HashMap<UK, UV> userMap = stateTable.get(currentNamespace);
+		HashMap<UK, UV> userMap = stateTable.getForUpdate(currentNamespace);
 
 		if (userMap == null) {
 			userMap = new HashMap<>();
@@ -97,7 +97,7 @@ public class HeapMapState<K, N, UK, UV>
 	@Override
 	public void remove(UK userKey) {
 
-		HashMap<UK, UV> userMap = stateTable.get(currentNamespace);
+		HashMap<UK, UV> userMap = stateTable.getForUpdate(currentNamespace);
 		if (userMap == null) {
 			return;
 		}
@@ -117,25 +117,26 @@ public class HeapMapState<K, N, UK, UV>
 
 	@Override
 	public Iterable<Map.Entry<UK, UV>> entries() {
-		HashMap<UK, UV> userMap = stateTable.get(currentNamespace);
+		// the map can be modified through its views
+		HashMap<UK, UV> userMap = stateTable.getForUpdate(currentNamespace);
 		return userMap == null ? null : userMap.entrySet();
 	}
 	
 	@Override
 	public Iterable<UK> keys() {
-		HashMap<UK, UV> userMap = stateTable.get(currentNamespace);
+		HashMap<UK, UV> userMap = stateTable.getForUpdate(currentNamespace);
 		return userMap == null ? null : userMap.keySet();
 	}
 
 	@Override
 	public Iterable<UV> values() {
-		HashMap<UK, UV> userMap = stateTable.get(currentNamespace);
+		HashMap<UK, UV> userMap = stateTable.getForUpdate(currentNamespace);
 		return userMap == null ? null : userMap.values();
 	}
 
 	@Override
 	public Iterator<Map.Entry<UK, UV>> iterator() {
-		HashMap<UK, UV> userMap = stateTable.get(currentNamespace);
+		HashMap<UK, UV> userMap = stateTable.getForUpdate(currentNamespace);
 		return userMap == null ? null : userMap.entrySet().iterator();
 	}
 
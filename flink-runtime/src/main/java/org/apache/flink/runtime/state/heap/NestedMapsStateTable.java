@@ -228,7 +228,8 @@ public class NestedMapsStateTable<K, N, S> extends StateTable<K, N, S> {
 		return keyedMap.put(key, value);
 	}
 
-	private void remove(K key, int keyGroupIndex, N namespace) {
+	@Override
+	public void remove(K key, int keyGroupIndex, N namespace) {
 		removeAndGetOld(key, keyGroupIndex, namespace);
 	}
 
@@ -83,6 +83,19 @@ public abstract class StateTable<K, N, S> {
 	 */
 	public abstract S get(N namespace);
 
+	/**
+	 * Returns the state of the mapping for the composite of active key and given namespace, for a caller that
+	 * modifies the returned state in place. Tables that track changes for delta snapshots treat the mapping as
+	 * changed, while {@link #get(Object)} is meant for callers that only read the state.
+	 *
+	 * @param namespace the namespace. Not null.
+	 * @return the states of the mapping with the specified key/namespace composite key, or {@code null}
+	 * if no mapping for the specified key is found.
+	 */
+	public S getForUpdate(N namespace) {
+		return get(namespace);
+	}
+
 	/**
 	 * Returns whether this table contains a mapping for the composite of active key and given namespace.
 	 *
@@ -182,6 +195,8 @@ public abstract class StateTable<K, N, S> {
 
 	public abstract void put(K key, int keyGroup, N namespace, S state);
 
+	public abstract void remove(K key, int keyGroup, N namespace);
+
 	// For testing --------------------------------------------------------------------------------
 
 	@VisibleForTesting
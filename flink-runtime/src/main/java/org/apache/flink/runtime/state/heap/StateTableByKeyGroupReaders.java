@@ -53,6 +53,21 @@ class StateTableByKeyGroupReaders {
 		}
 	}
 
+	/**
+	 * Creates a new StateTableByKeyGroupReader for the changes that a full or delta snapshot of a
+	 * {@link CopyOnWriteStateTableSnapshot} contains for a key-group. Removed mappings are removed from the given
+	 * table, added or modified mappings are inserted.
+	 *
+	 * @param table the {@link StateTable} to which the de-serialized changes are applied.
+	 * @param <K> type of key.
+	 * @param <N> type of namespace.
+	 * @param <S> type of state.
+	 * @return the reader for the changes.
+	 */
+	static <K, N, S> StateTableByKeyGroupReader readerForChanges(StateTable<K, N, S> table) {
+		return new StateTableChangesByKeyGroupReader<>(table);
+	}
+
 	static abstract class AbstractStateTableByKeyGroupReader<K, N, S>
 			implements StateTableByKeyGroupReader {
 
@@ -133,4 +148,35 @@ class StateTableByKeyGroupReaders {
 			}
 		}
 	}
-}
\ No newline at end of file
+
+	private static final class StateTableChangesByKeyGroupReader<K, N, S>
+			extends AbstractStateTableByKeyGroupReader<K, N, S> {
+
+		StateTableChangesByKeyGroupReader(StateTable<K, N, S> stateTable) {
+			super(stateTable);
+		}
+
+		@Override
+		public void readMappingsInKeyGroup(DataInputView inView, int keyGroupId) throws IOException {
+
+			final TypeSerializer<K> keySerializer = getKeySerializer();
+			final TypeSerializer<N> namespaceSerializer = getNamespaceSerializer();
+			final TypeSerializer<S> stateSerializer = getStateSerializer();
+
+			int numRemovedKeys = inView.readInt();
+			for (int i = 0; i < numRemovedKeys; ++i) {
+				N namespace = namespaceSerializer.deserialize(inView);
+				K key = keySerializer.deserialize(inView);
+				stateTable.remove(key, keyGroupId, namespace);
+			}
+
+			int numKeys = inView.readInt();
+			for (int i = 0; i < numKeys; ++i) {
+				N namespace = namespaceSerializer.deserialize(inView);
+				K key = keySerializer.deserialize(inView);
+				S state = stateSerializer.deserialize(inView);
+				stateTable.put(key, keyGroupId, namespace, state);
+			}
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.ttl;
+
+import org.apache.flink.api.common.state.StateTtlConfig;
+import org.apache.flink.runtime.state.internal.InternalKvState;
+import org.apache.flink.util.Preconditions;
+
+/**
+ * Base class for keyed state with time-to-live. It decorates the state that the state backend created for the
+ * values wrapped in {@link TtlValue}, and takes care of the timestamps and of the expiration of the values.
+ *
+ * @param <N> type of the namespace.
+ * @param <S> type of the decorated state.
+ */
+public abstract class AbstractTtlState<N, S extends InternalKvState<N>> implements InternalKvState<N> {
+
+	/** The decorated state, whose values are wrapped in {@link TtlValue}. */
+	protected final S original;
+
+	/** The time-to-live in milliseconds. */
+	protected final long ttl;
+
+	/** Whether reading a value refreshes its timestamp. */
+	protected final boolean updateOnRead;
+
+	protected final TtlTimeProvider timeProvider;
+
+	/** Called on every access of the state to clean up expired state incrementally, or null. */
+	private Runnable incrementalCleanup;
+
+	AbstractTtlState(S original, StateTtlConfig ttlConfig, TtlTimeProvider timeProvider) {
+		this.original = Preconditions.checkNotNull(original);
+		this.ttl = ttlConfig.getTtl().toMilliseconds();
+		this.updateOnRead = ttlConfig.getUpdateType() == StateTtlConfig.UpdateType.OnReadAndWrite;
+		this.timeProvider = Preconditions.checkNotNull(timeProvider);
+	}
+
+	/**
+	 * Returns an {@link ExpiredStateFilter} for the state objects of the decorated state, which drops the
+	 * expired values. State backends can use it to clean up expired state in the background.
+	 */
+	public abstract ExpiredStateFilter<?> getExpiredStateFilter();
+
+	/**
+	 * Sets the callback that the state runs on every access to clean up expired state incrementally.
+	 *
+	 * @param incrementalCleanup the callback, or null to disable the incremental cleanup.
+	 */
+	public void setIncrementalCleanup(Runnable incrementalCleanup) {
+		this.incrementalCleanup = incrementalCleanup;
+	}
+
+	/**
+	 * Must be called on every access of the state.
+	 */
+	protected void onAccess() {
+		if (incrementalCleanup != null) {
+			incrementalCleanup.run();
+		}
+	}
+
+	protected <V> TtlValue<V> wrap(V userValue) {
+		return new TtlValue<>(userValue, timeProvider.currentTimestamp());
+	}
+
+	protected boolean isExpired(TtlValue<?> ttlValue) {
+		return ttlValue.isExpired(ttl, timeProvider.currentTimestamp());
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void setCurrentNamespace(N namespace) {
+		original.setCurrentNamespace(namespace);
+	}
+
+	@Override
+	public byte[] getSerializedValue(byte[] serializedKeyAndNamespace) throws Exception {
+		throw new UnsupportedOperationException("Queryable state is not supported with time-to-live.");
+	}
+
+	@Override
+	public void clear() {
+		onAccess();
+		original.clear();
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Drops a single expired {@link TtlValue}.
+	 */
+	static final class ExpiredValueFilter<T> implements ExpiredStateFilter<TtlValue<T>> {
+
+		private final long ttl;
+
+		private final TtlTimeProvider timeProvider;
+
+		ExpiredValueFilter(long ttl, TtlTimeProvider timeProvider) {
+			this.ttl = ttl;
+			this.timeProvider = timeProvider;
+		}
+
+		@Override
+		public TtlValue<T> filterOrTransform(TtlValue<T> state) {
+			return isExpiredEntirely(state) ? null : state;
+		}
+
+		@Override
+		public boolean isExpiredEntirely(TtlValue<T> state) {
+			return state.isExpired(ttl, timeProvider.currentTimestamp());
+		}
+	}
+}
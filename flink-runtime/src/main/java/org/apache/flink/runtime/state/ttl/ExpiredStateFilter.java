@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.ttl;
+
+import org.apache.flink.runtime.state.StateSnapshotTransformer;
+
+/**
+ * Drops the expired values from the state objects of a state with time-to-live when they are written to a
+ * snapshot. It also decides cheaply whether a state object expired entirely, so that state backends can remove
+ * it from their live state without transforming it.
+ *
+ * @param <S> type of the state objects.
+ */
+public interface ExpiredStateFilter<S> extends StateSnapshotTransformer<S> {
+
+	/**
+	 * Checks whether all values of the given state object expired. Unlike {@link #filterOrTransform(Object)}, this
+	 * never creates a new state object.
+	 *
+	 * @param state the state object. Not null.
+	 * @return whether the state object can be removed entirely.
+	 */
+	boolean isExpiredEntirely(S state);
+}
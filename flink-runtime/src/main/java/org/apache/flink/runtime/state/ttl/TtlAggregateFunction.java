@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.ttl;
+
+import org.apache.flink.api.common.functions.AggregateFunction;
+import org.apache.flink.util.Preconditions;
+
+/**
+ * {@link AggregateFunction} for aggregating state with time-to-live. An expired accumulator is replaced by a new one
+ * before a value is added, and adding a value refreshes the timestamp of the accumulator. The result of an expired
+ * accumulator is {@code null}.
+ *
+ * @param <IN> type of the values that are added to the state.
+ * @param <ACC> type of the user accumulator.
+ * @param <OUT> type of the result.
+ */
+class TtlAggregateFunction<IN, ACC, OUT> implements AggregateFunction<IN, TtlValue<ACC>, OUT> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final AggregateFunction<IN, ACC, OUT> userFunction;
+
+	private final long ttl;
+
+	private final TtlTimeProvider timeProvider;
+
+	TtlAggregateFunction(AggregateFunction<IN, ACC, OUT> userFunction, long ttl, TtlTimeProvider timeProvider) {
+		this.userFunction = Preconditions.checkNotNull(userFunction);
+		this.ttl = ttl;
+		this.timeProvider = Preconditions.checkNotNull(timeProvider);
+	}
+
+	@Override
+	public TtlValue<ACC> createAccumulator() {
+		return new TtlValue<>(userFunction.createAccumulator(), timeProvider.currentTimestamp());
+	}
+
+	@Override
+	public void add(IN value, TtlValue<ACC> accumulator) {
+		final long currentTimestamp = timeProvider.currentTimestamp();
+
+		ACC userAccumulator = accumulator.isExpired(ttl, currentTimestamp) ?
+				userFunction.createAccumulator() : accumulator.getUserValue();
+
+		userFunction.add(value, userAccumulator);
+		accumulator.update(userAccumulator, currentTimestamp);
+	}
+
+	@Override
+	public OUT getResult(TtlValue<ACC> accumulator) {
+		return accumulator.isExpired(ttl, timeProvider.currentTimestamp()) ?
+				null : userFunction.getResult(accumulator.getUserValue());
+	}
+
+	@Override
+	public TtlValue<ACC> merge(TtlValue<ACC> a, TtlValue<ACC> b) {
+		final long currentTimestamp = timeProvider.currentTimestamp();
+
+		if (a.isExpired(ttl, currentTimestamp)) {
+			return b;
+		} else if (b.isExpired(ttl, currentTimestamp)) {
+			return a;
+		} else {
+			return new TtlValue<>(userFunction.merge(a.getUserValue(), b.getUserValue()), currentTimestamp);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.ttl;
+
+import org.apache.flink.api.common.state.StateTtlConfig;
+import org.apache.flink.runtime.state.internal.InternalAggregatingState;
+
+import java.util.Collection;
+
+/**
+ * {@link InternalAggregatingState} with time-to-live. The expiration is handled by the {@link TtlAggregateFunction}
+ * of the decorated state, because the accumulator is not accessible through the state interface. Therefore, only
+ * adding a value refreshes the timestamp of the accumulator, regardless of the configured update type.
+ *
+ * @param <N> type of the namespace.
+ * @param <IN> type of the values that are added to the state.
+ * @param <OUT> type of the result.
+ */
+class TtlAggregatingState<N, IN, OUT>
+		extends AbstractTtlState<N, InternalAggregatingState<N, IN, OUT>>
+		implements InternalAggregatingState<N, IN, OUT> {
+
+	TtlAggregatingState(
+			InternalAggregatingState<N, IN, OUT> original,
+			StateTtlConfig ttlConfig,
+			TtlTimeProvider timeProvider) {
+
+		super(original, ttlConfig, timeProvider);
+	}
+
+	@Override
+	public OUT get() throws Exception {
+		onAccess();
+		return original.get();
+	}
+
+	@Override
+	public void add(IN value) throws Exception {
+		onAccess();
+		original.add(value);
+	}
+
+	@Override
+	public void mergeNamespaces(N target, Collection<N> sources) throws Exception {
+		original.mergeNamespaces(target, sources);
+	}
+
+	@Override
+	public ExpiredStateFilter<?> getExpiredStateFilter() {
+		return new ExpiredValueFilter<>(ttl, timeProvider);
+	}
+}
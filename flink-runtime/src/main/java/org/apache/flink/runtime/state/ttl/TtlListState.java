@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.ttl;
+
+import org.apache.flink.api.common.state.StateTtlConfig;
+import org.apache.flink.runtime.state.internal.InternalListState;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * {@link InternalListState} with time-to-live. Every element of the list has its own timestamp. When the list is
+ * read and some of its elements expired, the list is rewritten without them.
+ *
+ * @param <N> type of the namespace.
+ * @param <T> type of the elements.
+ */
+class TtlListState<N, T>
+		extends AbstractTtlState<N, InternalListState<N, TtlValue<T>>>
+		implements InternalListState<N, T> {
+
+	TtlListState(
+			InternalListState<N, TtlValue<T>> original,
+			StateTtlConfig ttlConfig,
+			TtlTimeProvider timeProvider) {
+
+		super(original, ttlConfig, timeProvider);
+	}
+
+	@Override
+	public Iterable<T> get() throws Exception {
+		onAccess();
+
+		Iterable<TtlValue<T>> ttlValues = original.get();
+
+		if (ttlValues == null) {
+			return null;
+		}
+
+		final long currentTimestamp = timeProvider.currentTimestamp();
+		final List<T> result = new ArrayList<>();
+		boolean anyExpired = false;
+
+		for (TtlValue<T> ttlValue : ttlValues) {
+			if (ttlValue.isExpired(ttl, currentTimestamp)) {
+				anyExpired = true;
+			} else {
+				result.add(ttlValue.getUserValue());
+			}
+		}
+
+		if (result.isEmpty()) {
+			original.clear();
+			return null;
+		}
+
+		// list state cannot be overwritten, so we clear it and add the remaining elements again
+		if (anyExpired || updateOnRead) {
+			original.clear();
+			for (T element : result) {
+				original.add(new TtlValue<>(element, currentTimestamp));
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	public void add(T value) throws Exception {
+		onAccess();
+		original.add(wrap(value));
+	}
+
+	@Override
+	public void mergeNamespaces(N target, Collection<N> sources) throws Exception {
+		original.mergeNamespaces(target, sources);
+	}
+
+	@Override
+	public ExpiredStateFilter<?> getExpiredStateFilter() {
+		return new ExpiredElementsFilter<T>(ttl, timeProvider);
+	}
+
+	/**
+	 * Drops the expired elements of a list, and the whole list if all elements expired.
+	 */
+	private static final class ExpiredElementsFilter<T> implements ExpiredStateFilter<List<TtlValue<T>>> {
+
+		private final long ttl;
+
+		private final TtlTimeProvider timeProvider;
+
+		ExpiredElementsFilter(long ttl, TtlTimeProvider timeProvider) {
+			this.ttl = ttl;
+			this.timeProvider = timeProvider;
+		}
+
+		@Override
+		public List<TtlValue<T>> filterOrTransform(List<TtlValue<T>> state) {
+			final long currentTimestamp = timeProvider.currentTimestamp();
+
+			ArrayList<TtlValue<T>> filtered = null;
+
+			for (int i = 0; i < state.size(); ++i) {
+				TtlValue<T> element = state.get(i);
+
+				if (element.isExpired(ttl, currentTimestamp)) {
+					if (filtered == null) {
+						// only copy the list once the first element expired
+						filtered = new ArrayList<>(state.subList(0, i));
+					}
+				} else if (filtered != null) {
+					filtered.add(element);
+				}
+			}
+
+			if (filtered == null) {
+				return state;
+			} else {
+				return filtered.isEmpty() ? null : filtered;
+			}
+		}
+
+		@Override
+		public boolean isExpiredEntirely(List<TtlValue<T>> state) {
+			final long currentTimestamp = timeProvider.currentTimestamp();
+
+			for (int i = 0; i < state.size(); ++i) {
+				if (!state.get(i).isExpired(ttl, currentTimestamp)) {
+					return false;
+				}
+			}
+			// like the filter, an empty state is kept as it is
+			return !state.isEmpty();
+		}
+	}
+}
@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.ttl;
+
+import org.apache.flink.api.common.state.StateTtlConfig;
+import org.apache.flink.runtime.state.internal.InternalMapState;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link InternalMapState} with time-to-live. Every entry of the map has its own timestamp. An expired entry is
+ * removed when it is read through {@link #get(Object)} or {@link #contains(Object)}, and skipped by the iterators.
+ *
+ * <p>The iterators look ahead to skip expired entries. Therefore, {@link Iterator#remove()} is only supported
+ * directly after {@link Iterator#next()}, before {@link Iterator#hasNext()} is called again.
+ *
+ * @param <N> type of the namespace.
+ * @param <UK> type of the user keys.
+ * @param <UV> type of the user values.
+ */
+class TtlMapState<N, UK, UV>
+		extends AbstractTtlState<N, InternalMapState<N, UK, TtlValue<UV>>>
+		implements InternalMapState<N, UK, UV> {
+
+	TtlMapState(
+			InternalMapState<N, UK, TtlValue<UV>> original,
+			StateTtlConfig ttlConfig,
+			TtlTimeProvider timeProvider) {
+
+		super(original, ttlConfig, timeProvider);
+	}
+
+	@Override
+	public UV get(UK key) throws Exception {
+		onAccess();
+
+		TtlValue<UV> ttlValue = getUnexpired(key);
+		return ttlValue == null ? null : ttlValue.getUserValue();
+	}
+
+	@Override
+	public void put(UK key, UV value) throws Exception {
+		onAccess();
+		original.put(key, wrap(value));
+	}
+
+	@Override
+	public void putAll(Map<UK, UV> map) throws Exception {
+		onAccess();
+
+		if (map == null) {
+			return;
+		}
+
+		final long currentTimestamp = timeProvider.currentTimestamp();
+		Map<UK, TtlValue<UV>> ttlMap = new HashMap<>(map.size());
+		for (Map.Entry<UK, UV> entry : map.entrySet()) {
+			ttlMap.put(entry.getKey(), new TtlValue<>(entry.getValue(), currentTimestamp));
+		}
+
+		original.putAll(ttlMap);
+	}
+
+	@Override
+	public void remove(UK key) throws Exception {
+		onAccess();
+		original.remove(key);
+	}
+
+	@Override
+	public boolean contains(UK key) throws Exception {
+		onAccess();
+		return getUnexpired(key) != null;
+	}
+
+	@Override
+	public Iterable<Map.Entry<UK, UV>> entries() throws Exception {
+		onAccess();
+
+		final Iterable<Map.Entry<UK, TtlValue<UV>>> ttlEntries = original.entries();
+
+		if (ttlEntries == null) {
+			return null;
+		}
+
+		return new Iterable<Map.Entry<UK, UV>>() {
+			@Override
+			public Iterator<Map.Entry<UK, UV>> iterator() {
+				return new EntriesIterator(ttlEntries.iterator());
+			}
+		};
+	}
+
+	@Override
+	public Iterable<UK> keys() throws Exception {
+		final Iterable<Map.Entry<UK, UV>> entries = entries();
+
+		if (entries == null) {
+			return null;
+		}
+
+		return new Iterable<UK>() {
+			@Override
+			public Iterator<UK> iterator() {
+				final Iterator<Map.Entry<UK, UV>> iterator = entries.iterator();
+
+				return new Iterator<UK>() {
+					@Override
+					public boolean hasNext() {
+						return iterator.hasNext();
+					}
+
+					@Override
+					public UK next() {
+						return iterator.next().getKey();
+					}
+
+					@Override
+					public void remove() {
+						iterator.remove();
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public Iterable<UV> values() throws Exception {
+		final Iterable<Map.Entry<UK, UV>> entries = entries();
+
+		if (entries == null) {
+			return null;
+		}
+
+		return new Iterable<UV>() {
+			@Override
+			public Iterator<UV> iterator() {
+				final Iterator<Map.Entry<UK, UV>> iterator = entries.iterator();
+
+				return new Iterator<UV>() {
+					@Override
+					public boolean hasNext() {
+						return iterator.hasNext();
+					}
+
+					@Override
+					public UV next() {
+						return iterator.next().getValue();
+					}
+
+					@Override
+					public void remove() {
+						iterator.remove();
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public Iterator<Map.Entry<UK, UV>> iterator() throws Exception {
+		Iterable<Map.Entry<UK, UV>> entries = entries();
+		return entries == null ? null : entries.iterator();
+	}
+
+	@Override
+	public ExpiredStateFilter<?> getExpiredStateFilter() {
+		return new ExpiredEntriesFilter<UK, UV>(ttl, timeProvider);
+	}
+
+	/**
+	 * Returns the entry for the given key if it did not expire. An expired entry is removed.
+	 */
+	private TtlValue<UV> getUnexpired(UK key) throws Exception {
+		TtlValue<UV> ttlValue = original.get(key);
+
+		if (ttlValue == null) {
+			return null;
+		} else if (isExpired(ttlValue)) {
+			original.remove(key);
+			return null;
+		}
+
+		if (updateOnRead) {
+			original.put(key, wrap(ttlValue.getUserValue()));
+		}
+
+		return ttlValue;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Iterator over the unexpired entries of the decorated state.
+	 */
+	private final class EntriesIterator implements Iterator<Map.Entry<UK, UV>> {
+
+		private final Iterator<Map.Entry<UK, TtlValue<UV>>> ttlIterator;
+
+		/** The next unexpired entry, which was already fetched from the decorated iterator, or null. */
+		private Map.Entry<UK, TtlValue<UV>> nextEntry;
+
+		/** Whether the decorated iterator is positioned at the entry that was last returned by next(). */
+		private boolean canRemove;
+
+		EntriesIterator(Iterator<Map.Entry<UK, TtlValue<UV>>> ttlIterator) {
+			this.ttlIterator = ttlIterator;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (nextEntry != null) {
+				return true;
+			}
+
+			final long currentTimestamp = timeProvider.currentTimestamp();
+
+			while (ttlIterator.hasNext()) {
+				Map.Entry<UK, TtlValue<UV>> entry = ttlIterator.next();
+				canRemove = false;
+
+				if (!entry.getValue().isExpired(ttl, currentTimestamp)) {
+					nextEntry = entry;
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public Map.Entry<UK, UV> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			final Map.Entry<UK, TtlValue<UV>> entry = nextEntry;
+			nextEntry = null;
+			canRemove = true;
+
+			return new Map.Entry<UK, UV>() {
+				@Override
+				public UK getKey() {
+					return entry.getKey();
+				}
+
+				@Override
+				public UV getValue() {
+					return entry.getValue().getUserValue();
+				}
+
+				@Override
+				public UV setValue(UV value) {
+					TtlValue<UV> previous = entry.setValue(wrap(value));
+					return previous == null ? null : previous.getUserValue();
+				}
+			};
+		}
+
+		@Override
+		public void remove() {
+			if (!canRemove) {
+				throw new IllegalStateException(
+						"The entry can only be removed directly after it was returned by next().");
+			}
+
+			ttlIterator.remove();
+			canRemove = false;
+		}
+	}
+
+	/**
+	 * Drops the expired entries of a map, and the whole map if all entries expired.
+	 */
+	private static final class ExpiredEntriesFilter<UK, UV> implements ExpiredStateFilter<Map<UK, TtlValue<UV>>> {
+
+		private final long ttl;
+
+		private final TtlTimeProvider timeProvider;
+
+		ExpiredEntriesFilter(long ttl, TtlTimeProvider timeProvider) {
+			this.ttl = ttl;
+			this.timeProvider = timeProvider;
+		}
+
+		@Override
+		public Map<UK, TtlValue<UV>> filterOrTransform(Map<UK, TtlValue<UV>> state) {
+			final long currentTimestamp = timeProvider.currentTimestamp();
+
+			HashMap<UK, TtlValue<UV>> filtered = null;
+
+			for (Map.Entry<UK, TtlValue<UV>> entry : state.entrySet()) {
+				if (entry.getValue().isExpired(ttl, currentTimestamp)) {
+					if (filtered == null) {
+						// only copy the map once the first entry expired
+						filtered = new HashMap<>(state);
+					}
+					filtered.remove(entry.getKey());
+				}
+			}
+
+			if (filtered == null) {
+				return state;
+			} else {
+				return filtered.isEmpty() ? null : filtered;
+			}
+		}
+
+		@Override
+		public boolean isExpiredEntirely(Map<UK, TtlValue<UV>> state) {
+			final long currentTimestamp = timeProvider.currentTimestamp();
+
+			for (TtlValue<UV> value : state.values()) {
+				if (!value.isExpired(ttl, currentTimestamp)) {
+					return false;
+				}
+			}
+			// like the filter, an empty state is kept as it is
+			return !state.isEmpty();
+		}
+	}
+}
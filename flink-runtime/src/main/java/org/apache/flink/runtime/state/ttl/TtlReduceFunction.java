@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.ttl;
+
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.util.Preconditions;
+
+/**
+ * {@link ReduceFunction} for reducing state with time-to-live. An expired value is ignored in the reduction, and the
+ * reduced value gets the current timestamp.
+ *
+ * @param <T> type of the user values.
+ */
+class TtlReduceFunction<T> implements ReduceFunction<TtlValue<T>> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final ReduceFunction<T> userFunction;
+
+	private final long ttl;
+
+	private final TtlTimeProvider timeProvider;
+
+	TtlReduceFunction(ReduceFunction<T> userFunction, long ttl, TtlTimeProvider timeProvider) {
+		this.userFunction = Preconditions.checkNotNull(userFunction);
+		this.ttl = ttl;
+		this.timeProvider = Preconditions.checkNotNull(timeProvider);
+	}
+
+	@Override
+	public TtlValue<T> reduce(TtlValue<T> value1, TtlValue<T> value2) throws Exception {
+		final long currentTimestamp = timeProvider.currentTimestamp();
+
+		if (value1.isExpired(ttl, currentTimestamp)) {
+			return value2;
+		} else if (value2.isExpired(ttl, currentTimestamp)) {
+			return value1;
+		} else {
+			return new TtlValue<>(userFunction.reduce(value1.getUserValue(), value2.getUserValue()), currentTimestamp);
+		}
+	}
+}
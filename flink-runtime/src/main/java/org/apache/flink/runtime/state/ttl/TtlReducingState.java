@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.ttl;
+
+import org.apache.flink.api.common.state.StateTtlConfig;
+import org.apache.flink.runtime.state.internal.InternalReducingState;
+
+import java.util.Collection;
+
+/**
+ * {@link InternalReducingState} with time-to-live. The values are reduced by a {@link TtlReduceFunction}, which
+ * ignores expired values. An expired value is cleared when it is read.
+ *
+ * @param <N> type of the namespace.
+ * @param <T> type of the user value.
+ */
+class TtlReducingState<N, T>
+		extends AbstractTtlState<N, InternalReducingState<N, TtlValue<T>>>
+		implements InternalReducingState<N, T> {
+
+	TtlReducingState(
+			InternalReducingState<N, TtlValue<T>> original,
+			StateTtlConfig ttlConfig,
+			TtlTimeProvider timeProvider) {
+
+		super(original, ttlConfig, timeProvider);
+	}
+
+	@Override
+	public T get() throws Exception {
+		onAccess();
+
+		TtlValue<T> ttlValue = original.get();
+
+		if (ttlValue == null) {
+			return null;
+		} else if (isExpired(ttlValue)) {
+			original.clear();
+			return null;
+		}
+
+		if (updateOnRead) {
+			// reducing state cannot be overwritten, so we replace the value
+			original.clear();
+			original.add(wrap(ttlValue.getUserValue()));
+		}
+
+		return ttlValue.getUserValue();
+	}
+
+	@Override
+	public void add(T value) throws Exception {
+		onAccess();
+		original.add(wrap(value));
+	}
+
+	@Override
+	public void mergeNamespaces(N target, Collection<N> sources) throws Exception {
+		original.mergeNamespaces(target, sources);
+	}
+
+	@Override
+	public ExpiredStateFilter<?> getExpiredStateFilter() {
+		return new ExpiredValueFilter<T>(ttl, timeProvider);
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.ttl;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.util.Preconditions;
+
+import java.io.IOException;
+
+/**
+ * Serializer for {@link TtlValue}. The timestamp of the last access is written first, so that state backends can
+ * check for expiration without deserializing the user value. It is followed by a null flag and the user value.
+ *
+ * @param <T> type of the user value.
+ */
+public final class TtlSerializer<T> extends TypeSerializer<TtlValue<T>> {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The number of bytes of the timestamp at the beginning of every serialized value. */
+	public static final int TIMESTAMP_BYTES = 8;
+
+	private final TypeSerializer<T> userValueSerializer;
+
+	public TtlSerializer(TypeSerializer<T> userValueSerializer) {
+		this.userValueSerializer = Preconditions.checkNotNull(userValueSerializer);
+	}
+
+	public TypeSerializer<T> getUserValueSerializer() {
+		return userValueSerializer;
+	}
+
+	/**
+	 * Reads the timestamp of the last access from the given serialized value, starting at the given offset.
+	 */
+	public static long readTimestamp(byte[] serializedValue, int offset) {
+		long timestamp = 0L;
+		for (int i = offset; i < offset + TIMESTAMP_BYTES; ++i) {
+			timestamp = (timestamp << 8) | (serializedValue[i] & 0xFF);
+		}
+		return timestamp;
+	}
+
+	@Override
+	public boolean isImmutableType() {
+		return false;
+	}
+
+	@Override
+	public TypeSerializer<TtlValue<T>> duplicate() {
+		TypeSerializer<T> duplicateUserValueSerializer = userValueSerializer.duplicate();
+		return duplicateUserValueSerializer == userValueSerializer ?
+				this : new TtlSerializer<>(duplicateUserValueSerializer);
+	}
+
+	@Override
+	public TtlValue<T> createInstance() {
+		return new TtlValue<>(userValueSerializer.createInstance(), 0L);
+	}
+
+	@Override
+	public TtlValue<T> copy(TtlValue<T> from) {
+		T userValue = from.getUserValue();
+		return new TtlValue<>(
+				userValue == null ? null : userValueSerializer.copy(userValue),
+				from.getLastAccessTimestamp());
+	}
+
+	@Override
+	public TtlValue<T> copy(TtlValue<T> from, TtlValue<T> reuse) {
+		return copy(from);
+	}
+
+	@Override
+	public int getLength() {
+		return -1;
+	}
+
+	@Override
+	public void serialize(TtlValue<T> record, DataOutputView target) throws IOException {
+		target.writeLong(record.getLastAccessTimestamp());
+
+		T userValue = record.getUserValue();
+		if (userValue == null) {
+			target.writeBoolean(true);
+		} else {
+			target.writeBoolean(false);
+			userValueSerializer.serialize(userValue, target);
+		}
+	}
+
+	@Override
+	public TtlValue<T> deserialize(DataInputView source) throws IOException {
+		long lastAccessTimestamp = source.readLong();
+		T userValue = source.readBoolean() ? null : userValueSerializer.deserialize(source);
+		return new TtlValue<>(userValue, lastAccessTimestamp);
+	}
+
+	@Override
+	public TtlValue<T> deserialize(TtlValue<T> reuse, DataInputView source) throws IOException {
+		return deserialize(source);
+	}
+
+	@Override
+	public void copy(DataInputView source, DataOutputView target) throws IOException {
+		target.writeLong(source.readLong());
+
+		boolean isNull = source.readBoolean();
+		target.writeBoolean(isNull);
+		if (!isNull) {
+			userValueSerializer.copy(source, target);
+		}
+	}
+
+	// --------------------------------------------------------------------
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj == this ||
+				(obj != null && obj.getClass() == getClass() &&
+						userValueSerializer.equals(((TtlSerializer<?>) obj).userValueSerializer));
+	}
+
+	@Override
+	public boolean canEqual(Object obj) {
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		return userValueSerializer.hashCode();
+	}
+
+	@Override
+	public boolean canRestoreFrom(TypeSerializer<?> other) {
+		return other instanceof TtlSerializer &&
+				userValueSerializer.canRestoreFrom(((TtlSerializer<?>) other).userValueSerializer);
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.ttl;
+
+import org.apache.flink.api.common.state.AggregatingState;
+import org.apache.flink.api.common.state.AggregatingStateDescriptor;
+import org.apache.flink.api.common.state.FoldingState;
+import org.apache.flink.api.common.state.FoldingStateDescriptor;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ReducingState;
+import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.state.StateBinder;
+import org.apache.flink.api.common.state.StateTtlConfig;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.runtime.state.internal.InternalAggregatingState;
+import org.apache.flink.runtime.state.internal.InternalListState;
+import org.apache.flink.runtime.state.internal.InternalMapState;
+import org.apache.flink.runtime.state.internal.InternalReducingState;
+import org.apache.flink.runtime.state.internal.InternalValueState;
+import org.apache.flink.util.Preconditions;
+
+/**
+ * {@link StateBinder} that creates keyed state with time-to-live. For every descriptor, it lets the given binder of
+ * the state backend create the state for the values wrapped in {@link TtlValue}, and decorates that state with the
+ * matching subclass of {@link AbstractTtlState}.
+ */
+public class TtlStateBinder implements StateBinder {
+
+	/** The binder of the state backend that creates the decorated states. */
+	private final StateBinder originalBinder;
+
+	private final TtlTimeProvider timeProvider;
+
+	public TtlStateBinder(StateBinder originalBinder, TtlTimeProvider timeProvider) {
+		this.originalBinder = Preconditions.checkNotNull(originalBinder);
+		this.timeProvider = Preconditions.checkNotNull(timeProvider);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> ValueState<T> createValueState(ValueStateDescriptor<T> stateDesc) throws Exception {
+		ValueStateDescriptor<TtlValue<T>> ttlDesc = new ValueStateDescriptor<>(
+				stateDesc.getName(), new TtlSerializer<>(stateDesc.getSerializer()));
+
+		return new TtlValueState<>(
+				(InternalValueState<Object, TtlValue<T>>) originalBinder.createValueState(ttlDesc),
+				stateDesc,
+				getTtlConfig(stateDesc.getTtlConfig()),
+				timeProvider);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> ListState<T> createListState(ListStateDescriptor<T> stateDesc) throws Exception {
+		ListStateDescriptor<TtlValue<T>> ttlDesc = new ListStateDescriptor<>(
+				stateDesc.getName(), new TtlSerializer<>(stateDesc.getElementSerializer()));
+
+		return new TtlListState<>(
+				(InternalListState<Object, TtlValue<T>>) originalBinder.createListState(ttlDesc),
+				getTtlConfig(stateDesc.getTtlConfig()),
+				timeProvider);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> ReducingState<T> createReducingState(ReducingStateDescriptor<T> stateDesc) throws Exception {
+		StateTtlConfig ttlConfig = getTtlConfig(stateDesc.getTtlConfig());
+
+		ReducingStateDescriptor<TtlValue<T>> ttlDesc = new ReducingStateDescriptor<>(
+				stateDesc.getName(),
+				new TtlReduceFunction<>(stateDesc.getReduceFunction(), ttlConfig.getTtl().toMilliseconds(), timeProvider),
+				new TtlSerializer<>(stateDesc.getSerializer()));
+
+		return new TtlReducingState<>(
+				(InternalReducingState<Object, TtlValue<T>>) originalBinder.createReducingState(ttlDesc),
+				ttlConfig,
+				timeProvider);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <IN, ACC, OUT> AggregatingState<IN, OUT> createAggregatingState(
+			AggregatingStateDescriptor<IN, ACC, OUT> stateDesc) throws Exception {
+
+		StateTtlConfig ttlConfig = getTtlConfig(stateDesc.getTtlConfig());
+
+		AggregatingStateDescriptor<IN, TtlValue<ACC>, OUT> ttlDesc = new AggregatingStateDescriptor<>(
+				stateDesc.getName(),
+				new TtlAggregateFunction<>(stateDesc.getAggregateFunction(), ttlConfig.getTtl().toMilliseconds(), timeProvider),
+				new TtlSerializer<>(stateDesc.getSerializer()));
+
+		return new TtlAggregatingState<>(
+				(InternalAggregatingState<Object, IN, OUT>) originalBinder.createAggregatingState(ttlDesc),
+				ttlConfig,
+				timeProvider);
+	}
+
+	@Override
+	public <T, ACC> FoldingState<T, ACC> createFoldingState(FoldingStateDescriptor<T, ACC> stateDesc) throws Exception {
+		throw new UnsupportedOperationException(
+				"Time-to-live is not supported for folding state '" + stateDesc.getName() + "'. " +
+						"Folding state is deprecated, please use aggregating state instead.");
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <UK, UV> MapState<UK, UV> createMapState(MapStateDescriptor<UK, UV> stateDesc) throws Exception {
+		MapStateDescriptor<UK, TtlValue<UV>> ttlDesc = new MapStateDescriptor<>(
+				stateDesc.getName(), stateDesc.getKeySerializer(), new TtlSerializer<>(stateDesc.getValueSerializer()));
+
+		return new TtlMapState<>(
+				(InternalMapState<Object, UK, TtlValue<UV>>) originalBinder.createMapState(ttlDesc),
+				getTtlConfig(stateDesc.getTtlConfig()),
+				timeProvider);
+	}
+
+	private static StateTtlConfig getTtlConfig(StateTtlConfig ttlConfig) {
+		return Preconditions.checkNotNull(ttlConfig, "Time-to-live is not enabled for the state.");
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.ttl;
+
+import java.util.Objects;
+
+/**
+ * A value in keyed state with time-to-live, together with the processing time of its last access.
+ *
+ * <p>The value is only modified in place by the {@link TtlAggregateFunction}, because aggregate functions update
+ * their accumulator in place. The state backends make sure that this does not affect concurrent snapshots.
+ *
+ * @param <T> type of the user value.
+ */
+public final class TtlValue<T> {
+
+	/** The user value. Can be null. */
+	private T userValue;
+
+	/** The processing time of the last access, in milliseconds. */
+	private long lastAccessTimestamp;
+
+	public TtlValue(T userValue, long lastAccessTimestamp) {
+		this.userValue = userValue;
+		this.lastAccessTimestamp = lastAccessTimestamp;
+	}
+
+	public T getUserValue() {
+		return userValue;
+	}
+
+	public long getLastAccessTimestamp() {
+		return lastAccessTimestamp;
+	}
+
+	/**
+	 * Returns true if this value was not accessed within the given time-to-live.
+	 */
+	public boolean isExpired(long ttl, long currentTimestamp) {
+		return isExpired(lastAccessTimestamp, ttl, currentTimestamp);
+	}
+
+	void update(T userValue, long lastAccessTimestamp) {
+		this.userValue = userValue;
+		this.lastAccessTimestamp = lastAccessTimestamp;
+	}
+
+	/**
+	 * Returns true if a value with the given timestamp of its last access expired.
+	 */
+	public static boolean isExpired(long lastAccessTimestamp, long ttl, long currentTimestamp) {
+		// guard against overflows for very large time-to-live
+		return lastAccessTimestamp <= currentTimestamp - ttl;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		TtlValue<?> that = (TtlValue<?>) o;
+
+		return lastAccessTimestamp == that.lastAccessTimestamp && Objects.equals(userValue, that.userValue);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Objects.hashCode(userValue) + (int) (lastAccessTimestamp ^ (lastAccessTimestamp >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return "TtlValue{" +
+				"userValue=" + userValue +
+				", lastAccessTimestamp=" + lastAccessTimestamp +
+				'}';
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.ttl;
+
+import org.apache.flink.api.common.state.StateTtlConfig;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.runtime.state.internal.InternalValueState;
+import org.apache.flink.util.Preconditions;
+
+import java.io.IOException;
+
+/**
+ * {@link InternalValueState} with time-to-live. An expired value is cleared when it is read.
+ *
+ * @param <N> type of the namespace.
+ * @param <T> type of the user value.
+ */
+class TtlValueState<N, T>
+		extends AbstractTtlState<N, InternalValueState<N, TtlValue<T>>>
+		implements InternalValueState<N, T> {
+
+	/** The descriptor of the user state, which provides the default value. */
+	private final ValueStateDescriptor<T> stateDesc;
+
+	TtlValueState(
+			InternalValueState<N, TtlValue<T>> original,
+			ValueStateDescriptor<T> stateDesc,
+			StateTtlConfig ttlConfig,
+			TtlTimeProvider timeProvider) {
+
+		super(original, ttlConfig, timeProvider);
+		this.stateDesc = Preconditions.checkNotNull(stateDesc);
+	}
+
+	@Override
+	public T value() throws IOException {
+		onAccess();
+
+		TtlValue<T> ttlValue = original.value();
+
+		if (ttlValue == null) {
+			return stateDesc.getDefaultValue();
+		} else if (isExpired(ttlValue)) {
+			original.clear();
+			return stateDesc.getDefaultValue();
+		}
+
+		if (updateOnRead) {
+			original.update(wrap(ttlValue.getUserValue()));
+		}
+
+		return ttlValue.getUserValue();
+	}
+
+	@Override
+	public void update(T value) throws IOException {
+		onAccess();
+
+		if (value == null) {
+			original.clear();
+		} else {
+			original.update(wrap(value));
+		}
+	}
+
+	@Override
+	public ExpiredStateFilter<?> getExpiredStateFilter() {
+		return new ExpiredValueFilter<T>(ttl, timeProvider);
+	}
+}
@@ -0,0 +1,27 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * This package contains the time-to-live support for keyed state, which is independent of the state backend.
+ *
+ * <p>Keyed state with time-to-live is created by the state backend as regular state whose values are wrapped in a
+ * {@link org.apache.flink.runtime.state.ttl.TtlValue}, which holds the timestamp of the last access. The state
+ * returned to the user decorates this state: it wraps and unwraps the values, and never returns values that expired.
+ * State backends can additionally drop expired values in the background.
+ */
+package org.apache.flink.runtime.state.ttl;
@@ -68,6 +68,7 @@ import org.apache.flink.runtime.rpc.RpcEndpoint;
 import org.apache.flink.runtime.rpc.RpcMethod;
 import org.apache.flink.runtime.rpc.RpcService;
 import org.apache.flink.runtime.rpc.RpcServiceUtils;
+import org.apache.flink.runtime.state.TaskLocalStateStore;
 import org.apache.flink.runtime.taskexecutor.exceptions.CheckpointException;
 import org.apache.flink.runtime.taskexecutor.exceptions.PartitionException;
 import org.apache.flink.runtime.taskexecutor.exceptions.SlotAllocationException;
@@ -150,6 +151,8 @@ public class TaskExecutor extends RpcEndpoint<TaskExecutorGateway> {
 
 	private final FileCache fileCache;
 
+	private final TaskLocalStateStore taskLocalStateStore;
+
 	// --------- resource manager --------
 
 	private TaskExecutorToResourceManagerConnection resourceManagerConnection;
@@ -202,6 +205,9 @@ public class TaskExecutor extends RpcEndpoint<TaskExecutorGateway> {
 		this.taskManagerMetricGroup = checkNotNull(taskManagerMetricGroup);
 		this.broadcastVariableManager = checkNotNull(broadcastVariableManager);
 		this.fileCache = checkNotNull(fileCache);
+		this.taskLocalStateStore = new TaskLocalStateStore(
+			taskManagerConfiguration.getTmpDirectories(),
+			taskManagerConfiguration.getCleanupInterval());
 		this.jobManagerTable = checkNotNull(jobManagerTable);
 		this.jobLeaderService = checkNotNull(jobLeaderService);
 
@@ -269,6 +275,8 @@ public class TaskExecutor extends RpcEndpoint<TaskExecutorGateway> {
 
 		fileCache.shutdown();
 
+		taskLocalStateStore.shutdown();
+
 		try {
 			super.shutDown();
 		} catch (Exception e) {
@@ -374,6 +382,7 @@ public class TaskExecutor extends RpcEndpoint<TaskExecutorGateway> {
 				checkpointResponder,
 				libraryCache,
 				fileCache,
+				taskLocalStateStore,
 				taskManagerConfiguration,
 				taskMetricGroup,
 				resultPartitionConsumableNotifier,
@@ -372,7 +372,9 @@ public class TaskManagerServices {
 			networkEnvironmentConfiguration.partitionRequestInitialBackoff(),
 			networkEnvironmentConfiguration.partitionRequestMaxBackoff(),
 			networkEnvironmentConfiguration.networkBuffersPerChannel(),
-			networkEnvironmentConfiguration.extraNetworkBuffersPerGate());
+			networkEnvironmentConfiguration.extraNetworkBuffersPerGate(),
+			networkEnvironmentConfiguration.enableCreditBasedFlowControl(),
+			networkEnvironmentConfiguration.bufferRebalanceInterval());
 	}
 
 	/**
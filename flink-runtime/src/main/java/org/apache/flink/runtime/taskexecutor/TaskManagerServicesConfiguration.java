@@ -316,6 +316,16 @@ public class TaskManagerServicesConfiguration {
 		int extraBuffersPerGate = configuration.getInteger(
 			TaskManagerOptions.NETWORK_EXTRA_BUFFERS_PER_GATE);
 
+		boolean enableCreditBased = configuration.getBoolean(
+			TaskManagerOptions.NETWORK_CREDIT_BASED_FLOW_CONTROL);
+
+		long bufferRebalanceInterval = configuration.getLong(
+			TaskManagerOptions.NETWORK_BUFFER_REBALANCE_INTERVAL);
+
+		checkConfigParameter(bufferRebalanceInterval >= 0, bufferRebalanceInterval,
+			TaskManagerOptions.NETWORK_BUFFER_REBALANCE_INTERVAL.key(),
+			"The buffer rebalance interval must not be negative.");
+
 		return new NetworkEnvironmentConfiguration(
 			numNetworkBuffers,
 			pageSize,
@@ -325,7 +335,9 @@ public class TaskManagerServicesConfiguration {
 			maxRequestBackoff,
 			buffersPerChannel,
 			extraBuffersPerGate,
-			nettyConfig);
+			nettyConfig,
+			enableCreditBased,
+			bufferRebalanceInterval);
 	}
 
 	/**
@@ -37,6 +37,7 @@ import org.apache.flink.runtime.jobgraph.tasks.InputSplitProvider;
 import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.runtime.metrics.groups.TaskMetricGroup;
 import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.TaskLocalStateStore;
 
 import java.util.Map;
 import java.util.concurrent.Future;
@@ -76,6 +77,8 @@ public class RuntimeEnvironment implements Environment {
 
 	private final TaskKvStateRegistry kvStateRegistry;
 
+	private final TaskLocalStateStore taskLocalStateStore;
+
 	private final TaskManagerRuntimeInfo taskManagerInfo;
 	private final TaskMetricGroup metrics;
 
@@ -97,6 +100,7 @@ public class RuntimeEnvironment implements Environment {
 			BroadcastVariableManager bcVarManager,
 			AccumulatorRegistry accumulatorRegistry,
 			TaskKvStateRegistry kvStateRegistry,
+			TaskLocalStateStore taskLocalStateStore,
 			InputSplitProvider splitProvider,
 			Map<String, Future<Path>> distCacheEntries,
 			ResultPartitionWriter[] writers,
@@ -119,6 +123,7 @@ public class RuntimeEnvironment implements Environment {
 		this.bcVarManager = checkNotNull(bcVarManager);
 		this.accumulatorRegistry = checkNotNull(accumulatorRegistry);
 		this.kvStateRegistry = checkNotNull(kvStateRegistry);
+		this.taskLocalStateStore = checkNotNull(taskLocalStateStore);
 		this.splitProvider = checkNotNull(splitProvider);
 		this.distCacheEntries = checkNotNull(distCacheEntries);
 		this.writers = checkNotNull(writers);
@@ -206,6 +211,11 @@ public class RuntimeEnvironment implements Environment {
 		return kvStateRegistry;
 	}
 
+	@Override
+	public TaskLocalStateStore getTaskLocalStateStore() {
+		return taskLocalStateStore;
+	}
+
 	@Override
 	public InputSplitProvider getInputSplitProvider() {
 		return splitProvider;
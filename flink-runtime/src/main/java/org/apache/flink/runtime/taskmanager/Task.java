@@ -50,6 +50,7 @@ import org.apache.flink.runtime.filecache.FileCache;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.network.NetworkEnvironment;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
+import org.apache.flink.runtime.io.network.netty.NettyConfig;
 import org.apache.flink.runtime.io.network.netty.PartitionProducerStateChecker;
 import org.apache.flink.runtime.io.network.partition.ResultPartition;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionConsumableNotifier;
@@ -67,6 +68,7 @@ import org.apache.flink.runtime.jobmanager.PartitionProducerDisposedException;
 import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.runtime.metrics.groups.TaskMetricGroup;
 import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.TaskLocalStateStore;
 import org.apache.flink.runtime.state.TaskStateHandles;
 import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.Preconditions;
@@ -205,6 +207,9 @@ public class Task implements Runnable, TaskActions {
 	/** The cache for user-defined files that the invokable requires */
 	private final FileCache fileCache;
 
+	/** The store for local copies of the keyed state snapshots of the TaskManager's subtasks */
+	private final TaskLocalStateStore taskLocalStateStore;
+
 	/** The gateway to the network stack, which handles inputs and produced results */
 	private final NetworkEnvironment network;
 
@@ -280,6 +285,7 @@ public class Task implements Runnable, TaskActions {
 		CheckpointResponder checkpointResponder,
 		LibraryCacheManager libraryCache,
 		FileCache fileCache,
+		TaskLocalStateStore taskLocalStateStore,
 		TaskManagerRuntimeInfo taskManagerConfig,
 		@Nonnull TaskMetricGroup metricGroup,
 		ResultPartitionConsumableNotifier resultPartitionConsumableNotifier,
@@ -328,6 +334,7 @@ public class Task implements Runnable, TaskActions {
 
 		this.libraryCache = Preconditions.checkNotNull(libraryCache);
 		this.fileCache = Preconditions.checkNotNull(fileCache);
+		this.taskLocalStateStore = Preconditions.checkNotNull(taskLocalStateStore);
 		this.network = Preconditions.checkNotNull(networkEnvironment);
 		this.taskManagerConfig = Preconditions.checkNotNull(taskManagerConfig);
 
@@ -345,6 +352,9 @@ public class Task implements Runnable, TaskActions {
 		this.producedPartitions = new ResultPartition[resultPartitionDeploymentDescriptors.size()];
 		this.writers = new ResultPartitionWriter[resultPartitionDeploymentDescriptors.size()];
 
+		// spilled buffers are compressed like the buffers sent over the network
+		final boolean compressSpilledBuffers = NettyConfig.isCompressionEnabled(tmConfig);
+
 		int counter = 0;
 
 		for (ResultPartitionDeploymentDescriptor desc: resultPartitionDeploymentDescriptors) {
@@ -361,7 +371,8 @@ public class Task implements Runnable, TaskActions {
 				networkEnvironment.getResultPartitionManager(),
 				resultPartitionConsumableNotifier,
 				ioManager,
-				desc.sendScheduleOrUpdateConsumersMessage());
+				desc.sendScheduleOrUpdateConsumersMessage(),
+				compressSpilledBuffers);
 
 			writers[counter] = new ResultPartitionWriter(producedPartitions[counter]);
 
@@ -564,6 +575,9 @@ public class Task implements Runnable, TaskActions {
 			LOG.info("Creating FileSystem stream leak safety net for task {}", this);
 			FileSystemSafetyNet.initializeSafetyNetForThread();
 
+			// keep the job's local state while this task runs
+			taskLocalStateStore.registerTask(jobId, executionId);
+
 			// first of all, get a user-code classloader
 			// this may involve downloading the job's JAR files and/or classes
 			LOG.info("Loading JAR files for task {}.", this);
@@ -611,13 +625,15 @@ public class Task implements Runnable, TaskActions {
 
 				// output metrics
 				for (int i = 0; i < producedPartitions.length; i++) {
-					ResultPartitionMetrics.registerQueueLengthMetrics(
-						outputGroup.addGroup(i), producedPartitions[i]);
+					MetricGroup partitionGroup = outputGroup.addGroup(i);
+					ResultPartitionMetrics.registerQueueLengthMetrics(partitionGroup, producedPartitions[i]);
+					ResultPartitionMetrics.registerChannelMetrics(partitionGroup, producedPartitions[i]);
 				}
 
 				for (int i = 0; i < inputGates.length; i++) {
-					InputGateMetrics.registerQueueLengthMetrics(
-						inputGroup.addGroup(i), inputGates[i]);
+					MetricGroup gateGroup = inputGroup.addGroup(i);
+					InputGateMetrics.registerQueueLengthMetrics(gateGroup, inputGates[i]);
+					InputGateMetrics.registerChannelMetrics(gateGroup, inputGates[i]);
 				}
 			}
 
@@ -652,7 +668,7 @@ public class Task implements Runnable, TaskActions {
 				jobId, vertexId, executionId, executionConfig, taskInfo,
 				jobConfiguration, taskConfiguration, userCodeClassLoader,
 				memoryManager, ioManager, broadcastVariableManager,
-				accumulatorRegistry, kvStateRegistry, inputSplitProvider,
+				accumulatorRegistry, kvStateRegistry, taskLocalStateStore, inputSplitProvider,
 				distributedCacheEntries, writers, inputGates,
 				checkpointResponder, taskManagerConfig, metrics, this);
 
@@ -819,6 +835,9 @@ public class Task implements Runnable, TaskActions {
 				// remove all of the tasks library resources
 				libraryCache.unregisterTask(jobId, executionId);
 
+				// allow the job's local state to be released once none of its tasks runs here
+				taskLocalStateStore.unregisterTask(jobId, executionId);
+
 				// remove all files in the distributed cache
 				removeCachedFiles(distributedCacheEntries, fileCache);
 
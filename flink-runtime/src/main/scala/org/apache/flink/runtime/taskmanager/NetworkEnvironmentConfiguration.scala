@@ -31,4 +31,6 @@ case class NetworkEnvironmentConfiguration(
     partitionRequestMaxBackoff : Int,
     networkBuffersPerChannel: Int,
     extraNetworkBuffersPerGate: Int,
-    nettyConfig: NettyConfig = null)
+    nettyConfig: NettyConfig = null,
+    enableCreditBasedFlowControl: Boolean = false,
+    bufferRebalanceInterval: Long = 0L)
@@ -64,6 +64,7 @@ import org.apache.flink.runtime.metrics.{MetricRegistry => FlinkMetricRegistry}
 import org.apache.flink.runtime.process.ProcessReaper
 import org.apache.flink.runtime.security.SecurityUtils
 import org.apache.flink.runtime.security.SecurityUtils.SecurityConfiguration
+import org.apache.flink.runtime.state.TaskLocalStateStore
 import org.apache.flink.runtime.taskexecutor.{TaskManagerConfiguration, TaskManagerServices, TaskManagerServicesConfiguration}
 import org.apache.flink.runtime.util._
 import org.apache.flink.runtime.{FlinkActor, LeaderSessionMessageFilter, LogMessages}
@@ -146,6 +147,11 @@ class TaskManager(
   /** Handler for distributed files cached by this TaskManager */
   protected val fileCache = new FileCache(config.getTmpDirectories())
 
+  /** Store for the local copies of the keyed state snapshots of this TaskManager's subtasks */
+  protected val taskLocalStateStore = new TaskLocalStateStore(
+    config.getTmpDirectories(),
+    config.getCleanupInterval())
+
   private var taskManagerMetricGroup : TaskManagerMetricGroup = _
 
   /** Actors which want to be notified once this task manager has been
@@ -250,6 +256,12 @@ class TaskManager(
     } catch {
       case t: Exception => log.error("FileCache did not shutdown properly.", t)
     }
+
+    try {
+      taskLocalStateStore.shutdown()
+    } catch {
+      case t: Exception => log.error("TaskLocalStateStore did not shutdown properly.", t)
+    }
     
     // failsafe shutdown of the metrics registry
     try {
@@ -1179,6 +1191,7 @@ class TaskManager(
         checkpointResponder,
         libCache,
         fileCache,
+        taskLocalStateStore,
         config,
         taskMetricGroup,
         resultPartitionConsumableNotifier,
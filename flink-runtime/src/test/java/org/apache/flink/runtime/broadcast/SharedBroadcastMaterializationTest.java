@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.broadcast;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the {@link SharedBroadcastMaterialization} handed out by the
+ * {@link BroadcastVariableManager}.
+ */
+public class SharedBroadcastMaterializationTest {
+
+	private final BroadcastVariableKey key = new BroadcastVariableKey(new JobVertexID(), "side", 1);
+
+	@Test
+	public void testSharedAccess() throws Exception {
+		BroadcastVariableManager manager = new BroadcastVariableManager();
+		Object first = new Object();
+		Object second = new Object();
+
+		SharedBroadcastMaterialization<String> mat1 = manager.registerSharedMaterialization(key, first);
+		SharedBroadcastMaterialization<String> mat2 = manager.registerSharedMaterialization(key, second);
+
+		assertSame(mat1, mat2);
+		assertTrue(mat1.isMaterializer(first));
+		assertFalse(mat1.isMaterializer(second));
+
+		ArrayList<String> data = new ArrayList<>(Arrays.asList("a", "b", "c"));
+		mat1.publish(first, data);
+		assertSame(data, mat2.awaitData());
+
+		// the data outlives the materializer as long as someone holds a reference
+		manager.releaseSharedMaterialization(key, first);
+		assertEquals(1, manager.getNumberOfSharedMaterializations());
+		assertSame(data, mat2.awaitData());
+
+		manager.releaseSharedMaterialization(key, second);
+		assertEquals(0, manager.getNumberOfSharedMaterializations());
+	}
+
+	@Test
+	public void testDataIsReleasedWithLastReference() throws Exception {
+		BroadcastVariableManager manager = new BroadcastVariableManager();
+		Object first = new Object();
+		Object second = new Object();
+		final AtomicInteger numReleases = new AtomicInteger();
+
+		SharedBroadcastMaterialization<String> mat = manager.registerSharedMaterialization(key, first);
+		manager.registerSharedMaterialization(key, second);
+
+		mat.publish(first, new ArrayList<>(Arrays.asList("a", "b")), new Runnable() {
+			@Override
+			public void run() {
+				numReleases.incrementAndGet();
+			}
+		});
+
+		// the materializer leaving does not release the data another holder still reads
+		manager.releaseSharedMaterialization(key, first);
+		assertEquals(0, numReleases.get());
+
+		manager.releaseSharedMaterialization(key, second);
+		assertEquals(1, numReleases.get());
+	}
+
+	@Test
+	public void testDifferentJobsDoNotShare() throws Exception {
+		BroadcastVariableManager manager = new BroadcastVariableManager();
+		JobVertexID vertexId = new JobVertexID();
+		BroadcastVariableKey firstJobKey = new BroadcastVariableKey(new JobID(), vertexId, "side", 1);
+		BroadcastVariableKey secondJobKey = new BroadcastVariableKey(new JobID(), vertexId, "side", 1);
+		Object first = new Object();
+		Object second = new Object();
+
+		assertNotEquals(firstJobKey, secondJobKey);
+
+		SharedBroadcastMaterialization<String> mat1 = manager.registerSharedMaterialization(firstJobKey, first);
+		SharedBroadcastMaterialization<String> mat2 = manager.registerSharedMaterialization(secondJobKey, second);
+
+		// both jobs materialize their own data, although their vertices have the same id
+		assertNotSame(mat1, mat2);
+		assertTrue(mat1.isMaterializer(first));
+		assertTrue(mat2.isMaterializer(second));
+		assertEquals(2, manager.getNumberOfSharedMaterializations());
+
+		ArrayList<String> data1 = new ArrayList<>(Arrays.asList("a", "b"));
+		ArrayList<String> data2 = new ArrayList<>(Arrays.asList("c"));
+		mat1.publish(first, data1);
+		mat2.publish(second, data2);
+		assertSame(data1, mat1.awaitData());
+		assertSame(data2, mat2.awaitData());
+
+		manager.releaseSharedMaterialization(firstJobKey, first);
+		manager.releaseSharedMaterialization(secondJobKey, second);
+		assertEquals(0, manager.getNumberOfSharedMaterializations());
+	}
+
+	@Test
+	public void testMaterializerReleasesBeforePublishing() throws Exception {
+		BroadcastVariableManager manager = new BroadcastVariableManager();
+		Object first = new Object();
+		Object second = new Object();
+
+		manager.registerSharedMaterialization(key, first);
+		SharedBroadcastMaterialization<String> mat = manager.registerSharedMaterialization(key, second);
+
+		manager.releaseSharedMaterialization(key, first);
+		try {
+			mat.awaitData();
+			fail("Expected an exception");
+		} catch (IOException ignored) {
+			// expected
+		}
+
+		// a new holder gets a fresh materialization
+		Object third = new Object();
+		SharedBroadcastMaterialization<String> fresh = manager.registerSharedMaterialization(key, third);
+		assertTrue(fresh.isMaterializer(third));
+
+		manager.releaseSharedMaterialization(key, second);
+		manager.releaseSharedMaterialization(key, third);
+		assertEquals(0, manager.getNumberOfSharedMaterializations());
+	}
+}
@@ -18,12 +18,21 @@
 
 package org.apache.flink.runtime.checkpoint.savepoint;
 
+import org.apache.flink.configuration.ConfigConstants;
 import org.apache.flink.core.memory.ByteArrayInputStreamWithPos;
 import org.apache.flink.core.memory.ByteArrayOutputStreamWithPos;
 import org.apache.flink.core.memory.DataInputViewStreamWrapper;
 import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
 import org.apache.flink.runtime.checkpoint.MasterState;
+import org.apache.flink.runtime.checkpoint.SubtaskState;
 import org.apache.flink.runtime.checkpoint.TaskState;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.state.ChainedStateHandle;
+import org.apache.flink.runtime.state.IncrementalOperatorStateHandle;
+import org.apache.flink.runtime.state.OperatorStateHandle;
+import org.apache.flink.runtime.state.SharedStreamStateHandle;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.util.TestByteStreamStateHandleDeepCompare;
 
 import org.junit.Test;
 
@@ -32,10 +41,13 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * Various tests for the version 2 format serializer of a checkpoint. 
@@ -117,7 +129,81 @@ public class SavepointV2SerializerTest {
 		}
 	}
 
-	private void testCheckpointSerialization(
+	/**
+	 * Operator state that references shared files is written with its own handle type. The
+	 * shared files keep their registration keys and whether the snapshot wrote them.
+	 */
+	@Test
+	public void testCheckpointWithIncrementalOperatorState() throws Exception {
+		Map<String, SharedStreamStateHandle> sharedState = new HashMap<>();
+		sharedState.put("new", new SharedStreamStateHandle("new-key", createStreamStateHandle("new")));
+		sharedState.put("referenced", new SharedStreamStateHandle("referenced-key", createStreamStateHandle("referenced")));
+
+		IncrementalOperatorStateHandle stateHandle = new IncrementalOperatorStateHandle(
+				createPartitionOffsets(),
+				createStreamStateHandle("operator"),
+				sharedState,
+				Collections.singleton("new"));
+
+		OperatorStateHandle deserialized = serializeOperatorStateHandle(stateHandle);
+
+		assertSame(IncrementalOperatorStateHandle.class, deserialized.getClass());
+		assertEquals(stateHandle, deserialized);
+
+		IncrementalOperatorStateHandle incrementalStateHandle = (IncrementalOperatorStateHandle) deserialized;
+		assertEquals(Collections.singleton("new"), incrementalStateHandle.getNewSharedState());
+		for (Map.Entry<String, SharedStreamStateHandle> entry : sharedState.entrySet()) {
+			SharedStreamStateHandle sharedFile = incrementalStateHandle.getSharedState().get(entry.getKey());
+			assertEquals(entry.getValue().getRegistrationKey(), sharedFile.getRegistrationKey());
+			assertEquals(entry.getValue().getDelegateStateHandle(), sharedFile.getDelegateStateHandle());
+		}
+	}
+
+	/**
+	 * Operator state without shared files is still written with the handle type it had before
+	 * incremental operator state existed, so savepoints stay readable by older versions.
+	 */
+	@Test
+	public void testCheckpointWithOperatorStateKeepsFormat() throws Exception {
+		OperatorStateHandle stateHandle = new OperatorStateHandle(
+				createPartitionOffsets(),
+				createStreamStateHandle("operator"));
+
+		OperatorStateHandle deserialized = serializeOperatorStateHandle(stateHandle);
+
+		assertSame(OperatorStateHandle.class, deserialized.getClass());
+		assertEquals(stateHandle, deserialized);
+	}
+
+	private OperatorStateHandle serializeOperatorStateHandle(OperatorStateHandle stateHandle) throws IOException {
+		TaskState taskState = new TaskState(new JobVertexID(), 1, 128, 1);
+		taskState.putState(0, new SubtaskState(
+				new ChainedStateHandle<>(Collections.<StreamStateHandle>emptyList()),
+				new ChainedStateHandle<>(Collections.singletonList(stateHandle)),
+				new ChainedStateHandle<>(Collections.<OperatorStateHandle>emptyList()),
+				null,
+				null));
+
+		SavepointV2 deserialized = testCheckpointSerialization(
+				42L,
+				Collections.singletonList(taskState),
+				Collections.<MasterState>emptyList());
+
+		return deserialized.getTaskStates().iterator().next().getState(0).getManagedOperatorState().get(0);
+	}
+
+	private static Map<String, OperatorStateHandle.StateMetaInfo> createPartitionOffsets() {
+		Map<String, OperatorStateHandle.StateMetaInfo> offsetsMap = new HashMap<>();
+		offsetsMap.put("A", new OperatorStateHandle.StateMetaInfo(new long[]{0, 10, 20}, OperatorStateHandle.Mode.SPLIT_DISTRIBUTE));
+		offsetsMap.put("B", new OperatorStateHandle.StateMetaInfo(new long[]{30}, OperatorStateHandle.Mode.BROADCAST));
+		return offsetsMap;
+	}
+
+	private static StreamStateHandle createStreamStateHandle(String name) {
+		return new TestByteStreamStateHandleDeepCompare(name, name.getBytes(ConfigConstants.DEFAULT_CHARSET));
+	}
+
+	private SavepointV2 testCheckpointSerialization(
 			long checkpointId,
 			Collection<TaskState> taskStates,
 			Collection<MasterState> masterStates) throws IOException {
@@ -144,5 +230,7 @@ public class SavepointV2SerializerTest {
 		{
 			CheckpointTestUtils.assertMasterStateEquality(a.next(), b.next());
 		}
+
+		return deserialized;
 	}
 }
@@ -176,8 +176,73 @@ public class BufferFileWriterReaderTest {
 		}
 	}
 
+	@Test
+	public void testWriteReadCompressed() throws IOException {
+		final FileIOChannel.ID channel = ioManager.createChannel();
+		final BufferFileWriter compressingWriter = ioManager.createBufferFileWriter(channel, true);
+		final BufferFileReader compressedReader = ioManager.createBufferFileReader(channel, new QueuingCallback<>(returnedBuffers));
+
+		try {
+			int numBuffers = 64;
+
+			// Write buffers with few distinct numbers, which compress well, and an event
+			for (int i = 0; i < numBuffers; i++) {
+				final Buffer buffer = createBuffer();
+				fillBufferWithRepeatedNumbers(buffer, i);
+
+				compressingWriter.writeBlock(buffer);
+			}
+
+			final Buffer event = createBuffer();
+			event.tagAsEvent();
+			event.setSize(BUFFER_SIZE / 2);
+			compressingWriter.writeBlock(event);
+
+			compressingWriter.close();
+
+			assertTrue(channel.getPathFile().length() < numBuffers * (8L + BUFFER_SIZE) / 2);
+
+			// Read buffers back in...
+			for (int i = 0; i <= numBuffers; i++) {
+				assertFalse(compressedReader.hasReachedEndOfFile());
+				compressedReader.readInto(createBuffer());
+			}
+
+			compressedReader.close();
+
+			assertTrue(compressedReader.hasReachedEndOfFile());
+			assertEquals("Read less buffers than written.", numBuffers + 1, returnedBuffers.size());
+
+			for (int i = 0; i < numBuffers; i++) {
+				Buffer buffer = returnedBuffers.poll();
+
+				assertTrue(buffer.isBuffer());
+				assertEquals(BUFFER_SIZE, buffer.getSize());
+				for (int j = 0; j < BUFFER_SIZE; j += 4) {
+					assertEquals(i + (j / 4) % 16, buffer.getMemorySegment().getInt(j));
+				}
+			}
+
+			Buffer readEvent = returnedBuffers.poll();
+			assertFalse(readEvent.isBuffer());
+			assertEquals(BUFFER_SIZE / 2, readEvent.getSize());
+		}
+		finally {
+			compressingWriter.deleteChannel();
+			compressedReader.deleteChannel();
+		}
+	}
+
 	// ------------------------------------------------------------------------
 
+	private static void fillBufferWithRepeatedNumbers(Buffer buffer, int offset) {
+		MemorySegment segment = buffer.getMemorySegment();
+
+		for (int i = 0; i < BUFFER_SIZE; i += 4) {
+			segment.putInt(i, offset + (i / 4) % 16);
+		}
+	}
+
 	private int getRandomNumberInRange(int min, int max) {
 		return random.nextInt((max - min) + 1) + min;
 	}
@@ -116,6 +116,11 @@ public class IOManagerTest {
 			throw new UnsupportedOperationException();
 		}
 
+		@Override
+		public BufferFileWriter createBufferFileWriter(ID channelID, boolean compress) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
 		@Override
 		public BufferFileReader createBufferFileReader(ID channelID, RequestDoneCallback<Buffer> callback) throws IOException {
 			throw new UnsupportedOperationException();
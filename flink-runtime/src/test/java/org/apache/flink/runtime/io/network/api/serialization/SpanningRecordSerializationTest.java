@@ -29,6 +29,7 @@ import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.util.ArrayDeque;
 
 import static org.mockito.Mockito.mock;
@@ -95,8 +96,34 @@ public class SpanningRecordSerializationTest {
 		}
 	}
 
+	@Test
+	public void testFixedLengthRecords() throws Exception {
+		// records spanning multiple segments, unaligned and aligned buffers
+		for (int segmentSize : new int[] { 1, 31, 64 }) {
+			testFixedLengthRecords(Util.randomRecords(248, SerializationTestTypeFactory.INT), 4, segmentSize);
+			testFixedLengthRecords(Util.randomRecords(248, SerializationTestTypeFactory.LONG), 8, segmentSize);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testFixedLengthRecordsWithWrongLength() throws Exception {
+		RecordSerializer<SerializationTestType> serializer = new SpanningRecordSerializer<SerializationTestType>(8);
+
+		serializer.addRecord(Util.randomRecords(1, SerializationTestTypeFactory.INT).iterator().next());
+	}
+
 	// -----------------------------------------------------------------------------------------------------------------
 
+	private void testFixedLengthRecords(Util.MockRecords records, int recordLength, int segmentSize) throws Exception {
+		RecordSerializer<SerializationTestType> serializer = new SpanningRecordSerializer<SerializationTestType>(recordLength);
+		RecordDeserializer<SerializationTestType> deserializer =
+				new SpillingAdaptiveSpanningRecordDeserializer<SerializationTestType>(
+						new String[] { System.getProperty("java.io.tmpdir") }, recordLength);
+
+		// no length is written before the records
+		test(records, segmentSize, serializer, deserializer, 0);
+	}
+
 	private void testNonSpillingDeserializer(Util.MockRecords records, int segmentSize) throws Exception {
 		RecordSerializer<SerializationTestType> serializer = new SpanningRecordSerializer<SerializationTestType>();
 		RecordDeserializer<SerializationTestType> deserializer = new AdaptiveSpanningRecordDeserializer<SerializationTestType>();
@@ -127,8 +154,15 @@ public class SpanningRecordSerializationTest {
 			RecordDeserializer<SerializationTestType> deserializer)
 		throws Exception
 	{
-		final int SERIALIZATION_OVERHEAD = 4; // length encoding
+		test(records, segmentSize, serializer, deserializer, 4); // length encoding
+	}
 
+	private void test(Util.MockRecords records, int segmentSize,
+			RecordSerializer<SerializationTestType> serializer,
+			RecordDeserializer<SerializationTestType> deserializer,
+			final int SERIALIZATION_OVERHEAD)
+		throws Exception
+	{
 		final Buffer buffer = new Buffer(MemorySegmentFactory.allocateUnpooledSegment(segmentSize), mock(BufferRecycler.class));
 
 		final ArrayDeque<SerializationTestType> serializedRecords = new ArrayDeque<SerializationTestType>();
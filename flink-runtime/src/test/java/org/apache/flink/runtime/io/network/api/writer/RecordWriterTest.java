@@ -29,7 +29,9 @@ import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.api.EndOfSuperstepEvent;
+import org.apache.flink.runtime.io.network.api.serialization.AdaptiveSpanningRecordDeserializer;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer;
 import org.apache.flink.runtime.io.network.api.serialization.RecordSerializer.SerializationResult;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
@@ -53,6 +55,9 @@ import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Queue;
 import java.util.Random;
 import java.util.concurrent.Callable;
@@ -63,6 +68,8 @@ import java.util.concurrent.Future;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
@@ -434,6 +441,186 @@ public class RecordWriterTest {
 		assertTrue(buffer.isRecycled());
 	}
 
+	/**
+	 * Tests that records sent to multiple channels arrive at each of them
+	 * completely, also if they span multiple buffers.
+	 */
+	@Test
+	public void testEmitToMultipleChannels() throws Exception {
+		int numChannels = 3;
+		// not a multiple of the serialized record size, so records span buffers
+		int bufferSize = 30;
+
+		@SuppressWarnings("unchecked")
+		Queue<BufferOrEvent>[] queues = new Queue[numChannels];
+		for (int i = 0; i < numChannels; i++) {
+			queues[i] = new ArrayDeque<>();
+		}
+
+		ResultPartitionWriter partitionWriter = createCollectingPartitionWriter(queues, createBufferProvider(bufferSize));
+		RecordWriter<IntValue> writer = new RecordWriter<>(partitionWriter, new ChannelSelector<IntValue>() {
+			@Override
+			public int[] selectChannels(IntValue record, int numChannels) {
+				return new int[] {0, 2};
+			}
+		});
+
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			writer.emit(new IntValue(i));
+			expected.add(i);
+		}
+		writer.flush();
+
+		assertEquals(expected, deserialize(queues[0]));
+		assertEquals(0, queues[1].size());
+		assertEquals(expected, deserialize(queues[2]));
+	}
+
+	/**
+	 * Tests that the records of a {@link BroadcastChannelSelector} are written
+	 * into buffers shared by all channels, which are recycled after the last
+	 * channel is done with them.
+	 */
+	@Test
+	public void testBroadcastSelectorSharesBuffers() throws Exception {
+		int numChannels = 4;
+		int bufferSize = 30;
+
+		@SuppressWarnings("unchecked")
+		Queue<BufferOrEvent>[] queues = new Queue[numChannels];
+		for (int i = 0; i < numChannels; i++) {
+			queues[i] = new ArrayDeque<>();
+		}
+
+		BufferProvider bufferProvider = createBufferProvider(bufferSize);
+		ResultPartitionWriter partitionWriter = createCollectingPartitionWriter(queues, bufferProvider);
+		RecordWriter<IntValue> writer = new RecordWriter<>(partitionWriter, new Broadcast<IntValue>());
+
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			writer.emit(new IntValue(i));
+			expected.add(i);
+		}
+		writer.broadcastEmit(new IntValue(100));
+		expected.add(100);
+		writer.broadcastEvent(EndOfPartitionEvent.INSTANCE);
+
+		// 101 records of 8 bytes each
+		verify(bufferProvider, times(27)).requestBufferBlocking();
+
+		for (int i = 0; i < numChannels; i++) {
+			assertEquals(28, queues[i].size()); // 27 buffers + 1 event
+		}
+
+		// all channels got the same buffers
+		List<Buffer> buffers = new ArrayList<>();
+		for (BufferOrEvent boe : queues[0]) {
+			if (boe.isBuffer()) {
+				buffers.add(boe.getBuffer());
+			}
+		}
+		for (int i = 0; i < numChannels; i++) {
+			assertEquals(expected, deserialize(queues[i]));
+
+			int index = 0;
+			for (BufferOrEvent boe : queues[i]) {
+				if (boe.isBuffer()) {
+					assertSame(buffers.get(index++), boe.getBuffer());
+				}
+			}
+		}
+
+		for (int i = 0; i < numChannels; i++) {
+			for (Buffer buffer : buffers) {
+				assertFalse(buffer.isRecycled());
+				buffer.recycle();
+			}
+		}
+		for (Buffer buffer : buffers) {
+			assertTrue(buffer.isRecycled());
+		}
+	}
+
+	/**
+	 * Tests that a buffer shared by all channels is recycled once the channels
+	 * it was written to are done with it, if writing it to a channel fails.
+	 */
+	@Test
+	public void testBroadcastSelectorRecyclesBufferOnFailure() throws Exception {
+		int numChannels = 4;
+
+		final List<Buffer> written = new ArrayList<>();
+		ResultPartitionWriter partitionWriter = mock(ResultPartitionWriter.class);
+		when(partitionWriter.getBufferProvider()).thenReturn(createBufferProvider(30));
+		when(partitionWriter.getNumberOfOutputChannels()).thenReturn(numChannels);
+
+		// like the result partition, recycle the buffer if it cannot be written
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocationOnMock) throws Throwable {
+				Buffer buffer = (Buffer) invocationOnMock.getArguments()[0];
+				if ((Integer) invocationOnMock.getArguments()[1] == 1) {
+					buffer.recycle();
+					throw new IOException("Test exception");
+				}
+				written.add(buffer);
+				return null;
+			}
+		}).when(partitionWriter).writeBuffer(any(Buffer.class), anyInt());
+
+		RecordWriter<IntValue> writer = new RecordWriter<>(partitionWriter, new Broadcast<IntValue>());
+		writer.emit(new IntValue(42));
+
+		try {
+			writer.flush();
+			Assert.fail("Expected an IOException");
+		} catch (IOException expected) {
+			// expected
+		}
+
+		// only written to the first channel
+		assertEquals(1, written.size());
+
+		Buffer buffer = written.get(0);
+		assertFalse(buffer.isRecycled());
+		buffer.recycle();
+		assertTrue(buffer.isRecycled());
+	}
+
+	/**
+	 * Tests that a record to a single channel of a {@link BroadcastChannelSelector}
+	 * does not interleave with the buffers shared by all channels.
+	 */
+	@Test
+	public void testBroadcastSelectorRandomEmit() throws Exception {
+		int numChannels = 2;
+		int bufferSize = 30;
+
+		@SuppressWarnings("unchecked")
+		Queue<BufferOrEvent>[] queues = new Queue[numChannels];
+		for (int i = 0; i < numChannels; i++) {
+			queues[i] = new ArrayDeque<>();
+		}
+
+		ResultPartitionWriter partitionWriter = createCollectingPartitionWriter(queues, createBufferProvider(bufferSize));
+		RecordWriter<IntValue> writer = new RecordWriter<>(partitionWriter, new Broadcast<IntValue>());
+
+		writer.emit(new IntValue(1));
+		writer.randomEmit(new IntValue(2));
+		writer.emit(new IntValue(3));
+		writer.flush();
+
+		List<Integer> first = deserialize(queues[0]);
+		List<Integer> second = deserialize(queues[1]);
+		assertEquals(5, first.size() + second.size());
+
+		List<Integer> withMarker = first.size() == 3 ? first : second;
+		List<Integer> withoutMarker = first.size() == 3 ? second : first;
+		assertEquals(Arrays.asList(1, 2, 3), withMarker);
+		assertEquals(Arrays.asList(1, 3), withoutMarker);
+	}
+
 	// ---------------------------------------------------------------------------------------------
 	// Helpers
 	// ---------------------------------------------------------------------------------------------
@@ -477,6 +664,31 @@ public class RecordWriterTest {
 		return partitionWriter;
 	}
 
+	private static List<Integer> deserialize(Queue<BufferOrEvent> queue) throws IOException {
+		AdaptiveSpanningRecordDeserializer<IntValue> deserializer = new AdaptiveSpanningRecordDeserializer<>();
+		IntValue record = new IntValue();
+		List<Integer> records = new ArrayList<>();
+
+		for (BufferOrEvent boe : queue) {
+			if (boe.isEvent()) {
+				continue;
+			}
+
+			deserializer.setNextBuffer(boe.getBuffer());
+
+			RecordDeserializer.DeserializationResult result;
+			do {
+				result = deserializer.getNextRecord(record);
+				if (result.isFullRecord()) {
+					records.add(record.getValue());
+				}
+			} while (!result.isBufferConsumed());
+		}
+
+		assertFalse(deserializer.hasUnfinishedData());
+		return records;
+	}
+
 	private BufferProvider createBufferProvider(final int bufferSize)
 			throws IOException, InterruptedException {
 
@@ -559,4 +771,12 @@ public class RecordWriterTest {
 			return nextChannel;
 		}
 	}
+
+	private static class Broadcast<T extends IOReadableWritable> implements BroadcastChannelSelector<T> {
+
+		@Override
+		public int[] selectChannels(final T record, final int numberOfOutputChannels) {
+			throw new UnsupportedOperationException("The record writer broadcasts without selecting channels.");
+		}
+	}
 }
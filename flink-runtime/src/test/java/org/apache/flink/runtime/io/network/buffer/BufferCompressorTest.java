@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.testutils.DiscardingRecycler;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the {@link BufferCompressor}.
+ */
+public class BufferCompressorTest {
+
+	private static final int BUFFER_SIZE = 32 * 1024;
+
+	private final Random random = new Random(42);
+
+	@Test
+	public void testCompressibleData() throws IOException {
+		// records with a few distinct values and some random noise
+		byte[] data = new byte[BUFFER_SIZE];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) (random.nextInt(50) == 0 ? random.nextInt() : i % 48);
+		}
+
+		int compressedSize = assertRoundTrip(data);
+		assertTrue(compressedSize < data.length / 2);
+	}
+
+	@Test
+	public void testRepeatedBytes() throws IOException {
+		// long overlapping matches and length extensions
+		byte[] data = new byte[BUFFER_SIZE];
+		Arrays.fill(data, (byte) 7);
+
+		int compressedSize = assertRoundTrip(data);
+		assertTrue(compressedSize < 256);
+	}
+
+	@Test
+	public void testLongLiterals() throws IOException {
+		// random data in between a long run, so the literals need length extensions
+		byte[] data = new byte[4096];
+		byte[] noise = new byte[1000];
+		random.nextBytes(noise);
+		System.arraycopy(noise, 0, data, 2000, noise.length);
+
+		assertRoundTrip(data);
+	}
+
+	@Test
+	public void testIncompressibleData() {
+		byte[] data = new byte[BUFFER_SIZE];
+		random.nextBytes(data);
+
+		assertEquals(-1, new BufferCompressor().compress(createBuffer(data)));
+	}
+
+	@Test
+	public void testSmallBuffer() {
+		byte[] data = new byte[16];
+
+		assertEquals(-1, new BufferCompressor().compress(createBuffer(data)));
+	}
+
+	@Test
+	public void testDifferentSizes() throws IOException {
+		BufferCompressor compressor = new BufferCompressor();
+
+		for (int size = 64; size <= BUFFER_SIZE; size *= 2) {
+			byte[] data = new byte[size];
+			for (int i = 0; i < size; i++) {
+				data[i] = (byte) (i / 8);
+			}
+
+			assertRoundTrip(compressor, data);
+		}
+	}
+
+	@Test
+	public void testMalformedData() {
+		byte[] data = new byte[BUFFER_SIZE];
+		Arrays.fill(data, (byte) 1);
+
+		BufferCompressor compressor = new BufferCompressor();
+		int compressedSize = compressor.compress(createBuffer(data));
+		assertTrue(compressedSize > 0);
+
+		// cut off the end of the compressed data
+		ByteBuffer truncated = ByteBuffer.wrap(Arrays.copyOf(compressor.getCompressedData(), compressedSize - 1));
+
+		try {
+			new BufferCompressor().decompress(truncated, createBuffer(new byte[BUFFER_SIZE]));
+			fail("Expected an exception for malformed data");
+		} catch (IOException ignored) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testDecompressedDataTooLarge() {
+		byte[] data = new byte[BUFFER_SIZE];
+		Arrays.fill(data, (byte) 1);
+
+		BufferCompressor compressor = new BufferCompressor();
+		int compressedSize = compressor.compress(createBuffer(data));
+		ByteBuffer compressed = ByteBuffer.wrap(compressor.getCompressedData(), 0, compressedSize);
+
+		try {
+			new BufferCompressor().decompress(compressed, createBuffer(new byte[BUFFER_SIZE / 2]));
+			fail("Expected an exception for data exceeding the target buffer");
+		} catch (IOException ignored) {
+			// expected
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	private int assertRoundTrip(byte[] data) throws IOException {
+		return assertRoundTrip(new BufferCompressor(), data);
+	}
+
+	private static int assertRoundTrip(BufferCompressor compressor, byte[] data) throws IOException {
+		int compressedSize = compressor.compress(createBuffer(data));
+		assertTrue(compressedSize > 0);
+
+		// off-heap source, the decompressor copies the data
+		ByteBuffer compressed = ByteBuffer.allocateDirect(compressedSize);
+		compressed.put(compressor.getCompressedData(), 0, compressedSize);
+		compressed.flip();
+
+		Buffer target = createBuffer(new byte[BUFFER_SIZE]);
+		new BufferCompressor().decompress(compressed, target);
+
+		assertEquals(data.length, target.getSize());
+		byte[] decompressed = new byte[data.length];
+		target.getMemorySegment().get(0, decompressed, 0, data.length);
+		assertArrayEquals(data, decompressed);
+
+		return compressedSize;
+	}
+
+	private static Buffer createBuffer(byte[] data) {
+		MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(data.length);
+		segment.put(0, data, 0, data.length);
+		return new Buffer(segment, DiscardingRecycler.INSTANCE);
+	}
+}
@@ -38,6 +38,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -273,6 +274,35 @@ public class LocalBufferPoolTest {
 		}
 	}
 
+	@Test
+	public void testBlockedTimeOfBlockingRequests() throws Exception {
+		localBufferPool.setNumBuffers(1);
+
+		final Buffer available = localBufferPool.requestBufferBlocking();
+		assertEquals(0, localBufferPool.bestEffortGetRequestBlockedTimeMillis());
+
+		final AtomicReference<Thread> requester = new AtomicReference<>();
+		Future<Buffer> blockingRequest = executor.submit(new Callable<Buffer>() {
+			@Override
+			public Buffer call() throws Exception {
+				requester.set(Thread.currentThread());
+				return localBufferPool.requestBufferBlocking();
+			}
+		});
+
+		// wait until the request is blocked
+		while (requester.get() == null || requester.get().getState() != Thread.State.TIMED_WAITING) {
+			Thread.sleep(1);
+		}
+
+		Thread.sleep(20);
+		available.recycle();
+
+		blockingRequest.get().recycle();
+
+		assertTrue(localBufferPool.bestEffortGetRequestBlockedTimeMillis() >= 20);
+	}
+
 	@Test
 	public void testDestroyDuringBlockingRequest() throws Exception {
 		// Config
@@ -22,6 +22,13 @@ import org.apache.flink.core.memory.MemoryType;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -168,4 +175,73 @@ public class NetworkBufferPoolTest {
 			fail(e.getMessage());
 		}
 	}
+
+	@Test
+	public void testRebalanceBuffers() throws Exception {
+		final NetworkBufferPool globalPool = new NetworkBufferPool(100, 128, MemoryType.HEAP);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+			final BufferPool idlePool = globalPool.createBufferPool(1, Integer.MAX_VALUE);
+			final BufferPool blockedPool = globalPool.createBufferPool(1, 60);
+
+			// nothing to rebalance without any demand
+			assertEquals(0, globalPool.rebalanceBuffers());
+
+			final List<Buffer> buffers = new ArrayList<>();
+			buffers.add(idlePool.requestBuffer());
+			buffers.add(idlePool.requestBuffer());
+
+			final int idlePoolSize = idlePool.getNumBuffers();
+			final int blockedPoolSize = blockedPool.getNumBuffers();
+
+			for (int i = 0; i < blockedPoolSize; i++) {
+				buffers.add(blockedPool.requestBuffer());
+			}
+			assertNull(blockedPool.requestBuffer());
+
+			final AtomicReference<Thread> requester = new AtomicReference<>();
+			Future<Buffer> blockedRequest = executor.submit(new Callable<Buffer>() {
+				@Override
+				public Buffer call() throws Exception {
+					requester.set(Thread.currentThread());
+					return blockedPool.requestBufferBlocking();
+				}
+			});
+
+			while (requester.get() == null || requester.get().getState() != Thread.State.TIMED_WAITING) {
+				Thread.sleep(1);
+			}
+
+			// the idle pool gives away half of its unused buffers, the blocked pool takes them up to its maximum
+			final int expectedMoved = Math.min((idlePoolSize - 2 + 1) / 2, 60 - blockedPoolSize);
+			assertTrue(expectedMoved > 0);
+
+			assertEquals(expectedMoved, globalPool.rebalanceBuffers());
+			assertEquals(idlePoolSize - expectedMoved, idlePool.getNumBuffers());
+			assertEquals(blockedPoolSize + expectedMoved, blockedPool.getNumBuffers());
+
+			// the blocked request is served with one of the moved buffers
+			Buffer buffer = blockedRequest.get(10, TimeUnit.SECONDS);
+			assertNotNull(buffer);
+			buffers.add(buffer);
+
+			// the pools never leave their bounds
+			for (int i = 0; i < 10; i++) {
+				globalPool.rebalanceBuffers();
+			}
+			assertTrue(idlePool.getNumBuffers() >= 2);
+			assertTrue(blockedPool.getNumBuffers() <= 60);
+			assertEquals(idlePoolSize + blockedPoolSize, idlePool.getNumBuffers() + blockedPool.getNumBuffers());
+
+			for (Buffer b : buffers) {
+				b.recycle();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+			globalPool.destroyAllBufferPools();
+			globalPool.destroy();
+		}
+	}
 }
@@ -19,21 +19,36 @@
 package org.apache.flink.runtime.io.network.netty;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.FileRegion;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.event.task.IntegerTaskEvent;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
+import org.apache.flink.runtime.io.disk.iomanager.FileSegment;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.io.disk.iomanager.SynchronousBufferFileReader;
+import org.apache.flink.runtime.io.disk.iomanager.SynchronousBufferFileWriter;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
 import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
+import org.junit.AfterClass;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.Random;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -43,6 +58,8 @@ import static org.powermock.api.mockito.PowerMockito.spy;
 
 public class NettyMessageSerializationTest {
 
+	private static final IOManager ioManager = new IOManagerAsync();
+
 	private final EmbeddedChannel channel = new EmbeddedChannel(
 			new NettyMessage.NettyMessageEncoder(), // outbound messages
 			NettyMessage.NettyMessageEncoder.createFrameLengthDecoder(), // inbound messages
@@ -51,7 +68,7 @@ public class NettyMessageSerializationTest {
 	private final Random random = new Random();
 
 	@Test
-	public void testEncodeDecode() {
+	public void testEncodeDecode() throws Exception {
 		{
 			Buffer buffer = spy(new Buffer(MemorySegmentFactory.allocateUnpooledSegment(1024), mock(BufferRecycler.class)));
 			ByteBuffer nioBuffer = buffer.getNioBuffer();
@@ -60,7 +77,7 @@ public class NettyMessageSerializationTest {
 				nioBuffer.putInt(i);
 			}
 
-			NettyMessage.BufferResponse expected = new NettyMessage.BufferResponse(buffer, random.nextInt(), new InputChannelID());
+			NettyMessage.BufferResponse expected = new NettyMessage.BufferResponse(buffer, random.nextInt(), new InputChannelID(), random.nextInt());
 			NettyMessage.BufferResponse actual = encodeAndDecode(expected);
 
 			// Verify recycle has been called on buffer instance
@@ -83,6 +100,49 @@ public class NettyMessageSerializationTest {
 
 			assertEquals(expected.sequenceNumber, actual.sequenceNumber);
 			assertEquals(expected.receiverId, actual.receiverId);
+			assertEquals(expected.backlog, actual.backlog);
+			assertFalse(actual.isCompressed());
+		}
+
+		{
+			Buffer buffer = new Buffer(MemorySegmentFactory.allocateUnpooledSegment(1024), mock(BufferRecycler.class));
+			ByteBuffer nioBuffer = buffer.getNioBuffer();
+
+			for (int i = 0; i < 1024; i += 4) {
+				nioBuffer.putInt(i % 64);
+			}
+
+			NettyMessage.BufferResponse expected = new NettyMessage.BufferResponse(
+				buffer, random.nextInt(), new InputChannelID(), random.nextInt(), new BufferCompressor());
+			NettyMessage.BufferResponse actual = encodeAndDecode(expected);
+
+			assertTrue(actual.isBuffer());
+			assertTrue(actual.isCompressed());
+			assertTrue(actual.getNettyBuffer().readableBytes() < 1024);
+
+			Buffer decompressed = new Buffer(MemorySegmentFactory.allocateUnpooledSegment(1024), mock(BufferRecycler.class));
+			new BufferCompressor().decompress(actual.getNettyBuffer().nioBuffer(), decompressed);
+			actual.releaseBuffer();
+
+			assertEquals(1024, decompressed.getSize());
+			nioBuffer = decompressed.getNioBuffer();
+			for (int i = 0; i < 1024; i += 4) {
+				assertEquals(i % 64, nioBuffer.getInt());
+			}
+		}
+
+		{
+			// events are not compressed
+			Buffer event = new Buffer(MemorySegmentFactory.allocateUnpooledSegment(1024), mock(BufferRecycler.class), false);
+
+			NettyMessage.BufferResponse expected = new NettyMessage.BufferResponse(
+				event, random.nextInt(), new InputChannelID(), random.nextInt(), new BufferCompressor());
+			NettyMessage.BufferResponse actual = encodeAndDecode(expected);
+
+			assertFalse(actual.isBuffer());
+			assertFalse(actual.isCompressed());
+			assertEquals(1024, actual.getSize());
+			actual.releaseBuffer();
 		}
 
 		{
@@ -124,12 +184,13 @@ public class NettyMessageSerializationTest {
 		}
 
 		{
-			NettyMessage.PartitionRequest expected = new NettyMessage.PartitionRequest(new ResultPartitionID(new IntermediateResultPartitionID(), new ExecutionAttemptID()), random.nextInt(), new InputChannelID());
+			NettyMessage.PartitionRequest expected = new NettyMessage.PartitionRequest(new ResultPartitionID(new IntermediateResultPartitionID(), new ExecutionAttemptID()), random.nextInt(), new InputChannelID(), random.nextInt());
 			NettyMessage.PartitionRequest actual = encodeAndDecode(expected);
 
 			assertEquals(expected.partitionId, actual.partitionId);
 			assertEquals(expected.queueIndex, actual.queueIndex);
 			assertEquals(expected.receiverId, actual.receiverId);
+			assertEquals(expected.credit, actual.credit);
 		}
 
 		{
@@ -154,6 +215,125 @@ public class NettyMessageSerializationTest {
 
 			assertEquals(expected.getClass(), actual.getClass());
 		}
+
+		{
+			NettyMessage.AddCredit expected = new NettyMessage.AddCredit(random.nextInt(Integer.MAX_VALUE) + 1, new InputChannelID());
+			NettyMessage.AddCredit actual = encodeAndDecode(expected);
+
+			assertEquals(expected.credit, actual.credit);
+			assertEquals(expected.receiverId, actual.receiverId);
+		}
+	}
+
+	@AfterClass
+	public static void shutdown() {
+		ioManager.shutdown();
+	}
+
+	@Test
+	public void testEncodeFileRegionResponse() throws Exception {
+		FileIOChannel.ID channelId = ioManager.createChannel();
+
+		// buffers which do not compress well are written uncompressed
+		SynchronousBufferFileWriter writer = new SynchronousBufferFileWriter(channelId, true);
+		SynchronousBufferFileReader reader = null;
+
+		try {
+			byte[] plain = new byte[1024];
+			random.nextBytes(plain);
+			writer.writeBlock(createBuffer(plain));
+
+			byte[] compressible = new byte[1024];
+			for (int i = 0; i < compressible.length; i++) {
+				compressible[i] = (byte) (i % 16);
+			}
+			writer.writeBlock(createBuffer(compressible));
+			writer.writeBlock(new Buffer(MemorySegmentFactory.wrap(new byte[16]), mock(BufferRecycler.class), false));
+			writer.close();
+
+			reader = new SynchronousBufferFileReader(channelId, false);
+
+			// uncompressed data buffer
+			FileSegment segment = reader.getNextBufferSegment();
+			assertFalse(segment.isCompressed());
+
+			NettyMessage.FileRegionResponse expected = new NettyMessage.FileRegionResponse(
+				segment, random.nextInt(), new InputChannelID(), random.nextInt());
+			NettyMessage.BufferResponse actual = encodeAndDecodeFileRegion(expected);
+
+			assertTrue(actual.isBuffer());
+			assertFalse(actual.isCompressed());
+			assertEquals(expected.sequenceNumber, actual.sequenceNumber);
+			assertEquals(expected.receiverId, actual.receiverId);
+			assertEquals(expected.backlog, actual.backlog);
+
+			byte[] received = new byte[actual.getSize()];
+			actual.getNettyBuffer().readBytes(received);
+			actual.releaseBuffer();
+			assertArrayEquals(plain, received);
+
+			// compressed data buffers are sent as they are
+			segment = reader.getNextBufferSegment();
+			assertTrue(segment.isCompressed());
+			assertTrue(segment.getLength() < compressible.length);
+
+			actual = encodeAndDecodeFileRegion(new NettyMessage.FileRegionResponse(
+				segment, random.nextInt(), new InputChannelID(), random.nextInt()));
+
+			assertTrue(actual.isCompressed());
+			assertEquals(segment.getLength(), actual.getSize());
+
+			Buffer decompressed = new Buffer(MemorySegmentFactory.allocateUnpooledSegment(1024), mock(BufferRecycler.class));
+			new BufferCompressor().decompress(actual.getNettyBuffer().nioBuffer(), decompressed);
+			actual.releaseBuffer();
+
+			received = new byte[decompressed.getSize()];
+			decompressed.getNioBuffer().get(received);
+			assertArrayEquals(compressible, received);
+
+			// events are not returned as segments
+			assertNull(reader.getNextBufferSegment());
+			assertFalse(reader.hasReachedEndOfFile());
+
+			Buffer event = new Buffer(MemorySegmentFactory.allocateUnpooledSegment(1024), mock(BufferRecycler.class));
+			reader.readInto(event);
+			assertFalse(event.isBuffer());
+			assertEquals(16, event.getSize());
+			assertTrue(reader.hasReachedEndOfFile());
+
+			// the file channel stays open for the following segments
+			assertTrue(reader.getNioFileChannel().isOpen());
+		}
+		finally {
+			if (reader != null) {
+				reader.closeAndDelete();
+			} else {
+				writer.closeAndDelete();
+			}
+		}
+	}
+
+	private static Buffer createBuffer(byte[] data) {
+		Buffer buffer = new Buffer(MemorySegmentFactory.allocateUnpooledSegment(data.length), mock(BufferRecycler.class));
+		buffer.getNioBuffer().put(data);
+		return buffer;
+	}
+
+	private NettyMessage.BufferResponse encodeAndDecodeFileRegion(NettyMessage.FileRegionResponse msg) throws Exception {
+		channel.writeOutbound(msg);
+		ByteBuf header = (ByteBuf) channel.readOutbound();
+		FileRegion region = (FileRegion) channel.readOutbound();
+
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		WritableByteChannel target = Channels.newChannel(data);
+		while (region.transfered() < region.count()) {
+			region.transferTo(target, region.transfered());
+		}
+		assertTrue(region.release());
+
+		channel.writeInbound(Unpooled.wrappedBuffer(header, Unpooled.wrappedBuffer(data.toByteArray())));
+
+		return (NettyMessage.BufferResponse) channel.readInbound();
 	}
 
 	@SuppressWarnings("unchecked")
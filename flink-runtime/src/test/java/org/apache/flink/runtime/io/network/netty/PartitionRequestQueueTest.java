@@ -19,8 +19,13 @@
 package org.apache.flink.runtime.io.network.netty;
 
 import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.execution.CancelTaskException;
+import org.apache.flink.runtime.io.network.api.CancelCheckpointMarker;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
 import org.apache.flink.runtime.io.network.partition.BufferAvailabilityListener;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionProvider;
@@ -29,6 +34,8 @@ import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -72,4 +79,63 @@ public class PartitionRequestQueueTest {
 		NettyMessage.ErrorResponse err = (NettyMessage.ErrorResponse) msg;
 		assertTrue(err.cause instanceof CancelTaskException);
 	}
+
+	/**
+	 * Tests that buffers of a credit-based receiver are only written while it has credit, and
+	 * that events and empty buffers do not consume credit.
+	 */
+	@Test
+	public void testWriteOnlyWithCredit() throws Exception {
+		PartitionRequestQueue queue = new PartitionRequestQueue();
+
+		ResultPartitionProvider partitionProvider = mock(ResultPartitionProvider.class);
+		ResultPartitionID rpid = new ResultPartitionID();
+		BufferProvider bufferProvider = mock(BufferProvider.class);
+
+		ResultSubpartitionView view = mock(ResultSubpartitionView.class);
+		when(view.getNextBuffer()).thenReturn(
+			createBuffer(16), createBuffer(0), EventSerializer.toBuffer(new CancelCheckpointMarker(1L)), createBuffer(16));
+
+		when(partitionProvider.createSubpartitionView(
+			eq(rpid),
+			eq(0),
+			eq(bufferProvider),
+			any(BufferAvailabilityListener.class))).thenReturn(view);
+
+		EmbeddedChannel ch = new EmbeddedChannel(queue);
+
+		InputChannelID receiverId = new InputChannelID();
+		SequenceNumberingViewReader seqView = new SequenceNumberingViewReader(receiverId, 1, queue);
+		seqView.requestSubpartitionView(partitionProvider, rpid, 0, bufferProvider);
+		queue.notifyReaderCreated(seqView);
+
+		seqView.notifyBuffersAvailable(4);
+		ch.runPendingTasks();
+
+		// the initial credit only allows the first buffer
+		NettyMessage.BufferResponse msg = (NettyMessage.BufferResponse) ch.readOutbound();
+		assertEquals(0, msg.sequenceNumber);
+		assertEquals(3, msg.backlog);
+		assertNull(ch.readOutbound());
+		assertEquals(0, seqView.getNumCreditsAvailable());
+		assertFalse(seqView.isRegisteredAsAvailable());
+
+		// the empty buffer and the event do not consume credit
+		queue.addCredit(receiverId, 2);
+		ch.runPendingTasks();
+
+		for (int i = 1; i < 4; i++) {
+			msg = (NettyMessage.BufferResponse) ch.readOutbound();
+			assertEquals(i, msg.sequenceNumber);
+			assertEquals(3 - i, msg.backlog);
+		}
+		assertNull(ch.readOutbound());
+		assertEquals(1, seqView.getNumCreditsAvailable());
+	}
+
+	private static Buffer createBuffer(int size) {
+		Buffer buffer = new Buffer(MemorySegmentFactory.allocateUnpooledSegment(16), FreeingBufferRecycler.INSTANCE);
+		buffer.setSize(size);
+		return buffer;
+	}
 }
@@ -20,6 +20,9 @@ package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.event.AbstractEvent;
+import org.apache.flink.runtime.io.network.api.CancelCheckpointMarker;
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
@@ -31,9 +34,14 @@ import org.apache.flink.runtime.io.network.util.TestSubpartitionProducer;
 import org.junit.AfterClass;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.apache.flink.runtime.io.network.util.TestBufferFactory.createBuffer;
 import static org.junit.Assert.assertEquals;
@@ -154,6 +162,79 @@ public class PipelinedSubpartitionTest extends SubpartitionTestBase {
 		verify(subpartition, times(2)).isReleased();
 	}
 
+	@Test
+	public void testObjectHandover() throws Exception {
+		final PipelinedSubpartition subpartition = createSubpartition();
+		final BufferAvailabilityListener listener = mock(BufferAvailabilityListener.class);
+
+		final PipelinedSubpartitionView view = subpartition.createReadView(null, listener);
+		assertFalse(subpartition.isObjectHandoverRequested());
+
+		// Buffers added before the handover was requested
+		final Buffer buffer = createBuffer();
+		subpartition.add(buffer);
+
+		view.requestObjectHandover();
+		assertTrue(subpartition.isObjectHandoverRequested());
+
+		final List<Object> records = Arrays.<Object>asList("a", "b");
+		assertTrue(subpartition.addRecords(records));
+
+		final Buffer event = EventSerializer.toBuffer(new CancelCheckpointMarker(1L));
+		assertTrue(subpartition.add(event));
+
+		// No more data buffers after the records
+		try {
+			subpartition.add(createBuffer());
+			fail("Did not throw expected exception after adding a data buffer.");
+		} catch (IllegalStateException expected) {
+		}
+
+		subpartition.finish();
+		assertFalse(subpartition.addRecords(records));
+		assertEquals(4, subpartition.unsynchronizedGetNumberOfQueuedBuffers());
+		verify(listener, times(4)).notifyBuffersAvailable(eq(1L));
+
+		// The buffer comes first, then the records and events in order
+		assertEquals(buffer, view.getNextBufferOrRecords());
+		assertEquals(records, view.getNextBufferOrRecords());
+		assertEquals(event, view.getNextBufferOrRecords());
+
+		final Object endOfPartition = view.getNextBufferOrRecords();
+		assertTrue(endOfPartition instanceof Buffer);
+		assertEquals(EndOfPartitionEvent.class,
+				EventSerializer.fromBuffer((Buffer) endOfPartition, getClass().getClassLoader()).getClass());
+
+		assertNull(view.getNextBufferOrRecords());
+	}
+
+	@Test
+	public void testReleaseWakesUpBlockedObjectHandover() throws Exception {
+		final PipelinedSubpartition subpartition = createSubpartition();
+		final PipelinedSubpartitionView view = subpartition.createReadView(null, mock(BufferAvailabilityListener.class));
+		view.requestObjectHandover();
+
+		final List<Object> records = Collections.<Object>singletonList("a");
+
+		Future<Boolean> producer = executorService.submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				// fill the queue and block on the first element which does not fit
+				while (subpartition.addRecords(records)) {
+				}
+				return true;
+			}
+		});
+
+		while (subpartition.unsynchronizedGetNumberOfQueuedBuffers() < PipelinedSubpartition.OBJECT_QUEUE_CAPACITY) {
+			Thread.sleep(1);
+		}
+
+		subpartition.release();
+
+		assertTrue(producer.get(60, TimeUnit.SECONDS));
+	}
+
 	private void testProduceConsume(boolean isSlowProducer, boolean isSlowConsumer) throws Exception {
 		// Config
 		final int producerBufferPoolSize = 8;
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
+import org.apache.flink.runtime.io.network.util.TestInfiniteBufferProvider;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SortedSubpartitionTest extends SubpartitionTestBase {
+
+	private static final int BUFFER_SIZE = 4096;
+
+	/** Asynchronous I/O manager */
+	private static final IOManager ioManager = new IOManagerAsync();
+
+	@AfterClass
+	public static void shutdown() {
+		ioManager.shutdown();
+	}
+
+	@Override
+	ResultSubpartition createSubpartition() {
+		ResultPartition parent = mock(ResultPartition.class);
+		return new SortedSubpartition(0, parent, new PartitionedSpillFile(parent, 1, ioManager, false));
+	}
+
+	@Test
+	public void testConsumeSubpartitionsOfMultipleRegions() throws Exception {
+		testConsumeSubpartitionsOfMultipleRegions(false);
+	}
+
+	@Test
+	public void testConsumeCompressedSubpartitionsOfMultipleRegions() throws Exception {
+		testConsumeSubpartitionsOfMultipleRegions(true);
+	}
+
+	/**
+	 * Tests that all subpartitions are written to a single file and read back in the order in
+	 * which the buffers were added, across several regions.
+	 */
+	private void testConsumeSubpartitionsOfMultipleRegions(boolean compress) throws Exception {
+		final int numberOfSubpartitions = 3;
+
+		final IOManager spyIOManager = spy(ioManager);
+		final ResultPartition parent = mock(ResultPartition.class);
+		final PartitionedSpillFile spillFile = new PartitionedSpillFile(parent, numberOfSubpartitions, spyIOManager, compress);
+
+		final SortedSubpartition[] subpartitions = new SortedSubpartition[numberOfSubpartitions];
+		for (int i = 0; i < numberOfSubpartitions; i++) {
+			subpartitions[i] = new SortedSubpartition(i, parent, spillFile);
+		}
+
+		// first region, subpartition 1 gets no buffers
+		assertTrue(subpartitions[0].add(createBuffer(0, 0)));
+		assertTrue(subpartitions[2].add(createBuffer(2, 0)));
+		assertTrue(subpartitions[0].add(createBuffer(0, 1)));
+
+		assertEquals(2, subpartitions[0].unsynchronizedGetNumberOfQueuedBuffers());
+		assertEquals(3, subpartitions[1].releaseMemory());
+		assertEquals(0, subpartitions[2].releaseMemory());
+		assertEquals(0, subpartitions[0].unsynchronizedGetNumberOfQueuedBuffers());
+
+		// second region, written when the last subpartition is finished
+		assertTrue(subpartitions[1].add(createBuffer(1, 0)));
+		assertTrue(subpartitions[0].add(createBuffer(0, 2)));
+
+		for (SortedSubpartition subpartition : subpartitions) {
+			subpartition.finish();
+		}
+
+		// all subpartitions share a single file
+		verify(spyIOManager, times(1)).createChannel();
+
+		final int[] expectedNumberOfBuffers = { 3, 1, 1 };
+
+		for (int i = 0; i < numberOfSubpartitions; i++) {
+			BufferAvailabilityListener listener = mock(BufferAvailabilityListener.class);
+			ResultSubpartitionView view = subpartitions[i].createReadView(new TestInfiniteBufferProvider(), listener);
+
+			// including the end of partition event
+			verify(listener).notifyBuffersAvailable(eq(expectedNumberOfBuffers[i] + 1L));
+
+			for (int sequenceNumber = 0; sequenceNumber < expectedNumberOfBuffers[i]; sequenceNumber++) {
+				Buffer read = view.getNextBuffer();
+				assertNotNull(read);
+				assertTrue(read.isBuffer());
+				assertEquals(BUFFER_SIZE, read.getSize());
+				assertEquals(i, read.getMemorySegment().getInt(0));
+				assertEquals(sequenceNumber, read.getMemorySegment().getInt(4));
+				read.recycle();
+			}
+
+			Buffer read = view.getNextBuffer();
+			assertNotNull(read);
+			assertFalse(read.isBuffer());
+			assertEquals(EndOfPartitionEvent.class, EventSerializer.fromBuffer(read, ClassLoader.getSystemClassLoader()).getClass());
+			read.recycle();
+
+			assertNull(view.getNextBuffer());
+		}
+
+		for (SortedSubpartition subpartition : subpartitions) {
+			subpartition.release();
+		}
+	}
+
+	@Test
+	public void testReleaseRecyclesBuffers() throws Exception {
+		final ResultPartition parent = mock(ResultPartition.class);
+		final PartitionedSpillFile spillFile = new PartitionedSpillFile(parent, 2, ioManager, false);
+
+		final SortedSubpartition first = new SortedSubpartition(0, parent, spillFile);
+		final SortedSubpartition second = new SortedSubpartition(1, parent, spillFile);
+
+		final Buffer buffer = createBuffer(0, 0);
+		assertTrue(first.add(buffer));
+
+		// the buffer is kept until all subpartitions are released
+		first.release();
+		assertFalse(buffer.isRecycled());
+
+		second.release();
+		assertTrue(buffer.isRecycled());
+
+		assertEquals(0, first.releaseMemory());
+	}
+
+	private static Buffer createBuffer(int subpartitionIndex, int sequenceNumber) {
+		MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(BUFFER_SIZE);
+		segment.putInt(0, subpartitionIndex);
+		segment.putInt(4, sequenceNumber);
+
+		return new Buffer(segment, FreeingBufferRecycler.INSTANCE);
+	}
+}
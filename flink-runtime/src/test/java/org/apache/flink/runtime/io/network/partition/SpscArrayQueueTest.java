@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SpscArrayQueueTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCapacityMustBePowerOfTwo() {
+		new SpscArrayQueue<Integer>(12);
+	}
+
+	@Test
+	public void testOfferAndPoll() {
+		final SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(4);
+
+		assertEquals(4, queue.capacity());
+		assertNull(queue.poll());
+
+		// wrap around several times
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < 4; i++) {
+				assertTrue(queue.offer(i));
+			}
+
+			assertTrue(queue.isFull());
+			assertFalse(queue.offer(4));
+			assertEquals(4, queue.size());
+
+			for (int i = 0; i < 4; i++) {
+				assertEquals(Integer.valueOf(i), queue.poll());
+			}
+
+			assertNull(queue.poll());
+			assertEquals(0, queue.size());
+			assertFalse(queue.isFull());
+		}
+	}
+
+	@Test
+	public void testConcurrentProduceAndConsume() throws Exception {
+		final SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(8);
+		final int numElements = 100_000;
+
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final Future<?> producer = executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					for (int i = 0; i < numElements; i++) {
+						while (!queue.offer(i)) {
+							Thread.yield();
+						}
+					}
+					return null;
+				}
+			});
+
+			for (int expected = 0; expected < numElements; ) {
+				final Integer next = queue.poll();
+				if (next == null) {
+					Thread.yield();
+				} else {
+					assertEquals(expected++, next.intValue());
+				}
+			}
+
+			producer.get(60, TimeUnit.SECONDS);
+			assertNull(queue.poll());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -19,9 +19,13 @@
 package org.apache.flink.runtime.io.network.partition.consumer;
 
 import com.google.common.collect.Lists;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemoryType;
 import org.apache.flink.runtime.execution.CancelTaskException;
 import org.apache.flink.runtime.io.network.ConnectionID;
 import org.apache.flink.runtime.io.network.ConnectionManager;
+import org.apache.flink.runtime.io.network.buffer.BufferPool;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
 import org.apache.flink.runtime.io.network.netty.PartitionRequestClient;
 import org.apache.flink.runtime.io.network.partition.ProducerFailedException;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
@@ -38,6 +42,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -279,6 +285,55 @@ public class RemoteInputChannelTest {
 		ch.getNextBuffer();
 	}
 
+	/**
+	 * Tests that a credit-based channel announces recycled exclusive buffers and floating
+	 * buffers requested for the sender's backlog as credit, and returns all buffers on release.
+	 */
+	@Test
+	public void testCreditBasedBuffers() throws Exception {
+		final NetworkBufferPool networkBufferPool = new NetworkBufferPool(8, 128, MemoryType.HEAP);
+		final BufferPool floatingBufferPool = networkBufferPool.createBufferPool(0, 2);
+
+		final SingleInputGate inputGate = mock(SingleInputGate.class);
+		when(inputGate.getBufferPool()).thenReturn(floatingBufferPool);
+
+		final PartitionRequestClient client = mock(PartitionRequestClient.class);
+		final RemoteInputChannel ch = createRemoteInputChannel(
+			inputGate, client, new Tuple2<Integer, Integer>(0, 0));
+
+		try {
+			ch.assignExclusiveSegments(networkBufferPool.requestMemorySegments(2));
+			ch.requestSubpartition(0);
+
+			assertTrue(ch.isCreditBased());
+			assertEquals(2, ch.getInitialCredit());
+			assertEquals(2, ch.getNumberOfAvailableBuffers());
+
+			// a backlog of 3 needs 5 buffers, but there are only 2 floating ones
+			ch.onBuffer(ch.requestBuffer(), 0, 3);
+
+			assertEquals(3, ch.getNumberOfAvailableBuffers());
+			assertEquals(2, ch.getAndResetUnannouncedCredit());
+			verify(client, times(1)).notifyCreditAvailable(ch);
+
+			// consuming the data makes the exclusive buffer available again
+			ch.getNextBuffer().buffer().recycle();
+
+			assertEquals(4, ch.getNumberOfAvailableBuffers());
+			assertEquals(1, ch.getAndResetUnannouncedCredit());
+			verify(client, times(2)).notifyCreditAvailable(ch);
+
+			ch.releaseAllResources();
+
+			verify(inputGate, times(2)).returnExclusiveSegment(any(MemorySegment.class));
+			assertEquals(2, floatingBufferPool.getNumberOfAvailableMemorySegments());
+			assertNull(ch.requestBuffer());
+		} finally {
+			floatingBufferPool.lazyDestroy();
+			networkBufferPool.destroy();
+		}
+	}
+
 	// ---------------------------------------------------------------------------------------------
 
 	private RemoteInputChannel createRemoteInputChannel(SingleInputGate inputGate)
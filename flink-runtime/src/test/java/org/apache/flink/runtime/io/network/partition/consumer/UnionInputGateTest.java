@@ -113,4 +113,117 @@ public class UnionInputGateTest {
 		assertTrue(union.isFinished());
 		assertNull(union.getNextBufferOrEvent());
 	}
+
+	/**
+	 * Tests that no data is read from a suspended input gate until it is resumed.
+	 */
+	@Test(timeout = 120 * 1000)
+	public void testSuspendAndResumeInputGate() throws Exception {
+		final String testTaskName = "Test Task";
+		final SingleInputGate ig1 = new SingleInputGate(
+			testTaskName, new JobID(),
+			new IntermediateDataSetID(), ResultPartitionType.PIPELINED,
+			0, 1,
+			mock(TaskActions.class),
+			new UnregisteredTaskMetricsGroup.DummyTaskIOMetricGroup());
+		final SingleInputGate ig2 = new SingleInputGate(
+			testTaskName, new JobID(),
+			new IntermediateDataSetID(), ResultPartitionType.PIPELINED,
+			0, 2,
+			mock(TaskActions.class),
+			new UnregisteredTaskMetricsGroup.DummyTaskIOMetricGroup());
+
+		final UnionInputGate union = new UnionInputGate(new SingleInputGate[]{ig1, ig2});
+
+		final TestInputChannel[][] inputChannels = new TestInputChannel[][]{
+				TestInputChannel.createInputChannels(ig1, 1),
+				TestInputChannel.createInputChannels(ig2, 2)
+		};
+
+		inputChannels[0][0].readBuffer(); // 0 => 0
+		inputChannels[0][0].readEndOfPartitionEvent(); // 0 => 0
+		inputChannels[1][0].readBuffer(); // 0 => 1
+		inputChannels[1][0].readEndOfPartitionEvent(); // 0 => 1
+		inputChannels[1][1].readEndOfPartitionEvent(); // 1 => 2
+
+		union.suspendInputGate(ig1);
+
+		ig1.notifyChannelNonEmpty(inputChannels[0][0].getInputChannel());
+		ig2.notifyChannelNonEmpty(inputChannels[1][0].getInputChannel());
+		ig2.notifyChannelNonEmpty(inputChannels[1][1].getInputChannel());
+
+		// only the second gate is read from
+		SingleInputGateTest.verifyBufferOrEvent(union, true, 1); // gate 2, channel 0
+		SingleInputGateTest.verifyBufferOrEvent(union, false, 2); // gate 2, channel 1
+		SingleInputGateTest.verifyBufferOrEvent(union, false, 1); // gate 2, channel 0
+		assertTrue(ig2.isFinished());
+
+		union.resumeInputGate(ig1);
+
+		SingleInputGateTest.verifyBufferOrEvent(union, true, 0); // gate 1, channel 0
+		SingleInputGateTest.verifyBufferOrEvent(union, false, 0); // gate 1, channel 0
+
+		assertTrue(union.isFinished());
+		assertNull(union.getNextBufferOrEvent());
+	}
+
+	@Test
+	public void testOverrideAndRestoreSuspendedInputGates() throws Exception {
+		final String testTaskName = "Test Task";
+		final SingleInputGate ig1 = new SingleInputGate(
+			testTaskName, new JobID(),
+			new IntermediateDataSetID(), ResultPartitionType.PIPELINED,
+			0, 1,
+			mock(TaskActions.class),
+			new UnregisteredTaskMetricsGroup.DummyTaskIOMetricGroup());
+		final SingleInputGate ig2 = new SingleInputGate(
+			testTaskName, new JobID(),
+			new IntermediateDataSetID(), ResultPartitionType.PIPELINED,
+			0, 2,
+			mock(TaskActions.class),
+			new UnregisteredTaskMetricsGroup.DummyTaskIOMetricGroup());
+
+		final UnionInputGate union = new UnionInputGate(new SingleInputGate[]{ig1, ig2});
+
+		final TestInputChannel[][] inputChannels = new TestInputChannel[][]{
+				TestInputChannel.createInputChannels(ig1, 1),
+				TestInputChannel.createInputChannels(ig2, 2)
+		};
+
+		inputChannels[0][0].readBuffer(); // 0 => 0
+		inputChannels[0][0].readBuffer(); // 0 => 0
+		inputChannels[0][0].readEndOfPartitionEvent(); // 0 => 0
+		inputChannels[1][0].readBuffer(); // 0 => 1
+		inputChannels[1][0].readEndOfPartitionEvent(); // 0 => 1
+		inputChannels[1][1].readEndOfPartitionEvent(); // 1 => 2
+
+		union.suspendInputGate(ig1);
+
+		ig1.notifyChannelNonEmpty(inputChannels[0][0].getInputChannel());
+		ig2.notifyChannelNonEmpty(inputChannels[1][0].getInputChannel());
+		ig2.notifyChannelNonEmpty(inputChannels[1][1].getInputChannel());
+
+		SingleInputGateTest.verifyBufferOrEvent(union, true, 1); // gate 2, channel 0
+
+		// the suspended gate is read from while overridden
+		union.overrideSuspendedInputGates();
+
+		SingleInputGateTest.verifyBufferOrEvent(union, false, 2); // gate 2, channel 1
+		SingleInputGateTest.verifyBufferOrEvent(union, true, 0); // gate 1, channel 0
+
+		// ...and is suspended again afterwards
+		union.restoreSuspendedInputGates();
+
+		SingleInputGateTest.verifyBufferOrEvent(union, false, 1); // gate 2, channel 0
+		assertTrue(ig2.isFinished());
+		assertNull(union.pollNextBufferOrEvent());
+
+		union.resumeInputGate(ig1);
+
+		SingleInputGateTest.verifyBufferOrEvent(union, true, 0); // gate 1, channel 0
+		SingleInputGateTest.verifyBufferOrEvent(union, false, 0); // gate 1, channel 0
+
+		assertTrue(union.isFinished());
+		assertNull(union.getNextBufferOrEvent());
+	}
 }
@@ -38,6 +38,7 @@ import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.runtime.metrics.groups.TaskMetricGroup;
 import org.apache.flink.runtime.query.KvStateRegistry;
 import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.TaskLocalStateStore;
 import org.apache.flink.runtime.taskmanager.TaskManagerRuntimeInfo;
 import org.apache.flink.runtime.util.TestingTaskManagerRuntimeInfo;
 
@@ -151,6 +152,11 @@ public class DummyEnvironment implements Environment {
 		return kvStateRegistry.createTaskRegistry(jobId, jobVertexId);
 	}
 
+	@Override
+	public TaskLocalStateStore getTaskLocalStateStore() {
+		return null;
+	}
+
 	@Override
 	public void acknowledgeCheckpoint(long checkpointId, CheckpointMetrics checkpointMetrics) {
 	}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.state.filesystem.FsStateBackend;
+import org.apache.flink.runtime.state.heap.HeapKeyedStateBackend;
+import org.apache.flink.util.FutureUtil;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the {@link StateBackendTestBase} with delta snapshots enabled, and tests the snapshot chains of the heap
+ * keyed state backend.
+ */
+public class DeltaFileStateBackendTest extends AsyncFileStateBackendTest {
+
+	private static final int MAX_DELTA_SNAPSHOTS = 2;
+
+	@Override
+	protected FsStateBackend getStateBackend() throws Exception {
+		return new FsStateBackend(
+				tempFolder.newFolder().toURI(),
+				FsStateBackend.DEFAULT_FILE_STATE_THRESHOLD,
+				true,
+				MAX_DELTA_SNAPSHOTS);
+	}
+
+	@Test
+	public void testDeltaSnapshotRestore() throws Exception {
+		CheckpointStreamFactory streamFactory = createStreamFactory();
+		HeapKeyedStateBackend<Integer> backend = (HeapKeyedStateBackend<Integer>) createKeyedBackend(IntSerializer.INSTANCE);
+
+		ValueStateDescriptor<String> valueId = new ValueStateDescriptor<>("value", String.class);
+		ListStateDescriptor<String> listId = new ListStateDescriptor<>("list", String.class);
+
+		ValueState<String> valueState = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, valueId);
+		ListState<String> listState = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, listId);
+
+		for (int i = 0; i < 10; ++i) {
+			backend.setCurrentKey(i);
+			valueState.update("v" + i);
+			listState.add("l" + i);
+		}
+
+		IncrementalKeyedStateHandle snapshot1 = (IncrementalKeyedStateHandle) FutureUtil.runIfNotDoneAndGet(
+				backend.snapshot(1L, 1L, streamFactory, CheckpointOptions.forFullCheckpoint()));
+		backend.notifyCheckpointComplete(1L);
+
+		// update, clear, and append to some of the keys
+		backend.setCurrentKey(1);
+		valueState.update("u1");
+		backend.setCurrentKey(2);
+		valueState.clear();
+		listState.clear();
+		backend.setCurrentKey(3);
+		listState.add("a3");
+		backend.setCurrentKey(10);
+		valueState.update("v10");
+
+		IncrementalKeyedStateHandle snapshot2 = (IncrementalKeyedStateHandle) FutureUtil.runIfNotDoneAndGet(
+				backend.snapshot(2L, 2L, streamFactory, CheckpointOptions.forFullCheckpoint()));
+		backend.notifyCheckpointComplete(2L);
+
+		// the delta references the full snapshot and only writes the changes
+		assertEquals(1, snapshot2.getNewSharedState().size());
+		assertEquals(2, snapshot2.getSharedState().size());
+		assertTrue(snapshot2.getSharedState().keySet().containsAll(snapshot1.getNewSharedState()));
+		assertTrue(getNewSharedStateSize(snapshot2) < getNewSharedStateSize(snapshot1));
+
+		backend.dispose();
+		backend = (HeapKeyedStateBackend<Integer>) restoreKeyedBackend(IntSerializer.INSTANCE, snapshot2);
+
+		valueState = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, valueId);
+		listState = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, listId);
+
+		for (int i = 0; i <= 10; ++i) {
+			backend.setCurrentKey(i);
+
+			if (i == 1) {
+				assertEquals("u1", valueState.value());
+			} else if (i == 2) {
+				assertNull(valueState.value());
+			} else {
+				assertEquals("v" + i, valueState.value());
+			}
+
+			if (i == 2 || i == 10) {
+				assertNull(listState.get());
+			} else if (i == 3) {
+				assertEquals(Arrays.asList("l3", "a3"), listState.get());
+			} else {
+				assertEquals(Collections.singletonList("l" + i), listState.get());
+			}
+		}
+
+		backend.dispose();
+		snapshot1.discardState();
+		snapshot2.discardState();
+	}
+
+	@Test
+	public void testSnapshotChainIsCompacted() throws Exception {
+		CheckpointStreamFactory streamFactory = createStreamFactory();
+		HeapKeyedStateBackend<Integer> backend = (HeapKeyedStateBackend<Integer>) createKeyedBackend(IntSerializer.INSTANCE);
+
+		ValueStateDescriptor<String> kvId = new ValueStateDescriptor<>("id", String.class);
+		ValueState<String> state = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+		IncrementalKeyedStateHandle lastSnapshot = null;
+
+		for (long checkpointId = 1L; checkpointId <= MAX_DELTA_SNAPSHOTS + 2; ++checkpointId) {
+			backend.setCurrentKey((int) checkpointId);
+			state.update("v" + checkpointId);
+
+			lastSnapshot = (IncrementalKeyedStateHandle) FutureUtil.runIfNotDoneAndGet(
+					backend.snapshot(checkpointId, checkpointId, streamFactory, CheckpointOptions.forFullCheckpoint()));
+			backend.notifyCheckpointComplete(checkpointId);
+
+			// the first snapshot is full, followed by the deltas, and then the chain starts over
+			int expectedChainLength = checkpointId <= MAX_DELTA_SNAPSHOTS + 1 ? (int) checkpointId : 1;
+			assertEquals(expectedChainLength, lastSnapshot.getSharedState().size());
+		}
+
+		backend.dispose();
+		backend = (HeapKeyedStateBackend<Integer>) restoreKeyedBackend(IntSerializer.INSTANCE, lastSnapshot);
+		state = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+		for (int key = 1; key <= MAX_DELTA_SNAPSHOTS + 2; ++key) {
+			backend.setCurrentKey(key);
+			assertEquals("v" + key, state.value());
+		}
+
+		backend.dispose();
+	}
+
+	@Test
+	public void testSavepointIsWrittenInFull() throws Exception {
+		CheckpointStreamFactory streamFactory = createStreamFactory();
+		HeapKeyedStateBackend<Integer> backend = (HeapKeyedStateBackend<Integer>) createKeyedBackend(IntSerializer.INSTANCE);
+
+		ValueStateDescriptor<String> kvId = new ValueStateDescriptor<>("id", String.class);
+		ValueState<String> state = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+		backend.setCurrentKey(1);
+		state.update("1");
+
+		FutureUtil.runIfNotDoneAndGet(backend.snapshot(1L, 1L, streamFactory, CheckpointOptions.forFullCheckpoint()));
+		backend.notifyCheckpointComplete(1L);
+
+		backend.setCurrentKey(2);
+		state.update("2");
+
+		KeyedStateHandle savepoint = FutureUtil.runIfNotDoneAndGet(
+				backend.snapshot(2L, 2L, streamFactory, CheckpointOptions.forSavepoint("ignored")));
+
+		assertTrue(savepoint instanceof KeyGroupsStateHandle);
+
+		backend.dispose();
+		backend = (HeapKeyedStateBackend<Integer>) restoreKeyedBackend(IntSerializer.INSTANCE, savepoint);
+		state = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+		backend.setCurrentKey(1);
+		assertEquals("1", state.value());
+		backend.setCurrentKey(2);
+		assertEquals("2", state.value());
+
+		backend.dispose();
+		savepoint.discardState();
+	}
+
+	private static long getNewSharedStateSize(IncrementalKeyedStateHandle stateHandle) {
+		long size = 0L;
+		for (String name : stateHandle.getNewSharedState()) {
+			size += stateHandle.getSharedState().get(name).getStateSize();
+		}
+		return size;
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.runtime.state.filesystem.FsCheckpointStreamFactory;
+import org.apache.flink.runtime.state.memory.MemCheckpointStreamFactory;
+import org.apache.flink.util.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DuplicatingCheckpointStreamFactoryTest {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Test
+	public void testSecondaryCopyOfKeyGroupsStateHandle() throws Exception {
+		DuplicatingCheckpointStreamFactory streamFactory = new DuplicatingCheckpointStreamFactory(
+				new MemCheckpointStreamFactory(1024),
+				new FsCheckpointStreamFactory(new Path(tempFolder.newFolder().toURI()), new JobID(), 0));
+
+		byte[] data = new byte[] {1, 2, 3, 4, 5, 6, 7, 8};
+
+		CheckpointStreamFactory.CheckpointStateOutputStream outputStream =
+				streamFactory.createCheckpointStateOutputStream(1L, 1L);
+
+		outputStream.write(data, 0, 4);
+		long offset = outputStream.getPos();
+		outputStream.write(data, 4, 4);
+
+		KeyGroupsStateHandle primaryStateHandle = new KeyGroupsStateHandle(
+				new KeyGroupRangeOffsets(0, 1, new long[] {0L, offset}),
+				outputStream.closeAndGetHandle());
+
+		KeyedStateHandle secondaryStateHandle = streamFactory.getSecondaryKeyedStateHandle(primaryStateHandle);
+
+		assertNotNull(secondaryStateHandle);
+		assertEquals(primaryStateHandle.getKeyGroupRange(), secondaryStateHandle.getKeyGroupRange());
+		assertEquals(offset, ((KeyGroupsStateHandle) secondaryStateHandle).getOffsetForKeyGroup(1));
+		assertArrayEquals(data, readFully((KeyGroupsStateHandle) secondaryStateHandle, data.length));
+
+		// handles that were not written through the factory have no copy
+		assertNull(streamFactory.getSecondaryKeyedStateHandle(new KeyGroupsStateHandle(
+				new KeyGroupRangeOffsets(0, 0), mock(StreamStateHandle.class))));
+	}
+
+	@Test
+	public void testSecondaryFailureDoesNotFailPrimary() throws Exception {
+		CheckpointStreamFactory.CheckpointStateOutputStream failingStream =
+				mock(CheckpointStreamFactory.CheckpointStateOutputStream.class);
+		doThrow(new IOException("Test exception")).when(failingStream).write(any(byte[].class), anyInt(), anyInt());
+
+		CheckpointStreamFactory failingFactory = mock(CheckpointStreamFactory.class);
+		when(failingFactory.createCheckpointStateOutputStream(anyLong(), anyLong())).thenReturn(failingStream);
+
+		DuplicatingCheckpointStreamFactory streamFactory =
+				new DuplicatingCheckpointStreamFactory(new MemCheckpointStreamFactory(1024), failingFactory);
+
+		byte[] data = new byte[] {1, 2, 3, 4};
+
+		CheckpointStreamFactory.CheckpointStateOutputStream outputStream =
+				streamFactory.createCheckpointStateOutputStream(1L, 1L);
+
+		outputStream.write(data, 0, data.length);
+
+		KeyGroupsStateHandle primaryStateHandle = new KeyGroupsStateHandle(
+				new KeyGroupRangeOffsets(0, 0), outputStream.closeAndGetHandle());
+
+		assertArrayEquals(data, readFully(primaryStateHandle, data.length));
+		assertNull(streamFactory.getSecondaryKeyedStateHandle(primaryStateHandle));
+	}
+
+	private static byte[] readFully(StreamStateHandle stateHandle, int length) throws IOException {
+		byte[] bytes = new byte[length];
+
+		FSDataInputStream inputStream = stateHandle.openInputStream();
+		try {
+			IOUtils.readFully(inputStream, bytes, 0, length);
+			assertEquals(-1, inputStream.read());
+		} finally {
+			inputStream.close();
+		}
+
+		return bytes;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class IncrementalKeyedStateHandleTest {
+
+	/**
+	 * Validates that a handle which was never registered discards the shared files it uploaded,
+	 * but not the ones it only references.
+	 */
+	@Test
+	public void testDiscardUnregisteredHandle() throws Exception {
+		StreamStateHandle newFile = mock(StreamStateHandle.class);
+		StreamStateHandle referencedFile = mock(StreamStateHandle.class);
+		StreamStateHandle privateFile = mock(StreamStateHandle.class);
+		StreamStateHandle metaData = mock(StreamStateHandle.class);
+
+		Map<String, SharedStreamStateHandle> sharedState = new HashMap<>();
+		sharedState.put("new.sst", new SharedStreamStateHandle("2-new.sst", newFile));
+		sharedState.put("referenced.sst", new SharedStreamStateHandle("1-referenced.sst", referencedFile));
+
+		IncrementalKeyedStateHandle stateHandle = new IncrementalKeyedStateHandle(
+				new KeyGroupRange(0, 9),
+				2L,
+				sharedState,
+				Collections.singleton("new.sst"),
+				Collections.singletonMap("MANIFEST", privateFile),
+				metaData);
+
+		stateHandle.discardState();
+
+		verify(newFile).discardState();
+		verify(referencedFile, never()).discardState();
+		verify(privateFile).discardState();
+		verify(metaData).discardState();
+	}
+
+	/**
+	 * Validates that registered shared files are only discarded once no handle references them.
+	 */
+	@Test
+	public void testSharedStateIsReferenceCounted() throws Exception {
+		SharedStateRegistry sharedStateRegistry = new SharedStateRegistry();
+
+		StreamStateHandle firstFile = mock(StreamStateHandle.class);
+		StreamStateHandle secondFile = mock(StreamStateHandle.class);
+		StreamStateHandle thirdFile = mock(StreamStateHandle.class);
+
+		SharedStreamStateHandle sharedSecondFile = new SharedStreamStateHandle("1-second.sst", secondFile);
+
+		Map<String, SharedStreamStateHandle> firstSharedState = new HashMap<>();
+		firstSharedState.put("first.sst", new SharedStreamStateHandle("1-first.sst", firstFile));
+		firstSharedState.put("second.sst", sharedSecondFile);
+
+		IncrementalKeyedStateHandle firstHandle = new IncrementalKeyedStateHandle(
+				new KeyGroupRange(0, 9),
+				1L,
+				firstSharedState,
+				firstSharedState.keySet(),
+				Collections.<String, StreamStateHandle>emptyMap(),
+				mock(StreamStateHandle.class));
+
+		Map<String, SharedStreamStateHandle> secondSharedState = new HashMap<>();
+		secondSharedState.put("second.sst", sharedSecondFile);
+		secondSharedState.put("third.sst", new SharedStreamStateHandle("2-third.sst", thirdFile));
+
+		IncrementalKeyedStateHandle secondHandle = new IncrementalKeyedStateHandle(
+				new KeyGroupRange(0, 9),
+				2L,
+				secondSharedState,
+				Collections.singleton("third.sst"),
+				Collections.<String, StreamStateHandle>emptyMap(),
+				mock(StreamStateHandle.class));
+
+		firstHandle.registerSharedStates(sharedStateRegistry);
+		secondHandle.registerSharedStates(sharedStateRegistry);
+
+		assertEquals(2, sharedStateRegistry.getReferenceCount(sharedSecondFile));
+
+		// once registered, discarding the handle leaves the shared files to the registry
+		firstHandle.discardState();
+		verify(firstFile, never()).discardState();
+
+		firstHandle.unregisterSharedStates(sharedStateRegistry);
+		verify(firstFile).discardState();
+		verify(secondFile, never()).discardState();
+
+		secondHandle.unregisterSharedStates(sharedStateRegistry);
+		verify(secondFile).discardState();
+		verify(thirdFile).discardState();
+	}
+
+	@Test
+	public void testIntersection() {
+		IncrementalKeyedStateHandle stateHandle = new IncrementalKeyedStateHandle(
+				new KeyGroupRange(0, 9),
+				1L,
+				Collections.<String, SharedStreamStateHandle>emptyMap(),
+				Collections.<String>emptySet(),
+				Collections.<String, StreamStateHandle>emptyMap(),
+				mock(StreamStateHandle.class));
+
+		// the files cannot be split, so any overlapping range gets the whole handle
+		assertSame(stateHandle, stateHandle.getIntersection(new KeyGroupRange(5, 14)));
+		assertNull(stateHandle.getIntersection(new KeyGroupRange(10, 19)));
+	}
+}
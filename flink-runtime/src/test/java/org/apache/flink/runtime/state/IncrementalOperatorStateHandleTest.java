@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.runtime.checkpoint.SubtaskState;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class IncrementalOperatorStateHandleTest {
+
+	/**
+	 * Validates that a handle which was never registered discards the shared files it wrote,
+	 * but not the ones it only references.
+	 */
+	@Test
+	public void testDiscardUnregisteredHandle() throws Exception {
+		StreamStateHandle newFile = mock(StreamStateHandle.class);
+		StreamStateHandle referencedFile = mock(StreamStateHandle.class);
+		StreamStateHandle operatorState = mock(StreamStateHandle.class);
+
+		Map<String, SharedStreamStateHandle> sharedState = new HashMap<>();
+		sharedState.put("new", new SharedStreamStateHandle("new", newFile));
+		sharedState.put("referenced", new SharedStreamStateHandle("referenced", referencedFile));
+
+		IncrementalOperatorStateHandle stateHandle = new IncrementalOperatorStateHandle(
+				Collections.<String, OperatorStateHandle.StateMetaInfo>emptyMap(),
+				operatorState,
+				sharedState,
+				Collections.singleton("new"));
+
+		stateHandle.discardState();
+
+		verify(newFile).discardState();
+		verify(referencedFile, never()).discardState();
+		verify(operatorState).discardState();
+	}
+
+	/**
+	 * Validates that the subtask state registers the shared files of its managed operator state,
+	 * and that they are only discarded once no checkpoint references them.
+	 */
+	@Test
+	public void testSharedStateIsRegisteredBySubtaskState() throws Exception {
+		SharedStateRegistry sharedStateRegistry = new SharedStateRegistry();
+
+		StreamStateHandle file = mock(StreamStateHandle.class);
+		SharedStreamStateHandle sharedFile = new SharedStreamStateHandle("side-input", file);
+		Map<String, SharedStreamStateHandle> sharedState = Collections.singletonMap("side-input", sharedFile);
+
+		SubtaskState firstSubtaskState = createSubtaskState(new IncrementalOperatorStateHandle(
+				Collections.<String, OperatorStateHandle.StateMetaInfo>emptyMap(),
+				mock(StreamStateHandle.class),
+				sharedState,
+				sharedState.keySet()));
+
+		SubtaskState secondSubtaskState = createSubtaskState(new IncrementalOperatorStateHandle(
+				Collections.<String, OperatorStateHandle.StateMetaInfo>emptyMap(),
+				mock(StreamStateHandle.class),
+				sharedState,
+				Collections.<String>emptySet()));
+
+		firstSubtaskState.registerSharedStates(sharedStateRegistry);
+		secondSubtaskState.registerSharedStates(sharedStateRegistry);
+		assertEquals(2, sharedStateRegistry.getReferenceCount(sharedFile));
+
+		// once registered, discarding the state leaves the shared files to the registry
+		firstSubtaskState.discardState();
+		firstSubtaskState.unregisterSharedStates(sharedStateRegistry);
+		verify(file, never()).discardState();
+
+		secondSubtaskState.unregisterSharedStates(sharedStateRegistry);
+		verify(file).discardState();
+	}
+
+	private static SubtaskState createSubtaskState(OperatorStateHandle managedOperatorState) {
+		return new SubtaskState(
+				new ChainedStateHandle<>(Collections.<StreamStateHandle>emptyList()),
+				new ChainedStateHandle<>(Collections.singletonList(managedOperatorState)),
+				null,
+				null,
+				null);
+	}
+}
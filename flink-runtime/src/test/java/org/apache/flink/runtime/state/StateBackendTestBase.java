@@ -34,8 +34,10 @@ import org.apache.flink.api.common.state.MapState;
 import org.apache.flink.api.common.state.MapStateDescriptor;
 import org.apache.flink.api.common.state.ReducingState;
 import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.state.StateTtlConfig;
 import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.time.Time;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.common.typeutils.base.FloatSerializer;
@@ -61,6 +63,7 @@ import org.apache.flink.runtime.state.heap.NestedMapsStateTable;
 import org.apache.flink.runtime.state.heap.StateTable;
 import org.apache.flink.runtime.state.internal.InternalKvState;
 import org.apache.flink.runtime.state.internal.InternalValueState;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
 import org.apache.flink.runtime.util.BlockerCheckpointStreamFactory;
 import org.apache.flink.types.IntValue;
 import org.apache.flink.util.FutureUtil;
@@ -2138,6 +2141,244 @@ public abstract class StateBackendTestBase<B extends AbstractStateBackend> exten
 		}
 	}
 
+	@Test
+	public void testValueStateTtl() throws Exception {
+		ManualTtlTimeProvider timeProvider = new ManualTtlTimeProvider();
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(IntSerializer.INSTANCE);
+		backend.setTtlTimeProvider(timeProvider);
+
+		ValueStateDescriptor<String> kvId = new ValueStateDescriptor<>("id", String.class, "Hello");
+		kvId.enableTimeToLive(StateTtlConfig.newBuilder(Time.milliseconds(100)).build());
+
+		ValueState<String> state = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+		timeProvider.time = 1000;
+		backend.setCurrentKey(1);
+		state.update("Ciao");
+
+		timeProvider.time = 1050;
+		backend.setCurrentKey(2);
+		state.update("Bello");
+
+		timeProvider.time = 1099;
+		backend.setCurrentKey(1);
+		assertEquals("Ciao", state.value());
+
+		// reading does not refresh the timestamp by default
+		timeProvider.time = 1100;
+		assertEquals("Hello", state.value());
+		backend.setCurrentKey(2);
+		assertEquals("Bello", state.value());
+
+		timeProvider.time = 1150;
+		assertEquals("Hello", state.value());
+
+		state.update("Ciao");
+		assertEquals("Ciao", state.value());
+
+		backend.dispose();
+	}
+
+	@Test
+	public void testValueStateTtlUpdateOnRead() throws Exception {
+		ManualTtlTimeProvider timeProvider = new ManualTtlTimeProvider();
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(IntSerializer.INSTANCE);
+		backend.setTtlTimeProvider(timeProvider);
+
+		ValueStateDescriptor<String> kvId = new ValueStateDescriptor<>("id", String.class, null);
+		kvId.enableTimeToLive(StateTtlConfig.newBuilder(Time.milliseconds(100))
+				.setUpdateType(StateTtlConfig.UpdateType.OnReadAndWrite)
+				.build());
+
+		ValueState<String> state = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+		timeProvider.time = 1000;
+		backend.setCurrentKey(1);
+		state.update("Ciao");
+
+		timeProvider.time = 1080;
+		assertEquals("Ciao", state.value());
+
+		timeProvider.time = 1179;
+		assertEquals("Ciao", state.value());
+
+		timeProvider.time = 1279;
+		assertNull(state.value());
+
+		backend.dispose();
+	}
+
+	@Test
+	public void testListStateTtl() throws Exception {
+		ManualTtlTimeProvider timeProvider = new ManualTtlTimeProvider();
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(IntSerializer.INSTANCE);
+		backend.setTtlTimeProvider(timeProvider);
+
+		ListStateDescriptor<String> kvId = new ListStateDescriptor<>("id", String.class);
+		kvId.enableTimeToLive(StateTtlConfig.newBuilder(Time.milliseconds(100)).build());
+
+		ListState<String> state = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+		backend.setCurrentKey(1);
+
+		timeProvider.time = 1000;
+		state.add("Ciao");
+
+		timeProvider.time = 1050;
+		state.add("Bello");
+
+		timeProvider.time = 1099;
+		assertThat(state.get(), containsInAnyOrder("Ciao", "Bello"));
+
+		timeProvider.time = 1100;
+		assertThat(state.get(), containsInAnyOrder("Bello"));
+
+		timeProvider.time = 1150;
+		assertNull(state.get());
+
+		state.add("Ciao");
+		assertThat(state.get(), containsInAnyOrder("Ciao"));
+
+		backend.dispose();
+	}
+
+	@Test
+	public void testReducingStateTtl() throws Exception {
+		ManualTtlTimeProvider timeProvider = new ManualTtlTimeProvider();
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(IntSerializer.INSTANCE);
+		backend.setTtlTimeProvider(timeProvider);
+
+		ReducingStateDescriptor<String> kvId = new ReducingStateDescriptor<>("id", new AppendingReduce(), String.class);
+		kvId.enableTimeToLive(StateTtlConfig.newBuilder(Time.milliseconds(100)).build());
+
+		ReducingState<String> state = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+		backend.setCurrentKey(1);
+
+		timeProvider.time = 1000;
+		state.add("Ciao");
+
+		// adding refreshes the timestamp of the reduced value
+		timeProvider.time = 1050;
+		state.add("Bello");
+
+		timeProvider.time = 1149;
+		assertEquals("Ciao,Bello", state.get());
+
+		timeProvider.time = 1150;
+		assertNull(state.get());
+
+		// an expired value is not reduced with a new value
+		timeProvider.time = 1200;
+		state.add("Ciao");
+
+		timeProvider.time = 1400;
+		state.add("Bello");
+		assertEquals("Bello", state.get());
+
+		backend.dispose();
+	}
+
+	@Test
+	public void testMapStateTtl() throws Exception {
+		ManualTtlTimeProvider timeProvider = new ManualTtlTimeProvider();
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(IntSerializer.INSTANCE);
+		backend.setTtlTimeProvider(timeProvider);
+
+		MapStateDescriptor<Integer, String> kvId = new MapStateDescriptor<>("id", Integer.class, String.class);
+		kvId.enableTimeToLive(StateTtlConfig.newBuilder(Time.milliseconds(100)).build());
+
+		MapState<Integer, String> state = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+		backend.setCurrentKey(1);
+
+		timeProvider.time = 1000;
+		state.put(1, "Ciao");
+
+		timeProvider.time = 1050;
+		state.put(2, "Bello");
+
+		timeProvider.time = 1099;
+		assertEquals("Ciao", state.get(1));
+		assertEquals("Bello", state.get(2));
+
+		timeProvider.time = 1100;
+		assertNull(state.get(1));
+		assertFalse(state.contains(1));
+		assertTrue(state.contains(2));
+
+		Iterator<Map.Entry<Integer, String>> iterator = state.iterator();
+		assertTrue(iterator.hasNext());
+		Map.Entry<Integer, String> entry = iterator.next();
+		assertEquals(Integer.valueOf(2), entry.getKey());
+		assertEquals("Bello", entry.getValue());
+		assertFalse(iterator.hasNext());
+
+		timeProvider.time = 1150;
+		Iterable<Map.Entry<Integer, String>> entries = state.entries();
+		assertTrue(entries == null || !entries.iterator().hasNext());
+
+		state.put(3, "Hola");
+		assertThat(state.keys(), containsInAnyOrder(3));
+		assertThat(state.values(), containsInAnyOrder("Hola"));
+
+		backend.dispose();
+	}
+
+	@Test
+	public void testTtlStateSnapshotRestore() throws Exception {
+		CheckpointStreamFactory streamFactory = createStreamFactory();
+		ManualTtlTimeProvider timeProvider = new ManualTtlTimeProvider();
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(IntSerializer.INSTANCE);
+		backend.setTtlTimeProvider(timeProvider);
+
+		ValueStateDescriptor<String> kvId = new ValueStateDescriptor<>("id", String.class, null);
+		kvId.enableTimeToLive(StateTtlConfig.newBuilder(Time.milliseconds(100)).build());
+
+		ValueState<String> state = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+		timeProvider.time = 1000;
+		backend.setCurrentKey(1);
+		state.update("Ciao");
+
+		timeProvider.time = 1080;
+		backend.setCurrentKey(2);
+		state.update("Bello");
+
+		timeProvider.time = 1100;
+		KeyedStateHandle snapshot = runSnapshot(backend.snapshot(682375462378L, 2, streamFactory, CheckpointOptions.forFullCheckpoint()));
+		backend.dispose();
+
+		backend = restoreKeyedBackend(IntSerializer.INSTANCE, snapshot);
+		snapshot.discardState();
+		backend.setTtlTimeProvider(timeProvider);
+
+		state = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+
+		backend.setCurrentKey(1);
+		assertNull(state.value());
+		backend.setCurrentKey(2);
+		assertEquals("Bello", state.value());
+
+		timeProvider.time = 1180;
+		assertNull(state.value());
+
+		backend.dispose();
+	}
+
+	/**
+	 * {@link TtlTimeProvider} whose time is set by the test.
+	 */
+	private static class ManualTtlTimeProvider implements TtlTimeProvider {
+
+		long time;
+
+		@Override
+		public long currentTimestamp() {
+			return time;
+		}
+	}
+
 	private static class AppendingReduce implements ReduceFunction<String> {
 		@Override
 		public String reduce(String value1, String value2) throws Exception {
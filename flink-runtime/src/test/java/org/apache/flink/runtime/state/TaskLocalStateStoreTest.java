@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TaskLocalStateStoreTest {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private final JobID jobId = new JobID();
+
+	private final JobVertexID jobVertexId = new JobVertexID();
+
+	@Test
+	public void testRetrieveLocalStateByRemoteState() throws Exception {
+		TaskLocalStateStore store = createStore();
+
+		KeyedStateHandle remoteState = createStateHandle("remote");
+		KeyedStateHandle localState = createStateHandle("local");
+
+		store.storeLocalState(jobId, jobVertexId, 0, 1L, remoteState, localState);
+
+		assertEquals(localState, store.retrieveLocalState(jobId, jobVertexId, 0, createStateHandle("remote")));
+
+		assertNull(store.retrieveLocalState(jobId, jobVertexId, 0, createStateHandle("other")));
+		assertNull(store.retrieveLocalState(jobId, jobVertexId, 1, remoteState));
+		assertNull(store.retrieveLocalState(jobId, new JobVertexID(), 0, remoteState));
+		assertNull(store.retrieveLocalState(new JobID(), jobVertexId, 0, remoteState));
+	}
+
+	@Test
+	public void testConfirmCheckpointDeletesOlderLocalState() throws Exception {
+		TaskLocalStateStore store = createStore();
+
+		File firstDirectory = store.createLocalStateDirectory(jobId, jobVertexId, 0, 1L);
+		File secondDirectory = store.createLocalStateDirectory(jobId, jobVertexId, 0, 2L);
+		File thirdDirectory = store.createLocalStateDirectory(jobId, jobVertexId, 0, 3L);
+
+		store.storeLocalState(jobId, jobVertexId, 0, 1L, createStateHandle("remote-1"), createStateHandle("local-1"));
+		store.storeLocalState(jobId, jobVertexId, 0, 2L, createStateHandle("remote-2"), createStateHandle("local-2"));
+		store.storeLocalState(jobId, jobVertexId, 0, 3L, createStateHandle("remote-3"), createStateHandle("local-3"));
+
+		store.confirmCheckpoint(jobId, jobVertexId, 0, 2L);
+
+		assertNull(store.retrieveLocalState(jobId, jobVertexId, 0, createStateHandle("remote-1")));
+		assertEquals(createStateHandle("local-2"), store.retrieveLocalState(jobId, jobVertexId, 0, createStateHandle("remote-2")));
+		assertEquals(createStateHandle("local-3"), store.retrieveLocalState(jobId, jobVertexId, 0, createStateHandle("remote-3")));
+
+		assertFalse(firstDirectory.exists());
+		assertTrue(secondDirectory.exists());
+		assertTrue(thirdDirectory.exists());
+	}
+
+	@Test
+	public void testReleaseLocalState() throws Exception {
+		TaskLocalStateStore store = createStore();
+
+		File directory = store.createLocalStateDirectory(jobId, jobVertexId, 0, 1L);
+		File otherDirectory = store.createLocalStateDirectory(jobId, jobVertexId, 1, 1L);
+
+		store.storeLocalState(jobId, jobVertexId, 0, 1L, createStateHandle("remote"), createStateHandle("local"));
+		store.storeLocalState(jobId, jobVertexId, 1, 1L, createStateHandle("other-remote"), createStateHandle("other-local"));
+
+		store.releaseLocalState(jobId, jobVertexId, 0);
+
+		assertNull(store.retrieveLocalState(jobId, jobVertexId, 0, createStateHandle("remote")));
+		assertFalse(directory.exists());
+
+		assertEquals(createStateHandle("other-local"), store.retrieveLocalState(jobId, jobVertexId, 1, createStateHandle("other-remote")));
+		assertTrue(otherDirectory.exists());
+
+		store.shutdown();
+
+		assertNull(store.retrieveLocalState(jobId, jobVertexId, 1, createStateHandle("other-remote")));
+		assertFalse(otherDirectory.exists());
+
+		// state that is stored after the shutdown is ignored
+		store.storeLocalState(jobId, jobVertexId, 0, 2L, createStateHandle("remote"), createStateHandle("local"));
+		assertNull(store.retrieveLocalState(jobId, jobVertexId, 0, createStateHandle("remote")));
+	}
+
+	@Test
+	public void testReleaseLocalStateOfUnreferencedJobs() throws Exception {
+		TaskLocalStateStore store = createStore();
+
+		JobID otherJobId = new JobID();
+		ExecutionAttemptID firstAttempt = new ExecutionAttemptID();
+		ExecutionAttemptID secondAttempt = new ExecutionAttemptID();
+		ExecutionAttemptID otherAttempt = new ExecutionAttemptID();
+
+		store.registerTask(jobId, firstAttempt);
+		store.registerTask(otherJobId, otherAttempt);
+
+		File directory = store.createLocalStateDirectory(jobId, jobVertexId, 0, 1L);
+		File otherDirectory = store.createLocalStateDirectory(otherJobId, jobVertexId, 0, 1L);
+
+		store.storeLocalState(jobId, jobVertexId, 0, 1L, createStateHandle("remote"), createStateHandle("local"));
+		store.storeLocalState(otherJobId, jobVertexId, 0, 1L, createStateHandle("other-remote"), createStateHandle("other-local"));
+
+		// the task fails and is restarted on this TaskManager within a cleanup interval
+		store.unregisterTask(jobId, firstAttempt);
+		store.releaseUnreferencedLocalState();
+		store.registerTask(jobId, secondAttempt);
+		store.releaseUnreferencedLocalState();
+
+		assertEquals(createStateHandle("local"), store.retrieveLocalState(jobId, jobVertexId, 0, createStateHandle("remote")));
+		assertTrue(directory.exists());
+
+		// the job leaves the TaskManager, its state is released after a full cleanup interval
+		store.unregisterTask(jobId, secondAttempt);
+		store.releaseUnreferencedLocalState();
+
+		assertEquals(createStateHandle("local"), store.retrieveLocalState(jobId, jobVertexId, 0, createStateHandle("remote")));
+		assertTrue(directory.exists());
+
+		store.releaseUnreferencedLocalState();
+
+		assertNull(store.retrieveLocalState(jobId, jobVertexId, 0, createStateHandle("remote")));
+		assertFalse(directory.exists());
+		assertFalse(directory.getParentFile().getParentFile().exists());
+
+		// the state of the job that still runs here is retained
+		assertEquals(createStateHandle("other-local"), store.retrieveLocalState(otherJobId, jobVertexId, 0, createStateHandle("other-remote")));
+		assertTrue(otherDirectory.exists());
+
+		store.shutdown();
+	}
+
+	private TaskLocalStateStore createStore() throws Exception {
+		return new TaskLocalStateStore(new String[] {
+				tempFolder.newFolder().getAbsolutePath(),
+				tempFolder.newFolder().getAbsolutePath()});
+	}
+
+	private static KeyedStateHandle createStateHandle(String name) {
+		return new KeyGroupsStateHandle(
+				new KeyGroupRangeOffsets(0, 0),
+				new ByteStreamStateHandle(name, new byte[0]));
+	}
+}
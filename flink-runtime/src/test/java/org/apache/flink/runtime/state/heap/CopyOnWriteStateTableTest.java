@@ -23,14 +23,17 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.common.typeutils.base.IntSerializer;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.api.java.tuple.Tuple3;
+import org.apache.flink.core.memory.ByteArrayInputStreamWithPos;
 import org.apache.flink.core.memory.ByteArrayOutputStreamWithPos;
 import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
 import org.apache.flink.core.memory.DataOutputView;
 import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
 import org.apache.flink.runtime.state.ArrayListSerializer;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.RegisteredBackendStateMetaInfo;
 import org.apache.flink.runtime.state.StateTransformationFunction;
+import org.apache.flink.runtime.state.ttl.ExpiredStateFilter;
 import org.apache.flink.util.TestLogger;
 import org.junit.Assert;
 import org.junit.Test;
@@ -457,6 +460,172 @@ public class CopyOnWriteStateTableTest extends TestLogger {
 		}
 	}
 
+	/**
+	 * This tests that a delta snapshot only contains the mappings that were modified, accessed for update, or removed
+	 * since its base snapshot, but not those that were only read, and that applying the delta to a copy of the base
+	 * restores the current state.
+	 */
+	@Test
+	public void testDeltaSnapshotContainsChangesSinceBase() throws IOException {
+		RegisteredBackendStateMetaInfo<Integer, ArrayList<Integer>> metaInfo =
+				new RegisteredBackendStateMetaInfo<>(
+						StateDescriptor.Type.UNKNOWN,
+						"test",
+						IntSerializer.INSTANCE,
+						new ArrayListSerializer<>(IntSerializer.INSTANCE)); // we use mutable state objects.
+
+		final MockInternalKeyContext<Integer> keyContext = new MockInternalKeyContext<>(IntSerializer.INSTANCE);
+
+		final CopyOnWriteStateTable<Integer, Integer, ArrayList<Integer>> stateTable =
+				new CopyOnWriteStateTable<>(keyContext, metaInfo);
+
+		final CopyOnWriteStateTable<Integer, Integer, ArrayList<Integer>> restoredTable =
+				new CopyOnWriteStateTable<>(keyContext, metaInfo);
+
+		stateTable.trackRemovedEntries();
+
+		for (int i = 0; i < 5; ++i) {
+			stateTable.put(i, 1, new ArrayList<>(Arrays.asList(i)));
+			restoredTable.put(i, 1, new ArrayList<>(Arrays.asList(i)));
+		}
+
+		CopyOnWriteStateTableSnapshot<Integer, Integer, ArrayList<Integer>> baseSnapshot = stateTable.createSnapshot();
+		final int baseVersion = baseSnapshot.getSnapshotVersion();
+		stateTable.releaseSnapshot(baseSnapshot);
+
+		Assert.assertTrue(stateTable.canCreateDeltaSnapshot(baseVersion));
+
+		// replace, remove, insert, and mutate a state in place, a state that is only read is not part of the delta
+		stateTable.put(0, 1, new ArrayList<>(Arrays.asList(42)));
+		stateTable.remove(1, 1);
+		stateTable.put(5, 1, new ArrayList<>(Arrays.asList(5)));
+		stateTable.getForUpdate(2, 1).add(43);
+		Assert.assertEquals(Arrays.asList(3), stateTable.get(3, 1));
+
+		CopyOnWriteStateTableSnapshot<Integer, Integer, ArrayList<Integer>> deltaSnapshot =
+				stateTable.createDeltaSnapshot(baseVersion);
+
+		ByteArrayOutputStreamWithPos out = new ByteArrayOutputStreamWithPos(1024);
+		try {
+			deltaSnapshot.writeChangesInKeyGroup(new DataOutputViewStreamWrapper(out), 0);
+		} finally {
+			stateTable.releaseSnapshot(deltaSnapshot);
+		}
+
+		DataInputViewStreamWrapper in =
+				new DataInputViewStreamWrapper(new ByteArrayInputStreamWithPos(out.getBuf(), 0, out.getPosition()));
+
+		// one removal, followed by the three updated mappings
+		Assert.assertEquals(1, in.readInt());
+		Assert.assertEquals(Integer.valueOf(1), IntSerializer.INSTANCE.deserialize(in));
+		Assert.assertEquals(Integer.valueOf(1), IntSerializer.INSTANCE.deserialize(in));
+		Assert.assertEquals(3, in.readInt());
+
+		in = new DataInputViewStreamWrapper(new ByteArrayInputStreamWithPos(out.getBuf(), 0, out.getPosition()));
+		StateTableByKeyGroupReaders.readerForChanges(restoredTable).readMappingsInKeyGroup(in, 0);
+
+		Assert.assertEquals(stateTable.size(), restoredTable.size());
+		for (int i = 0; i < 6; ++i) {
+			Assert.assertEquals(stateTable.get(i, 1), restoredTable.get(i, 1));
+		}
+
+		// once the base is discarded, no more deltas can be based on it
+		stateTable.discardRemovedEntriesBefore(deltaSnapshot.getSnapshotVersion());
+		Assert.assertFalse(stateTable.canCreateDeltaSnapshot(baseVersion));
+		Assert.assertTrue(stateTable.canCreateDeltaSnapshot(deltaSnapshot.getSnapshotVersion()));
+	}
+
+	/**
+	 * This tests that the mappings that are dropped by the snapshot transformer are not written to snapshots, are
+	 * written as removals to delta snapshots, and are removed by the incremental cleanup.
+	 */
+	@Test
+	public void testSnapshotTransformerAndIncrementalCleanup() throws IOException {
+		RegisteredBackendStateMetaInfo<Integer, ArrayList<Integer>> metaInfo =
+				new RegisteredBackendStateMetaInfo<>(
+						StateDescriptor.Type.UNKNOWN,
+						"test",
+						IntSerializer.INSTANCE,
+						new ArrayListSerializer<>(IntSerializer.INSTANCE));
+
+		final MockInternalKeyContext<Integer> keyContext = new MockInternalKeyContext<>(IntSerializer.INSTANCE);
+
+		final CopyOnWriteStateTable<Integer, Integer, ArrayList<Integer>> stateTable =
+				new CopyOnWriteStateTable<>(keyContext, metaInfo);
+
+		stateTable.trackRemovedEntries();
+
+		// drops all states that start with a negative element
+		final ExpiredStateFilter<ArrayList<Integer>> filter = new ExpiredStateFilter<ArrayList<Integer>>() {
+			@Override
+			public ArrayList<Integer> filterOrTransform(ArrayList<Integer> state) {
+				return isExpiredEntirely(state) ? null : state;
+			}
+
+			@Override
+			public boolean isExpiredEntirely(ArrayList<Integer> state) {
+				return state.get(0) < 0;
+			}
+		};
+		stateTable.setSnapshotTransformer(filter);
+
+		for (int i = 0; i < 10; ++i) {
+			stateTable.put(i, 1, new ArrayList<>(Arrays.asList(i % 2 == 0 ? i : -i)));
+		}
+
+		CopyOnWriteStateTableSnapshot<Integer, Integer, ArrayList<Integer>> snapshot = stateTable.createSnapshot();
+		final int baseVersion = snapshot.getSnapshotVersion();
+
+		ByteArrayOutputStreamWithPos out = new ByteArrayOutputStreamWithPos(1024);
+		try {
+			snapshot.writeMappingsInKeyGroup(new DataOutputViewStreamWrapper(out), 0);
+		} finally {
+			stateTable.releaseSnapshot(snapshot);
+		}
+
+		DataInputViewStreamWrapper in =
+				new DataInputViewStreamWrapper(new ByteArrayInputStreamWithPos(out.getBuf(), 0, out.getPosition()));
+
+		Assert.assertEquals(5, in.readInt());
+		for (int i = 0; i < 5; ++i) {
+			IntSerializer.INSTANCE.deserialize(in);
+			Integer key = IntSerializer.INSTANCE.deserialize(in);
+			ArrayList<Integer> state = metaInfo.getStateSerializer().deserialize(in);
+			Assert.assertEquals(0, key % 2);
+			Assert.assertEquals(Arrays.asList(key), state);
+		}
+
+		// the table is small enough that a single call checks all entries
+		Assert.assertEquals(10, stateTable.size());
+		stateTable.cleanupIncrementally(filter, 10);
+		Assert.assertEquals(5, stateTable.size());
+		for (int i = 0; i < 10; ++i) {
+			Assert.assertEquals(i % 2 == 0, stateTable.containsKey(i, 1));
+		}
+
+		stateTable.put(0, 1, new ArrayList<>(Arrays.asList(-1)));
+
+		CopyOnWriteStateTableSnapshot<Integer, Integer, ArrayList<Integer>> deltaSnapshot =
+				stateTable.createDeltaSnapshot(baseVersion);
+
+		out = new ByteArrayOutputStreamWithPos(1024);
+		try {
+			deltaSnapshot.writeChangesInKeyGroup(new DataOutputViewStreamWrapper(out), 0);
+		} finally {
+			stateTable.releaseSnapshot(deltaSnapshot);
+		}
+
+		in = new DataInputViewStreamWrapper(new ByteArrayInputStreamWithPos(out.getBuf(), 0, out.getPosition()));
+
+		// the five removals of the cleanup and the dropped mapping, followed by no mappings
+		Assert.assertEquals(6, in.readInt());
+		for (int i = 0; i < 6; ++i) {
+			IntSerializer.INSTANCE.deserialize(in);
+			IntSerializer.INSTANCE.deserialize(in);
+		}
+		Assert.assertEquals(0, in.readInt());
+	}
+
 	@SuppressWarnings("unchecked")
 	private static <K, N, S> Tuple3<K, N, S>[] convert(CopyOnWriteStateTable.StateTableEntry<K, N, S>[] snapshot, int mapSize) {
 
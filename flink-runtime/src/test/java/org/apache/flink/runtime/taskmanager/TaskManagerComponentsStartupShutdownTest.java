@@ -114,7 +114,7 @@ public class TaskManagerComponentsStartupShutdownTest {
 
 			final NetworkEnvironmentConfiguration netConf = new NetworkEnvironmentConfiguration(
 					32, BUFFER_SIZE, MemoryType.HEAP, IOManager.IOMode.SYNC,
-					0, 0, 2, 8, null);
+					0, 0, 2, 8, null, false, 0L);
 
 			ResourceID taskManagerId = ResourceID.generate();
 			
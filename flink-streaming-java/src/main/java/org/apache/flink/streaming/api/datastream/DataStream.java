@@ -52,6 +52,7 @@ import org.apache.flink.streaming.api.collector.selector.OutputSelector;
 import org.apache.flink.streaming.api.datastream.utils.BroadcastedSideInput;
 import org.apache.flink.streaming.api.datastream.utils.ForwardedSideInput;
 import org.apache.flink.streaming.api.datastream.utils.KeyedSideInput;
+import org.apache.flink.streaming.api.datastream.utils.UpdatingSideInput;
 import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
 import org.apache.flink.streaming.api.functions.AssignerWithPeriodicWatermarks;
 import org.apache.flink.streaming.api.functions.AssignerWithPunctuatedWatermarks;
@@ -903,7 +904,10 @@ public class DataStream<T> {
 	@SuppressWarnings("unchecked")
 	public <R, KEY, SELF extends DataStream<T>> SELF withSideInput(SideInput<R> sideInput) {
 
-		if (sideInput instanceof BroadcastedSideInput) {
+		if (sideInput instanceof UpdatingSideInput) {
+			DataStream<R> oth = ((UpdatingSideInput<R>) sideInput).stream();
+			transformation.registerUpdatingSideInput(sideInput.id(), oth.broadcast().getTransformation());
+		} else if (sideInput instanceof BroadcastedSideInput) {
 			DataStream<R> oth = ((BroadcastedSideInput<R>) sideInput).stream();
 			transformation.registerSideInput(sideInput.id(), oth.broadcast().getTransformation());
 		} else if (sideInput instanceof ForwardedSideInput) {
@@ -912,7 +916,14 @@ public class DataStream<T> {
 		} else if (sideInput instanceof KeyedSideInput) {
 			KeyedSideInput<R> keyedSideInput = (KeyedSideInput<R>) sideInput;
 			DataStream<R> oth = keyedSideInput.stream();
-			transformation.registerSideInput(sideInput.id(), oth.keyBy(keyedSideInput.field()).getTransformation());
+			// the partitioning key selector wraps the field in a tuple, lookups use the plain field
+			KeySelector<R, Object> lookupKeySelector = KeySelectorUtil.getSelectorForOneKey(
+				new Keys.ExpressionKeys<>(new int[] {keyedSideInput.field()}, oth.getType()),
+				null,
+				oth.getType(),
+				getExecutionConfig());
+			transformation.registerSideInput(
+				sideInput.id(), oth.keyBy(keyedSideInput.field()).getTransformation(), lookupKeySelector);
 		} else {
 			throw new UnsupportedOperationException();
 		}
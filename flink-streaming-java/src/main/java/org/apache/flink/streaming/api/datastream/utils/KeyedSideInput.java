@@ -22,6 +22,11 @@ package org.apache.flink.streaming.api.datastream.utils;
 import org.apache.flink.api.common.functions.util.SideInput;
 import org.apache.flink.streaming.api.datastream.DataStream;
 
+/**
+ * A side input that is partitioned by the given field. Besides the whole (local) side input, the
+ * elements can be looked up by the value of that field via
+ * {@link org.apache.flink.api.common.functions.RuntimeContext#lookupSideInput(SideInput, Object)}.
+ */
 public class KeyedSideInput<TYPE> extends SideInput<TYPE> {
 
 	private transient DataStream<TYPE> stream;
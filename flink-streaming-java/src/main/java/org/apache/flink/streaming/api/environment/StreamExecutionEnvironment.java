@@ -68,6 +68,7 @@ import org.apache.flink.streaming.api.datastream.SingleOutputStreamOperator;
 import org.apache.flink.streaming.api.datastream.utils.BroadcastedSideInput;
 import org.apache.flink.streaming.api.datastream.utils.ForwardedSideInput;
 import org.apache.flink.streaming.api.datastream.utils.KeyedSideInput;
+import org.apache.flink.streaming.api.datastream.utils.UpdatingSideInput;
 import org.apache.flink.streaming.api.functions.source.ContinuousFileMonitoringFunction;
 import org.apache.flink.streaming.api.functions.source.ContinuousFileReaderOperator;
 import org.apache.flink.streaming.api.functions.source.FileMonitoringFunction;
@@ -1791,4 +1792,13 @@ public abstract class StreamExecutionEnvironment {
 	public <TYPE, KEY> SideInput<TYPE> newKeyedSideInput(DataStream<TYPE> sideInput, int field) {
 		return new KeyedSideInput<>(sideInput, field);
 	}
+
+	/**
+	 * Creates a broadcasted side input from an unbounded stream. The elements received between
+	 * two watermarks of the side input replace its visible contents once the later watermark
+	 * arrives, see {@link UpdatingSideInput}.
+	 */
+	public <TYPE> SideInput<TYPE> newUpdatingSideInput(DataStream<TYPE> sideInput) {
+		return new UpdatingSideInput<>(sideInput);
+	}
 }
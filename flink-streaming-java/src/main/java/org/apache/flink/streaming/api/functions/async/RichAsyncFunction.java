@@ -187,6 +187,11 @@ public abstract class RichAsyncFunction<IN, OUT> extends AbstractRichFunction im
 			throw new UnsupportedOperationException("Side input is not supported in rich async functions.");
 		}
 
+		@Override
+		public <T> List<T> lookupSideInput(SideInput<T> handle, Object key) {
+			throw new UnsupportedOperationException("Side input is not supported in rich async functions.");
+		}
+
 		@Override
 		public <V, A extends Serializable> void addAccumulator(String name, Accumulator<V, A> accumulator) {
 			throw new UnsupportedOperationException("Accumulators are not supported in rich async functions.");
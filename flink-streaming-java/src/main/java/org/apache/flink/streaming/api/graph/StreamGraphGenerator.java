@@ -28,6 +28,7 @@ import com.google.common.collect.Maps;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
@@ -45,6 +46,8 @@ import org.apache.flink.streaming.api.transformations.StreamTransformation;
 import org.apache.flink.streaming.api.transformations.TwoInputTransformation;
 import org.apache.flink.streaming.api.transformations.UnionTransformation;
 import org.apache.flink.streaming.api.transformations.utils.SideInputInformation;
+import org.apache.flink.streaming.runtime.partitioner.BroadcastPartitioner;
+import org.apache.flink.streaming.runtime.partitioner.KeyGroupStreamPartitioner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -580,7 +583,14 @@ public class StreamGraphGenerator {
 				for (int sideInputId : pair.getValue()) {
 					streamGraph.addEdge(sideInputId, transform.getId(), typeId);
 				}
-				sideInputInfos.put(typeId, new SideInputInformation(pair.getKey(), typeId++, sideInputsTypeInfos.get(pair.getKey())));
+				sideInputInfos.put(typeId, new SideInputInformation(
+					pair.getKey(),
+					typeId++,
+					sideInputsTypeInfos.get(pair.getKey()),
+					transform.getSideInputKeySelector(pair.getKey()),
+					isBroadcast(transform.getSideInputs().get(pair.getKey())),
+					transform.isUpdatingSideInput(pair.getKey()),
+					getPartitionKeySelector(transform.getSideInputs().get(pair.getKey()))));
 			}
 			streamGraph.setSideInputSerializers(transform.getId(), sideInputInfos);
 		}
@@ -645,6 +655,27 @@ public class StreamGraphGenerator {
 		return Collections.singleton(transform.getId());
 	}
 
+	/**
+	 * Checks whether the given side input transformation sends all elements to every parallel
+	 * instance of the consuming operator.
+	 */
+	private static boolean isBroadcast(StreamTransformation<?> sideInput) {
+		return sideInput instanceof PartitionTransformation &&
+			((PartitionTransformation<?>) sideInput).getPartitioner() instanceof BroadcastPartitioner;
+	}
+
+	/**
+	 * Returns the key selector the given side input transformation is hash partitioned by, or
+	 * null if it is partitioned otherwise.
+	 */
+	private static KeySelector<?, ?> getPartitionKeySelector(StreamTransformation<?> sideInput) {
+		if (sideInput instanceof PartitionTransformation &&
+				((PartitionTransformation<?>) sideInput).getPartitioner() instanceof KeyGroupStreamPartitioner) {
+			return ((KeyGroupStreamPartitioner<?, ?>) ((PartitionTransformation<?>) sideInput).getPartitioner()).getKeySelector();
+		}
+		return null;
+	}
+
 	/**
 	 * Determines the slot sharing group for an operation based on the slot sharing group set by
 	 * the user and the slot sharing groups of the inputs.
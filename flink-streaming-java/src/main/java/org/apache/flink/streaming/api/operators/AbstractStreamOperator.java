@@ -21,10 +21,13 @@ package org.apache.flink.streaming.api.operators;
 import static org.apache.flink.util.Preconditions.checkArgument;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 
 import com.google.common.collect.Maps;
@@ -33,25 +36,35 @@ import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.apache.flink.annotation.PublicEvolving;
 import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.TaskInfo;
 import org.apache.flink.api.common.state.KeyedStateStore;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
 import org.apache.flink.api.common.state.State;
 import org.apache.flink.api.common.state.StateDescriptor;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.configuration.MetricOptions;
+import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.core.fs.FSDataInputStream;
 import org.apache.flink.core.memory.DataInputViewStreamWrapper;
 import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.broadcast.BroadcastVariableKey;
+import org.apache.flink.runtime.broadcast.BroadcastVariableManager;
+import org.apache.flink.runtime.broadcast.SharedBroadcastMaterialization;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions.CheckpointType;
+import org.apache.flink.runtime.execution.Environment;
 import org.apache.flink.runtime.metrics.groups.OperatorMetricGroup;
 import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.CheckpointListener;
 import org.apache.flink.runtime.state.CheckpointStreamFactory;
 import org.apache.flink.runtime.state.DefaultKeyedStateStore;
+import org.apache.flink.runtime.state.IncrementalOperatorStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.runtime.state.KeyGroupStatePartitionStreamProvider;
@@ -61,21 +74,27 @@ import org.apache.flink.runtime.state.KeyedStateCheckpointOutputStream;
 import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.OperatorStateBackend;
 import org.apache.flink.runtime.state.OperatorStateHandle;
+import org.apache.flink.runtime.state.SharedStreamStateHandle;
 import org.apache.flink.runtime.state.StateInitializationContext;
 import org.apache.flink.runtime.state.StateInitializationContextImpl;
 import org.apache.flink.runtime.state.StateSnapshotContext;
 import org.apache.flink.runtime.state.StateSnapshotContextSynchronousImpl;
+import org.apache.flink.runtime.state.StateUtil;
 import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.VoidNamespace;
 import org.apache.flink.runtime.state.VoidNamespaceSerializer;
 import org.apache.flink.streaming.api.graph.StreamConfig;
 import org.apache.flink.streaming.api.transformations.utils.SideInputInformation;
 import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.io.SpillingMainInputBuffer;
 import org.apache.flink.streaming.runtime.streamrecord.LatencyMarker;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElementSerializer;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.runtime.tasks.OperatorStateHandles;
 import org.apache.flink.streaming.runtime.tasks.ProcessingTimeService;
 import org.apache.flink.streaming.runtime.tasks.StreamTask;
+import org.apache.flink.util.FutureUtil;
 import org.apache.flink.util.OutputTag;
 import org.apache.flink.util.Preconditions;
 import org.slf4j.Logger;
@@ -84,7 +103,13 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
 /**
  * Base class for all stream operators. Operators that contain a user function should extend the class
  * {@link AbstractUdfStreamOperator} instead (which is a specialized subclass of this class).
@@ -107,6 +132,14 @@ public abstract class AbstractStreamOperator<OUT>
 
 	private static final String MAIN_INPUT_COLLECTOR = "__MAIN_INPUT__";
 
+	private static final String SIDE_INPUT_STATE_PREFIX = "__SIDE_INPUT__";
+
+	private static final String PENDING_SIDE_INPUT_STATE_PREFIX = "__PENDING_SIDE_INPUT__";
+
+	private static final String SIDE_INPUT_HANDLE_STATE_PREFIX = "__SIDE_INPUT_HANDLE__";
+
+	private static final String MAIN_INPUT_HANDLE_STATE = "__MAIN_INPUT_HANDLE__";
+
 	/** The logger used by the operator class and its subclasses. */
 	protected static final Logger LOG = LoggerFactory.getLogger(AbstractStreamOperator.class);
 
@@ -163,9 +196,62 @@ public abstract class AbstractStreamOperator<OUT>
 
 	// --------------- Side Input ---------------------------
 
-	private transient Map<UUID, ArrayList<?>> sideInputsCollector;
+	private transient Collection<SideInputInformation<?>> sideInputInfos;
+
+	/** The elements of the side inputs, either on the heap or serialized in managed memory. */
+	private transient Map<UUID, List<Object>> sideInputsCollector;
+
+	/** Hash indexes of the keyed side inputs, mapping each key to the elements with that key. */
+	private transient Map<UUID, Map<Object, List<Object>>> sideInputIndexes;
+
+	/** Selectors of the keys the keyed side inputs are indexed by. */
+	private transient Map<UUID, KeySelector<Object, ?>> sideInputKeySelectors;
+
+	/** Broadcasted side inputs, materialized once per TaskManager and shared by all instances. */
+	private transient Map<UUID, SharedBroadcastMaterialization<Object>> sharedSideInputs;
+
+	/** Shared side inputs materialized by another instance, whose elements are discarded here. */
+	private transient Set<UUID> discardedSideInputs;
+
+	/** Side inputs whose elements are held by their shared materialization, which releases them. */
+	private transient Set<UUID> materializedSideInputs;
+
+	/** Unbounded side inputs, whose contents are replaced at watermark boundaries. */
+	private transient Map<UUID, VersionedSideInput<Object>> updatingSideInputs;
+
+	/** Heap buffer for the main input, only used if no managed memory is configured for it. */
 	private transient ArrayList<StreamRecord<?>> mainInputCollector;
 
+	/** Managed memory buffer for the main input while the side inputs are loaded. */
+	private transient SpillingMainInputBuffer<Object> mainInputBuffer;
+
+	/** Whether the buffered main input has been handed out for processing. */
+	private transient boolean mainInputReplayed;
+
+	/** Operator state the side inputs are written to while a snapshot is taken. */
+	private transient Map<UUID, ListState<Object>> sideInputStates;
+
+	/** Operator state the not yet published elements of updating side inputs are written to. */
+	private transient Map<UUID, ListState<Object>> pendingSideInputStates;
+
+	/** Operator state the references to the files of loaded side inputs are written to. */
+	private transient Map<UUID, ListState<DeferredStateFile>> sideInputHandleStates;
+
+	/** The files of loaded side inputs that later checkpoints can reference. */
+	private transient Map<UUID, SideInputFiles> sideInputFiles;
+
+	/** The files of loaded side inputs written for checkpoints that have not completed yet. */
+	private transient SortedMap<Long, Map<UUID, SideInputFiles>> pendingSideInputFiles;
+
+	/** Whether all side inputs have been loaded, after which bounded side inputs do not change. */
+	private transient boolean sideInputsComplete;
+
+	/** Operator state the buffered main input is written to while a snapshot is taken. */
+	private transient ListState<StreamElement> mainInputState;
+
+	/** Operator state the reference to the file of the managed main input buffer is written to. */
+	private transient ListState<DeferredStateFile> mainInputHandleState;
+
 	// --------------- Metrics ---------------------------
 
 	/** Metric group for the operator. */
@@ -219,10 +305,42 @@ public abstract class AbstractStreamOperator<OUT>
 		if (numberOfSideInput > 0 && sideInputsCollector == null) {
 			sideInputsCollector = Maps.newHashMapWithExpectedSize(numberOfSideInput);
 			Map<Integer, SideInputInformation<?>> infos = config.getSideInputsTypeSerializers(getUserCodeClassloader());
+			sideInputInfos = infos.values();
+			sideInputIndexes = new HashMap<>();
+			sideInputKeySelectors = new HashMap<>();
+			sharedSideInputs = new HashMap<>();
+			discardedSideInputs = new HashSet<>();
+			materializedSideInputs = new HashSet<>();
+			BroadcastVariableManager broadcastVariableManager = container.getEnvironment().getBroadcastVariableManager();
+			updatingSideInputs = new HashMap<>();
+			// the first subtask keeps its own copy of the broadcasted side inputs, which it writes
+			// to the checkpoints on behalf of all instances
+			boolean keepsCheckpointCopy = config.isCheckpointingEnabled() &&
+				container.getEnvironment().getTaskInfo().getIndexOfThisSubtask() == 0;
 			for (SideInputInformation<?> info : infos.values()) {
-				sideInputsCollector.put(info.getId(), new ArrayList());
+				if (info.isUpdating()) {
+					updatingSideInputs.put(info.getId(), new VersionedSideInput<>());
+					continue;
+				}
+				sideInputsCollector.put(info.getId(), createSideInputCollector(info,
+					taskManagerConfig.getBoolean(TaskManagerOptions.TASK_SIDE_INPUT_SERIALIZED_STORAGE)));
+				if (info.getKeySelector() != null) {
+					sideInputIndexes.put(info.getId(), new HashMap<Object, List<Object>>());
+					sideInputKeySelectors.put(info.getId(), (KeySelector<Object, ?>) info.getKeySelector());
+				}
+				if (info.isBroadcast() && broadcastVariableManager != null && !keepsCheckpointCopy) {
+					SharedBroadcastMaterialization<Object> materialization =
+						broadcastVariableManager.registerSharedMaterialization(getSharedSideInputKey(info.getId()), this);
+					sharedSideInputs.put(info.getId(), materialization);
+					if (!materialization.isMaterializer(this)) {
+						discardedSideInputs.add(info.getId());
+					}
+				}
 			}
-			mainInputCollector = new ArrayList<>();
+			// the buffer only takes its pages once a record is buffered, so a blocked main input
+			// that is never buffered outside of checkpoint alignments does not reserve memory
+			setupMainInputBuffer(taskManagerConfig.getInteger(TaskManagerOptions.TASK_SIDE_INPUT_BUFFER_PAGES));
+			registerSideInputMetrics();
 		}
 
 	}
@@ -267,6 +385,8 @@ public abstract class AbstractStreamOperator<OUT>
 
 		initOperatorState(operatorStateHandlesBackend);
 
+		initializeSideInputState(restoring);
+
 		StateInitializationContext initializationContext = new StateInitializationContextImpl(
 				restoring, // information whether we restore or start for the first time
 				operatorStateBackend, // access to operator state backend
@@ -383,6 +503,27 @@ public abstract class AbstractStreamOperator<OUT>
 	@Override
 	public void dispose() throws Exception {
 
+		if (mainInputBuffer != null) {
+			mainInputBuffer.release();
+			mainInputBuffer = null;
+		}
+
+		if (sideInputsCollector != null) {
+			for (Map.Entry<UUID, List<Object>> entry : sideInputsCollector.entrySet()) {
+				if (!materializedSideInputs.contains(entry.getKey())) {
+					releaseSideInput(entry.getValue());
+				}
+			}
+		}
+
+		if (sharedSideInputs != null) {
+			BroadcastVariableManager broadcastVariableManager = container.getEnvironment().getBroadcastVariableManager();
+			for (UUID id : sharedSideInputs.keySet()) {
+				broadcastVariableManager.releaseSharedMaterialization(getSharedSideInputKey(id), this);
+			}
+			sharedSideInputs = null;
+		}
+
 		if (operatorStateBackend != null) {
 			IOUtils.closeQuietly(operatorStateBackend);
 			operatorStateBackend.dispose();
@@ -417,13 +558,38 @@ public abstract class AbstractStreamOperator<OUT>
 			snapshotInProgress.setOperatorStateRawFuture(snapshotContext.getOperatorStateStreamFuture());
 
 			if (null != operatorStateBackend) {
-				snapshotInProgress.setOperatorStateManagedFuture(
-					operatorStateBackend.snapshot(checkpointId, timestamp, factory, checkpointOptions));
+				List<DeferredStateFile> stateFiles = new ArrayList<>();
+				List<DeferredStateFile> newStateFiles = new ArrayList<>();
+				try {
+					snapshotSideInputState(checkpointId, timestamp, factory, checkpointOptions, stateFiles, newStateFiles);
+
+					RunnableFuture<OperatorStateHandle> operatorStateFuture =
+						operatorStateBackend.snapshot(checkpointId, timestamp, factory, checkpointOptions);
+					snapshotInProgress.setOperatorStateManagedFuture(stateFiles.isEmpty() ?
+						operatorStateFuture :
+						new SideInputStateFuture(operatorStateFuture, stateFiles, newStateFiles));
+				} catch (Exception e) {
+					// the files of the side inputs are not referenced by any snapshot yet
+					for (DeferredStateFile file : newStateFiles) {
+						try {
+							file.discard();
+						} catch (Exception discardException) {
+							e.addSuppressed(discardException);
+						}
+					}
+					throw e;
+				} finally {
+					// the backend copies the lists in the synchronous part of the snapshot
+					clearSideInputState();
+				}
 			}
 
 			if (null != keyedStateBackend) {
+				CheckpointStreamFactory keyedStateFactory =
+					getContainingTask().createKeyedStateStreamFactory(factory, checkpointId, checkpointOptions);
+
 				snapshotInProgress.setKeyedStateManagedFuture(
-					keyedStateBackend.snapshot(checkpointId, timestamp, factory, checkpointOptions));
+					keyedStateBackend.snapshot(checkpointId, timestamp, keyedStateFactory, checkpointOptions));
 			}
 		} catch (Exception snapshotException) {
 			try {
@@ -530,7 +696,13 @@ public abstract class AbstractStreamOperator<OUT>
 	}
 
 	@Override
-	public void notifyOfCompletedCheckpoint(long checkpointId) throws Exception {}
+	public void notifyOfCompletedCheckpoint(long checkpointId) throws Exception {
+		confirmSideInputFiles(checkpointId);
+
+		if (keyedStateBackend instanceof CheckpointListener) {
+			((CheckpointListener) keyedStateBackend).notifyCheckpointComplete(checkpointId);
+		}
+	}
 
 	/**
 	 * Returns a checkpoint stream factory for the provided options.
@@ -1037,21 +1209,642 @@ public abstract class AbstractStreamOperator<OUT>
 
 	@SuppressWarnings("unchecked")
 	public void processSideInputElement(UUID id, StreamRecord<?> record) throws Exception {
-		((ArrayList)sideInputsCollector.get(id)).add(record.getValue());
+		VersionedSideInput<Object> updatingSideInput = updatingSideInputs.get(id);
+		if (updatingSideInput != null) {
+			updatingSideInput.add(record.getValue());
+			return;
+		}
+
+		if (discardedSideInputs.contains(id)) {
+			// another instance in this TaskManager materializes this side input
+			return;
+		}
+
+		collectSideInputElement(id, record.getValue());
+	}
+
+	@SuppressWarnings("unchecked")
+	private void collectSideInputElement(UUID id, Object element) throws Exception {
+		sideInputsCollector.get(id).add(element);
+
+		KeySelector<Object, ?> keySelector = sideInputKeySelectors.get(id);
+		if (keySelector != null) {
+			Map<Object, List<Object>> index = sideInputIndexes.get(id);
+			Object key = keySelector.getKey(element);
+			List<Object> elements = index.get(key);
+			if (elements == null) {
+				elements = new ArrayList<>(1);
+				index.put(key, elements);
+			}
+			elements.add(element);
+		}
+	}
+
+	/**
+	 * Advances the watermark of an updating side input, which publishes the elements received
+	 * since its last watermark as its new contents.
+	 */
+	public void processSideInputWatermark(UUID id, Watermark mark) throws Exception {
+		VersionedSideInput<Object> updatingSideInput = updatingSideInputs.get(id);
+		if (updatingSideInput != null) {
+			updatingSideInput.advanceWatermark(mark.getTimestamp());
+		}
+	}
+
+	/**
+	 * Called once all side inputs have been consumed, before the buffered main input is processed.
+	 * Publishes the side inputs this instance materializes for the TaskManager and waits for the
+	 * ones materialized by other instances.
+	 */
+	@SuppressWarnings("unchecked")
+	public void sideInputsLoaded() throws Exception {
+		if (sharedSideInputs == null) {
+			return;
+		}
+
+		sideInputsComplete = true;
+
+		// publish first, other instances may wait for us while we wait for them
+		for (Map.Entry<UUID, SharedBroadcastMaterialization<Object>> entry : sharedSideInputs.entrySet()) {
+			if (!discardedSideInputs.contains(entry.getKey())) {
+				final List<Object> sideInput = sideInputsCollector.get(entry.getKey());
+				// the other instances get a view they cannot modify, and the memory is released
+				// once no instance reads the side input any more
+				entry.getValue().publish(this, createPublishedView(sideInput), new Runnable() {
+					@Override
+					public void run() {
+						releaseSideInput(sideInput);
+					}
+				});
+				materializedSideInputs.add(entry.getKey());
+			}
+		}
+		for (UUID id : discardedSideInputs) {
+			List<Object> sharedSideInput = sharedSideInputs.get(id).awaitData();
+			releaseSideInput(sideInputsCollector.get(id));
+			materializedSideInputs.add(id);
+			if (sharedSideInput instanceof SerializedSideInput) {
+				// the serialized elements are read through a view of our own
+				sharedSideInput = ((SerializedSideInput<Object>) sharedSideInput)
+					.createReadView(getExecutionConfig().isObjectReuseEnabled());
+			}
+			sideInputsCollector.put(id, sharedSideInput);
+		}
 	}
 
+	@SuppressWarnings("unchecked")
 	public void bufferMainElement(StreamRecord<?> record) throws Exception {
-		mainInputCollector.add(record);
+		if (mainInputBuffer != null) {
+			mainInputBuffer.add((StreamRecord<Object>) record);
+		} else {
+			mainInputCollector.add(record);
+		}
 	}
 
 	@SuppressWarnings("unchecked")
 	public <T> List<T> getSideInput(UUID id) {
-		ArrayList<?> sideInput = sideInputsCollector.get(id);
+		VersionedSideInput<?> updatingSideInput = updatingSideInputs == null ? null : updatingSideInputs.get(id);
+		if (updatingSideInput != null) {
+			return (List<T>) updatingSideInput.get();
+		}
+
+		List<?> sideInput = sideInputsCollector.get(id);
 		Preconditions.checkNotNull(sideInput, "look up of a not added side input");
 		return (List<T>) sideInput;
 	}
 
+	/**
+	 * Returns the elements of a keyed side input with the given key, or an empty list if there
+	 * are none. The lookup is a hash lookup on an index built while the side input is loaded.
+	 * The returned list cannot be modified, as it is the list of the index.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> List<T> lookupSideInput(UUID id, Object key) {
+		Map<Object, List<Object>> index = sideInputIndexes == null ? null : sideInputIndexes.get(id);
+		Preconditions.checkArgument(index != null, "look up by key of a not keyed side input");
+		List<Object> elements = index.get(key);
+		return elements == null ? Collections.<T>emptyList() : Collections.unmodifiableList((List<T>) elements);
+	}
+
 	public Iterator<StreamRecord<?>> getBufferedElements() throws Exception {
-		return mainInputCollector.iterator();
+		mainInputReplayed = true;
+		if (mainInputBuffer != null) {
+			return mainInputBuffer.replay();
+		} else {
+			return mainInputCollector.iterator();
+		}
+	}
+
+	/**
+	 * Registers the gauges for the number of materialized elements of each side input, grouped by
+	 * the number of the input like the input metrics of the task, and for the buffered main input.
+	 */
+	private void registerSideInputMetrics() {
+		for (final SideInputInformation<?> info : sideInputInfos) {
+			metrics.addGroup("sideInput").addGroup(String.valueOf(info.getTypeId()))
+				.gauge("numElements", new Gauge<Integer>() {
+					@Override
+					public Integer getValue() {
+						VersionedSideInput<?> updatingSideInput = updatingSideInputs.get(info.getId());
+						return updatingSideInput != null ?
+							updatingSideInput.get().size() :
+							sideInputsCollector.get(info.getId()).size();
+					}
+				});
+		}
+
+		metrics.gauge("mainInputBufferSize", new Gauge<Long>() {
+			@Override
+			public Long getValue() {
+				if (mainInputReplayed) {
+					return 0L;
+				}
+				SpillingMainInputBuffer<?> buffer = mainInputBuffer;
+				if (buffer != null) {
+					return buffer.size();
+				}
+				ArrayList<?> collector = mainInputCollector;
+				return collector != null ? (long) collector.size() : 0L;
+			}
+		});
+	}
+
+	/**
+	 * Registers the operator state the side inputs and the buffered main input are checkpointed
+	 * to and, when restoring, loads them from it, so the side inputs need not be read again.
+	 * The state is only filled while a snapshot is taken and does not hold elements otherwise.
+	 *
+	 * <p>Side inputs that have been loaded completely and the managed main input buffer are
+	 * written to files of their own, which the operator state only references. The files of the
+	 * side inputs are reused by later checkpoints, see {@link #snapshotSideInputState}. The
+	 * references are restored together with the operator state, so their files have been written.
+	 */
+	@SuppressWarnings("unchecked")
+	private void initializeSideInputState(boolean restoring) throws Exception {
+		if (sideInputInfos == null) {
+			return;
+		}
+
+		TaskInfo taskInfo = container.getEnvironment().getTaskInfo();
+		sideInputStates = new HashMap<>();
+		pendingSideInputStates = new HashMap<>();
+		sideInputHandleStates = new HashMap<>();
+		sideInputFiles = new HashMap<>();
+		pendingSideInputFiles = new TreeMap<>();
+
+		for (SideInputInformation<?> info : sideInputInfos) {
+			UUID id = info.getId();
+			ListState<Object> state = getSideInputState(SIDE_INPUT_STATE_PREFIX + id, info);
+			sideInputStates.put(id, state);
+
+			if (info.isUpdating()) {
+				ListState<Object> pendingState = getSideInputState(PENDING_SIDE_INPUT_STATE_PREFIX + id, info);
+				pendingSideInputStates.put(id, pendingState);
+				if (restoring) {
+					updatingSideInputs.get(id).restore(toList(state.get()), toList(pendingState.get()));
+				}
+				continue;
+			}
+
+			ListState<DeferredStateFile> handleState = getSideInputState(SIDE_INPUT_HANDLE_STATE_PREFIX + id, info,
+				DeferredStateFile.Serializer.INSTANCE);
+			sideInputHandleStates.put(id, handleState);
+
+			if (restoring && !discardedSideInputs.contains(id)) {
+				// every instance restores all elements of a hash partitioned side input and keeps its own keys
+				KeySelector<Object, ?> partitionKeySelector = (KeySelector<Object, ?>) info.getPartitionKeySelector();
+				int numInlineElements = 0;
+				for (Object element : state.get()) {
+					restoreSideInputElement(id, element, partitionKeySelector, taskInfo);
+					numInlineElements++;
+				}
+
+				List<DeferredStateFile> files = new ArrayList<>();
+				long numElements = 0;
+				for (DeferredStateFile file : handleState.get()) {
+					files.add(file);
+
+					try (FSDataInputStream in = file.getHandle().openInputStream()) {
+						DataInputViewStreamWrapper inView = new DataInputViewStreamWrapper(in);
+						TypeSerializer<?> serializer = info.getSerializer();
+						for (int i = inView.readInt(); i > 0; i--) {
+							restoreSideInputElement(id, serializer.deserialize(inView), partitionKeySelector, taskInfo);
+							numElements++;
+						}
+					}
+				}
+
+				// the files of the other instances of a hash partitioned side input hold other keys
+				if (!files.isEmpty() && numInlineElements == 0 && partitionKeySelector == null) {
+					sideInputFiles.put(id, new SideInputFiles(files, numElements));
+				}
+			}
+		}
+
+		TypeSerializer<Object> mainSerializer = config.getTypeSerializerIn1(getUserCodeClassloader());
+		mainInputState = operatorStateBackend.getListState(
+			new ListStateDescriptor<StreamElement>(MAIN_INPUT_COLLECTOR, new StreamElementSerializer<>(mainSerializer)));
+		mainInputHandleState = operatorStateBackend.getListState(
+			new ListStateDescriptor<>(MAIN_INPUT_HANDLE_STATE, DeferredStateFile.Serializer.INSTANCE));
+		if (restoring) {
+			for (StreamElement element : mainInputState.get()) {
+				bufferMainElement(element.asRecord());
+			}
+			for (DeferredStateFile file : mainInputHandleState.get()) {
+				restoreMainInputBuffer(file.getHandle(), mainSerializer);
+			}
+		}
+
+		clearSideInputState();
+	}
+
+	private ListState<Object> getSideInputState(String name, SideInputInformation<?> info) throws Exception {
+		@SuppressWarnings("unchecked")
+		TypeSerializer<Object> serializer = (TypeSerializer<Object>) info.getSerializer();
+		return getSideInputState(name, info, serializer);
+	}
+
+	private <T> ListState<T> getSideInputState(String name, SideInputInformation<?> info, TypeSerializer<T> serializer) throws Exception {
+		ListStateDescriptor<T> descriptor = new ListStateDescriptor<>(name, serializer);
+
+		// broadcasted side inputs are written once for all instances and hash partitioned ones are
+		// redistributed by key, only the elements of forwarded side inputs can be split arbitrarily
+		if (info.isBroadcast() || info.getPartitionKeySelector() != null) {
+			return operatorStateBackend.getUnionListState(descriptor);
+		} else {
+			return operatorStateBackend.getListState(descriptor);
+		}
+	}
+
+	private void restoreSideInputElement(
+			UUID id,
+			Object element,
+			KeySelector<Object, ?> partitionKeySelector,
+			TaskInfo taskInfo) throws Exception {
+
+		if (partitionKeySelector == null || KeyGroupRangeAssignment.assignKeyToParallelOperator(
+				partitionKeySelector.getKey(element),
+				taskInfo.getMaxNumberOfParallelSubtasks(),
+				taskInfo.getNumberOfParallelSubtasks()) == taskInfo.getIndexOfThisSubtask()) {
+			collectSideInputElement(id, element);
+		}
+	}
+
+	private void restoreMainInputBuffer(StreamStateHandle handle, TypeSerializer<Object> serializer) throws Exception {
+		try (FSDataInputStream in = handle.openInputStream()) {
+			if (mainInputBuffer != null) {
+				mainInputBuffer.restore(in);
+			} else {
+				// the main input is buffered on the heap, so the records are read one by one
+				StreamElementSerializer<Object> elementSerializer = new StreamElementSerializer<>(serializer);
+				DataInputViewStreamWrapper inView = new DataInputViewStreamWrapper(in);
+				for (long i = inView.readLong(); i > 0; i--) {
+					mainInputCollector.add(elementSerializer.deserialize(inView).asRecord());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the side inputs and the main input that is still buffered to their operator state,
+	 * right before the operator state backend takes its snapshot.
+	 *
+	 * <p>A side input that has been loaded completely does not change any more. It is written to
+	 * a file once, which later checkpoints reference as shared state instead of writing the
+	 * elements again. The file is only reused once the checkpoint that wrote it has completed,
+	 * as the file is discarded together with a checkpoint that fails. Savepoints always write
+	 * their own files. The managed main input buffer is copied to a file of the checkpoint from
+	 * its serialized pages.
+	 *
+	 * <p>The files are only written when the operator state backend writes the references to
+	 * them, which happens in the asynchronous part of the snapshot if the backend snapshots
+	 * asynchronously. Here, only what is to be written is captured: the serializer and a view of
+	 * each side input, which does not change once loaded, and a snapshot of the main input
+	 * buffer, which keeps its pages and spill file until it has been written.
+	 *
+	 * @param stateFiles Collects the files the operator state references.
+	 * @param newStateFiles Collects the files that are written for this snapshot.
+	 */
+	private void snapshotSideInputState(
+			long checkpointId,
+			long timestamp,
+			CheckpointStreamFactory factory,
+			CheckpointOptions checkpointOptions,
+			List<DeferredStateFile> stateFiles,
+			List<DeferredStateFile> newStateFiles) throws Exception {
+
+		if (sideInputStates == null) {
+			return;
+		}
+
+		boolean savepoint = checkpointOptions.getCheckpointType() == CheckpointType.SAVEPOINT;
+		boolean writesBroadcast = container.getEnvironment().getTaskInfo().getIndexOfThisSubtask() == 0;
+		for (SideInputInformation<?> info : sideInputInfos) {
+			UUID id = info.getId();
+			if (info.isBroadcast() && !writesBroadcast) {
+				// all instances hold the same elements, the first subtask writes them for everybody
+				continue;
+			}
+
+			if (info.isUpdating()) {
+				VersionedSideInput<Object> updatingSideInput = updatingSideInputs.get(id);
+				addAll(sideInputStates.get(id), updatingSideInput.get());
+				addAll(pendingSideInputStates.get(id), updatingSideInput.getPending());
+				continue;
+			}
+
+			List<Object> elements = sideInputsCollector.get(id);
+			if (!sideInputsComplete) {
+				addAll(sideInputStates.get(id), elements);
+				continue;
+			}
+
+			SideInputFiles files = savepoint ? null : sideInputFiles.get(id);
+			if (files == null || files.numElements != elements.size()) {
+				DeferredStateFile file = createSideInputFile(checkpointId, timestamp, factory, info, elements);
+				newStateFiles.add(file);
+				files = new SideInputFiles(Collections.singletonList(file), elements.size());
+
+				if (!savepoint) {
+					Map<UUID, SideInputFiles> pendingFiles = pendingSideInputFiles.get(checkpointId);
+					if (pendingFiles == null) {
+						pendingFiles = new HashMap<>();
+						pendingSideInputFiles.put(checkpointId, pendingFiles);
+					}
+					pendingFiles.put(id, files);
+				}
+			}
+
+			for (DeferredStateFile file : files.files) {
+				stateFiles.add(file);
+				sideInputHandleStates.get(id).add(file);
+			}
+		}
+
+		if (!mainInputReplayed) {
+			if (mainInputBuffer != null) {
+				if (mainInputBuffer.size() > 0) {
+					DeferredStateFile file = createMainInputFile(checkpointId, timestamp, factory);
+					stateFiles.add(file);
+					newStateFiles.add(file);
+					mainInputHandleState.add(file);
+				}
+			} else {
+				for (StreamRecord<?> record : mainInputCollector) {
+					mainInputState.add(record);
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private DeferredStateFile createSideInputFile(
+			long checkpointId,
+			long timestamp,
+			CheckpointStreamFactory factory,
+			SideInputInformation<?> info,
+			List<?> elements) {
+
+		// the file is written by the thread that writes the operator state
+		final TypeSerializer<Object> serializer = (TypeSerializer<Object>) info.getSerializer().duplicate();
+		final List<?> toWrite = elements instanceof SerializedSideInput ?
+			// with object reuse, the elements of the side input would all be the same instance
+			((SerializedSideInput<Object>) elements).createReadView(false) :
+			elements;
+
+		return new DeferredStateFile(
+			SIDE_INPUT_HANDLE_STATE_PREFIX + info.getId() + '-' + UUID.randomUUID(),
+			new DeferredStateFile.Writer(factory, checkpointId, timestamp) {
+				@Override
+				void write(OutputStream out) throws Exception {
+					DataOutputViewStreamWrapper outView = new DataOutputViewStreamWrapper(out);
+					outView.writeInt(toWrite.size());
+					for (Object element : toWrite) {
+						serializer.serialize(element, outView);
+					}
+				}
+			});
+	}
+
+	private DeferredStateFile createMainInputFile(
+			long checkpointId,
+			long timestamp,
+			CheckpointStreamFactory factory) {
+
+		final SpillingMainInputBuffer<Object>.Snapshot snapshot = mainInputBuffer.snapshot();
+		return new DeferredStateFile(
+			MAIN_INPUT_HANDLE_STATE + '-' + UUID.randomUUID(),
+			new DeferredStateFile.Writer(factory, checkpointId, timestamp) {
+				@Override
+				void write(OutputStream out) throws Exception {
+					snapshot.writeTo(out);
+				}
+
+				@Override
+				void release() {
+					try {
+						snapshot.release();
+					} catch (IOException e) {
+						LOG.warn("Could not release the snapshot of the main input buffer.", e);
+					}
+				}
+			});
+	}
+
+	/**
+	 * Side input files become reusable once the checkpoint that wrote them has completed. The
+	 * files of earlier checkpoints are dropped, those checkpoints may have failed.
+	 */
+	private void confirmSideInputFiles(long checkpointId) {
+		if (pendingSideInputFiles == null) {
+			return;
+		}
+
+		Map<UUID, SideInputFiles> confirmed = pendingSideInputFiles.get(checkpointId);
+		if (confirmed != null) {
+			sideInputFiles.putAll(confirmed);
+		}
+		pendingSideInputFiles.headMap(checkpointId + 1).clear();
+	}
+
+	private void clearSideInputState() {
+		if (sideInputStates == null) {
+			return;
+		}
+
+		for (ListState<Object> state : sideInputStates.values()) {
+			state.clear();
+		}
+		for (ListState<Object> state : pendingSideInputStates.values()) {
+			state.clear();
+		}
+		for (ListState<DeferredStateFile> state : sideInputHandleStates.values()) {
+			state.clear();
+		}
+		mainInputState.clear();
+		mainInputHandleState.clear();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void addAll(ListState<Object> state, List<?> elements) throws Exception {
+		if (elements instanceof SerializedSideInput) {
+			// with object reuse, the elements of the side input would all be the same instance
+			elements = ((SerializedSideInput<Object>) elements).createReadView(false);
+		}
+		for (Object element : elements) {
+			state.add(element);
+		}
+	}
+
+	private static List<Object> toList(Iterable<Object> elements) {
+		List<Object> list = new ArrayList<>();
+		for (Object element : elements) {
+			list.add(element);
+		}
+		return list;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Object> createSideInputCollector(SideInputInformation<?> info, boolean serialized) {
+		// keyed side inputs are looked up through an index of the deserialized elements
+		if (serialized && info.getKeySelector() == null) {
+			return new SerializedSideInput<>(
+				(TypeSerializer<Object>) info.getSerializer().duplicate(),
+				container.getEnvironment().getMemoryManager(),
+				this,
+				getExecutionConfig().isObjectReuseEnabled());
+		} else {
+			return new ArrayList<>();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object> createPublishedView(List<Object> sideInput) {
+		if (sideInput instanceof SerializedSideInput) {
+			// the instances read the elements through views of their own, see sideInputsLoaded()
+			return ((SerializedSideInput<Object>) sideInput).createReadView(false);
+		} else {
+			return Collections.unmodifiableList(sideInput);
+		}
+	}
+
+	private static void releaseSideInput(List<Object> sideInput) {
+		if (sideInput instanceof SerializedSideInput) {
+			((SerializedSideInput<Object>) sideInput).release();
+		}
+	}
+
+	private BroadcastVariableKey getSharedSideInputKey(UUID id) {
+		// the vertex ids of a resubmitted job graph may equal those of a job still running here
+		Environment environment = container.getEnvironment();
+		return new BroadcastVariableKey(environment.getJobID(), environment.getJobVertexId(), id.toString(), 1);
+	}
+
+	private void setupMainInputBuffer(int numPages) {
+		if (numPages > 0) {
+			Environment environment = container.getEnvironment();
+			TypeSerializer<Object> serializer = config.getTypeSerializerIn1(getUserCodeClassloader());
+			mainInputBuffer = new SpillingMainInputBuffer<>(
+				serializer,
+				environment.getMemoryManager(),
+				environment.getIOManager(),
+				this,
+				Math.max(numPages, SpillingMainInputBuffer.MIN_NUM_PAGES),
+				getExecutionConfig().isObjectReuseEnabled());
+		} else {
+			mainInputCollector = new ArrayList<>();
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The files a completely loaded side input was written to, and the number of its elements.
+	 */
+	private static final class SideInputFiles {
+
+		private final List<DeferredStateFile> files;
+
+		private final long numElements;
+
+		SideInputFiles(List<DeferredStateFile> files, long numElements) {
+			this.files = files;
+			this.numElements = numElements;
+		}
+	}
+
+	/**
+	 * Attaches the side input files to the snapshot of the operator state backend, which writes
+	 * the new files together with the operator state. If the snapshot is cancelled or fails, the
+	 * files written for it are discarded.
+	 */
+	private static final class SideInputStateFuture extends FutureTask<OperatorStateHandle> {
+
+		private final RunnableFuture<OperatorStateHandle> backendFuture;
+
+		private final List<DeferredStateFile> newStateFiles;
+
+		SideInputStateFuture(
+				final RunnableFuture<OperatorStateHandle> backendFuture,
+				final List<DeferredStateFile> stateFiles,
+				final List<DeferredStateFile> newStateFiles) {
+
+			super(new Callable<OperatorStateHandle>() {
+				@Override
+				public OperatorStateHandle call() throws Exception {
+					OperatorStateHandle handle = FutureUtil.runIfNotDoneAndGet(backendFuture);
+					Preconditions.checkState(handle != null, "The operator state does not reference the side input files.");
+
+					Map<String, SharedStreamStateHandle> sharedState = new HashMap<>();
+					for (DeferredStateFile file : stateFiles) {
+						sharedState.put(file.getRegistrationKey(), file.getHandle());
+					}
+					Set<String> newSharedState = new HashSet<>();
+					for (DeferredStateFile file : newStateFiles) {
+						newSharedState.add(file.getRegistrationKey());
+					}
+
+					return new IncrementalOperatorStateHandle(
+						handle.getStateNameToPartitionOffsets(),
+						handle.getDelegateStateHandle(),
+						sharedState,
+						newSharedState);
+				}
+			});
+
+			this.backendFuture = backendFuture;
+			this.newStateFiles = newStateFiles;
+		}
+
+		@Override
+		protected void setException(Throwable t) {
+			discardNewStateFiles();
+			super.setException(t);
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled) {
+				try {
+					StateUtil.discardStateFuture(backendFuture);
+				} catch (Exception e) {
+					LOG.warn("Could not discard the operator state snapshot.", e);
+				}
+				discardNewStateFiles();
+			}
+			return cancelled;
+		}
+
+		private void discardNewStateFiles() {
+			for (DeferredStateFile file : newStateFiles) {
+				try {
+					file.discard();
+				} catch (Exception e) {
+					LOG.warn("Could not discard the side input file {} of a cancelled snapshot.",
+						file.getRegistrationKey(), e);
+				}
+			}
+		}
 	}
 }
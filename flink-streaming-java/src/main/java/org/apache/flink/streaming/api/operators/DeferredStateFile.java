@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import eu.proteus.flink.annotaton.Proteus;
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.typeutils.base.TypeSerializerSingleton;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.SharedStreamStateHandle;
+import org.apache.flink.util.InstantiationUtil;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * A file of an operator snapshot that the operator state references, but that is only written
+ * when the operator state itself is written. With asynchronous snapshots, this happens in the
+ * asynchronous part of the snapshot, so the synchronous part only captures what is to be written.
+ *
+ * <p>The reference is put into a list state with the {@link Serializer}, which writes the file
+ * the first time the reference is serialized. A restored reference holds the handle of the file.
+ */
+@Internal
+@Proteus
+final class DeferredStateFile {
+
+	private final String registrationKey;
+
+	/** Writes the file, null once the file has been written or discarded. */
+	private Writer writer;
+
+	private SharedStreamStateHandle handle;
+
+	/**
+	 * Creates a reference to a file that is yet to be written by the given writer.
+	 */
+	DeferredStateFile(String registrationKey, Writer writer) {
+		this.registrationKey = checkNotNull(registrationKey);
+		this.writer = checkNotNull(writer);
+	}
+
+	/**
+	 * Creates a reference to a file that has already been written.
+	 */
+	DeferredStateFile(SharedStreamStateHandle handle) {
+		this.registrationKey = handle.getRegistrationKey();
+		this.handle = handle;
+	}
+
+	String getRegistrationKey() {
+		return registrationKey;
+	}
+
+	/**
+	 * Returns the handle to the file, writing the file first if that has not happened yet.
+	 */
+	synchronized SharedStreamStateHandle getHandle() throws Exception {
+		if (handle == null) {
+			checkState(writer != null, "The file has been discarded before it was written.");
+
+			Writer toWrite = writer;
+			writer = null;
+
+			CheckpointStreamFactory.CheckpointStateOutputStream out = toWrite.createOutputStream();
+			try {
+				toWrite.write(out);
+				handle = new SharedStreamStateHandle(registrationKey, out.closeAndGetHandle());
+			} catch (Exception e) {
+				// closing before the handle was created deletes the file
+				IOUtils.closeQuietly(out);
+				throw e;
+			} finally {
+				toWrite.release();
+			}
+		}
+		return handle;
+	}
+
+	/**
+	 * Deletes the file if it has been written, otherwise releases what it would have been
+	 * written from.
+	 */
+	synchronized void discard() throws Exception {
+		if (writer != null) {
+			writer.release();
+			writer = null;
+		} else if (handle != null) {
+			handle.discardState();
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Writes the contents of a {@link DeferredStateFile}.
+	 */
+	abstract static class Writer {
+
+		private final CheckpointStreamFactory factory;
+
+		private final long checkpointId;
+
+		private final long timestamp;
+
+		Writer(CheckpointStreamFactory factory, long checkpointId, long timestamp) {
+			this.factory = checkNotNull(factory);
+			this.checkpointId = checkpointId;
+			this.timestamp = timestamp;
+		}
+
+		CheckpointStreamFactory.CheckpointStateOutputStream createOutputStream() throws Exception {
+			return factory.createCheckpointStateOutputStream(checkpointId, timestamp);
+		}
+
+		/**
+		 * Writes the contents of the file to the given stream.
+		 */
+		abstract void write(OutputStream out) throws Exception;
+
+		/**
+		 * Releases the resources the file is written from. Called once, after the file has been
+		 * written or when it is discarded without being written.
+		 */
+		void release() {}
+	}
+
+	/**
+	 * Serializes a reference to a {@link DeferredStateFile} as the Java serialized handle of the
+	 * file, which is written first if necessary. Copies share the file, so it is written once.
+	 */
+	@Internal
+	static final class Serializer extends TypeSerializerSingleton<DeferredStateFile> {
+
+		private static final long serialVersionUID = 1L;
+
+		static final Serializer INSTANCE = new Serializer();
+
+		@Override
+		public boolean isImmutableType() {
+			return false;
+		}
+
+		@Override
+		public DeferredStateFile createInstance() {
+			return null;
+		}
+
+		@Override
+		public DeferredStateFile copy(DeferredStateFile from) {
+			return from;
+		}
+
+		@Override
+		public DeferredStateFile copy(DeferredStateFile from, DeferredStateFile reuse) {
+			return from;
+		}
+
+		@Override
+		public int getLength() {
+			return -1;
+		}
+
+		@Override
+		public void serialize(DeferredStateFile record, DataOutputView target) throws IOException {
+			byte[] serializedHandle;
+			try {
+				serializedHandle = InstantiationUtil.serializeObject(record.getHandle());
+			} catch (IOException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IOException("Could not write the file " + record.getRegistrationKey() + '.', e);
+			}
+
+			target.writeInt(serializedHandle.length);
+			target.write(serializedHandle);
+		}
+
+		@Override
+		public DeferredStateFile deserialize(DataInputView source) throws IOException {
+			byte[] serializedHandle = new byte[source.readInt()];
+			source.readFully(serializedHandle);
+
+			try {
+				SharedStreamStateHandle handle = InstantiationUtil.deserializeObject(
+					serializedHandle, Thread.currentThread().getContextClassLoader());
+				return new DeferredStateFile(handle);
+			} catch (ClassNotFoundException e) {
+				throw new IOException("Could not read the handle of a file.", e);
+			}
+		}
+
+		@Override
+		public DeferredStateFile deserialize(DeferredStateFile reuse, DataInputView source) throws IOException {
+			return deserialize(source);
+		}
+
+		@Override
+		public void copy(DataInputView source, DataOutputView target) throws IOException {
+			int length = source.readInt();
+			target.writeInt(length);
+			target.write(source, length);
+		}
+
+		@Override
+		public boolean canEqual(Object obj) {
+			return obj instanceof Serializer;
+		}
+
+		private Object readResolve() {
+			return INSTANCE;
+		}
+	}
+}
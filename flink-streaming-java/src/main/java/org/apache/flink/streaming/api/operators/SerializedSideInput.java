@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import eu.proteus.flink.annotaton.Proteus;
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentSource;
+import org.apache.flink.runtime.io.disk.RandomAccessInputView;
+import org.apache.flink.runtime.io.disk.SimpleCollectingOutputView;
+import org.apache.flink.runtime.memory.MemoryAllocationException;
+import org.apache.flink.runtime.memory.MemoryManager;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * A side input that keeps its elements in serialized form in managed memory, instead of as
+ * objects on the heap.
+ *
+ * <p>The elements are serialized back to back into pages taken from the {@link MemoryManager},
+ * with the start offset of every element kept in an array. The list is a view that deserializes
+ * an element on every access, so the heap only holds the elements currently used by the user
+ * function. With object reuse, all accesses return the same instance.
+ *
+ * <p>The list is not thread-safe. Other threads must read the elements through their own view,
+ * see {@link #createReadView(boolean)}. The pages belong to the owner given to the constructor
+ * and are returned to the memory manager by {@link #release()}, after which neither the list nor
+ * its views can be read any more.
+ *
+ * @param <T> The type of the side input elements.
+ */
+@Internal
+@Proteus
+public class SerializedSideInput<T> extends AbstractList<T> implements RandomAccess {
+
+	private final TypeSerializer<T> serializer;
+
+	private final MemoryManager memoryManager;
+
+	/** The owner of the pages, null for read views. */
+	private final Object owner;
+
+	private final ArrayList<MemorySegment> segments;
+
+	private final int segmentSize;
+
+	private final boolean objectReuse;
+
+	/** Whether elements can be added, false for read views. */
+	private final boolean writable;
+
+	/** The start offset of each element. */
+	private long[] offsets;
+
+	private int size;
+
+	/** The number of bytes used in the last segment, fixed for read views. */
+	private int limitInLastSegment;
+
+	/** Writes the elements into the segments, created with the first element. */
+	private SimpleCollectingOutputView output;
+
+	/** Reads the elements from the segments, invalidated when elements are added. */
+	private RandomAccessInputView input;
+
+	private T reuse;
+
+	private boolean released;
+
+	public SerializedSideInput(TypeSerializer<T> serializer, MemoryManager memoryManager, Object owner, boolean objectReuse) {
+		this.serializer = checkNotNull(serializer);
+		this.memoryManager = checkNotNull(memoryManager);
+		this.owner = checkNotNull(owner);
+		this.segments = new ArrayList<>();
+		this.segmentSize = memoryManager.getPageSize();
+		this.objectReuse = objectReuse;
+		this.writable = true;
+		this.offsets = new long[16];
+	}
+
+	private SerializedSideInput(SerializedSideInput<T> source, boolean objectReuse) {
+		this.serializer = source.serializer.duplicate();
+		this.memoryManager = source.memoryManager;
+		this.owner = null;
+		this.segments = new ArrayList<>(source.segments);
+		this.segmentSize = source.segmentSize;
+		this.objectReuse = objectReuse;
+		this.writable = false;
+		this.offsets = source.offsets;
+		this.size = source.size;
+		this.limitInLastSegment = source.getLimitInLastSegment();
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public boolean add(T element) {
+		if (!writable) {
+			throw new UnsupportedOperationException("Cannot add elements to a read view.");
+		}
+		checkState(!released, "The side input has been released.");
+
+		if (output == null) {
+			output = new SimpleCollectingOutputView(segments, new ManagedSegmentSource(), segmentSize);
+		}
+		if (size == offsets.length) {
+			offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+		}
+
+		offsets[size] = output.getCurrentOffset();
+		try {
+			serializer.serialize(element, output);
+		} catch (EOFException e) {
+			throw new RuntimeException("Not enough managed memory for the side input, " + size + " elements fit.", e);
+		} catch (IOException e) {
+			throw new RuntimeException("Could not serialize the side input element " + element + '.', e);
+		}
+		size++;
+		input = null;
+		return true;
+	}
+
+	@Override
+	public T get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		checkState(!released, "The side input has been released.");
+
+		if (input == null) {
+			input = new RandomAccessInputView(segments, segmentSize, getLimitInLastSegment());
+		}
+		input.setReadPosition(offsets[index]);
+
+		try {
+			if (objectReuse) {
+				if (reuse == null) {
+					reuse = serializer.createInstance();
+				}
+				reuse = serializer.deserialize(reuse, input);
+				return reuse;
+			} else {
+				return serializer.deserialize(input);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Could not deserialize the side input element at index " + index + '.', e);
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of bytes of memory held by this side input.
+	 */
+	public long getMemorySize() {
+		return (long) segments.size() * segmentSize;
+	}
+
+	/**
+	 * Creates a read-only view on the elements added so far, which can be used by another thread.
+	 * The view shares the memory with this list.
+	 */
+	public SerializedSideInput<T> createReadView(boolean objectReuse) {
+		checkState(!released, "The side input has been released.");
+		return new SerializedSideInput<>(this, objectReuse);
+	}
+
+	/**
+	 * Returns the pages of this side input to the memory manager. The views created from this
+	 * list must not be read afterwards. This method is idempotent.
+	 */
+	public void release() {
+		if (!writable) {
+			throw new UnsupportedOperationException("A read view does not own the memory of the side input.");
+		}
+
+		if (!released) {
+			released = true;
+			output = null;
+			input = null;
+			memoryManager.release(segments);
+		}
+	}
+
+	private int getLimitInLastSegment() {
+		if (!writable || output == null) {
+			return limitInLastSegment;
+		}
+		return (int) (output.getCurrentOffset() - (long) (segments.size() - 1) * segmentSize);
+	}
+
+	// ------------------------------------------------------------------------
+
+	private final class ManagedSegmentSource implements MemorySegmentSource {
+
+		@Override
+		public MemorySegment nextSegment() {
+			try {
+				return memoryManager.allocatePages(owner, 1).get(0);
+			} catch (MemoryAllocationException e) {
+				// the output view fails with an EOFException
+				return null;
+			}
+		}
+	}
+}
@@ -23,6 +23,7 @@ import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.streaming.api.graph.StreamConfig;
+import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.runtime.tasks.OperatorStateHandles;
 import org.apache.flink.streaming.runtime.tasks.StreamTask;
@@ -156,6 +157,10 @@ public interface StreamOperator<OUT> extends Serializable {
 
 	void processSideInputElement(UUID id, StreamRecord<?> record) throws Exception;
 
+	void processSideInputWatermark(UUID id, Watermark mark) throws Exception;
+
+	void sideInputsLoaded() throws Exception;
+
 	void bufferMainElement(StreamRecord<?> record) throws Exception;
 
 	Iterator<StreamRecord<?>> getBufferedElements() throws Exception;
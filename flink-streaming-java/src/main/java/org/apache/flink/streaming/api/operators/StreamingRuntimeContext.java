@@ -116,6 +116,11 @@ public class StreamingRuntimeContext extends AbstractRuntimeUDFContext {
 		return operator.getSideInput(handle.id());
 	}
 
+	@Override
+	public <T> List<T> lookupSideInput(SideInput<T> handle, Object key) {
+		return operator.lookupSideInput(handle.id(), key);
+	}
+
 
 	// ------------------------------------------------------------------------
 	//  key/value state
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import eu.proteus.flink.annotaton.Proteus;
+import org.apache.flink.annotation.Internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The contents of an updating side input, double-buffered in versions.
+ *
+ * <p>Elements are added to a pending buffer, which is not visible to readers. When the watermark
+ * of the side input advances, the pending buffer becomes the new immutable version and a new
+ * pending buffer is started. Readers only see complete versions and never need to lock, since the
+ * current version is published through a volatile reference.
+ *
+ * @param <T> The type of the side input elements.
+ */
+@Internal
+@Proteus
+public class VersionedSideInput<T> {
+
+	private volatile List<T> current = Collections.emptyList();
+
+	private volatile long version;
+
+	private ArrayList<T> pending = new ArrayList<>();
+
+	private long watermark = Long.MIN_VALUE;
+
+	/**
+	 * Adds an element to the next version.
+	 */
+	public void add(T element) {
+		pending.add(element);
+	}
+
+	/**
+	 * Publishes the elements added since the last version as the new version, if the watermark
+	 * advanced and there are any.
+	 *
+	 * @return True, if a new version has been published.
+	 */
+	public boolean advanceWatermark(long newWatermark) {
+		if (newWatermark <= watermark) {
+			return false;
+		}
+		watermark = newWatermark;
+
+		if (pending.isEmpty()) {
+			return false;
+		}
+
+		current = Collections.unmodifiableList(pending);
+		version++;
+		pending = new ArrayList<>();
+		return true;
+	}
+
+	/**
+	 * Returns the current version of the contents, which is never modified.
+	 */
+	public List<T> get() {
+		return current;
+	}
+
+	/**
+	 * Returns the number of versions published so far.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the elements added since the last version was published.
+	 */
+	public List<T> getPending() {
+		return pending;
+	}
+
+	/**
+	 * Restores the current version and the pending elements, for example from a checkpoint.
+	 */
+	public void restore(List<T> restoredCurrent, List<T> restoredPending) {
+		if (!restoredCurrent.isEmpty()) {
+			current = Collections.unmodifiableList(new ArrayList<>(restoredCurrent));
+			version++;
+		}
+		pending.addAll(restoredPending);
+	}
+}
@@ -27,6 +27,7 @@ import org.apache.flink.streaming.api.operators.ChainingStrategy;
 import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.UUID;
 
@@ -51,6 +52,10 @@ public class OneInputTransformation<IN, OUT> extends StreamTransformation<OUT> {
 
 	private final HashMap<UUID, StreamTransformation<?>> sideInputs;
 
+	private final HashMap<UUID, KeySelector<?, ?>> sideInputKeySelectors;
+
+	private final HashSet<UUID> updatingSideInputs;
+
 	/**
 	 * Creates a new {@code OneInputTransformation} from the given input and operator.
 	 *
@@ -70,6 +75,8 @@ public class OneInputTransformation<IN, OUT> extends StreamTransformation<OUT> {
 		this.input = input;
 		this.operator = operator;
 		this.sideInputs = new HashMap<>();
+		this.sideInputKeySelectors = new HashMap<>();
+		this.updatingSideInputs = new HashSet<>();
 	}
 
 	/**
@@ -143,13 +150,27 @@ public class OneInputTransformation<IN, OUT> extends StreamTransformation<OUT> {
 
 	@Override
 	public <R> void registerSideInput(UUID id, StreamTransformation<R> transformation) {
+		registerSideInput(id, transformation, null);
+	}
+
+	@Override
+	public <R> void registerSideInput(UUID id, StreamTransformation<R> transformation, KeySelector<R, ?> keySelector) {
 		if (!sideInputs.containsKey(id)) {
 			sideInputs.put(id, transformation);
+			if (keySelector != null) {
+				sideInputKeySelectors.put(id, keySelector);
+			}
 		} else {
 			throw new RuntimeException("cannot add an already added side input");
 		}
 	}
 
+	@Override
+	public <R> void registerUpdatingSideInput(UUID id, StreamTransformation<R> transformation) {
+		registerSideInput(id, transformation, null);
+		updatingSideInputs.add(id);
+	}
+
 	public boolean hasSideInputs() {
 		return sideInputs.size() > 0;
 	}
@@ -157,4 +178,19 @@ public class OneInputTransformation<IN, OUT> extends StreamTransformation<OUT> {
 	public Map<UUID, StreamTransformation<?>> getSideInputs() {
 		return Collections.unmodifiableMap(sideInputs);
 	}
+
+	/**
+	 * Returns the selector of the key the given side input can be looked up by, or null if the
+	 * side input is not keyed.
+	 */
+	public KeySelector<?, ?> getSideInputKeySelector(UUID id) {
+		return sideInputKeySelectors.get(id);
+	}
+
+	/**
+	 * Returns whether the given side input is unbounded and updated at watermark boundaries.
+	 */
+	public boolean isUpdatingSideInput(UUID id) {
+		return updatingSideInputs.contains(id);
+	}
 }
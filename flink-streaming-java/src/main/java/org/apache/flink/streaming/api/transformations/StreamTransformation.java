@@ -26,6 +26,7 @@ import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.functions.InvalidTypesException;
 import org.apache.flink.api.common.operators.ResourceSpec;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.api.java.typeutils.MissingTypeInfo;
 import org.apache.flink.streaming.api.graph.StreamGraph;
 import org.apache.flink.streaming.api.graph.StreamGraphGenerator;
@@ -474,4 +475,14 @@ public abstract class StreamTransformation<T> {
 		throw new UnsupportedOperationException();
 	}
 
+	@Proteus
+	public <R> void registerSideInput(UUID id, StreamTransformation<R> transformation, KeySelector<R, ?> keySelector) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Proteus
+	public <R> void registerUpdatingSideInput(UUID id, StreamTransformation<R> transformation) {
+		throw new UnsupportedOperationException();
+	}
+
 }
@@ -19,6 +19,7 @@ package org.apache.flink.streaming.api.transformations.utils;
 
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.functions.KeySelector;
 
 import java.io.Serializable;
 import java.util.UUID;
@@ -28,12 +29,31 @@ public class SideInputInformation <TYPE> implements Serializable {
 	private final UUID id;
 	private final int typeId;
 	private final TypeInformation<TYPE> typeInfo;
+	private final KeySelector<TYPE, ?> keySelector;
+	private final boolean broadcast;
+	private final boolean updating;
+	private final KeySelector<TYPE, ?> partitionKeySelector;
 	private TypeSerializer<TYPE> serializer;
 
 	public SideInputInformation(UUID id, int typeId, TypeInformation<TYPE> typeInfo) {
+		this(id, typeId, typeInfo, null, false, false, null);
+	}
+
+	public SideInputInformation(
+			UUID id,
+			int typeId,
+			TypeInformation<TYPE> typeInfo,
+			KeySelector<TYPE, ?> keySelector,
+			boolean broadcast,
+			boolean updating,
+			KeySelector<TYPE, ?> partitionKeySelector) {
 		this.id = id;
 		this.typeId = typeId;
 		this.typeInfo = typeInfo;
+		this.keySelector = keySelector;
+		this.broadcast = broadcast;
+		this.updating = updating;
+		this.partitionKeySelector = partitionKeySelector;
 	}
 
 	@Override
@@ -55,6 +75,13 @@ public class SideInputInformation <TYPE> implements Serializable {
 		return id;
 	}
 
+	/**
+	 * Returns the number of the input the side input is read from.
+	 */
+	public int getTypeId() {
+		return typeId;
+	}
+
 	@Override
 	public int hashCode() {
 		return this.id.hashCode();
@@ -72,4 +99,35 @@ public class SideInputInformation <TYPE> implements Serializable {
 	public TypeSerializer<TYPE> getSerializer() {
 		return serializer;
 	}
+
+	/**
+	 * Returns the selector of the key the side input can be looked up by, or null if the side
+	 * input is not keyed.
+	 */
+	public KeySelector<TYPE, ?> getKeySelector() {
+		return keySelector;
+	}
+
+	/**
+	 * Returns whether every parallel instance receives all elements of the side input.
+	 */
+	public boolean isBroadcast() {
+		return broadcast;
+	}
+
+	/**
+	 * Returns whether the side input is unbounded and its visible contents are replaced at
+	 * watermark boundaries, instead of being read completely before the main input.
+	 */
+	public boolean isUpdating() {
+		return updating;
+	}
+
+	/**
+	 * Returns the selector of the key the side input is hash partitioned by, or null if the side
+	 * input is not hash partitioned.
+	 */
+	public KeySelector<TYPE, ?> getPartitionKeySelector() {
+		return partitionKeySelector;
+	}
 }
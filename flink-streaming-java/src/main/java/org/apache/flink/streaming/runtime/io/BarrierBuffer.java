@@ -22,6 +22,7 @@ import static org.apache.flink.util.Preconditions.checkArgument;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.checkpoint.CheckpointMetaData;
 import org.apache.flink.runtime.checkpoint.CheckpointMetrics;
 import org.apache.flink.runtime.checkpoint.decline.AlignmentLimitExceededException;
@@ -29,13 +30,17 @@ import org.apache.flink.runtime.checkpoint.decline.CheckpointDeclineException;
 import org.apache.flink.runtime.checkpoint.decline.CheckpointDeclineOnCancellationBarrierException;
 import org.apache.flink.runtime.checkpoint.decline.CheckpointDeclineSubsumedException;
 import org.apache.flink.runtime.checkpoint.decline.InputEndOfStreamException;
+import org.apache.flink.runtime.concurrent.Future;
+import org.apache.flink.runtime.concurrent.impl.FlinkCompletableFuture;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.network.api.CancelCheckpointMarker;
 import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
+import org.apache.flink.runtime.io.network.partition.consumer.UnionInputGate;
 import org.apache.flink.runtime.jobgraph.tasks.StatefulTask;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -154,17 +159,48 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 
 	@Override
 	public BufferOrEvent getNextNonBlocked() throws Exception {
+		return getNext(true);
+	}
+
+	@Override
+	public BufferOrEvent pollNext() throws Exception {
+		return getNext(false);
+	}
+
+	@Override
+	public Future<Void> getAvailableFuture() {
+		if (currentBuffered != null || endOfStream) {
+			return FlinkCompletableFuture.completed(null);
+		}
+		return inputGate.getAvailableFuture();
+	}
+
+	@Override
+	public boolean isFinished() {
+		return endOfStream && currentBuffered == null;
+	}
+
+	private BufferOrEvent getNext(boolean blocking) throws Exception {
 		while (true) {
 			// process buffered BufferOrEvents before grabbing new ones
 			BufferOrEvent next;
 			if (currentBuffered == null) {
-				next = inputGate.getNextBufferOrEvent();
+				if (blocking) {
+					next = inputGate.getNextBufferOrEvent();
+				}
+				else {
+					next = inputGate.pollNextBufferOrEvent();
+					if (next == null && !inputGate.isFinished()) {
+						// nothing available right now, the stream is not finished yet
+						return null;
+					}
+				}
 			}
 			else {
 				next = currentBuffered.getNext();
 				if (next == null) {
 					completeBufferedSequence();
-					return getNextNonBlocked();
+					return getNext(blocking);
 				}
 			}
 
@@ -174,7 +210,7 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 					bufferSpiller.add(next);
 					checkSizeLimit();
 				}
-				else if (next.isBuffer()) {
+				else if (next.isBuffer() || next.isRecords()) {
 					return next;
 				}
 				else if (next.getEvent().getClass() == CheckpointBarrier.class) {
@@ -197,7 +233,7 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 				// end of input stream. stream continues with the buffered data
 				endOfStream = true;
 				releaseBlocksAndResetBarriers();
-				return getNextNonBlocked();
+				return getNext(blocking);
 			}
 			else {
 				// final end of both input and buffered data
@@ -403,6 +439,16 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 		}
 	}
 
+	/**
+	 * Sets the serializers of the records which were handed over as objects, per channel. Records
+	 * of blocked channels are spilled with them and count towards the alignment limit.
+	 *
+	 * @param recordSerializers The serializers of the records, indexed by channel.
+	 */
+	public void setRecordSerializers(TypeSerializer<StreamElement>[] recordSerializers) {
+		bufferSpiller.setRecordSerializers(recordSerializers);
+	}
+
 	@Override
 	public void registerCheckpointEventHandler(StatefulTask toNotifyOnCheckpoint) {
 		if (this.toNotifyOnCheckpoint == null) {
@@ -435,6 +481,12 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 		currentCheckpointId = checkpointId;
 		onBarrier(channelIndex);
 
+		// the alignment needs the barriers of all channels, which cannot arrive on gates that are
+		// not read from; the gates are suspended again once the alignment is over
+		if (inputGate instanceof UnionInputGate) {
+			((UnionInputGate) inputGate).overrideSuspendedInputGates();
+		}
+
 		startOfAlignmentTimestamp = System.nanoTime();
 
 		if (LOG.isDebugEnabled()) {
@@ -483,6 +535,10 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 			blockedChannels[i] = false;
 		}
 
+		if (inputGate instanceof UnionInputGate) {
+			((UnionInputGate) inputGate).restoreSuspendedInputGates();
+		}
+
 		if (currentBuffered == null) {
 			// common case: no more buffered data
 			currentBuffered = bufferSpiller.rollOver();
@@ -24,6 +24,7 @@ import org.apache.flink.runtime.checkpoint.CheckpointMetaData;
 import org.apache.flink.runtime.checkpoint.CheckpointMetrics;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.checkpoint.decline.CheckpointDeclineOnCancellationBarrierException;
+import org.apache.flink.runtime.concurrent.Future;
 import org.apache.flink.runtime.io.network.api.CancelCheckpointMarker;
 import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
@@ -87,10 +88,29 @@ public class BarrierTracker implements CheckpointBarrierHandler {
 
 	@Override
 	public BufferOrEvent getNextNonBlocked() throws Exception {
+		return getNext(true);
+	}
+
+	@Override
+	public BufferOrEvent pollNext() throws Exception {
+		return getNext(false);
+	}
+
+	@Override
+	public Future<Void> getAvailableFuture() {
+		return inputGate.getAvailableFuture();
+	}
+
+	@Override
+	public boolean isFinished() {
+		return inputGate.isFinished();
+	}
+
+	private BufferOrEvent getNext(boolean blocking) throws Exception {
 		while (true) {
-			BufferOrEvent next = inputGate.getNextBufferOrEvent();
-			if (next == null || next.isBuffer()) {
-				// buffer or input exhausted
+			BufferOrEvent next = blocking ? inputGate.getNextBufferOrEvent() : inputGate.pollNextBufferOrEvent();
+			if (next == null || next.isBuffer() || next.isRecords()) {
+				// buffer, records or input exhausted
 				return next;
 			}
 			else if (next.getEvent().getClass() == CheckpointBarrier.class) {
@@ -23,10 +23,13 @@ import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.event.AbstractEvent;
@@ -35,6 +38,9 @@ import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
+import org.apache.flink.runtime.util.DataInputDeserializer;
+import org.apache.flink.runtime.util.DataOutputSerializer;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
 import org.apache.flink.util.StringUtils;
 
 /**
@@ -46,12 +52,24 @@ import org.apache.flink.util.StringUtils;
  * disk. Most data is written and re-read milliseconds later. The file is deleted after the read.
  * Consequently, in most cases, the data will never actually hit the physical disks.</p>
  *
+ * <p>Records which were handed over as objects by a local producer are serialized into the spill
+ * file with the serializers of their channels, see {@link #setRecordSerializers(TypeSerializer[])}.</p>
+ *
  * <p>IMPORTANT: The SpilledBufferOrEventSequences created by this spiller all reuse the same
  * reading memory (to reduce overhead) and can consequently not be read concurrently.</p>
  */
 @Internal
 public class BufferSpiller {
 
+	/** Type of a spilled buffer in the header. */
+	static final byte BUFFER = 0;
+
+	/** Type of a spilled event in the header. */
+	static final byte EVENT = 1;
+
+	/** Type of spilled records in the header, see {@link BufferOrEvent#isRecords()}. */
+	static final byte RECORDS = 2;
+
 	/** Size of header in bytes (see add method). */
 	static final int HEADER_SIZE = 9;
 
@@ -76,6 +94,12 @@ public class BufferSpiller {
 	/** The reusable array that holds header and contents buffers. */
 	private final ByteBuffer[] sources;
 
+	/** The reusable output that the spilled records are serialized into. */
+	private final DataOutputSerializer recordsOutput;
+
+	/** The serializers of the spilled records per channel, <tt>null</tt> if records cannot be spilled. */
+	private TypeSerializer<StreamElement>[] recordSerializers;
+
 	/** The file that we currently spill to. */
 	private File currentSpillFile;
 
@@ -109,6 +133,8 @@ public class BufferSpiller {
 
 		this.sources = new ByteBuffer[] { this.headBuffer, null };
 
+		this.recordsOutput = new DataOutputSerializer(pageSize);
+
 		File[] tempDirs = ioManager.getSpillingDirectories();
 		this.tempDir = tempDirs[DIRECTORY_INDEX.getAndIncrement() % tempDirs.length];
 
@@ -120,6 +146,16 @@ public class BufferSpiller {
 		createSpillingChannel();
 	}
 
+	/**
+	 * Sets the serializers of the records which were handed over as objects, per channel, so that
+	 * they can be spilled like buffers.
+	 *
+	 * @param recordSerializers The serializers of the records, indexed by channel.
+	 */
+	public void setRecordSerializers(TypeSerializer<StreamElement>[] recordSerializers) {
+		this.recordSerializers = recordSerializers;
+	}
+
 	/**
 	 * Adds a buffer or event to the sequence of spilled buffers and events.
 	 *
@@ -129,18 +165,25 @@ public class BufferSpiller {
 	public void add(BufferOrEvent boe) throws IOException {
 		try {
 			ByteBuffer contents;
+			byte type;
 			if (boe.isBuffer()) {
 				Buffer buf = boe.getBuffer();
 				contents = buf.getMemorySegment().wrap(0, buf.getSize());
+				type = BUFFER;
+			}
+			else if (boe.isRecords()) {
+				contents = serializeRecords(boe.getRecords(), boe.getChannelIndex());
+				type = RECORDS;
 			}
 			else {
 				contents = EventSerializer.toSerializedEvent(boe.getEvent());
+				type = EVENT;
 			}
 
 			headBuffer.clear();
 			headBuffer.putInt(boe.getChannelIndex());
 			headBuffer.putInt(contents.remaining());
-			headBuffer.put((byte) (boe.isBuffer() ? 0 : 1));
+			headBuffer.put(type);
 			headBuffer.flip();
 
 			bytesWritten += (headBuffer.remaining() + contents.remaining());
@@ -205,7 +248,7 @@ public class BufferSpiller {
 		// create a reader for the spilled data
 		currentChannel.position(0L);
 		SpilledBufferOrEventSequence seq =
-				new SpilledBufferOrEventSequence(currentSpillFile, currentChannel, buf, pageSize);
+				new SpilledBufferOrEventSequence(currentSpillFile, currentChannel, buf, pageSize, recordSerializers);
 
 		// create ourselves a new spill file
 		createSpillingChannel();
@@ -259,6 +302,27 @@ public class BufferSpiller {
 		currentChannel = new RandomAccessFile(currentSpillFile, "rw").getChannel();
 	}
 
+	private ByteBuffer serializeRecords(List<Object> records, int channel) throws IOException {
+		TypeSerializer<StreamElement> serializer = getRecordSerializer(recordSerializers, channel);
+
+		recordsOutput.clear();
+		recordsOutput.writeInt(records.size());
+		for (Object record : records) {
+			serializer.serialize((StreamElement) record, recordsOutput);
+		}
+		return recordsOutput.wrapAsByteBuffer();
+	}
+
+	private static TypeSerializer<StreamElement> getRecordSerializer(
+			TypeSerializer<StreamElement>[] recordSerializers,
+			int channel) throws IOException {
+
+		if (recordSerializers == null || channel >= recordSerializers.length || recordSerializers[channel] == null) {
+			throw new IOException("No serializer for the records of channel " + channel);
+		}
+		return recordSerializers[channel];
+	}
+
 	// ------------------------------------------------------------------------
 
 	/**
@@ -268,7 +332,7 @@ public class BufferSpiller {
 	 */
 	public static class SpilledBufferOrEventSequence {
 
-		/** Header is "channel index" (4 bytes) + length (4 bytes) + buffer/event (1 byte). */
+		/** Header is "channel index" (4 bytes) + length (4 bytes) + buffer/event/records (1 byte). */
 		private static final int HEADER_LENGTH = 9;
 
 		/** The file containing the data. */
@@ -286,6 +350,9 @@ public class BufferSpiller {
 		/** The page size to instantiate properly sized memory segments. */
 		private final int pageSize;
 
+		/** The serializers of the spilled records per channel, may be <tt>null</tt>. */
+		private final TypeSerializer<StreamElement>[] recordSerializers;
+
 		/** Flag to track whether the sequence has been opened already. */
 		private boolean opened = false;
 
@@ -299,10 +366,29 @@ public class BufferSpiller {
 		 */
 		SpilledBufferOrEventSequence(File file, FileChannel fileChannel, ByteBuffer buffer, int pageSize)
 				throws IOException {
+			this(file, fileChannel, buffer, pageSize, null);
+		}
+
+		/**
+		 * Create a reader that reads a sequence of spilled buffers, events and records.
+		 *
+		 * @param file The file with the data.
+		 * @param fileChannel The file channel to read the data from.
+		 * @param buffer The buffer used for bulk reading.
+		 * @param pageSize The page size to use for the created memory segments.
+		 * @param recordSerializers The serializers of the spilled records per channel, may be <tt>null</tt>.
+		 */
+		SpilledBufferOrEventSequence(
+				File file,
+				FileChannel fileChannel,
+				ByteBuffer buffer,
+				int pageSize,
+				TypeSerializer<StreamElement>[] recordSerializers) throws IOException {
 			this.file = file;
 			this.fileChannel = fileChannel;
 			this.buffer = buffer;
 			this.pageSize = pageSize;
+			this.recordSerializers = recordSerializers;
 			this.size = fileChannel.size();
 		}
 
@@ -346,10 +432,36 @@ public class BufferSpiller {
 
 			final int channel = buffer.getInt();
 			final int length = buffer.getInt();
-			final boolean isBuffer = buffer.get() == 0;
+			final byte type = buffer.get();
+
+			if (type == RECORDS) {
+				// deserialize records, which may span multiple reads
+				byte[] bytes = new byte[length];
+
+				int bytesRead = 0;
 
+				while (true) {
+					int toCopy = Math.min(buffer.remaining(), length - bytesRead);
+					if (toCopy > 0) {
+						buffer.get(bytes, bytesRead, toCopy);
+						bytesRead += toCopy;
+					}
+
+					if (bytesRead == length) {
+						break;
+					}
+					else {
+						buffer.clear();
+						if (fileChannel.read(buffer) == -1) {
+							throw new IOException("Found trailing incomplete records");
+						}
+						buffer.flip();
+					}
+				}
 
-			if (isBuffer) {
+				return new BufferOrEvent(deserializeRecords(bytes, channel), channel);
+			}
+			else if (type == BUFFER) {
 				// deserialize buffer
 				if (length > pageSize) {
 					throw new IOException(String.format(
@@ -414,6 +526,19 @@ public class BufferSpiller {
 			}
 		}
 
+		private List<Object> deserializeRecords(byte[] bytes, int channel) throws IOException {
+			TypeSerializer<StreamElement> serializer = getRecordSerializer(recordSerializers, channel);
+
+			DataInputDeserializer in = new DataInputDeserializer(bytes, 0, bytes.length);
+			int numRecords = in.readInt();
+
+			List<Object> records = new ArrayList<>(numRecords);
+			for (int i = 0; i < numRecords; i++) {
+				records.add(serializer.deserialize(in));
+			}
+			return records;
+		}
+
 		/**
 		 * Cleans up all file resources held by this spilled sequence.
 		 *
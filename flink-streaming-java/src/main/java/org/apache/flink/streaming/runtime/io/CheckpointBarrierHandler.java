@@ -20,6 +20,7 @@ package org.apache.flink.streaming.runtime.io;
 
 import java.io.IOException;
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.runtime.concurrent.Future;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
 import org.apache.flink.runtime.jobgraph.tasks.StatefulTask;
 
@@ -47,6 +48,33 @@ public interface CheckpointBarrierHandler {
 	 */
 	BufferOrEvent getNextNonBlocked() throws Exception;
 
+	/**
+	 * Returns the next {@link BufferOrEvent} that the operator may consume, without blocking
+	 * if none is currently available. A {@code null} return value means that either no data
+	 * is available right now, or that the stream is finished, which can be told apart via
+	 * {@link #isFinished()}.
+	 *
+	 * @return The next BufferOrEvent, or {@code null}, if none is available or the stream is finished.
+	 *
+	 * @throws Exception Thrown in the same cases as {@link #getNextNonBlocked()}.
+	 */
+	BufferOrEvent pollNext() throws Exception;
+
+	/**
+	 * Gets a future that is completed once {@link #pollNext()} may return new data, or once
+	 * the stream is finished.
+	 *
+	 * @return The future signaling availability of input.
+	 */
+	Future<Void> getAvailableFuture();
+
+	/**
+	 * Checks whether all input has been consumed.
+	 *
+	 * @return {@code True}, if no more data will be returned, {@code false} otherwise.
+	 */
+	boolean isFinished();
+
 	/**
 	 * Registers the task be notified once all checkpoint barriers have been received for a checkpoint.
 	 *
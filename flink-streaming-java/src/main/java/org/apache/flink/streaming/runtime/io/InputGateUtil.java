@@ -22,7 +22,10 @@ import java.util.Collection;
 import java.util.List;
 
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
 import org.apache.flink.runtime.io.network.partition.consumer.UnionInputGate;
 
 /**
@@ -52,6 +55,21 @@ public class InputGateUtil {
 		}
 	}
 
+	/**
+	 * Lets the given input gates receive records as objects from producers in the same task
+	 * manager, if enabled in the configuration. See
+	 * {@link TaskManagerOptions#NETWORK_LOCAL_OBJECT_HANDOVER}.
+	 */
+	public static void enableObjectHandover(Collection<InputGate> inputGates, Configuration taskManagerConfig) {
+		if (taskManagerConfig.getBoolean(TaskManagerOptions.NETWORK_LOCAL_OBJECT_HANDOVER)) {
+			for (InputGate inputGate : inputGates) {
+				if (inputGate instanceof SingleInputGate) {
+					((SingleInputGate) inputGate).enableObjectHandover();
+				}
+			}
+		}
+	}
+
 	/**
 	 * Private constructor to prevent instantiation.
 	 */
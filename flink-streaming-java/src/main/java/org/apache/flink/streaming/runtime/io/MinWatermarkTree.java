@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.io;
+
+import eu.proteus.flink.annotaton.Proteus;
+import org.apache.flink.annotation.Internal;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * A tournament tree over the watermarks of a number of input channels, which keeps track of
+ * their minimum.
+ *
+ * <p>Updating the watermark of a channel only recomputes the path from its leaf to the root, so
+ * an update costs {@code O(log n)} instead of a scan over all {@code n} channels. Channels can be
+ * excluded, in which case they no longer hold back the minimum.
+ */
+@Internal
+@Proteus
+final class MinWatermarkTree {
+
+	/** The number of leaves, the number of channels rounded up to a power of two. */
+	private final int numLeaves;
+
+	/** The nodes of the tree, the root at index 1 and the leaves at the end. */
+	private final long[] nodes;
+
+	MinWatermarkTree(int numChannels) {
+		checkArgument(numChannels >= 0, "The number of channels must not be negative.");
+
+		int leaves = 1;
+		while (leaves < numChannels) {
+			leaves <<= 1;
+		}
+		this.numLeaves = leaves;
+		this.nodes = new long[2 * leaves];
+
+		// padding leaves never hold back the minimum
+		for (int i = 0; i < leaves; i++) {
+			nodes[leaves + i] = i < numChannels ? Long.MIN_VALUE : Long.MAX_VALUE;
+		}
+		for (int i = leaves - 1; i > 0; i--) {
+			nodes[i] = Math.min(nodes[2 * i], nodes[2 * i + 1]);
+		}
+	}
+
+	/**
+	 * Returns the watermark of the given channel.
+	 */
+	long get(int channel) {
+		return nodes[numLeaves + channel];
+	}
+
+	/**
+	 * Returns the minimum watermark over all channels that are not excluded.
+	 */
+	long getMin() {
+		return nodes[1];
+	}
+
+	/**
+	 * Sets the watermark of the given channel.
+	 *
+	 * @return The new minimum watermark over all channels.
+	 */
+	long update(int channel, long watermark) {
+		int node = numLeaves + channel;
+		nodes[node] = watermark;
+
+		for (node >>>= 1; node > 0; node >>>= 1) {
+			long min = Math.min(nodes[2 * node], nodes[2 * node + 1]);
+			if (nodes[node] == min) {
+				// the minimum of the rest of the path is unaffected
+				break;
+			}
+			nodes[node] = min;
+		}
+		return nodes[1];
+	}
+
+	/**
+	 * Excludes the given channel from the minimum.
+	 */
+	void exclude(int channel) {
+		update(channel, Long.MAX_VALUE);
+	}
+}
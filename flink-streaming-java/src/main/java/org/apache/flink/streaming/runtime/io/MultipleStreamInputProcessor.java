@@ -19,7 +19,12 @@
 package org.apache.flink.streaming.runtime.io;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import eu.proteus.flink.annotaton.Proteus;
 import org.apache.flink.annotation.Internal;
@@ -27,7 +32,10 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.configuration.IllegalConfigurationException;
 import org.apache.flink.configuration.TaskManagerOptions;
+import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.SimpleCounter;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGateListener;
 import org.apache.flink.runtime.io.network.partition.consumer.UnionInputGate;
 import org.apache.flink.runtime.jobgraph.tasks.StatefulTask;
@@ -48,7 +56,6 @@ import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
 import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
 import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.runtime.streamrecord.StreamElementSerializer;
-import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.runtime.streamstatus.StatusWatermarkValve;
 import org.apache.flink.streaming.runtime.streamstatus.StreamStatus;
 import org.apache.flink.streaming.runtime.streamstatus.StreamStatusMaintainer;
@@ -66,7 +73,8 @@ import static org.apache.flink.util.Preconditions.checkNotNull;
  * <p>
  * Forwarding elements or watermarks must be protected by synchronizing on the given lock
  * object. This ensures that we don't call methods on a {@link OneInputStreamOperator} concurrently
- * with the timer callback or other things.
+ * with the timer callback or other things. The lock is taken once per network buffer, and all
+ * elements deserialized from that buffer are forwarded under it.
  *
  * @param <IN> The type of the record that can be read with this record reader.
  */
@@ -92,7 +100,8 @@ public class MultipleStreamInputProcessor<IN> implements InputGateListener {
 
 	private boolean isFinished;
 
-	private final long[] watermarks;
+	/** The watermarks of all channels, except those of the updating side inputs. */
+	private final MinWatermarkTree watermarks;
 	private long lastEmittedWatermark;
 
 	private final Object lock;
@@ -106,6 +115,39 @@ public class MultipleStreamInputProcessor<IN> implements InputGateListener {
 
 	private final int[] inputChannelsMapping;
 
+	/** Flags the inputs that are updating side inputs, which never finish loading. */
+	private final boolean[] updatingInputs;
+
+	/** The last watermark forwarded to each updating side input. */
+	private final long[] updatingInputWatermarks;
+
+	/** The watermarks of the channels of each updating side input, null for the other inputs. */
+	private final MinWatermarkTree[] updatingInputWatermarkTrees;
+
+	/** The index of the first channel of each input. */
+	private final int[] inputChannelOffsets;
+
+	/** The number of records read from each input, only counted for the side inputs. */
+	private final Counter[] sideInputRecordCounters;
+
+	/** The number of bytes read from each input, only counted for the side inputs. */
+	private final Counter[] sideInputByteCounters;
+
+	/** The time the processor started reading the side inputs. */
+	private final long sideInputLoadStartTime;
+
+	/** The time the processor switched to reading only the main input, -1 if it did not yet. */
+	private volatile long sideInputSwitchTime = -1L;
+
+	/** The gates of the updating side inputs, which are not waited for. */
+	private final Set<InputGate> updatingInputGates;
+
+	/** The union of all input gates, used to suspend and resume the main input. */
+	private final UnionInputGate inputGate;
+
+	/** The main input gates, if they are not read from until the side inputs are loaded. */
+	private final List<InputGate> blockedMainInputGates;
+
 	private final StreamStatusMaintainer streamStatusMaintainer;
 
 	private final MultipleInputStreamTask.OperatorWrapper[] wrappers;
@@ -120,6 +162,7 @@ public class MultipleStreamInputProcessor<IN> implements InputGateListener {
 		TypeSerializer<?>[] serializers,
 		int[] inputMapping,
 		Map<InputGate, Boolean> sideMap,
+		boolean[] updatingInputs,
 		StatefulTask checkpointedTask,
 		CheckpointingMode checkpointMode,
 		Object lock,
@@ -130,6 +173,7 @@ public class MultipleStreamInputProcessor<IN> implements InputGateListener {
 
 		UnionInputGate inputGate = (UnionInputGate) InputGateUtil.createInputGate(inputGates);
 		inputGate.registerListener(this);
+		this.inputGate = inputGate;
 
 		if (checkpointMode == CheckpointingMode.EXACTLY_ONCE) {
 			long maxAlign = taskManagerConfig.getLong(TaskManagerOptions.TASK_CHECKPOINT_ALIGNMENT_BYTES_LIMIT);
@@ -154,6 +198,9 @@ public class MultipleStreamInputProcessor<IN> implements InputGateListener {
 		this.lock = checkNotNull(lock);
 
 		this.sideMap = sideMap;
+		this.updatingInputs = checkNotNull(updatingInputs);
+		this.updatingInputWatermarks = new long[updatingInputs.length];
+		Arrays.fill(updatingInputWatermarks, Long.MIN_VALUE);
 
 		this.deserializationDelegates = new NonReusingDeserializationDelegate[serializers.length];
 
@@ -173,24 +220,60 @@ public class MultipleStreamInputProcessor<IN> implements InputGateListener {
 
 		int low = 0;
 		this.inputChannelsMapping = new int[channelsCount];
+		this.inputChannelOffsets = new int[serializers.length];
+		this.updatingInputWatermarkTrees = new MinWatermarkTree[serializers.length];
+		this.updatingInputGates = new HashSet<>();
 		for (int i = 0; i < inputMapping.length; i++) {
 			int idx = inputMapping[i];
 			int currentGateChannelsCount = inputGate.getNumberOfInputChannelsForGate(i);
+			inputChannelOffsets[idx] = low;
+			if (updatingInputs[idx]) {
+				updatingInputGates.add(inputGates[i]);
+				updatingInputWatermarkTrees[idx] = new MinWatermarkTree(currentGateChannelsCount);
+			}
 			for (int j = 0; j < currentGateChannelsCount; j++) {
 				inputChannelsMapping[low + j] = idx;
 			}
 			low += currentGateChannelsCount;
 		}
 
-		watermarks = new long[inputGate.getNumberOfInputChannels()];
-		for (int i = 0; i < inputGate.getNumberOfInputChannels(); i++) {
-			watermarks[i] = Long.MIN_VALUE;
+		// the event time of the operator is driven by the main input and the bounded side
+		// inputs, the updating side inputs only version their contents
+		watermarks = new MinWatermarkTree(channelsCount);
+		for (int i = 0; i < channelsCount; i++) {
+			if (updatingInputs[inputChannelsMapping[i]]) {
+				watermarks.exclude(i);
+			}
 		}
 		lastEmittedWatermark = Long.MIN_VALUE;
 
+		this.sideInputRecordCounters = new Counter[serializers.length];
+		this.sideInputByteCounters = new Counter[serializers.length];
+		for (int i = 1; i < serializers.length; i++) {
+			sideInputRecordCounters[i] = new SimpleCounter();
+			sideInputByteCounters[i] = new SimpleCounter();
+		}
+		this.sideInputLoadStartTime = System.currentTimeMillis();
+
 		sideInputsLoaded = 0;
-		wrapperStatus = WrapperStatus.READING_ALL;
-		numberOfSideInputs = serializers.length - 1;
+		// updating side inputs are never fully loaded, so the main input does not wait for them
+		numberOfSideInputs = 0;
+		for (int i = 1; i < serializers.length; i++) {
+			if (!updatingInputs[i]) {
+				numberOfSideInputs++;
+			}
+		}
+		wrapperStatus = numberOfSideInputs > 0 ? WrapperStatus.READING_ALL : WrapperStatus.SWITCHING;
+
+		this.blockedMainInputGates = new ArrayList<>();
+		if (numberOfSideInputs > 0 && taskManagerConfig.getBoolean(TaskManagerOptions.TASK_SIDE_INPUT_BLOCK_MAIN_INPUT)) {
+			for (InputGate gate : inputGates) {
+				if (!sideMap.get(gate)) {
+					blockedMainInputGates.add(gate);
+					inputGate.suspendInputGate(gate);
+				}
+			}
+		}
 
 		this.lastEmittedWatermark = Long.MIN_VALUE;
 
@@ -203,6 +286,7 @@ public class MultipleStreamInputProcessor<IN> implements InputGateListener {
 
 	private void checkWrappers(final MultipleInputStreamTask.OperatorWrapper wrapper) throws Exception {
 		if (wrapperStatus == WrapperStatus.SWITCHING) {
+			sideInputSwitchTime = System.currentTimeMillis();
 			wrapper.disableWrapper();
 			wrapperStatus = WrapperStatus.ONLY_MAIN;
 		}
@@ -221,57 +305,37 @@ public class MultipleStreamInputProcessor<IN> implements InputGateListener {
 				final DeserializationDelegate<StreamElement> deserializationDelegate = deserializationDelegates[inputIndex];
 				final MultipleInputStreamTask.OperatorWrapper wrapper = wrappers[inputIndex];
 				outputHandler.setCurrentOperatorIndex(inputIndex);
-				DeserializationResult result = currentRecordDeserializer.getNextRecord(deserializationDelegate);
 
-				if (result.isBufferConsumed()) {
-					currentRecordDeserializer.getCurrentBuffer().recycle();
-					currentRecordDeserializer = null;
-				}
+				// dispatch all elements of the current buffer under a single acquisition of the lock
+				boolean processedRecord = false;
+				synchronized (lock) {
+					while (currentRecordDeserializer != null) {
+						DeserializationResult result = currentRecordDeserializer.getNextRecord(deserializationDelegate);
 
-				if (result.isFullRecord()) {
-					StreamElement recordOrMark = deserializationDelegate.getInstance();
-
-					if (recordOrMark.isWatermark()) {
-						long watermarkMillis = recordOrMark.asWatermark().getTimestamp();
-						if (watermarkMillis > watermarks[currentChannel]) {
-							watermarks[currentChannel] = watermarkMillis;
-							long newMinWatermark = Long.MAX_VALUE;
-							for (long watermark: watermarks) {
-								newMinWatermark = Math.min(watermark, newMinWatermark);
-							}
-							if (newMinWatermark > lastEmittedWatermark) {
-								lastEmittedWatermark = newMinWatermark;
-								synchronized (lock) {
-									wrapper.processWatermark(new Watermark(lastEmittedWatermark));
-								}
-							}
+						if (result.isBufferConsumed()) {
+							currentRecordDeserializer.getCurrentBuffer().recycle();
+							currentRecordDeserializer = null;
 						}
-						continue;
-					} else if (recordOrMark.isStreamStatus()) {
-						// handle stream status
-						statusWatermarkValve.inputStreamStatus(recordOrMark.asStreamStatus(), currentChannel);
-						continue;
-					} else if(recordOrMark.isLatencyMarker()) {
-						// handle latency marker
-						synchronized (lock) {
-							wrapper.processLatencyMarker(recordOrMark.asLatencyMarker());
-						}
-						continue;
-					} else {
-						// now we can do the actual processing
-						StreamRecord<?> record = recordOrMark.asRecord();
-						synchronized (lock) {
-							wrapper.processElement(record);
+
+						if (result.isFullRecord()) {
+							processedRecord |= dispatchElement(deserializationDelegate.getInstance(), inputIndex, wrapper);
 						}
-						return true;
 					}
 				}
+
+				if (processedRecord) {
+					return true;
+				}
 			}
 
 			final BufferOrEvent bufferOrEvent = barrierHandler.getNextNonBlocked();
 			if (bufferOrEvent != null) {
 				if (bufferOrEvent.isBuffer()) {
 					currentChannel = bufferOrEvent.getChannelIndex();
+					Counter byteCounter = sideInputByteCounters[inputChannelsMapping[currentChannel]];
+					if (byteCounter != null) {
+						byteCounter.inc(bufferOrEvent.getBuffer().getSize());
+					}
 					currentRecordDeserializer = recordDeserializers[currentChannel];
 					currentRecordDeserializer.setNextBuffer(bufferOrEvent.getBuffer());
 				}
@@ -293,6 +357,61 @@ public class MultipleStreamInputProcessor<IN> implements InputGateListener {
 		}
 	}
 
+	/**
+	 * Forwards a deserialized element to the wrapper of its input. Must be called under the lock.
+	 *
+	 * @return True, if the element was a record.
+	 */
+	private boolean dispatchElement(
+			StreamElement recordOrMark,
+			int inputIndex,
+			MultipleInputStreamTask.OperatorWrapper wrapper) throws Exception {
+
+		if (recordOrMark.isWatermark()) {
+			handleWatermark(recordOrMark.asWatermark().getTimestamp(), inputIndex, wrapper);
+			return false;
+		} else if (recordOrMark.isStreamStatus()) {
+			// handle stream status
+			statusWatermarkValve.inputStreamStatus(recordOrMark.asStreamStatus(), currentChannel);
+			return false;
+		} else if (recordOrMark.isLatencyMarker()) {
+			// handle latency marker
+			wrapper.processLatencyMarker(recordOrMark.asLatencyMarker());
+			return false;
+		} else {
+			// now we can do the actual processing
+			if (inputIndex > 0) {
+				sideInputRecordCounters[inputIndex].inc();
+			}
+			wrapper.processElement(recordOrMark.asRecord());
+			return true;
+		}
+	}
+
+	private void handleWatermark(
+			long watermarkMillis,
+			int inputIndex,
+			MultipleInputStreamTask.OperatorWrapper wrapper) throws Exception {
+
+		if (updatingInputs[inputIndex]) {
+			MinWatermarkTree inputWatermarks = updatingInputWatermarkTrees[inputIndex];
+			int channel = currentChannel - inputChannelOffsets[inputIndex];
+			if (watermarkMillis > inputWatermarks.get(channel)) {
+				long newMinWatermark = inputWatermarks.update(channel, watermarkMillis);
+				if (newMinWatermark > updatingInputWatermarks[inputIndex]) {
+					updatingInputWatermarks[inputIndex] = newMinWatermark;
+					wrapper.processWatermark(new Watermark(newMinWatermark));
+				}
+			}
+		} else if (watermarkMillis > watermarks.get(currentChannel)) {
+			long newMinWatermark = watermarks.update(currentChannel, watermarkMillis);
+			if (newMinWatermark > lastEmittedWatermark) {
+				lastEmittedWatermark = newMinWatermark;
+				wrappers[0].processWatermark(new Watermark(lastEmittedWatermark));
+			}
+		}
+	}
+
 	/**
 	 * Sets the metric group for this StreamInputProcessor.
 	 *
@@ -312,6 +431,29 @@ public class MultipleStreamInputProcessor<IN> implements InputGateListener {
 				return barrierHandler.getAlignmentDurationNanos();
 			}
 		});
+
+		// time spent reading the side inputs before the main input is processed, which
+		// keeps growing while they are still being read
+		metrics.gauge("sideInputLoadTime", new Gauge<Long>() {
+			@Override
+			public Long getValue() {
+				long switchTime = sideInputSwitchTime;
+				return (switchTime < 0 ? System.currentTimeMillis() : switchTime) - sideInputLoadStartTime;
+			}
+		});
+
+		metrics.gauge("sideInputSwitchTime", new Gauge<Long>() {
+			@Override
+			public Long getValue() {
+				return sideInputSwitchTime;
+			}
+		});
+
+		for (int i = 1; i < sideInputRecordCounters.length; i++) {
+			MetricGroup sideInputGroup = metrics.addGroup("sideInput").addGroup(String.valueOf(i));
+			sideInputGroup.counter("numRecordsIn", sideInputRecordCounters[i]);
+			sideInputGroup.counter("numBytesIn", sideInputByteCounters[i]);
+		}
 	}
 
 	public void cleanup() throws IOException {
@@ -330,11 +472,15 @@ public class MultipleStreamInputProcessor<IN> implements InputGateListener {
 
 	@Override
 	public void onInputGateConsumed(InputGate inputGate) {
-		if (sideMap.containsKey(inputGate) && sideMap.get(inputGate)) {
+		if (sideMap.containsKey(inputGate) && sideMap.get(inputGate) && !updatingInputGates.contains(inputGate)) {
 			sideInputsLoaded++;
 		}
 		if (numberOfSideInputs == sideInputsLoaded && wrapperStatus == WrapperStatus.READING_ALL) {
 			wrapperStatus = WrapperStatus.SWITCHING;
+			for (InputGate gate : blockedMainInputGates) {
+				this.inputGate.resumeInputGate(gate);
+			}
+			blockedMainInputGates.clear();
 		}
 	}
 
@@ -141,6 +141,14 @@ public class RecordWriterOutput<OUT> implements Output<StreamRecord<OUT>> {
 		}
 	}
 
+	/**
+	 * Hands over the records as objects to downstream tasks in the same task manager which
+	 * accept them, instead of serializing them. Values of mutable types are copied.
+	 */
+	public void enableObjectHandover(TypeSerializer<OUT> outSerializer) {
+		recordWriter.setRecordCopier(new StreamElementCopier<>(outSerializer));
+	}
+
 	public void broadcastEvent(AbstractEvent event) throws IOException, InterruptedException {
 		recordWriter.broadcastEvent(event);
 	}
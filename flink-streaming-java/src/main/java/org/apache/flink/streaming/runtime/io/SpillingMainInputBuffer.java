@@ -0,0 +1,549 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.io;
+
+import eu.proteus.flink.annotaton.Proteus;
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.memory.AbstractPagedOutputView;
+import org.apache.flink.runtime.memory.MemoryAllocationException;
+import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElementSerializer;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.util.IOUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Buffers the records of the main input while the side inputs of an operator are still being
+ * loaded.
+ *
+ * <p>Records are written in serialized form into a fixed number of pages taken from the
+ * {@link MemoryManager} when the first record is added, so a buffer that is never used does not
+ * hold any memory. If the memory manager cannot provide the pages, the buffer writes into a single
+ * page on the heap and spills it whenever it is full. Once the pages are full, the buffer spills every further full page to
+ * a file created through the {@link IOManager}, so the heap footprint of the buffer is bounded
+ * regardless of how long the side inputs take to load. The buffered bytes are the full pages in
+ * memory, followed by the spilled pages, followed by the page currently written to.
+ *
+ * <p>The buffered records are replayed exactly once via {@link #replay()}. If object reuse is
+ * enabled, the returned iterator hands out a single reused {@link StreamRecord} for all records.
+ * The memory is handed back to the memory manager as soon as the iterator is exhausted.
+ *
+ * <p>For checkpoints, {@link #snapshot(OutputStream)} copies the serialized bytes of the buffer
+ * without deserializing the records, and {@link #restore(InputStream)} appends such a copy.
+ * {@link #snapshot()} captures the buffered records without copying them, so the copy can be
+ * written by another thread while further records are added to the buffer.
+ *
+ * @param <T> The type of the buffered records.
+ */
+@Internal
+@Proteus
+public class SpillingMainInputBuffer<T> {
+
+	/** The minimum number of pages, one full page in memory and one to write into. */
+	public static final int MIN_NUM_PAGES = 2;
+
+	private static final Logger LOG = LoggerFactory.getLogger(SpillingMainInputBuffer.class);
+
+	private final StreamElementSerializer<T> serializer;
+
+	private final MemoryManager memoryManager;
+
+	private final IOManager ioManager;
+
+	private final boolean objectReuse;
+
+	private final Object owner;
+
+	private final int numPages;
+
+	/** The pages taken from the memory manager, empty until the first record is added. */
+	private final ArrayList<MemorySegment> memory;
+
+	/** The full pages that are kept in memory, in the order they were written. */
+	private final ArrayList<MemorySegment> fullSegments;
+
+	/** The view the records are written to, null until the first record is added. */
+	private WriteView writeView;
+
+	/** The file the full pages are spilled to once the memory is exhausted, or null. */
+	private File spillFile;
+
+	private FileChannel spillChannel;
+
+	private long spillFileLength;
+
+	private long numRecords;
+
+	private boolean replaying;
+
+	private boolean released;
+
+	/** Guards the release of the memory and the spill file against snapshots still being written. */
+	private final Object lock = new Object();
+
+	/** The number of snapshots that have not been released yet. */
+	private int numOpenSnapshots;
+
+	public SpillingMainInputBuffer(
+			TypeSerializer<T> serializer,
+			MemoryManager memoryManager,
+			IOManager ioManager,
+			Object owner,
+			int numPages,
+			boolean objectReuse) {
+
+		checkArgument(numPages >= MIN_NUM_PAGES, "The buffer requires at least " + MIN_NUM_PAGES + " pages.");
+
+		this.serializer = new StreamElementSerializer<>(checkNotNull(serializer));
+		this.memoryManager = checkNotNull(memoryManager);
+		this.ioManager = checkNotNull(ioManager);
+		this.objectReuse = objectReuse;
+		this.owner = checkNotNull(owner);
+		this.numPages = numPages;
+
+		this.memory = new ArrayList<>(numPages);
+		this.fullSegments = new ArrayList<>(numPages - 1);
+	}
+
+	/**
+	 * Appends the given record to the buffer, spilling to disk if the memory is exhausted.
+	 */
+	public void add(StreamRecord<T> record) throws IOException {
+		checkState(!replaying, "Cannot add records to a buffer that is being replayed.");
+		checkState(!released, "The buffer has already been released.");
+
+		serializer.serialize(record, getWriteView());
+		numRecords++;
+	}
+
+	/**
+	 * Returns the number of records added to this buffer.
+	 */
+	public long size() {
+		return numRecords;
+	}
+
+	/**
+	 * Writes the number of buffered records and their serialized bytes to the given stream. The
+	 * records are copied as they are stored in the pages and the spill file, they are neither
+	 * deserialized nor serialized again.
+	 */
+	public void snapshot(OutputStream out) throws IOException {
+		Snapshot snapshot = snapshot();
+		try {
+			snapshot.writeTo(out);
+		} finally {
+			snapshot.release();
+		}
+	}
+
+	/**
+	 * Captures the records buffered so far. Only the filled part of the current page is copied,
+	 * the full pages and the spill file are referenced, as they are not modified by further
+	 * records. The memory and the spill file are kept until the snapshot is released, even if
+	 * the buffer is released before.
+	 */
+	public Snapshot snapshot() {
+		checkState(!replaying, "Cannot snapshot a buffer that is being replayed.");
+		checkState(!released, "The buffer has already been released.");
+
+		byte[] currentBytes;
+		if (writeView != null) {
+			currentBytes = new byte[writeView.getCurrentPositionInSegment()];
+			writeView.getCurrentSegment().get(0, currentBytes);
+		} else {
+			currentBytes = new byte[0];
+		}
+
+		synchronized (lock) {
+			numOpenSnapshots++;
+		}
+
+		return new Snapshot(
+			numRecords,
+			new ArrayList<>(fullSegments),
+			spillChannel,
+			spillFileLength,
+			MemorySegmentFactory.wrap(currentBytes));
+	}
+
+	/**
+	 * Appends the records of a snapshot written by {@link #snapshot(OutputStream)} to this
+	 * buffer. The stream is read to its end.
+	 */
+	public void restore(InputStream in) throws IOException {
+		checkState(!replaying, "Cannot add records to a buffer that is being replayed.");
+		checkState(!released, "The buffer has already been released.");
+
+		DataInputStream dataIn = new DataInputStream(in);
+		long restoredRecords = dataIn.readLong();
+
+		byte[] chunk = new byte[memoryManager.getPageSize()];
+		int read;
+		while ((read = in.read(chunk)) != -1) {
+			getWriteView().write(chunk, 0, read);
+		}
+
+		numRecords += restoredRecords;
+	}
+
+	/**
+	 * Returns an iterator over the buffered records, in insertion order. The buffer can be replayed
+	 * only once and is released after the last record has been returned.
+	 */
+	public Iterator<StreamRecord<?>> replay() throws IOException {
+		checkState(!replaying, "The buffer can only be replayed once.");
+		checkState(!released, "The buffer has already been released.");
+
+		replaying = true;
+		InputStream bytes = new BufferedBytesInputStream(
+			fullSegments,
+			spillChannel,
+			spillFileLength,
+			writeView != null ? writeView.getCurrentSegment() : null,
+			writeView != null ? writeView.getCurrentPositionInSegment() : 0);
+		return new ReplayIterator(new DataInputViewStreamWrapper(new BufferedInputStream(bytes)));
+	}
+
+	/**
+	 * Releases the memory pages and deletes the spill file, if any. If snapshots of the buffer
+	 * are still open, this happens once the last of them is released. This method is idempotent.
+	 */
+	public void release() throws IOException {
+		synchronized (lock) {
+			if (!released) {
+				released = true;
+				writeView = null;
+				if (numOpenSnapshots == 0) {
+					releaseResources();
+				}
+			}
+		}
+	}
+
+	private WriteView getWriteView() {
+		if (writeView == null) {
+			MemorySegment initialSegment;
+			try {
+				memoryManager.allocatePages(owner, memory, numPages);
+				initialSegment = memory.get(0);
+			} catch (MemoryAllocationException e) {
+				// no page is kept in memory, every full page is spilled right away
+				LOG.warn("Could not allocate {} pages for buffering the main input, spilling every page instead.",
+					numPages, e);
+				initialSegment = MemorySegmentFactory.allocateUnpooledSegment(memoryManager.getPageSize());
+			}
+			writeView = new WriteView(initialSegment, memoryManager.getPageSize());
+		}
+		return writeView;
+	}
+
+	private void releaseResources() throws IOException {
+		fullSegments.clear();
+		memoryManager.release(memory);
+		memory.clear();
+
+		if (spillChannel != null) {
+			IOUtils.closeQuietly(spillChannel);
+			spillChannel = null;
+		}
+		if (spillFile != null) {
+			if (!spillFile.delete() && spillFile.exists()) {
+				throw new IOException("Could not delete the spill file " + spillFile + '.');
+			}
+			spillFile = null;
+		}
+	}
+
+	private MemorySegment spill(MemorySegment segment) throws IOException {
+		if (spillChannel == null) {
+			spillFile = ioManager.createChannel().getPathFile();
+			spillChannel = new RandomAccessFile(spillFile, "rw").getChannel();
+		}
+
+		ByteBuffer bytes = segment.wrap(0, segment.size());
+		while (bytes.hasRemaining()) {
+			spillFileLength += spillChannel.write(bytes, spillFileLength);
+		}
+
+		return segment;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The output view the records are serialized into. Full pages are kept in memory as long as
+	 * free pages are left, afterwards they are spilled and reused.
+	 */
+	private final class WriteView extends AbstractPagedOutputView {
+
+		WriteView(MemorySegment initialSegment, int segmentSize) {
+			super(initialSegment, segmentSize, 0);
+		}
+
+		@Override
+		protected MemorySegment nextSegment(MemorySegment current, int positionInCurrent) throws IOException {
+			// the first page is the one that is written to, the others hold full pages
+			if (spillChannel == null && fullSegments.size() + 1 < memory.size()) {
+				fullSegments.add(current);
+				return memory.get(fullSegments.size());
+			} else {
+				return spill(current);
+			}
+		}
+	}
+
+	/**
+	 * A snapshot of the records in the buffer, see {@link SpillingMainInputBuffer#snapshot()}.
+	 * It can be written by another thread than the one adding records to the buffer.
+	 */
+	public final class Snapshot {
+
+		private final long numRecords;
+
+		private final List<MemorySegment> fullSegments;
+
+		private final FileChannel spillChannel;
+
+		private final long spillFileLength;
+
+		private final MemorySegment currentSegment;
+
+		private boolean released;
+
+		private Snapshot(
+				long numRecords,
+				List<MemorySegment> fullSegments,
+				FileChannel spillChannel,
+				long spillFileLength,
+				MemorySegment currentSegment) {
+
+			this.numRecords = numRecords;
+			this.fullSegments = fullSegments;
+			this.spillChannel = spillChannel;
+			this.spillFileLength = spillFileLength;
+			this.currentSegment = currentSegment;
+		}
+
+		/**
+		 * Writes the number of records and their serialized bytes to the given stream, in the
+		 * format read by {@link SpillingMainInputBuffer#restore(InputStream)}.
+		 */
+		public void writeTo(OutputStream out) throws IOException {
+			synchronized (lock) {
+				checkState(!released, "The snapshot has already been released.");
+			}
+
+			DataOutputStream dataOut = new DataOutputStream(out);
+			dataOut.writeLong(numRecords);
+			dataOut.flush();
+
+			InputStream in = new BufferedBytesInputStream(
+				fullSegments,
+				spillChannel,
+				spillFileLength,
+				currentSegment,
+				currentSegment.size());
+			byte[] chunk = new byte[memoryManager.getPageSize()];
+			int read;
+			while ((read = in.read(chunk)) != -1) {
+				out.write(chunk, 0, read);
+			}
+		}
+
+		/**
+		 * Releases the snapshot. If the buffer has been released already and this is its last
+		 * open snapshot, the memory and the spill file are released. This method is idempotent.
+		 */
+		public void release() throws IOException {
+			synchronized (lock) {
+				if (!released) {
+					released = true;
+					numOpenSnapshots--;
+					if (numOpenSnapshots == 0 && SpillingMainInputBuffer.this.released) {
+						releaseResources();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads buffered bytes in order: the full pages in memory, the spill file, and the filled
+	 * part of the current page. The spill file is read with positional reads, so the buffer can
+	 * still be written to while the stream is read.
+	 */
+	private static final class BufferedBytesInputStream extends InputStream {
+
+		private final List<MemorySegment> fullSegments;
+
+		private final FileChannel spillChannel;
+
+		private final long spillFileLength;
+
+		private final MemorySegment currentSegment;
+
+		private final int currentSegmentLimit;
+
+		private int segmentIndex;
+
+		private int positionInSegment;
+
+		private long filePosition;
+
+		BufferedBytesInputStream(
+				List<MemorySegment> fullSegments,
+				FileChannel spillChannel,
+				long spillFileLength,
+				MemorySegment currentSegment,
+				int currentSegmentLimit) {
+
+			this.fullSegments = fullSegments;
+			this.spillChannel = spillChannel;
+			this.spillFileLength = spillFileLength;
+			this.currentSegment = currentSegment;
+			this.currentSegmentLimit = currentSegmentLimit;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+
+			while (segmentIndex < fullSegments.size()) {
+				MemorySegment segment = fullSegments.get(segmentIndex);
+				int available = segment.size() - positionInSegment;
+				if (available > 0) {
+					int num = Math.min(len, available);
+					segment.get(positionInSegment, b, off, num);
+					positionInSegment += num;
+					return num;
+				}
+				segmentIndex++;
+				positionInSegment = 0;
+			}
+
+			if (filePosition < spillFileLength) {
+				int num = (int) Math.min(len, spillFileLength - filePosition);
+				int read = spillChannel.read(ByteBuffer.wrap(b, off, num), filePosition);
+				if (read < 0) {
+					throw new EOFException("The spill file of the main input buffer is truncated.");
+				}
+				filePosition += read;
+				return read;
+			}
+
+			int available = currentSegmentLimit - positionInSegment;
+			if (available > 0) {
+				int num = Math.min(len, available);
+				currentSegment.get(positionInSegment, b, off, num);
+				positionInSegment += num;
+				return num;
+			}
+
+			return -1;
+		}
+	}
+
+	private final class ReplayIterator implements Iterator<StreamRecord<?>> {
+
+		private final DataInputView source;
+
+		private final StreamRecord<T> reuse;
+
+		private long remaining;
+
+		ReplayIterator(DataInputView source) {
+			this.source = source;
+			this.reuse = new StreamRecord<>(null);
+			this.remaining = numRecords;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (remaining > 0) {
+				return true;
+			}
+			try {
+				release();
+			} catch (IOException e) {
+				throw new RuntimeException("Could not release the main input buffer.", e);
+			}
+			return false;
+		}
+
+		@Override
+		public StreamRecord<?> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			remaining--;
+
+			try {
+				// with object reuse enabled, the same record wrapper is handed out for every
+				// record, otherwise downstream operators may hold on to the returned records
+				return objectReuse ?
+					serializer.deserialize(reuse, source).asRecord() :
+					serializer.deserialize(source).asRecord();
+			} catch (IOException e) {
+				throw new RuntimeException("Could not read back a buffered main input record.", e);
+			}
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
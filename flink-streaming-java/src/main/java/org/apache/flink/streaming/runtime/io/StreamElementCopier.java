@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.io;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.io.network.api.writer.RecordCopier;
+import org.apache.flink.runtime.plugable.SerializationDelegate;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Copies the {@link StreamElement}s which are handed over as objects to downstream tasks in the
+ * same task manager, instead of being serialized.
+ *
+ * <p>Stream records are reused by the operators, so every record gets a new {@link StreamRecord}.
+ * The value is only copied if its type is mutable. Watermarks, stream statuses and latency
+ * markers are immutable and handed over as they are.
+ *
+ * @param <T> The type of the record values.
+ */
+@Internal
+public class StreamElementCopier<T> implements RecordCopier<SerializationDelegate<StreamElement>> {
+
+	private final TypeSerializer<T> serializer;
+
+	private final boolean copyValues;
+
+	public StreamElementCopier(TypeSerializer<T> serializer) {
+		this.serializer = checkNotNull(serializer);
+		this.copyValues = !serializer.isImmutableType();
+	}
+
+	@Override
+	public Object copy(SerializationDelegate<StreamElement> record) {
+		StreamElement element = record.getInstance();
+
+		if (element.isRecord()) {
+			StreamRecord<T> streamRecord = element.asRecord();
+			T value = streamRecord.getValue();
+			return streamRecord.copy(copyValues ? serializer.copy(value) : value);
+		} else {
+			return element;
+		}
+	}
+}
@@ -21,6 +21,8 @@ package org.apache.flink.streaming.runtime.io;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.configuration.Configuration;
@@ -28,6 +30,7 @@ import org.apache.flink.configuration.IllegalConfigurationException;
 import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Gauge;
+import org.apache.flink.runtime.concurrent.Future;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
@@ -73,6 +76,9 @@ public class StreamInputProcessor<IN> {
 
 	private RecordDeserializer<DeserializationDelegate<StreamElement>> currentRecordDeserializer;
 
+	/** The remaining records which a local producer handed over as objects. */
+	private Iterator<Object> currentRecords;
+
 	private final DeserializationDelegate<StreamElement> deserializationDelegate;
 
 	private final CheckpointBarrierHandler barrierHandler;
@@ -116,6 +122,8 @@ public class StreamInputProcessor<IN> {
 			StreamStatusMaintainer streamStatusMaintainer,
 			OneInputStreamOperator<IN, ?> streamOperator) throws IOException {
 
+		InputGateUtil.enableObjectHandover(Arrays.asList(inputGates), taskManagerConfig);
+
 		InputGate inputGate = InputGateUtil.createInputGate(inputGates);
 
 		if (checkpointMode == CheckpointingMode.EXACTLY_ONCE) {
@@ -153,6 +161,13 @@ public class StreamInputProcessor<IN> {
 
 		this.numInputChannels = inputGate.getNumberOfInputChannels();
 
+		if (barrierHandler instanceof BarrierBuffer) {
+			// records handed over as objects are spilled while their channel is blocked
+			TypeSerializer<StreamElement>[] recordSerializers = new TypeSerializer[numInputChannels];
+			Arrays.fill(recordSerializers, ser);
+			((BarrierBuffer) barrierHandler).setRecordSerializers(recordSerializers);
+		}
+
 		this.lastEmittedWatermark = Long.MIN_VALUE;
 
 		this.streamStatusMaintainer = checkNotNull(streamStatusMaintainer);
@@ -163,15 +178,42 @@ public class StreamInputProcessor<IN> {
 				new ForwardingValveOutputHandler(streamOperator, lock));
 	}
 
+	/**
+	 * Processes the next record, blocking until input is available.
+	 *
+	 * @return {@code True}, if a record was processed, {@code false} if the input is finished.
+	 */
 	public boolean processInput() throws Exception {
+		return processInput(true) == InputStatus.MORE_AVAILABLE;
+	}
+
+	/**
+	 * Processes the next record if input is available, without blocking otherwise.
+	 *
+	 * @return The status of the input after this call.
+	 */
+	public InputStatus pollInput() throws Exception {
+		return processInput(false);
+	}
+
+	/**
+	 * Gets a future that is completed once {@link #pollInput()} may be able to make progress.
+	 */
+	public Future<Void> getAvailableFuture() {
+		return barrierHandler.getAvailableFuture();
+	}
+
+	private InputStatus processInput(boolean blocking) throws Exception {
 		if (isFinished) {
-			return false;
+			return InputStatus.END_OF_INPUT;
 		}
 		if (numRecordsIn == null) {
 			numRecordsIn = ((OperatorMetricGroup) streamOperator.getMetricGroup()).getIOMetricGroup().getNumRecordsInCounter();
 		}
 
 		while (true) {
+			StreamElement recordOrMark = null;
+
 			if (currentRecordDeserializer != null) {
 				DeserializationResult result = currentRecordDeserializer.getNextRecord(deserializationDelegate);
 
@@ -181,42 +223,56 @@ public class StreamInputProcessor<IN> {
 				}
 
 				if (result.isFullRecord()) {
-					StreamElement recordOrMark = deserializationDelegate.getInstance();
-
-					if (recordOrMark.isWatermark()) {
-						// handle watermark
-						statusWatermarkValve.inputWatermark(recordOrMark.asWatermark(), currentChannel);
-						continue;
-					} else if (recordOrMark.isStreamStatus()) {
-						// handle stream status
-						statusWatermarkValve.inputStreamStatus(recordOrMark.asStreamStatus(), currentChannel);
-						continue;
-					} else if (recordOrMark.isLatencyMarker()) {
-						// handle latency marker
-						synchronized (lock) {
-							streamOperator.processLatencyMarker(recordOrMark.asLatencyMarker());
-						}
-						continue;
-					} else {
-						// now we can do the actual processing
-						StreamRecord<IN> record = recordOrMark.asRecord();
-						synchronized (lock) {
-							numRecordsIn.inc();
-							streamOperator.setKeyContextElement1(record);
-							streamOperator.processElement(record);
-						}
-						return true;
+					recordOrMark = deserializationDelegate.getInstance();
+				}
+			}
+			else if (currentRecords != null) {
+				recordOrMark = (StreamElement) currentRecords.next();
+
+				if (!currentRecords.hasNext()) {
+					currentRecords = null;
+				}
+			}
+
+			if (recordOrMark != null) {
+				if (recordOrMark.isWatermark()) {
+					// handle watermark
+					statusWatermarkValve.inputWatermark(recordOrMark.asWatermark(), currentChannel);
+					continue;
+				} else if (recordOrMark.isStreamStatus()) {
+					// handle stream status
+					statusWatermarkValve.inputStreamStatus(recordOrMark.asStreamStatus(), currentChannel);
+					continue;
+				} else if (recordOrMark.isLatencyMarker()) {
+					// handle latency marker
+					synchronized (lock) {
+						streamOperator.processLatencyMarker(recordOrMark.asLatencyMarker());
+					}
+					continue;
+				} else {
+					// now we can do the actual processing
+					StreamRecord<IN> record = recordOrMark.asRecord();
+					synchronized (lock) {
+						numRecordsIn.inc();
+						streamOperator.setKeyContextElement1(record);
+						streamOperator.processElement(record);
 					}
+					return InputStatus.MORE_AVAILABLE;
 				}
 			}
 
-			final BufferOrEvent bufferOrEvent = barrierHandler.getNextNonBlocked();
+			final BufferOrEvent bufferOrEvent = blocking ? barrierHandler.getNextNonBlocked() : barrierHandler.pollNext();
 			if (bufferOrEvent != null) {
 				if (bufferOrEvent.isBuffer()) {
 					currentChannel = bufferOrEvent.getChannelIndex();
 					currentRecordDeserializer = recordDeserializers[currentChannel];
 					currentRecordDeserializer.setNextBuffer(bufferOrEvent.getBuffer());
 				}
+				else if (bufferOrEvent.isRecords()) {
+					// records handed over as objects by a producer in the same task manager
+					currentChannel = bufferOrEvent.getChannelIndex();
+					currentRecords = bufferOrEvent.getRecords().iterator();
+				}
 				else {
 					// Event received
 					final AbstractEvent event = bufferOrEvent.getEvent();
@@ -225,12 +281,15 @@ public class StreamInputProcessor<IN> {
 					}
 				}
 			}
+			else if (!blocking && !barrierHandler.isFinished()) {
+				return InputStatus.NOTHING_AVAILABLE;
+			}
 			else {
 				isFinished = true;
 				if (!barrierHandler.isEmpty()) {
 					throw new IllegalStateException("Trailing data in checkpoint barrier handler.");
 				}
-				return false;
+				return InputStatus.END_OF_INPUT;
 			}
 		}
 	}
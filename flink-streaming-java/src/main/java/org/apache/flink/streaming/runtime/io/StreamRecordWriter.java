@@ -20,6 +20,8 @@ package org.apache.flink.streaming.runtime.io;
 import static org.apache.flink.util.Preconditions.checkArgument;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.runtime.io.network.api.writer.ChannelSelector;
@@ -30,6 +32,12 @@ import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
  * This record writer keeps data in buffers at most for a certain timeout. It spawns a separate thread
  * that flushes the outputs in a defined interval, to make sure data does not linger in the buffers for too long.
  *
+ * <p>With adaptive flushing, the thread does not flush all outputs in a fixed interval, but every channel
+ * only when its oldest pending data is about to exceed the timeout. Channels which fill their buffers
+ * faster are then never flushed, and slower channels send buffers which are as full as the timeout allows.
+ * Channels whose consumers have not consumed the previous buffers yet are not flushed either, because
+ * that would not make the data available any sooner.
+ *
  * @param <T> The type of elements written.
  */
 @Internal
@@ -48,6 +56,9 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 	/** The exception encountered in the flushing thread. */
 	private Throwable flusherException;
 
+	/** The time in milliseconds the flushing thread currently waits until flushing again. */
+	private volatile long effectiveTimeout;
+
 
 
 	public StreamRecordWriter(ResultPartitionWriter writer, ChannelSelector<T> channelSelector, long timeout) {
@@ -56,11 +67,18 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 
 	public StreamRecordWriter(ResultPartitionWriter writer, ChannelSelector<T> channelSelector,
 								long timeout, String taskName) {
+		this(writer, channelSelector, timeout, taskName, false);
+	}
+
+	public StreamRecordWriter(ResultPartitionWriter writer, ChannelSelector<T> channelSelector,
+								long timeout, String taskName, boolean adaptiveFlushing) {
 
 		super(writer, channelSelector);
 
 		checkArgument(timeout >= -1);
 
+		this.effectiveTimeout = timeout;
+
 		if (timeout == -1) {
 			flushAlways = false;
 			outputFlusher = null;
@@ -74,7 +92,12 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 			String threadName = taskName == null ?
 								DEFAULT_OUTPUT_FLUSH_THREAD_NAME : "Output Timeout Flusher - " + taskName;
 
-			outputFlusher = new OutputFlusher(threadName, timeout);
+			if (adaptiveFlushing) {
+				trackPendingData();
+				outputFlusher = new AdaptiveOutputFlusher(threadName, timeout);
+			} else {
+				outputFlusher = new OutputFlusher(threadName, timeout);
+			}
 			outputFlusher.start();
 		}
 	}
@@ -106,6 +129,15 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 		}
 	}
 
+	/**
+	 * Returns the time in milliseconds the flushing thread waits until it flushes the outputs
+	 * again. This is the configured timeout, unless adaptive flushing picks an earlier time
+	 * because the pending data of a channel is due sooner.
+	 */
+	public long getEffectiveTimeout() {
+		return effectiveTimeout;
+	}
+
 	/**
 	 * Closes the writer. This stops the flushing thread (if there is one).
 	 */
@@ -167,9 +199,11 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 		@Override
 		public void run() {
 			try {
+				long nextTimeout = timeout;
+
 				while (running) {
 					try {
-						Thread.sleep(timeout);
+						Thread.sleep(nextTimeout);
 					}
 					catch (InterruptedException e) {
 						// propagate this if we are still running, because it should not happen
@@ -181,12 +215,73 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 
 					// any errors here should let the thread come to a halt and be
 					// recognized by the writer
-					flush();
+					nextTimeout = flushOutputs();
+					effectiveTimeout = nextTimeout;
 				}
 			}
 			catch (Throwable t) {
 				notifyFlusherException(t);
 			}
 		}
+
+		/**
+		 * Flushes the outputs which are due.
+		 *
+		 * @return The time in milliseconds to wait until flushing again.
+		 */
+		protected long flushOutputs() throws Exception {
+			flush();
+			return timeout;
+		}
+	}
+
+	/**
+	 * A flushing thread which flushes each channel right before its oldest pending data exceeds
+	 * the timeout, and waits until the next channel is due.
+	 */
+	private class AdaptiveOutputFlusher extends OutputFlusher {
+
+		private final long timeoutNanos;
+
+		/** The time to wait for consumers to consume the buffers of their channel, in nanoseconds. */
+		private final long backPressureTimeoutNanos;
+
+		AdaptiveOutputFlusher(String name, long timeout) {
+			super(name, timeout);
+			this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+			this.backPressureTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(timeout / 4, 1));
+		}
+
+		@Override
+		protected long flushOutputs() throws Exception {
+			final long now = System.nanoTime();
+
+			// data added from now on is due in one timeout at the earliest
+			long nextTimeoutNanos = timeoutNanos;
+
+			for (int channel = 0; channel < targetPartition.getNumberOfOutputChannels(); channel++) {
+				final long pendingSince = getPendingDataSince(channel);
+
+				if (pendingSince == -1) {
+					continue;
+				}
+
+				long dueInNanos = pendingSince + timeoutNanos - now;
+
+				if (targetPartition.getNumberOfQueuedBuffers(channel) > 0) {
+					// the consumer is busy with the previous buffers, keep filling the
+					// current one and check again later
+					dueInNanos = Math.max(dueInNanos, backPressureTimeoutNanos);
+				} else if (dueInNanos <= 0) {
+					flush(channel);
+					continue;
+				}
+
+				nextTimeoutNanos = Math.min(nextTimeoutNanos, dueInNanos);
+			}
+
+			// round up, to not wake up before the next channel is due
+			return Math.max((nextTimeoutNanos + 999_999) / 1_000_000, 1);
+		}
 	}
 }
@@ -21,7 +21,9 @@ package org.apache.flink.streaming.runtime.io;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.configuration.Configuration;
@@ -73,6 +75,9 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 
 	private RecordDeserializer<DeserializationDelegate<StreamElement>> currentRecordDeserializer;
 
+	/** The remaining records which a local producer handed over as objects. */
+	private Iterator<Object> currentRecords;
+
 	private final DeserializationDelegate<StreamElement> deserializationDelegate1;
 	private final DeserializationDelegate<StreamElement> deserializationDelegate2;
 
@@ -130,6 +135,9 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 			StreamStatusMaintainer streamStatusMaintainer,
 			TwoInputStreamOperator<IN1, IN2, ?> streamOperator) throws IOException {
 
+		InputGateUtil.enableObjectHandover(inputGates1, taskManagerConfig);
+		InputGateUtil.enableObjectHandover(inputGates2, taskManagerConfig);
+
 		final InputGate inputGate = InputGateUtil.createInputGate(inputGates1, inputGates2);
 
 		if (checkpointMode == CheckpointingMode.EXACTLY_ONCE) {
@@ -177,6 +185,14 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 		this.numInputChannels1 = numInputChannels1;
 		this.numInputChannels2 = inputGate.getNumberOfInputChannels() - numInputChannels1;
 
+		if (barrierHandler instanceof BarrierBuffer) {
+			// records handed over as objects are spilled while their channel is blocked
+			TypeSerializer<StreamElement>[] recordSerializers = new TypeSerializer[inputGate.getNumberOfInputChannels()];
+			Arrays.fill(recordSerializers, 0, numInputChannels1, ser1);
+			Arrays.fill(recordSerializers, numInputChannels1, recordSerializers.length, ser2);
+			((BarrierBuffer) barrierHandler).setRecordSerializers(recordSerializers);
+		}
+
 		this.lastEmittedWatermark1 = Long.MIN_VALUE;
 		this.lastEmittedWatermark2 = Long.MIN_VALUE;
 
@@ -197,6 +213,8 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 		}
 
 		while (true) {
+			StreamElement recordOrWatermark = null;
+
 			if (currentRecordDeserializer != null) {
 				DeserializationResult result;
 				if (currentChannel < numInputChannels1) {
@@ -212,55 +230,68 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 
 				if (result.isFullRecord()) {
 					if (currentChannel < numInputChannels1) {
-						StreamElement recordOrWatermark = deserializationDelegate1.getInstance();
-						if (recordOrWatermark.isWatermark()) {
-							statusWatermarkValve1.inputWatermark(recordOrWatermark.asWatermark(), currentChannel);
-							continue;
-						}
-						else if (recordOrWatermark.isStreamStatus()) {
-							statusWatermarkValve1.inputStreamStatus(recordOrWatermark.asStreamStatus(), currentChannel);
-							continue;
-						}
-						else if (recordOrWatermark.isLatencyMarker()) {
-							synchronized (lock) {
-								streamOperator.processLatencyMarker1(recordOrWatermark.asLatencyMarker());
-							}
-							continue;
-						}
-						else {
-							StreamRecord<IN1> record = recordOrWatermark.asRecord();
-							synchronized (lock) {
-								streamOperator.setKeyContextElement1(record);
-								streamOperator.processElement1(record);
-							}
-							return true;
+						recordOrWatermark = deserializationDelegate1.getInstance();
+					} else {
+						recordOrWatermark = deserializationDelegate2.getInstance();
+					}
+				}
+			}
+			else if (currentRecords != null) {
+				recordOrWatermark = (StreamElement) currentRecords.next();
+
+				if (!currentRecords.hasNext()) {
+					currentRecords = null;
+				}
+			}
 
+			if (recordOrWatermark != null) {
+				if (currentChannel < numInputChannels1) {
+					if (recordOrWatermark.isWatermark()) {
+						statusWatermarkValve1.inputWatermark(recordOrWatermark.asWatermark(), currentChannel);
+						continue;
+					}
+					else if (recordOrWatermark.isStreamStatus()) {
+						statusWatermarkValve1.inputStreamStatus(recordOrWatermark.asStreamStatus(), currentChannel);
+						continue;
+					}
+					else if (recordOrWatermark.isLatencyMarker()) {
+						synchronized (lock) {
+							streamOperator.processLatencyMarker1(recordOrWatermark.asLatencyMarker());
 						}
+						continue;
 					}
 					else {
-						StreamElement recordOrWatermark = deserializationDelegate2.getInstance();
-						if (recordOrWatermark.isWatermark()) {
-							statusWatermarkValve2.inputWatermark(recordOrWatermark.asWatermark(), currentChannel - numInputChannels1);
-							continue;
-						}
-						else if (recordOrWatermark.isStreamStatus()) {
-							statusWatermarkValve2.inputStreamStatus(recordOrWatermark.asStreamStatus(), currentChannel - numInputChannels1);
-							continue;
+						StreamRecord<IN1> record = recordOrWatermark.asRecord();
+						synchronized (lock) {
+							streamOperator.setKeyContextElement1(record);
+							streamOperator.processElement1(record);
 						}
-						else if (recordOrWatermark.isLatencyMarker()) {
-							synchronized (lock) {
-								streamOperator.processLatencyMarker2(recordOrWatermark.asLatencyMarker());
-							}
-							continue;
+						return true;
+
+					}
+				}
+				else {
+					if (recordOrWatermark.isWatermark()) {
+						statusWatermarkValve2.inputWatermark(recordOrWatermark.asWatermark(), currentChannel - numInputChannels1);
+						continue;
+					}
+					else if (recordOrWatermark.isStreamStatus()) {
+						statusWatermarkValve2.inputStreamStatus(recordOrWatermark.asStreamStatus(), currentChannel - numInputChannels1);
+						continue;
+					}
+					else if (recordOrWatermark.isLatencyMarker()) {
+						synchronized (lock) {
+							streamOperator.processLatencyMarker2(recordOrWatermark.asLatencyMarker());
 						}
-						else {
-							StreamRecord<IN2> record = recordOrWatermark.asRecord();
-							synchronized (lock) {
-								streamOperator.setKeyContextElement2(record);
-								streamOperator.processElement2(record);
-							}
-							return true;
+						continue;
+					}
+					else {
+						StreamRecord<IN2> record = recordOrWatermark.asRecord();
+						synchronized (lock) {
+							streamOperator.setKeyContextElement2(record);
+							streamOperator.processElement2(record);
 						}
+						return true;
 					}
 				}
 			}
@@ -273,6 +304,11 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 					currentRecordDeserializer = recordDeserializers[currentChannel];
 					currentRecordDeserializer.setNextBuffer(bufferOrEvent.getBuffer());
 
+				} else if (bufferOrEvent.isRecords()) {
+					// records handed over as objects by a producer in the same task manager
+					currentChannel = bufferOrEvent.getChannelIndex();
+					currentRecords = bufferOrEvent.getRecords().iterator();
+
 				} else {
 					// Event received
 					final AbstractEvent event = bufferOrEvent.getEvent();
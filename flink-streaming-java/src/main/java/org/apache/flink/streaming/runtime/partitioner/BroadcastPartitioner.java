@@ -18,16 +18,19 @@
 package org.apache.flink.streaming.runtime.partitioner;
 
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.runtime.io.network.api.writer.BroadcastChannelSelector;
 import org.apache.flink.runtime.plugable.SerializationDelegate;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 
 /**
- * Partitioner that selects all the output channels.
+ * Partitioner that selects all the output channels. The records are serialized only once into
+ * buffers shared by all channels, see {@link BroadcastChannelSelector}.
  *
  * @param <T> Type of the elements in the Stream being broadcast
  */
 @Internal
-public class BroadcastPartitioner<T> extends StreamPartitioner<T> {
+public class BroadcastPartitioner<T> extends StreamPartitioner<T>
+		implements BroadcastChannelSelector<SerializationDelegate<StreamRecord<T>>> {
 	private static final long serialVersionUID = 1L;
 
 	int[] returnArray;
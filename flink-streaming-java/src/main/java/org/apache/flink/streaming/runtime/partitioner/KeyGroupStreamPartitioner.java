@@ -49,6 +49,10 @@ public class KeyGroupStreamPartitioner<T, K> extends StreamPartitioner<T> implem
 		return maxParallelism;
 	}
 
+	public KeySelector<T, K> getKeySelector() {
+		return keySelector;
+	}
+
 	@Override
 	public int[] selectChannels(
 		SerializationDelegate<StreamRecord<T>> record,
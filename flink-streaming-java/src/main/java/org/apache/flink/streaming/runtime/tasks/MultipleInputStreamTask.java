@@ -78,6 +78,7 @@ public class MultipleInputStreamTask<IN, OUT> extends StreamTask<OUT, OneInputSt
 
 			final Map<InputGate, Integer> inputMapping = Maps.newHashMapWithExpectedSize(inputGates.length);
 			final Map<InputGate, Boolean> sideMap = Maps.newHashMapWithExpectedSize(inputGates.length);
+			final boolean[] updatingInputs = new boolean[serializers.length];
 
 			for (int i = 0; i < inEdges.size(); i++) {
 				int inputType = inEdges.get(i).getTypeNumber();
@@ -91,6 +92,7 @@ public class MultipleInputStreamTask<IN, OUT> extends StreamTask<OUT, OneInputSt
 					SideInputInformation<?> info = sideInfos.get(inputType);
 					serializers[inputType] = info.getSerializer();
 					sideMap.put(reader, true);
+					updatingInputs[inputType] = info.isUpdating();
 				}
 			}
 
@@ -133,6 +135,7 @@ public class MultipleInputStreamTask<IN, OUT> extends StreamTask<OUT, OneInputSt
 				@Override
 				public void disableWrapper() throws Exception {
 					disabled = true;
+					headOperator.sideInputsLoaded();
 					Iterator<StreamRecord<?>> it = headOperator.getBufferedElements();
 					while (it.hasNext()) {
 						numRecordsInInc();
@@ -146,6 +149,7 @@ public class MultipleInputStreamTask<IN, OUT> extends StreamTask<OUT, OneInputSt
 
 			for (int i = 1; i < wrappers.length; i++) {
 				final UUID id = sideInfos.get(i).getId();
+				final boolean updating = sideInfos.get(i).isUpdating();
 				wrappers[i] = new OperatorWrapper() {
 					//private final Counter counter = ((OperatorMetricGroup) headOperator.getMetricGroup()).getIOMetricGroup().getNumRecordsInCounter();
 
@@ -156,6 +160,9 @@ public class MultipleInputStreamTask<IN, OUT> extends StreamTask<OUT, OneInputSt
 
 					@Override
 					public void processWatermark(Watermark mark) throws Exception {
+						if (updating) {
+							headOperator.processSideInputWatermark(id, mark);
+						}
 					}
 
 					@Override
@@ -169,6 +176,7 @@ public class MultipleInputStreamTask<IN, OUT> extends StreamTask<OUT, OneInputSt
 					serializers,
 					realInputMapping,
 					sideMap,
+					updatingInputs,
 					this,
 					configuration.getCheckpointMode(),
 					getCheckpointLock(),
@@ -20,9 +20,14 @@ package org.apache.flink.streaming.runtime.tasks;
 
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.configuration.TaskManagerOptions;
+import org.apache.flink.runtime.concurrent.AcceptFunction;
+import org.apache.flink.runtime.concurrent.Executors;
+import org.apache.flink.runtime.concurrent.Future;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
 import org.apache.flink.streaming.api.graph.StreamConfig;
 import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.runtime.io.InputStatus;
 import org.apache.flink.streaming.runtime.io.StreamInputProcessor;
 
 /**
@@ -61,14 +66,64 @@ public class OneInputStreamTask<IN, OUT> extends StreamTask<OUT, OneInputStreamO
 		}
 	}
 
+	@Override
+	protected StreamTaskMailbox createMailbox() {
+		boolean mailboxLoop = getEnvironment().getTaskManagerInfo().getConfiguration()
+			.getBoolean(TaskManagerOptions.TASK_MAILBOX_LOOP);
+
+		return mailboxLoop ? new StreamTaskMailbox() : null;
+	}
+
 	@Override
 	protected void run() throws Exception {
 		// cache processor reference on the stack, to make the code more JIT friendly
 		final StreamInputProcessor<IN> inputProcessor = this.inputProcessor;
+		final StreamTaskMailbox mailbox = getMailbox();
+
+		if (inputProcessor == null) {
+			// without inputs there is nothing to process, only mails that were already handed over
+			if (mailbox != null) {
+				mailbox.runPendingMails();
+			}
+			return;
+		}
+
+		if (mailbox == null) {
+			while (running && inputProcessor.processInput()) {
+				// all the work happens in the "processInput" method
+			}
+			return;
+		}
+
+		final AcceptFunction<Void> wakeUp = new AcceptFunction<Void>() {
+			@Override
+			public void accept(Void value) {
+				mailbox.wakeUp();
+			}
+		};
+
+		Future<Void> registeredFuture = null;
+
+		while (running) {
+			mailbox.runPendingMails();
 
-		while (running && inputProcessor.processInput()) {
-			// all the work happens in the "processInput" method
+			final InputStatus status = inputProcessor.pollInput();
+			if (status == InputStatus.END_OF_INPUT) {
+				break;
+			}
+			else if (status == InputStatus.NOTHING_AVAILABLE) {
+				final Future<Void> availableFuture = inputProcessor.getAvailableFuture();
+				if (!availableFuture.isDone()) {
+					if (availableFuture != registeredFuture) {
+						availableFuture.thenAcceptAsync(wakeUp, Executors.directExecutor());
+						registeredFuture = availableFuture;
+					}
+					mailbox.awaitMailOrWakeUp();
+				}
+			}
 		}
+
+		mailbox.runPendingMails();
 	}
 
 	@Override
@@ -81,5 +136,10 @@ public class OneInputStreamTask<IN, OUT> extends StreamTask<OUT, OneInputStreamO
 	@Override
 	protected void cancelTask() {
 		running = false;
+
+		final StreamTaskMailbox mailbox = getMailbox();
+		if (mailbox != null) {
+			mailbox.wakeUp();
+		}
 	}
 }
@@ -26,7 +26,10 @@ import java.util.Random;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.execution.Environment;
 import org.apache.flink.runtime.io.network.api.CancelCheckpointMarker;
@@ -378,11 +381,32 @@ public class OperatorChain<OUT, OP extends StreamOperator<OUT>> implements Strea
 			}
 		}
 
-		StreamRecordWriter<SerializationDelegate<StreamRecord<T>>> output =
-				new StreamRecordWriter<>(bufferWriter, outputPartitioner, upStreamConfig.getBufferTimeout());
+		final Configuration taskManagerConfig = taskEnvironment.getTaskManagerInfo().getConfiguration();
+
+		final StreamRecordWriter<SerializationDelegate<StreamRecord<T>>> output = new StreamRecordWriter<>(
+				bufferWriter, outputPartitioner, upStreamConfig.getBufferTimeout(), null,
+				taskManagerConfig.getBoolean(TaskManagerOptions.NETWORK_ADAPTIVE_FLUSHING));
 		output.setMetricGroup(taskEnvironment.getMetricGroup().getIOMetricGroup());
 
-		return new RecordWriterOutput<>(output, outSerializer, sideOutputTag, this);
+		taskEnvironment.getMetricGroup().getIOMetricGroup()
+				.addGroup("output").addGroup(outputIndex)
+				.gauge("effectiveBufferTimeout", new Gauge<Long>() {
+					@Override
+					public Long getValue() {
+						return output.getEffectiveTimeout();
+					}
+				});
+
+		RecordWriterOutput<T> recordWriterOutput = new RecordWriterOutput<>(output, outSerializer, sideOutputTag, this);
+
+		// with object reuse, emitted records may still be changed, so only immutable ones can be handed over
+		if (outSerializer != null
+				&& taskManagerConfig.getBoolean(TaskManagerOptions.NETWORK_LOCAL_OBJECT_HANDOVER)
+				&& (outSerializer.isImmutableType() || !taskEnvironment.getExecutionConfig().isObjectReuseEnabled())) {
+			recordWriterOutput.enableObjectHandover(outSerializer);
+		}
+
+		return recordWriterOutput;
 	}
 
 	// ------------------------------------------------------------------------
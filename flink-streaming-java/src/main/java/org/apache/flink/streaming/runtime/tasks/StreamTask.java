@@ -18,6 +18,7 @@
 package org.apache.flink.streaming.runtime.tasks;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -25,16 +26,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.accumulators.Accumulator;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.configuration.CoreOptions;
 import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.core.fs.Path;
 import org.apache.flink.runtime.checkpoint.CheckpointMetaData;
 import org.apache.flink.runtime.checkpoint.CheckpointMetrics;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions.CheckpointType;
 import org.apache.flink.runtime.checkpoint.SubtaskState;
 import org.apache.flink.runtime.execution.CancelTaskException;
 import org.apache.flink.runtime.execution.Environment;
@@ -47,6 +52,7 @@ import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
 import org.apache.flink.runtime.state.AbstractStateBackend;
 import org.apache.flink.runtime.state.ChainedStateHandle;
 import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.DuplicatingCheckpointStreamFactory;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.OperatorStateBackend;
@@ -54,7 +60,9 @@ import org.apache.flink.runtime.state.OperatorStateHandle;
 import org.apache.flink.runtime.state.StateBackend;
 import org.apache.flink.runtime.state.StateUtil;
 import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.TaskLocalStateStore;
 import org.apache.flink.runtime.state.TaskStateHandles;
+import org.apache.flink.runtime.state.filesystem.FsCheckpointStreamFactory;
 import org.apache.flink.runtime.taskmanager.DispatcherThreadFactory;
 import org.apache.flink.streaming.api.TimeCharacteristic;
 import org.apache.flink.streaming.api.graph.StreamConfig;
@@ -67,6 +75,7 @@ import org.apache.flink.streaming.runtime.streamstatus.StreamStatusMaintainer;
 import org.apache.flink.util.CollectionUtil;
 import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.FutureUtil;
+import org.apache.flink.util.IOUtils;
 import org.apache.flink.util.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -145,6 +154,16 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 	/** Keyed state backend for the head operator, if it is keyed. There can only ever be one. */
 	private AbstractKeyedStateBackend<?> keyedStateBackend;
 
+	/**
+	 * The store for local copies of the keyed state snapshots, or null, if local recovery is
+	 * disabled.
+	 */
+	private TaskLocalStateStore taskLocalStateStore;
+
+	/** The factories that write the local copies of pending keyed state snapshots, by checkpoint id. */
+	private final ConcurrentSkipListMap<Long, DuplicatingCheckpointStreamFactory> localStateStreamFactories =
+			new ConcurrentSkipListMap<>();
+
 	/**
 	 * The internal {@link ProcessingTimeService} used to define the current
 	 * processing time (default = {@code System.currentTimeMillis()}) and
@@ -152,6 +171,12 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 	 */
 	private ProcessingTimeService timerService;
 
+	/**
+	 * The mailbox through which other threads hand work over to the task thread,
+	 * or null, if the task does not run an event driven input loop.
+	 */
+	private StreamTaskMailbox mailbox;
+
 	/** The map of user-defined accumulators of this task. */
 	private Map<String, Accumulator<?, ?>> accumulatorMap;
 
@@ -184,6 +209,15 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 
 	protected abstract void cancelTask() throws Exception;
 
+	/**
+	 * Creates the mailbox through which timers are handed over to the task thread.
+	 * Tasks that do not drain a mailbox in their {@link #run()} method return null,
+	 * in which case timers are triggered directly by the timer thread.
+	 */
+	protected StreamTaskMailbox createMailbox() {
+		return null;
+	}
+
 	// ------------------------------------------------------------------------
 	//  Core work methods of the Stream Task
 	// ------------------------------------------------------------------------
@@ -216,14 +250,20 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 
 			stateBackend = createStateBackend();
 
+			if (getEnvironment().getTaskManagerInfo().getConfiguration().getBoolean(CoreOptions.LOCAL_RECOVERY)) {
+				taskLocalStateStore = getEnvironment().getTaskLocalStateStore();
+			}
+
 			accumulatorMap = getEnvironment().getAccumulatorRegistry().getUserMap();
 
+			mailbox = createMailbox();
+
 			// if the clock is not already set, then assign a default TimeServiceProvider
 			if (timerService == null) {
 				ThreadFactory timerThreadFactory =
 					new DispatcherThreadFactory(TRIGGER_THREAD_GROUP, "Time Trigger for " + getName());
 
-				timerService = new SystemProcessingTimeService(this, getCheckpointLock(), timerThreadFactory);
+				timerService = new SystemProcessingTimeService(this, getCheckpointLock(), timerThreadFactory, mailbox);
 			}
 
 			operatorChain = new OperatorChain<>(this);
@@ -270,6 +310,11 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 			// make sure all timers finish and no new timers can come
 			timerService.quiesceAndAwaitPending();
 
+			// timers that were handed over before the timer service was quiesced still need to run
+			if (mailbox != null) {
+				mailbox.runPendingMails();
+			}
+
 			LOG.debug("Finished task {}", getName());
 
 			// make sure no further checkpoint and notification actions happen.
@@ -293,6 +338,14 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 			// still let the computation fail
 			tryDisposeAllOperators();
 			disposed = true;
+
+			// a finished task is not restored anymore
+			if (taskLocalStateStore != null) {
+				taskLocalStateStore.releaseLocalState(
+						getEnvironment().getJobID(),
+						getEnvironment().getJobVertexId(),
+						getEnvironment().getTaskInfo().getIndexOfThisSubtask());
+			}
 		}
 		finally {
 			// clean up everything we initialized
@@ -632,6 +685,16 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 						operator.notifyOfCompletedCheckpoint(checkpointId);
 					}
 				}
+
+				if (taskLocalStateStore != null) {
+					localStateStreamFactories.headMap(checkpointId).clear();
+
+					taskLocalStateStore.confirmCheckpoint(
+							getEnvironment().getJobID(),
+							getEnvironment().getJobVertexId(),
+							getEnvironment().getTaskInfo().getIndexOfThisSubtask(),
+							checkpointId);
+				}
 			}
 			else {
 				LOG.debug("Ignoring notification of complete checkpoint for not-running task {}", getName());
@@ -748,11 +811,54 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 			throw new RuntimeException("The keyed state backend can only be created once.");
 		}
 
+		keyedStateBackend = createKeyedStateBackendInstance(keySerializer, numberOfKeyGroups, keyGroupRange);
+
+		// restore if we have some old state
+		if (null != restoreStateHandles && null != restoreStateHandles.getManagedKeyedState()) {
+			Collection<KeyedStateHandle> remoteKeyedState = restoreStateHandles.getManagedKeyedState();
+			Collection<KeyedStateHandle> localKeyedState = retrieveLocalKeyedState(remoteKeyedState);
+
+			boolean restoredLocally = false;
+
+			if (localKeyedState != null) {
+				try {
+					keyedStateBackend.restore(localKeyedState);
+					restoredLocally = true;
+
+					LOG.info("Restored the keyed state of {} from local state.", getName());
+				} catch (Exception e) {
+					LOG.warn("Could not restore the keyed state of {} from local state. " +
+							"Restoring from the checkpoint storage instead.", getName(), e);
+
+					// the backend may have been restored partially
+					cancelables.unregisterClosable(keyedStateBackend);
+					IOUtils.closeQuietly(keyedStateBackend);
+					keyedStateBackend.dispose();
+
+					keyedStateBackend = createKeyedStateBackendInstance(keySerializer, numberOfKeyGroups, keyGroupRange);
+				}
+			}
+
+			if (!restoredLocally) {
+				keyedStateBackend.restore(remoteKeyedState);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		AbstractKeyedStateBackend<K> typedBackend = (AbstractKeyedStateBackend<K>) keyedStateBackend;
+		return typedBackend;
+	}
+
+	private <K> AbstractKeyedStateBackend<K> createKeyedStateBackendInstance(
+			TypeSerializer<K> keySerializer,
+			int numberOfKeyGroups,
+			KeyGroupRange keyGroupRange) throws Exception {
+
 		String operatorIdentifier = createOperatorIdentifier(
 				headOperator,
 				configuration.getVertexID());
 
-		keyedStateBackend = stateBackend.createKeyedStateBackend(
+		AbstractKeyedStateBackend<K> backend = stateBackend.createKeyedStateBackend(
 				getEnvironment(),
 				getEnvironment().getJobID(),
 				operatorIdentifier,
@@ -762,16 +868,115 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 				getEnvironment().getTaskKvStateRegistry());
 
 		// let keyed state backend participate in the operator lifecycle, i.e. make it responsive to cancelation
-		cancelables.registerClosable(keyedStateBackend);
+		cancelables.registerClosable(backend);
 
-		// restore if we have some old state
-		if (null != restoreStateHandles && null != restoreStateHandles.getManagedKeyedState()) {
-			keyedStateBackend.restore(restoreStateHandles.getManagedKeyedState());
+		return backend;
+	}
+
+	/**
+	 * Returns the local copies of the given keyed state handles, or null, if local recovery is
+	 * disabled or there is no local copy of one of the handles.
+	 */
+	private Collection<KeyedStateHandle> retrieveLocalKeyedState(Collection<KeyedStateHandle> remoteKeyedState) {
+		if (taskLocalStateStore == null) {
+			return null;
 		}
 
-		@SuppressWarnings("unchecked")
-		AbstractKeyedStateBackend<K> typedBackend = (AbstractKeyedStateBackend<K>) keyedStateBackend;
-		return typedBackend;
+		List<KeyedStateHandle> localKeyedState = new ArrayList<>(remoteKeyedState.size());
+
+		for (KeyedStateHandle remoteStateHandle : remoteKeyedState) {
+			if (remoteStateHandle != null) {
+				KeyedStateHandle localStateHandle = taskLocalStateStore.retrieveLocalState(
+						getEnvironment().getJobID(),
+						getEnvironment().getJobVertexId(),
+						getEnvironment().getTaskInfo().getIndexOfThisSubtask(),
+						remoteStateHandle);
+
+				if (localStateHandle == null) {
+					return null;
+				}
+
+				localKeyedState.add(localStateHandle);
+			}
+		}
+
+		return localKeyedState;
+	}
+
+	/**
+	 * Returns the stream factory for the snapshot of the keyed state backend. If local recovery
+	 * is enabled, the returned factory additionally writes a local copy of the snapshot, which
+	 * is handed to the {@link TaskLocalStateStore} once the checkpoint is acknowledged.
+	 *
+	 * @param checkpointStreamFactory The factory for the checkpoint storage.
+	 * @param checkpointId The id of the checkpoint.
+	 * @param checkpointOptions The options of the checkpoint.
+	 * @return The stream factory for the keyed state snapshot.
+	 */
+	public CheckpointStreamFactory createKeyedStateStreamFactory(
+			CheckpointStreamFactory checkpointStreamFactory,
+			long checkpointId,
+			CheckpointOptions checkpointOptions) {
+
+		if (taskLocalStateStore == null ||
+				checkpointOptions.getCheckpointType() != CheckpointType.FULL_CHECKPOINT ||
+				keyedStateBackend == null ||
+				!keyedStateBackend.supportsLocalStateCopies()) {
+
+			return checkpointStreamFactory;
+		}
+
+		try {
+			File localStateDirectory = taskLocalStateStore.createLocalStateDirectory(
+					getEnvironment().getJobID(),
+					getEnvironment().getJobVertexId(),
+					getEnvironment().getTaskInfo().getIndexOfThisSubtask(),
+					checkpointId);
+
+			// small state is written to files as well, so that it does not occupy TaskManager memory
+			CheckpointStreamFactory localStreamFactory = new FsCheckpointStreamFactory(
+					new Path(localStateDirectory.toURI()), getEnvironment().getJobID(), 0);
+
+			DuplicatingCheckpointStreamFactory duplicatingStreamFactory =
+					new DuplicatingCheckpointStreamFactory(checkpointStreamFactory, localStreamFactory);
+
+			localStateStreamFactories.put(checkpointId, duplicatingStreamFactory);
+
+			return duplicatingStreamFactory;
+		} catch (Exception e) {
+			LOG.warn("Could not create the local state directory of checkpoint {} for {}. " +
+					"The checkpoint is taken without local copy.", checkpointId, getName(), e);
+
+			return checkpointStreamFactory;
+		}
+	}
+
+	/**
+	 * Hands the local copy of an acknowledged keyed state snapshot over to the
+	 * {@link TaskLocalStateStore}. Failures only lose the local copy.
+	 */
+	private void storeLocalKeyedState(long checkpointId, KeyedStateHandle remoteKeyedState) {
+		DuplicatingCheckpointStreamFactory duplicatingStreamFactory = localStateStreamFactories.remove(checkpointId);
+
+		if (duplicatingStreamFactory == null || remoteKeyedState == null) {
+			return;
+		}
+
+		try {
+			KeyedStateHandle localKeyedState = duplicatingStreamFactory.getSecondaryKeyedStateHandle(remoteKeyedState);
+
+			if (localKeyedState != null) {
+				taskLocalStateStore.storeLocalState(
+						getEnvironment().getJobID(),
+						getEnvironment().getJobVertexId(),
+						getEnvironment().getTaskInfo().getIndexOfThisSubtask(),
+						checkpointId,
+						remoteKeyedState,
+						localKeyedState);
+			}
+		} catch (Exception e) {
+			LOG.warn("Could not store the local copy of checkpoint {} for {}.", checkpointId, getName(), e);
+		}
 	}
 
 	/**
@@ -799,6 +1004,13 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 				"_" + getEnvironment().getTaskInfo().getIndexOfThisSubtask();
 	}
 
+	/**
+	 * Returns the mailbox of this task, or null, if the task does not use one.
+	 */
+	protected StreamTaskMailbox getMailbox() {
+		return mailbox;
+	}
+
 	/**
 	 * Returns the {@link ProcessingTimeService} responsible for telling the current
 	 * processing time and registering timers.
@@ -936,6 +1148,8 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 						checkpointMetrics,
 						subtaskState);
 
+					owner.storeLocalKeyedState(checkpointMetaData.getCheckpointId(), keyedStateHandleBackend);
+
 					if (LOG.isDebugEnabled()) {
 						LOG.debug("{} - finished asynchronous part of checkpoint {}. Asynchronous duration: {} ms",
 							owner.getName(), checkpointMetaData.getCheckpointId(), asyncDurationMillis);
@@ -967,6 +1181,7 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 
 				owner.handleAsyncException("Failure in asynchronous checkpoint materialization", asyncException);
 			} finally {
+				owner.localStateStreamFactories.remove(checkpointMetaData.getCheckpointId());
 				owner.cancelables.unregisterClosable(this);
 			}
 		}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.tasks;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import org.apache.flink.annotation.Internal;
+
+/**
+ * A queue of actions ("mails") that are executed by the task's main thread, in between the
+ * processing of input records.
+ *
+ * <p>Other threads (for example the timer thread) hand their work over to the task thread via
+ * {@link #execute(Runnable)}, so that the work does not have to compete with the record
+ * processing for the checkpoint lock. When there is neither input nor mail available, the task
+ * thread parks in {@link #awaitMailOrWakeUp()} until either new mail arrives or it is woken up
+ * via {@link #wakeUp()}, for example because input became available or the task was canceled.
+ */
+@Internal
+public class StreamTaskMailbox implements Executor {
+
+	/** Lock guarding the queue and the wake up flag. */
+	private final Object lock = new Object();
+
+	/** The pending mails, in order of submission. */
+	private final ArrayDeque<Runnable> mails = new ArrayDeque<>();
+
+	/** Flag to cheaply check for pending mails without acquiring the lock. */
+	private volatile boolean hasMail;
+
+	/** Flag marking that the task thread should return from waiting. */
+	private boolean wakeUp;
+
+	/**
+	 * Enqueues the given action, to be executed by the task thread.
+	 */
+	@Override
+	public void execute(Runnable mail) {
+		checkNotNull(mail);
+
+		synchronized (lock) {
+			mails.addLast(mail);
+			hasMail = true;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Checks whether there are mails that have not been executed yet.
+	 */
+	public boolean hasMail() {
+		return hasMail;
+	}
+
+	/**
+	 * Executes all pending mails in the calling thread. Mails are executed outside of the
+	 * mailbox lock, so that they may enqueue further mails.
+	 *
+	 * @return The number of executed mails.
+	 */
+	public int runPendingMails() {
+		int numMails = 0;
+
+		while (hasMail) {
+			final Runnable mail;
+			synchronized (lock) {
+				mail = mails.pollFirst();
+				hasMail = !mails.isEmpty();
+			}
+
+			if (mail != null) {
+				mail.run();
+				numMails++;
+			}
+		}
+
+		return numMails;
+	}
+
+	/**
+	 * Blocks until there is mail or until {@link #wakeUp()} has been called. A call to
+	 * {@link #wakeUp()} that happened since the last return of this method makes it return
+	 * immediately.
+	 *
+	 * @throws InterruptedException Thrown, if the thread is interrupted while waiting.
+	 */
+	public void awaitMailOrWakeUp() throws InterruptedException {
+		synchronized (lock) {
+			while (mails.isEmpty() && !wakeUp) {
+				lock.wait();
+			}
+			wakeUp = false;
+		}
+	}
+
+	/**
+	 * Makes a thread waiting in {@link #awaitMailOrWakeUp()} return.
+	 */
+	public void wakeUp() {
+		synchronized (lock) {
+			wakeUp = true;
+			lock.notifyAll();
+		}
+	}
+}
@@ -22,6 +22,7 @@ import static org.apache.flink.util.Preconditions.checkNotNull;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -54,6 +55,12 @@ public class SystemProcessingTimeService extends ProcessingTimeService {
 	/** The executor service that schedules and calls the triggers of this task. */
 	private final ScheduledThreadPoolExecutor timerService;
 
+	/**
+	 * The executor through which the triggers are executed, for example the task's mailbox.
+	 * If null, the triggers are executed directly by the timer thread.
+	 */
+	private final Executor triggerExecutor;
+
 	private final AtomicInteger status;
 
 
@@ -65,9 +72,18 @@ public class SystemProcessingTimeService extends ProcessingTimeService {
 			AsyncExceptionHandler task,
 			Object checkpointLock,
 			ThreadFactory threadFactory) {
+		this(task, checkpointLock, threadFactory, null);
+	}
+
+	public SystemProcessingTimeService(
+			AsyncExceptionHandler task,
+			Object checkpointLock,
+			ThreadFactory threadFactory,
+			Executor triggerExecutor) {
 
 		this.task = checkNotNull(task);
 		this.checkpointLock = checkNotNull(checkpointLock);
+		this.triggerExecutor = triggerExecutor;
 
 		this.status = new AtomicInteger(STATUS_ALIVE);
 
@@ -107,7 +123,7 @@ public class SystemProcessingTimeService extends ProcessingTimeService {
 		// that way we save unnecessary volatile accesses for each timer
 		try {
 			return timerService.schedule(
-					new TriggerTask(task, checkpointLock, target, timestamp), delay, TimeUnit.MILLISECONDS);
+					handOver(new TriggerTask(task, checkpointLock, target, timestamp)), delay, TimeUnit.MILLISECONDS);
 		}
 		catch (RejectedExecutionException e) {
 			final int status = this.status.get();
@@ -132,7 +148,7 @@ public class SystemProcessingTimeService extends ProcessingTimeService {
 		// that way we save unnecessary volatile accesses for each timer
 		try {
 			return timerService.scheduleAtFixedRate(
-				new RepeatedTriggerTask(task, checkpointLock, callback, nextTimestamp, period),
+				handOver(new RepeatedTriggerTask(task, checkpointLock, callback, nextTimestamp, period)),
 				initialDelay,
 				period,
 				TimeUnit.MILLISECONDS);
@@ -151,6 +167,10 @@ public class SystemProcessingTimeService extends ProcessingTimeService {
 		}
 	}
 
+	private Runnable handOver(Runnable trigger) {
+		return triggerExecutor == null ? trigger : new HandOverTask(triggerExecutor, trigger);
+	}
+
 	@Override
 	public boolean isTerminated() {
 		return status.get() == STATUS_SHUTDOWN;
@@ -263,6 +283,26 @@ public class SystemProcessingTimeService extends ProcessingTimeService {
 		}
 	}
 
+	/**
+	 * Internal task which is invoked by the timer service and hands the actual trigger over
+	 * to the trigger executor.
+	 */
+	private static final class HandOverTask implements Runnable {
+
+		private final Executor executor;
+		private final Runnable trigger;
+
+		private HandOverTask(Executor executor, Runnable trigger) {
+			this.executor = executor;
+			this.trigger = trigger;
+		}
+
+		@Override
+		public void run() {
+			executor.execute(trigger);
+		}
+	}
+
 	// ------------------------------------------------------------------------
 
 	private static final class NeverCompleteFuture implements ScheduledFuture<Object> {
@@ -1046,6 +1046,60 @@ public class DataStreamTest {
 		env.execute("side inputs");
 	}
 
+	@Test
+	public void testSideInputsKeyedLookup() throws Exception {
+		final StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+		env.setParallelism(4);
+		env.setMaxParallelism(1 << 15);
+
+		DataStream<String> source1 = env.fromElements("Hello", "There", "What", "up");
+
+		DataStream<Tuple2<Long, String>> sideSource = env.generateSequence(0, 15).map(new MapFunction<Long, Tuple2<Long, String>>() {
+			@Override
+			public Tuple2<Long, String> map(Long value) throws Exception {
+				String[] strings = new String[] { "Hello", "There", "What", "up" };
+				return new Tuple2<>(value, strings[value.intValue() % 4]);
+			}
+		});
+
+		final SideInput<Tuple2<Long, String>> sideInput = env.newKeyedSideInput(sideSource, 1);
+
+		source1.map(new MapFunction<String, Tuple2<String, Integer>>() {
+
+			@Override
+			public Tuple2<String, Integer> map(String value) throws Exception {
+				return new Tuple2<>(value, 0);
+			}
+		}).keyBy(0)
+			.map(new RichMapFunction<Tuple2<String, Integer>, String>() {
+				@Override
+				public String map(Tuple2<String, Integer> value) throws Exception {
+					List<Tuple2<Long, String>> matches = getRuntimeContext().lookupSideInput(sideInput, value.f0);
+					if (matches.size() != 4) {
+						throw new IllegalStateException("Expected 4 matches for " + value.f0 + " but got " + matches);
+					}
+					for (Tuple2<Long, String> match : matches) {
+						if (!match.f1.equals(value.f0)) {
+							throw new IllegalStateException("Wrong match " + match + " for " + value.f0);
+						}
+					}
+					try {
+						matches.clear();
+						throw new IllegalStateException("The matches of " + value.f0 + " could be modified");
+					} catch (UnsupportedOperationException e) {
+						// expected
+					}
+					if (!getRuntimeContext().lookupSideInput(sideInput, "unknown").isEmpty()) {
+						throw new IllegalStateException("Unexpected match for an unknown key");
+					}
+					return value.f0;
+				}
+			})
+			.withSideInput(sideInput)
+		;
+		env.execute("keyed side input lookup");
+	}
+
 	/////////////////////////////////////////////////////////////
 	// KeyBy testing
 	/////////////////////////////////////////////////////////////
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.functions.MapFunction;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.typeutils.TupleTypeInfo;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.TaskManagerOptions;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.operators.testutils.MockEnvironment;
+import org.apache.flink.runtime.operators.testutils.MockInputSplitProvider;
+import org.apache.flink.runtime.state.IncrementalOperatorStateHandle;
+import org.apache.flink.runtime.state.OperatorStateHandle;
+import org.apache.flink.runtime.state.memory.MemoryStateBackend;
+import org.apache.flink.runtime.taskmanager.TaskManagerRuntimeInfo;
+import org.apache.flink.runtime.util.TestingTaskManagerRuntimeInfo;
+import org.apache.flink.streaming.api.graph.StreamConfig;
+import org.apache.flink.streaming.api.transformations.utils.SideInputInformation;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.runtime.tasks.OperatorStateHandles;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.apache.flink.util.FutureUtil;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the checkpointing of side inputs in the {@link AbstractStreamOperator}.
+ */
+public class AbstractStreamOperatorSideInputTest {
+
+	private static final TypeInformation<Tuple2<Integer, String>> TYPE_INFO =
+		new TupleTypeInfo<>(BasicTypeInfo.INT_TYPE_INFO, BasicTypeInfo.STRING_TYPE_INFO);
+
+	private static final UUID SIDE_INPUT_ID = UUID.randomUUID();
+
+	/**
+	 * Tests that the elements of a serialized side input are checkpointed as distinct objects
+	 * when object reuse is enabled, although the side input hands out the same instance.
+	 */
+	@Test
+	public void testSnapshotSerializedSideInputWithObjectReuse() throws Exception {
+		List<Tuple2<Integer, String>> elements = Arrays.asList(
+			Tuple2.of(1, "a"), Tuple2.of(2, "b"), Tuple2.of(3, "c"));
+
+		StreamMap<Tuple2<Integer, String>, Tuple2<Integer, String>> operator = new StreamMap<>(new IdentityMap());
+		OneInputStreamOperatorTestHarness<Tuple2<Integer, String>, Tuple2<Integer, String>> testHarness =
+			createTestHarness(operator);
+		testHarness.open();
+
+		for (Tuple2<Integer, String> element : elements) {
+			operator.processSideInputElement(SIDE_INPUT_ID, new StreamRecord<>(element));
+		}
+
+		OperatorStateHandles snapshot = testHarness.snapshot(0L, 0L);
+		testHarness.close();
+
+		operator = new StreamMap<>(new IdentityMap());
+		testHarness = createTestHarness(operator);
+		testHarness.initializeState(snapshot);
+		testHarness.open();
+
+		List<Tuple2<Integer, String>> restored = operator.getSideInput(SIDE_INPUT_ID);
+		assertEquals(elements.size(), restored.size());
+		for (int i = 0; i < elements.size(); i++) {
+			assertEquals(elements.get(i), restored.get(i));
+		}
+
+		testHarness.close();
+	}
+
+	/**
+	 * Tests that a side input that has been loaded completely is written to a file once, which
+	 * checkpoints reference after the checkpoint that wrote it has completed.
+	 */
+	@Test
+	public void testLoadedSideInputIsWrittenOnce() throws Exception {
+		List<Tuple2<Integer, String>> elements = Arrays.asList(
+			Tuple2.of(1, "a"), Tuple2.of(2, "b"), Tuple2.of(3, "c"));
+
+		StreamMap<Tuple2<Integer, String>, Tuple2<Integer, String>> operator = new StreamMap<>(new IdentityMap());
+		OneInputStreamOperatorTestHarness<Tuple2<Integer, String>, Tuple2<Integer, String>> testHarness =
+			createTestHarness(operator);
+		testHarness.open();
+
+		for (Tuple2<Integer, String> element : elements) {
+			operator.processSideInputElement(SIDE_INPUT_ID, new StreamRecord<>(element));
+		}
+		operator.sideInputsLoaded();
+
+		IncrementalOperatorStateHandle first = getOperatorStateHandle(testHarness.snapshot(1L, 1L));
+		assertEquals(1, first.getNewSharedState().size());
+
+		// the first checkpoint has not completed yet and may still fail, so its file is not reused
+		IncrementalOperatorStateHandle second = getOperatorStateHandle(testHarness.snapshot(2L, 2L));
+		assertEquals(1, second.getNewSharedState().size());
+		assertFalse(first.getSharedState().keySet().equals(second.getSharedState().keySet()));
+
+		testHarness.notifyOfCompletedCheckpoint(2L);
+
+		OperatorStateHandles snapshot = testHarness.snapshot(3L, 3L);
+		IncrementalOperatorStateHandle third = getOperatorStateHandle(snapshot);
+		assertTrue(third.getNewSharedState().isEmpty());
+		assertEquals(second.getSharedState(), third.getSharedState());
+		testHarness.close();
+
+		operator = new StreamMap<>(new IdentityMap());
+		testHarness = createTestHarness(operator);
+		testHarness.initializeState(snapshot);
+		testHarness.open();
+
+		List<Tuple2<Integer, String>> restoredElements = operator.getSideInput(SIDE_INPUT_ID);
+		assertEquals(elements.size(), restoredElements.size());
+		for (int i = 0; i < elements.size(); i++) {
+			assertEquals(elements.get(i), restoredElements.get(i));
+		}
+
+		// the restored file is referenced again once the side input is loaded
+		operator.sideInputsLoaded();
+		IncrementalOperatorStateHandle restored = getOperatorStateHandle(testHarness.snapshot(4L, 4L));
+		assertTrue(restored.getNewSharedState().isEmpty());
+		assertEquals(third.getSharedState(), restored.getSharedState());
+
+		testHarness.close();
+	}
+
+	/**
+	 * Tests that the managed main input buffer is checkpointed and restored in serialized form.
+	 */
+	@Test
+	public void testSnapshotMainInputBuffer() throws Exception {
+		StreamMap<Tuple2<Integer, String>, Tuple2<Integer, String>> operator = new StreamMap<>(new IdentityMap());
+		OneInputStreamOperatorTestHarness<Tuple2<Integer, String>, Tuple2<Integer, String>> testHarness =
+			createTestHarness(operator);
+		testHarness.open();
+
+		for (int i = 0; i < 10_000; i++) {
+			operator.bufferMainElement(new StreamRecord<>(Tuple2.of(i, "record-" + i), i));
+		}
+
+		OperatorStateHandles snapshot = testHarness.snapshot(1L, 1L);
+		IncrementalOperatorStateHandle handle = getOperatorStateHandle(snapshot);
+		assertEquals(1, handle.getNewSharedState().size());
+		testHarness.close();
+
+		operator = new StreamMap<>(new IdentityMap());
+		testHarness = createTestHarness(operator);
+		testHarness.initializeState(snapshot);
+		testHarness.open();
+
+		Iterator<StreamRecord<?>> buffered = operator.getBufferedElements();
+		for (int i = 0; i < 10_000; i++) {
+			StreamRecord<?> record = buffered.next();
+			assertEquals(Tuple2.of(i, "record-" + i), record.getValue());
+			assertEquals(i, record.getTimestamp());
+		}
+		assertFalse(buffered.hasNext());
+
+		testHarness.close();
+	}
+
+	/**
+	 * Tests that the main input buffer is written in the asynchronous part of a snapshot, with
+	 * the records that were buffered when the synchronous part was taken.
+	 */
+	@Test
+	public void testMainInputBufferIsWrittenAsynchronously() throws Exception {
+		StreamMap<Tuple2<Integer, String>, Tuple2<Integer, String>> operator = new StreamMap<>(new IdentityMap());
+		OneInputStreamOperatorTestHarness<Tuple2<Integer, String>, Tuple2<Integer, String>> testHarness =
+			createTestHarness(operator);
+		testHarness.setStateBackend(new MemoryStateBackend(true));
+		testHarness.open();
+
+		for (int i = 0; i < 10_000; i++) {
+			operator.bufferMainElement(new StreamRecord<>(Tuple2.of(i, "record-" + i), i));
+		}
+
+		OperatorSnapshotResult result = operator.snapshotState(1L, 1L, CheckpointOptions.forFullCheckpoint());
+
+		for (int i = 10_000; i < 20_000; i++) {
+			operator.bufferMainElement(new StreamRecord<>(Tuple2.of(i, "record-" + i), i));
+		}
+
+		OperatorStateHandle handle = FutureUtil.runIfNotDoneAndGet(result.getOperatorStateManagedFuture());
+		assertTrue(handle instanceof IncrementalOperatorStateHandle);
+		testHarness.close();
+
+		operator = new StreamMap<>(new IdentityMap());
+		testHarness = createTestHarness(operator);
+		testHarness.initializeState(new OperatorStateHandles(
+			0, null, null, null, Collections.singletonList(handle), null));
+		testHarness.open();
+
+		Iterator<StreamRecord<?>> buffered = operator.getBufferedElements();
+		for (int i = 0; i < 10_000; i++) {
+			StreamRecord<?> record = buffered.next();
+			assertEquals(Tuple2.of(i, "record-" + i), record.getValue());
+		}
+		assertFalse(buffered.hasNext());
+
+		testHarness.close();
+	}
+
+	private static IncrementalOperatorStateHandle getOperatorStateHandle(OperatorStateHandles snapshot) {
+		assertEquals(1, snapshot.getManagedOperatorState().size());
+		OperatorStateHandle handle = snapshot.getManagedOperatorState().iterator().next();
+		assertTrue(handle instanceof IncrementalOperatorStateHandle);
+		return (IncrementalOperatorStateHandle) handle;
+	}
+
+	private static OneInputStreamOperatorTestHarness<Tuple2<Integer, String>, Tuple2<Integer, String>> createTestHarness(
+			OneInputStreamOperator<Tuple2<Integer, String>, Tuple2<Integer, String>> operator) throws Exception {
+
+		Configuration taskManagerConfig = new Configuration();
+		taskManagerConfig.setBoolean(TaskManagerOptions.TASK_SIDE_INPUT_SERIALIZED_STORAGE, true);
+
+		ExecutionConfig executionConfig = new ExecutionConfig();
+		executionConfig.enableObjectReuse();
+
+		OneInputStreamOperatorTestHarness<Tuple2<Integer, String>, Tuple2<Integer, String>> testHarness =
+			new OneInputStreamOperatorTestHarness<>(
+				operator,
+				TYPE_INFO.createSerializer(executionConfig),
+				new SideInputEnvironment(taskManagerConfig, executionConfig));
+
+		SideInputInformation<Tuple2<Integer, String>> info = new SideInputInformation<>(SIDE_INPUT_ID, 2, TYPE_INFO);
+		info.setSerializer(TYPE_INFO.createSerializer(executionConfig));
+		// the harness reads its stream config from the task configuration of the environment
+		StreamConfig config = new StreamConfig(testHarness.getEnvironment().getTaskConfiguration());
+		config.setNumberOfSideInputs(1);
+		config.setSideInputsTypeSerializers(Collections.<Integer, SideInputInformation<?>>singletonMap(2, info));
+
+		return testHarness;
+	}
+
+	private static class IdentityMap implements MapFunction<Tuple2<Integer, String>, Tuple2<Integer, String>> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Tuple2<Integer, String> map(Tuple2<Integer, String> value) {
+			return value;
+		}
+	}
+
+	/**
+	 * Mock environment with a configurable TaskManager configuration.
+	 */
+	private static class SideInputEnvironment extends MockEnvironment {
+
+		private final Configuration taskManagerConfig;
+
+		SideInputEnvironment(Configuration taskManagerConfig, ExecutionConfig executionConfig) {
+			super("SideInputTask", 3 * 1024 * 1024, new MockInputSplitProvider(), 1024, new Configuration(), executionConfig);
+			this.taskManagerConfig = taskManagerConfig;
+		}
+
+		@Override
+		public TaskManagerRuntimeInfo getTaskManagerInfo() {
+			return new TestingTaskManagerRuntimeInfo(taskManagerConfig);
+		}
+	}
+}
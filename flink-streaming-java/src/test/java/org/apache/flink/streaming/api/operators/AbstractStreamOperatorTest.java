@@ -574,6 +574,7 @@ public class AbstractStreamOperatorTest {
 		CheckpointStreamFactory streamFactory = mock(CheckpointStreamFactory.class);
 		StreamTask<Void, AbstractStreamOperator<Void>> containingTask = mock(StreamTask.class);
 		when(containingTask.getCancelables()).thenReturn(closeableRegistry);
+		when(containingTask.createKeyedStateStreamFactory(eq(streamFactory), eq(checkpointId), any(CheckpointOptions.class))).thenReturn(streamFactory);
 
 		AbstractStreamOperator<Void> operator = mock(AbstractStreamOperator.class);
 		when(operator.snapshotState(anyLong(), anyLong(), any(CheckpointOptions.class))).thenCallRealMethod();
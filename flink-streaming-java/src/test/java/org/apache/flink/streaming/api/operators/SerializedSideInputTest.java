@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.api.common.typeutils.base.array.LongPrimitiveArraySerializer;
+import org.apache.flink.core.memory.MemoryType;
+import org.apache.flink.runtime.memory.MemoryManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the {@link SerializedSideInput}.
+ */
+public class SerializedSideInputTest {
+
+	private static final int PAGE_SIZE = 4096;
+
+	private static final int NUM_PAGES = 64;
+
+	private MemoryManager memoryManager;
+
+	@Before
+	public void setupMemoryManager() {
+		memoryManager = new MemoryManager(NUM_PAGES * PAGE_SIZE, 1, PAGE_SIZE, MemoryType.HEAP, true);
+	}
+
+	@After
+	public void shutdownMemoryManager() {
+		memoryManager.shutdown();
+	}
+
+	@Test
+	public void testAddAndGet() {
+		// many elements, so elements span page boundaries
+		SerializedSideInput<String> sideInput = createSideInput(StringSerializer.INSTANCE, false);
+		List<String> expected = new ArrayList<>();
+
+		for (int i = 0; i < 10_000; i++) {
+			String element = "element-" + i;
+			sideInput.add(element);
+			expected.add(element);
+
+			// reading in between adding must see all elements so far
+			if (i % 1000 == 0) {
+				assertEquals(expected, sideInput);
+			}
+		}
+
+		assertEquals(10_000, sideInput.size());
+		assertEquals(expected, sideInput);
+		assertEquals("element-5000", sideInput.get(5000));
+
+		sideInput.release();
+	}
+
+	@Test
+	public void testLargeElements() {
+		SerializedSideInput<long[]> sideInput = createSideInput(LongPrimitiveArraySerializer.INSTANCE, false);
+		// larger than a page
+		long[] first = new long[1000];
+		long[] second = new long[] {1L, 2L, 3L};
+		for (int i = 0; i < first.length; i++) {
+			first[i] = i;
+		}
+
+		sideInput.add(first);
+		sideInput.add(second);
+
+		assertArrayEquals(first, sideInput.get(0));
+		assertArrayEquals(second, sideInput.get(1));
+
+		sideInput.release();
+	}
+
+	@Test
+	public void testObjectReuse() {
+		SerializedSideInput<long[]> sideInput = createSideInput(LongPrimitiveArraySerializer.INSTANCE, true);
+		sideInput.add(new long[] {1L});
+		sideInput.add(new long[] {2L});
+
+		long[] first = sideInput.get(0);
+		assertArrayEquals(new long[] {1L}, first);
+		assertArrayEquals(new long[] {2L}, sideInput.get(1));
+
+		sideInput.release();
+	}
+
+	@Test
+	public void testReadView() {
+		SerializedSideInput<String> sideInput = createSideInput(StringSerializer.INSTANCE, false);
+		for (int i = 0; i < 1000; i++) {
+			sideInput.add("element-" + i);
+		}
+
+		SerializedSideInput<String> view = sideInput.createReadView(false);
+		assertEquals(sideInput, view);
+
+		try {
+			view.add("other");
+			fail("Expected an exception");
+		} catch (UnsupportedOperationException ignored) {
+			// expected
+		}
+
+		try {
+			view.set(0, "other");
+			fail("Expected an exception");
+		} catch (UnsupportedOperationException ignored) {
+			// expected
+		}
+
+		try {
+			view.release();
+			fail("Expected an exception");
+		} catch (UnsupportedOperationException ignored) {
+			// expected
+		}
+
+		// elements added later are not visible in the view
+		sideInput.add("late");
+		assertEquals(1000, view.size());
+		assertEquals(1001, sideInput.size());
+		assertEquals("late", sideInput.get(1000));
+
+		sideInput.release();
+	}
+
+	@Test
+	public void testRelease() {
+		SerializedSideInput<String> sideInput = createSideInput(StringSerializer.INSTANCE, false);
+		for (int i = 0; i < 1000; i++) {
+			sideInput.add("element-" + i);
+		}
+		assertFalse(memoryManager.verifyEmpty());
+		assertTrue(sideInput.getMemorySize() > 0);
+
+		sideInput.release();
+		sideInput.release();
+		assertTrue(memoryManager.verifyEmpty());
+
+		try {
+			sideInput.get(0);
+			fail("Expected an exception");
+		} catch (IllegalStateException ignored) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testMemoryExhausted() {
+		SerializedSideInput<long[]> sideInput = createSideInput(LongPrimitiveArraySerializer.INSTANCE, false);
+		try {
+			// every element fills more than a page
+			for (int i = 0; i <= NUM_PAGES; i++) {
+				sideInput.add(new long[PAGE_SIZE / 8]);
+			}
+			fail("Expected an exception");
+		} catch (RuntimeException ignored) {
+			// expected
+		}
+
+		sideInput.release();
+		assertTrue(memoryManager.verifyEmpty());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOutOfBounds() {
+		SerializedSideInput<String> sideInput = createSideInput(StringSerializer.INSTANCE, false);
+		sideInput.add("a");
+		sideInput.get(1);
+	}
+
+	@Test
+	public void testEmpty() {
+		SerializedSideInput<String> sideInput = createSideInput(StringSerializer.INSTANCE, false);
+		assertEquals(0, sideInput.size());
+		assertEquals(0, sideInput.getMemorySize());
+		assertFalse(sideInput.iterator().hasNext());
+		assertTrue(memoryManager.verifyEmpty());
+	}
+
+	private <T> SerializedSideInput<T> createSideInput(
+			TypeSerializer<T> serializer,
+			boolean objectReuse) {
+		return new SerializedSideInput<>(serializer, memoryManager, this, objectReuse);
+	}
+}
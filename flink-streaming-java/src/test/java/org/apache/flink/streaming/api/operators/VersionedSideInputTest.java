@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link VersionedSideInput}.
+ */
+public class VersionedSideInputTest {
+
+	@Test
+	public void testVersionsArePublishedOnWatermarks() {
+		VersionedSideInput<String> sideInput = new VersionedSideInput<>();
+		assertEquals(Collections.emptyList(), sideInput.get());
+
+		sideInput.add("a");
+		sideInput.add("b");
+
+		// pending elements are not visible before the watermark
+		assertEquals(Collections.emptyList(), sideInput.get());
+		assertEquals(0, sideInput.getVersion());
+
+		assertTrue(sideInput.advanceWatermark(1L));
+		List<String> first = sideInput.get();
+		assertEquals(Arrays.asList("a", "b"), first);
+		assertEquals(1, sideInput.getVersion());
+
+		sideInput.add("c");
+		assertTrue(sideInput.advanceWatermark(2L));
+		assertEquals(Collections.singletonList("c"), sideInput.get());
+		assertEquals(2, sideInput.getVersion());
+
+		// a previously handed out version stays unchanged
+		assertEquals(Arrays.asList("a", "b"), first);
+	}
+
+	@Test
+	public void testEmptyOrStaleWatermarksKeepVersion() {
+		VersionedSideInput<String> sideInput = new VersionedSideInput<>();
+		sideInput.add("a");
+		assertTrue(sideInput.advanceWatermark(5L));
+
+		// no new elements
+		assertFalse(sideInput.advanceWatermark(6L));
+		assertEquals(Collections.singletonList("a"), sideInput.get());
+
+		// the watermark did not advance
+		sideInput.add("b");
+		assertFalse(sideInput.advanceWatermark(6L));
+		assertEquals(Collections.singletonList("a"), sideInput.get());
+		assertEquals(1, sideInput.getVersion());
+
+		assertTrue(sideInput.advanceWatermark(7L));
+		assertEquals(Collections.singletonList("b"), sideInput.get());
+	}
+
+	@Test
+	public void testRestore() {
+		VersionedSideInput<String> sideInput = new VersionedSideInput<>();
+		sideInput.restore(Arrays.asList("a", "b"), Collections.singletonList("c"));
+
+		assertEquals(Arrays.asList("a", "b"), sideInput.get());
+		assertEquals(Collections.singletonList("c"), sideInput.getPending());
+
+		assertTrue(sideInput.advanceWatermark(1L));
+		assertEquals(Collections.singletonList("c"), sideInput.get());
+	}
+}
@@ -18,6 +18,8 @@
 
 package org.apache.flink.streaming.runtime.io;
 
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.checkpoint.CheckpointMetrics;
@@ -31,6 +33,9 @@ import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
 import org.apache.flink.runtime.jobgraph.tasks.StatefulTask;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElementSerializer;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
@@ -40,7 +45,9 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
@@ -268,6 +275,66 @@ public class BarrierBufferAlignmentLimitTest {
 		checkNoTempFilesRemain();
 	}
 
+	/**
+	 * This tests that records handed over as objects are spilled during the alignment and count
+	 * towards the limit.
+	 */
+	@Test
+	public void testBreakCheckpointAtAlignmentLimitWithRecords() throws Exception {
+		BufferOrEvent[] sequence = {
+				// starting a checkpoint
+				/* 0 */ createBarrier(7, 0),
+				/* 1 */ createRecords(0, 100), createRecords(1, 10),
+
+				// these records make the alignment spill too large
+				/* 3 */ createRecords(0, 100),
+
+				// checkpoint completes - this should not result in a "completion notification"
+				/* 4 */ createBarrier(7, 1),
+
+				// trailing records
+				/* 5 */ createRecords(0, 10), createRecords(1, 10)
+		};
+
+		// the barrier buffer has a limit that only 1000 bytes may be spilled in alignment
+		MockInputGate gate = new MockInputGate(PAGE_SIZE, 2, Arrays.asList(sequence));
+		BarrierBuffer buffer = new BarrierBuffer(gate, IO_MANAGER, 1000);
+
+		TypeSerializer<StreamElement> serializer = new StreamElementSerializer<>(IntSerializer.INSTANCE);
+		@SuppressWarnings("unchecked")
+		TypeSerializer<StreamElement>[] recordSerializers = new TypeSerializer[] { serializer, serializer };
+		buffer.setRecordSerializers(recordSerializers);
+
+		StatefulTask toNotify = mock(StatefulTask.class);
+		buffer.registerCheckpointEventHandler(toNotify);
+
+		// validating the sequence of records
+
+		// start of checkpoint
+		check(sequence[2], buffer.getNextNonBlocked());
+
+		// trying to pull the next makes the alignment overflow - so spilled records are replayed
+		check(sequence[1], buffer.getNextNonBlocked());
+		verify(toNotify, times(1)).abortCheckpointOnBarrier(eq(7L), any(AlignmentLimitExceededException.class));
+		check(sequence[3], buffer.getNextNonBlocked());
+
+		// the trailing records
+		check(sequence[5], buffer.getNextNonBlocked());
+		check(sequence[6], buffer.getNextNonBlocked());
+
+		// no call for a completed checkpoint must have happened
+		verify(toNotify, times(0)).triggerCheckpointOnBarrier(
+			any(CheckpointMetaData.class),
+			any(CheckpointOptions.class),
+			any(CheckpointMetrics.class));
+
+		assertNull(buffer.getNextNonBlocked());
+		assertNull(buffer.getNextNonBlocked());
+
+		buffer.cleanup();
+		checkNoTempFilesRemain();
+	}
+
 	// ------------------------------------------------------------------------
 	//  Utilities
 	// ------------------------------------------------------------------------
@@ -288,6 +355,15 @@ public class BarrierBufferAlignmentLimitTest {
 		return new BufferOrEvent(buf, channel);
 	}
 
+	private static BufferOrEvent createRecords(int channel, int numRecords) {
+		List<Object> records = new ArrayList<>(numRecords);
+		for (int i = 0; i < numRecords; i++) {
+			records.add(new StreamRecord<>(RND.nextInt()));
+		}
+
+		return new BufferOrEvent(records, channel);
+	}
+
 	private static BufferOrEvent createBarrier(long id, int channel) {
 		return new BufferOrEvent(new CheckpointBarrier(id, System.currentTimeMillis(), CheckpointOptions.forFullCheckpoint()), channel);
 	}
@@ -296,6 +372,7 @@ public class BarrierBufferAlignmentLimitTest {
 		assertNotNull(expected);
 		assertNotNull(present);
 		assertEquals(expected.isBuffer(), present.isBuffer());
+		assertEquals(expected.isRecords(), present.isRecords());
 
 		if (expected.isBuffer()) {
 			assertEquals(expected.getBuffer().getSize(), present.getBuffer().getSize());
@@ -303,6 +380,9 @@ public class BarrierBufferAlignmentLimitTest {
 			MemorySegment presentMem = present.getBuffer().getMemorySegment();
 			assertTrue("memory contents differs", expectedMem.compare(presentMem, 0, 0, PAGE_SIZE) == 0);
 		}
+		else if (expected.isRecords()) {
+			assertEquals(expected.getRecords(), present.getRecords());
+		}
 		else {
 			assertEquals(expected.getEvent(), present.getEvent());
 		}
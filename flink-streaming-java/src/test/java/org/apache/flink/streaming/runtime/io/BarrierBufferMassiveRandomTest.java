@@ -19,6 +19,8 @@ package org.apache.flink.streaming.runtime.io;
 
 import org.apache.flink.core.memory.MemoryType;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.concurrent.Future;
+import org.apache.flink.runtime.concurrent.impl.FlinkCompletableFuture;
 import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
@@ -161,6 +163,16 @@ public class BarrierBufferMassiveRandomTest {
 			}
 		}
 
+		@Override
+		public BufferOrEvent pollNextBufferOrEvent() throws IOException, InterruptedException {
+			return getNextBufferOrEvent();
+		}
+
+		@Override
+		public Future<Void> getAvailableFuture() {
+			return FlinkCompletableFuture.completed(null);
+		}
+
 		@Override
 		public void sendTaskEvent(TaskEvent event) {}
 
@@ -18,6 +18,7 @@
 
 package org.apache.flink.streaming.runtime.io;
 
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.checkpoint.CheckpointMetaData;
@@ -33,8 +34,11 @@ import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
+import org.apache.flink.runtime.io.network.partition.consumer.StreamTestSingleInputGate;
+import org.apache.flink.runtime.io.network.partition.consumer.UnionInputGate;
 import org.apache.flink.runtime.jobgraph.tasks.StatefulTask;
 import org.apache.flink.runtime.state.TaskStateHandles;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
 import org.junit.AfterClass;
@@ -1385,6 +1389,59 @@ public class BarrierBufferTest {
 		verify(toNotify, times(1)).abortCheckpointOnBarrier(anyLong(), any(Throwable.class));
 	}
 
+	/**
+	 * Validates that a gate suspended while side inputs load is read from for the alignment of a
+	 * checkpoint and is suspended again once the checkpoint has been triggered.
+	 */
+	@Test(timeout = 10000L)
+	public void testSuspendedInputGateDuringAlignment() throws Exception {
+		StreamTestSingleInputGate<Integer> mainInput =
+			new StreamTestSingleInputGate<>(1, PAGE_SIZE, IntSerializer.INSTANCE);
+		StreamTestSingleInputGate<Integer> sideInput =
+			new StreamTestSingleInputGate<>(1, PAGE_SIZE, IntSerializer.INSTANCE);
+
+		UnionInputGate gate = new UnionInputGate(mainInput.getInputGate(), sideInput.getInputGate());
+		gate.suspendInputGate(mainInput.getInputGate());
+
+		CheckpointBarrier barrier = new CheckpointBarrier(1L, System.currentTimeMillis(), CheckpointOptions.forFullCheckpoint());
+
+		mainInput.sendElement(new StreamRecord<>(1), 0);
+		sideInput.sendEvent(barrier, 0);
+		mainInput.sendEvent(barrier, 0);
+		mainInput.sendElement(new StreamRecord<>(2), 0);
+
+		BarrierBuffer buffer = new BarrierBuffer(gate, IO_MANAGER);
+
+		StatefulTask toNotify = mock(StatefulTask.class);
+		buffer.registerCheckpointEventHandler(toNotify);
+
+		// the barrier of the side input starts the alignment, which reads from the main input
+		BufferOrEvent next = buffer.getNextNonBlocked();
+		assertTrue(next.isBuffer());
+		assertEquals(0, next.getChannelIndex());
+
+		// the barrier of the main input completes the alignment, which suspends the main input again
+		assertNull(buffer.pollNext());
+		verify(toNotify, times(1)).triggerCheckpointOnBarrier(argThat(new CheckpointMatcher(1L)), any(CheckpointOptions.class), any(CheckpointMetrics.class));
+
+		sideInput.sendElement(new StreamRecord<>(3), 0);
+
+		next = buffer.getNextNonBlocked();
+		assertTrue(next.isBuffer());
+		assertEquals(1, next.getChannelIndex());
+		assertNull(buffer.pollNext());
+
+		// the main input is read from once resumed
+		gate.resumeInputGate(mainInput.getInputGate());
+
+		next = buffer.getNextNonBlocked();
+		assertTrue(next.isBuffer());
+		assertEquals(0, next.getChannelIndex());
+
+		buffer.cleanup();
+		checkNoTempFilesRemain();
+	}
+
 	// ------------------------------------------------------------------------
 	//  Utils
 	// ------------------------------------------------------------------------
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.io;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the {@link MinWatermarkTree}.
+ */
+public class MinWatermarkTreeTest {
+
+	@Test
+	public void testMinimum() {
+		MinWatermarkTree tree = new MinWatermarkTree(3);
+		assertEquals(Long.MIN_VALUE, tree.getMin());
+
+		assertEquals(Long.MIN_VALUE, tree.update(0, 5L));
+		assertEquals(Long.MIN_VALUE, tree.update(1, 3L));
+		assertEquals(3L, tree.update(2, 7L));
+		assertEquals(5L, tree.update(1, 10L));
+		assertEquals(7L, tree.update(0, 12L));
+
+		assertEquals(12L, tree.get(0));
+		assertEquals(10L, tree.get(1));
+		assertEquals(7L, tree.get(2));
+	}
+
+	@Test
+	public void testExclude() {
+		MinWatermarkTree tree = new MinWatermarkTree(2);
+		tree.update(0, 4L);
+		tree.exclude(1);
+		assertEquals(4L, tree.getMin());
+
+		tree.exclude(0);
+		assertEquals(Long.MAX_VALUE, tree.getMin());
+	}
+
+	@Test
+	public void testNoChannels() {
+		assertEquals(Long.MAX_VALUE, new MinWatermarkTree(0).getMin());
+	}
+
+	@Test
+	public void testAgainstScan() {
+		Random random = new Random(42);
+		int numChannels = 37;
+		long[] watermarks = new long[numChannels];
+		Arrays.fill(watermarks, Long.MIN_VALUE);
+		MinWatermarkTree tree = new MinWatermarkTree(numChannels);
+
+		for (int i = 0; i < 10_000; i++) {
+			int channel = random.nextInt(numChannels);
+			watermarks[channel] += random.nextInt(100);
+			if (watermarks[channel] < 0) {
+				watermarks[channel] = random.nextInt(1000);
+			}
+
+			long expected = Long.MAX_VALUE;
+			for (long watermark : watermarks) {
+				expected = Math.min(expected, watermark);
+			}
+			assertEquals(expected, tree.update(channel, watermarks[channel]));
+		}
+	}
+}
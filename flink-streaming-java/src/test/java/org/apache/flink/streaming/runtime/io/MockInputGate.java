@@ -18,6 +18,8 @@
 
 package org.apache.flink.streaming.runtime.io;
 
+import org.apache.flink.runtime.concurrent.Future;
+import org.apache.flink.runtime.concurrent.impl.FlinkCompletableFuture;
 import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
@@ -81,6 +83,16 @@ public class MockInputGate implements InputGate {
 		return next;
 	}
 
+	@Override
+	public BufferOrEvent pollNextBufferOrEvent() {
+		return getNextBufferOrEvent();
+	}
+
+	@Override
+	public Future<Void> getAvailableFuture() {
+		return FlinkCompletableFuture.completed(null);
+	}
+
 	@Override
 	public void requestPartitions() {
 	}
@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.io;
+
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemoryType;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElementSerializer;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link SpillingMainInputBuffer}.
+ */
+public class SpillingMainInputBufferTest {
+
+	private static final int PAGE_SIZE = 4096;
+
+	private static final int NUM_PAGES = 4;
+
+	private static IOManager ioManager;
+
+	private MemoryManager memoryManager;
+
+	@BeforeClass
+	public static void setupIOManager() {
+		ioManager = new IOManagerAsync();
+	}
+
+	@AfterClass
+	public static void shutdownIOManager() {
+		ioManager.shutdown();
+	}
+
+	@Before
+	public void setupMemoryManager() {
+		memoryManager = new MemoryManager(NUM_PAGES * PAGE_SIZE, 1, PAGE_SIZE, MemoryType.HEAP, true);
+	}
+
+	@After
+	public void checkResourcesReleased() {
+		assertTrue("Not all memory was returned", memoryManager.verifyEmpty());
+		memoryManager.shutdown();
+
+		for (File dir : ioManager.getSpillingDirectories()) {
+			File[] files = dir.listFiles();
+			assertTrue("Spill files remain", files == null || files.length == 0);
+		}
+	}
+
+	@Test
+	public void testReplayInMemory() throws Exception {
+		testReplay(100, false);
+	}
+
+	@Test
+	public void testReplaySpilled() throws Exception {
+		// about 20 bytes per record, many times the available memory
+		testReplay(50_000, false);
+	}
+
+	@Test
+	public void testReplaySpilledWithObjectReuse() throws Exception {
+		testReplay(50_000, true);
+	}
+
+	@Test
+	public void testReleaseWithoutReplay() throws Exception {
+		SpillingMainInputBuffer<String> buffer = createBuffer(false);
+		for (int i = 0; i < 50_000; i++) {
+			buffer.add(new StreamRecord<>("record-" + i, i));
+		}
+		buffer.release();
+		buffer.release();
+	}
+
+	@Test
+	public void testPagesAreAllocatedWithFirstRecord() throws Exception {
+		SpillingMainInputBuffer<String> buffer = createBuffer(false);
+		assertTrue(memoryManager.verifyEmpty());
+
+		// an empty buffer can be snapshotted and replayed without taking memory
+		ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+		buffer.snapshot(snapshot);
+		assertTrue(memoryManager.verifyEmpty());
+
+		buffer.add(new StreamRecord<>("record", 0L));
+		assertFalse(memoryManager.verifyEmpty());
+		buffer.release();
+
+		SpillingMainInputBuffer<String> restored = createBuffer(false);
+		restored.restore(new ByteArrayInputStream(snapshot.toByteArray()));
+		assertEquals(0, restored.size());
+		assertFalse(restored.replay().hasNext());
+		restored.release();
+	}
+
+	@Test
+	public void testReplayWithoutMemory() throws Exception {
+		List<MemorySegment> otherMemory = memoryManager.allocatePages(new Object(), NUM_PAGES);
+		try {
+			SpillingMainInputBuffer<String> buffer = createBuffer(false);
+			for (int i = 0; i < 10_000; i++) {
+				buffer.add(new StreamRecord<>("record-" + i, i));
+			}
+
+			Iterator<StreamRecord<?>> replay = buffer.replay();
+			for (int i = 0; i < 10_000; i++) {
+				assertEquals(new StreamRecord<>("record-" + i, i), replay.next());
+			}
+			assertFalse(replay.hasNext());
+		} finally {
+			memoryManager.release(otherMemory);
+		}
+	}
+
+	@Test
+	public void testSnapshotAndRestore() throws Exception {
+		SpillingMainInputBuffer<String> buffer = createBuffer(false);
+		for (int i = 0; i < 50_000; i++) {
+			buffer.add(new StreamRecord<>("record-" + i, i));
+		}
+
+		ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+		buffer.snapshot(snapshot);
+
+		// the buffer can be written to and replayed after the snapshot
+		buffer.add(new StreamRecord<>("record-50000", 50_000L));
+		assertEquals(50_001, buffer.size());
+		Iterator<StreamRecord<?>> replay = buffer.replay();
+		for (int i = 0; i <= 50_000; i++) {
+			assertEquals(new StreamRecord<>("record-" + i, i), replay.next());
+		}
+		assertFalse(replay.hasNext());
+
+		SpillingMainInputBuffer<String> restored = createBuffer(false);
+		restored.add(new StreamRecord<>("first", 0L));
+		restored.restore(new ByteArrayInputStream(snapshot.toByteArray()));
+		assertEquals(50_001, restored.size());
+
+		Iterator<StreamRecord<?>> restoredReplay = restored.replay();
+		assertEquals(new StreamRecord<>("first", 0L), restoredReplay.next());
+		for (int i = 0; i < 50_000; i++) {
+			assertEquals(new StreamRecord<>("record-" + i, i), restoredReplay.next());
+		}
+		assertFalse(restoredReplay.hasNext());
+	}
+
+	@Test
+	public void testSnapshotWrittenAfterRelease() throws Exception {
+		SpillingMainInputBuffer<String> buffer = createBuffer(false);
+		for (int i = 0; i < 50_000; i++) {
+			buffer.add(new StreamRecord<>("record-" + i, i));
+		}
+		SpillingMainInputBuffer<String>.Snapshot snapshot = buffer.snapshot();
+
+		// neither further records nor the release of the buffer affect the snapshot
+		for (int i = 50_000; i < 100_000; i++) {
+			buffer.add(new StreamRecord<>("record-" + i, i));
+		}
+		buffer.release();
+		assertFalse(memoryManager.verifyEmpty());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		snapshot.writeTo(out);
+		snapshot.release();
+		snapshot.release();
+		assertTrue(memoryManager.verifyEmpty());
+
+		SpillingMainInputBuffer<String> restored = createBuffer(false);
+		restored.restore(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(50_000, restored.size());
+
+		Iterator<StreamRecord<?>> replay = restored.replay();
+		for (int i = 0; i < 50_000; i++) {
+			assertEquals(new StreamRecord<>("record-" + i, i), replay.next());
+		}
+		assertFalse(replay.hasNext());
+	}
+
+	/**
+	 * Snapshots end up in checkpoints and savepoints, so their format must not depend on the
+	 * pages of the buffer: the number of records followed by the records as written by the
+	 * {@link StreamElementSerializer}.
+	 */
+	@Test
+	public void testSnapshotFormatIsIndependentOfPages() throws Exception {
+		StreamElementSerializer<String> serializer = new StreamElementSerializer<>(StringSerializer.INSTANCE);
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		DataOutputViewStreamWrapper expectedView = new DataOutputViewStreamWrapper(expected);
+		expectedView.writeLong(50_000);
+
+		SpillingMainInputBuffer<String> buffer = createBuffer(false);
+		for (int i = 0; i < 50_000; i++) {
+			StreamRecord<String> record = new StreamRecord<>("record-" + i, i);
+			buffer.add(record);
+			serializer.serialize(record, expectedView);
+		}
+
+		ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+		buffer.snapshot(snapshot);
+		buffer.release();
+		assertArrayEquals(expected.toByteArray(), snapshot.toByteArray());
+
+		// a buffer with larger pages restores the snapshot
+		MemoryManager largePagesMemoryManager = new MemoryManager(NUM_PAGES * 2 * PAGE_SIZE, 1, 2 * PAGE_SIZE, MemoryType.HEAP, true);
+		try {
+			SpillingMainInputBuffer<String> restored = new SpillingMainInputBuffer<>(
+				StringSerializer.INSTANCE,
+				largePagesMemoryManager,
+				ioManager,
+				this,
+				NUM_PAGES,
+				false);
+			restored.restore(new ByteArrayInputStream(snapshot.toByteArray()));
+			assertEquals(50_000, restored.size());
+
+			Iterator<StreamRecord<?>> replay = restored.replay();
+			for (int i = 0; i < 50_000; i++) {
+				assertEquals(new StreamRecord<>("record-" + i, i), replay.next());
+			}
+			assertFalse(replay.hasNext());
+			assertTrue(largePagesMemoryManager.verifyEmpty());
+		} finally {
+			largePagesMemoryManager.shutdown();
+		}
+	}
+
+	private void testReplay(int numRecords, boolean objectReuse) throws Exception {
+		SpillingMainInputBuffer<String> buffer = createBuffer(objectReuse);
+
+		for (int i = 0; i < numRecords; i++) {
+			if (i % 2 == 0) {
+				buffer.add(new StreamRecord<>("record-" + i, i));
+			} else {
+				buffer.add(new StreamRecord<>("record-" + i));
+			}
+		}
+		assertEquals(numRecords, buffer.size());
+
+		Iterator<StreamRecord<?>> replay = buffer.replay();
+		for (int i = 0; i < numRecords; i++) {
+			assertTrue(replay.hasNext());
+			StreamRecord<?> record = replay.next();
+			assertEquals("record-" + i, record.getValue());
+			assertEquals(i % 2 == 0, record.hasTimestamp());
+			if (record.hasTimestamp()) {
+				assertEquals(i, record.getTimestamp());
+			}
+		}
+		assertFalse(replay.hasNext());
+
+		// the exhausted iterator released the buffer already
+		assertTrue(memoryManager.verifyEmpty());
+		buffer.release();
+	}
+
+	private SpillingMainInputBuffer<String> createBuffer(boolean objectReuse) throws Exception {
+		return new SpillingMainInputBuffer<>(
+			StringSerializer.INSTANCE,
+			memoryManager,
+			ioManager,
+			this,
+			NUM_PAGES,
+			objectReuse);
+	}
+}
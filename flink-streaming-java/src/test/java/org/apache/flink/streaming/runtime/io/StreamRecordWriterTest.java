@@ -84,6 +84,59 @@ public class StreamRecordWriterTest {
 		}
 	}
 
+	/**
+	 * Verifies that adaptive flushing only flushes the channels with pending data, once the
+	 * data is due.
+	 */
+	@Test
+	public void testAdaptiveFlushingFlushesDueChannels() throws Exception {
+		ResultPartitionWriter mockResultPartitionWriter = getMockWriter(2);
+
+		StreamRecordWriter<LongValue> testWriter = new StreamRecordWriter<>(
+				mockResultPartitionWriter, new FirstChannelSelector<LongValue>(), 20, null, true);
+
+		try {
+			testWriter.emit(new LongValue(42L));
+
+			verify(mockResultPartitionWriter, timeout(20000)).writeBuffer(any(Buffer.class), eq(0));
+			verify(mockResultPartitionWriter, never()).writeBuffer(any(Buffer.class), eq(1));
+
+			assertTrue(testWriter.getEffectiveTimeout() <= 20);
+		}
+		finally {
+			testWriter.close();
+		}
+	}
+
+	/**
+	 * Verifies that adaptive flushing does not flush a channel while its consumer has not
+	 * consumed the previous buffers.
+	 */
+	@Test
+	public void testAdaptiveFlushingSkipsBackPressuredChannels() throws Exception {
+		ResultPartitionWriter mockResultPartitionWriter = getMockWriter(1);
+		when(mockResultPartitionWriter.getNumberOfQueuedBuffers(0)).thenReturn(1);
+
+		StreamRecordWriter<LongValue> testWriter = new StreamRecordWriter<>(
+				mockResultPartitionWriter, new FirstChannelSelector<LongValue>(), 5, null, true);
+
+		try {
+			testWriter.emit(new LongValue(42L));
+
+			// several timeouts pass without a flush
+			Thread.sleep(100);
+			verify(mockResultPartitionWriter, never()).writeBuffer(any(Buffer.class), anyInt());
+
+			// the consumer caught up
+			when(mockResultPartitionWriter.getNumberOfQueuedBuffers(0)).thenReturn(0);
+
+			verify(mockResultPartitionWriter, timeout(20000)).writeBuffer(any(Buffer.class), eq(0));
+		}
+		finally {
+			testWriter.close();
+		}
+	}
+
 	private static ResultPartitionWriter getMockWriter(int numPartitions) throws Exception {
 		BufferProvider mockProvider = mock(BufferProvider.class);
 		when(mockProvider.requestBufferBlocking()).thenAnswer(new Answer<Buffer>() {
@@ -105,6 +158,16 @@ public class StreamRecordWriterTest {
 
 	// ------------------------------------------------------------------------
 
+	private static class FirstChannelSelector<T extends IOReadableWritable> implements ChannelSelector<T> {
+
+		private final int[] firstChannel = new int[] { 0 };
+
+		@Override
+		public int[] selectChannels(T record, int numChannels) {
+			return firstChannel;
+		}
+	}
+
 	private static class FailingWriter<T extends IOReadableWritable> extends StreamRecordWriter<T> {
 
 		private int flushesBeforeException;
@@ -28,6 +28,7 @@ import org.apache.flink.api.common.typeutils.base.IntSerializer;
 import org.apache.flink.api.common.typeutils.base.StringSerializer;
 import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.core.fs.FSDataInputStream;
 import org.apache.flink.core.fs.FSDataOutputStream;
 import org.apache.flink.core.testutils.OneShotLatch;
@@ -41,6 +42,8 @@ import org.apache.flink.runtime.operators.testutils.MockInputSplitProvider;
 import org.apache.flink.runtime.state.StateInitializationContext;
 import org.apache.flink.runtime.state.StateSnapshotContext;
 import org.apache.flink.runtime.state.TaskStateHandles;
+import org.apache.flink.runtime.taskmanager.TaskManagerRuntimeInfo;
+import org.apache.flink.runtime.util.TestingTaskManagerRuntimeInfo;
 import org.apache.flink.streaming.api.collector.selector.OutputSelector;
 import org.apache.flink.streaming.api.graph.StreamConfig;
 import org.apache.flink.streaming.api.graph.StreamEdge;
@@ -521,6 +524,70 @@ public class OneInputStreamTaskTest extends TestLogger {
 		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
 	}
 
+	/**
+	 * This test verifies that records, aligned checkpoint barriers, processing time timers and the
+	 * end of input are handled when the task runs the mailbox loop, and that the timers fire in
+	 * the task thread.
+	 */
+	@Test
+	public void testMailboxLoop() throws Exception {
+		final OneInputStreamTask<String, String> mapTask = new OneInputStreamTask<String, String>();
+		final OneInputStreamTaskTestHarness<String, String> testHarness = new OneInputStreamTaskTestHarness<String, String>(mapTask, 2, 2, BasicTypeInfo.STRING_TYPE_INFO, BasicTypeInfo.STRING_TYPE_INFO);
+		testHarness.setupOutputForSingletonOperatorChain();
+
+		StreamConfig streamConfig = testHarness.getStreamConfig();
+		streamConfig.setStreamOperator(new TimerRegisteringOperator());
+		TimerRegisteringOperator.timerLatch = new OneShotLatch();
+
+		Configuration taskManagerConfig = new Configuration();
+		taskManagerConfig.setBoolean(TaskManagerOptions.TASK_MAILBOX_LOOP, true);
+
+		ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<Object>();
+		long initialTime = 0L;
+
+		testHarness.invoke(new TaskManagerConfigStreamMockEnvironment(
+			testHarness.jobConfig,
+			testHarness.taskConfig,
+			testHarness.getExecutionConfig(),
+			testHarness.memorySize,
+			new MockInputSplitProvider(),
+			testHarness.bufferSize,
+			taskManagerConfig));
+		testHarness.waitForTaskRunning();
+
+		// the timer registered in open() is handed over to the mailbox and fires in the task thread
+		TimerRegisteringOperator.timerLatch.await();
+		assertEquals(TimerRegisteringOperator.taskThread, TimerRegisteringOperator.timerThread);
+
+		testHarness.processEvent(new CheckpointBarrier(0, 0, CheckpointOptions.forFullCheckpoint()), 0, 0);
+
+		// blocked by the alignment
+		testHarness.processElement(new StreamRecord<String>("Hello-0-0", initialTime), 0, 0);
+
+		// not blocked, the loop has to wake up for it although the other channel is blocked
+		testHarness.processElement(new StreamRecord<String>("Hello-1-1", initialTime), 1, 1);
+		expectedOutput.add(new StreamRecord<String>("Hello-1-1", initialTime));
+
+		testHarness.waitForInputProcessing();
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+
+		testHarness.processEvent(new CheckpointBarrier(0, 0, CheckpointOptions.forFullCheckpoint()), 0, 1);
+		testHarness.processEvent(new CheckpointBarrier(0, 0, CheckpointOptions.forFullCheckpoint()), 1, 0);
+		testHarness.processEvent(new CheckpointBarrier(0, 0, CheckpointOptions.forFullCheckpoint()), 1, 1);
+
+		testHarness.waitForInputProcessing();
+
+		expectedOutput.add(new CheckpointBarrier(0, 0, CheckpointOptions.forFullCheckpoint()));
+		expectedOutput.add(new StreamRecord<String>("Hello-0-0", initialTime));
+
+		// the end of input ends the loop
+		testHarness.endInput();
+
+		testHarness.waitForTaskCompletion();
+
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+	}
+
 	/**
 	 * Tests that the stream operator can snapshot and restore the operator state of chained
 	 * operators
@@ -665,6 +732,61 @@ public class OneInputStreamTaskTest extends TestLogger {
 		}
 	}
 
+	private static class TaskManagerConfigStreamMockEnvironment extends StreamMockEnvironment {
+
+		private final Configuration taskManagerConfig;
+
+		TaskManagerConfigStreamMockEnvironment(
+				Configuration jobConfig, Configuration taskConfig,
+				ExecutionConfig executionConfig, long memorySize,
+				MockInputSplitProvider inputSplitProvider, int bufferSize,
+				Configuration taskManagerConfig) {
+			super(jobConfig, taskConfig, executionConfig, memorySize, inputSplitProvider, bufferSize);
+			this.taskManagerConfig = taskManagerConfig;
+		}
+
+		@Override
+		public TaskManagerRuntimeInfo getTaskManagerInfo() {
+			return new TestingTaskManagerRuntimeInfo(taskManagerConfig);
+		}
+	}
+
+	/**
+	 * Forwards its input and registers a processing time timer when opened, noting the thread
+	 * the timer fires in.
+	 */
+	private static class TimerRegisteringOperator
+			extends AbstractStreamOperator<String>
+			implements OneInputStreamOperator<String, String> {
+
+		private static final long serialVersionUID = 1L;
+
+		static volatile OneShotLatch timerLatch;
+		static volatile Thread taskThread;
+		static volatile Thread timerThread;
+
+		@Override
+		public void open() throws Exception {
+			super.open();
+
+			taskThread = Thread.currentThread();
+			getProcessingTimeService().registerTimer(
+				getProcessingTimeService().getCurrentProcessingTime(),
+				new ProcessingTimeCallback() {
+					@Override
+					public void onProcessingTime(long timestamp) throws Exception {
+						timerThread = Thread.currentThread();
+						timerLatch.trigger();
+					}
+				});
+		}
+
+		@Override
+		public void processElement(StreamRecord<String> element) throws Exception {
+			output.collect(element);
+		}
+	}
+
 	private static class AcknowledgeStreamMockEnvironment extends StreamMockEnvironment {
 		private volatile long checkpointId;
 		private volatile SubtaskState checkpointStateHandles;
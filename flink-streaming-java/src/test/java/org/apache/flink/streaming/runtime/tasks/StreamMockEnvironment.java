@@ -53,6 +53,7 @@ import org.apache.flink.runtime.plugable.DeserializationDelegate;
 import org.apache.flink.runtime.plugable.NonReusingDeserializationDelegate;
 import org.apache.flink.runtime.query.KvStateRegistry;
 import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.TaskLocalStateStore;
 import org.apache.flink.runtime.taskmanager.TaskManagerRuntimeInfo;
 import org.apache.flink.runtime.util.TestingTaskManagerRuntimeInfo;
 
@@ -99,6 +100,8 @@ public class StreamMockEnvironment implements Environment {
 
 	private final TaskKvStateRegistry kvStateRegistry;
 
+	private TaskLocalStateStore taskLocalStateStore;
+
 	private final int bufferSize;
 
 	private final ExecutionConfig executionConfig;
@@ -332,6 +335,15 @@ public class StreamMockEnvironment implements Environment {
 		return kvStateRegistry;
 	}
 
+	@Override
+	public TaskLocalStateStore getTaskLocalStateStore() {
+		return taskLocalStateStore;
+	}
+
+	public void setTaskLocalStateStore(TaskLocalStateStore taskLocalStateStore) {
+		this.taskLocalStateStore = taskLocalStateStore;
+	}
+
 	@Override
 	public void acknowledgeCheckpoint(long checkpointId, CheckpointMetrics checkpointMetrics) {
 	}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.tasks;
+
+import org.apache.flink.core.testutils.CheckedThread;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link StreamTaskMailbox}.
+ */
+public class StreamTaskMailboxTest extends TestLogger {
+
+	@Test
+	public void testMailsRunInOrder() {
+		final StreamTaskMailbox mailbox = new StreamTaskMailbox();
+		final List<Integer> executed = new ArrayList<>();
+
+		for (int i = 0; i < 3; i++) {
+			final int id = i;
+			mailbox.execute(new Runnable() {
+				@Override
+				public void run() {
+					executed.add(id);
+				}
+			});
+		}
+
+		assertTrue(mailbox.hasMail());
+		assertEquals(3, mailbox.runPendingMails());
+		assertFalse(mailbox.hasMail());
+		assertEquals(Arrays.asList(0, 1, 2), executed);
+		assertEquals(0, mailbox.runPendingMails());
+	}
+
+	@Test
+	public void testMailsEnqueuedByMailsAreRun() {
+		final StreamTaskMailbox mailbox = new StreamTaskMailbox();
+		final List<Integer> executed = new ArrayList<>();
+
+		mailbox.execute(new Runnable() {
+			@Override
+			public void run() {
+				executed.add(0);
+				mailbox.execute(new Runnable() {
+					@Override
+					public void run() {
+						executed.add(1);
+					}
+				});
+			}
+		});
+
+		assertEquals(2, mailbox.runPendingMails());
+		assertEquals(Arrays.asList(0, 1), executed);
+	}
+
+	@Test
+	public void testWakeUpBeforeAwaitIsNotLost() throws Exception {
+		final StreamTaskMailbox mailbox = new StreamTaskMailbox();
+
+		mailbox.wakeUp();
+
+		// must return immediately
+		mailbox.awaitMailOrWakeUp();
+	}
+
+	@Test
+	public void testAwaitReturnsOnMailFromOtherThread() throws Exception {
+		final StreamTaskMailbox mailbox = new StreamTaskMailbox();
+
+		CheckedThread waiter = new CheckedThread() {
+			@Override
+			public void go() throws Exception {
+				mailbox.awaitMailOrWakeUp();
+			}
+		};
+		waiter.start();
+
+		mailbox.execute(new Runnable() {
+			@Override
+			public void run() {}
+		});
+
+		waiter.sync();
+		assertTrue(mailbox.hasMail());
+	}
+}
@@ -73,6 +73,51 @@ public class SystemProcessingTimeServiceTest extends TestLogger {
 		}
 	}
 
+	/**
+	 * Tests that timers are handed over to the trigger executor and fire in the thread
+	 * that drains the mailbox, still holding the lock.
+	 */
+	@Test
+	public void testTriggerHandedOverToMailbox() throws Exception {
+
+		final Object lock = new Object();
+		final AtomicReference<Throwable> errorRef = new AtomicReference<>();
+		final StreamTaskMailbox mailbox = new StreamTaskMailbox();
+
+		final SystemProcessingTimeService timer = new SystemProcessingTimeService(
+				new ReferenceSettingExceptionHandler(errorRef), lock, null, mailbox);
+
+		final Thread mailboxThread = Thread.currentThread();
+		final AtomicBoolean fired = new AtomicBoolean();
+
+		try {
+			timer.registerTimer(System.currentTimeMillis(), new ProcessingTimeCallback() {
+				@Override
+				public void onProcessingTime(long timestamp) {
+					assertTrue(Thread.holdsLock(lock));
+					assertEquals(mailboxThread, Thread.currentThread());
+					fired.set(true);
+				}
+			});
+
+			// the timer thread only enqueues the trigger
+			mailbox.awaitMailOrWakeUp();
+			assertFalse(fired.get());
+
+			assertEquals(1, mailbox.runPendingMails());
+			assertTrue(fired.get());
+			assertFalse(mailbox.hasMail());
+
+			// check that no asynchronous error was reported
+			if (errorRef.get() != null) {
+				throw new Exception(errorRef.get());
+			}
+		}
+		finally {
+			timer.shutdownService();
+		}
+	}
+
 	/**
 	 * Tests that the schedule at fixed rate callback is called under the given lock
 	 */
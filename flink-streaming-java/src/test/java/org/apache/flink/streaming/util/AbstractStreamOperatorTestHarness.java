@@ -79,6 +79,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -215,6 +216,14 @@ public class AbstractStreamOperatorTestHarness<OUT> {
 			throw new RuntimeException(e.getMessage(), e);
 		}
 
+		doAnswer(new Answer<CheckpointStreamFactory>() {
+			@Override
+			public CheckpointStreamFactory answer(InvocationOnMock invocationOnMock) throws Throwable {
+				return (CheckpointStreamFactory) invocationOnMock.getArguments()[0];
+			}
+		}).when(mockTask).createKeyedStateStreamFactory(
+			any(CheckpointStreamFactory.class), anyLong(), any(CheckpointOptions.class));
+
 		try {
 			doAnswer(new Answer<OperatorStateBackend>() {
 				@Override